@@ -48,6 +48,7 @@ public class CassandraConfiguration {
     public static final int DEFAULT_FLAGS_UPDATE_MESSAGE_ID_MAX_RETRY = 1000;
     public static final int DEFAULT_MODSEQ_MAX_RETRY = 100000;
     public static final int DEFAULT_UID_MAX_RETRY = 100000;
+    public static final int DEFAULT_UID_MODSEQ_LEASE_EXPIRY = toIntExact(TimeUnit.SECONDS.toMillis(10));
     public static final int DEFAULT_ACL_MAX_RETRY = 1000;
     public static final int DEFAULT_FETCH_NEXT_PAGE_ADVANCE_IN_ROW = 100;
     public static final int DEFAULT_BLOB_PART_SIZE = 100 * 1024;
@@ -65,11 +66,14 @@ public class CassandraConfiguration {
     private static final String MAILBOX_MAX_RETRY_ACL = "mailbox.max.retry.acl";
     private static final String MAILBOX_MAX_RETRY_MODSEQ = "mailbox.max.retry.modseq";
     private static final String MAILBOX_MAX_RETRY_UID = "mailbox.max.retry.uid";
+    private static final String MAILBOX_UID_MODSEQ_LEASE_SIZE = "mailbox.uid.modseq.lease.size";
+    private static final String MAILBOX_UID_MODSEQ_LEASE_EXPIRY = "mailbox.uid.modseq.lease.expiry";
     private static final String MAILBOX_MAX_RETRY_MESSAGE_FLAGS_UPDATE = "mailbox.max.retry.message.flags.update";
     private static final String MAILBOX_MAX_RETRY_MESSAGE_ID_FLAGS_UPDATE = "mailbox.max.retry.message.id.flags.update";
     private static final String FETCH_ADVANCE_ROW_COUNT = "fetch.advance.row.count";
     private static final String CHUNK_SIZE_MESSAGE_READ = "chunk.size.message.read";
     private static final String CHUNK_SIZE_EXPUNGE = "chunk.size.expunge";
+    private static final String CHUNK_SIZE_FLAGS_UPDATE = "chunk.size.flags.update";
     private static final String BLOB_PART_SIZE = "mailbox.blob.part.size";
     private static final String ATTACHMENT_V2_MIGRATION_READ_TIMEOUT = "attachment.v2.migration.read.timeout";
     private static final String MESSAGE_ATTACHMENTID_READ_TIMEOUT = "message.attachmentids.read.timeout";
@@ -82,10 +86,13 @@ public class CassandraConfiguration {
     public static class Builder {
         private Optional<Integer> messageReadChunkSize = Optional.empty();
         private Optional<Integer> expungeChunkSize = Optional.empty();
+        private Optional<Integer> flagsUpdateChunkSize = Optional.empty();
         private Optional<Integer> flagsUpdateMessageIdMaxRetry = Optional.empty();
         private Optional<Integer> flagsUpdateMessageMaxRetry = Optional.empty();
         private Optional<Integer> modSeqMaxRetry = Optional.empty();
         private Optional<Integer> uidMaxRetry = Optional.empty();
+        private Optional<Integer> uidModSeqLeaseSize = Optional.empty();
+        private Optional<Integer> uidModSeqLeaseExpiry = Optional.empty();
         private Optional<Integer> aclMaxRetry = Optional.empty();
         private Optional<Integer> fetchNextPageInAdvanceRow = Optional.empty();
         private Optional<Integer> blobPartSize = Optional.empty();
@@ -120,6 +127,12 @@ public class CassandraConfiguration {
             return this;
         }
 
+        public Builder flagsUpdateChunkSize(int value) {
+            Preconditions.checkArgument(value > 0, "flagsUpdateChunkSize needs to be strictly positive");
+            this.flagsUpdateChunkSize = Optional.of(value);
+            return this;
+        }
+
         public Builder flagsUpdateMessageIdMaxRetry(int value) {
             Preconditions.checkArgument(value > 0, "flagsUpdateMessageIdMaxRetry needs to be strictly positive");
             this.flagsUpdateMessageIdMaxRetry = Optional.of(value);
@@ -144,6 +157,18 @@ public class CassandraConfiguration {
             return this;
         }
 
+        public Builder uidModSeqLeaseSize(int value) {
+            Preconditions.checkArgument(value > 0, "uidModSeqLeaseSize needs to be strictly positive");
+            this.uidModSeqLeaseSize = Optional.of(value);
+            return this;
+        }
+
+        public Builder uidModSeqLeaseExpiry(int value) {
+            Preconditions.checkArgument(value > 0, "uidModSeqLeaseExpiry needs to be strictly positive");
+            this.uidModSeqLeaseExpiry = Optional.of(value);
+            return this;
+        }
+
         public Builder aclMaxRetry(int value) {
             Preconditions.checkArgument(value > 0, "aclMaxRetry needs to be strictly positive");
             this.aclMaxRetry = Optional.of(value);
@@ -205,6 +230,11 @@ public class CassandraConfiguration {
             return this;
         }
 
+        public Builder flagsUpdateChunkSize(Optional<Integer> value) {
+            value.ifPresent(this::flagsUpdateChunkSize);
+            return this;
+        }
+
         public Builder flagsUpdateMessageIdMaxRetry(Optional<Integer> value) {
             value.ifPresent(this::flagsUpdateMessageIdMaxRetry);
             return this;
@@ -225,6 +255,16 @@ public class CassandraConfiguration {
             return this;
         }
 
+        public Builder uidModSeqLeaseSize(Optional<Integer> value) {
+            value.ifPresent(this::uidModSeqLeaseSize);
+            return this;
+        }
+
+        public Builder uidModSeqLeaseExpiry(Optional<Integer> value) {
+            value.ifPresent(this::uidModSeqLeaseExpiry);
+            return this;
+        }
+
         public Builder aclMaxRetry(Optional<Integer> value) {
             value.ifPresent(this::aclMaxRetry);
             return this;
@@ -301,10 +341,13 @@ public class CassandraConfiguration {
             return new CassandraConfiguration(aclMaxRetry.orElse(DEFAULT_ACL_MAX_RETRY),
                 messageReadChunkSize.orElse(DEFAULT_MESSAGE_CHUNK_SIZE_ON_READ),
                 expungeChunkSize.orElse(DEFAULT_EXPUNGE_BATCH_SIZE),
+                flagsUpdateChunkSize.orElse(DEFAULT_UPDATE_FLAGS_BATCH_SIZE),
                 flagsUpdateMessageIdMaxRetry.orElse(DEFAULT_FLAGS_UPDATE_MESSAGE_ID_MAX_RETRY),
                 flagsUpdateMessageMaxRetry.orElse(DEFAULT_FLAGS_UPDATE_MESSAGE_MAX_RETRY),
                 modSeqMaxRetry.orElse(DEFAULT_MODSEQ_MAX_RETRY),
                 uidMaxRetry.orElse(DEFAULT_UID_MAX_RETRY),
+                uidModSeqLeaseSize,
+                uidModSeqLeaseExpiry.orElse(DEFAULT_UID_MODSEQ_LEASE_EXPIRY),
                 fetchNextPageInAdvanceRow.orElse(DEFAULT_FETCH_NEXT_PAGE_ADVANCE_IN_ROW),
                 blobPartSize.orElse(DEFAULT_BLOB_PART_SIZE),
                 attachmentV2MigrationReadTimeout.orElse(DEFAULT_ATTACHMENT_V2_MIGRATION_READ_TIMEOUT),
@@ -330,6 +373,10 @@ public class CassandraConfiguration {
                 propertiesConfiguration.getInteger(MAILBOX_MAX_RETRY_MODSEQ, null)))
             .uidMaxRetry(Optional.ofNullable(
                 propertiesConfiguration.getInteger(MAILBOX_MAX_RETRY_UID, null)))
+            .uidModSeqLeaseSize(Optional.ofNullable(
+                propertiesConfiguration.getInteger(MAILBOX_UID_MODSEQ_LEASE_SIZE, null)))
+            .uidModSeqLeaseExpiry(Optional.ofNullable(
+                propertiesConfiguration.getInteger(MAILBOX_UID_MODSEQ_LEASE_EXPIRY, null)))
             .flagsUpdateMessageMaxRetry(Optional.ofNullable(
                 propertiesConfiguration.getInteger(MAILBOX_MAX_RETRY_MESSAGE_FLAGS_UPDATE, null)))
             .flagsUpdateMessageIdMaxRetry(Optional.ofNullable(
@@ -340,6 +387,8 @@ public class CassandraConfiguration {
                 propertiesConfiguration.getInteger(CHUNK_SIZE_MESSAGE_READ, null)))
             .expungeChunkSize(Optional.ofNullable(
                 propertiesConfiguration.getInteger(CHUNK_SIZE_EXPUNGE, null)))
+            .flagsUpdateChunkSize(Optional.ofNullable(
+                propertiesConfiguration.getInteger(CHUNK_SIZE_FLAGS_UPDATE, null)))
             .blobPartSize(Optional.ofNullable(
                 propertiesConfiguration.getInteger(BLOB_PART_SIZE, null)))
             .attachmentV2MigrationReadTimeout(Optional.ofNullable(
@@ -363,10 +412,13 @@ public class CassandraConfiguration {
 
     private final int messageReadChunkSize;
     private final int expungeChunkSize;
+    private final int flagsUpdateChunkSize;
     private final int flagsUpdateMessageIdMaxRetry;
     private final int flagsUpdateMessageMaxRetry;
     private final int modSeqMaxRetry;
     private final int uidMaxRetry;
+    private final Optional<Integer> uidModSeqLeaseSize;
+    private final int uidModSeqLeaseExpiry;
     private final int aclMaxRetry;
     private final int fetchNextPageInAdvanceRow;
     private final int blobPartSize;
@@ -380,9 +432,10 @@ public class CassandraConfiguration {
     private final boolean messageReadStrongConsistency;
 
     @VisibleForTesting
-    CassandraConfiguration(int aclMaxRetry, int messageReadChunkSize, int expungeChunkSize,
+    CassandraConfiguration(int aclMaxRetry, int messageReadChunkSize, int expungeChunkSize, int flagsUpdateChunkSize,
                            int flagsUpdateMessageIdMaxRetry, int flagsUpdateMessageMaxRetry,
-                           int modSeqMaxRetry, int uidMaxRetry, int fetchNextPageInAdvanceRow,
+                           int modSeqMaxRetry, int uidMaxRetry, Optional<Integer> uidModSeqLeaseSize, int uidModSeqLeaseExpiry,
+                           int fetchNextPageInAdvanceRow,
                            int blobPartSize, final int attachmentV2MigrationReadTimeout, int messageAttachmentIdsReadTimeout,
                            String consistencyLevelRegular, String consistencyLevelLightweightTransaction,
                            float mailboxReadRepair, float mailboxCountersReadRepairChanceMax,
@@ -390,10 +443,13 @@ public class CassandraConfiguration {
         this.aclMaxRetry = aclMaxRetry;
         this.messageReadChunkSize = messageReadChunkSize;
         this.expungeChunkSize = expungeChunkSize;
+        this.flagsUpdateChunkSize = flagsUpdateChunkSize;
         this.flagsUpdateMessageIdMaxRetry = flagsUpdateMessageIdMaxRetry;
         this.flagsUpdateMessageMaxRetry = flagsUpdateMessageMaxRetry;
         this.modSeqMaxRetry = modSeqMaxRetry;
         this.uidMaxRetry = uidMaxRetry;
+        this.uidModSeqLeaseSize = uidModSeqLeaseSize;
+        this.uidModSeqLeaseExpiry = uidModSeqLeaseExpiry;
         this.fetchNextPageInAdvanceRow = fetchNextPageInAdvanceRow;
         this.blobPartSize = blobPartSize;
         this.attachmentV2MigrationReadTimeout = attachmentV2MigrationReadTimeout;
@@ -430,6 +486,10 @@ public class CassandraConfiguration {
         return expungeChunkSize;
     }
 
+    public int getFlagsUpdateChunkSize() {
+        return flagsUpdateChunkSize;
+    }
+
     public int getFlagsUpdateMessageIdMaxRetry() {
         return flagsUpdateMessageIdMaxRetry;
     }
@@ -446,6 +506,19 @@ public class CassandraConfiguration {
         return uidMaxRetry;
     }
 
+    /**
+     * Size of the blocks of UIDs and MODSEQs leased at once by a James node for a mailbox.
+     *
+     * Empty when each value is allocated with its own lightweight transaction.
+     */
+    public Optional<Integer> getUidModSeqLeaseSize() {
+        return uidModSeqLeaseSize;
+    }
+
+    public int getUidModSeqLeaseExpiry() {
+        return uidModSeqLeaseExpiry;
+    }
+
     public int getFetchNextPageInAdvanceRow() {
         return fetchNextPageInAdvanceRow;
     }
@@ -482,10 +555,13 @@ public class CassandraConfiguration {
             return Objects.equals(this.aclMaxRetry, that.aclMaxRetry)
                 && Objects.equals(this.messageReadChunkSize, that.messageReadChunkSize)
                 && Objects.equals(this.expungeChunkSize, that.expungeChunkSize)
+                && Objects.equals(this.flagsUpdateChunkSize, that.flagsUpdateChunkSize)
                 && Objects.equals(this.flagsUpdateMessageIdMaxRetry, that.flagsUpdateMessageIdMaxRetry)
                 && Objects.equals(this.flagsUpdateMessageMaxRetry, that.flagsUpdateMessageMaxRetry)
                 && Objects.equals(this.modSeqMaxRetry, that.modSeqMaxRetry)
                 && Objects.equals(this.uidMaxRetry, that.uidMaxRetry)
+                && Objects.equals(this.uidModSeqLeaseSize, that.uidModSeqLeaseSize)
+                && Objects.equals(this.uidModSeqLeaseExpiry, that.uidModSeqLeaseExpiry)
                 && Objects.equals(this.mailboxReadRepair, that.mailboxReadRepair)
                 && Objects.equals(this.mailboxCountersReadRepairChanceMax, that.mailboxCountersReadRepairChanceMax)
                 && Objects.equals(this.mailboxCountersReadRepairChanceOneHundred, that.mailboxCountersReadRepairChanceOneHundred)
@@ -502,8 +578,8 @@ public class CassandraConfiguration {
 
     @Override
     public final int hashCode() {
-        return Objects.hash(aclMaxRetry, messageReadChunkSize, expungeChunkSize, flagsUpdateMessageIdMaxRetry,
-            flagsUpdateMessageMaxRetry, modSeqMaxRetry, uidMaxRetry, fetchNextPageInAdvanceRow,
+        return Objects.hash(aclMaxRetry, messageReadChunkSize, expungeChunkSize, flagsUpdateChunkSize, flagsUpdateMessageIdMaxRetry,
+            flagsUpdateMessageMaxRetry, modSeqMaxRetry, uidMaxRetry, uidModSeqLeaseSize, uidModSeqLeaseExpiry, fetchNextPageInAdvanceRow,
             mailboxCountersReadRepairChanceOneHundred, mailboxCountersReadRepairChanceMax,
             blobPartSize, attachmentV2MigrationReadTimeout, messageAttachmentIdsReadTimeout,
             consistencyLevelRegular, consistencyLevelLightweightTransaction, mailboxReadRepair,
@@ -516,6 +592,7 @@ public class CassandraConfiguration {
             .add("aclMaxRetry", aclMaxRetry)
             .add("messageReadChunkSize", messageReadChunkSize)
             .add("expungeChunkSize", expungeChunkSize)
+            .add("flagsUpdateChunkSize", flagsUpdateChunkSize)
             .add("flagsUpdateMessageIdMaxRetry", flagsUpdateMessageIdMaxRetry)
             .add("flagsUpdateMessageMaxRetry", flagsUpdateMessageMaxRetry)
             .add("modSeqMaxRetry", modSeqMaxRetry)
@@ -524,6 +601,8 @@ public class CassandraConfiguration {
             .add("mailboxCountersReadRepairChanceOneHundred", mailboxCountersReadRepairChanceOneHundred)
             .add("mailboxCountersReadRepairChanceMax", mailboxCountersReadRepairChanceMax)
             .add("uidMaxRetry", uidMaxRetry)
+            .add("uidModSeqLeaseSize", uidModSeqLeaseSize)
+            .add("uidModSeqLeaseExpiry", uidModSeqLeaseExpiry)
             .add("blobPartSize", blobPartSize)
             .add("attachmentV2MigrationReadTimeout", attachmentV2MigrationReadTimeout)
             .add("messageAttachmentIdsReadTimeout", messageAttachmentIdsReadTimeout)
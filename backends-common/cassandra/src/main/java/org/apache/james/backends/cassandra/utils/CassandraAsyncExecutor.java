@@ -21,10 +21,12 @@ package org.apache.james.backends.cassandra.utils;
 
 import static org.apache.james.util.ReactorUtils.publishIfPresent;
 
+import java.util.List;
 import java.util.Optional;
 
 import javax.inject.Inject;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
@@ -60,6 +62,23 @@ public class CassandraAsyncExecutor {
                 .then();
     }
 
+    /**
+     * Executes the statements as a single unlogged batch.
+     *
+     * This is only efficient for statements targeting a same partition, which are then applied as a single mutation.
+     */
+    public Mono<Void> executeUnloggedBatch(List<? extends Statement> statements) {
+        if (statements.isEmpty()) {
+            return Mono.empty();
+        }
+        if (statements.size() == 1) {
+            return executeVoid(statements.get(0));
+        }
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        statements.forEach(batch::add);
+        return executeVoid(batch);
+    }
+
     public Mono<Row> executeSingleRow(Statement statement) {
         return executeSingleRowOptional(statement)
                 .handle(publishIfPresent());
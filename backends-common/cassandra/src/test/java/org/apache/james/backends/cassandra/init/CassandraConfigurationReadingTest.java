@@ -60,6 +60,9 @@ class CassandraConfigurationReadingTest {
                 .blobPartSize(9)
                 .attachmentV2MigrationReadTimeout(10)
                 .messageAttachmentIdsReadTimeout(11)
+                .flagsUpdateChunkSize(12)
+                .uidModSeqLeaseSize(13)
+                .uidModSeqLeaseExpiry(14)
                 .consistencyLevelRegular("LOCAL_QUORUM")
                 .consistencyLevelLightweightTransaction("LOCAL_SERIAL")
                 .build());
@@ -70,6 +70,54 @@ class CassandraConfigurationTest {
             .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    void uidModSeqLeaseSizeShouldThrowOnNegativeValue() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .uidModSeqLeaseSize(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void uidModSeqLeaseSizeShouldThrowOnZero() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .uidModSeqLeaseSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void uidModSeqLeaseExpiryShouldThrowOnNegativeValue() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .uidModSeqLeaseExpiry(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void uidModSeqLeaseExpiryShouldThrowOnZero() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .uidModSeqLeaseExpiry(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void uidModSeqLeaseSizeShouldBeDisabledByDefault() {
+        assertThat(CassandraConfiguration.DEFAULT_CONFIGURATION.getUidModSeqLeaseSize())
+            .isEmpty();
+    }
+
+    @Test
+    void flagsUpdateChunkSizeShouldThrowOnNegativeValue() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .flagsUpdateChunkSize(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void flagsUpdateChunkSizeShouldThrowOnZero() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .flagsUpdateChunkSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void messageReadChunkSizeShouldThrowOnNegativeValue() {
         assertThatThrownBy(() -> CassandraConfiguration.builder()
@@ -209,6 +257,9 @@ class CassandraConfigurationTest {
         int blobPartSize = 10;
         int attachmentV2MigrationReadTimeout = 11;
         int messageAttachmentIdReadTimeout = 12;
+        int flagsUpdateChunkSize = 13;
+        int uidModSeqLeaseSize = 14;
+        int uidModSeqLeaseExpiry = 15;
         String consistencyLevelRegular = "LOCAL_QUORUM";
         String consistencyLevelLightweightTransaction = "LOCAL_SERIAL";
 
@@ -224,6 +275,9 @@ class CassandraConfigurationTest {
             .blobPartSize(blobPartSize)
             .attachmentV2MigrationReadTimeout(attachmentV2MigrationReadTimeout)
             .messageAttachmentIdsReadTimeout(messageAttachmentIdReadTimeout)
+            .flagsUpdateChunkSize(flagsUpdateChunkSize)
+            .uidModSeqLeaseSize(uidModSeqLeaseSize)
+            .uidModSeqLeaseExpiry(uidModSeqLeaseExpiry)
             .consistencyLevelRegular(consistencyLevelRegular)
             .consistencyLevelLightweightTransaction(consistencyLevelLightweightTransaction)
             .build();
@@ -240,6 +294,9 @@ class CassandraConfigurationTest {
             softly.assertThat(configuration.getBlobPartSize()).isEqualTo(blobPartSize);
             softly.assertThat(configuration.getAttachmentV2MigrationReadTimeout()).isEqualTo(attachmentV2MigrationReadTimeout);
             softly.assertThat(configuration.getMessageAttachmentIdsReadTimeout()).isEqualTo(messageAttachmentIdReadTimeout);
+            softly.assertThat(configuration.getFlagsUpdateChunkSize()).isEqualTo(flagsUpdateChunkSize);
+            softly.assertThat(configuration.getUidModSeqLeaseSize()).contains(uidModSeqLeaseSize);
+            softly.assertThat(configuration.getUidModSeqLeaseExpiry()).isEqualTo(uidModSeqLeaseExpiry);
             softly.assertThat(configuration.getConsistencyLevelRegular()).isEqualTo(consistencyLevelRegular);
             softly.assertThat(configuration.getConsistencyLevelLightweightTransaction()).isEqualTo(consistencyLevelLightweightTransaction);
         });
@@ -0,0 +1,352 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es.v7;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces index, update and delete operations into bulk requests.
+ *
+ * A bulk request is sent once {@code maxBatchSize} operations are pending, or {@code maxDelay} after the first pending
+ * operation. Successive operations on a document pending in the same batch are collapsed: an update following an index
+ * is merged into the indexed document, consecutive updates are merged together, and indexing or deleting a document
+ * supersedes previous pending operations.
+ *
+ * The returned publishers complete once the corresponding bulk item succeeded, and fail with the item failure
+ * otherwise, which lets callers route failures to their usual retry mechanisms. Updates of missing documents are
+ * logged and ignored, as with {@link ElasticSearchIndexer#update(List, RoutingKey)}.
+ *
+ * At most {@code maxConcurrentBulks} bulk requests are in flight at once, further batches wait for a previous bulk to
+ * complete. Closing the indexer sends pending operations and waits for in flight bulks to complete.
+ */
+public class ElasticSearchBulkIndexer implements Closeable {
+    public static final int DEFAULT_MAX_CONCURRENT_BULKS = 4;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSearchBulkIndexer.class);
+    private static final String BATCHES_METRIC = "elasticSearchBulkIndexerBatches";
+    private static final String OPERATIONS_METRIC = "elasticSearchBulkIndexerOperations";
+    private static final String LAG_METRIC = "elasticSearchBulkIndexerLag";
+
+    private enum Kind {
+        INDEX,
+        UPDATE,
+        DELETE
+    }
+
+    private static class Waiter {
+        private final MonoSink<Void> sink;
+        private final TimeMetric lag;
+
+        private Waiter(MonoSink<Void> sink, TimeMetric lag) {
+            this.sink = sink;
+            this.lag = lag;
+        }
+
+        private void succeed() {
+            lag.stopAndPublish();
+            sink.success();
+        }
+
+        private void fail(Throwable throwable) {
+            lag.stopAndPublish();
+            sink.error(throwable);
+        }
+    }
+
+    private static class PendingOperation {
+        private final DocumentId id;
+        private final RoutingKey routingKey;
+        private final List<Waiter> waiters;
+        private Kind kind;
+        private Optional<String> content;
+
+        private PendingOperation(Kind kind, DocumentId id, RoutingKey routingKey, Optional<String> content, Waiter waiter) {
+            this.kind = kind;
+            this.id = id;
+            this.routingKey = routingKey;
+            this.content = content;
+            this.waiters = new ArrayList<>();
+            this.waiters.add(waiter);
+        }
+
+        /**
+         * @return true if this pending operation now also accounts for the given operation
+         */
+        private boolean collapse(Kind newKind, RoutingKey newRoutingKey, Optional<String> newContent, Waiter waiter) {
+            if (!routingKey.equals(newRoutingKey)) {
+                return false;
+            }
+            switch (newKind) {
+                case INDEX:
+                case DELETE:
+                    kind = newKind;
+                    content = newContent;
+                    break;
+                case UPDATE:
+                    if (kind == Kind.DELETE) {
+                        return false;
+                    }
+                    content = Optional.of(merge(content.get(), newContent.get()));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operation " + newKind);
+            }
+            waiters.add(waiter);
+            return true;
+        }
+
+        private void succeed() {
+            waiters.forEach(Waiter::succeed);
+        }
+
+        private void fail(Throwable throwable) {
+            waiters.forEach(waiter -> waiter.fail(throwable));
+        }
+    }
+
+    @VisibleForTesting
+    static String merge(String document, String updatedDocumentPart) {
+        Map<String, Object> source = asMap(document);
+        XContentHelper.update(source, asMap(updatedDocumentPart), false);
+        try {
+            return Strings.toString(XContentFactory.jsonBuilder().map(source));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Object> asMap(String json) {
+        return XContentHelper.convertToMap(new BytesArray(json), true, XContentType.JSON).v2();
+    }
+
+    private final ElasticSearchIndexer indexer;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final MetricFactory metricFactory;
+    private final Metric batchesMetric;
+    private final Metric operationsMetric;
+    private final Queue<List<PendingOperation>> readyBatches;
+    private final int maxConcurrentBulks;
+    private final Semaphore bulkPermits;
+    private final Object lock;
+    private List<PendingOperation> pendingOperations;
+    private Map<DocumentId, PendingOperation> lastPendingOperations;
+    private Optional<Disposable> scheduledFlush;
+
+    public ElasticSearchBulkIndexer(ElasticSearchIndexer indexer, int maxBatchSize, Duration maxDelay, MetricFactory metricFactory) {
+        this(indexer, maxBatchSize, maxDelay, DEFAULT_MAX_CONCURRENT_BULKS, metricFactory);
+    }
+
+    public ElasticSearchBulkIndexer(ElasticSearchIndexer indexer, int maxBatchSize, Duration maxDelay, int maxConcurrentBulks, MetricFactory metricFactory) {
+        Preconditions.checkArgument(maxBatchSize > 0, "'maxBatchSize' needs to be strictly positive");
+        Preconditions.checkArgument(!maxDelay.isNegative(), "'maxDelay' should not be negative");
+        Preconditions.checkArgument(maxConcurrentBulks > 0, "'maxConcurrentBulks' needs to be strictly positive");
+
+        this.indexer = indexer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.metricFactory = metricFactory;
+        this.batchesMetric = metricFactory.generate(BATCHES_METRIC);
+        this.operationsMetric = metricFactory.generate(OPERATIONS_METRIC);
+        this.readyBatches = new ConcurrentLinkedQueue<>();
+        this.maxConcurrentBulks = maxConcurrentBulks;
+        this.bulkPermits = new Semaphore(maxConcurrentBulks);
+        this.lock = new Object();
+        this.pendingOperations = new ArrayList<>();
+        this.lastPendingOperations = new HashMap<>();
+        this.scheduledFlush = Optional.empty();
+    }
+
+    public Mono<Void> index(DocumentId id, String content, RoutingKey routingKey) {
+        Preconditions.checkArgument(content != null, "content should be provided");
+        return enqueue(Kind.INDEX, id, routingKey, Optional.of(content));
+    }
+
+    public Mono<Void> update(DocumentId id, String updatedDocumentPart, RoutingKey routingKey) {
+        Preconditions.checkNotNull(updatedDocumentPart);
+        return enqueue(Kind.UPDATE, id, routingKey, Optional.of(updatedDocumentPart));
+    }
+
+    public Mono<Void> delete(DocumentId id, RoutingKey routingKey) {
+        return enqueue(Kind.DELETE, id, routingKey, Optional.empty());
+    }
+
+    private Mono<Void> enqueue(Kind kind, DocumentId id, RoutingKey routingKey, Optional<String> content) {
+        Preconditions.checkNotNull(id);
+        Preconditions.checkNotNull(routingKey);
+
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, metricFactory.timer(LAG_METRIC));
+            boolean batchFull;
+            synchronized (lock) {
+                PendingOperation last = lastPendingOperations.get(id);
+                if (last == null || !last.collapse(kind, routingKey, content, waiter)) {
+                    PendingOperation operation = new PendingOperation(kind, id, routingKey, content, waiter);
+                    pendingOperations.add(operation);
+                    lastPendingOperations.put(id, operation);
+                }
+                batchFull = pendingOperations.size() >= maxBatchSize;
+                if (!batchFull && scheduledFlush.isEmpty()) {
+                    scheduledFlush = Optional.of(Schedulers.parallel().schedule(this::flush, maxDelay.toMillis(), TimeUnit.MILLISECONDS));
+                }
+            }
+            if (batchFull) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Sends pending operations without waiting for the batch to fill up.
+     */
+    public void flush() {
+        List<PendingOperation> batch;
+        synchronized (lock) {
+            batch = pendingOperations;
+            pendingOperations = new ArrayList<>();
+            lastPendingOperations = new HashMap<>();
+            scheduledFlush.ifPresent(Disposable::dispose);
+            scheduledFlush = Optional.empty();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        readyBatches.add(batch);
+        sendReadyBatches();
+    }
+
+    /**
+     * Sends pending operations, then waits for in flight bulks to complete.
+     */
+    @Override
+    public void close() {
+        flush();
+        try {
+            if (bulkPermits.tryAcquire(maxConcurrentBulks, CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                bulkPermits.release(maxConcurrentBulks);
+            } else {
+                LOGGER.warn("Bulks were still in flight after {} while closing", CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendReadyBatches() {
+        while (!readyBatches.isEmpty() && bulkPermits.tryAcquire()) {
+            List<PendingOperation> batch = readyBatches.poll();
+            if (batch == null) {
+                bulkPermits.release();
+                return;
+            }
+            send(batch)
+                .doFinally(any -> {
+                    bulkPermits.release();
+                    sendReadyBatches();
+                })
+                .subscribe();
+        }
+    }
+
+    private Mono<Void> send(List<PendingOperation> batch) {
+        return Mono.fromCallable(() -> batch.stream()
+                .map(this::asRequest)
+                .collect(ImmutableList.<DocWriteRequest<?>>toImmutableList()))
+            .doOnNext(any -> {
+                batchesMetric.increment();
+                operationsMetric.add(batch.size());
+            })
+            .flatMap(indexer::bulk)
+            .doOnNext(response -> dispatch(batch, response))
+            .onErrorResume(error -> {
+                LOGGER.error("Error while sending a bulk of {} operations", batch.size(), error);
+                batch.forEach(operation -> operation.fail(error));
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private DocWriteRequest<?> asRequest(PendingOperation operation) {
+        switch (operation.kind) {
+            case INDEX:
+                return indexer.indexRequest(operation.id, operation.content.get(), operation.routingKey);
+            case UPDATE:
+                return indexer.updateRequest(operation.id, operation.content.get(), operation.routingKey);
+            case DELETE:
+                return indexer.deleteRequest(operation.id, operation.routingKey);
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation.kind);
+        }
+    }
+
+    private void dispatch(List<PendingOperation> batch, BulkResponse response) {
+        BulkItemResponse[] items = response.getItems();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOperation operation = batch.get(i);
+            BulkItemResponse item = items[i];
+            if (!item.isFailed()) {
+                operation.succeed();
+            } else if (operation.kind == Kind.UPDATE && item.status() == RestStatus.NOT_FOUND) {
+                LOGGER.warn("Could not update missing document {}", operation.id.asString());
+                operation.succeed();
+            } else {
+                operation.fail(item.getFailure().getCause());
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.james.backends.es.v7;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -57,13 +58,38 @@ public class ElasticSearchIndexer {
     }
 
     public Mono<IndexResponse> index(DocumentId id, String content, RoutingKey routingKey) {
+        return client.index(indexRequest(id, content, routingKey), RequestOptions.DEFAULT);
+    }
+
+    public IndexRequest indexRequest(DocumentId id, String content, RoutingKey routingKey) {
         checkArgument(content);
         logContent(id, content);
-        return client.index(new IndexRequest(aliasName.getValue())
-                .id(id.asString())
-                .source(content, XContentType.JSON)
-                .routing(routingKey.asString()),
-            RequestOptions.DEFAULT);
+        return new IndexRequest(aliasName.getValue())
+            .id(id.asString())
+            .source(content, XContentType.JSON)
+            .routing(routingKey.asString());
+    }
+
+    public UpdateRequest updateRequest(DocumentId id, String updatedDocumentPart, RoutingKey routingKey) {
+        return new UpdateRequest(aliasName.getValue(), id.asString())
+            .doc(updatedDocumentPart, XContentType.JSON)
+            .routing(routingKey.asString());
+    }
+
+    public DeleteRequest deleteRequest(DocumentId id, RoutingKey routingKey) {
+        return new DeleteRequest(aliasName.getValue())
+            .id(id.asString())
+            .routing(routingKey.asString());
+    }
+
+    /**
+     * Sends heterogeneous write requests in a single round-trip. Items of the response follow the order of the requests.
+     */
+    public Mono<BulkResponse> bulk(List<DocWriteRequest<?>> requests) {
+        BulkRequest request = new BulkRequest();
+        requests.forEach(request::add);
+
+        return client.bulk(request, RequestOptions.DEFAULT);
     }
 
     private void logContent(DocumentId id, String content) {
@@ -77,10 +103,7 @@ public class ElasticSearchIndexer {
         Preconditions.checkNotNull(routingKey);
         BulkRequest request = new BulkRequest();
         updatedDocumentParts.forEach(updatedDocumentPart -> request.add(
-            new UpdateRequest(aliasName.getValue(),
-                updatedDocumentPart.getId().asString())
-                .doc(updatedDocumentPart.getUpdatedDocumentPart(), XContentType.JSON)
-                .routing(routingKey.asString())));
+            updateRequest(updatedDocumentPart.getId(), updatedDocumentPart.getUpdatedDocumentPart(), routingKey)));
 
         return client.bulk(request, RequestOptions.DEFAULT)
             .onErrorResume(ValidationException.class, exception -> {
@@ -91,10 +114,7 @@ public class ElasticSearchIndexer {
 
     public Mono<BulkResponse> delete(List<DocumentId> ids, RoutingKey routingKey) {
         BulkRequest request = new BulkRequest();
-        ids.forEach(id -> request.add(
-            new DeleteRequest(aliasName.getValue())
-                .id(id.asString())
-                .routing(routingKey.asString())));
+        ids.forEach(id -> request.add(deleteRequest(id, routingKey)));
 
         return client.bulk(request, RequestOptions.DEFAULT)
             .onErrorResume(ValidationException.class, exception -> {
@@ -0,0 +1,200 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es.v7;
+
+import static org.apache.james.backends.es.v7.ElasticSearchIndexerTest.useDocumentId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.awaitility.Durations.ONE_HUNDRED_MILLISECONDS;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.awaitility.Awaitility;
+import org.awaitility.Durations;
+import org.awaitility.core.ConditionFactory;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ElasticSearchBulkIndexerTest {
+    private static final IndexName INDEX_NAME = new IndexName("index_name");
+    private static final WriteAliasName ALIAS_NAME = new WriteAliasName("alias_name");
+
+    private static final ConditionFactory CALMLY_AWAIT = Awaitility
+        .with().pollInterval(ONE_HUNDRED_MILLISECONDS)
+        .and().pollDelay(ONE_HUNDRED_MILLISECONDS)
+        .await();
+    private static final DocumentId DOCUMENT_ID = DocumentId.fromString("1");
+    private static final DocumentId OTHER_DOCUMENT_ID = DocumentId.fromString("2");
+
+    @RegisterExtension
+    public DockerElasticSearchExtension elasticSearch = new DockerElasticSearchExtension();
+    private ElasticSearchBulkIndexer testee;
+    private RecordingMetricFactory metricFactory;
+    private ReactorElasticSearchClient client;
+
+    @BeforeEach
+    void setup() {
+        client = elasticSearch.getDockerElasticSearch().clientProvider().get();
+        new IndexCreationFactory(ElasticSearchConfiguration.DEFAULT_CONFIGURATION)
+            .useIndex(INDEX_NAME)
+            .addAlias(ALIAS_NAME)
+            .createIndexAndAliases(client);
+        metricFactory = new RecordingMetricFactory();
+        testee = new ElasticSearchBulkIndexer(new ElasticSearchIndexer(client, ALIAS_NAME), 2, Duration.ofHours(1), metricFactory);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    void operationsShouldBeSentOnceTheBatchIsFull() {
+        Mono.when(
+                testee.index(DOCUMENT_ID, "{\"message\": \"first\"}", useDocumentId(DOCUMENT_ID)),
+                testee.index(OTHER_DOCUMENT_ID, "{\"message\": \"second\"}", useDocumentId(OTHER_DOCUMENT_ID)))
+            .block();
+
+        awaitForElasticSearch(QueryBuilders.matchAllQuery(), 2L);
+        assertThat(metricFactory.countFor("elasticSearchBulkIndexerBatches")).isEqualTo(1);
+        assertThat(metricFactory.countFor("elasticSearchBulkIndexerOperations")).isEqualTo(2);
+    }
+
+    @Test
+    void operationsShouldBeSentAfterTheMaximumDelay() {
+        testee = new ElasticSearchBulkIndexer(new ElasticSearchIndexer(client, ALIAS_NAME), 100, Duration.ofMillis(50), metricFactory);
+
+        testee.index(DOCUMENT_ID, "{\"message\": \"first\"}", useDocumentId(DOCUMENT_ID)).block();
+
+        awaitForElasticSearch(QueryBuilders.matchAllQuery(), 1L);
+    }
+
+    @Test
+    void flushShouldSendPendingOperations() {
+        testee.index(DOCUMENT_ID, "{\"message\": \"first\"}", useDocumentId(DOCUMENT_ID)).subscribe();
+
+        testee.flush();
+
+        awaitForElasticSearch(QueryBuilders.matchAllQuery(), 1L);
+    }
+
+    @Test
+    void closeShouldSendPendingOperationsAndAwaitTheirCompletion() {
+        Mono<Void> pendingIndex = testee.index(DOCUMENT_ID, "{\"message\": \"first\"}", useDocumentId(DOCUMENT_ID)).cache();
+        pendingIndex.subscribe();
+
+        testee.close();
+
+        assertThatCode(() -> pendingIndex.block(Duration.ZERO)).doesNotThrowAnyException();
+        awaitForElasticSearch(QueryBuilders.matchAllQuery(), 1L);
+    }
+
+    @Test
+    void concurrentBulksShouldBeLimited() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ElasticSearchIndexer indexer = new ElasticSearchIndexer(client, ALIAS_NAME) {
+            @Override
+            public Mono<BulkResponse> bulk(List<DocWriteRequest<?>> requests) {
+                return Mono.fromRunnable(() -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .then(Mono.delay(Duration.ofMillis(20)))
+                    .then(super.bulk(requests))
+                    .doFinally(any -> inFlight.decrementAndGet());
+            }
+        };
+        testee = new ElasticSearchBulkIndexer(indexer, 1, Duration.ofHours(1), 2, metricFactory);
+
+        Flux.range(0, 10)
+            .map(i -> DocumentId.fromString(String.valueOf(i)))
+            .flatMap(id -> testee.index(id, "{\"message\": \"first\"}", useDocumentId(id)))
+            .then()
+            .block();
+
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(metricFactory.countFor("elasticSearchBulkIndexerBatches")).isEqualTo(10);
+        awaitForElasticSearch(QueryBuilders.matchAllQuery(), 10L);
+    }
+
+    @Test
+    void updateShouldBeMergedIntoPendingIndex() {
+        Mono.when(
+                testee.index(DOCUMENT_ID, "{\"message\": \"first\",\"field\":\"Should be unchanged\"}", useDocumentId(DOCUMENT_ID)),
+                testee.update(DOCUMENT_ID, "{\"message\": \"mastering\"}", useDocumentId(DOCUMENT_ID)),
+                testee.index(OTHER_DOCUMENT_ID, "{\"message\": \"second\"}", useDocumentId(OTHER_DOCUMENT_ID)))
+            .block();
+
+        awaitForElasticSearch(QueryBuilders.matchQuery("message", "mastering"), 1L);
+        awaitForElasticSearch(QueryBuilders.matchQuery("field", "unchanged"), 1L);
+        assertThat(metricFactory.countFor("elasticSearchBulkIndexerOperations")).isEqualTo(2);
+    }
+
+    @Test
+    void deleteShouldSupersedePendingIndex() {
+        Mono.when(
+                testee.index(DOCUMENT_ID, "{\"message\": \"first\"}", useDocumentId(DOCUMENT_ID)),
+                testee.delete(DOCUMENT_ID, useDocumentId(DOCUMENT_ID)),
+                testee.index(OTHER_DOCUMENT_ID, "{\"message\": \"second\"}", useDocumentId(OTHER_DOCUMENT_ID)))
+            .block();
+
+        awaitForElasticSearch(QueryBuilders.matchAllQuery(), 1L);
+        awaitForElasticSearch(QueryBuilders.matchQuery("message", "second"), 1L);
+    }
+
+    @Test
+    void updateShouldNotFailOnMissingDocument() {
+        assertThatCode(() -> Mono.when(
+                testee.update(DOCUMENT_ID, "{\"message\": \"mastering\"}", useDocumentId(DOCUMENT_ID)),
+                testee.index(OTHER_DOCUMENT_ID, "{\"message\": \"second\"}", useDocumentId(OTHER_DOCUMENT_ID)))
+            .block())
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    void mergeShouldOverrideUpdatedFields() {
+        assertThat(ElasticSearchBulkIndexer.merge("{\"a\":1,\"b\":{\"c\":2,\"d\":3}}", "{\"b\":{\"c\":4}}"))
+            .isEqualTo("{\"a\":1,\"b\":{\"c\":4,\"d\":3}}");
+    }
+
+    private void awaitForElasticSearch(QueryBuilder query, long totalHits) {
+        CALMLY_AWAIT.atMost(Durations.TEN_SECONDS)
+            .untilAsserted(() -> assertThat(client.search(
+                new SearchRequest(INDEX_NAME.getValue())
+                    .source(new SearchSourceBuilder().query(query)),
+                RequestOptions.DEFAULT)
+                .block()
+                .getHits().getTotalHits().value).isEqualTo(totalHits));
+    }
+}
@@ -19,8 +19,33 @@
 
 package org.apache.james.events;
 
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Preconditions;
+
 public interface EventSerializer {
+    String JSON_FORMAT = "json";
+
     String toJson(Event event);
 
     Event asEvent(String serialized);
+
+    /**
+     * Format of the payloads generated by {@link #toBytes(Event)}.
+     *
+     * Transports convey it alongside the payload so that consumers can decode events emitted by nodes relying on
+     * another format.
+     */
+    default String format() {
+        return JSON_FORMAT;
+    }
+
+    default byte[] toBytes(Event event) {
+        return toJson(event).getBytes(StandardCharsets.UTF_8);
+    }
+
+    default Event fromBytes(byte[] serialized, String format) {
+        Preconditions.checkArgument(JSON_FORMAT.equals(format), "Unsupported event format '%s'", format);
+        return asEvent(new String(serialized, StandardCharsets.UTF_8));
+    }
 }
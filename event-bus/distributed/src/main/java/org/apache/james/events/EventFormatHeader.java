@@ -0,0 +1,40 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.events;
+
+import java.util.Optional;
+
+import com.rabbitmq.client.AMQP;
+
+/**
+ * Carries the {@link EventSerializer#format()} of the payload of event bus messages.
+ *
+ * Messages without this header were emitted by nodes predating it and hold JSON.
+ */
+class EventFormatHeader {
+    static final String EVENT_FORMAT = "eventFormat";
+
+    static String formatOf(AMQP.BasicProperties properties) {
+        return Optional.ofNullable(properties.getHeaders())
+            .flatMap(headers -> Optional.ofNullable(headers.get(EVENT_FORMAT)))
+            .map(Object::toString)
+            .orElse(EventSerializer.JSON_FORMAT);
+    }
+}
@@ -23,10 +23,9 @@ import static com.rabbitmq.client.MessageProperties.PERSISTENT_TEXT_PLAIN;
 import static org.apache.james.backends.rabbitmq.Constants.DIRECT_EXCHANGE;
 import static org.apache.james.backends.rabbitmq.Constants.DURABLE;
 import static org.apache.james.backends.rabbitmq.Constants.EMPTY_ROUTING_KEY;
+import static org.apache.james.events.EventFormatHeader.EVENT_FORMAT;
 import static org.apache.james.events.GroupRegistration.RETRY_COUNT;
 
-import java.nio.charset.StandardCharsets;
-
 import org.apache.james.util.MDCStructuredLogger;
 import org.apache.james.util.StructuredLogger;
 import org.slf4j.Logger;
@@ -102,13 +101,15 @@ class GroupConsumerRetry {
     }
 
     private Mono<Void> sendRetryMessage(Event event, int currentRetryCount) {
-        byte[] eventAsBytes = eventSerializer.toJson(event).getBytes(StandardCharsets.UTF_8);
+        byte[] eventAsBytes = eventSerializer.toBytes(event);
 
         Mono<OutboundMessage> retryMessage = Mono.just(new OutboundMessage(
             retryExchangeName.asString(),
             EMPTY_ROUTING_KEY,
             new AMQP.BasicProperties.Builder()
-                .headers(ImmutableMap.of(RETRY_COUNT, currentRetryCount + 1))
+                .headers(ImmutableMap.of(
+                    RETRY_COUNT, currentRetryCount + 1,
+                    EVENT_FORMAT, eventSerializer.format()))
                 .deliveryMode(PERSISTENT_TEXT_PLAIN.getDeliveryMode())
                 .priority(PERSISTENT_TEXT_PLAIN.getPriority())
                 .contentType(PERSISTENT_TEXT_PLAIN.getContentType())
@@ -26,7 +26,6 @@ import static org.apache.james.backends.rabbitmq.Constants.EXCLUSIVE;
 import static org.apache.james.backends.rabbitmq.Constants.REQUEUE;
 import static org.apache.james.backends.rabbitmq.Constants.deadLetterQueue;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -139,8 +138,9 @@ class GroupRegistration implements Registration {
     private Mono<Void> deliver(AcknowledgableDelivery acknowledgableDelivery) {
         byte[] eventAsBytes = acknowledgableDelivery.getBody();
         int currentRetryCount = getRetryCount(acknowledgableDelivery);
+        String format = EventFormatHeader.formatOf(acknowledgableDelivery.getProperties());
 
-        return deserializeEvent(eventAsBytes)
+        return deserializeEvent(eventAsBytes, format)
             .flatMap(event -> delayGenerator.delayIfHaveTo(currentRetryCount)
                 .flatMap(any -> runListener(event))
                 .onErrorResume(throwable -> retryHandler.handleRetry(event, currentRetryCount, throwable))
@@ -151,8 +151,8 @@ class GroupRegistration implements Registration {
             });
     }
 
-    private Mono<Event> deserializeEvent(byte[] eventAsBytes) {
-        return Mono.fromCallable(() -> eventSerializer.asEvent(new String(eventAsBytes, StandardCharsets.UTF_8)))
+    private Mono<Event> deserializeEvent(byte[] eventAsBytes, String format) {
+        return Mono.fromCallable(() -> eventSerializer.fromBytes(eventAsBytes, format))
             .subscribeOn(Schedulers.parallel());
     }
 
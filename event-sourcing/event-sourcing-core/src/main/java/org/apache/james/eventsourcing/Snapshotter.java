@@ -0,0 +1,78 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.eventsourcing;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.apache.james.eventsourcing.eventstore.History;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Condenses the history of the aggregates it handles into a snapshot: a single event leading, once replayed alone,
+ * to the state reached at its eventId. The {@link EventSourcingSystem} stores such a snapshot every
+ * {@link #interval()} events so that loading an aggregate only replays the latest snapshot and the events appended
+ * after it.
+ */
+public interface Snapshotter {
+    int DEFAULT_INTERVAL = 100;
+
+    /**
+     * Suitable for aggregates whose events all carry their whole state: the latest event is then a snapshot.
+     */
+    static Snapshotter latestEvent(Predicate<AggregateId> handledAggregates) {
+        return latestEvent(handledAggregates, DEFAULT_INTERVAL);
+    }
+
+    static Snapshotter latestEvent(Predicate<AggregateId> handledAggregates, int interval) {
+        Preconditions.checkArgument(interval > 0, "Snapshot interval needs to be strictly positive");
+
+        return new Snapshotter() {
+            @Override
+            public boolean handles(AggregateId aggregateId) {
+                return handledAggregates.test(aggregateId);
+            }
+
+            @Override
+            public Optional<Event> snapshot(History history) {
+                return history.getEventsJava()
+                    .stream()
+                    .max(Comparator.naturalOrder());
+            }
+
+            @Override
+            public int interval() {
+                return interval;
+            }
+        };
+    }
+
+    boolean handles(AggregateId aggregateId);
+
+    /**
+     * @param history the history of the aggregate, starting with its latest snapshot if any
+     */
+    Optional<Event> snapshot(History history);
+
+    default int interval() {
+        return DEFAULT_INTERVAL;
+    }
+}
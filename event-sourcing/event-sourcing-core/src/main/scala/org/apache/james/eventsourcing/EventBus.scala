@@ -24,20 +24,42 @@ import org.apache.james.eventsourcing.eventstore.{EventStore, EventStoreFailedEx
 import org.reactivestreams.Publisher
 import org.slf4j.LoggerFactory
 
+import reactor.core.publisher.Mono
 import reactor.core.scala.publisher.{SFlux, SMono}
 
 object EventBus {
   private val LOGGER = LoggerFactory.getLogger(classOf[EventBus])
 }
 
-class EventBus @Inject() (eventStore: EventStore, subscribers: Set[Subscriber]) {
+class EventBus @Inject() (eventStore: EventStore, subscribers: Set[Subscriber], snapshotters: Set[Snapshotter]) {
   @throws[EventStoreFailedException]
   def publish(events: Iterable[Event]): SMono[Void] = {
     SMono(eventStore.appendAll(events))
+        .`then`(storeSnapshots(events))
         .`then`(runHandlers(events, subscribers))
 
   }
 
+  private def storeSnapshots(events: Iterable[Event]): SMono[Void] =
+    SFlux.fromIterable(events.headOption.map(_.getAggregateId).toList)
+      .flatMap(aggregateId => SFlux.fromIterable(snapshotters)
+        .filter(snapshotter => snapshotter.handles(aggregateId) && events.exists(isSnapshotDue(snapshotter, _)))
+        .concatMap(snapshotter => storeSnapshot(aggregateId, snapshotter)))
+      .`then`()
+      .`then`(SMono.empty)
+
+  private def isSnapshotDue(snapshotter: Snapshotter, event: Event): Boolean =
+    event.eventId.serialize > 0 && event.eventId.serialize % snapshotter.interval == 0
+
+  private def storeSnapshot(aggregateId: AggregateId, snapshotter: Snapshotter): SMono[Void] =
+    SMono(eventStore.getEventsOfAggregate(aggregateId))
+      .flatMap(history => SMono(Mono.justOrEmpty(snapshotter.snapshot(history))))
+      .flatMap(snapshot => SMono(eventStore.storeSnapshot(snapshot)))
+      .onErrorResume(e => {
+        EventBus.LOGGER.error("Error while storing a snapshot of {}", aggregateId.asAggregateKey, e)
+        SMono.empty
+      })
+
   def runHandlers(events: Iterable[Event], subscribers: Set[Subscriber]): SMono[Void] = {
     SFlux.fromIterable(events.flatMap((event: Event) => subscribers.map(subscriber => (event, subscriber))))
       .flatMap(infos => runHandler(infos._1, infos._2))
@@ -31,12 +31,21 @@ object EventSourcingSystem {
     import scala.jdk.CollectionConverters._
     new EventSourcingSystem(handlers.asScala.toSet, subscribers.asScala.toSet, eventStore)
   }
+
+  def fromJava(handlers: java.util.Set[CommandHandler[_ <: Command]],
+               subscribers: java.util.Set[Subscriber],
+               snapshotters: java.util.Set[Snapshotter],
+               eventStore: EventStore) : EventSourcingSystem = {
+    import scala.jdk.CollectionConverters._
+    new EventSourcingSystem(handlers.asScala.toSet, subscribers.asScala.toSet, eventStore, snapshotters.asScala.toSet)
+  }
 }
 
 class EventSourcingSystem(handlers: Set[CommandHandler[_ <: Command]],
                           subscribers: Set[Subscriber],
-                          eventStore: EventStore) {
-  private val eventBus = new EventBus(eventStore, subscribers)
+                          eventStore: EventStore,
+                          snapshotters: Set[Snapshotter] = Set()) {
+  private val eventBus = new EventBus(eventStore, subscribers, snapshotters)
   private val commandDispatcher = new CommandDispatcher(eventBus, handlers)
 
   def dispatch(c: Command): Publisher[util.List[_ <: Event]] = commandDispatcher.dispatch(c)
@@ -18,6 +18,8 @@
  ****************************************************************/
 package org.apache.james.eventsourcing
 
+import java.util.Optional
+import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.{List => JavaList}
 
 import org.apache.james.eventsourcing.eventstore.{EventStore, History}
@@ -148,6 +150,64 @@ trait EventSourcingSystemTest {
       .isInstanceOf(classOf[IllegalArgumentException])
   }
 
+  @Test
+  def dispatchShouldStoreSnapshotsEveryInterval(eventStore: EventStore) : Unit = {
+    val subscriber = new DataCollectorSubscriber
+    val eventSourcingSystem = new EventSourcingSystem(Set(simpleDispatcher(eventStore)), Set(subscriber), eventStore,
+      Set(Snapshotter.latestEvent(_.isInstanceOf[TestAggregateId], 2)))
+    (1 to 5).foreach(i => Mono.from(eventSourcingSystem.dispatch(new EventSourcingSystemTest.MyCommand("payload" + i))).block())
+
+    val expectedSnapshot = TestEvent(EventId.fromSerialized(4), EventSourcingSystemTest.AGGREGATE_ID, "payload5")
+    assertThat(SMono(eventStore.getEventsOfAggregate(EventSourcingSystemTest.AGGREGATE_ID)).block().getEventsJava)
+      .containsExactly(expectedSnapshot)
+    assertThat(subscriber.getData.asJava).hasSize(5)
+  }
+
+  @Test
+  def dispatchShouldNotStoreSnapshotsOfUnhandledAggregates(eventStore: EventStore) : Unit = {
+    val eventSourcingSystem = new EventSourcingSystem(Set(simpleDispatcher(eventStore)), Set(), eventStore,
+      Set(Snapshotter.latestEvent(_ => false, 2)))
+    (1 to 3).foreach(i => Mono.from(eventSourcingSystem.dispatch(new EventSourcingSystemTest.MyCommand("payload" + i))).block())
+
+    assertThat(SMono(eventStore.getEventsOfAggregate(EventSourcingSystemTest.AGGREGATE_ID)).block().getEventsJava)
+      .hasSize(3)
+  }
+
+  @Test
+  def snapshotFailuresShouldNotFailDispatch(eventStore: EventStore) : Unit = {
+    val subscriber = new DataCollectorSubscriber
+    val failingSnapshotter = new Snapshotter {
+      override def handles(aggregateId: AggregateId): Boolean = true
+
+      override def snapshot(history: History): Optional[Event] = throw new RuntimeException()
+
+      override def interval: Int = 1
+    }
+    val eventSourcingSystem = new EventSourcingSystem(Set(simpleDispatcher(eventStore)), Set(subscriber), eventStore,
+      Set(failingSnapshotter))
+    (1 to 2).foreach(i => Mono.from(eventSourcingSystem.dispatch(new EventSourcingSystemTest.MyCommand("payload" + i))).block())
+
+    assertThat(subscriber.getData.asJava).containsExactly("payload1", "payload2")
+    assertThat(SMono(eventStore.getEventsOfAggregate(EventSourcingSystemTest.AGGREGATE_ID)).block().getEventsJava)
+      .hasSize(2)
+  }
+
+  /**
+   * Command latency is driven by the size of the history read by the handler: with snapshots it stays bounded by the
+   * snapshot interval however long the history of the aggregate grows.
+   */
+  @Test
+  def loadedHistoryShouldStayBoundedWhenHistoryGrows(eventStore: EventStore) : Unit = {
+    val interval = 10
+    val loadedHistorySizes = new ConcurrentLinkedQueue[Integer]()
+    val eventSourcingSystem = new EventSourcingSystem(Set(measuringDispatcher(eventStore, loadedHistorySizes)), Set(), eventStore,
+      Set(Snapshotter.latestEvent(_.isInstanceOf[TestAggregateId], interval)))
+    (1 to 200).foreach(i => Mono.from(eventSourcingSystem.dispatch(new EventSourcingSystemTest.MyCommand("payload" + i))).block())
+
+    assertThat(loadedHistorySizes).hasSize(200)
+    assertThat(loadedHistorySizes).allMatch(size => size <= interval)
+  }
+
   def simpleDispatcher(eventStore: EventStore) = new CommandHandler[EventSourcingSystemTest.MyCommand]() {
     override def handledClass: Class[EventSourcingSystemTest.MyCommand] = classOf[EventSourcingSystemTest.MyCommand]
 
@@ -169,4 +229,14 @@ trait EventSourcingSystemTest {
           .map((word: String) => TestEvent(eventIdIncrementer.next, EventSourcingSystemTest.AGGREGATE_ID, word)).asJava)
     }
   }
-}
\ No newline at end of file
+
+  def measuringDispatcher(eventStore: EventStore, loadedHistorySizes: ConcurrentLinkedQueue[Integer]) = new CommandHandler[EventSourcingSystemTest.MyCommand]() {
+    override def handledClass: Class[EventSourcingSystemTest.MyCommand] = classOf[EventSourcingSystemTest.MyCommand]
+
+    override def handle(myCommand: EventSourcingSystemTest.MyCommand): Publisher[JavaList[_ <: Event]] = {
+      SMono.apply(eventStore.getEventsOfAggregate(EventSourcingSystemTest.AGGREGATE_ID))
+        .doOnNext(history => loadedHistorySizes.add(history.getEvents.size))
+        .map(history => Seq(TestEvent(history.getNextEventId, EventSourcingSystemTest.AGGREGATE_ID, myCommand.getPayload)).asJava)
+    }
+  }
+}
@@ -35,5 +35,17 @@ trait EventStore {
    */
   def appendAll(events: Iterable[Event]): Publisher[Void]
 
+  /**
+   * When a snapshot of the aggregate had been stored, the returned history starts with the latest snapshot and is
+   * followed by the events appended after it.
+   */
   def getEventsOfAggregate(aggregateId: AggregateId): Publisher[History]
+
+  /**
+   * A snapshot is an event condensing the history of its aggregate up to its own eventId: replaying it alone leads
+   * to the state obtained by replaying all the events up to this eventId.
+   *
+   * It replaces any previously stored snapshot of the aggregate. The full history is kept.
+   */
+  def storeSnapshot(snapshot: Event): Publisher[Void]
 }
\ No newline at end of file
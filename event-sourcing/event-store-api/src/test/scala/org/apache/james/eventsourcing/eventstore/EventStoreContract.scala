@@ -82,4 +82,61 @@ trait EventStoreContract {
     assertThat(SMono(testee.getEventsOfAggregate(EventStoreContract.AGGREGATE_1)).block())
       .isEqualTo(History.of(event1, event2))
   }
-}
\ No newline at end of file
+
+  @Test
+  def getEventsOfAggregateShouldStartFromTheSnapshot(testee: EventStore) : Unit = {
+    val event1 = TestEvent(EventId.first, EventStoreContract.AGGREGATE_1, "first")
+    val event2 = TestEvent(event1.eventId.next, EventStoreContract.AGGREGATE_1, "second")
+    val event3 = TestEvent(event2.eventId.next, EventStoreContract.AGGREGATE_1, "third")
+    val snapshot = TestEvent(event2.eventId, EventStoreContract.AGGREGATE_1, "first second")
+    SMono(testee.appendAll(event1, event2, event3)).block()
+    SMono(testee.storeSnapshot(snapshot)).block()
+    assertThat(SMono(testee.getEventsOfAggregate(EventStoreContract.AGGREGATE_1)).block())
+      .isEqualTo(History.of(snapshot, event3))
+  }
+
+  @Test
+  def getEventsOfAggregateShouldReturnEventsAppendedAfterTheSnapshot(testee: EventStore) : Unit = {
+    val event1 = TestEvent(EventId.first, EventStoreContract.AGGREGATE_1, "first")
+    val event2 = TestEvent(event1.eventId.next, EventStoreContract.AGGREGATE_1, "second")
+    SMono(testee.append(event1)).block()
+    SMono(testee.storeSnapshot(event1)).block()
+    SMono(testee.append(event2)).block()
+    assertThat(SMono(testee.getEventsOfAggregate(EventStoreContract.AGGREGATE_1)).block())
+      .isEqualTo(History.of(event1, event2))
+  }
+
+  @Test
+  def storeSnapshotShouldReplaceThePreviousSnapshot(testee: EventStore) : Unit = {
+    val event1 = TestEvent(EventId.first, EventStoreContract.AGGREGATE_1, "first")
+    val event2 = TestEvent(event1.eventId.next, EventStoreContract.AGGREGATE_1, "second")
+    val event3 = TestEvent(event2.eventId.next, EventStoreContract.AGGREGATE_1, "third")
+    val snapshot = TestEvent(event3.eventId, EventStoreContract.AGGREGATE_1, "first second third")
+    SMono(testee.appendAll(event1, event2, event3)).block()
+    SMono(testee.storeSnapshot(event1)).block()
+    SMono(testee.storeSnapshot(snapshot)).block()
+    assertThat(SMono(testee.getEventsOfAggregate(EventStoreContract.AGGREGATE_1)).block())
+      .isEqualTo(History.of(snapshot))
+  }
+
+  @Test
+  def storeSnapshotShouldNotAffectOtherAggregates(testee: EventStore) : Unit = {
+    val event1 = TestEvent(EventId.first, EventStoreContract.AGGREGATE_1, "first")
+    val event2 = TestEvent(event1.eventId.next, EventStoreContract.AGGREGATE_1, "second")
+    val otherEvent = TestEvent(EventId.first, EventStoreContract.AGGREGATE_2, "other")
+    SMono(testee.appendAll(event1, event2)).block()
+    SMono(testee.append(otherEvent)).block()
+    SMono(testee.storeSnapshot(event2)).block()
+    assertThat(SMono(testee.getEventsOfAggregate(EventStoreContract.AGGREGATE_2)).block())
+      .isEqualTo(History.of(otherEvent))
+  }
+
+  @Test
+  def appendShouldThrowWhenTryingToRewriteSnapshottedHistory(testee: EventStore) : Unit = {
+    val event1 = TestEvent(EventId.first, EventStoreContract.AGGREGATE_1, "first")
+    SMono(testee.append(event1)).block()
+    SMono(testee.storeSnapshot(event1)).block()
+    assertThatThrownBy(() => SMono(testee.append(TestEvent(EventId.first, EventStoreContract.AGGREGATE_1, "second"))).block())
+      .isInstanceOf(classOf[EventStoreFailedException])
+  }
+}
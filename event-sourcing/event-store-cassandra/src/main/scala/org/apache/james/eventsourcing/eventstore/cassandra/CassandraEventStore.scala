@@ -51,4 +51,9 @@ class CassandraEventStore @Inject() (eventStoreDao: EventStoreDao) extends Event
   override def getEventsOfAggregate(aggregateId: AggregateId): SMono[History] = {
     eventStoreDao.getEventsOfAggregate(aggregateId)
   }
+
+  override def storeSnapshot(snapshot: Event): SMono[Void] = {
+    Preconditions.checkNotNull(snapshot)
+    eventStoreDao.storeSnapshot(snapshot)
+  }
 }
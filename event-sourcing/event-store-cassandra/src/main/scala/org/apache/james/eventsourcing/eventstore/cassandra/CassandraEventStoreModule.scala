@@ -24,7 +24,8 @@ import com.datastax.driver.core.DataType
 import com.datastax.driver.core.schemabuilder.{Create, SchemaBuilder}
 
 object CassandraEventStoreModule {
-  val MODULE = CassandraModule.table(CassandraEventStoreTable.EVENTS_TABLE)
+  val MODULE = CassandraModule.builder()
+    .table(CassandraEventStoreTable.EVENTS_TABLE)
     .comment("Store events of a EventSourcing aggregate")
     .options((options: Create.Options) => options
       .compactionOptions(SchemaBuilder.leveledStrategy())
@@ -34,5 +35,14 @@ object CassandraEventStoreModule {
     .statement(_.addPartitionKey(CassandraEventStoreTable.AGGREGATE_ID, DataType.varchar)
       .addClusteringColumn(CassandraEventStoreTable.EVENT_ID, DataType.cint)
       .addColumn(CassandraEventStoreTable.EVENT, DataType.text))
+    .table(CassandraEventStoreTable.SNAPSHOTS_TABLE)
+    .comment("Store the latest snapshot of a EventSourcing aggregate, an event condensing its history up to eventId")
+    .options((options: Create.Options) => options
+      .caching(
+        SchemaBuilder.KeyCaching.ALL,
+        SchemaBuilder.rows(CassandraConstants.DEFAULT_CACHED_ROW_PER_PARTITION)))
+    .statement(_.addPartitionKey(CassandraEventStoreTable.AGGREGATE_ID, DataType.varchar)
+      .addColumn(CassandraEventStoreTable.EVENT_ID, DataType.cint)
+      .addColumn(CassandraEventStoreTable.EVENT, DataType.text))
     .build
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ package org.apache.james.eventsourcing.eventstore.cassandra
 
 object CassandraEventStoreTable {
   val EVENTS_TABLE = "eventStore"
+  val SNAPSHOTS_TABLE = "eventStoreSnapshot"
   val AGGREGATE_ID = "aggregateId"
   val EVENT = "event"
   val EVENT_ID = "eventId"
@@ -20,13 +20,13 @@ package org.apache.james.eventsourcing.eventstore.cassandra
 
 import com.datastax.driver.core._
 import com.datastax.driver.core.querybuilder.QueryBuilder
-import com.datastax.driver.core.querybuilder.QueryBuilder.{bindMarker, insertInto}
+import com.datastax.driver.core.querybuilder.QueryBuilder.{bindMarker, gt, insertInto}
 import javax.inject.Inject
 
 import org.apache.james.backends.cassandra.init.configuration.CassandraConsistenciesConfiguration
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
 import org.apache.james.eventsourcing.eventstore.History
-import org.apache.james.eventsourcing.eventstore.cassandra.CassandraEventStoreTable.{AGGREGATE_ID, EVENT, EVENTS_TABLE, EVENT_ID}
+import org.apache.james.eventsourcing.eventstore.cassandra.CassandraEventStoreTable.{AGGREGATE_ID, EVENT, EVENTS_TABLE, EVENT_ID, SNAPSHOTS_TABLE}
 import org.apache.james.eventsourcing.{AggregateId, Event}
 
 import reactor.core.scala.publisher.{SFlux, SMono}
@@ -38,6 +38,9 @@ class EventStoreDao @Inject() (val session: Session,
   private val consistencyLevel: ConsistencyLevel = consistenciesConfiguration.getLightweightTransaction
   private val insert = prepareInsert(session)
   private val select = prepareSelect(session)
+  private val selectAfter = prepareSelectAfter(session)
+  private val insertSnapshot = prepareInsertSnapshot(session)
+  private val selectSnapshot = prepareSelectSnapshot(session)
 
   private def prepareInsert(session: Session): PreparedStatement = {
     session.prepare(
@@ -55,6 +58,29 @@ class EventStoreDao @Inject() (val session: Session,
       .where(QueryBuilder.eq(AGGREGATE_ID, bindMarker(AGGREGATE_ID))))
   }
 
+  private def prepareSelectAfter(session: Session): PreparedStatement = {
+    session.prepare(QueryBuilder
+      .select()
+      .from(EVENTS_TABLE)
+      .where(QueryBuilder.eq(AGGREGATE_ID, bindMarker(AGGREGATE_ID)))
+      .and(gt(EVENT_ID, bindMarker(EVENT_ID))))
+  }
+
+  private def prepareInsertSnapshot(session: Session): PreparedStatement = {
+    session.prepare(
+      insertInto(SNAPSHOTS_TABLE)
+        .value(AGGREGATE_ID, bindMarker(AGGREGATE_ID))
+        .value(EVENT_ID, bindMarker(EVENT_ID))
+        .value(EVENT, bindMarker(EVENT)))
+  }
+
+  private def prepareSelectSnapshot(session: Session): PreparedStatement = {
+    session.prepare(QueryBuilder
+      .select(EVENT)
+      .from(SNAPSHOTS_TABLE)
+      .where(QueryBuilder.eq(AGGREGATE_ID, bindMarker(AGGREGATE_ID))))
+  }
+
   private[cassandra] def appendAll(events: Iterable[Event]): SMono[Boolean] = {
     SMono(cassandraAsyncExecutor.executeReturnApplied(appendQuery(events))
       .map(_.booleanValue()))
@@ -79,17 +105,37 @@ class EventStoreDao @Inject() (val session: Session,
   }
 
   private[cassandra] def getEventsOfAggregate(aggregateId: AggregateId): SMono[History] = {
-    val preparedStatement = select.bind.setString(AGGREGATE_ID, aggregateId.asAggregateKey)
-      .setConsistencyLevel(consistencyLevel)
-    val rows: SFlux[Row] = SFlux[Row](cassandraAsyncExecutor.executeRows(preparedStatement))
+    getSnapshot(aggregateId)
+      .flatMap(snapshot => getEventsAfter(aggregateId, snapshot)
+        .map(events => History.of(snapshot :: events)))
+      .switchIfEmpty(getEvents(select.bind.setString(AGGREGATE_ID, aggregateId.asAggregateKey))
+        .map(History.of(_)))
+  }
 
-    val events: SFlux[Event] = rows.map(toEvent)
-    val listEvents: SMono[List[Event]] = events.collectSeq()
-      .map(_.toList)
+  private def getEventsAfter(aggregateId: AggregateId, snapshot: Event): SMono[List[Event]] =
+    getEvents(selectAfter.bind
+      .setString(AGGREGATE_ID, aggregateId.asAggregateKey)
+      .setInt(EVENT_ID, snapshot.eventId.serialize))
+
+  private def getEvents(statement: BoundStatement): SMono[List[Event]] = {
+    val rows: SFlux[Row] = SFlux[Row](cassandraAsyncExecutor.executeRows(statement.setConsistencyLevel(consistencyLevel)))
 
-    listEvents.map(History.of(_))
+    rows.map(toEvent)
+      .collectSeq()
+      .map(_.toList)
   }
 
+  private def getSnapshot(aggregateId: AggregateId): SMono[Event] =
+    SMono(cassandraAsyncExecutor.executeSingleRow(selectSnapshot.bind
+        .setString(AGGREGATE_ID, aggregateId.asAggregateKey)))
+      .map(toEvent)
+
+  private[cassandra] def storeSnapshot(snapshot: Event): SMono[Void] =
+    SMono(cassandraAsyncExecutor.executeVoid(insertSnapshot.bind
+      .setString(AGGREGATE_ID, snapshot.getAggregateId.asAggregateKey)
+      .setInt(EVENT_ID, snapshot.eventId.serialize)
+      .setString(EVENT, jsonEventSerializer.serialize(snapshot))))
+
   private def toEvent(row: Row): Event = {
     jsonEventSerializer.deserialize(row.getString(EVENT))
   }
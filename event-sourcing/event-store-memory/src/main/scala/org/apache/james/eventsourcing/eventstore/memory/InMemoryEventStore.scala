@@ -30,6 +30,7 @@ import reactor.core.scala.publisher.SMono
 class InMemoryEventStore() extends EventStore {
   private val storeRef: AtomicReference[Map[AggregateId, History]] =
     new AtomicReference(Map().withDefault(_ => History.empty))
+  private val snapshotsRef: AtomicReference[Map[AggregateId, Event]] = new AtomicReference(Map())
 
   override def appendAll(events: Iterable[Event]): Publisher[Void] = {
     if (events.nonEmpty) {
@@ -41,9 +42,19 @@ class InMemoryEventStore() extends EventStore {
 
   override def getEventsOfAggregate(aggregateId: AggregateId): Publisher[History] = {
     Preconditions.checkNotNull(aggregateId)
-    SMono.fromCallable(() => storeRef.get()(aggregateId))
+    SMono.fromCallable(() => fromLatestSnapshot(aggregateId, storeRef.get()(aggregateId)))
   }
 
+  override def storeSnapshot(snapshot: Event): Publisher[Void] = {
+    Preconditions.checkNotNull(snapshot)
+    SMono.fromCallable(() => snapshotsRef.updateAndGet(snapshots => snapshots.updated(snapshot.getAggregateId, snapshot))).`then`()
+  }
+
+  private def fromLatestSnapshot(aggregateId: AggregateId, history: History): History =
+    snapshotsRef.get().get(aggregateId)
+      .map(snapshot => History.of(snapshot :: history.getEvents.filter(_.eventId.compareTo(snapshot.eventId) > 0)))
+      .getOrElse(history)
+
   private def doAppendAll(events: Iterable[Event]): Boolean = {
     val aggregateId: AggregateId = getAggregateId(events)
     storeRef.updateAndGet(store => {
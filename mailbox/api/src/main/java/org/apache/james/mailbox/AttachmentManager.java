@@ -42,6 +42,11 @@ public interface AttachmentManager extends AttachmentContentLoader {
 
     InputStream loadAttachmentContent(AttachmentId attachmentId, MailboxSession mailboxSession) throws AttachmentNotFoundException, IOException;
 
+    /**
+     * Loads at most {@code length} octets of the attachment content, starting at {@code offset}.
+     */
+    InputStream loadAttachmentContent(AttachmentId attachmentId, long offset, long length, MailboxSession mailboxSession) throws AttachmentNotFoundException, IOException;
+
     @Override
     default InputStream load(AttachmentMetadata attachment, MailboxSession mailboxSession) throws IOException, AttachmentNotFoundException {
         return loadAttachmentContent(attachment.getAttachmentId(), mailboxSession);
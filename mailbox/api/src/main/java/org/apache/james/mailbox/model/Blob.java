@@ -22,12 +22,15 @@ package org.apache.james.mailbox.model;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
+import java.util.Optional;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.james.mailbox.exception.BlobNotFoundException;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
 
 public class Blob {
 
@@ -41,9 +44,20 @@ public class Blob {
         InputStream load() throws IOException, BlobNotFoundException;
     }
 
+    @FunctionalInterface
+    public interface RangeInputStreamSupplier {
+        /**
+         * @return at most length bytes of the content of this blob, starting at offset, as an inputStream.
+         *
+         * The caller is responsible of closing it.
+         */
+        InputStream load(long offset, long length) throws IOException, BlobNotFoundException;
+    }
+
     public static class Builder {
         private BlobId blobId;
         private InputStreamSupplier payload;
+        private Optional<RangeInputStreamSupplier> rangePayload = Optional.empty();
         private ContentType contentType;
         private Long size;
 
@@ -60,6 +74,11 @@ public class Blob {
             return this;
         }
 
+        public Builder rangePayload(RangeInputStreamSupplier rangePayload) {
+            this.rangePayload = Optional.of(rangePayload);
+            return this;
+        }
+
         public Builder contentType(String contentType) {
             this.contentType = ContentType.of(contentType);
             return this;
@@ -81,7 +100,15 @@ public class Blob {
             Preconditions.checkState(contentType != null, "contentType can not be empty");
             Preconditions.checkState(size != null, "size can not be empty");
 
-            return new Blob(blobId, payload, contentType, size);
+            return new Blob(blobId, payload, rangePayload.orElseGet(() -> rangeOf(payload)), contentType, size);
+        }
+
+        private static RangeInputStreamSupplier rangeOf(InputStreamSupplier payload) {
+            return (offset, length) -> {
+                InputStream inputStream = payload.load();
+                IOUtils.skip(inputStream, offset);
+                return ByteStreams.limit(inputStream, length);
+            };
         }
     }
 
@@ -91,13 +118,15 @@ public class Blob {
 
     private final BlobId blobId;
     private final InputStreamSupplier payload;
+    private final RangeInputStreamSupplier rangePayload;
     private final ContentType contentType;
     private final long size;
 
     @VisibleForTesting
-    Blob(BlobId blobId, InputStreamSupplier payload, ContentType contentType, long size) {
+    Blob(BlobId blobId, InputStreamSupplier payload, RangeInputStreamSupplier rangePayload, ContentType contentType, long size) {
         this.blobId = blobId;
         this.payload = payload;
+        this.rangePayload = rangePayload;
         this.contentType = contentType;
         this.size = size;
     }
@@ -110,6 +139,15 @@ public class Blob {
         return payload.load();
     }
 
+    /**
+     * @return at most length bytes of the content of this blob, starting at offset
+     */
+    public InputStream getStream(long offset, long length) throws IOException {
+        Preconditions.checkArgument(offset >= 0, "'offset' should not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' should not be negative");
+        return rangePayload.load(offset, length);
+    }
+
     public long getSize() {
         return size;
     }
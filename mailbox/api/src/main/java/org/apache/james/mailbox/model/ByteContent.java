@@ -25,6 +25,8 @@ package org.apache.james.mailbox.model;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
+import com.google.common.base.Preconditions;
+
 public final class ByteContent implements Content {
 
     private final byte[] contents;
@@ -45,4 +47,12 @@ public final class ByteContent implements Content {
     public InputStream getInputStream() {
         return new ByteArrayInputStream(contents);
     }
+
+    @Override
+    public InputStream getInputStream(long offset, long length) {
+        Preconditions.checkArgument(offset >= 0, "'offset' should not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' should not be negative");
+        int start = (int) Math.min(offset, contents.length);
+        return new ByteArrayInputStream(contents, start, (int) Math.min(length, contents.length - start));
+    }
 }
@@ -22,8 +22,12 @@ package org.apache.james.mailbox.model;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.james.mailbox.exception.MailboxException;
 
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
 /**
  * IMAP needs to know the size of the content before it starts to write it out.
  * This interface allows direct writing whilst exposing total size.
@@ -33,7 +37,21 @@ public interface Content {
      * Return the content as {@link InputStream}
      */
     InputStream getInputStream() throws IOException;
-    
+
+    /**
+     * Return at most {@code length} octets of the content, starting at {@code offset}, as {@link InputStream}.
+     *
+     * Implementations able to retrieve a part of their content without reading what precedes it should override
+     * this method.
+     */
+    default InputStream getInputStream(long offset, long length) throws IOException {
+        Preconditions.checkArgument(offset >= 0, "'offset' should not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' should not be negative");
+        InputStream inputStream = getInputStream();
+        IOUtils.skip(inputStream, offset);
+        return ByteStreams.limit(inputStream, length);
+    }
+
     /**
      * Size (in octets) of the content.
      * 
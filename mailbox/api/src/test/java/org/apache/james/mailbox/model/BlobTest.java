@@ -39,7 +39,7 @@ class BlobTest {
     @Test
     void shouldMatchBeanContract() {
         EqualsVerifier.forClass(Blob.class)
-            .withIgnoredFields("payload", "size")
+            .withIgnoredFields("payload", "rangePayload", "size")
             .verify();
     }
 
@@ -53,7 +53,34 @@ class BlobTest {
                 .size(LENGTH)
                 .build())
             .isEqualTo(
-                new Blob(ID, PAYLOAD, CONTENT_TYPE, LENGTH));
+                new Blob(ID, PAYLOAD, (offset, length) -> PAYLOAD.load(), CONTENT_TYPE, LENGTH));
+    }
+
+    @Test
+    void getStreamShouldReadTheRequestedRangeOfThePayloadByDefault() throws Exception {
+        Blob blob = Blob.builder()
+            .id(ID)
+            .contentType(CONTENT_TYPE)
+            .payload(PAYLOAD)
+            .size(LENGTH)
+            .build();
+
+        assertThat(blob.getStream(1, 1))
+            .hasSameContentAs(new ByteArrayInputStream("b".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void getStreamShouldUseTheRangePayloadWhenSpecified() throws Exception {
+        Blob blob = Blob.builder()
+            .id(ID)
+            .contentType(CONTENT_TYPE)
+            .payload(PAYLOAD)
+            .rangePayload((offset, length) -> new ByteArrayInputStream("range".getBytes(StandardCharsets.UTF_8)))
+            .size(LENGTH)
+            .build();
+
+        assertThat(blob.getStream(1, 1))
+            .hasSameContentAs(new ByteArrayInputStream("range".getBytes(StandardCharsets.UTF_8)));
     }
 
     @Test
@@ -63,6 +63,7 @@ import org.apache.james.mailbox.store.mail.MessageIdMapper;
 import org.apache.james.mailbox.store.mail.ModSeqProvider;
 import org.apache.james.mailbox.store.mail.UidProvider;
 import org.apache.james.mailbox.store.user.SubscriptionMapper;
+import org.apache.james.metrics.api.MetricFactory;
 
 import com.datastax.driver.core.Session;
 
@@ -99,6 +100,7 @@ public class CassandraMailboxSessionMapperFactory extends MailboxSessionMapperFa
     private final CassandraUtils cassandraUtils;
     private final RecomputeMailboxCountersService recomputeMailboxCountersService;
     private final CassandraConfiguration cassandraConfiguration;
+    private final MetricFactory metricFactory;
 
     @Inject
     public CassandraMailboxSessionMapperFactory(CassandraUidProvider uidProvider, CassandraModSeqProvider modSeqProvider, Session session,
@@ -112,7 +114,8 @@ public class CassandraMailboxSessionMapperFactory extends MailboxSessionMapperFa
                                                 CassandraUserMailboxRightsDAO userMailboxRightsDAO,
                                                 CassandraSchemaVersionManager versionManager,
                                                 RecomputeMailboxCountersService recomputeMailboxCountersService,
-                                                CassandraUtils cassandraUtils, CassandraConfiguration cassandraConfiguration) {
+                                                CassandraUtils cassandraUtils, CassandraConfiguration cassandraConfiguration,
+                                                MetricFactory metricFactory) {
         this.uidProvider = uidProvider;
         this.modSeqProvider = modSeqProvider;
         this.session = session;
@@ -139,12 +142,14 @@ public class CassandraMailboxSessionMapperFactory extends MailboxSessionMapperFa
         this.ownerDAO = ownerDAO;
         this.recomputeMailboxCountersService = recomputeMailboxCountersService;
         this.cassandraConfiguration = cassandraConfiguration;
+        this.metricFactory = metricFactory;
         this.indexTableHandler = new CassandraIndexTableHandler(
             mailboxRecentsDAO,
             mailboxCounterDAO,
             firstUnseenDAO,
             applicableFlagDAO,
-            deletedMessageDAO);
+            deletedMessageDAO,
+            cassandraConfiguration);
     }
 
     @Override
@@ -163,7 +168,7 @@ public class CassandraMailboxSessionMapperFactory extends MailboxSessionMapperFa
                                           indexTableHandler,
                                           firstUnseenDAO,
                                           deletedMessageDAO,
-                                          cassandraConfiguration, recomputeMailboxCountersService);
+                                          cassandraConfiguration, recomputeMailboxCountersService, metricFactory);
     }
 
     @Override
@@ -28,6 +28,7 @@ import org.apache.james.backends.cassandra.versions.SchemaVersion;
 import org.apache.james.eventsourcing.Command;
 import org.apache.james.eventsourcing.CommandHandler;
 import org.apache.james.eventsourcing.EventSourcingSystem;
+import org.apache.james.eventsourcing.Snapshotter;
 import org.apache.james.eventsourcing.Subscriber;
 import org.apache.james.eventsourcing.eventstore.EventStore;
 import org.apache.james.mailbox.acl.ACLDiff;
@@ -109,7 +110,8 @@ public class CassandraACLMapper {
                 new SetACLCommand.CommandHandler(eventStore));
             Set<Subscriber> subscribers = ImmutableSet.of(new UserRightsDAOSubscriber(userMailboxRightsDAO),
                 new AclV2DAOSubscriber(cassandraACLDAOV2));
-            eventSourcingSystem = EventSourcingSystem.fromJava(commandHandlers, subscribers, eventStore);
+            Set<Snapshotter> snapshotters = ImmutableSet.of(Snapshotter.latestEvent(MailboxAggregateId.class::isInstance));
+            eventSourcingSystem = EventSourcingSystem.fromJava(commandHandlers, subscribers, snapshotters, eventStore);
         }
 
         @Override
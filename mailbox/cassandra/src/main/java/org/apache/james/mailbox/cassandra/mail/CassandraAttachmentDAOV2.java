@@ -49,6 +49,7 @@ import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.google.common.base.Preconditions;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class CassandraAttachmentDAOV2 {
@@ -129,6 +130,7 @@ public class CassandraAttachmentDAOV2 {
     private final PreparedStatement insertStatement;
     private final PreparedStatement deleteStatement;
     private final PreparedStatement selectStatement;
+    private final PreparedStatement selectBlobIdsStatement;
     private final ConsistencyLevel consistencyLevel;
 
     @Inject
@@ -139,6 +141,7 @@ public class CassandraAttachmentDAOV2 {
         this.consistencyLevel = consistenciesConfiguration.getRegular();
 
         this.selectStatement = prepareSelect(session);
+        this.selectBlobIdsStatement = prepareSelectBlobIds(session);
         this.insertStatement = prepareInsert(session);
         this.deleteStatement = prepareDelete(session);
     }
@@ -165,6 +168,11 @@ public class CassandraAttachmentDAOV2 {
             .where(eq(ID_AS_UUID, bindMarker(ID_AS_UUID))));
     }
 
+    private PreparedStatement prepareSelectBlobIds(Session session) {
+        return session.prepare(select(BLOB_ID)
+            .from(TABLE_NAME));
+    }
+
     public Mono<DAOAttachment> getAttachment(AttachmentId attachmentId) {
         Preconditions.checkArgument(attachmentId != null);
         return cassandraAsyncExecutor.executeSingleRow(
@@ -184,6 +192,11 @@ public class CassandraAttachmentDAOV2 {
                 .setString(BLOB_ID, attachment.getBlobId().asString()));
     }
 
+    public Flux<BlobId> listBlobs() {
+        return cassandraAsyncExecutor.executeRows(selectBlobIdsStatement.bind())
+            .map(row -> blobIdFactory.from(row.getString(BLOB_ID)));
+    }
+
     public Mono<Void> delete(AttachmentId attachmentId) {
         return cassandraAsyncExecutor.executeVoid(
             deleteStatement.bind()
@@ -29,14 +29,18 @@ import static org.apache.james.mailbox.cassandra.table.CassandraFirstUnseenTable
 import static org.apache.james.mailbox.cassandra.table.CassandraFirstUnseenTable.TABLE_NAME;
 import static org.apache.james.mailbox.cassandra.table.CassandraFirstUnseenTable.UID;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
 
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.github.steveash.guavate.Guavate;
 
 import reactor.core.publisher.Mono;
 
@@ -84,16 +88,31 @@ public class CassandraFirstUnseenDAO {
     }
 
     public Mono<Void> addUnread(CassandraId cassandraId, MessageUid uid) {
-        return cassandraAsyncExecutor.executeVoid(
-            addStatement.bind()
-                .setUUID(MAILBOX_ID, cassandraId.asUuid())
-                .setLong(UID, uid.asLong()));
+        return cassandraAsyncExecutor.executeVoid(bindWithUid(addStatement, cassandraId, uid));
+    }
+
+    public Mono<Void> addUnread(CassandraId cassandraId, List<MessageUid> uids) {
+        return cassandraAsyncExecutor.executeUnloggedBatch(bindWithUids(addStatement, cassandraId, uids));
     }
 
     public Mono<Void> removeUnread(CassandraId cassandraId, MessageUid uid) {
-        return cassandraAsyncExecutor.executeVoid(deleteStatement.bind()
+        return cassandraAsyncExecutor.executeVoid(bindWithUid(deleteStatement, cassandraId, uid));
+    }
+
+    public Mono<Void> removeUnread(CassandraId cassandraId, List<MessageUid> uids) {
+        return cassandraAsyncExecutor.executeUnloggedBatch(bindWithUids(deleteStatement, cassandraId, uids));
+    }
+
+    private List<BoundStatement> bindWithUids(PreparedStatement statement, CassandraId cassandraId, List<MessageUid> uids) {
+        return uids.stream()
+            .map(uid -> bindWithUid(statement, cassandraId, uid))
+            .collect(Guavate.toImmutableList());
+    }
+
+    private BoundStatement bindWithUid(PreparedStatement statement, CassandraId cassandraId, MessageUid uid) {
+        return statement.bind()
             .setUUID(MAILBOX_ID, cassandraId.asUuid())
-            .setLong(UID, uid.asLong()));
+            .setLong(UID, uid.asLong());
     }
 
     public Mono<Void> removeAll(CassandraId cassandraId) {
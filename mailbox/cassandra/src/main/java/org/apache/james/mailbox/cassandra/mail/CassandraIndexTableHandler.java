@@ -23,11 +23,14 @@ import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.mail.Flags;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
 import org.apache.james.mailbox.model.ComposedMessageIdWithMetaData;
@@ -40,30 +43,33 @@ import org.apache.james.util.streams.Iterators;
 import com.github.steveash.guavate.Guavate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.concurrent.Queues;
 
 public class CassandraIndexTableHandler {
-
     private final CassandraMailboxRecentsDAO mailboxRecentDAO;
     private final CassandraMailboxCounterDAO mailboxCounterDAO;
     private final CassandraFirstUnseenDAO firstUnseenDAO;
     private final CassandraApplicableFlagDAO applicableFlagDAO;
     private final CassandraDeletedMessageDAO deletedMessageDAO;
+    private final CassandraConfiguration cassandraConfiguration;
 
     @Inject
     public CassandraIndexTableHandler(CassandraMailboxRecentsDAO mailboxRecentDAO,
                                       CassandraMailboxCounterDAO mailboxCounterDAO,
                                       CassandraFirstUnseenDAO firstUnseenDAO,
                                       CassandraApplicableFlagDAO applicableFlagDAO,
-                                      CassandraDeletedMessageDAO deletedMessageDAO) {
+                                      CassandraDeletedMessageDAO deletedMessageDAO,
+                                      CassandraConfiguration cassandraConfiguration) {
         this.mailboxRecentDAO = mailboxRecentDAO;
         this.mailboxCounterDAO = mailboxCounterDAO;
         this.firstUnseenDAO = firstUnseenDAO;
         this.applicableFlagDAO = applicableFlagDAO;
         this.deletedMessageDAO = deletedMessageDAO;
+        this.cassandraConfiguration = cassandraConfiguration;
     }
 
     public Mono<Void> updateIndexOnDelete(ComposedMessageIdWithMetaData composedMessageIdWithMetaData, CassandraId mailboxId) {
@@ -174,19 +180,27 @@ public class CassandraIndexTableHandler {
     }
 
     private Mono<Void> updateDeletedOnFlagsUpdate(CassandraId mailboxId, List<UpdatedFlags> updatedFlags) {
-        return Flux.fromIterable(updatedFlags)
-            .concatMap(flags -> updateDeletedOnFlagsUpdate(mailboxId, flags))
+        return Flux.mergeDelayError(Queues.XS_BUFFER_SIZE,
+                updateByBatches(mailboxId, uidsMatching(updatedFlags, flags -> flags.isModifiedToSet(Flags.Flag.DELETED)), deletedMessageDAO::addDeleted),
+                updateByBatches(mailboxId, uidsMatching(updatedFlags, flags -> flags.isModifiedToUnset(Flags.Flag.DELETED)), deletedMessageDAO::removeDeleted))
             .then();
     }
 
-    private Mono<Void> updateDeletedOnFlagsUpdate(CassandraId mailboxId, UpdatedFlags updatedFlags) {
-        if (updatedFlags.isModifiedToSet(Flags.Flag.DELETED)) {
-            return deletedMessageDAO.addDeleted(mailboxId, updatedFlags.getUid());
-        } else if (updatedFlags.isModifiedToUnset(Flags.Flag.DELETED)) {
-            return deletedMessageDAO.removeDeleted(mailboxId, updatedFlags.getUid());
-        } else {
-            return Mono.empty();
-        }
+    private List<MessageUid> uidsMatching(List<UpdatedFlags> updatedFlags, Predicate<UpdatedFlags> predicate) {
+        return updatedFlags.stream()
+            .filter(predicate)
+            .map(UpdatedFlags::getUid)
+            .collect(Guavate.toImmutableList());
+    }
+
+    /**
+     * Rows of the index tables are partitioned by mailbox: updates of a mailbox can thus be grouped in unlogged
+     * batches, each of them hitting a single partition.
+     */
+    private Mono<Void> updateByBatches(CassandraId mailboxId, List<MessageUid> uids, BiFunction<CassandraId, List<MessageUid>, Mono<Void>> batchOperation) {
+        return Flux.fromIterable(Lists.partition(uids, cassandraConfiguration.getFlagsUpdateChunkSize()))
+            .flatMap(batch -> batchOperation.apply(mailboxId, batch), DEFAULT_CONCURRENCY)
+            .then();
     }
 
     private Mono<Void> decrementCountersOnDelete(CassandraId mailboxId, Flags flags) {
@@ -264,21 +278,12 @@ public class CassandraIndexTableHandler {
     }
 
     private Mono<Void> manageRecentOnFlagsUpdate(CassandraId mailboxId, List<UpdatedFlags> updatedFlags) {
-        return Flux.fromIterable(updatedFlags)
-            .concatMap(flags -> manageRecentOnFlagsUpdate(mailboxId, flags))
+        return Flux.mergeDelayError(Queues.XS_BUFFER_SIZE,
+                updateByBatches(mailboxId, uidsMatching(updatedFlags, flags -> flags.isModifiedToUnset(Flags.Flag.RECENT)), mailboxRecentDAO::removeFromRecent),
+                updateByBatches(mailboxId, uidsMatching(updatedFlags, flags -> flags.isModifiedToSet(Flags.Flag.RECENT)), mailboxRecentDAO::addToRecent))
             .then();
     }
 
-    private Mono<Void> manageRecentOnFlagsUpdate(CassandraId mailboxId, UpdatedFlags updatedFlags) {
-        if (updatedFlags.isModifiedToUnset(Flags.Flag.RECENT)) {
-            return mailboxRecentDAO.removeFromRecent(mailboxId, updatedFlags.getUid());
-        }
-        if (updatedFlags.isModifiedToSet(Flags.Flag.RECENT)) {
-            return mailboxRecentDAO.addToRecent(mailboxId, updatedFlags.getUid());
-        }
-        return Mono.empty();
-    }
-
     private Mono<Void> updateFirstUnseenOnAdd(CassandraId mailboxId, Flags flags, MessageUid uid) {
         if (flags.contains(Flags.Flag.SEEN)) {
             return Mono.empty();
@@ -302,18 +307,9 @@ public class CassandraIndexTableHandler {
     }
 
     private Mono<Void> updateFirstUnseenOnFlagsUpdate(CassandraId mailboxId, List<UpdatedFlags> updatedFlags) {
-        return Flux.fromIterable(updatedFlags)
-            .concatMap(flags -> updateFirstUnseenOnFlagsUpdate(mailboxId, flags))
+        return Flux.mergeDelayError(Queues.XS_BUFFER_SIZE,
+                updateByBatches(mailboxId, uidsMatching(updatedFlags, flags -> flags.isModifiedToUnset(Flags.Flag.SEEN)), firstUnseenDAO::addUnread),
+                updateByBatches(mailboxId, uidsMatching(updatedFlags, flags -> flags.isModifiedToSet(Flags.Flag.SEEN)), firstUnseenDAO::removeUnread))
             .then();
     }
-
-    private Mono<Void> updateFirstUnseenOnFlagsUpdate(CassandraId mailboxId, UpdatedFlags updatedFlags) {
-        if (updatedFlags.isModifiedToUnset(Flags.Flag.SEEN)) {
-            return firstUnseenDAO.addUnread(mailboxId, updatedFlags.getUid());
-        }
-        if (updatedFlags.isModifiedToSet(Flags.Flag.SEEN)) {
-            return firstUnseenDAO.removeUnread(mailboxId, updatedFlags.getUid());
-        }
-        return Mono.empty();
-    }
 }
@@ -0,0 +1,288 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.cassandra.mail;
+
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.set;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.timestamp;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.james.backends.cassandra.init.configuration.CassandraConsistenciesConfiguration;
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
+import org.apache.james.mailbox.cassandra.ids.CassandraId;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Allocates the values of a per mailbox monotonic counter by leasing blocks of contiguous values.
+ *
+ * The counter table holds the end of the latest leased block. It is only updated by a lightweight transaction upon
+ * lease, values of the block being then allocated locally without contention.
+ *
+ * A block is only used as long as no newer block was leased, by any James node: allocating values lower than values
+ * already handed out would break the monotonicity IMAP clients rely upon. The remaining values of a superseded or
+ * expired block are skipped, which IMAP tolerates.
+ *
+ * As the counter table runs ahead of allocated values, the highest allocated value is tracked in a separate table. It
+ * is written using the value as the write timestamp so that concurrent writes resolve to the highest value without
+ * lightweight transactions. Each write also records the end of the lease the value comes from: a counter beyond it
+ * had been advanced without leases, and is then the highest allocated value.
+ */
+public class CassandraLeasedCounter {
+    public static class Tables {
+        private final String counterTable;
+        private final String counterColumn;
+        private final String highestTable;
+        private final String highestColumn;
+        private final String leaseEndColumn;
+
+        public Tables(String counterTable, String counterColumn, String highestTable, String highestColumn, String leaseEndColumn) {
+            this.counterTable = counterTable;
+            this.counterColumn = counterColumn;
+            this.highestTable = highestTable;
+            this.highestColumn = highestColumn;
+            this.leaseEndColumn = leaseEndColumn;
+        }
+    }
+
+    private static class Allocation {
+        private final long highest;
+        private final long leaseEnd;
+
+        private Allocation(long highest, long leaseEnd) {
+            this.highest = highest;
+            this.leaseEnd = leaseEnd;
+        }
+    }
+
+    private static class Lease {
+        private final long next;
+        private final long end;
+        private final Instant expiry;
+
+        private Lease(long next, long end, Instant expiry) {
+            this.next = next;
+            this.end = end;
+            this.expiry = expiry;
+        }
+
+        private boolean canAllocate(Optional<Long> counter, int count, Instant now) {
+            return counter.equals(Optional.of(end))
+                && now.isBefore(expiry)
+                && next + count - 1 <= end;
+        }
+
+        private Allocation allocate(int count) {
+            return new Allocation(next + count - 1, end);
+        }
+
+        private Lease afterAllocation(int count) {
+            return new Lease(next + count, end, expiry);
+        }
+    }
+
+    private static final long NO_VALUE = 0L;
+    private static final String MAILBOX_ID = "mailboxId";
+    private static final String CONDITION = "condition";
+    private static final String WRITE_TIMESTAMP = "writeTimestamp";
+
+    private final CassandraAsyncExecutor executor;
+    private final Tables tables;
+    private final int leaseSize;
+    private final Duration leaseExpiry;
+    private final long maxRetries;
+    private final ConsistencyLevel consistencyLevel;
+    private final Clock clock;
+    private final Cache<CassandraId, Lease> leases;
+    private final PreparedStatement selectCounter;
+    private final PreparedStatement insertCounter;
+    private final PreparedStatement updateCounter;
+    private final PreparedStatement selectHighest;
+    private final PreparedStatement insertHighest;
+
+    public CassandraLeasedCounter(Session session, Tables tables, int leaseSize, Duration leaseExpiry, long maxRetries,
+                                  CassandraConsistenciesConfiguration consistenciesConfiguration) {
+        this(session, tables, leaseSize, leaseExpiry, maxRetries, consistenciesConfiguration, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    CassandraLeasedCounter(Session session, Tables tables, int leaseSize, Duration leaseExpiry, long maxRetries,
+                           CassandraConsistenciesConfiguration consistenciesConfiguration, Clock clock) {
+        this.executor = new CassandraAsyncExecutor(session);
+        this.tables = tables;
+        this.leaseSize = leaseSize;
+        this.leaseExpiry = leaseExpiry;
+        this.maxRetries = maxRetries;
+        this.consistencyLevel = consistenciesConfiguration.getRegular();
+        this.clock = clock;
+        this.leases = CacheBuilder.newBuilder()
+            .expireAfterWrite(leaseExpiry)
+            .build();
+        this.selectCounter = prepareSelectCounter(session);
+        this.insertCounter = prepareInsertCounter(session);
+        this.updateCounter = prepareUpdateCounter(session);
+        this.selectHighest = prepareSelectHighest(session);
+        this.insertHighest = prepareInsertHighest(session);
+    }
+
+    private PreparedStatement prepareSelectCounter(Session session) {
+        return session.prepare(select(tables.counterColumn)
+            .from(tables.counterTable)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID))));
+    }
+
+    private PreparedStatement prepareInsertCounter(Session session) {
+        return session.prepare(insertInto(tables.counterTable)
+            .value(tables.counterColumn, bindMarker(tables.counterColumn))
+            .value(MAILBOX_ID, bindMarker(MAILBOX_ID))
+            .ifNotExists());
+    }
+
+    private PreparedStatement prepareUpdateCounter(Session session) {
+        return session.prepare(update(tables.counterTable)
+            .onlyIf(eq(tables.counterColumn, bindMarker(CONDITION)))
+            .with(set(tables.counterColumn, bindMarker(tables.counterColumn)))
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID))));
+    }
+
+    private PreparedStatement prepareSelectHighest(Session session) {
+        return session.prepare(select(tables.highestColumn, tables.leaseEndColumn)
+            .from(tables.highestTable)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID))));
+    }
+
+    private PreparedStatement prepareInsertHighest(Session session) {
+        return session.prepare(insertInto(tables.highestTable)
+            .value(MAILBOX_ID, bindMarker(MAILBOX_ID))
+            .value(tables.highestColumn, bindMarker(tables.highestColumn))
+            .value(tables.leaseEndColumn, bindMarker(tables.leaseEndColumn))
+            .using(timestamp(bindMarker(WRITE_TIMESTAMP))));
+    }
+
+    /**
+     * @return the highest of the {@code count} contiguous values allocated
+     */
+    public Mono<Long> allocate(CassandraId mailboxId, int count) {
+        Duration firstBackoff = Duration.ofMillis(10);
+
+        return readCounter(mailboxId)
+            .flatMap(counter -> Mono.justOrEmpty(allocateFromLease(mailboxId, counter, count))
+                .switchIfEmpty(Mono.defer(() -> lease(mailboxId, counter, count))))
+            .single()
+            .retryWhen(Retry.backoff(maxRetries, firstBackoff).scheduler(Schedulers.elastic()))
+            .flatMap(allocation -> recordHighest(mailboxId, allocation.highest, allocation.leaseEnd)
+                .thenReturn(allocation.highest));
+    }
+
+    public Mono<Optional<Long>> highestAllocated(CassandraId mailboxId) {
+        return Mono.zip(readCounter(mailboxId), readHighest(mailboxId))
+            .map(counterAndHighest -> highestAllocated(counterAndHighest.getT1(), counterAndHighest.getT2()));
+    }
+
+    private Optional<Long> highestAllocated(Optional<Long> counter, Optional<Allocation> highest) {
+        return highest
+            .filter(allocation -> counter.map(value -> allocation.leaseEnd >= value).orElse(true))
+            .map(allocation -> allocation.highest)
+            .or(() -> counter)
+            .filter(value -> value != NO_VALUE);
+    }
+
+    private Optional<Allocation> allocateFromLease(CassandraId mailboxId, Optional<Long> counter, int count) {
+        AtomicReference<Allocation> allocation = new AtomicReference<>();
+        leases.asMap().computeIfPresent(mailboxId, (id, lease) -> {
+            if (!lease.canAllocate(counter, count, clock.instant())) {
+                return null;
+            }
+            allocation.set(lease.allocate(count));
+            return lease.afterAllocation(count);
+        });
+        return Optional.ofNullable(allocation.get());
+    }
+
+    private Mono<Allocation> lease(CassandraId mailboxId, Optional<Long> counter, int count) {
+        long base = counter.orElse(NO_VALUE);
+        long end = base + Math.max(leaseSize, count);
+
+        return recordHighest(mailboxId, base, end)
+            .then(advanceCounter(mailboxId, counter, end))
+            .filter(applied -> applied)
+            .map(applied -> {
+                Lease lease = new Lease(base + 1, end, clock.instant().plus(leaseExpiry));
+                leases.put(mailboxId, lease.afterAllocation(count));
+                return lease.allocate(count);
+            });
+    }
+
+    private Mono<Boolean> advanceCounter(CassandraId mailboxId, Optional<Long> counter, long end) {
+        return counter
+            .map(value -> executor.executeReturnApplied(updateCounter.bind()
+                .setUUID(MAILBOX_ID, mailboxId.asUuid())
+                .setLong(CONDITION, value)
+                .setLong(tables.counterColumn, end)))
+            .orElseGet(() -> executor.executeReturnApplied(insertCounter.bind()
+                .setUUID(MAILBOX_ID, mailboxId.asUuid())
+                .setLong(tables.counterColumn, end)));
+    }
+
+    private Mono<Void> recordHighest(CassandraId mailboxId, long highest, long leaseEnd) {
+        return executor.executeVoid(insertHighest.bind()
+            .setUUID(MAILBOX_ID, mailboxId.asUuid())
+            .setLong(tables.highestColumn, highest)
+            .setLong(tables.leaseEndColumn, leaseEnd)
+            .setLong(WRITE_TIMESTAMP, highest));
+    }
+
+    private Mono<Optional<Long>> readCounter(CassandraId mailboxId) {
+        return executor.executeSingleRowOptional(selectCounter.bind()
+                .setUUID(MAILBOX_ID, mailboxId.asUuid())
+                .setConsistencyLevel(consistencyLevel))
+            .map(maybeRow -> maybeRow.map(row -> row.getLong(tables.counterColumn)));
+    }
+
+    private Mono<Optional<Allocation>> readHighest(CassandraId mailboxId) {
+        return executor.executeSingleRowOptional(selectHighest.bind()
+                .setUUID(MAILBOX_ID, mailboxId.asUuid())
+                .setConsistencyLevel(consistencyLevel))
+            .map(maybeRow -> maybeRow.map(this::toAllocation));
+    }
+
+    private Allocation toAllocation(Row row) {
+        return new Allocation(row.getLong(tables.highestColumn), row.getLong(tables.leaseEndColumn));
+    }
+}
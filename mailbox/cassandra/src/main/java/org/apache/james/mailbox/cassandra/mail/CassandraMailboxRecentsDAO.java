@@ -24,6 +24,8 @@ import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.insertInto;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
@@ -36,6 +38,7 @@ import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.github.steveash.guavate.Guavate;
 import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
@@ -107,9 +110,11 @@ public class CassandraMailboxRecentsDAO {
     }
 
     public Mono<Void> removeFromRecent(CassandraId mailboxId, MessageUid messageUid) {
-        return cassandraAsyncExecutor.executeVoid(deleteStatement.bind()
-            .setUUID(CassandraMailboxRecentsTable.MAILBOX_ID, mailboxId.asUuid())
-            .setLong(CassandraMailboxRecentsTable.RECENT_MESSAGE_UID, messageUid.asLong()));
+        return cassandraAsyncExecutor.executeVoid(bindWithUid(deleteStatement, mailboxId, messageUid));
+    }
+
+    public Mono<Void> removeFromRecent(CassandraId mailboxId, List<MessageUid> messageUids) {
+        return cassandraAsyncExecutor.executeUnloggedBatch(bindWithUids(deleteStatement, mailboxId, messageUids));
     }
 
     public Mono<Void> delete(CassandraId mailboxId) {
@@ -118,8 +123,22 @@ public class CassandraMailboxRecentsDAO {
     }
 
     public Mono<Void> addToRecent(CassandraId mailboxId, MessageUid messageUid) {
-        return cassandraAsyncExecutor.executeVoid(addStatement.bind()
+        return cassandraAsyncExecutor.executeVoid(bindWithUid(addStatement, mailboxId, messageUid));
+    }
+
+    public Mono<Void> addToRecent(CassandraId mailboxId, List<MessageUid> messageUids) {
+        return cassandraAsyncExecutor.executeUnloggedBatch(bindWithUids(addStatement, mailboxId, messageUids));
+    }
+
+    private List<BoundStatement> bindWithUids(PreparedStatement statement, CassandraId mailboxId, List<MessageUid> messageUids) {
+        return messageUids.stream()
+            .map(messageUid -> bindWithUid(statement, mailboxId, messageUid))
+            .collect(Guavate.toImmutableList());
+    }
+
+    private BoundStatement bindWithUid(PreparedStatement statement, CassandraId mailboxId, MessageUid messageUid) {
+        return statement.bind()
             .setUUID(CassandraMailboxRecentsTable.MAILBOX_ID, mailboxId.asUuid())
-            .setLong(CassandraMailboxRecentsTable.RECENT_MESSAGE_UID, messageUid.asLong()));
+            .setLong(CassandraMailboxRecentsTable.RECENT_MESSAGE_UID, messageUid.asLong());
     }
 }
@@ -96,6 +96,7 @@ public class CassandraMessageDAO {
     private final PreparedStatement delete;
     private final PreparedStatement select;
     private final PreparedStatement selectAll;
+    private final PreparedStatement selectBlobIds;
     private final Cid.CidParser cidParser;
     private final CassandraMessageId.Factory messageIdFactory;
     private final ConsistencyLevel consistencyLevel;
@@ -118,6 +119,7 @@ public class CassandraMessageDAO {
         this.delete = prepareDelete(session);
         this.select = prepareSelect(session);
         this.selectAll = prepareSelectAll(session);
+        this.selectBlobIds = prepareSelectBlobIds(session);
         this.cidParser = Cid.parser().relaxed();
     }
 
@@ -132,6 +134,11 @@ public class CassandraMessageDAO {
             .from(TABLE_NAME));
     }
 
+    private PreparedStatement prepareSelectBlobIds(Session session) {
+        return session.prepare(select(HEADER_CONTENT, BODY_CONTENT)
+            .from(TABLE_NAME));
+    }
+
     private PreparedStatement prepareInsert(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(MESSAGE_ID, bindMarker(MESSAGE_ID))
@@ -157,6 +164,13 @@ public class CassandraMessageDAO {
             .map(this::message);
     }
 
+    public Flux<BlobId> listBlobs() {
+        return cassandraAsyncExecutor.executeRows(selectBlobIds.bind())
+            .flatMapIterable(row -> ImmutableList.of(
+                retrieveBlobId(HEADER_CONTENT, row),
+                retrieveBlobId(BODY_CONTENT, row)));
+    }
+
     public Mono<Void> save(MailboxMessage message) throws MailboxException {
         return saveContent(message)
             .flatMap(pair -> cassandraAsyncExecutor.executeVoid(boundWriteStatement(message, pair)));
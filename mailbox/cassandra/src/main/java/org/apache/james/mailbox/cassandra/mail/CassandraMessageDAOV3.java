@@ -87,6 +87,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSource;
 import com.google.common.primitives.Bytes;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 
@@ -101,6 +102,7 @@ public class CassandraMessageDAOV3 {
     private final PreparedStatement insert;
     private final PreparedStatement delete;
     private final PreparedStatement select;
+    private final PreparedStatement selectBlobIds;
     private final Cid.CidParser cidParser;
     private final ConsistencyLevel consistencyLevel;
 
@@ -117,6 +119,7 @@ public class CassandraMessageDAOV3 {
         this.insert = prepareInsert(session);
         this.delete = prepareDelete(session);
         this.select = prepareSelect(session);
+        this.selectBlobIds = prepareSelectBlobIds(session);
         this.cidParser = Cid.parser().relaxed();
     }
 
@@ -126,6 +129,11 @@ public class CassandraMessageDAOV3 {
             .where(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
     }
 
+    private PreparedStatement prepareSelectBlobIds(Session session) {
+        return session.prepare(select(HEADER_CONTENT, BODY_CONTENT)
+            .from(TABLE_NAME));
+    }
+
     private PreparedStatement prepareInsert(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(MESSAGE_ID, bindMarker(MESSAGE_ID))
@@ -156,6 +164,13 @@ public class CassandraMessageDAOV3 {
             .where(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
     }
 
+    public Flux<BlobId> listBlobs() {
+        return cassandraAsyncExecutor.executeRows(selectBlobIds.bind())
+            .flatMapIterable(row -> ImmutableList.of(
+                retrieveBlobId(HEADER_CONTENT, row),
+                retrieveBlobId(BODY_CONTENT, row)));
+    }
+
     public Mono<Void> save(MailboxMessage message) throws MailboxException {
         return saveContent(message)
             .flatMap(pair -> cassandraAsyncExecutor.executeVoid(boundWriteStatement(message, pair)));
@@ -43,6 +43,7 @@ import static org.apache.james.mailbox.cassandra.table.Flag.USER_FLAGS;
 import static org.apache.james.mailbox.cassandra.table.MessageIdToImapUid.MOD_SEQ;
 import static org.apache.james.util.ReactorUtils.publishIfPresent;
 
+import java.util.List;
 import java.util.Optional;
 
 import javax.inject.Inject;
@@ -60,10 +61,13 @@ import org.apache.james.mailbox.model.ComposedMessageIdWithMetaData;
 import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.util.streams.Limit;
 
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.github.steveash.guavate.Guavate;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 
 import reactor.core.publisher.Flux;
@@ -235,9 +239,27 @@ public class CassandraMessageIdDAO {
     }
 
     public Mono<Void> updateMetadata(ComposedMessageIdWithMetaData composedMessageIdWithMetaData) {
+        return cassandraAsyncExecutor.executeVoid(bindUpdate(composedMessageIdWithMetaData));
+    }
+
+    /**
+     * Updates the metadata of several messages of a same mailbox at once: all the rows belong to the same partition,
+     * hence an unlogged batch results in a single mutation.
+     */
+    public Mono<Void> updateMetadata(CassandraId mailboxId, List<ComposedMessageIdWithMetaData> composedMessageIdsWithMetaData) {
+        Preconditions.checkArgument(composedMessageIdsWithMetaData.stream()
+                .allMatch(metaData -> metaData.getComposedMessageId().getMailboxId().equals(mailboxId)),
+            "Batched metadata updates should target a single mailbox");
+
+        return cassandraAsyncExecutor.executeUnloggedBatch(composedMessageIdsWithMetaData.stream()
+            .map(this::bindUpdate)
+            .collect(Guavate.toImmutableList()));
+    }
+
+    private BoundStatement bindUpdate(ComposedMessageIdWithMetaData composedMessageIdWithMetaData) {
         ComposedMessageId composedMessageId = composedMessageIdWithMetaData.getComposedMessageId();
         Flags flags = composedMessageIdWithMetaData.getFlags();
-        return cassandraAsyncExecutor.executeVoid(update.bind()
+        return update.bind()
                 .setLong(MOD_SEQ, composedMessageIdWithMetaData.getModSeq().asLong())
                 .setBool(ANSWERED, flags.contains(Flag.ANSWERED))
                 .setBool(DELETED, flags.contains(Flag.DELETED))
@@ -248,7 +270,7 @@ public class CassandraMessageIdDAO {
                 .setBool(USER, flags.contains(Flag.USER))
                 .setSet(USER_FLAGS, ImmutableSet.copyOf(flags.getUserFlags()))
                 .setUUID(MAILBOX_ID, ((CassandraId) composedMessageId.getMailboxId()).asUuid())
-                .setLong(IMAP_UID, composedMessageId.getUid().asLong()));
+                .setLong(IMAP_UID, composedMessageId.getUid().asLong());
     }
 
     public Mono<Optional<ComposedMessageIdWithMetaData>> retrieve(CassandraId mailboxId, MessageUid uid) {
@@ -58,6 +58,7 @@ import org.apache.james.mailbox.store.FlagsUpdateCalculator;
 import org.apache.james.mailbox.store.mail.MessageMapper;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.mail.model.impl.SimpleMailboxMessage;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.task.Task;
 import org.apache.james.util.ReactorUtils;
 import org.apache.james.util.streams.Limit;
@@ -79,6 +80,10 @@ public class CassandraMessageMapper implements MessageMapper {
     private static final int MAX_RETRY = 5;
     private static final Duration MIN_RETRY_BACKOFF = Duration.ofMillis(10);
     private static final Duration MAX_RETRY_BACKOFF = Duration.ofMillis(1000);
+    private static final int FLAGS_UPDATE_CHUNK_CONCURRENCY = 2;
+    private static final String FLAGS_UPDATE_STAGE_METRIC = "cassandraFlagsUpdateStage";
+    private static final String FLAGS_UPDATE_RETRY_STAGE_METRIC = "cassandraFlagsUpdateRetryStage";
+    private static final String FLAGS_UPDATE_INDEXES_METRIC = "cassandraFlagsUpdateIndexes";
 
     private final CassandraModSeqProvider modSeqProvider;
     private final CassandraUidProvider uidProvider;
@@ -95,6 +100,7 @@ public class CassandraMessageMapper implements MessageMapper {
     private final CassandraDeletedMessageDAO deletedMessageDAO;
     private final CassandraConfiguration cassandraConfiguration;
     private final RecomputeMailboxCountersService recomputeMailboxCountersService;
+    private final MetricFactory metricFactory;
     private final SecureRandom secureRandom;
 
     public CassandraMessageMapper(CassandraUidProvider uidProvider, CassandraModSeqProvider modSeqProvider,
@@ -104,7 +110,7 @@ public class CassandraMessageMapper implements MessageMapper {
                                   CassandraMailboxRecentsDAO mailboxRecentDAO, CassandraApplicableFlagDAO applicableFlagDAO,
                                   CassandraIndexTableHandler indexTableHandler, CassandraFirstUnseenDAO firstUnseenDAO,
                                   CassandraDeletedMessageDAO deletedMessageDAO, CassandraConfiguration cassandraConfiguration,
-                                  RecomputeMailboxCountersService recomputeMailboxCountersService) {
+                                  RecomputeMailboxCountersService recomputeMailboxCountersService, MetricFactory metricFactory) {
         this.uidProvider = uidProvider;
         this.modSeqProvider = modSeqProvider;
         this.messageDAO = messageDAO;
@@ -120,6 +126,7 @@ public class CassandraMessageMapper implements MessageMapper {
         this.deletedMessageDAO = deletedMessageDAO;
         this.cassandraConfiguration = cassandraConfiguration;
         this.recomputeMailboxCountersService = recomputeMailboxCountersService;
+        this.metricFactory = metricFactory;
         this.secureRandom = new SecureRandom();
     }
 
@@ -373,8 +380,9 @@ public class CassandraMessageMapper implements MessageMapper {
     }
 
     private List<UpdatedFlags> updateFlags(FlagsUpdateCalculator flagUpdateCalculator, CassandraId mailboxId, Flux<ComposedMessageIdWithMetaData> toBeUpdated) {
-        FlagsUpdateStageResult firstResult = runUpdateStage(mailboxId, toBeUpdated, flagUpdateCalculator).block();
-        FlagsUpdateStageResult finalResult = handleUpdatesStagedRetry(mailboxId, flagUpdateCalculator, firstResult);
+        FlagsUpdateStageResult finalResult = runUpdateStage(FLAGS_UPDATE_STAGE_METRIC, mailboxId, toBeUpdated, flagUpdateCalculator)
+            .flatMap(firstResult -> handleUpdatesStagedRetry(mailboxId, flagUpdateCalculator, firstResult, 0))
+            .block();
         if (finalResult.containsFailedResults()) {
             LOGGER.error("Can not update following UIDs {} for mailbox {}", finalResult.getFailed(), mailboxId.asUuid());
         }
@@ -395,15 +403,14 @@ public class CassandraMessageMapper implements MessageMapper {
         return updateFlags(calculator, mailboxId, toBeUpdated);
     }
 
-    private FlagsUpdateStageResult handleUpdatesStagedRetry(CassandraId mailboxId, FlagsUpdateCalculator flagUpdateCalculator, FlagsUpdateStageResult firstResult) {
-        FlagsUpdateStageResult globalResult = firstResult;
-        int retryCount = 0;
-        while (retryCount < cassandraConfiguration.getFlagsUpdateMessageMaxRetry() && globalResult.containsFailedResults()) {
-            retryCount++;
-            FlagsUpdateStageResult stageResult = retryUpdatesStage(mailboxId, flagUpdateCalculator, globalResult.getFailed()).block();
-            globalResult = globalResult.keepSucceded().merge(stageResult);
+    private Mono<FlagsUpdateStageResult> handleUpdatesStagedRetry(CassandraId mailboxId, FlagsUpdateCalculator flagUpdateCalculator,
+                                                                  FlagsUpdateStageResult globalResult, int retryCount) {
+        if (retryCount >= cassandraConfiguration.getFlagsUpdateMessageMaxRetry() || !globalResult.containsFailedResults()) {
+            return Mono.just(globalResult);
         }
-        return globalResult;
+        return retryUpdatesStage(mailboxId, flagUpdateCalculator, globalResult.getFailed())
+            .map(stageResult -> globalResult.keepSucceded().merge(stageResult))
+            .flatMap(result -> handleUpdatesStagedRetry(mailboxId, flagUpdateCalculator, result, retryCount + 1));
     }
 
     private Mono<FlagsUpdateStageResult> retryUpdatesStage(CassandraId mailboxId, FlagsUpdateCalculator flagsUpdateCalculator, List<ComposedMessageId> failed) {
@@ -411,17 +418,28 @@ public class CassandraMessageMapper implements MessageMapper {
             Flux<ComposedMessageIdWithMetaData> toUpdate = Flux.fromIterable(failed)
                 .flatMap(ids -> imapUidDAO.retrieve((CassandraMessageId) ids.getMessageId(), Optional.of((CassandraId) ids.getMailboxId()), STRONG),
                     DEFAULT_CONCURRENCY);
-            return runUpdateStage(mailboxId, toUpdate, flagsUpdateCalculator);
+            return runUpdateStage(FLAGS_UPDATE_RETRY_STAGE_METRIC, mailboxId, toUpdate, flagsUpdateCalculator);
         } else {
             return Mono.empty();
         }
     }
 
-    private Mono<FlagsUpdateStageResult> runUpdateStage(CassandraId mailboxId, Flux<ComposedMessageIdWithMetaData> toBeUpdated, FlagsUpdateCalculator flagsUpdateCalculator) {
-        return computeNewModSeq(mailboxId)
+    /**
+     * Messages are updated by chunks, a bounded number of chunks being processed concurrently.
+     *
+     * Within a chunk, the conditional updates of the imapUid table are run concurrently: each message lives in its own
+     * partition so they can not be grouped. Updates of the messageId table, partitioned by mailbox, are then written as
+     * a single unlogged batch for the messages whose conditional update succeeded.
+     */
+    private Mono<FlagsUpdateStageResult> runUpdateStage(String stageMetric, CassandraId mailboxId, Flux<ComposedMessageIdWithMetaData> toBeUpdated, FlagsUpdateCalculator flagsUpdateCalculator) {
+        Mono<FlagsUpdateStageResult> stage = computeNewModSeq(mailboxId)
             .flatMapMany(newModSeq -> toBeUpdated
-            .concatMap(metadata -> tryFlagsUpdate(flagsUpdateCalculator, newModSeq, metadata)))
-            .reduce(FlagsUpdateStageResult.none(), FlagsUpdateStageResult::merge)
+                .buffer(cassandraConfiguration.getFlagsUpdateChunkSize())
+                .flatMapSequential(chunk -> tryFlagsUpdate(mailboxId, flagsUpdateCalculator, newModSeq, chunk), FLAGS_UPDATE_CHUNK_CONCURRENCY))
+            .collectList()
+            .map(FlagsUpdateStageResult::combine);
+
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric(stageMetric, stage))
             .flatMap(result -> updateIndexesForUpdatesResult(mailboxId, result));
     }
 
@@ -431,7 +449,8 @@ public class CassandraMessageMapper implements MessageMapper {
     }
 
     private Mono<FlagsUpdateStageResult> updateIndexesForUpdatesResult(CassandraId mailboxId, FlagsUpdateStageResult result) {
-        return indexTableHandler.updateIndexOnFlagsUpdate(mailboxId, result.getSucceeded())
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric(FLAGS_UPDATE_INDEXES_METRIC,
+                indexTableHandler.updateIndexOnFlagsUpdate(mailboxId, result.getSucceeded())))
             .onErrorResume(e -> {
                 LOGGER.error("Could not update flag indexes for mailboxId {}. This will lead to inconsistencies across Cassandra tables", mailboxId, e);
                 return Mono.empty();
@@ -534,32 +553,56 @@ public class CassandraMessageMapper implements MessageMapper {
             .then(indexTableHandler.updateIndexOnAdd(messages, mailboxId));
     }
 
-    private Mono<FlagsUpdateStageResult> tryFlagsUpdate(FlagsUpdateCalculator flagUpdateCalculator, ModSeq newModSeq, ComposedMessageIdWithMetaData oldMetaData) {
+    private Mono<FlagsUpdateStageResult> tryFlagsUpdate(CassandraId mailboxId, FlagsUpdateCalculator flagUpdateCalculator, ModSeq newModSeq,
+                                                        List<ComposedMessageIdWithMetaData> chunk) {
+        return Flux.fromIterable(chunk)
+            .flatMapSequential(oldMetaData -> tryFlagsUpdate(flagUpdateCalculator, newModSeq, oldMetaData), DEFAULT_CONCURRENCY)
+            .collectList()
+            .flatMap(results -> messageIdDAO.updateMetadata(mailboxId, results.stream()
+                    .flatMap(result -> result.getRight().stream())
+                    .collect(Guavate.toImmutableList()))
+                .thenReturn(FlagsUpdateStageResult.combine(results.stream()
+                    .map(Pair::getLeft)
+                    .collect(Guavate.toImmutableList()))));
+    }
+
+    /**
+     * @return the result of the update, along with the metadata to be written in the messageId table when the
+     * conditional update of the imapUid table succeeded
+     */
+    private Mono<Pair<FlagsUpdateStageResult, Optional<ComposedMessageIdWithMetaData>>> tryFlagsUpdate(FlagsUpdateCalculator flagUpdateCalculator,
+                                                                                                         ModSeq newModSeq, ComposedMessageIdWithMetaData oldMetaData) {
         Flags oldFlags = oldMetaData.getFlags();
         Flags newFlags = flagUpdateCalculator.buildNewFlags(oldFlags);
 
         if (identicalFlags(oldFlags, newFlags)) {
-            return Mono.just(FlagsUpdateStageResult.success(UpdatedFlags.builder()
+            return Mono.just(Pair.of(FlagsUpdateStageResult.success(UpdatedFlags.builder()
                 .uid(oldMetaData.getComposedMessageId().getUid())
                 .messageId(oldMetaData.getComposedMessageId().getMessageId())
                 .modSeq(oldMetaData.getModSeq())
                 .oldFlags(oldFlags)
                 .newFlags(newFlags)
-                .build()));
+                .build()), Optional.empty()));
         }
 
-        return updateFlags(oldMetaData, newFlags, newModSeq)
+        ComposedMessageIdWithMetaData newMetadata = ComposedMessageIdWithMetaData.builder()
+            .composedMessageId(oldMetaData.getComposedMessageId())
+            .modSeq(newModSeq)
+            .flags(newFlags)
+            .build();
+
+        return imapUidDAO.updateMetadata(newMetadata, oldMetaData.getModSeq())
             .map(success -> {
                 if (success) {
-                    return FlagsUpdateStageResult.success(UpdatedFlags.builder()
+                    return Pair.of(FlagsUpdateStageResult.success(UpdatedFlags.builder()
                         .uid(oldMetaData.getComposedMessageId().getUid())
                         .messageId(oldMetaData.getComposedMessageId().getMessageId())
                         .modSeq(newModSeq)
                         .oldFlags(oldFlags)
                         .newFlags(newFlags)
-                        .build());
+                        .build()), Optional.of(newMetadata));
                 } else {
-                    return FlagsUpdateStageResult.fail(oldMetaData.getComposedMessageId());
+                    return Pair.of(FlagsUpdateStageResult.fail(oldMetaData.getComposedMessageId()), Optional.empty());
                 }
             });
     }
@@ -567,20 +610,4 @@ public class CassandraMessageMapper implements MessageMapper {
     private boolean identicalFlags(Flags oldFlags, Flags newFlags) {
         return oldFlags.equals(newFlags);
     }
-
-    private Mono<Boolean> updateFlags(ComposedMessageIdWithMetaData oldMetadata, Flags newFlags, ModSeq newModSeq) {
-        ComposedMessageIdWithMetaData newMetadata = ComposedMessageIdWithMetaData.builder()
-                .composedMessageId(oldMetadata.getComposedMessageId())
-                .modSeq(newModSeq)
-                .flags(newFlags)
-                .build();
-        return imapUidDAO.updateMetadata(newMetadata, oldMetadata.getModSeq())
-            .flatMap(success -> {
-                if (success) {
-                    return messageIdDAO.updateMetadata(newMetadata).thenReturn(true);
-                } else {
-                    return Mono.just(false);
-                }
-            });
-    }
 }
@@ -42,6 +42,7 @@ import org.apache.james.backends.cassandra.init.configuration.CassandraConsisten
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.ModSeq;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
+import org.apache.james.mailbox.cassandra.table.CassandraMessageModseqTable.HighestAllocated;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.model.Mailbox;
 import org.apache.james.mailbox.model.MailboxId;
@@ -89,6 +90,7 @@ public class CassandraModSeqProvider implements ModSeqProvider {
     private final PreparedStatement update;
     private final PreparedStatement insert;
     private final ConsistencyLevel consistencyLevel;
+    private final Optional<CassandraLeasedCounter> leasedCounter;
 
     @Inject
     public CassandraModSeqProvider(Session session, CassandraConfiguration cassandraConfiguration,
@@ -99,6 +101,14 @@ public class CassandraModSeqProvider implements ModSeqProvider {
         this.insert = prepareInsert(session);
         this.update = prepareUpdate(session);
         this.select = prepareSelect(session);
+        this.leasedCounter = cassandraConfiguration.getUidModSeqLeaseSize()
+            .map(leaseSize -> new CassandraLeasedCounter(session,
+                new CassandraLeasedCounter.Tables(TABLE_NAME, NEXT_MODSEQ,
+                    HighestAllocated.TABLE_NAME, HighestAllocated.HIGHEST, HighestAllocated.LEASE_END),
+                leaseSize,
+                Duration.ofMillis(cassandraConfiguration.getUidModSeqLeaseExpiry()),
+                maxModSeqRetries,
+                consistenciesConfiguration));
     }
 
     private PreparedStatement prepareInsert(Session session) {
@@ -149,6 +159,10 @@ public class CassandraModSeqProvider implements ModSeqProvider {
     }
 
     private Mono<Optional<ModSeq>> findHighestModSeq(CassandraId mailboxId) {
+        if (leasedCounter.isPresent()) {
+            return leasedCounter.get().highestAllocated(mailboxId)
+                .map(maybeHighest -> maybeHighest.map(ModSeq::of));
+        }
         return cassandraAsyncExecutor.executeSingleRowOptional(
             select.bind()
                 .setUUID(MAILBOX_ID, mailboxId.asUuid())
@@ -185,6 +199,10 @@ public class CassandraModSeqProvider implements ModSeqProvider {
     }
 
     public Mono<ModSeq> nextModSeq(CassandraId mailboxId) {
+        if (leasedCounter.isPresent()) {
+            return leasedCounter.get().allocate(mailboxId, 1)
+                .map(ModSeq::of);
+        }
         Duration firstBackoff = Duration.ofMillis(10);
 
         return findHighestModSeq(mailboxId)
@@ -42,6 +42,7 @@ import org.apache.james.backends.cassandra.init.configuration.CassandraConsisten
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
+import org.apache.james.mailbox.cassandra.table.CassandraMessageUidTable.HighestAllocated;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.model.Mailbox;
 import org.apache.james.mailbox.model.MailboxId;
@@ -65,6 +66,7 @@ public class CassandraUidProvider implements UidProvider {
     private final PreparedStatement updateStatement;
     private final PreparedStatement selectStatement;
     private final ConsistencyLevel consistencyLevel;
+    private final Optional<CassandraLeasedCounter> leasedCounter;
 
     @Inject
     public CassandraUidProvider(Session session, CassandraConfiguration cassandraConfiguration,
@@ -75,6 +77,14 @@ public class CassandraUidProvider implements UidProvider {
         this.selectStatement = prepareSelect(session);
         this.updateStatement = prepareUpdate(session);
         this.insertStatement = prepareInsert(session);
+        this.leasedCounter = cassandraConfiguration.getUidModSeqLeaseSize()
+            .map(leaseSize -> new CassandraLeasedCounter(session,
+                new CassandraLeasedCounter.Tables(TABLE_NAME, NEXT_UID,
+                    HighestAllocated.TABLE_NAME, HighestAllocated.HIGHEST, HighestAllocated.LEASE_END),
+                leaseSize,
+                Duration.ofMillis(cassandraConfiguration.getUidModSeqLeaseExpiry()),
+                maxUidRetries,
+                consistenciesConfiguration));
     }
 
     private PreparedStatement prepareSelect(Session session) {
@@ -111,6 +121,10 @@ public class CassandraUidProvider implements UidProvider {
     }
 
     public Mono<MessageUid> nextUids(CassandraId cassandraId) {
+        if (leasedCounter.isPresent()) {
+            return leasedCounter.get().allocate(cassandraId, 1)
+                .map(MessageUid::of);
+        }
         Mono<MessageUid> updateUid = findHighestUid(cassandraId)
             .flatMap(messageUid -> tryUpdateUid(cassandraId, messageUid));
 
@@ -123,6 +137,10 @@ public class CassandraUidProvider implements UidProvider {
     }
 
     public Mono<List<MessageUid>> nextUids(CassandraId cassandraId, int count) {
+        if (leasedCounter.isPresent()) {
+            return leasedCounter.get().allocate(cassandraId, count)
+                .map(highest -> range(highest - count, highest));
+        }
         Mono<List<MessageUid>> updateUid = findHighestUid(cassandraId)
             .flatMap(messageUid -> tryUpdateUid(cassandraId, messageUid, count)
                 .map(highest -> range(messageUid, highest)));
@@ -137,14 +155,24 @@ public class CassandraUidProvider implements UidProvider {
     }
 
     private List<MessageUid> range(MessageUid lowerExclusive, MessageUid higherInclusive) {
-        return LongStream.range(lowerExclusive.asLong() + 1, higherInclusive.asLong() + 1)
+        return range(lowerExclusive.asLong(), higherInclusive.asLong());
+    }
+
+    private List<MessageUid> range(long lowerExclusive, long higherInclusive) {
+        return LongStream.range(lowerExclusive + 1, higherInclusive + 1)
             .mapToObj(MessageUid::of)
             .collect(Guavate.toImmutableList());
     }
 
     @Override
     public Optional<MessageUid> lastUid(Mailbox mailbox) {
-        return findHighestUid((CassandraId) mailbox.getMailboxId())
+        CassandraId mailboxId = (CassandraId) mailbox.getMailboxId();
+        if (leasedCounter.isPresent()) {
+            return leasedCounter.get().highestAllocated(mailboxId)
+                .block()
+                .map(MessageUid::of);
+        }
+        return findHighestUid(mailboxId)
                 .blockOptional();
     }
 
@@ -0,0 +1,54 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.cassandra.mail;
+
+import javax.inject.Inject;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceSource;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Lists the blobs referenced by the messages and the attachments of the mailboxes.
+ *
+ * Both message tables are read, as messages might not have been migrated yet.
+ */
+public class MessageBlobReferenceSource implements BlobReferenceSource {
+    private final CassandraMessageDAOV3 messageDAOV3;
+    private final CassandraMessageDAO messageDAOV2;
+    private final CassandraAttachmentDAOV2 attachmentDAOV2;
+
+    @Inject
+    public MessageBlobReferenceSource(CassandraMessageDAOV3 messageDAOV3, CassandraMessageDAO messageDAOV2,
+                                      CassandraAttachmentDAOV2 attachmentDAOV2) {
+        this.messageDAOV3 = messageDAOV3;
+        this.messageDAOV2 = messageDAOV2;
+        this.attachmentDAOV2 = attachmentDAOV2;
+    }
+
+    @Override
+    public Flux<BlobId> listReferencedBlobs() {
+        return Flux.concat(
+            messageDAOV3.listBlobs(),
+            messageDAOV2.listBlobs(),
+            attachmentDAOV2.listBlobs());
+    }
+}
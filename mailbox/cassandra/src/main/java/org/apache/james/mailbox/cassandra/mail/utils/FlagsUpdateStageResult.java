@@ -25,6 +25,7 @@ import java.util.Objects;
 import org.apache.james.mailbox.model.ComposedMessageId;
 import org.apache.james.mailbox.model.UpdatedFlags;
 
+import com.github.steveash.guavate.Guavate;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 
@@ -41,6 +42,16 @@ public class FlagsUpdateStageResult {
         return new FlagsUpdateStageResult(ImmutableList.of(), ImmutableList.of());
     }
 
+    public static FlagsUpdateStageResult combine(List<FlagsUpdateStageResult> results) {
+        return new FlagsUpdateStageResult(
+            results.stream()
+                .flatMap(result -> result.failed.stream())
+                .collect(Guavate.toImmutableList()),
+            results.stream()
+                .flatMap(result -> result.succeeded.stream())
+                .collect(Guavate.toImmutableList()));
+    }
+
     private final ImmutableList<ComposedMessageId> failed;
     private final ImmutableList<UpdatedFlags> succeeded;
 
@@ -29,7 +29,8 @@ import org.apache.james.mailbox.cassandra.table.CassandraMessageModseqTable;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
 
 public interface CassandraModSeqModule {
-    CassandraModule MODULE = CassandraModule.table(CassandraMessageModseqTable.TABLE_NAME)
+    CassandraModule MODULE = CassandraModule.builder()
+        .table(CassandraMessageModseqTable.TABLE_NAME)
         .comment("Holds and is used to generate MODSEQ. A monotic counter is implemented on top of this table.")
         .options(options -> options
             .compactionOptions(SchemaBuilder.sizedTieredStategy())
@@ -38,5 +39,15 @@ public interface CassandraModSeqModule {
         .statement(statement -> statement
             .addPartitionKey(CassandraMessageModseqTable.MAILBOX_ID, timeuuid())
             .addColumn(CassandraMessageModseqTable.NEXT_MODSEQ, bigint()))
+        .table(CassandraMessageModseqTable.HighestAllocated.TABLE_NAME)
+        .comment("Holds the highest MODSEQ allocated when MODSEQs are leased by blocks. Written using the MODSEQ as timestamp.")
+        .options(options -> options
+            .compactionOptions(SchemaBuilder.sizedTieredStategy())
+            .caching(SchemaBuilder.KeyCaching.ALL,
+                SchemaBuilder.rows(CassandraConstants.DEFAULT_CACHED_ROW_PER_PARTITION)))
+        .statement(statement -> statement
+            .addPartitionKey(CassandraMessageModseqTable.HighestAllocated.MAILBOX_ID, timeuuid())
+            .addColumn(CassandraMessageModseqTable.HighestAllocated.HIGHEST, bigint())
+            .addColumn(CassandraMessageModseqTable.HighestAllocated.LEASE_END, bigint()))
         .build();
 }
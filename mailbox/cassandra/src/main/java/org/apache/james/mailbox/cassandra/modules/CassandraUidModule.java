@@ -29,7 +29,8 @@ import org.apache.james.mailbox.cassandra.table.CassandraMessageUidTable;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
 
 public interface CassandraUidModule {
-    CassandraModule MODULE = CassandraModule.table(CassandraMessageUidTable.TABLE_NAME)
+    CassandraModule MODULE = CassandraModule.builder()
+        .table(CassandraMessageUidTable.TABLE_NAME)
         .comment("Holds and is used to generate UID. A monotic counter is implemented on top of this table.")
         .options(options -> options
             .compactionOptions(SchemaBuilder.sizedTieredStategy())
@@ -39,5 +40,15 @@ public interface CassandraUidModule {
         .statement(statement -> statement
             .addPartitionKey(CassandraMessageUidTable.MAILBOX_ID, timeuuid())
             .addColumn(CassandraMessageUidTable.NEXT_UID, bigint()))
+        .table(CassandraMessageUidTable.HighestAllocated.TABLE_NAME)
+        .comment("Holds the highest UID allocated when UIDs are leased by blocks. Written using the UID as timestamp.")
+        .options(options -> options
+            .compactionOptions(SchemaBuilder.sizedTieredStategy())
+            .caching(SchemaBuilder.KeyCaching.ALL,
+                SchemaBuilder.rows(CassandraConstants.DEFAULT_CACHED_ROW_PER_PARTITION)))
+        .statement(statement -> statement
+            .addPartitionKey(CassandraMessageUidTable.HighestAllocated.MAILBOX_ID, timeuuid())
+            .addColumn(CassandraMessageUidTable.HighestAllocated.HIGHEST, bigint())
+            .addColumn(CassandraMessageUidTable.HighestAllocated.LEASE_END, bigint()))
         .build();
 }
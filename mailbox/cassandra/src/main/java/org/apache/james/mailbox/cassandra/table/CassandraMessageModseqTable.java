@@ -23,4 +23,11 @@ public interface CassandraMessageModseqTable {
     String TABLE_NAME = "modseq";
     String MAILBOX_ID = "mailboxId";
     String NEXT_MODSEQ = "nextModseq";
+
+    interface HighestAllocated {
+        String TABLE_NAME = "modseqHighestAllocated";
+        String MAILBOX_ID = "mailboxId";
+        String HIGHEST = "highestModseq";
+        String LEASE_END = "leaseEnd";
+    }
 }
@@ -23,4 +23,11 @@ public interface CassandraMessageUidTable {
     String TABLE_NAME = "messageCounter";
     String MAILBOX_ID = "mailboxId";
     String NEXT_UID = "nextUid";
+
+    interface HighestAllocated {
+        String TABLE_NAME = "messageCounterHighestAllocated";
+        String MAILBOX_ID = "mailboxId";
+        String HIGHEST = "highestUid";
+        String LEASE_END = "leaseEnd";
+    }
 }
\ No newline at end of file
@@ -49,6 +49,7 @@ import org.apache.james.mailbox.cassandra.mail.CassandraUserMailboxRightsDAO;
 import org.apache.james.mailbox.cassandra.mail.task.RecomputeMailboxCountersService;
 import org.apache.james.mailbox.cassandra.modules.CassandraSubscriptionModule;
 import org.apache.james.mailbox.store.StoreSubscriptionManager;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
@@ -120,6 +121,7 @@ class CassandraSubscriptionManagerTest implements SubscriptionManagerContract {
                 versionManager,
                 recomputeMailboxCountersService,
                 CassandraUtils.WITH_DEFAULT_CONFIGURATION,
-                CassandraConfiguration.DEFAULT_CONFIGURATION));
+                CassandraConfiguration.DEFAULT_CONFIGURATION,
+                new RecordingMetricFactory()));
     }
 }
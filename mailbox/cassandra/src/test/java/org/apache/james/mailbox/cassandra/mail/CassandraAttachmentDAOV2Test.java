@@ -99,4 +99,33 @@ class CassandraAttachmentDAOV2Test {
 
         assertThat(actual).isEmpty();
     }
+
+    @Test
+    void listBlobsShouldReturnBlobsOfStoredAttachments() {
+        AttachmentMetadata attachment = AttachmentMetadata.builder()
+            .attachmentId(ATTACHMENT_ID)
+            .type("application/json")
+            .size(4)
+            .build();
+        BlobId blobId = BLOB_ID_FACTORY.from("blobId");
+        testee.storeAttachment(CassandraAttachmentDAOV2.from(attachment, blobId)).block();
+
+        assertThat(testee.listBlobs().collectList().block())
+            .containsOnly(blobId);
+    }
+
+    @Test
+    void listBlobsShouldNotReturnBlobsOfDeletedAttachments() {
+        AttachmentMetadata attachment = AttachmentMetadata.builder()
+            .attachmentId(ATTACHMENT_ID)
+            .type("application/json")
+            .size(4)
+            .build();
+        testee.storeAttachment(CassandraAttachmentDAOV2.from(attachment, BLOB_ID_FACTORY.from("blobId"))).block();
+
+        testee.delete(ATTACHMENT_ID).block();
+
+        assertThat(testee.listBlobs().collectList().block())
+            .isEmpty();
+    }
 }
@@ -35,6 +35,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.google.common.collect.ImmutableList;
+
 class CassandraDeletedMessageDAOTest {
     private static final CassandraId MAILBOX_ID = CassandraId.of(UUID.fromString("110e8400-e29b-11d4-a716-446655440000"));
     private static final MessageUid UID_1 = MessageUid.of(1);
@@ -241,4 +243,36 @@ class CassandraDeletedMessageDAOTest {
 
         assertThat(result).containsExactly(UID_4, UID_7, UID_8);
     }
+
+    @Test
+    void addDeletedShouldAddAllTheGivenUids() {
+        testee.addDeleted(MAILBOX_ID, ImmutableList.of(UID_1, UID_2, UID_3)).block();
+
+        assertThat(testee.retrieveDeletedMessage(MAILBOX_ID, MessageRange.all())
+                .collectList()
+                .block())
+            .containsExactly(UID_1, UID_2, UID_3);
+    }
+
+    @Test
+    void addDeletedShouldNotFailWhenNoUids() {
+        testee.addDeleted(MAILBOX_ID, ImmutableList.of()).block();
+
+        assertThat(testee.retrieveDeletedMessage(MAILBOX_ID, MessageRange.all())
+                .collectList()
+                .block())
+            .isEmpty();
+    }
+
+    @Test
+    void removeDeletedShouldRemoveOnlyTheGivenUids() {
+        testee.addDeleted(MAILBOX_ID, ImmutableList.of(UID_1, UID_2, UID_3)).block();
+
+        testee.removeDeleted(MAILBOX_ID, ImmutableList.of(UID_1, UID_3)).block();
+
+        assertThat(testee.retrieveDeletedMessage(MAILBOX_ID, MessageRange.all())
+                .collectList()
+                .block())
+            .containsExactly(UID_2);
+    }
 }
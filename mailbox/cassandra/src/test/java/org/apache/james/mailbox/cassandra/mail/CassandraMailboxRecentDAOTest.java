@@ -33,6 +33,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.google.common.collect.ImmutableList;
+
 class CassandraMailboxRecentDAOTest {
     private static final MessageUid UID1 = MessageUid.of(36L);
     private static final MessageUid UID2 = MessageUid.of(37L);
@@ -155,4 +157,39 @@ class CassandraMailboxRecentDAOTest {
                 .block())
             .hasSize(size);
     }
+
+    @Test
+    void addToRecentShouldAddAllTheGivenUids() {
+        testee.addToRecent(CASSANDRA_ID, ImmutableList.of(UID1, UID2)).block();
+
+        assertThat(testee.getRecentMessageUidsInMailbox(CASSANDRA_ID)
+                .collectList()
+                .block())
+            .containsOnly(UID1, UID2);
+    }
+
+    @Test
+    void removeFromRecentShouldRemoveOnlyTheGivenUids() {
+        MessageUid uid3 = MessageUid.of(38L);
+        testee.addToRecent(CASSANDRA_ID, ImmutableList.of(UID1, UID2, uid3)).block();
+
+        testee.removeFromRecent(CASSANDRA_ID, ImmutableList.of(UID1, uid3)).block();
+
+        assertThat(testee.getRecentMessageUidsInMailbox(CASSANDRA_ID)
+                .collectList()
+                .block())
+            .containsOnly(UID2);
+    }
+
+    @Test
+    void removeFromRecentShouldNotFailWhenNoUids() {
+        testee.addToRecent(CASSANDRA_ID, UID1).block();
+
+        testee.removeFromRecent(CASSANDRA_ID, ImmutableList.of()).block();
+
+        assertThat(testee.getRecentMessageUidsInMailbox(CASSANDRA_ID)
+                .collectList()
+                .block())
+            .containsOnly(UID1);
+    }
 }
@@ -172,6 +172,24 @@ class CassandraMessageDAOV3Test {
             .isEqualTo(CONTENT.substring(0, BODY_START));
     }
 
+    @Test
+    void listBlobsShouldReturnEmptyWhenNoMessages() {
+        assertThat(testee.listBlobs().collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void listBlobsShouldReturnHeaderAndBodyBlobs() throws Exception {
+        message = createMessage(messageId, CONTENT, BODY_START, new PropertyBuilder(), NO_ATTACHMENT);
+        testee.save(message).block();
+
+        MessageRepresentation messageRepresentation =
+            toMessage(testee.retrieveMessage(messageIdWithMetadata, MessageMapper.FetchType.Metadata));
+
+        assertThat(testee.listBlobs().collectList().block())
+            .containsOnly(messageRepresentation.getHeaderId(), messageRepresentation.getBodyId());
+    }
+
     private SimpleMailboxMessage createMessage(MessageId messageId, String content, int bodyStart, PropertyBuilder propertyBuilder, Collection<MessageAttachmentMetadata> attachments) {
         return SimpleMailboxMessage.builder()
             .messageId(messageId)
@@ -19,6 +19,7 @@
 package org.apache.james.mailbox.cassandra.mail;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.Optional;
 
@@ -42,6 +43,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.google.common.collect.ImmutableList;
+
 import reactor.core.publisher.Flux;
 
 class CassandraMessageIdDAOTest {
@@ -382,6 +385,53 @@ class CassandraMessageIdDAOTest {
         assertThat(message.get()).isEqualTo(expectedComposedMessageId);
     }
 
+    @Test
+    void updateMetadataShouldUpdateAllTheGivenMessages() {
+        CassandraId mailboxId = CassandraId.timeBased();
+        ComposedMessageId composedMessageId1 = new ComposedMessageId(mailboxId, messageIdFactory.generate(), MessageUid.of(1));
+        ComposedMessageId composedMessageId2 = new ComposedMessageId(mailboxId, messageIdFactory.generate(), MessageUid.of(2));
+        ComposedMessageId composedMessageId3 = new ComposedMessageId(mailboxId, messageIdFactory.generate(), MessageUid.of(3));
+        Flux.just(composedMessageId1, composedMessageId2, composedMessageId3)
+            .flatMap(composedMessageId -> testee.insert(ComposedMessageIdWithMetaData.builder()
+                .composedMessageId(composedMessageId)
+                .flags(new Flags())
+                .modSeq(ModSeq.of(1))
+                .build()))
+            .blockLast();
+
+        ComposedMessageIdWithMetaData updated1 = ComposedMessageIdWithMetaData.builder()
+            .composedMessageId(composedMessageId1)
+            .flags(new Flags(Flag.SEEN))
+            .modSeq(ModSeq.of(2))
+            .build();
+        ComposedMessageIdWithMetaData updated2 = ComposedMessageIdWithMetaData.builder()
+            .composedMessageId(composedMessageId2)
+            .flags(new Flags(Flag.DELETED))
+            .modSeq(ModSeq.of(3))
+            .build();
+        testee.updateMetadata(mailboxId, ImmutableList.of(updated1, updated2)).block();
+
+        assertThat(testee.retrieveMessages(mailboxId, MessageRange.all(), Limit.unlimited()).toIterable())
+            .containsOnly(updated1, updated2, ComposedMessageIdWithMetaData.builder()
+                .composedMessageId(composedMessageId3)
+                .flags(new Flags())
+                .modSeq(ModSeq.of(1))
+                .build());
+    }
+
+    @Test
+    void updateMetadataShouldRejectMessagesOfOtherMailboxes() {
+        CassandraId mailboxId = CassandraId.timeBased();
+        ComposedMessageIdWithMetaData otherMailboxMessage = ComposedMessageIdWithMetaData.builder()
+            .composedMessageId(new ComposedMessageId(CassandraId.timeBased(), messageIdFactory.generate(), MessageUid.of(1)))
+            .flags(new Flags())
+            .modSeq(ModSeq.of(1))
+            .build();
+
+        assertThatThrownBy(() -> testee.updateMetadata(mailboxId, ImmutableList.of(otherMailboxMessage)).block())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void retrieveShouldRetrieveWhenKeyMatches() {
         CassandraMessageId messageId = messageIdFactory.generate();
@@ -24,7 +24,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Durations.ONE_SECOND;
 
 import java.time.Duration;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 
 import javax.mail.Flags;
@@ -33,16 +35,23 @@ import org.apache.james.backends.cassandra.CassandraCluster;
 import org.apache.james.backends.cassandra.CassandraClusterExtension;
 import org.apache.james.backends.cassandra.StatementRecorder;
 import org.apache.james.backends.cassandra.StatementRecorder.Selector;
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.mailbox.MessageManager;
+import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
 import org.apache.james.mailbox.cassandra.ids.CassandraMessageId;
 import org.apache.james.mailbox.exception.MailboxException;
+import org.apache.james.mailbox.model.ByteContent;
 import org.apache.james.mailbox.model.MessageRange;
+import org.apache.james.mailbox.model.UpdatedFlags;
 import org.apache.james.mailbox.store.FlagsUpdateCalculator;
+import org.apache.james.mailbox.store.mail.MessageMapper;
 import org.apache.james.mailbox.store.mail.MessageMapper.FetchType;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.mail.model.MapperProvider;
 import org.apache.james.mailbox.store.mail.model.MessageMapperTest;
+import org.apache.james.mailbox.store.mail.model.impl.PropertyBuilder;
+import org.apache.james.mailbox.store.mail.model.impl.SimpleMailboxMessage;
 import org.apache.james.util.streams.Limit;
 import org.assertj.core.api.SoftAssertions;
 import org.awaitility.Awaitility;
@@ -64,6 +73,36 @@ class CassandraMessageMapperTest extends MessageMapperTest {
             cassandraCluster.getCassandraConsistenciesConfiguration());
     }
 
+    @Test
+    void updateFlagsShouldUpdateMessagesSpanningSeveralChunks() throws MailboxException {
+        int messageCount = 2 * CassandraConfiguration.DEFAULT_CONFIGURATION.getFlagsUpdateChunkSize() + 1;
+        ImmutableList.Builder<MessageUid> uidsBuilder = ImmutableList.builder();
+        for (int i = 0; i < messageCount; i++) {
+            uidsBuilder.add(messageMapper.add(benwaInboxMailbox, createMessage("Subject: Test" + i + " \n\nBody\n.\n")).getUid());
+        }
+        List<MessageUid> uids = uidsBuilder.build();
+
+        List<UpdatedFlags> updatedFlags = ImmutableList.copyOf(messageMapper.updateFlags(benwaInboxMailbox,
+            new FlagsUpdateCalculator(new Flags(Flags.Flag.DELETED), MessageManager.FlagsUpdateMode.ADD),
+            MessageRange.all()));
+
+        SoftAssertions.assertSoftly(Throwing.consumer(softly -> {
+            softly.assertThat(updatedFlags)
+                .extracting(UpdatedFlags::getUid)
+                .containsExactlyElementsOf(uids);
+            softly.assertThat(messageMapper.retrieveMessagesMarkedForDeletion(benwaInboxMailbox, MessageRange.all()))
+                .containsExactlyElementsOf(uids);
+            softly.assertThat(messageMapper.findInMailbox(benwaInboxMailbox, MessageRange.all(), FetchType.Metadata, MessageMapper.UNLIMITED))
+                .toIterable()
+                .allSatisfy(message -> assertThat(message.createFlags().contains(Flags.Flag.DELETED)).isTrue());
+        }));
+    }
+
+    private MailboxMessage createMessage(String content) {
+        return new SimpleMailboxMessage(new CassandraMessageId.Factory().generate(), new Date(), content.length(), 16,
+            new ByteContent(content.getBytes()), new Flags(), new PropertyBuilder().build(), benwaInboxMailbox.getMailboxId());
+    }
+
     @Nested
     class StatementLimitationTests {
         @Test
@@ -26,6 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutionException;
@@ -35,6 +36,8 @@ import java.util.stream.LongStream;
 import org.apache.james.backends.cassandra.CassandraCluster;
 import org.apache.james.backends.cassandra.CassandraClusterExtension;
 import org.apache.james.backends.cassandra.Scenario.Barrier;
+import org.apache.james.backends.cassandra.StatementRecorder;
+import org.apache.james.backends.cassandra.StatementRecorder.Selector;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.core.Username;
 import org.apache.james.mailbox.ModSeq;
@@ -45,11 +48,14 @@ import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.model.UidValidity;
 import org.apache.james.util.concurrency.ConcurrentTestRunner;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.github.fge.lambdas.Throwing;
+import com.google.common.collect.ImmutableList;
 
 import reactor.core.scheduler.Schedulers;
 
@@ -153,4 +159,102 @@ class CassandraModSeqProviderTest {
 
         assertThat(modSeqs).hasSize(100);
     }
+
+    @Nested
+    class Leased {
+        private static final int LEASE_SIZE = 100;
+
+        private CassandraModSeqProvider otherNodeModSeqProvider;
+
+        @BeforeEach
+        void setUp(CassandraCluster cassandra) {
+            CassandraConfiguration configuration = CassandraConfiguration.builder()
+                .uidModSeqLeaseSize(LEASE_SIZE)
+                .build();
+            modSeqProvider = new CassandraModSeqProvider(
+                cassandra.getConf(),
+                configuration,
+                cassandraCluster.getCassandraConsistenciesConfiguration());
+            otherNodeModSeqProvider = new CassandraModSeqProvider(
+                cassandra.getConf(),
+                configuration,
+                cassandraCluster.getCassandraConsistenciesConfiguration());
+        }
+
+        @Test
+        void highestModSeqShouldRetrieveValueStoredNextModSeq() throws Exception {
+            assertThat(modSeqProvider.highestModSeq(mailbox)).isEqualTo(ModSeq.first());
+
+            for (int i = 0; i < 10; i++) {
+                ModSeq modSeq = modSeqProvider.nextModSeq(mailbox);
+                assertThat(modSeqProvider.highestModSeq(mailbox)).isEqualTo(modSeq);
+            }
+        }
+
+        @Test
+        void highestModSeqShouldRetrieveValueStoredByAnotherNode() throws Exception {
+            modSeqProvider.nextModSeq(mailbox);
+            ModSeq modSeq = otherNodeModSeqProvider.nextModSeq(mailbox);
+
+            assertThat(modSeqProvider.highestModSeq(mailbox)).isEqualTo(modSeq);
+        }
+
+        @Test
+        void nextModSeqShouldBeMonotonicAcrossNodes() throws Exception {
+            ModSeq first = modSeqProvider.nextModSeq(mailbox);
+            ModSeq second = otherNodeModSeqProvider.nextModSeq(mailbox);
+            ModSeq third = modSeqProvider.nextModSeq(mailbox);
+
+            assertThat(second).isGreaterThan(first);
+            assertThat(third).isGreaterThan(second);
+        }
+
+        @Test
+        void nextModSeqShouldGenerateUniqueValuesWhenParallelCallsOnSeveralNodes() throws ExecutionException, InterruptedException {
+            int nbEntries = 10;
+
+            ConcurrentSkipListSet<ModSeq> modSeqs = new ConcurrentSkipListSet<>();
+            ConcurrentTestRunner.builder()
+                .operation((threadNumber, step) -> {
+                    CassandraModSeqProvider provider = threadNumber % 2 == 0 ? modSeqProvider : otherNodeModSeqProvider;
+                    modSeqs.add(provider.nextModSeq(mailbox));
+                })
+                .threadCount(10)
+                .operationCount(nbEntries)
+                .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+            assertThat(modSeqs).hasSize(100);
+        }
+
+        @Test
+        void leasesShouldLimitLightweightTransactions(CassandraCluster cassandra) throws Exception {
+            StatementRecorder statementRecorder = new StatementRecorder();
+            cassandra.getConf().recordStatements(statementRecorder);
+
+            for (int i = 0; i < LEASE_SIZE; i++) {
+                modSeqProvider.nextModSeq(mailbox);
+            }
+
+            assertThat(lightweightTransactions(statementRecorder)).hasSize(1);
+        }
+    }
+
+    @Test
+    void nextModSeqShouldUseOneLightweightTransactionPerModSeqWithoutLeases(CassandraCluster cassandra) throws Exception {
+        StatementRecorder statementRecorder = new StatementRecorder();
+        cassandra.getConf().recordStatements(statementRecorder);
+
+        for (int i = 0; i < 100; i++) {
+            modSeqProvider.nextModSeq(mailbox);
+        }
+
+        assertThat(lightweightTransactions(statementRecorder)).hasSize(100);
+    }
+
+    private List<Statement> lightweightTransactions(StatementRecorder statementRecorder) {
+        return ImmutableList.<Statement>builder()
+            .addAll(statementRecorder.listExecutedStatements(Selector.preparedStatementStartingWith("UPDATE modseq SET")))
+            .addAll(statementRecorder.listExecutedStatements(Selector.preparedStatementStartingWith("INSERT INTO modseq (")))
+            .build();
+    }
 }
@@ -21,6 +21,7 @@ package org.apache.james.mailbox.cassandra.mail;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutionException;
@@ -28,6 +29,8 @@ import java.util.stream.LongStream;
 
 import org.apache.james.backends.cassandra.CassandraCluster;
 import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.StatementRecorder;
+import org.apache.james.backends.cassandra.StatementRecorder.Selector;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.core.Username;
 import org.apache.james.mailbox.MessageUid;
@@ -38,10 +41,13 @@ import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.model.UidValidity;
 import org.apache.james.util.concurrency.ConcurrentTestRunner;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.datastax.driver.core.Statement;
 import com.github.fge.lambdas.Throwing;
+import com.google.common.collect.ImmutableList;
 
 class CassandraUidProviderTest {
     private static final CassandraId CASSANDRA_ID = new CassandraId.Factory().fromString("e22b3ac0-a80b-11e7-bb00-777268d65503");
@@ -114,4 +120,133 @@ class CassandraUidProviderTest {
 
         assertThat(messageUids).hasSize(nbOperations * 10);
     }
+
+    @Nested
+    class Leased {
+        private static final int LEASE_SIZE = 100;
+
+        private CassandraUidProvider otherNodeUidProvider;
+
+        @BeforeEach
+        void setUp(CassandraCluster cassandra) {
+            CassandraConfiguration configuration = CassandraConfiguration.builder()
+                .uidModSeqLeaseSize(LEASE_SIZE)
+                .build();
+            uidProvider = new CassandraUidProvider(
+                cassandra.getConf(),
+                configuration,
+                cassandraCluster.getCassandraConsistenciesConfiguration());
+            otherNodeUidProvider = new CassandraUidProvider(
+                cassandra.getConf(),
+                configuration,
+                cassandraCluster.getCassandraConsistenciesConfiguration());
+        }
+
+        @Test
+        void lastUidShouldRetrieveValueStoredByNextUid() throws Exception {
+            assertThat(uidProvider.lastUid(mailbox)).isEmpty();
+
+            for (int i = 0; i < 10; i++) {
+                MessageUid uid = uidProvider.nextUid(mailbox);
+                assertThat(uidProvider.lastUid(mailbox)).contains(uid);
+            }
+        }
+
+        @Test
+        void nextUidShouldIncrementValueByOneWithinALease() {
+            LongStream.range(1, LEASE_SIZE)
+                .forEach(Throwing.longConsumer(value -> {
+                    MessageUid result = uidProvider.nextUid(mailbox);
+                    assertThat(value).isEqualTo(result.asLong());
+                }));
+        }
+
+        @Test
+        void nextUidShouldBeMonotonicAcrossNodes() throws Exception {
+            MessageUid first = uidProvider.nextUid(mailbox);
+            MessageUid second = otherNodeUidProvider.nextUid(mailbox);
+            MessageUid third = uidProvider.nextUid(mailbox);
+
+            assertThat(second).isGreaterThan(first);
+            assertThat(third).isGreaterThan(second);
+            assertThat(uidProvider.lastUid(mailbox)).contains(third);
+        }
+
+        @Test
+        void nextUidShouldGenerateUniqueValuesWhenParallelCallsOnSeveralNodes() throws ExecutionException, InterruptedException {
+            int threadCount = 10;
+            int nbEntries = 100;
+
+            ConcurrentSkipListSet<MessageUid> messageUids = new ConcurrentSkipListSet<>();
+            ConcurrentTestRunner.builder()
+                .operation((threadNumber, step) -> {
+                    CassandraUidProvider provider = threadNumber % 2 == 0 ? uidProvider : otherNodeUidProvider;
+                    messageUids.add(provider.nextUid(mailbox));
+                })
+                .threadCount(threadCount)
+                .operationCount(nbEntries / threadCount)
+                .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+            assertThat(messageUids).hasSize(nbEntries);
+        }
+
+        @Test
+        void nextUidsShouldGenerateUniqueValuesWhenParallelCallsOnSeveralNodes() throws ExecutionException, InterruptedException {
+            int threadCount = 10;
+            int nbOperations = 100;
+
+            ConcurrentSkipListSet<MessageUid> messageUids = new ConcurrentSkipListSet<>();
+            ConcurrentTestRunner.builder()
+                .operation((threadNumber, step) -> {
+                    CassandraUidProvider provider = threadNumber % 2 == 0 ? uidProvider : otherNodeUidProvider;
+                    messageUids.addAll(provider.nextUids((CassandraId) mailbox.getMailboxId(), 10).block());
+                })
+                .threadCount(threadCount)
+                .operationCount(nbOperations / threadCount)
+                .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+            assertThat(messageUids).hasSize(nbOperations * 10);
+        }
+
+        @Test
+        void nextUidShouldTolerateAGapWhenSwitchingNodes() throws Exception {
+            uidProvider.nextUid(mailbox);
+            otherNodeUidProvider.nextUid(mailbox);
+
+            MessageUid uid = uidProvider.nextUid(mailbox);
+
+            assertThat(uid).isEqualTo(MessageUid.of(2 * LEASE_SIZE + 1));
+        }
+
+        @Test
+        void leasesShouldLimitLightweightTransactions(CassandraCluster cassandra) throws Exception {
+            StatementRecorder statementRecorder = new StatementRecorder();
+            cassandra.getConf().recordStatements(statementRecorder);
+
+            for (int i = 0; i < LEASE_SIZE; i++) {
+                uidProvider.nextUid(mailbox);
+            }
+
+            assertThat(lightweightTransactions(statementRecorder)).hasSize(1);
+        }
+    }
+
+    @Test
+    void nextUidShouldUseOneLightweightTransactionPerUidWithoutLeases(CassandraCluster cassandra) throws Exception {
+        StatementRecorder statementRecorder = new StatementRecorder();
+        cassandra.getConf().recordStatements(statementRecorder);
+
+        for (int i = 0; i < 100; i++) {
+            uidProvider.nextUid(mailbox);
+        }
+
+        assertThat(lightweightTransactions(statementRecorder)).hasSize(100);
+    }
+
+    private List<Statement> lightweightTransactions(StatementRecorder statementRecorder) {
+        return ImmutableList.<Statement>builder()
+            .addAll(statementRecorder.listExecutedStatements(Selector.preparedStatementStartingWith("UPDATE messageCounter SET")))
+            .addAll(statementRecorder.listExecutedStatements(Selector.preparedStatementStartingWith("INSERT INTO messageCounter (")))
+            .build();
+    }
 }
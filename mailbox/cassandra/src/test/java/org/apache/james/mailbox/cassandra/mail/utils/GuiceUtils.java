@@ -40,6 +40,8 @@ import org.apache.james.json.DTOModule;
 import org.apache.james.mailbox.cassandra.ids.CassandraMessageId;
 import org.apache.james.mailbox.cassandra.mail.eventsourcing.acl.ACLModule;
 import org.apache.james.mailbox.model.MessageId;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 
 import com.datastax.driver.core.Session;
 import com.google.common.collect.ImmutableSet;
@@ -84,6 +86,7 @@ public class GuiceUtils {
             binder -> binder.bind(EventStore.class).to(CassandraEventStore.class),
             binder -> binder.bind(CassandraTypesProvider.class).toInstance(typesProvider),
             binder -> binder.bind(CassandraConfiguration.class).toInstance(configuration),
+            binder -> binder.bind(MetricFactory.class).toInstance(new RecordingMetricFactory()),
             binder -> binder.bind(CassandraConsistenciesConfiguration.class)
                 .toInstance(CassandraConsistenciesConfiguration.fromConfiguration(configuration)));
     }
@@ -19,6 +19,8 @@
 
 package org.apache.james.mailbox.elasticsearch.v7;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -26,6 +28,9 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.james.backends.es.v7.IndexName;
 import org.apache.james.backends.es.v7.ReadAliasName;
 import org.apache.james.backends.es.v7.WriteAliasName;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
 
 public class ElasticSearchMailboxConfiguration {
 
@@ -34,12 +39,16 @@ public class ElasticSearchMailboxConfiguration {
         private Optional<ReadAliasName> readAliasMailboxName;
         private Optional<WriteAliasName> writeAliasMailboxName;
         private Optional<IndexAttachments> indexAttachment;
+        private Optional<Integer> indexingBatchSize;
+        private Optional<Duration> indexingBatchDelay;
 
         Builder() {
             indexMailboxName = Optional.empty();
             readAliasMailboxName = Optional.empty();
             writeAliasMailboxName = Optional.empty();
             indexAttachment = Optional.empty();
+            indexingBatchSize = Optional.empty();
+            indexingBatchDelay = Optional.empty();
         }
 
         Builder indexMailboxName(Optional<IndexName> indexMailboxName) {
@@ -63,14 +72,30 @@ public class ElasticSearchMailboxConfiguration {
             return this;
         }
 
+        Builder indexingBatchSize(Optional<Integer> indexingBatchSize) {
+            this.indexingBatchSize = indexingBatchSize;
+            return this;
+        }
+
+        Builder indexingBatchDelay(Optional<Duration> indexingBatchDelay) {
+            this.indexingBatchDelay = indexingBatchDelay;
+            return this;
+        }
 
 
         public ElasticSearchMailboxConfiguration build() {
+            int batchSize = indexingBatchSize.orElse(DEFAULT_INDEXING_BATCH_SIZE);
+            Duration batchDelay = indexingBatchDelay.orElse(DEFAULT_INDEXING_BATCH_DELAY);
+            Preconditions.checkArgument(batchSize > 0, "'%s' needs to be strictly positive", ELASTICSEARCH_INDEXING_BATCH_SIZE);
+            Preconditions.checkArgument(!batchDelay.isNegative(), "'%s' should not be negative", ELASTICSEARCH_INDEXING_BATCH_DELAY);
+
             return new ElasticSearchMailboxConfiguration(
                 indexMailboxName.orElse(MailboxElasticSearchConstants.DEFAULT_MAILBOX_INDEX),
                 readAliasMailboxName.orElse(MailboxElasticSearchConstants.DEFAULT_MAILBOX_READ_ALIAS),
                 writeAliasMailboxName.orElse(MailboxElasticSearchConstants.DEFAULT_MAILBOX_WRITE_ALIAS),
-                indexAttachment.orElse(IndexAttachments.YES));
+                indexAttachment.orElse(IndexAttachments.YES),
+                batchSize,
+                batchDelay);
         }
     }
 
@@ -86,6 +111,10 @@ public class ElasticSearchMailboxConfiguration {
     private static final String ELASTICSEARCH_ALIAS_WRITE_MAILBOX_NAME = "elasticsearch.alias.write.mailbox.name";
     private static final String ELASTICSEARCH_INDEX_ATTACHMENTS = "elasticsearch.indexAttachments";
     private static final boolean DEFAULT_INDEX_ATTACHMENTS = true;
+    private static final String ELASTICSEARCH_INDEXING_BATCH_SIZE = "elasticsearch.indexing.batch.size";
+    private static final String ELASTICSEARCH_INDEXING_BATCH_DELAY = "elasticsearch.indexing.batch.delay";
+    private static final int DEFAULT_INDEXING_BATCH_SIZE = 100;
+    private static final Duration DEFAULT_INDEXING_BATCH_DELAY = Duration.ofMillis(20);
 
     public static final ElasticSearchMailboxConfiguration DEFAULT_CONFIGURATION = builder().build();
 
@@ -95,6 +124,9 @@ public class ElasticSearchMailboxConfiguration {
             .readAliasMailboxName(computeMailboxReadAlias(configuration))
             .writeAliasMailboxName(computeMailboxWriteAlias(configuration))
             .indexAttachment(provideIndexAttachments(configuration))
+            .indexingBatchSize(Optional.ofNullable(configuration.getInteger(ELASTICSEARCH_INDEXING_BATCH_SIZE, null)))
+            .indexingBatchDelay(Optional.ofNullable(configuration.getString(ELASTICSEARCH_INDEXING_BATCH_DELAY, null))
+                .map(delay -> DurationParser.parse(delay, ChronoUnit.MILLIS)))
             .build();
     }
 
@@ -132,13 +164,18 @@ public class ElasticSearchMailboxConfiguration {
     private final ReadAliasName readAliasMailboxName;
     private final WriteAliasName writeAliasMailboxName;
     private final IndexAttachments indexAttachment;
+    private final int indexingBatchSize;
+    private final Duration indexingBatchDelay;
 
     private ElasticSearchMailboxConfiguration(IndexName indexMailboxName, ReadAliasName readAliasMailboxName,
-                                              WriteAliasName writeAliasMailboxName, IndexAttachments indexAttachment) {
+                                              WriteAliasName writeAliasMailboxName, IndexAttachments indexAttachment,
+                                              int indexingBatchSize, Duration indexingBatchDelay) {
         this.indexMailboxName = indexMailboxName;
         this.readAliasMailboxName = readAliasMailboxName;
         this.writeAliasMailboxName = writeAliasMailboxName;
         this.indexAttachment = indexAttachment;
+        this.indexingBatchSize = indexingBatchSize;
+        this.indexingBatchDelay = indexingBatchDelay;
     }
 
 
@@ -158,6 +195,14 @@ public class ElasticSearchMailboxConfiguration {
         return indexAttachment;
     }
 
+    public int getIndexingBatchSize() {
+        return indexingBatchSize;
+    }
+
+    public Duration getIndexingBatchDelay() {
+        return indexingBatchDelay;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof ElasticSearchMailboxConfiguration) {
@@ -166,13 +211,16 @@ public class ElasticSearchMailboxConfiguration {
             return Objects.equals(this.indexAttachment, that.indexAttachment)
                 && Objects.equals(this.indexMailboxName, that.indexMailboxName)
                 && Objects.equals(this.readAliasMailboxName, that.readAliasMailboxName)
-                && Objects.equals(this.writeAliasMailboxName, that.writeAliasMailboxName);
+                && Objects.equals(this.writeAliasMailboxName, that.writeAliasMailboxName)
+                && Objects.equals(this.indexingBatchSize, that.indexingBatchSize)
+                && Objects.equals(this.indexingBatchDelay, that.indexingBatchDelay);
         }
         return false;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hash(indexMailboxName, readAliasMailboxName, writeAliasMailboxName, indexAttachment, writeAliasMailboxName);
+        return Objects.hash(indexMailboxName, readAliasMailboxName, writeAliasMailboxName, indexAttachment, writeAliasMailboxName,
+            indexingBatchSize, indexingBatchDelay);
     }
 }
@@ -18,7 +18,6 @@
  ****************************************************************/
 package org.apache.james.mailbox.elasticsearch.v7.events;
 
-import static com.github.steveash.guavate.Guavate.toImmutableList;
 import static org.apache.james.mailbox.elasticsearch.v7.json.JsonMessageConstants.IS_ANSWERED;
 import static org.apache.james.mailbox.elasticsearch.v7.json.JsonMessageConstants.IS_DELETED;
 import static org.apache.james.mailbox.elasticsearch.v7.json.JsonMessageConstants.IS_DRAFT;
@@ -40,9 +39,9 @@ import javax.inject.Named;
 import javax.mail.Flags;
 
 import org.apache.james.backends.es.v7.DocumentId;
+import org.apache.james.backends.es.v7.ElasticSearchBulkIndexer;
 import org.apache.james.backends.es.v7.ElasticSearchIndexer;
 import org.apache.james.backends.es.v7.RoutingKey;
-import org.apache.james.backends.es.v7.UpdatedRepresentation;
 import org.apache.james.events.Group;
 import org.apache.james.mailbox.FlagsBuilder;
 import org.apache.james.mailbox.MailboxManager.MessageCapabilities;
@@ -75,8 +74,6 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSearchIndex {
-    private static final int FLAGS_UPDATE_PROCESSING_WINDOW_SIZE = 32;
-
     public static class ElasticSearchListeningMessageSearchIndexGroup extends Group {
 
     }
@@ -86,6 +83,7 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
     private static final Group GROUP = new ElasticSearchListeningMessageSearchIndexGroup();
 
     private final ElasticSearchIndexer elasticSearchIndexer;
+    private final ElasticSearchBulkIndexer bulkIndexer;
     private final ElasticSearchSearcher searcher;
     private final MessageToElasticSearchJson messageToElasticSearchJson;
     private final RoutingKey.Factory<MailboxId> routingKeyFactory;
@@ -93,10 +91,12 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
     @Inject
     public ElasticSearchListeningMessageSearchIndex(MailboxSessionMapperFactory factory,
                                                     @Named(MailboxElasticSearchConstants.InjectionNames.MAILBOX) ElasticSearchIndexer indexer,
+                                                    @Named(MailboxElasticSearchConstants.InjectionNames.MAILBOX) ElasticSearchBulkIndexer bulkIndexer,
                                                     ElasticSearchSearcher searcher, MessageToElasticSearchJson messageToElasticSearchJson,
                                                     SessionProvider sessionProvider, RoutingKey.Factory<MailboxId> routingKeyFactory) {
         super(factory, sessionProvider);
         this.elasticSearchIndexer = indexer;
+        this.bulkIndexer = bulkIndexer;
         this.messageToElasticSearchJson = messageToElasticSearchJson;
         this.searcher = searcher;
         this.routingKeyFactory = routingKeyFactory;
@@ -156,8 +156,7 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
         DocumentId id = indexIdFor(mailbox.getMailboxId(), message.getUid());
 
         return Mono.fromCallable(() -> generateIndexedJson(mailbox, message, session))
-            .flatMap(jsonContent -> elasticSearchIndexer.index(id, jsonContent, from))
-            .then();
+            .flatMap(jsonContent -> bulkIndexer.index(id, jsonContent, from));
     }
 
     private String generateIndexedJson(Mailbox mailbox, MailboxMessage message, MailboxSession session) throws JsonProcessingException {
@@ -176,11 +175,10 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
 
     @Override
     public Mono<Void> delete(MailboxSession session, MailboxId mailboxId, Collection<MessageUid> expungedUids) {
-        return elasticSearchIndexer
-            .delete(expungedUids.stream()
-                .map(uid ->  indexIdFor(mailboxId, uid))
-                .collect(toImmutableList()),
-                routingKeyFactory.from(mailboxId))
+        RoutingKey routingKey = routingKeyFactory.from(mailboxId);
+
+        return Flux.fromIterable(expungedUids)
+            .flatMap(uid -> bulkIndexer.delete(indexIdFor(mailboxId, uid), routingKey))
             .then();
     }
 
@@ -199,22 +197,14 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
         RoutingKey routingKey = routingKeyFactory.from(mailboxId);
 
         return Flux.fromIterable(updatedFlagsList)
-            .map(Throwing.<UpdatedFlags, UpdatedRepresentation>function(
-                updatedFlags -> createUpdatedDocumentPartFromUpdatedFlags(mailboxId, updatedFlags))
+            .flatMap(Throwing.<UpdatedFlags, Mono<Void>>function(
+                updatedFlags -> bulkIndexer.update(indexIdFor(mailboxId, updatedFlags.getUid()),
+                    messageToElasticSearchJson.getUpdatedJsonMessagePart(updatedFlags.getNewFlags(), updatedFlags.getModSeq()),
+                    routingKey))
                 .sneakyThrow())
-            .window(FLAGS_UPDATE_PROCESSING_WINDOW_SIZE)
-            .concatMap(flux -> flux.collect(toImmutableList())
-                .flatMap(updates -> elasticSearchIndexer.update(updates, routingKey)))
             .then();
     }
 
-    private UpdatedRepresentation createUpdatedDocumentPartFromUpdatedFlags(MailboxId mailboxId, UpdatedFlags updatedFlags) throws JsonProcessingException {
-        return new UpdatedRepresentation(
-            indexIdFor(mailboxId, updatedFlags.getUid()),
-            messageToElasticSearchJson
-                .getUpdatedJsonMessagePart(updatedFlags.getNewFlags(), updatedFlags.getModSeq()));
-    }
-
     private DocumentId indexIdFor(MailboxId mailboxId, MessageUid uid) {
         return DocumentId.fromString(String.join(ID_SEPARATOR, mailboxId.serialize(), String.valueOf(uid.asLong())));
     }
@@ -20,6 +20,9 @@
 package org.apache.james.mailbox.elasticsearch.v7;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
 
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.james.backends.es.v7.IndexName;
@@ -224,4 +227,42 @@ class ElasticSearchMailboxConfigurationTest {
             .isEqualTo(IndexAttachments.YES);
     }
 
-}
\ No newline at end of file
+    @Test
+    void indexingBatchShouldReturnConfiguredValues() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.batch.size", 500);
+        configuration.addProperty("elasticsearch.indexing.batch.delay", "1s");
+
+        ElasticSearchMailboxConfiguration elasticSearchConfiguration = ElasticSearchMailboxConfiguration.fromProperties(configuration);
+
+        assertThat(elasticSearchConfiguration.getIndexingBatchSize()).isEqualTo(500);
+        assertThat(elasticSearchConfiguration.getIndexingBatchDelay()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void indexingBatchDelayShouldDefaultToMilliseconds() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.batch.delay", "50");
+
+        ElasticSearchMailboxConfiguration elasticSearchConfiguration = ElasticSearchMailboxConfiguration.fromProperties(configuration);
+
+        assertThat(elasticSearchConfiguration.getIndexingBatchDelay()).isEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    void indexingBatchShouldReturnDefaultValuesWhenMissing() {
+        ElasticSearchMailboxConfiguration elasticSearchConfiguration = ElasticSearchMailboxConfiguration.fromProperties(new PropertiesConfiguration());
+
+        assertThat(elasticSearchConfiguration.getIndexingBatchSize()).isEqualTo(100);
+        assertThat(elasticSearchConfiguration.getIndexingBatchDelay()).isEqualTo(Duration.ofMillis(20));
+    }
+
+    @Test
+    void fromPropertiesShouldRejectNonPositiveBatchSize() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.batch.size", 0);
+
+        assertThatThrownBy(() -> ElasticSearchMailboxConfiguration.fromProperties(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
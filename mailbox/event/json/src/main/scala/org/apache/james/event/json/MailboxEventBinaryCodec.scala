@@ -0,0 +1,313 @@
+/****************************************************************
+  * Licensed to the Apache Software Foundation (ASF) under one   *
+  * or more contributor license agreements.  See the NOTICE file *
+  * distributed with this work for additional information        *
+  * regarding copyright ownership.  The ASF licenses this file   *
+  * to you under the Apache License, Version 2.0 (the            *
+  * "License"); you may not use this file except in compliance   *
+  * with the License.  You may obtain a copy of the License at   *
+  *                                                              *
+  * http://www.apache.org/licenses/LICENSE-2.0                   *
+  *                                                              *
+  * Unless required by applicable law or agreed to in writing,   *
+  * software distributed under the License is distributed on an  *
+  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+  * KIND, either express or implied.  See the License for the    *
+  * specific language governing permissions and limitations      *
+  * under the License.                                           *
+  ****************************************************************/
+
+package org.apache.james.event.json
+
+import java.io.ByteArrayOutputStream
+import java.nio.charset.StandardCharsets
+import java.util.{Date, UUID, TreeMap => JavaTreeMap}
+
+import com.google.common.collect.{Interner, Interners}
+import javax.mail.{Flags => JavaMailFlags}
+import javax.mail.Flags.Flag
+import org.apache.james.core.Username
+import org.apache.james.events.Event.EventId
+import org.apache.james.events.{Event => JavaEvent}
+import org.apache.james.mailbox.MailboxSession.SessionId
+import org.apache.james.mailbox.events.MailboxEvents.{MailboxEvent, Added => JavaAdded, Expunged => JavaExpunged, FlagsUpdated => JavaFlagsUpdated}
+import org.apache.james.mailbox.model.{MailboxId, MessageId, MailboxPath => JavaMailboxPath, MessageMetaData => JavaMessageMetaData, UpdatedFlags => JavaUpdatedFlags}
+import org.apache.james.mailbox.{MessageUid, ModSeq}
+
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+
+/**
+ * Compact binary representation of the mailbox events carrying per message data: Added, Expunged and FlagsUpdated.
+ *
+ * Payloads start with a version byte followed by an event kind byte. UIDs and modseqs are written as variable
+ * length deltas, system flags as a bitmask. Other events are embedded as JSON.
+ *
+ * Decoded mailbox paths and user flags are interned as bulk operations repeat them across many events.
+ */
+object MailboxEventBinaryCodec {
+  val FORMAT: String = "mailbox-binary"
+  val VERSION: Byte = 1
+
+  private val JSON_KIND: Byte = 0
+  private val ADDED_KIND: Byte = 1
+  private val EXPUNGED_KIND: Byte = 2
+  private val FLAGS_UPDATED_KIND: Byte = 3
+
+  private val SYSTEM_FLAGS: Seq[(Flag, Int)] = Seq(
+    Flag.ANSWERED -> 0x01,
+    Flag.DELETED -> 0x02,
+    Flag.DRAFT -> 0x04,
+    Flag.FLAGGED -> 0x08,
+    Flag.RECENT -> 0x10,
+    Flag.SEEN -> 0x20,
+    Flag.USER -> 0x40)
+
+  private class BinaryWriter {
+    private val out = new ByteArrayOutputStream()
+
+    def writeByte(value: Byte): Unit = out.write(value)
+
+    def writeLong(value: Long): Unit = (56 to 0 by -8).foreach(shift => out.write((value >>> shift).toInt))
+
+    def writeVarLong(value: Long): Unit = {
+      var remaining = value
+      while ((remaining & ~0x7FL) != 0) {
+        out.write(((remaining & 0x7F) | 0x80).toInt)
+        remaining >>>= 7
+      }
+      out.write(remaining.toInt)
+    }
+
+    def writeSignedVarLong(value: Long): Unit = writeVarLong((value << 1) ^ (value >> 63))
+
+    def writeString(value: String): Unit = {
+      val bytes = value.getBytes(StandardCharsets.UTF_8)
+      writeVarLong(bytes.length)
+      out.write(bytes)
+    }
+
+    def writeOptionalString(value: Option[String]): Unit = value match {
+      case Some(string) =>
+        writeByte(1)
+        writeString(string)
+      case None => writeByte(0)
+    }
+
+    def writeRemaining(bytes: Array[Byte]): Unit = out.write(bytes)
+
+    def toByteArray: Array[Byte] = out.toByteArray
+  }
+
+  private class BinaryReader(bytes: Array[Byte]) {
+    private var position = 0
+
+    def readByte(): Byte = {
+      if (position >= bytes.length) {
+        throw new IllegalArgumentException("Truncated binary event")
+      }
+      val value = bytes(position)
+      position += 1
+      value
+    }
+
+    def readLong(): Long = (0 until 8).foldLeft(0L)((result, _) => (result << 8) | (readByte() & 0xFFL))
+
+    def readVarLong(): Long = {
+      var result = 0L
+      var shift = 0
+      var current = 0
+      do {
+        if (shift > 63) {
+          throw new IllegalArgumentException("Malformed variable length number in binary event")
+        }
+        current = readByte()
+        result |= (current & 0x7FL) << shift
+        shift += 7
+      } while ((current & 0x80) != 0)
+      result
+    }
+
+    def readSignedVarLong(): Long = {
+      val value = readVarLong()
+      (value >>> 1) ^ -(value & 1)
+    }
+
+    def readString(): String = {
+      val length = Math.toIntExact(readVarLong())
+      if (length > bytes.length - position) {
+        throw new IllegalArgumentException("Truncated binary event")
+      }
+      val value = new String(bytes, position, length, StandardCharsets.UTF_8)
+      position += length
+      value
+    }
+
+    def readOptionalString(): Option[String] = readByte() match {
+      case 0 => None
+      case _ => Some(readString())
+    }
+
+    def readRemaining(): String = new String(bytes, position, bytes.length - position, StandardCharsets.UTF_8)
+  }
+}
+
+class MailboxEventBinaryCodec(mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory, jsonSerialize: JsonSerialize) {
+  import MailboxEventBinaryCodec._
+
+  private val mailboxPathInterner: Interner[JavaMailboxPath] = Interners.newWeakInterner()
+  private val userFlagInterner: Interner[String] = Interners.newWeakInterner()
+
+  def encode(event: JavaEvent): Array[Byte] = {
+    val writer = new BinaryWriter()
+    writer.writeByte(VERSION)
+    event match {
+      case added: JavaAdded =>
+        writer.writeByte(ADDED_KIND)
+        writeMailboxEvent(writer, added)
+        writeMetaData(writer, added.getAdded.values().asScala)
+      case expunged: JavaExpunged =>
+        writer.writeByte(EXPUNGED_KIND)
+        writeMailboxEvent(writer, expunged)
+        writeMetaData(writer, expunged.getExpunged.values().asScala.toSeq.sortBy(_.getUid.asLong()))
+      case flagsUpdated: JavaFlagsUpdated =>
+        writer.writeByte(FLAGS_UPDATED_KIND)
+        writeMailboxEvent(writer, flagsUpdated)
+        writeUpdatedFlags(writer, flagsUpdated.getUpdatedFlags.asScala)
+      case _ =>
+        writer.writeByte(JSON_KIND)
+        writer.writeRemaining(jsonSerialize.toJson(event).getBytes(StandardCharsets.UTF_8))
+    }
+    writer.toByteArray
+  }
+
+  def decode(bytes: Array[Byte]): JavaEvent = {
+    val reader = new BinaryReader(bytes)
+    val version = reader.readByte()
+    if (version != VERSION) {
+      throw new IllegalArgumentException(s"Unsupported binary event version $version")
+    }
+    reader.readByte() match {
+      case ADDED_KIND =>
+        val header = readMailboxEvent(reader)
+        val added = new JavaTreeMap[MessageUid, JavaMessageMetaData]()
+        readMetaData(reader).foreach(metaData => added.put(metaData.getUid, metaData))
+        new JavaAdded(header.sessionId, header.username, header.path, header.mailboxId, added, header.eventId)
+      case EXPUNGED_KIND =>
+        val header = readMailboxEvent(reader)
+        val expunged = readMetaData(reader).map(metaData => metaData.getUid -> metaData).toMap
+        new JavaExpunged(header.sessionId, header.username, header.path, header.mailboxId, expunged.asJava, header.eventId)
+      case FLAGS_UPDATED_KIND =>
+        val header = readMailboxEvent(reader)
+        new JavaFlagsUpdated(header.sessionId, header.username, header.path, header.mailboxId, readUpdatedFlags(reader).asJava, header.eventId)
+      case JSON_KIND => jsonSerialize.fromJson(reader.readRemaining()).get
+      case kind => throw new IllegalArgumentException(s"Unknown binary event kind $kind")
+    }
+  }
+
+  private case class MailboxEventHeader(eventId: EventId, sessionId: SessionId, username: Username, path: JavaMailboxPath, mailboxId: MailboxId)
+
+  private def writeMailboxEvent(writer: BinaryWriter, event: MailboxEvent): Unit = {
+    writer.writeLong(event.getEventId.getId.getMostSignificantBits)
+    writer.writeLong(event.getEventId.getId.getLeastSignificantBits)
+    writer.writeSignedVarLong(event.getSessionId.getValue)
+    writer.writeString(event.getUsername.asString())
+    writer.writeOptionalString(Option(event.getMailboxPath.getNamespace))
+    writer.writeOptionalString(Option(event.getMailboxPath.getUser).map(_.asString()))
+    writer.writeString(event.getMailboxPath.getName)
+    writer.writeString(event.getMailboxId.serialize())
+  }
+
+  private def readMailboxEvent(reader: BinaryReader): MailboxEventHeader = {
+    val eventId = EventId.of(new UUID(reader.readLong(), reader.readLong()))
+    val sessionId = SessionId.of(reader.readSignedVarLong())
+    val username = Username.of(reader.readString())
+    val namespace = reader.readOptionalString()
+    val user = reader.readOptionalString().map(Username.of)
+    val path = mailboxPathInterner.intern(new JavaMailboxPath(namespace.orNull, user.orNull, reader.readString()))
+    val mailboxId = mailboxIdFactory.fromString(reader.readString())
+    MailboxEventHeader(eventId, sessionId, username, path, mailboxId)
+  }
+
+  private def writeMetaData(writer: BinaryWriter, metaData: Iterable[JavaMessageMetaData]): Unit = {
+    writer.writeVarLong(metaData.size)
+    metaData.foldLeft((0L, 0L)) { case ((previousUid, previousModSeq), current) =>
+      val uid = current.getUid.asLong()
+      val modSeq = current.getModSeq.asLong()
+      writer.writeSignedVarLong(uid - previousUid)
+      writer.writeSignedVarLong(modSeq - previousModSeq)
+      writeFlags(writer, current.getFlags)
+      writer.writeVarLong(current.getSize)
+      writer.writeSignedVarLong(current.getInternalDate.getTime)
+      writer.writeOptionalString(Option(current.getMessageId).map(_.serialize()))
+      (uid, modSeq)
+    }
+  }
+
+  private def readMetaData(reader: BinaryReader): Seq[JavaMessageMetaData] = {
+    val count = Math.toIntExact(reader.readVarLong())
+    var uid = 0L
+    var modSeq = 0L
+    (0 until count).map { _ =>
+      uid += reader.readSignedVarLong()
+      modSeq += reader.readSignedVarLong()
+      val flags = readFlags(reader)
+      val size = reader.readVarLong()
+      val internalDate = new Date(reader.readSignedVarLong())
+      val messageId = reader.readOptionalString().map(messageIdFactory.fromString)
+      new JavaMessageMetaData(MessageUid.of(uid), ModSeq.of(modSeq), flags, size, internalDate, messageId.orNull)
+    }
+  }
+
+  private def writeUpdatedFlags(writer: BinaryWriter, updatedFlags: Iterable[JavaUpdatedFlags]): Unit = {
+    writer.writeVarLong(updatedFlags.size)
+    updatedFlags.foldLeft((0L, 0L)) { case ((previousUid, previousModSeq), current) =>
+      val uid = current.getUid.asLong()
+      val modSeq = current.getModSeq.asLong()
+      writer.writeSignedVarLong(uid - previousUid)
+      writer.writeSignedVarLong(modSeq - previousModSeq)
+      writer.writeOptionalString(current.getMessageId.toScala.map(_.serialize()))
+      writeFlags(writer, current.getOldFlags)
+      writeFlags(writer, current.getNewFlags)
+      (uid, modSeq)
+    }
+  }
+
+  private def readUpdatedFlags(reader: BinaryReader): Seq[JavaUpdatedFlags] = {
+    val count = Math.toIntExact(reader.readVarLong())
+    var uid = 0L
+    var modSeq = 0L
+    (0 until count).map { _ =>
+      uid += reader.readSignedVarLong()
+      modSeq += reader.readSignedVarLong()
+      val messageId = reader.readOptionalString().map(messageIdFactory.fromString)
+      JavaUpdatedFlags.builder()
+        .uid(MessageUid.of(uid))
+        .modSeq(ModSeq.of(modSeq))
+        .messageId(messageId.toJava)
+        .oldFlags(readFlags(reader))
+        .newFlags(readFlags(reader))
+        .build()
+    }
+  }
+
+  private def writeFlags(writer: BinaryWriter, flags: JavaMailFlags): Unit = {
+    val bitmask = SYSTEM_FLAGS.foldLeft(0) { case (result, (flag, bit)) =>
+      if (flags.contains(flag)) result | bit else result
+    }
+    writer.writeByte(bitmask.toByte)
+    val userFlags = flags.getUserFlags
+    writer.writeVarLong(userFlags.length)
+    userFlags.foreach(writer.writeString)
+  }
+
+  private def readFlags(reader: BinaryReader): JavaMailFlags = {
+    val bitmask = reader.readByte()
+    val flags = new JavaMailFlags()
+    SYSTEM_FLAGS.filter { case (_, bit) => (bitmask & bit) != 0 }
+      .foreach { case (flag, _) => flags.add(flag) }
+    val userFlagCount = Math.toIntExact(reader.readVarLong())
+    (0 until userFlagCount).foreach(_ => flags.add(userFlagInterner.intern(reader.readString())))
+    flags
+  }
+}
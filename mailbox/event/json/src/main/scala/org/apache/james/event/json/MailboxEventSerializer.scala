@@ -19,6 +19,7 @@
 
 package org.apache.james.event.json
 
+import java.nio.charset.StandardCharsets
 import java.time.Instant
 import java.util.{TreeMap => JavaTreeMap}
 
@@ -355,11 +356,32 @@ class JsonSerialize(mailboxIdFactory: MailboxId.Factory, messageIdFactory: Messa
 
 class MailboxEventSerializer @Inject()(mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory, quotaRootDeserializer: QuotaRootDeserializer) extends EventSerializer{
   private val jsonSerialize = new JsonSerialize(mailboxIdFactory, messageIdFactory, quotaRootDeserializer)
+  protected val binaryCodec = new MailboxEventBinaryCodec(mailboxIdFactory, messageIdFactory, jsonSerialize)
 
   override def toJson(event: JavaEvent): String = jsonSerialize.toJson(event)
 
   def fromJson(json: String): JsResult[JavaEvent] = jsonSerialize.fromJson(json)
 
   override def asEvent(serialized: String): JavaEvent = fromJson(serialized).get
+
+  override def fromBytes(serialized: Array[Byte], format: String): JavaEvent = format match {
+    case EventSerializer.JSON_FORMAT => asEvent(new String(serialized, StandardCharsets.UTF_8))
+    case MailboxEventBinaryCodec.FORMAT => binaryCodec.decode(serialized)
+    case _ => throw new IllegalArgumentException(s"Unsupported event format '$format'")
+  }
+}
+
+/**
+ * Emits events using the compact {@link MailboxEventBinaryCodec} format.
+ *
+ * Like {@link MailboxEventSerializer}, it decodes both JSON and binary payloads, which allows rolling it out in a
+ * cluster where some nodes still emit JSON.
+ */
+class BinaryMailboxEventSerializer @Inject()(mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory, quotaRootDeserializer: QuotaRootDeserializer)
+  extends MailboxEventSerializer(mailboxIdFactory, messageIdFactory, quotaRootDeserializer) {
+
+  override def format(): String = MailboxEventBinaryCodec.FORMAT
+
+  override def toBytes(event: JavaEvent): Array[Byte] = binaryCodec.encode(event)
 }
 
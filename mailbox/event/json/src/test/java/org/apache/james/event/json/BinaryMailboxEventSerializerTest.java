@@ -0,0 +1,206 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.event.json;
+
+import static org.apache.james.event.json.SerializerFixture.BINARY_EVENT_SERIALIZER;
+import static org.apache.james.event.json.SerializerFixture.EVENT_ID;
+import static org.apache.james.event.json.SerializerFixture.EVENT_SERIALIZER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import javax.mail.Flags;
+
+import org.apache.james.core.Username;
+import org.apache.james.events.Event;
+import org.apache.james.events.EventSerializer;
+import org.apache.james.mailbox.FlagsBuilder;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.events.MailboxEvents.Added;
+import org.apache.james.mailbox.events.MailboxEvents.Expunged;
+import org.apache.james.mailbox.events.MailboxEvents.FlagsUpdated;
+import org.apache.james.mailbox.events.MailboxEvents.MailboxAdded;
+import org.apache.james.mailbox.model.MailboxConstants;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageMetaData;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.model.TestMessageId;
+import org.apache.james.mailbox.model.UpdatedFlags;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+
+class BinaryMailboxEventSerializerTest {
+    private static final Username USERNAME = Username.of("user");
+    private static final MailboxSession.SessionId SESSION_ID = MailboxSession.SessionId.of(-42);
+    private static final MailboxId MAILBOX_ID = TestId.of(18);
+    private static final MailboxPath MAILBOX_PATH = new MailboxPath(MailboxConstants.USER_NAMESPACE, USERNAME, "mailboxName");
+    private static final Date INTERNAL_DATE = Date.from(Instant.parse("2018-12-14T09:41:51.541Z"));
+    private static final Flags FLAGS = FlagsBuilder.builder()
+        .add(Flags.Flag.ANSWERED, Flags.Flag.DRAFT)
+        .add("User Custom Flag")
+        .build();
+    private static final MessageMetaData META_DATA_1 = new MessageMetaData(MessageUid.of(123456), ModSeq.of(35), FLAGS, 45, INTERNAL_DATE, TestMessageId.of(42));
+    private static final MessageMetaData META_DATA_2 = new MessageMetaData(MessageUid.of(123458), ModSeq.of(33), new Flags(), 12, INTERNAL_DATE, TestMessageId.of(43));
+    private static final UpdatedFlags UPDATED_FLAGS_1 = UpdatedFlags.builder()
+        .uid(MessageUid.of(654321))
+        .modSeq(ModSeq.of(36))
+        .oldFlags(FLAGS)
+        .newFlags(new Flags(Flags.Flag.SEEN))
+        .build();
+    private static final UpdatedFlags UPDATED_FLAGS_2 = UpdatedFlags.builder()
+        .uid(MessageUid.of(123456))
+        .modSeq(ModSeq.of(37))
+        .messageId(TestMessageId.of(42))
+        .oldFlags(new Flags())
+        .newFlags(FLAGS)
+        .build();
+
+    @Test
+    void addedShouldRoundTrip() {
+        Added event = new Added(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+            ImmutableSortedMap.of(META_DATA_1.getUid(), META_DATA_1, META_DATA_2.getUid(), META_DATA_2), EVENT_ID);
+
+        Added decoded = (Added) roundTrip(event);
+
+        assertThat(decoded).isEqualTo(event);
+        assertSameMetaData(decoded.getAdded(), event.getAdded());
+    }
+
+    @Test
+    void expungedShouldRoundTrip() {
+        Expunged event = new Expunged(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+            ImmutableMap.of(META_DATA_2.getUid(), META_DATA_2, META_DATA_1.getUid(), META_DATA_1), EVENT_ID);
+
+        Expunged decoded = (Expunged) roundTrip(event);
+
+        assertThat(decoded).isEqualTo(event);
+        assertSameMetaData(decoded.getExpunged(), event.getExpunged());
+    }
+
+    @Test
+    void flagsUpdatedShouldRoundTripPreservingOrder() {
+        FlagsUpdated event = new FlagsUpdated(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+            ImmutableList.of(UPDATED_FLAGS_1, UPDATED_FLAGS_2), EVENT_ID);
+
+        FlagsUpdated decoded = (FlagsUpdated) roundTrip(event);
+
+        assertThat(decoded).isEqualTo(event);
+        assertThat(decoded.getUpdatedFlags()).containsExactly(UPDATED_FLAGS_1, UPDATED_FLAGS_2);
+    }
+
+    @Test
+    void otherEventsShouldRoundTrip() {
+        MailboxAdded event = new MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, EVENT_ID);
+
+        assertThat(roundTrip(event)).isEqualTo(event);
+    }
+
+    @Test
+    void decodedMailboxPathsShouldBeInterned() {
+        FlagsUpdated first = new FlagsUpdated(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, ImmutableList.of(UPDATED_FLAGS_1), EVENT_ID);
+        FlagsUpdated second = new FlagsUpdated(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, ImmutableList.of(UPDATED_FLAGS_2), EVENT_ID);
+
+        assertThat(((FlagsUpdated) roundTrip(first)).getMailboxPath())
+            .isSameAs(((FlagsUpdated) roundTrip(second)).getMailboxPath());
+    }
+
+    @Test
+    void binaryPayloadShouldBeSmallerThanJsonForBulkFlagUpdates() {
+        List<UpdatedFlags> updatedFlags = IntStream.rangeClosed(1, 1000)
+            .mapToObj(i -> UpdatedFlags.builder()
+                .uid(MessageUid.of(i))
+                .modSeq(ModSeq.of(1000 + i))
+                .oldFlags(new Flags())
+                .newFlags(new Flags(Flags.Flag.SEEN))
+                .build())
+            .collect(ImmutableList.toImmutableList());
+        FlagsUpdated event = new FlagsUpdated(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, updatedFlags, EVENT_ID);
+
+        assertThat(BINARY_EVENT_SERIALIZER.toBytes(event).length * 10)
+            .isLessThan(EVENT_SERIALIZER.toBytes(event).length);
+    }
+
+    @Test
+    void jsonSerializerShouldDecodeBinaryPayloads() {
+        MailboxAdded event = new MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, EVENT_ID);
+
+        assertThat(EVENT_SERIALIZER.fromBytes(BINARY_EVENT_SERIALIZER.toBytes(event), BINARY_EVENT_SERIALIZER.format()))
+            .isEqualTo(event);
+    }
+
+    @Test
+    void binarySerializerShouldDecodeJsonPayloads() {
+        MailboxAdded event = new MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, EVENT_ID);
+
+        assertThat(BINARY_EVENT_SERIALIZER.fromBytes(EVENT_SERIALIZER.toBytes(event), EventSerializer.JSON_FORMAT))
+            .isEqualTo(event);
+    }
+
+    @Test
+    void fromBytesShouldRejectUnknownFormats() {
+        assertThatThrownBy(() -> BINARY_EVENT_SERIALIZER.fromBytes(new byte[0], "unknown"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromBytesShouldRejectUnknownVersions() {
+        assertThatThrownBy(() -> BINARY_EVENT_SERIALIZER.fromBytes(new byte[] {2, 0}, BINARY_EVENT_SERIALIZER.format()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromBytesShouldRejectTruncatedPayloads() {
+        Added event = new Added(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, ImmutableSortedMap.of(META_DATA_1.getUid(), META_DATA_1), EVENT_ID);
+        byte[] payload = BINARY_EVENT_SERIALIZER.toBytes(event);
+        byte[] truncated = new byte[payload.length - 3];
+        System.arraycopy(payload, 0, truncated, 0, truncated.length);
+
+        assertThatThrownBy(() -> BINARY_EVENT_SERIALIZER.fromBytes(truncated, BINARY_EVENT_SERIALIZER.format()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Event roundTrip(Event event) {
+        return BINARY_EVENT_SERIALIZER.fromBytes(BINARY_EVENT_SERIALIZER.toBytes(event), BINARY_EVENT_SERIALIZER.format());
+    }
+
+    private void assertSameMetaData(Map<MessageUid, MessageMetaData> actual, Map<MessageUid, MessageMetaData> expected) {
+        assertThat(new TreeMap<>(actual).keySet()).containsExactlyElementsOf(new TreeMap<>(expected).keySet());
+        expected.forEach((uid, metaData) -> {
+            MessageMetaData decoded = actual.get(uid);
+            assertThat(decoded.getModSeq()).isEqualTo(metaData.getModSeq());
+            assertThat(decoded.getFlags()).isEqualTo(metaData.getFlags());
+            assertThat(decoded.getSize()).isEqualTo(metaData.getSize());
+            assertThat(decoded.getInternalDate()).isEqualTo(metaData.getInternalDate());
+            assertThat(decoded.getMessageId()).isEqualTo(metaData.getMessageId());
+        });
+    }
+}
@@ -0,0 +1,163 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.mail.Flags;
+import javax.persistence.EntityManager;
+
+import org.apache.james.mailbox.ApplicableFlagBuilder;
+import org.apache.james.mailbox.jpa.JPAId;
+import org.apache.james.mailbox.jpa.mail.model.JPAApplicableFlag;
+import org.apache.james.mailbox.jpa.mail.model.JPAMailboxCounters;
+import org.apache.james.mailbox.model.MailboxCounters;
+import org.apache.james.mailbox.store.mail.model.MailboxMessage;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Maintains {@link JPAMailboxCounters} and {@link JPAApplicableFlag} within the transaction of the calling mapper.
+ *
+ * Every write first updates the counters row of the mailbox: the row lock it takes serializes concurrent writes on the
+ * same mailbox until commit, which prevents the same applicable flag from being inserted twice.
+ */
+public class JPAMailboxCountersDAO {
+    private static final long NO_MESSAGES = 0L;
+
+    public void initialize(EntityManager entityManager, JPAId mailboxId) {
+        entityManager.persist(new JPAMailboxCounters(mailboxId.getRawId(), NO_MESSAGES, NO_MESSAGES));
+    }
+
+    /**
+     * @return empty when the counters of this mailbox are not maintained yet
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<MailboxCounters> retrieveCounters(EntityManager entityManager, JPAId mailboxId) {
+        List<Object[]> rows = entityManager.createNamedQuery("retrieveMailboxCounters")
+            .setParameter("idParam", mailboxId.getRawId())
+            .getResultList();
+
+        return rows.stream()
+            .findFirst()
+            .map(row -> MailboxCounters.builder()
+                .mailboxId(mailboxId)
+                .count((Long) row[0])
+                .unseen((Long) row[1])
+                .build());
+    }
+
+    /**
+     * @return empty when the applicable flags of this mailbox are not maintained yet
+     */
+    public Optional<Flags> retrieveApplicableFlags(EntityManager entityManager, JPAId mailboxId) {
+        if (retrieveCounters(entityManager, mailboxId).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(ApplicableFlagBuilder.builder()
+            .add(retrieveApplicableFlagNames(entityManager, mailboxId).toArray(String[]::new))
+            .build());
+    }
+
+    public void update(EntityManager entityManager, JPAId mailboxId, long countDelta, long unseenDelta, Collection<String> userFlags) {
+        if (countDelta == 0 && unseenDelta == 0 && userFlags.isEmpty()) {
+            return;
+        }
+        boolean maintained = updateCounters(entityManager, mailboxId, countDelta, unseenDelta);
+        if (maintained && !userFlags.isEmpty()) {
+            Set<String> knownFlags = ImmutableSet.copyOf(retrieveApplicableFlagNames(entityManager, mailboxId));
+            userFlags.stream()
+                .distinct()
+                .filter(flag -> !knownFlags.contains(flag))
+                .forEach(flag -> entityManager.persist(new JPAApplicableFlag(mailboxId.getRawId(), flag)));
+        }
+    }
+
+    /**
+     * Recomputes the counters and the applicable flags of a mailbox from its messages.
+     *
+     * Writes on the mailbox are blocked until the calling transaction commits once its counters row exists, so that
+     * they apply on top of the recomputed values.
+     */
+    @SuppressWarnings("unchecked")
+    public MailboxCounters recompute(EntityManager entityManager, JPAId mailboxId) {
+        boolean maintained = updateCounters(entityManager, mailboxId, NO_MESSAGES, NO_MESSAGES);
+
+        List<MailboxMessage> messages = entityManager.createNamedQuery("findMessagesInMailbox")
+            .setParameter("idParam", mailboxId.getRawId())
+            .getResultList();
+        long unseen = messages.stream()
+            .filter(message -> !message.isSeen())
+            .count();
+        MailboxCounters counters = MailboxCounters.builder()
+            .mailboxId(mailboxId)
+            .count(messages.size())
+            .unseen(unseen)
+            .build();
+
+        if (maintained) {
+            entityManager.createNamedQuery("setMailboxCounters")
+                .setParameter("idParam", mailboxId.getRawId())
+                .setParameter("countParam", counters.getCount())
+                .setParameter("unseenParam", counters.getUnseen())
+                .executeUpdate();
+        } else {
+            entityManager.persist(new JPAMailboxCounters(mailboxId.getRawId(), counters.getCount(), counters.getUnseen()));
+        }
+        entityManager.createNamedQuery("deleteApplicableFlags")
+            .setParameter("idParam", mailboxId.getRawId())
+            .executeUpdate();
+        messages.stream()
+            .flatMap(message -> Arrays.stream(message.createFlags().getUserFlags()))
+            .distinct()
+            .forEach(flag -> entityManager.persist(new JPAApplicableFlag(mailboxId.getRawId(), flag)));
+
+        return counters;
+    }
+
+    public void delete(EntityManager entityManager, JPAId mailboxId) {
+        entityManager.createNamedQuery("deleteMailboxCounters")
+            .setParameter("idParam", mailboxId.getRawId())
+            .executeUpdate();
+        entityManager.createNamedQuery("deleteApplicableFlags")
+            .setParameter("idParam", mailboxId.getRawId())
+            .executeUpdate();
+    }
+
+    private boolean updateCounters(EntityManager entityManager, JPAId mailboxId, long countDelta, long unseenDelta) {
+        int updatedRows = entityManager.createNamedQuery("updateMailboxCounters")
+            .setParameter("idParam", mailboxId.getRawId())
+            .setParameter("countParam", countDelta)
+            .setParameter("unseenParam", unseenDelta)
+            .executeUpdate();
+        return updatedRows > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> retrieveApplicableFlagNames(EntityManager entityManager, JPAId mailboxId) {
+        return entityManager.createNamedQuery("retrieveApplicableFlags")
+            .setParameter("idParam", mailboxId.getRawId())
+            .getResultList();
+    }
+}
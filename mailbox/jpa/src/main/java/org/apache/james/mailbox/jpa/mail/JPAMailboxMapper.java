@@ -39,6 +39,7 @@ import org.apache.james.mailbox.model.MailboxACL;
 import org.apache.james.mailbox.model.MailboxACL.Right;
 import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.UidValidity;
 import org.apache.james.mailbox.model.search.MailboxQuery;
 import org.apache.james.mailbox.store.MailboxExpressionBackwardCompatibility;
@@ -55,10 +56,14 @@ import reactor.core.publisher.Mono;
 public class JPAMailboxMapper extends JPATransactionalMapper implements MailboxMapper {
 
     private static final char SQL_WILDCARD_CHAR = '%';
+    private final JPAMailboxCountersDAO countersDAO;
+    private final JPAMessageBodyDAO bodyDAO;
     private String lastMailboxName;
     
     public JPAMailboxMapper(EntityManagerFactory entityManagerFactory) {
         super(entityManagerFactory);
+        this.countersDAO = new JPAMailboxCountersDAO();
+        this.bodyDAO = new JPAMessageBodyDAO();
     }
 
     /**
@@ -90,6 +95,7 @@ public class JPAMailboxMapper extends JPATransactionalMapper implements MailboxM
                 this.lastMailboxName = mailboxPath.getName();
                 JPAMailbox persistedMailbox = new JPAMailbox(mailboxPath, uidValidity);
                 getEntityManager().persist(persistedMailbox);
+                countersDAO.initialize(getEntityManager(), persistedMailbox.getMailboxId());
 
                 return new Mailbox(mailboxPath, uidValidity, persistedMailbox.getMailboxId());
             }))
@@ -158,6 +164,8 @@ public class JPAMailboxMapper extends JPATransactionalMapper implements MailboxM
         return Mono.fromRunnable(() -> {
             JPAId mailboxId = (JPAId) mailbox.getMailboxId();
             getEntityManager().createNamedQuery("deleteMessages").setParameter("idParam", mailboxId.getRawId()).executeUpdate();
+            bodyDAO.delete(getEntityManager(), mailboxId, MessageRange.all());
+            countersDAO.delete(getEntityManager(), mailboxId);
             JPAMailbox jpaMailbox = getEntityManager().find(JPAMailbox.class, mailboxId.getRawId());
             getEntityManager().remove(jpaMailbox);
         })
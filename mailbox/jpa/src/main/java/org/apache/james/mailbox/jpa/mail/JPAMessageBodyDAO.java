@@ -0,0 +1,217 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.jpa.mail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.jpa.JPAId;
+import org.apache.james.mailbox.jpa.mail.model.JPAMessageBodyChunk;
+import org.apache.james.mailbox.model.Content;
+import org.apache.james.mailbox.model.MessageRange;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Stores message bodies as {@link JPAMessageBodyChunk}s.
+ *
+ * Bodies are written and read one chunk at a time: storing a chunk flushes and detaches it from the
+ * {@link EntityManager}, and reading a body only retrieves the next chunk once the previous one was consumed.
+ *
+ * Each body stream reads its chunks with its own {@link EntityManager}, independent of the mapper that loaded the
+ * message: it is opened on the first read and closed once the last chunk is retrieved or the stream is closed.
+ */
+public class JPAMessageBodyDAO {
+
+    private static class ChunksInputStream extends InputStream {
+        private final EntityManagerFactory entityManagerFactory;
+        private final JPAId mailboxId;
+        private final MessageUid uid;
+        private final int chunkCount;
+        private Optional<EntityManager> entityManager;
+        private int nextChunk;
+        private InputStream currentChunk;
+
+        private ChunksInputStream(EntityManagerFactory entityManagerFactory, JPAId mailboxId, MessageUid uid, int chunkCount) {
+            this.entityManagerFactory = entityManagerFactory;
+            this.mailboxId = mailboxId;
+            this.uid = uid;
+            this.chunkCount = chunkCount;
+            this.entityManager = Optional.empty();
+            this.nextChunk = 0;
+            this.currentChunk = InputStream.nullInputStream();
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = currentChunk.read();
+            while (value == -1 && retrieveNextChunk()) {
+                value = currentChunk.read();
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int count = currentChunk.read(buffer, offset, length);
+            while (count == -1 && retrieveNextChunk()) {
+                count = currentChunk.read(buffer, offset, length);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return currentChunk.available();
+        }
+
+        @Override
+        public void close() {
+            nextChunk = chunkCount;
+            currentChunk = InputStream.nullInputStream();
+            closeEntityManager();
+        }
+
+        private boolean retrieveNextChunk() throws IOException {
+            if (nextChunk >= chunkCount) {
+                return false;
+            }
+            currentChunk = new ByteArrayInputStream(retrieveChunk(nextChunk));
+            nextChunk++;
+            if (nextChunk == chunkCount) {
+                closeEntityManager();
+            }
+            return true;
+        }
+
+        private EntityManager entityManager() {
+            if (entityManager.isEmpty()) {
+                entityManager = Optional.of(entityManagerFactory.createEntityManager());
+            }
+            return entityManager.get();
+        }
+
+        private void closeEntityManager() {
+            entityManager.filter(EntityManager::isOpen)
+                .ifPresent(EntityManager::close);
+            entityManager = Optional.empty();
+        }
+
+        @SuppressWarnings("unchecked")
+        private byte[] retrieveChunk(int chunkNumber) throws IOException {
+            try {
+                List<byte[]> chunks = entityManager().createNamedQuery("retrieveMessageBodyChunk")
+                    .setParameter("idParam", mailboxId.getRawId())
+                    .setParameter("uidParam", uid.asLong())
+                    .setParameter("chunkParam", chunkNumber)
+                    .getResultList();
+
+                return chunks.stream()
+                    .findFirst()
+                    .orElseThrow(() -> new IOException("Missing chunk " + chunkNumber + " of message " + uid + " in mailbox " + mailboxId.serialize()));
+            } catch (PersistenceException e) {
+                closeEntityManager();
+                throw new IOException("Retrieving chunk " + chunkNumber + " of message " + uid + " in mailbox " + mailboxId.serialize() + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Stores the given body within the transaction of the given {@link EntityManager}.
+     *
+     * @return the number of chunks the body was stored as
+     */
+    public int store(EntityManager entityManager, JPAId mailboxId, MessageUid uid, InputStream body) throws IOException {
+        int chunkCount = 0;
+        byte[] chunk = ByteStreams.toByteArray(ByteStreams.limit(body, JPAMessageBodyChunk.CHUNK_SIZE));
+        while (chunk.length > 0) {
+            JPAMessageBodyChunk bodyChunk = new JPAMessageBodyChunk(mailboxId.getRawId(), uid.asLong(), chunkCount, chunk);
+            entityManager.persist(bodyChunk);
+            entityManager.flush();
+            entityManager.detach(bodyChunk);
+            chunkCount++;
+            chunk = ByteStreams.toByteArray(ByteStreams.limit(body, JPAMessageBodyChunk.CHUNK_SIZE));
+        }
+        return chunkCount;
+    }
+
+    /**
+     * Chunks are read outside of any transaction: only bodies of committed messages can be read.
+     *
+     * @param entityManagerFactory creates the {@link EntityManager} of each stream reading the body
+     */
+    public Content retrieve(EntityManagerFactory entityManagerFactory, JPAId mailboxId, MessageUid uid, int chunkCount, long size) {
+        return new Content() {
+            @Override
+            public InputStream getInputStream() {
+                return new ChunksInputStream(entityManagerFactory, mailboxId, uid, chunkCount);
+            }
+
+            @Override
+            public long size() {
+                return size;
+            }
+        };
+    }
+
+    public void delete(EntityManager entityManager, JPAId mailboxId, MessageRange messageRange) {
+        MessageUid from = messageRange.getUidFrom();
+        MessageUid to = messageRange.getUidTo();
+
+        switch (messageRange.getType()) {
+            case ONE:
+                entityManager.createNamedQuery("deleteMessageBodyChunksInMailboxWithUID")
+                    .setParameter("idParam", mailboxId.getRawId())
+                    .setParameter("uidParam", from.asLong())
+                    .executeUpdate();
+                break;
+            case RANGE:
+                entityManager.createNamedQuery("deleteMessageBodyChunksInMailboxBetweenUIDs")
+                    .setParameter("idParam", mailboxId.getRawId())
+                    .setParameter("fromParam", from.asLong())
+                    .setParameter("toParam", to.asLong())
+                    .executeUpdate();
+                break;
+            case FROM:
+                entityManager.createNamedQuery("deleteMessageBodyChunksInMailboxAfterUID")
+                    .setParameter("idParam", mailboxId.getRawId())
+                    .setParameter("uidParam", from.asLong())
+                    .executeUpdate();
+                break;
+            case ALL:
+                entityManager.createNamedQuery("deleteMessageBodyChunksInMailbox")
+                    .setParameter("idParam", mailboxId.getRawId())
+                    .executeUpdate();
+                break;
+            default:
+                throw new RuntimeException("Cannot delete message bodies, range type " + messageRange.getType() + " doesn't exist");
+        }
+    }
+}
@@ -18,6 +18,9 @@
  ****************************************************************/
 package org.apache.james.mailbox.jpa.mail;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -71,20 +74,33 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
     private final MessageUtils messageMetadataMapper;
     private final UidProvider uidProvider;
     private final ModSeqProvider modSeqProvider;
+    private final JPAMailboxCountersDAO countersDAO;
+    private final JPAMessageBodyDAO bodyDAO;
 
     public JPAMessageMapper(UidProvider uidProvider, ModSeqProvider modSeqProvider, EntityManagerFactory entityManagerFactory) {
         super(entityManagerFactory);
         this.messageMetadataMapper = new MessageUtils(uidProvider, modSeqProvider);
         this.uidProvider = uidProvider;
         this.modSeqProvider = modSeqProvider;
+        this.countersDAO = new JPAMailboxCountersDAO();
+        this.bodyDAO = new JPAMessageBodyDAO();
     }
 
     @Override
     public MailboxCounters getMailboxCounters(Mailbox mailbox) throws MailboxException {
+        JPAId mailboxId = (JPAId) mailbox.getMailboxId();
+        try {
+            Optional<MailboxCounters> counters = countersDAO.retrieveCounters(getEntityManager(), mailboxId);
+            if (counters.isPresent()) {
+                return counters.get();
+            }
+        } catch (PersistenceException e) {
+            throw new MailboxException("Retrieving counters failed in mailbox " + mailboxId, e);
+        }
         return MailboxCounters.builder()
-            .mailboxId(mailbox.getMailboxId())
-            .count(countMessagesInMailbox(mailbox))
-            .unseen(countUnseenMessagesInMailbox(mailbox))
+            .mailboxId(mailboxId)
+            .count(countMessagesInMailbox(mailboxId))
+            .unseen(countUnseenMessagesInMailbox(mailboxId))
             .build();
     }
 
@@ -103,31 +119,44 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
 
     private List<MailboxMessage> findAsList(MailboxId mailboxId, MessageRange set, int max) throws MailboxException {
         try {
-            MessageUid from = set.getUidFrom();
-            MessageUid to = set.getUidTo();
-            Type type = set.getType();
-            JPAId jpaId = (JPAId) mailboxId;
-
-            switch (type) {
-                default:
-                case ALL:
-                    return findMessagesInMailbox(jpaId, max);
-                case FROM:
-                    return findMessagesInMailboxAfterUID(jpaId, from, max);
-                case ONE:
-                    return findMessagesInMailboxWithUID(jpaId, from);
-                case RANGE:
-                    return findMessagesInMailboxBetweenUIDs(jpaId, from, to, max);
-            }
+            List<MailboxMessage> messages = findMessages((JPAId) mailboxId, set, max);
+            messages.forEach(this::attachBodyChunks);
+            return messages;
         } catch (PersistenceException e) {
             throw new MailboxException("Search of MessageRange " + set + " failed in mailbox " + mailboxId.serialize(), e);
         }
     }
 
+    private List<MailboxMessage> findMessages(JPAId mailboxId, MessageRange set, int max) {
+        MessageUid from = set.getUidFrom();
+        MessageUid to = set.getUidTo();
+        Type type = set.getType();
+
+        switch (type) {
+            default:
+            case ALL:
+                return findMessagesInMailbox(mailboxId, max);
+            case FROM:
+                return findMessagesInMailboxAfterUID(mailboxId, from, max);
+            case ONE:
+                return findMessagesInMailboxWithUID(mailboxId, from);
+            case RANGE:
+                return findMessagesInMailboxBetweenUIDs(mailboxId, from, to, max);
+        }
+    }
+
+    private void attachBodyChunks(MailboxMessage message) {
+        if (message instanceof JPAMailboxMessage) {
+            JPAMailboxMessage jpaMessage = (JPAMailboxMessage) message;
+            jpaMessage.getBodyChunkCount()
+                .ifPresent(chunkCount -> jpaMessage.setBodyChunks(bodyDAO.retrieve(entityManagerFactory,
+                    jpaMessage.getMailboxId(), jpaMessage.getUid(), chunkCount, jpaMessage.getBodyOctets())));
+        }
+    }
+
     @Override
     public long countMessagesInMailbox(Mailbox mailbox) throws MailboxException {
-        JPAId mailboxId = (JPAId) mailbox.getMailboxId();
-        return countMessagesInMailbox(mailboxId);
+        return getMailboxCounters(mailbox).getCount();
     }
 
     private long countMessagesInMailbox(JPAId mailboxId) throws MailboxException {
@@ -140,8 +169,7 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
     }
 
     public long countUnseenMessagesInMailbox(Mailbox mailbox) throws MailboxException {
-        JPAId mailboxId = (JPAId) mailbox.getMailboxId();
-        return countUnseenMessagesInMailbox(mailboxId);
+        return getMailboxCounters(mailbox).getUnseen();
     }
 
     private long countUnseenMessagesInMailbox(JPAId mailboxId) throws MailboxException {
@@ -158,6 +186,8 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
         try {
             AbstractJPAMailboxMessage jpaMessage = getEntityManager().find(AbstractJPAMailboxMessage.class, buildKey(mailbox, message));
             getEntityManager().remove(jpaMessage);
+            bodyDAO.delete(getEntityManager(), (JPAId) mailbox.getMailboxId(), MessageRange.one(message.getUid()));
+            countersDAO.update(getEntityManager(), (JPAId) mailbox.getMailboxId(), -1, unseenDelta(jpaMessage.createFlags(), -1), ImmutableList.of());
 
         } catch (PersistenceException e) {
             throw new MailboxException("Delete of message " + message + " failed in mailbox " + mailbox, e);
@@ -250,6 +280,11 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
             deleteMessages(range, mailboxId);
         }).sneakyThrow());
 
+        long unseenDelta = data.values().stream()
+            .mapToLong(metaData -> unseenDelta(metaData.getFlags(), -1))
+            .sum();
+        countersDAO.update(getEntityManager(), mailboxId, -data.size(), unseenDelta, ImmutableList.of());
+
         return data;
     }
 
@@ -273,6 +308,7 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
             default:
                 throw new RuntimeException("Cannot delete messages, range type " + messageRange.getType() + " doesn't exist");
         }
+        bodyDAO.delete(getEntityManager(), mailboxId, messageRange);
     }
 
     @Override
@@ -290,7 +326,7 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
     public MessageMetaData add(Mailbox mailbox, MailboxMessage message) throws MailboxException {
         messageMetadataMapper.enrichMessage(mailbox, message);
 
-        return save(mailbox, message);
+        return saveAndCount(mailbox, message);
     }
 
     @Override
@@ -304,7 +340,16 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
             save(mailbox, mailboxMessage);
         }
 
-        return messageChangedFlags.getUpdatedFlags();
+        List<UpdatedFlags> updatedFlags = ImmutableList.copyOf(messageChangedFlags.getUpdatedFlags());
+        long unseenDelta = updatedFlags.stream()
+            .mapToLong(this::unseenDelta)
+            .sum();
+        List<String> userFlags = updatedFlags.stream()
+            .flatMap(flags -> Arrays.stream(flags.getNewFlags().getUserFlags()))
+            .collect(Guavate.toImmutableList());
+        countersDAO.update(getEntityManager(), (JPAId) mailbox.getMailboxId(), 0, unseenDelta, userFlags);
+
+        return updatedFlags.iterator();
     }
 
     @Override
@@ -324,9 +369,14 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
 
     @Override
     public Flags getApplicableFlag(Mailbox mailbox) throws MailboxException {
-        int maxBatchSize = -1;
-        return new ApplicableFlagCalculator(findMessagesInMailbox((JPAId) mailbox.getMailboxId(), maxBatchSize))
-            .computeApplicableFlags();
+        JPAId mailboxId = (JPAId) mailbox.getMailboxId();
+        try {
+            return countersDAO.retrieveApplicableFlags(getEntityManager(), mailboxId)
+                .orElseGet(() -> new ApplicableFlagCalculator(findMessagesInMailbox(mailboxId, UNLIMIT_MAX_SIZE))
+                    .computeApplicableFlags());
+        } catch (PersistenceException e) {
+            throw new MailboxException("Retrieving applicable flags failed in mailbox " + mailboxId, e);
+        }
     }
 
     private MessageMetaData copy(Mailbox mailbox, MessageUid uid, ModSeq modSeq, MailboxMessage original)
@@ -341,7 +391,36 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
         } else {
             copy = new JPAMailboxMessage(currentMailbox, uid, modSeq, original);
         }
-        return save(mailbox, copy);
+        return saveAndCount(mailbox, copy);
+    }
+
+    private MessageMetaData saveAndCount(Mailbox mailbox, MailboxMessage message) throws MailboxException {
+        MessageMetaData metaData = save(mailbox, message);
+        Flags flags = metaData.getFlags();
+        try {
+            countersDAO.update(getEntityManager(), (JPAId) mailbox.getMailboxId(), 1, unseenDelta(flags, 1),
+                ImmutableList.copyOf(flags.getUserFlags()));
+        } catch (PersistenceException e) {
+            throw new MailboxException("Updating counters failed in mailbox " + mailbox, e);
+        }
+        return metaData;
+    }
+
+    private long unseenDelta(Flags flags, long countDelta) {
+        if (flags.contains(Flags.Flag.SEEN)) {
+            return 0;
+        }
+        return countDelta;
+    }
+
+    private long unseenDelta(UpdatedFlags updatedFlags) {
+        if (updatedFlags.isModifiedToSet(Flags.Flag.SEEN)) {
+            return -1;
+        }
+        if (updatedFlags.isModifiedToUnset(Flags.Flag.SEEN)) {
+            return 1;
+        }
+        return 0;
     }
 
     /**
@@ -357,21 +436,33 @@ public class JPAMessageMapper extends JPATransactionalMapper implements MessageM
             JPAMailbox currentMailbox = getEntityManager().find(JPAMailbox.class, mailboxId.getRawId());
             if (message instanceof AbstractJPAMailboxMessage) {
                 ((AbstractJPAMailboxMessage) message).setMailbox(currentMailbox);
+                if (message instanceof JPAMailboxMessage && !getEntityManager().contains(message)) {
+                    storeBodyChunks(mailboxId, (JPAMailboxMessage) message);
+                }
 
                 getEntityManager().persist(message);
                 return message.metaData();
             } else {
                 JPAMailboxMessage persistData = new JPAMailboxMessage(currentMailbox, message.getUid(), message.getModSeq(), message);
                 persistData.setFlags(message.createFlags());
+                storeBodyChunks(mailboxId, persistData);
                 getEntityManager().persist(persistData);
                 return persistData.metaData();
             }
 
-        } catch (PersistenceException | ArgumentException e) {
+        } catch (PersistenceException | ArgumentException | IOException e) {
             throw new MailboxException("Save of message " + message + " failed in mailbox " + mailbox, e);
         }
     }
 
+    private void storeBodyChunks(JPAId mailboxId, JPAMailboxMessage message) throws IOException {
+        try (InputStream body = message.getBodyContent()) {
+            int chunkCount = bodyDAO.store(getEntityManager(), mailboxId, message.getUid(), body);
+            message.bodyStoredAsChunks(chunkCount);
+            message.setBodyChunks(bodyDAO.retrieve(entityManagerFactory, mailboxId, message.getUid(), chunkCount, message.getBodyOctets()));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private List<MailboxMessage> findMessagesInMailboxAfterUID(JPAId mailboxId, MessageUid from, int batchSize) {
         Query query = getEntityManager().createNamedQuery("findMessagesInMailboxAfterUID")
@@ -0,0 +1,86 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail.model;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * A user flag that was set on a message of a mailbox.
+ *
+ * Like the Cassandra implementation, applicable flags are only added: they are not removed when the last message
+ * carrying them is deleted or unflagged.
+ */
+@Entity(name = "ApplicableFlag")
+@Table(name = "JAMES_MAILBOX_APPLICABLE_FLAG")
+@NamedQueries({
+    @NamedQuery(name = "retrieveApplicableFlags",
+        query = "SELECT flag.name FROM ApplicableFlag flag WHERE flag.mailboxId = :idParam"),
+    @NamedQuery(name = "deleteApplicableFlags",
+        query = "DELETE FROM ApplicableFlag flag WHERE flag.mailboxId = :idParam")
+})
+public class JPAApplicableFlag {
+    @Id
+    @GeneratedValue
+    @Column(name = "APPLICABLE_FLAG_ID", nullable = true)
+    private long id;
+
+    @Basic(optional = false)
+    @Column(name = "MAILBOX_ID", nullable = false)
+    private long mailboxId;
+
+    @Basic(optional = false)
+    @Column(name = "APPLICABLE_FLAG_NAME", nullable = false, length = 500)
+    private String name;
+
+    /**
+     * @deprecated enhancement only
+     */
+    @Deprecated
+    public JPAApplicableFlag() {
+    }
+
+    public JPAApplicableFlag(long mailboxId, String name) {
+        this.mailboxId = mailboxId;
+        this.name = name;
+    }
+
+    public long getMailboxId() {
+        return mailboxId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "JPAApplicableFlag{" +
+            "mailboxId=" + mailboxId +
+            ", name='" + name + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,93 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Message count and unseen count of a mailbox, maintained along with message additions, deletions and flags updates.
+ *
+ * Mailboxes created before this table was introduced have no entry until the counters are recomputed: their counters
+ * are then computed from the messages.
+ */
+@Entity(name = "MailboxCounters")
+@Table(name = "JAMES_MAILBOX_COUNTERS")
+@NamedQueries({
+    @NamedQuery(name = "retrieveMailboxCounters",
+        query = "SELECT counters.messageCount, counters.unseenCount FROM MailboxCounters counters WHERE counters.mailboxId = :idParam"),
+    @NamedQuery(name = "updateMailboxCounters",
+        query = "UPDATE MailboxCounters counters SET counters.messageCount = counters.messageCount + :countParam, "
+            + "counters.unseenCount = counters.unseenCount + :unseenParam WHERE counters.mailboxId = :idParam"),
+    @NamedQuery(name = "setMailboxCounters",
+        query = "UPDATE MailboxCounters counters SET counters.messageCount = :countParam, "
+            + "counters.unseenCount = :unseenParam WHERE counters.mailboxId = :idParam"),
+    @NamedQuery(name = "deleteMailboxCounters",
+        query = "DELETE FROM MailboxCounters counters WHERE counters.mailboxId = :idParam")
+})
+public class JPAMailboxCounters {
+    @Id
+    @Column(name = "MAILBOX_ID")
+    private long mailboxId;
+
+    @Column(name = "COUNTERS_MESSAGE_COUNT", nullable = false)
+    private long messageCount;
+
+    @Column(name = "COUNTERS_UNSEEN_COUNT", nullable = false)
+    private long unseenCount;
+
+    /**
+     * @deprecated enhancement only
+     */
+    @Deprecated
+    public JPAMailboxCounters() {
+    }
+
+    public JPAMailboxCounters(long mailboxId, long messageCount, long unseenCount) {
+        this.mailboxId = mailboxId;
+        this.messageCount = messageCount;
+        this.unseenCount = unseenCount;
+    }
+
+    public long getMailboxId() {
+        return mailboxId;
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    public long getUnseenCount() {
+        return unseenCount;
+    }
+
+    @Override
+    public String toString() {
+        return "JPAMailboxCounters{" +
+            "mailboxId=" + mailboxId +
+            ", messageCount=" + messageCount +
+            ", unseenCount=" + unseenCount +
+            '}';
+    }
+}
@@ -0,0 +1,120 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.jpa.mail.model;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.apache.openjpa.persistence.jdbc.Index;
+
+/**
+ * A fixed size part of the body of a message.
+ *
+ * Storing bodies as a sequence of small rows keeps the message rows small and allows reading a body one chunk at a
+ * time, the same way the Cassandra blob store splits blobs into parts.
+ */
+@Entity(name = "MessageBodyChunk")
+@Table(name = "JAMES_MAIL_BODY_CHUNK")
+@NamedQueries({
+    @NamedQuery(name = "retrieveMessageBodyChunk",
+        query = "SELECT chunk.data FROM MessageBodyChunk chunk WHERE chunk.mailboxId = :idParam AND chunk.uid = :uidParam AND chunk.chunkNumber = :chunkParam"),
+    @NamedQuery(name = "deleteMessageBodyChunksInMailbox",
+        query = "DELETE FROM MessageBodyChunk chunk WHERE chunk.mailboxId = :idParam"),
+    @NamedQuery(name = "deleteMessageBodyChunksInMailboxBetweenUIDs",
+        query = "DELETE FROM MessageBodyChunk chunk WHERE chunk.mailboxId = :idParam AND chunk.uid BETWEEN :fromParam AND :toParam"),
+    @NamedQuery(name = "deleteMessageBodyChunksInMailboxWithUID",
+        query = "DELETE FROM MessageBodyChunk chunk WHERE chunk.mailboxId = :idParam AND chunk.uid = :uidParam"),
+    @NamedQuery(name = "deleteMessageBodyChunksInMailboxAfterUID",
+        query = "DELETE FROM MessageBodyChunk chunk WHERE chunk.mailboxId = :idParam AND chunk.uid >= :uidParam")
+})
+public class JPAMessageBodyChunk {
+    /** Size of the chunks, matching the blob part size of the Cassandra blob store */
+    public static final int CHUNK_SIZE = 100 * 1024;
+
+    @Id
+    @GeneratedValue
+    @Column(name = "BODY_CHUNK_ID", nullable = true)
+    private long id;
+
+    @Basic(optional = false)
+    @Column(name = "MAILBOX_ID", nullable = false)
+    @Index
+    private long mailboxId;
+
+    @Basic(optional = false)
+    @Column(name = "MAIL_UID", nullable = false)
+    @Index
+    private long uid;
+
+    @Basic(optional = false)
+    @Column(name = "BODY_CHUNK_NUMBER", nullable = false)
+    private int chunkNumber;
+
+    @Basic(optional = false, fetch = FetchType.LAZY)
+    @Column(name = "BODY_CHUNK_BYTES", length = CHUNK_SIZE, nullable = false)
+    @Lob
+    private byte[] data;
+
+    /**
+     * @deprecated enhancement only
+     */
+    @Deprecated
+    public JPAMessageBodyChunk() {
+    }
+
+    public JPAMessageBodyChunk(long mailboxId, long uid, int chunkNumber, byte[] data) {
+        this.mailboxId = mailboxId;
+        this.uid = uid;
+        this.chunkNumber = chunkNumber;
+        this.data = data;
+    }
+
+    public long getMailboxId() {
+        return mailboxId;
+    }
+
+    public long getUid() {
+        return uid;
+    }
+
+    public int getChunkNumber() {
+        return chunkNumber;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "JPAMessageBodyChunk{" +
+            "mailboxId=" + mailboxId +
+            ", uid=" + uid +
+            ", chunkNumber=" + chunkNumber +
+            '}';
+    }
+}
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
+import java.util.Optional;
 
 import javax.mail.Flags;
 import javax.persistence.Basic;
@@ -29,7 +30,9 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Lob;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BoundedInputStream;
@@ -37,14 +40,22 @@ import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.ModSeq;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.jpa.mail.model.JPAMailbox;
+import org.apache.james.mailbox.jpa.mail.model.JPAMessageBodyChunk;
 import org.apache.james.mailbox.model.Content;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.mail.model.impl.PropertyBuilder;
 
 import com.google.common.annotations.VisibleForTesting;
 
+/**
+ * JPA implementation of {@link AbstractJPAMailboxMessage} storing the header in the message row and the body as
+ * {@link JPAMessageBodyChunk}s, so that neither appending nor reading a message loads its body in memory.
+ *
+ * Messages stored before bodies were chunked keep their body in the MAIL_BYTES column until they are migrated.
+ */
 @Entity(name = "MailboxMessage")
 @Table(name = "JAMES_MAIL")
+@NamedQuery(name = "findMessagesWithInlineBody", query = "SELECT message.mailbox.mailboxId, message.uid FROM MailboxMessage message WHERE message.bodyChunkCount IS NULL")
 public class JPAMailboxMessage extends AbstractJPAMailboxMessage {
 
     private static final byte[] EMPTY_BODY = new byte[] {};
@@ -61,7 +72,15 @@ public class JPAMailboxMessage extends AbstractJPAMailboxMessage {
     @Basic(optional = false, fetch = FetchType.LAZY)
     @Column(name = "HEADER_BYTES", length = 10485760, nullable = false)
     @Lob private byte[] header;
-    
+
+    /** Number of {@link JPAMessageBodyChunk}s holding the body. Null when the body is stored in the body field */
+    @Basic(optional = true)
+    @Column(name = "MAIL_BODY_CHUNK_COUNT", nullable = true)
+    private Integer bodyChunkCount;
+
+    /** The body to be stored as chunks, or the chunks of a stored body */
+    @Transient
+    private Content bodyChunks;
 
     public JPAMailboxMessage() {
         
@@ -76,14 +95,22 @@ public class JPAMailboxMessage extends AbstractJPAMailboxMessage {
     public JPAMailboxMessage(JPAMailbox mailbox, Date internalDate, int size, Flags flags, Content content, int bodyStartOctet, PropertyBuilder propertyBuilder) throws MailboxException {
         super(mailbox, internalDate, flags, size, bodyStartOctet, propertyBuilder);
         try {
-            int headerEnd = bodyStartOctet;
-            if (headerEnd < 0) {
-                headerEnd = 0;
-            }
-            InputStream stream = content.getInputStream();
-            this.header = IOUtils.toByteArray(new BoundedInputStream(stream, headerEnd));
-            this.body = IOUtils.toByteArray(stream);
-
+            int headerEnd = Math.max(bodyStartOctet, 0);
+            this.header = IOUtils.toByteArray(new BoundedInputStream(content.getInputStream(), headerEnd));
+            this.body = EMPTY_BODY;
+            this.bodyChunks = new Content() {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    InputStream stream = content.getInputStream();
+                    IOUtils.skipFully(stream, headerEnd);
+                    return stream;
+                }
+
+                @Override
+                public long size() throws MailboxException {
+                    return content.size() - headerEnd;
+                }
+            };
         } catch (IOException e) {
             throw new MailboxException("Unable to parse message",e);
         }
@@ -95,15 +122,54 @@ public class JPAMailboxMessage extends AbstractJPAMailboxMessage {
     public JPAMailboxMessage(JPAMailbox mailbox, MessageUid uid, ModSeq modSeq, MailboxMessage message) throws MailboxException {
         super(mailbox, uid, modSeq, message);
         try {
-            this.body = IOUtils.toByteArray(message.getBodyContent());
+            this.body = EMPTY_BODY;
             this.header = IOUtils.toByteArray(message.getHeaderContent());
+            this.bodyChunks = new Content() {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    return message.getBodyContent();
+                }
+
+                @Override
+                public long size() {
+                    return message.getBodyOctets();
+                }
+            };
         } catch (IOException e) {
             throw new MailboxException("Unable to parse message",e);
         }
     }
 
+    /**
+     * @return empty when the body is not stored as chunks
+     */
+    public Optional<Integer> getBodyChunkCount() {
+        return Optional.ofNullable(bodyChunkCount);
+    }
+
+    /**
+     * Records that the body is now stored as the given number of chunks.
+     */
+    public void bodyStoredAsChunks(int chunkCount) {
+        this.bodyChunkCount = chunkCount;
+        this.body = EMPTY_BODY;
+    }
+
+    /**
+     * Sets where the chunks of the body are read from.
+     */
+    public void setBodyChunks(Content bodyChunks) {
+        this.bodyChunks = bodyChunks;
+    }
+
     @Override
     public InputStream getBodyContent() throws IOException {
+        if (bodyChunks != null) {
+            return bodyChunks.getInputStream();
+        }
+        if (bodyChunkCount != null) {
+            throw new IOException("Body chunks of message " + getUid() + " in mailbox " + getMailboxId().serialize() + " are not available");
+        }
         if (body == null) {
             return new ByteArrayInputStream(EMPTY_BODY);
         }
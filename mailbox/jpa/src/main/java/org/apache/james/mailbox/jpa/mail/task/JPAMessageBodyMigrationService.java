@@ -0,0 +1,191 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.jpa.mail.task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+
+import org.apache.james.backends.jpa.EntityManagerUtils;
+import org.apache.james.backends.jpa.TransactionRunner;
+import org.apache.james.mailbox.jpa.JPAId;
+import org.apache.james.mailbox.jpa.mail.JPAMessageBodyDAO;
+import org.apache.james.mailbox.jpa.mail.model.openjpa.AbstractJPAMailboxMessage.MailboxIdUidKey;
+import org.apache.james.mailbox.jpa.mail.model.openjpa.JPAMailboxMessage;
+import org.apache.james.task.Task;
+import org.apache.james.task.Task.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Moves the bodies of messages stored before bodies were chunked from the MAIL_BYTES column of JAMES_MAIL to
+ * JAMES_MAIL_BODY_CHUNK.
+ *
+ * Each message is migrated in its own transaction, so the task can be interrupted and run again.
+ */
+public class JPAMessageBodyMigrationService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JPAMessageBodyMigrationService.class);
+
+    public static class Context {
+        static class Snapshot {
+            private final long migratedMessageCount;
+            private final long failedMessageCount;
+
+            private Snapshot(long migratedMessageCount, long failedMessageCount) {
+                this.migratedMessageCount = migratedMessageCount;
+                this.failedMessageCount = failedMessageCount;
+            }
+
+            long getMigratedMessageCount() {
+                return migratedMessageCount;
+            }
+
+            long getFailedMessageCount() {
+                return failedMessageCount;
+            }
+
+            @Override
+            public final boolean equals(Object o) {
+                if (o instanceof Snapshot) {
+                    Snapshot snapshot = (Snapshot) o;
+
+                    return Objects.equals(this.migratedMessageCount, snapshot.migratedMessageCount)
+                        && Objects.equals(this.failedMessageCount, snapshot.failedMessageCount);
+                }
+                return false;
+            }
+
+            @Override
+            public final int hashCode() {
+                return Objects.hash(migratedMessageCount, failedMessageCount);
+            }
+
+            @Override
+            public String toString() {
+                return MoreObjects.toStringHelper(this)
+                    .add("migratedMessageCount", migratedMessageCount)
+                    .add("failedMessageCount", failedMessageCount)
+                    .toString();
+            }
+        }
+
+        private final AtomicLong migratedMessageCount;
+        private final AtomicLong failedMessageCount;
+
+        public Context() {
+            migratedMessageCount = new AtomicLong();
+            failedMessageCount = new AtomicLong();
+        }
+
+        void incrementMigrated() {
+            migratedMessageCount.incrementAndGet();
+        }
+
+        void incrementFailed() {
+            failedMessageCount.incrementAndGet();
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(migratedMessageCount.get(), failedMessageCount.get());
+        }
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionRunner transactionRunner;
+    private final JPAMessageBodyDAO bodyDAO;
+
+    @Inject
+    public JPAMessageBodyMigrationService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionRunner = new TransactionRunner(entityManagerFactory);
+        this.bodyDAO = new JPAMessageBodyDAO();
+    }
+
+    public Result migrateMessageBodies(Context context) {
+        List<MailboxIdUidKey> messageKeys;
+        try {
+            messageKeys = listMessagesWithInlineBody();
+        } catch (RuntimeException e) {
+            LOGGER.error("Error listing messages to migrate", e);
+            return Result.PARTIAL;
+        }
+
+        return messageKeys.stream()
+            .map(messageKey -> migrateMessageBody(context, messageKey))
+            .reduce(Result.COMPLETED, Task::combine);
+    }
+
+    private Result migrateMessageBody(Context context, MailboxIdUidKey messageKey) {
+        try {
+            boolean migrated = transactionRunner.runAndRetrieveResult(entityManager -> migrateMessageBody(entityManager, messageKey));
+            if (migrated) {
+                context.incrementMigrated();
+            }
+            return Result.COMPLETED;
+        } catch (RuntimeException e) {
+            context.incrementFailed();
+            LOGGER.error("Error while migrating the body of message {} in mailbox {}", messageKey.uid, messageKey.mailbox, e);
+            return Result.PARTIAL;
+        }
+    }
+
+    private Boolean migrateMessageBody(EntityManager entityManager, MailboxIdUidKey messageKey) {
+        JPAMailboxMessage message = entityManager.find(JPAMailboxMessage.class, messageKey);
+        if (message == null || message.getBodyChunkCount().isPresent()) {
+            return false;
+        }
+        try (InputStream body = message.getBodyContent()) {
+            int chunkCount = bodyDAO.store(entityManager, JPAId.of(messageKey.mailbox), message.getUid(), body);
+            message.bodyStoredAsChunks(chunkCount);
+            return true;
+        } catch (IOException e) {
+            throw new PersistenceException("Could not read the body of message " + messageKey.uid + " in mailbox " + messageKey.mailbox, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MailboxIdUidKey> listMessagesWithInlineBody() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<Object[]> rows = entityManager.createNamedQuery("findMessagesWithInlineBody")
+                .getResultList();
+
+            return rows.stream()
+                .map(row -> {
+                    MailboxIdUidKey key = new MailboxIdUidKey();
+                    key.mailbox = (Long) row[0];
+                    key.uid = (Long) row[1];
+                    return key;
+                })
+                .collect(Guavate.toImmutableList());
+        } finally {
+            EntityManagerUtils.safelyClose(entityManager);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.jpa.mail.task;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.apache.james.mailbox.jpa.mail.task.JPAMessageBodyMigrationService.Context.Snapshot;
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskType;
+
+public class JPAMessageBodyMigrationTask implements Task {
+    static final TaskType MESSAGE_BODY_MIGRATION = TaskType.of("jpa-message-body-migration");
+
+    public static class Details implements TaskExecutionDetails.AdditionalInformation {
+        private final Instant instant;
+        private final long migratedMessages;
+        private final long failedMessages;
+
+        Details(Instant instant, long migratedMessages, long failedMessages) {
+            this.instant = instant;
+            this.migratedMessages = migratedMessages;
+            this.failedMessages = failedMessages;
+        }
+
+        @Override
+        public Instant timestamp() {
+            return instant;
+        }
+
+        public long getMigratedMessages() {
+            return migratedMessages;
+        }
+
+        public long getFailedMessages() {
+            return failedMessages;
+        }
+    }
+
+    private final JPAMessageBodyMigrationService service;
+    private final JPAMessageBodyMigrationService.Context context;
+
+    public JPAMessageBodyMigrationTask(JPAMessageBodyMigrationService service) {
+        this.service = service;
+        this.context = new JPAMessageBodyMigrationService.Context();
+    }
+
+    @Override
+    public Result run() {
+        return service.migrateMessageBodies(context);
+    }
+
+    @Override
+    public TaskType type() {
+        return MESSAGE_BODY_MIGRATION;
+    }
+
+    @Override
+    public Optional<TaskExecutionDetails.AdditionalInformation> details() {
+        Snapshot snapshot = context.snapshot();
+
+        return Optional.of(new Details(Clock.systemUTC().instant(),
+            snapshot.getMigratedMessageCount(),
+            snapshot.getFailedMessageCount()));
+    }
+}
@@ -0,0 +1,87 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail.task;
+
+import java.time.Instant;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class JPAMessageBodyMigrationTaskAdditionalInformationDTO implements AdditionalInformationDTO {
+    private static JPAMessageBodyMigrationTaskAdditionalInformationDTO fromDomainObject(JPAMessageBodyMigrationTask.Details details, String type) {
+        return new JPAMessageBodyMigrationTaskAdditionalInformationDTO(
+            type,
+            details.getMigratedMessages(),
+            details.getFailedMessages(),
+            details.timestamp());
+    }
+
+    public static AdditionalInformationDTOModule<JPAMessageBodyMigrationTask.Details, JPAMessageBodyMigrationTaskAdditionalInformationDTO> module() {
+        return DTOModule
+            .forDomainObject(JPAMessageBodyMigrationTask.Details.class)
+            .convertToDTO(JPAMessageBodyMigrationTaskAdditionalInformationDTO.class)
+            .toDomainObjectConverter(JPAMessageBodyMigrationTaskAdditionalInformationDTO::toDomainObject)
+            .toDTOConverter(JPAMessageBodyMigrationTaskAdditionalInformationDTO::fromDomainObject)
+            .typeName(JPAMessageBodyMigrationTask.MESSAGE_BODY_MIGRATION.asString())
+            .withFactory(AdditionalInformationDTOModule::new);
+    }
+
+    private final String type;
+    private final long migratedMessages;
+    private final long failedMessages;
+    private final Instant timestamp;
+
+    public JPAMessageBodyMigrationTaskAdditionalInformationDTO(@JsonProperty("type") String type,
+                                                               @JsonProperty("migratedMessages") long migratedMessages,
+                                                               @JsonProperty("failedMessages") long failedMessages,
+                                                               @JsonProperty("timestamp") Instant timestamp) {
+        this.type = type;
+        this.migratedMessages = migratedMessages;
+        this.failedMessages = failedMessages;
+        this.timestamp = timestamp;
+    }
+
+    public long getMigratedMessages() {
+        return migratedMessages;
+    }
+
+    public long getFailedMessages() {
+        return failedMessages;
+    }
+
+    @Override
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    private JPAMessageBodyMigrationTask.Details toDomainObject() {
+        return new JPAMessageBodyMigrationTask.Details(timestamp,
+            migratedMessages,
+            failedMessages);
+    }
+}
@@ -0,0 +1,171 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail.task;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.james.backends.jpa.EntityManagerUtils;
+import org.apache.james.backends.jpa.TransactionRunner;
+import org.apache.james.mailbox.jpa.JPAId;
+import org.apache.james.mailbox.jpa.mail.JPAMailboxCountersDAO;
+import org.apache.james.mailbox.jpa.mail.model.JPAMailbox;
+import org.apache.james.mailbox.model.MailboxCounters;
+import org.apache.james.task.Task;
+import org.apache.james.task.Task.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Computes the counters and the applicable flags of every mailbox from its messages.
+ *
+ * Run it once to start maintaining counters and applicable flags of mailboxes created before they were introduced, or
+ * to fix them.
+ */
+public class JPARecomputeMailboxCountersService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JPARecomputeMailboxCountersService.class);
+
+    public static class Context {
+        static class Snapshot {
+            private final long processedMailboxCount;
+            private final ImmutableList<JPAId> failedMailboxes;
+
+            private Snapshot(long processedMailboxCount, ImmutableList<JPAId> failedMailboxes) {
+                this.processedMailboxCount = processedMailboxCount;
+                this.failedMailboxes = failedMailboxes;
+            }
+
+            long getProcessedMailboxCount() {
+                return processedMailboxCount;
+            }
+
+            ImmutableList<JPAId> getFailedMailboxes() {
+                return failedMailboxes;
+            }
+
+            @Override
+            public final boolean equals(Object o) {
+                if (o instanceof Snapshot) {
+                    Snapshot snapshot = (Snapshot) o;
+
+                    return Objects.equals(this.processedMailboxCount, snapshot.processedMailboxCount)
+                        && Objects.equals(this.failedMailboxes, snapshot.failedMailboxes);
+                }
+                return false;
+            }
+
+            @Override
+            public final int hashCode() {
+                return Objects.hash(processedMailboxCount, failedMailboxes);
+            }
+
+            @Override
+            public String toString() {
+                return MoreObjects.toStringHelper(this)
+                    .add("processedMailboxCount", processedMailboxCount)
+                    .add("failedMailboxes", failedMailboxes)
+                    .toString();
+            }
+        }
+
+        private final AtomicLong processedMailboxCount;
+        private final ConcurrentLinkedDeque<JPAId> failedMailboxes;
+
+        public Context() {
+            processedMailboxCount = new AtomicLong();
+            failedMailboxes = new ConcurrentLinkedDeque<>();
+        }
+
+        void incrementProcessed() {
+            processedMailboxCount.incrementAndGet();
+        }
+
+        void addToFailedMailboxes(JPAId mailboxId) {
+            failedMailboxes.add(mailboxId);
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(processedMailboxCount.get(),
+                ImmutableList.copyOf(failedMailboxes));
+        }
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionRunner transactionRunner;
+    private final JPAMailboxCountersDAO countersDAO;
+
+    @Inject
+    public JPARecomputeMailboxCountersService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionRunner = new TransactionRunner(entityManagerFactory);
+        this.countersDAO = new JPAMailboxCountersDAO();
+    }
+
+    public Result recomputeMailboxCounters(Context context) {
+        List<JPAId> mailboxIds;
+        try {
+            mailboxIds = listMailboxIds();
+        } catch (RuntimeException e) {
+            LOGGER.error("Error listing mailboxes", e);
+            return Result.PARTIAL;
+        }
+
+        return mailboxIds.stream()
+            .map(mailboxId -> recomputeMailboxCounters(context, mailboxId))
+            .reduce(Result.COMPLETED, Task::combine);
+    }
+
+    public Result recomputeMailboxCounters(Context context, JPAId mailboxId) {
+        try {
+            MailboxCounters counters = transactionRunner.runAndRetrieveResult(
+                entityManager -> countersDAO.recompute(entityManager, mailboxId));
+            LOGGER.info("Counters recomputed for {}: {}", mailboxId.serialize(), counters);
+            context.incrementProcessed();
+            return Result.COMPLETED;
+        } catch (RuntimeException e) {
+            context.addToFailedMailboxes(mailboxId);
+            LOGGER.error("Error while recomputing counters for {}", mailboxId.serialize(), e);
+            return Result.PARTIAL;
+        }
+    }
+
+    private List<JPAId> listMailboxIds() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createNamedQuery("listMailboxes", JPAMailbox.class)
+                .getResultList()
+                .stream()
+                .map(JPAMailbox::getMailboxId)
+                .collect(Guavate.toImmutableList());
+        } finally {
+            EntityManagerUtils.safelyClose(entityManager);
+        }
+    }
+}
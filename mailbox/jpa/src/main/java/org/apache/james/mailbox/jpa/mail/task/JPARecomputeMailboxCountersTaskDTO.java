@@ -0,0 +1,54 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail.task;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class JPARecomputeMailboxCountersTaskDTO implements TaskDTO {
+    private static JPARecomputeMailboxCountersTaskDTO toDTO(JPARecomputeMailboxCountersTask domainObject, String typeName) {
+        return new JPARecomputeMailboxCountersTaskDTO(typeName);
+    }
+
+    public static TaskDTOModule<JPARecomputeMailboxCountersTask, JPARecomputeMailboxCountersTaskDTO> module(JPARecomputeMailboxCountersService service) {
+        return DTOModule
+            .forDomainObject(JPARecomputeMailboxCountersTask.class)
+            .convertToDTO(JPARecomputeMailboxCountersTaskDTO.class)
+            .toDomainObjectConverter(dto -> new JPARecomputeMailboxCountersTask(service))
+            .toDTOConverter(JPARecomputeMailboxCountersTaskDTO::toDTO)
+            .typeName(JPARecomputeMailboxCountersTask.RECOMPUTE_MAILBOX_COUNTERS.asString())
+            .withFactory(TaskDTOModule::new);
+    }
+
+    private final String type;
+
+    public JPARecomputeMailboxCountersTaskDTO(@JsonProperty("type") String type) {
+        this.type = type;
+    }
+
+    @Override
+    @JsonProperty("type")
+    public String getType() {
+        return type;
+    }
+}
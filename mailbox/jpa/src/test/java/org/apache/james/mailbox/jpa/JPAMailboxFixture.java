@@ -21,8 +21,11 @@ package org.apache.james.mailbox.jpa;
 
 import java.util.List;
 
+import org.apache.james.mailbox.jpa.mail.model.JPAApplicableFlag;
 import org.apache.james.mailbox.jpa.mail.model.JPAMailbox;
 import org.apache.james.mailbox.jpa.mail.model.JPAMailboxAnnotation;
+import org.apache.james.mailbox.jpa.mail.model.JPAMailboxCounters;
+import org.apache.james.mailbox.jpa.mail.model.JPAMessageBodyChunk;
 import org.apache.james.mailbox.jpa.mail.model.JPAProperty;
 import org.apache.james.mailbox.jpa.mail.model.JPAUserFlag;
 import org.apache.james.mailbox.jpa.mail.model.openjpa.AbstractJPAMailboxMessage;
@@ -47,6 +50,9 @@ public interface JPAMailboxFixture {
         JPAProperty.class,
         JPAUserFlag.class,
         JPAMailboxAnnotation.class,
+        JPAMailboxCounters.class,
+        JPAApplicableFlag.class,
+        JPAMessageBodyChunk.class,
         JPASubscription.class
     );
 
@@ -64,7 +70,10 @@ public interface JPAMailboxFixture {
         "JAMES_MAIL_USERFLAG",
         "JAMES_MAIL_PROPERTY",
         "JAMES_MAILBOX_ANNOTATION",
+        "JAMES_MAILBOX_COUNTERS",
+        "JAMES_MAILBOX_APPLICABLE_FLAG",
         "JAMES_MAILBOX",
+        "JAMES_MAIL_BODY_CHUNK",
         "JAMES_MAIL",
         "JAMES_SUBSCRIPTION");
 
@@ -0,0 +1,177 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.jpa.mail.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.james.backends.jpa.JpaTestCluster;
+import org.apache.james.backends.jpa.TransactionRunner;
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageManager;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.jpa.JPAId;
+import org.apache.james.mailbox.jpa.JPAMailboxFixture;
+import org.apache.james.mailbox.jpa.JpaMailboxManagerProvider;
+import org.apache.james.mailbox.model.Content;
+import org.apache.james.mailbox.model.FetchGroup;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageRange;
+import org.apache.james.mailbox.model.MessageResultIterator;
+import org.apache.james.mailbox.store.StoreMailboxManager;
+import org.apache.james.task.Task.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JPAMessageBodyMigrationServiceTest {
+    static final JpaTestCluster JPA_TEST_CLUSTER = JpaTestCluster.create(JPAMailboxFixture.MAILBOX_PERSISTANCE_CLASSES);
+    static final Username USER = Username.of("bob");
+    static final String SMALL_MESSAGE = "Subject: small\r\n\r\nBody";
+    static final String LARGE_MESSAGE = "Subject: large\r\n\r\n" + "0123456789\r\n".repeat(25 * 1024);
+
+    StoreMailboxManager mailboxManager;
+    MailboxId mailboxId;
+    TransactionRunner transactionRunner;
+    JPAMessageBodyMigrationService testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mailboxManager = JpaMailboxManagerProvider.provideMailboxManager(JPA_TEST_CLUSTER);
+        MailboxSession session = mailboxManager.createSystemSession(USER);
+        mailboxId = mailboxManager.createMailbox(MailboxPath.inbox(USER), session).get();
+        transactionRunner = new TransactionRunner(JPA_TEST_CLUSTER.getEntityManagerFactory());
+        testee = new JPAMessageBodyMigrationService(JPA_TEST_CLUSTER.getEntityManagerFactory());
+
+        MessageManager messageManager = mailboxManager.getMailbox(mailboxId, session);
+        messageManager.appendMessage(MessageManager.AppendCommand.builder().build(SMALL_MESSAGE), session);
+        messageManager.appendMessage(MessageManager.AppendCommand.builder().build(LARGE_MESSAGE), session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JPA_TEST_CLUSTER.clear(JPAMailboxFixture.MAILBOX_TABLE_NAMES);
+    }
+
+    @Test
+    void appendShouldStoreBodiesAsChunks() throws Exception {
+        assertThat(countBodyChunks()).isEqualTo(4);
+        assertThat(readFullContents()).containsExactly(SMALL_MESSAGE, LARGE_MESSAGE);
+    }
+
+    @Test
+    void chunkedBodiesShouldBeReadableByInterleavedStreams() throws Exception {
+        MailboxSession session = mailboxManager.createSystemSession(USER);
+        MessageResultIterator messages = mailboxManager.getMailbox(mailboxId, session)
+            .getMessages(MessageRange.one(MessageUid.of(2)), FetchGroup.FULL_CONTENT, session);
+        Content content = messages.next().getFullContent();
+
+        try (InputStream first = content.getInputStream();
+             InputStream second = content.getInputStream()) {
+            byte[] firstHalf = first.readNBytes(LARGE_MESSAGE.length() / 2);
+            String secondFull = IOUtils.toString(second, StandardCharsets.UTF_8);
+            String firstFull = new String(firstHalf, StandardCharsets.UTF_8) + IOUtils.toString(first, StandardCharsets.UTF_8);
+
+            assertThat(firstFull).isEqualTo(LARGE_MESSAGE);
+            assertThat(secondFull).isEqualTo(LARGE_MESSAGE);
+        }
+    }
+
+    @Test
+    void inlineBodiesShouldBeReadableBeforeMigration() throws Exception {
+        moveBodiesInline();
+
+        assertThat(readFullContents()).containsExactly(SMALL_MESSAGE, LARGE_MESSAGE);
+    }
+
+    @Test
+    void migrationShouldStoreInlineBodiesAsChunks() throws Exception {
+        moveBodiesInline();
+
+        Result result = testee.migrateMessageBodies(new JPAMessageBodyMigrationService.Context());
+
+        assertThat(result).isEqualTo(Result.COMPLETED);
+        assertThat(countBodyChunks()).isEqualTo(4);
+        assertThat(readFullContents()).containsExactly(SMALL_MESSAGE, LARGE_MESSAGE);
+    }
+
+    @Test
+    void migrationShouldUpdateTheContext() {
+        moveBodiesInline();
+        JPAMessageBodyMigrationService.Context context = new JPAMessageBodyMigrationService.Context();
+
+        testee.migrateMessageBodies(context);
+
+        assertThat(context.snapshot().getMigratedMessageCount()).isEqualTo(2);
+        assertThat(context.snapshot().getFailedMessageCount()).isZero();
+    }
+
+    @Test
+    void migrationShouldSkipMessagesAlreadyStoredAsChunks() throws Exception {
+        JPAMessageBodyMigrationService.Context context = new JPAMessageBodyMigrationService.Context();
+
+        testee.migrateMessageBodies(context);
+
+        assertThat(context.snapshot().getMigratedMessageCount()).isZero();
+        assertThat(countBodyChunks()).isEqualTo(4);
+        assertThat(readFullContents()).containsExactly(SMALL_MESSAGE, LARGE_MESSAGE);
+    }
+
+    private List<String> readFullContents() throws Exception {
+        MailboxSession session = mailboxManager.createSystemSession(USER);
+        MessageResultIterator messages = mailboxManager.getMailbox(mailboxId, session)
+            .getMessages(MessageRange.all(), FetchGroup.FULL_CONTENT, session);
+
+        List<String> contents = new ArrayList<>();
+        while (messages.hasNext()) {
+            contents.add(IOUtils.toString(messages.next().getFullContent().getInputStream(), StandardCharsets.UTF_8));
+        }
+        return contents;
+    }
+
+    private long countBodyChunks() {
+        return transactionRunner.runAndRetrieveResult(entityManager ->
+            entityManager.createQuery("SELECT COUNT(chunk) FROM MessageBodyChunk chunk", Long.class)
+                .getSingleResult());
+    }
+
+    /**
+     * Stores the bodies the way they were before bodies were chunked.
+     */
+    private void moveBodiesInline() {
+        transactionRunner.run(entityManager -> {
+            entityManager.createQuery("UPDATE MailboxMessage message SET message.body = :bodyParam, message.bodyChunkCount = NULL WHERE message.uid = 1")
+                .setParameter("bodyParam", "Body".getBytes(StandardCharsets.UTF_8))
+                .executeUpdate();
+            entityManager.createQuery("UPDATE MailboxMessage message SET message.body = :bodyParam, message.bodyChunkCount = NULL WHERE message.uid = 2")
+                .setParameter("bodyParam", LARGE_MESSAGE.substring(LARGE_MESSAGE.indexOf("\r\n\r\n") + 4).getBytes(StandardCharsets.UTF_8))
+                .executeUpdate();
+            entityManager.createNamedQuery("deleteMessageBodyChunksInMailbox")
+                .setParameter("idParam", ((JPAId) mailboxId).getRawId())
+                .executeUpdate();
+        });
+    }
+}
@@ -0,0 +1,161 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.jpa.mail.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.mail.Flags;
+
+import org.apache.james.backends.jpa.JpaTestCluster;
+import org.apache.james.backends.jpa.TransactionRunner;
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.FlagsBuilder;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageManager;
+import org.apache.james.mailbox.jpa.JPAId;
+import org.apache.james.mailbox.jpa.JPAMailboxFixture;
+import org.apache.james.mailbox.jpa.JpaMailboxManagerProvider;
+import org.apache.james.mailbox.jpa.mail.model.JPAMailboxCounters;
+import org.apache.james.mailbox.model.MailboxCounters;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.store.StoreMailboxManager;
+import org.apache.james.task.Task.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JPARecomputeMailboxCountersServiceTest {
+    static final JpaTestCluster JPA_TEST_CLUSTER = JpaTestCluster.create(JPAMailboxFixture.MAILBOX_PERSISTANCE_CLASSES);
+    static final Username USER = Username.of("bob");
+    static final String CUSTOM_FLAG = "custom";
+
+    StoreMailboxManager mailboxManager;
+    MailboxSession session;
+    MessageManager messageManager;
+    JPAId mailboxId;
+    TransactionRunner transactionRunner;
+    JPARecomputeMailboxCountersService testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mailboxManager = JpaMailboxManagerProvider.provideMailboxManager(JPA_TEST_CLUSTER);
+        session = mailboxManager.createSystemSession(USER);
+        MailboxId createdMailboxId = mailboxManager.createMailbox(MailboxPath.inbox(USER), session).get();
+        mailboxId = (JPAId) createdMailboxId;
+        messageManager = mailboxManager.getMailbox(createdMailboxId, session);
+        transactionRunner = new TransactionRunner(JPA_TEST_CLUSTER.getEntityManagerFactory());
+        testee = new JPARecomputeMailboxCountersService(JPA_TEST_CLUSTER.getEntityManagerFactory());
+
+        messageManager.appendMessage(MessageManager.AppendCommand.builder()
+            .withFlags(new Flags(Flags.Flag.SEEN))
+            .build("Subject: seen\r\n\r\nBody"), session);
+        messageManager.appendMessage(MessageManager.AppendCommand.builder()
+            .withFlags(new Flags(CUSTOM_FLAG))
+            .build("Subject: unseen\r\n\r\nBody"), session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JPA_TEST_CLUSTER.clear(JPAMailboxFixture.MAILBOX_TABLE_NAMES);
+    }
+
+    @Test
+    void countersShouldBeMaintainedUponAppend() throws Exception {
+        assertThat(messageManager.getMailboxCounters(session))
+            .isEqualTo(expectedCounters());
+    }
+
+    @Test
+    void countersShouldBeComputedFromMessagesWhenNotMaintained() throws Exception {
+        dropCountersAndApplicableFlags();
+
+        assertThat(messageManager.getMailboxCounters(session))
+            .isEqualTo(expectedCounters());
+    }
+
+    @Test
+    void recomputeShouldInitializeCountersWhenNotMaintained() throws Exception {
+        dropCountersAndApplicableFlags();
+
+        Result result = testee.recomputeMailboxCounters(new JPARecomputeMailboxCountersService.Context());
+
+        assertThat(result).isEqualTo(Result.COMPLETED);
+        assertThat(storedCounters().getMessageCount()).isEqualTo(2);
+        assertThat(storedCounters().getUnseenCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recomputeShouldFixWrongCounters() throws Exception {
+        transactionRunner.run(entityManager -> entityManager.merge(new JPAMailboxCounters(mailboxId.getRawId(), 36, 12)));
+
+        testee.recomputeMailboxCounters(new JPARecomputeMailboxCountersService.Context());
+
+        assertThat(messageManager.getMailboxCounters(session))
+            .isEqualTo(expectedCounters());
+    }
+
+    @Test
+    void recomputeShouldRestoreApplicableFlags() throws Exception {
+        dropCountersAndApplicableFlags();
+
+        testee.recomputeMailboxCounters(new JPARecomputeMailboxCountersService.Context());
+
+        assertThat(messageManager.getApplicableFlags(session))
+            .isEqualTo(FlagsBuilder.builder()
+                .add(Flags.Flag.ANSWERED, Flags.Flag.DELETED, Flags.Flag.DRAFT, Flags.Flag.FLAGGED, Flags.Flag.SEEN)
+                .add(CUSTOM_FLAG)
+                .build());
+    }
+
+    @Test
+    void recomputeShouldUpdateTheContext() {
+        JPARecomputeMailboxCountersService.Context context = new JPARecomputeMailboxCountersService.Context();
+
+        testee.recomputeMailboxCounters(context);
+
+        assertThat(context.snapshot().getProcessedMailboxCount()).isEqualTo(1);
+        assertThat(context.snapshot().getFailedMailboxes()).isEmpty();
+    }
+
+    private MailboxCounters expectedCounters() {
+        return MailboxCounters.builder()
+            .mailboxId(mailboxId)
+            .count(2)
+            .unseen(1)
+            .build();
+    }
+
+    private JPAMailboxCounters storedCounters() {
+        return transactionRunner.runAndRetrieveResult(entityManager ->
+            entityManager.find(JPAMailboxCounters.class, mailboxId.getRawId()));
+    }
+
+    private void dropCountersAndApplicableFlags() {
+        transactionRunner.run(entityManager -> {
+            entityManager.createNamedQuery("deleteMailboxCounters")
+                .setParameter("idParam", mailboxId.getRawId())
+                .executeUpdate();
+            entityManager.createNamedQuery("deleteApplicableFlags")
+                .setParameter("idParam", mailboxId.getRawId())
+                .executeUpdate();
+        });
+    }
+}
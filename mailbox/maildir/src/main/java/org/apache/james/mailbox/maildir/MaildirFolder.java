@@ -18,31 +18,24 @@
  ****************************************************************/
 package org.apache.james.mailbox.maildir;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.james.mailbox.MailboxPathLocker;
 import org.apache.james.mailbox.MailboxPathLocker.LockAwareExecution;
 import org.apache.james.mailbox.MailboxSession;
@@ -54,11 +47,14 @@ import org.apache.james.mailbox.model.MailboxACL.EntryKey;
 import org.apache.james.mailbox.model.MailboxACL.Rfc4314Rights;
 import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.model.UidValidity;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
 
 public class MaildirFolder {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MaildirFolder.class);
+    @FunctionalInterface
+    private interface IndexOperation<T> {
+        T execute(MaildirIndex index) throws IOException;
+    }
 
     public static final String VALIDITY_FILE = "james-uidvalidity";
     public static final String UIDLIST_FILE = "james-uidlist";
@@ -67,23 +63,25 @@ public class MaildirFolder {
     public static final String CUR = "cur";
     public static final String NEW = "new";
     public static final String TMP = "tmp";
-    
+
+    private static final FilenameFilter ALL_MESSAGES = (dir, name) -> true;
+    private static final int NO_LIMIT = 0;
+
     private final File rootFolder;
     private final File curFolder;
     private final File newFolder;
     private final File tmpFolder;
-    private final File uidFile;
     private final File aclFile;
     private final File mailboxIdFile;
 
-    private Optional<MessageUid> lastUid;
-    private int messageCount = 0;
     private Optional<UidValidity> uidValidity = Optional.empty();
     private MailboxACL acl;
     private boolean messageNameStrictParse = false;
 
     private final MailboxPathLocker locker;
 
+    private final MaildirIndex index;
+
     private final MailboxPath path;
     
     /**
@@ -92,16 +90,19 @@ public class MaildirFolder {
      * @param absPath The absolute path of the mailbox folder
      */
     public MaildirFolder(String absPath, MailboxPath path, MailboxPathLocker locker) {
+        this(absPath, path, locker, new MaildirIndex(new File(absPath)));
+    }
+
+    MaildirFolder(String absPath, MailboxPath path, MailboxPathLocker locker, MaildirIndex index) {
         this.rootFolder = new File(absPath);
         this.curFolder = new File(rootFolder, CUR);
         this.newFolder = new File(rootFolder, NEW);
         this.tmpFolder = new File(rootFolder, TMP);
-        this.uidFile = new File(rootFolder, UIDLIST_FILE);
         this.aclFile = new File(rootFolder, ACL_FILE);
         this.mailboxIdFile = new File(rootFolder, MAILBOX_ID_FILE);
         this.locker = locker;
         this.path = path;
-        this.lastUid = Optional.empty();
+        this.index = index;
     }
 
     private MaildirMessageName newMaildirMessageName(MaildirFolder folder, String fullName) {
@@ -145,21 +146,6 @@ public class MaildirFolder {
         return rootFolder.isDirectory() && curFolder.isDirectory() && newFolder.isDirectory() && tmpFolder.isDirectory();
     }
     
-    /**
-     * Checks whether the folder's contents have been changed after
-     * the uidfile has been created.
-     * @return true if the contents have been changed.
-     */
-    private boolean isModified() {
-        long uidListModified = uidFile.lastModified();
-        long curModified = curFolder.lastModified();
-        long newModified = newFolder.lastModified();
-        // because of bad time resolution of file systems we also check "equals"
-        if (curModified >= uidListModified || newModified >= uidListModified) {
-            return true;
-        }
-        return false;
-    }
     
     /**
      * Returns the ./cur folder of this Maildir folder.
@@ -189,23 +175,11 @@ public class MaildirFolder {
         return tmpFolder;
     }
     
-    /**
-     * Returns the nextUid value and increases it.
-     */
-    private MessageUid getNextUid() {
-        MessageUid nextUid = lastUid.map(MessageUid::next).orElse(MessageUid.MIN_VALUE);
-        lastUid = Optional.of(nextUid);
-        return nextUid;
-    }
-    
     /**
      * Returns the last uid used in this mailbox
      */
     public Optional<MessageUid> getLastUid() throws MailboxException {
-        if (!lastUid.isPresent()) {
-            readLastUid();
-        }
-        return lastUid;
+        return readIndex(MaildirIndex::isUidListUpToDate, MaildirIndex::getLastUid, "Unable to read last uid");
     }
     
     public ModSeq getHighestModSeq() throws IOException {
@@ -217,35 +191,6 @@ public class MaildirFolder {
         return ModSeq.of(Math.max(newModified, curModified));
     }
 
-    /**
-     * Read the lastUid of the given mailbox from the file system.
-     *
-     * @throws MailboxException if there are problems with the uidList file
-     */
-    private void readLastUid() throws MailboxException {
-        locker.executeWithLock(path,
-            (LockAwareExecution<Void>) () -> {
-            File uidList = uidFile;
-
-            if (!uidList.exists()) {
-                createUidFile();
-            }
-            try (FileReader fileReader = new FileReader(uidList);
-                 BufferedReader reader = new BufferedReader(fileReader)) {
-
-                String line = reader.readLine();
-                if (line != null) {
-                    readUidListHeader(line);
-                }
-                return null;
-            } catch (IOException e) {
-                throw new MailboxException("Unable to read last uid", e);
-            }
-        }, MailboxPathLocker.LockType.Write);
-        
-        
-    }
-
     /**
      * Returns the uidValidity of this mailbox
      * @return The uidValidity
@@ -362,37 +307,9 @@ public class MaildirFolder {
      * @throws MailboxException If the uidlist file cannot be found or read
      */
     public MaildirMessageName getMessageNameByUid(final MessageUid uid) throws MailboxException {
-       
-        return locker.executeWithLock(path, () -> {
-            File uidList = uidFile;
-            try (FileReader fileReader = new FileReader(uidList);
-                 BufferedReader reader = new BufferedReader(fileReader)) {
-
-                String uidString = String.valueOf(uid.asLong());
-                String line = reader.readLine(); // the header
-                int lineNumber = 1; // already read the first line
-                while ((line = reader.readLine()) != null) {
-                    lineNumber++;
-                    if (!line.equals("")) {
-                        int gap = line.indexOf(" ");
-                        if (gap == -1) {
-                            // there must be some issues in the file if no gap can be found
-                            LOGGER.info("Corrupted entry in uid-file {} line {}", uidList, lineNumber);
-                            continue;
-                        }
-
-                        if (line.substring(0, gap).equals(uidString)) {
-                            return newMaildirMessageName(MaildirFolder.this, line.substring(gap + 1));
-                        }
-                    }
-                }
-
-                // TODO: Is this right!?
-                return null;
-            } catch (IOException e) {
-                throw new MailboxException("Unable to read messagename for uid " + uid, e);
-            }
-        }, MailboxPathLocker.LockType.Write);
+        return readIndex(index -> index.getName(uid), "Unable to read messagename for uid " + uid)
+            .map(name -> newMaildirMessageName(MaildirFolder.this, name))
+            .orElse(null);
     }
     
     /**
@@ -400,49 +317,20 @@ public class MaildirFolder {
      * a sorted map together with their corresponding {@link MaildirMessageName}s.
      *
      * @param from The lower uid limit
-     * @param to The upper uid limit. <code>-1</code> disables the upper limit
+     * @param to The upper uid limit. <code>null</code> disables the upper limit
      * @return a {@link Map} whith all uids in the given range and associated {@link MaildirMessageName}s
      * @throws MailboxException if there is a problem with the uid list file
      */
     public SortedMap<MessageUid, MaildirMessageName> getUidMap(final MessageUid from, final MessageUid to)
     throws MailboxException {
-        return locker.executeWithLock(path, () -> {
-            final SortedMap<MessageUid, MaildirMessageName> uidMap = new TreeMap<>();
-
-            File uidList = uidFile;
-
-            if (uidList.isFile()) {
-                if (isModified()) {
-                    try {
-                        uidMap.putAll(truncateMap(updateUidFile(), from, to));
-                    } catch (MailboxException e) {
-                        // weird case if someone deleted the uidlist after
-                        // checking its
-                        // existence and before trying to update it.
-                        uidMap.putAll(truncateMap(createUidFile(), from, to));
-                    }
-                } else {
-                    // the uidList is up to date
-                    uidMap.putAll(readUidFile(from, to));
-                }
-            } else {
-                // the uidList does not exist
-                uidMap.putAll(truncateMap(createUidFile(), from, to));
-            }
-            return uidMap;
-        }, MailboxPathLocker.LockType.Write);
+        return readIndex(index -> toMessageNames(index.getNames(from, Optional.ofNullable(to)), ALL_MESSAGES, NO_LIMIT),
+            "Unable to read uid file");
     }
     
     public SortedMap<MessageUid, MaildirMessageName> getUidMap(MailboxSession session, FilenameFilter filter, MessageUid from, MessageUid to)
     throws MailboxException {
-        SortedMap<MessageUid, MaildirMessageName> allUids = getUidMap(from, to);
-        SortedMap<MessageUid, MaildirMessageName> filteredUids = new TreeMap<>();
-        for (Entry<MessageUid, MaildirMessageName> entry : allUids.entrySet()) {
-            if (filter.accept(null, entry.getValue().getFullName())) {
-                filteredUids.put(entry.getKey(), entry.getValue());
-            }
-        }
-        return filteredUids;
+        return readIndex(index -> toMessageNames(index.getNames(from, Optional.ofNullable(to)), filter, NO_LIMIT),
+            "Unable to read uid file");
     }
     
     /**
@@ -456,24 +344,8 @@ public class MaildirFolder {
      * @throws MailboxException if there is a problem with the uid list file
      */
     public SortedMap<MessageUid, MaildirMessageName> getUidMap(FilenameFilter filter, int limit) throws MailboxException {
-        MessageUid to = null;
-        SortedMap<MessageUid, MaildirMessageName> allUids = getUidMap(MessageUid.MIN_VALUE, to);
-        SortedMap<MessageUid, MaildirMessageName> filteredUids = new TreeMap<>();
-        int theLimit = limit;
-        if (limit < 1) {
-            theLimit = allUids.size();
-        }
-        int counter = 0;
-        for (Entry<MessageUid, MaildirMessageName> entry : allUids.entrySet()) {
-            if (counter >= theLimit) {
-                break;
-            }
-            if (filter.accept(null, entry.getValue().getFullName())) {
-                filteredUids.put(entry.getKey(), entry.getValue());
-                counter++;
-            }
-        }
-        return filteredUids;
+        return readIndex(index -> toMessageNames(index.getNames(MessageUid.MIN_VALUE, Optional.empty()), filter, limit),
+            "Unable to read uid file");
     }
     
     /**
@@ -483,257 +355,90 @@ public class MaildirFolder {
      * @throws MailboxException If there is a problem with the uid list file
      */
     public SortedMap<MessageUid, MaildirMessageName> getRecentMessages() throws MailboxException {
-        final String[] recentFiles = getNewFolder().list();
-        final LinkedList<String> lines = new LinkedList<>();
-        final int theLimit = recentFiles.length;
-        return locker.executeWithLock(path, () -> {
-            final SortedMap<MessageUid, MaildirMessageName> recentMessages = new TreeMap<>();
-
-            File uidList = uidFile;
-
-            try {
-                if (!uidList.isFile()) {
-                    if (!uidList.createNewFile()) {
-                        throw new IOException("Could not create file " + uidList);
-                    }
-                    String[] curFiles = curFolder.list();
-                    String[] newFiles = newFolder.list();
-                    messageCount = curFiles.length + newFiles.length;
-                    String[] allFiles = ArrayUtils.addAll(curFiles, newFiles);
-                    for (String file : allFiles) {
-                        lines.add(String.valueOf(getNextUid().asLong()) + " " + file);
-                    }
-
-                    try (PrintWriter pw = new PrintWriter(uidList)) {
-                        pw.println(createUidListHeader());
-                        for (String line : lines) {
-                            pw.println(line);
-                        }
-                    }
-                } else {
-                    try (FileReader fileReader = new FileReader(uidList);
-                        BufferedReader reader = new BufferedReader(fileReader)) {
-
-                            reader.readLine();
-                            // the first line in the file contains the next uid and message count
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                lines.add(line);
-                            }
-                        }
-                }
-                int counter = 0;
-                String line;
-                while (counter < theLimit) {
-                    // walk backwards as recent files are supposedly recent
-                    try {
-                        line = lines.removeLast();
-                    } catch (NoSuchElementException e) {
-                        break; // the list is empty
-                    }
-                    if (!line.equals("")) {
-                        int gap = line.indexOf(" ");
-                        if (gap == -1) {
-                            // there must be some issues in the file if no gap can be found
-                            // there must be some issues in the file if no gap can be found
-                            LOGGER.info("Corrupted entry in uid-file {} line {}", uidList, lines.size());
-                            continue;
-                        }
-
-                        MessageUid uid = MessageUid.of(Long.parseLong(line.substring(0, gap)));
-                        String name = line.substring(gap + 1);
-                        for (String recentFile : recentFiles) {
-                            if (recentFile.equals(name)) {
-                                recentMessages.put(uid, newMaildirMessageName(MaildirFolder.this, recentFile));
-                                counter++;
-                                break;
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                throw new MailboxException("Unable to read recent messages", e);
+        return readIndex(index -> {
+            String[] recentFiles = newFolder.list();
+            if (recentFiles == null) {
+                throw new IOException("Not a valid Maildir folder: " + rootFolder);
             }
-            return recentMessages;
-        }, MailboxPathLocker.LockType.Write);
+            Set<String> recentNames = ImmutableSet.copyOf(recentFiles);
+            return toMessageNames(index.getNames(MessageUid.MIN_VALUE, Optional.empty()),
+                (dir, name) -> recentNames.contains(name), NO_LIMIT);
+        }, "Unable to read recent messages");
     }
-    
-    
+
     /**
-     * Creates and returns a uid map (uid -> {@link MaildirMessageName}) and writes it to the disk
-     * @return The uid map
+     * Returns the number of messages in this folder.
      */
-    private Map<MessageUid, MaildirMessageName> createUidFile() throws MailboxException {
-        final Map<MessageUid, MaildirMessageName> uidMap = new TreeMap<>();
-        File uidList = uidFile;
-        try {
-            if (!uidList.createNewFile()) {
-                throw new IOException("Could not create file " + uidList);
-            }
-            lastUid = Optional.empty();
-            String[] curFiles = curFolder.list();
-            String[] newFiles = newFolder.list();
-            messageCount = curFiles.length + newFiles.length;
-            String[] allFiles = (String[]) ArrayUtils.addAll(curFiles, newFiles);
-            for (String file : allFiles) {
-                uidMap.put(getNextUid(), newMaildirMessageName(MaildirFolder.this, file));
-            }
-            try (PrintWriter pw = new PrintWriter(uidList)) {
-                pw.println(createUidListHeader());
-                for (Entry<MessageUid, MaildirMessageName> entry : uidMap.entrySet()) {
-                    pw.println(String.valueOf(entry.getKey().asLong()) + " " + entry.getValue().getFullName());
-                }
-            }
-        } catch (IOException e) {
-            throw new MailboxException("Unable to create uid file", e);
-        }
-
-        return uidMap;
-    }
-    
-    private Map<MessageUid, MaildirMessageName> updateUidFile() throws MailboxException {
-        final Map<MessageUid, MaildirMessageName> uidMap = new TreeMap<>();
-        File uidList = uidFile;
-        String[] curFiles = curFolder.list();
-        String[] newFiles = newFolder.list();
-        messageCount = curFiles.length + newFiles.length;
-        HashMap<String, MessageUid> reverseUidMap = new HashMap<>(messageCount);
-        try (FileReader fileReader = new FileReader(uidList);
-            BufferedReader reader = new BufferedReader(fileReader)) {
-            String line = reader.readLine();
-            // the first line in the file contains the next uid and message count
-            if (line != null) {
-                readUidListHeader(line);
-            }
-            int lineNumber = 1; // already read the first line
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                if (!line.equals("")) {
-                    int gap = line.indexOf(" ");
-                    if (gap == -1) {
-                        // there must be some issues in the file if no gap can be found
-                        throw new MailboxException("Corrupted entry in uid-file " + uidList + " line " + lineNumber);
-                    }
-                    MessageUid uid = MessageUid.of(Long.parseLong(line.substring(0, gap)));
-                    String name = line.substring(gap + 1);
-                    reverseUidMap.put(stripMetaFromName(name), uid);
-                }
-            }
-            String[] allFiles = (String[]) ArrayUtils.addAll(curFiles, newFiles);
-            for (String file : allFiles) {
-                MaildirMessageName messageName = newMaildirMessageName(MaildirFolder.this, file);
-                MessageUid uid = reverseUidMap.get(messageName.getBaseName());
-                if (uid == null) {
-                    uid = getNextUid();
-                }
-                uidMap.put(uid, messageName);
-            }
-            try (PrintWriter pw = new PrintWriter(uidList)) {
-                pw.println(createUidListHeader());
-                for (Entry<MessageUid, MaildirMessageName> entry : uidMap.entrySet()) {
-                    pw.println(String.valueOf(entry.getKey().asLong()) + " " + entry.getValue().getFullName());
-                }
-            }
-        } catch (IOException e) {
-            throw new MailboxException("Unable to update uid file", e);
-        }
-        return uidMap;
+    public long countMessages() throws MailboxException {
+        return readIndex(index -> (long) index.count(), "Unable to count messages");
     }
 
-    private Map<MessageUid, MaildirMessageName> readUidFile(MessageUid from, MessageUid to) throws MailboxException {
-        final Map<MessageUid, MaildirMessageName> uidMap = new HashMap<>();
-
-        File uidList = uidFile;
-        try (FileReader fileReader = new FileReader(uidList);
-            BufferedReader reader = new BufferedReader(fileReader)) {
+    /**
+     * Returns the number of messages in this folder whose file name matches the given filter.
+     * The dir argument to {@link FilenameFilter}.accept(dir, name) will always be null.
+     */
+    public long countMessages(FilenameFilter filter) throws MailboxException {
+        return readIndex(index -> index.count(name -> filter.accept(null, name)), "Unable to count messages");
+    }
 
-            String line = reader.readLine();
-            // the first line in the file contains the next uid and message
-            // count
-            if (line != null) {
-                readUidListHeader(line);
+    private SortedMap<MessageUid, MaildirMessageName> toMessageNames(Map<MessageUid, String> names, FilenameFilter filter, int limit) {
+        SortedMap<MessageUid, MaildirMessageName> uidMap = new TreeMap<>();
+        for (Entry<MessageUid, String> entry : names.entrySet()) {
+            if (limit > NO_LIMIT && uidMap.size() >= limit) {
+                break;
             }
-            int lineNumber = 1; // already read the first line
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                if (!line.equals("")) {
-                    int gap = line.indexOf(" ");
-
-                    if (gap == -1) {
-                        // there must be some issues in the file if no gap can be found
-                        LOGGER.info("Corrupted entry in uid-file {} line {}", uidList, lineNumber);
-                        continue;
-                    }
-                    
-                    MessageUid uid = MessageUid.of(Long.parseLong(line.substring(0, gap)));
-                    if (uid.compareTo(from) >= 0) {
-                        if (to != null && uid.compareTo(to) > 0) {
-                            break;
-                        }
-                        String name = line.substring(gap + 1);
-                        uidMap.put(uid, newMaildirMessageName(MaildirFolder.this, name));
-                    }
-                }
+            if (filter.accept(null, entry.getValue())) {
+                uidMap.put(entry.getKey(), newMaildirMessageName(MaildirFolder.this, entry.getValue()));
             }
-        } catch (IOException e) {
-            throw new MailboxException("Unable to read uid file", e);
         }
-        messageCount = uidMap.size();
-
         return uidMap;
     }
-    
+
     /**
-     * Sorts the given map and returns a subset which is constricted by a lower and an upper limit.
-     * @param map The source map
-     * @param from The lower limit
-     * @param to The upper limit; <code>-1</code> disables the upper limit.
-     * @return The sorted subset
+     * Reads the index under the read lock of this folder. Readers fall back to the write lock when the index might not
+     * reflect the file system anymore, in order to synchronize it first.
      */
-    private SortedMap<MessageUid, MaildirMessageName> truncateMap(Map<MessageUid, MaildirMessageName> map, MessageUid from, MessageUid to) {
-        TreeMap<MessageUid, MaildirMessageName> sortedMap;
-        if (map instanceof TreeMap<?, ?>) {
-            sortedMap = (TreeMap<MessageUid, MaildirMessageName>) map;
-        } else {
-            sortedMap = new TreeMap<>(map);
-        }
-        if (to != null) {
-            return sortedMap.subMap(from, to.next());
-        }
-        return sortedMap.tailMap(from);
+    private <T> T readIndex(IndexOperation<T> operation, String errorMessage) throws MailboxException {
+        return readIndex(MaildirIndex::isUpToDate, operation, errorMessage);
     }
-    
-    /**
-     * Parses the header line in uid list files.
-     * The format is: version lastUid messageCount (e.g. 1 615 273)
-     * @param line The raw header line
-     */
-    private void readUidListHeader(String line) throws IOException {
-        if (line == null) {
-            throw new IOException("Header entry in uid-file is null");
-        }
-        int gap1 = line.indexOf(" ");
-        if (gap1 == -1) {
-            // there must be some issues in the file if no gap can be found
-            throw new IOException("Corrupted header entry in uid-file");
-            
-        }
-        int version = Integer.parseInt(line.substring(0, gap1));
-        if (version != 1) {
-            throw new IOException("Cannot read uidlists with versions other than 1.");
+
+    private <T> T readIndex(IndexOperation<Boolean> isUpToDate, IndexOperation<T> operation, String errorMessage) throws MailboxException {
+        Optional<T> result = locker.executeWithLock(path, () -> {
+            try {
+                if (isUpToDate.execute(index)) {
+                    return Optional.of(operation.execute(index));
+                }
+                return Optional.empty();
+            } catch (IOException e) {
+                throw new MailboxException(errorMessage, e);
+            }
+        }, MailboxPathLocker.LockType.Read);
+        if (result.isPresent()) {
+            return result.get();
         }
-        int gap2 = line.indexOf(" ", gap1 + 1);
-        lastUid = Optional.of(MessageUid.of(Long.parseLong(line.substring(gap1 + 1, gap2))));
-        messageCount = Integer.parseInt(line.substring(gap2 + 1));
+        return locker.executeWithLock(path, () -> {
+            try {
+                if (!isUpToDate.execute(index)) {
+                    index.synchronize();
+                }
+                return operation.execute(index);
+            } catch (IOException e) {
+                throw new MailboxException(errorMessage, e);
+            }
+        }, MailboxPathLocker.LockType.Write);
     }
-    
-    /**
-     * Creates a line to put as a header in the uid list file.
-     * @return the line which ought to be the header
-     */
-    private String createUidListHeader() {
-        Long last = lastUid.map(MessageUid::asLong).orElse(0L);
-        return "1 " + String.valueOf(last) + " " + String.valueOf(messageCount);
+
+    private <T> T writeIndex(IndexOperation<T> operation, String errorMessage) throws MailboxException {
+        return locker.executeWithLock(path, () -> {
+            try {
+                if (!index.isUidListUpToDate()) {
+                    index.synchronize();
+                }
+                return operation.execute(index);
+            } catch (IOException e) {
+                throw new MailboxException(errorMessage, e);
+            }
+        }, MailboxPathLocker.LockType.Write);
     }
     
     /**
@@ -759,99 +464,17 @@ public class MaildirFolder {
      * @return The uid of the message
      */
     public MessageUid appendMessage(final String name) throws MailboxException {
-        return locker.executeWithLock(path, () -> {
-            File uidList = uidFile;
-            MessageUid uid = null;
-            try {
-                if (uidList.isFile()) {
-                    try (FileReader fileReader = new FileReader(uidList);
-                        BufferedReader reader = new BufferedReader(fileReader)) {
-                        String line = reader.readLine();
-                        // the first line in the file contains the next uid and message count
-                        if (line != null) {
-                            readUidListHeader(line);
-                        }
-                        ArrayList<String> lines = new ArrayList<>();
-                        while ((line = reader.readLine()) != null) {
-                            lines.add(line);
-                        }
-                        uid = getNextUid();
-                        lines.add(String.valueOf(uid.asLong()) + " " + name);
-                        messageCount++;
-                        try (PrintWriter pw = new PrintWriter(uidList)) {
-                            pw.println(createUidListHeader());
-                            for (String entry : lines) {
-                                pw.println(entry);
-                            }
-                        }
-                    }
-                } else {
-                    // create the file
-                    if (!uidList.createNewFile()) {
-                        throw new IOException("Could not create file " + uidList);
-                    }
-                    String[] curFiles = curFolder.list();
-                    String[] newFiles = newFolder.list();
-                    messageCount = curFiles.length + newFiles.length;
-                    ArrayList<String> lines = new ArrayList<>();
-                    String[] allFiles = (String[]) ArrayUtils.addAll(curFiles, newFiles);
-                    for (String file : allFiles) {
-                        MessageUid theUid = getNextUid();
-                        lines.add(String.valueOf(theUid.asLong()) + " " + file);
-                        // the listed names already include the message to append
-                        if (file.equals(name)) {
-                            uid = theUid;
-                        }
-                    }
-                    try (PrintWriter pw = new PrintWriter(uidList)) {
-                        pw.println(createUidListHeader());
-                        for (String line : lines) {
-                            pw.println(line);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                throw new MailboxException("Unable to append msg", e);
-            }
-            if (uid == null) {
-                throw new MailboxException("Unable to append msg");
-            } else {
-               return uid;
-            }
-        }, MailboxPathLocker.LockType.Write);
-
+        return writeIndex(index -> index.append(name), "Unable to append msg");
     }
 
     /**
      * Updates an entry in the uid list.
      */
     public void update(final MessageUid uid, final String messageName) throws MailboxException {
-        locker.executeWithLock(path, (LockAwareExecution<Void>) () -> {
-            File uidList = uidFile;
-            try (FileReader fileReader = new FileReader(uidList);
-                BufferedReader reader = new BufferedReader(fileReader)) {
-
-                String line = reader.readLine();
-                readUidListHeader(line);
-                ArrayList<String> lines = new ArrayList<>();
-                while ((line = reader.readLine()) != null) {
-                    if (uid.equals(MessageUid.of(Long.parseLong(line.substring(0, line.indexOf(" ")))))) {
-                        line = String.valueOf(uid.asLong()) + " " + messageName;
-                    }
-                    lines.add(line);
-                }
-                try (PrintWriter writer = new PrintWriter(uidList)) {
-                    writer.println(createUidListHeader());
-                    for (String entry : lines) {
-                        writer.println(entry);
-                    }
-                }
-            } catch (IOException e) {
-                throw new MailboxException("Unable to update msg with uid " + uid, e);
-            }
+        writeIndex(index -> {
+            index.update(uid, messageName);
             return null;
-        }, MailboxPathLocker.LockType.Write);
-
+        }, "Unable to update msg with uid " + uid);
     }
     
     /**
@@ -862,53 +485,18 @@ public class MaildirFolder {
      * @throws MailboxException If the file cannot be deleted of there is a problem with the uid list
      */
     public MaildirMessageName delete(final MessageUid uid) throws MailboxException {
-        return locker.executeWithLock(path, () -> {
-            File uidList = uidFile;
-            MaildirMessageName deletedMessage = null;
-            try (FileReader fileReader = new FileReader(uidList);
-                BufferedReader reader = new BufferedReader(fileReader)) {
-
-                readUidListHeader(reader.readLine());
-
-                // It may be possible that message count is 0 so we should better not try to calculate the size of the ArrayList
-                ArrayList<String> lines = new ArrayList<>();
-                String line;
-                int lineNumber = 0;
-                while ((line = reader.readLine()) != null) {
-                    lineNumber++;
-                    int gap = line.indexOf(" ");
-                    if (gap == -1) {
-                        // there must be some issues in the file if no gap can be found
-                        LOGGER.info("Corrupted entry in uid-file {} line {}", uidList, lineNumber);
-                        continue;
-                    }
-
-                    if (uid.equals(MessageUid.of(Long.parseLong(line.substring(0, line.indexOf(" ")))))) {
-                        deletedMessage = newMaildirMessageName(MaildirFolder.this, line.substring(gap + 1));
-                        messageCount--;
-                    } else {
-                        lines.add(line);
-                    }
-                }
-                if (deletedMessage != null) {
-                    FileUtils.forceDelete(deletedMessage.getFile());
-                    try (PrintWriter writer = new PrintWriter(uidList)) {
-                        writer.println(createUidListHeader());
-                        for (String entry : lines) {
-                            writer.println(entry);
-                        }
-                    }
-                }
-                return deletedMessage;
-
-            } catch (IOException e) {
-                throw new MailboxException("Unable to delete msg with uid " + uid, e);
+        return writeIndex(index -> {
+            Optional<MaildirMessageName> deletedMessage = index.getName(uid)
+                .map(name -> newMaildirMessageName(MaildirFolder.this, name));
+            if (deletedMessage.isPresent()) {
+                FileUtils.forceDelete(deletedMessage.get().getFile());
+                index.remove(uid);
             }
-        }, MailboxPathLocker.LockType.Write);
-        
-
+            return deletedMessage.orElse(null);
+        }, "Unable to delete msg with uid " + uid);
     }
     
+    
     /** 
      * The absolute path of this folder.
      */
@@ -944,7 +532,7 @@ public class MaildirFolder {
 
             return new MailboxACL(props);
 
-        }, MailboxPathLocker.LockType.Write);
+        }, MailboxPathLocker.LockType.Read);
         
     }
     
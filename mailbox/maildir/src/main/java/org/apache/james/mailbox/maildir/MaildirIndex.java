@@ -0,0 +1,469 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.maildir;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.james.mailbox.MessageUid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * In memory copy of the uid list of a maildir folder, shared by the {@link MaildirFolder} instances of this folder.
+ *
+ * Changes are appended to the uid list file instead of rewriting it: a line made of a uid and a name adds or renames
+ * a message, a line made of a uid only removes it. The file is compacted once stale lines outnumber live ones.
+ *
+ * Changes done by other processes are detected by comparing the attributes of the uid list and of the cur and new
+ * folders with the ones observed on the last synchronization. As file system timestamps have a limited granularity,
+ * an observation made right after a modification of the folders is not trusted.
+ *
+ * The index is expected to be modified while holding the write lock of its mailbox, and read while holding at least
+ * its read lock.
+ */
+class MaildirIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaildirIndex.class);
+
+    static final int VERSION = 2;
+    static final int MIN_STALE_LINES_BEFORE_COMPACTION = 1000;
+    private static final int LEGACY_VERSION = 1;
+    private static final Duration TIMESTAMP_GRANULARITY = Duration.ofSeconds(1);
+    private static final String COMPACTION_SUFFIX = ".compaction";
+
+    private static class FileState {
+        private static final FileState ABSENT = new FileState(FileTime.fromMillis(0), -1, null);
+
+        static FileState of(Path path) throws IOException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileState(attributes.lastModifiedTime(), attributes.size(), attributes.fileKey());
+            } catch (NoSuchFileException e) {
+                return ABSENT;
+            }
+        }
+
+        private final FileTime lastModified;
+        private final long size;
+        private final Object fileKey;
+
+        private FileState(FileTime lastModified, long size, Object fileKey) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.fileKey = fileKey;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof FileState) {
+                FileState that = (FileState) o;
+
+                return Objects.equals(this.lastModified, that.lastModified)
+                    && Objects.equals(this.size, that.size)
+                    && Objects.equals(this.fileKey, that.fileKey);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(lastModified, size, fileKey);
+        }
+    }
+
+    /**
+     * States of the files backing the index. Folder states are empty when they need to be listed again.
+     */
+    private static class Observation {
+        private final FileState uidList;
+        private final Optional<FileState> curFolder;
+        private final Optional<FileState> newFolder;
+        private final long observedAt;
+
+        private Observation(FileState uidList, Optional<FileState> curFolder, Optional<FileState> newFolder, long observedAt) {
+            this.uidList = uidList;
+            this.curFolder = curFolder;
+            this.newFolder = newFolder;
+            this.observedAt = observedAt;
+        }
+
+        Observation withUnknownFolders(FileState uidList) {
+            return new Observation(uidList, Optional.empty(), Optional.empty(), observedAt);
+        }
+
+        boolean isTrusted() {
+            return curFolder.isPresent() && newFolder.isPresent()
+                && observedAt - lastModified(curFolder.get()) >= TIMESTAMP_GRANULARITY.toMillis()
+                && observedAt - lastModified(newFolder.get()) >= TIMESTAMP_GRANULARITY.toMillis();
+        }
+
+        private long lastModified(FileState folder) {
+            return folder.lastModified.toMillis();
+        }
+    }
+
+    private final File curFolder;
+    private final File newFolder;
+    private final Path uidList;
+    private final ConcurrentSkipListMap<MessageUid, String> names;
+    private final Map<String, MessageUid> uidsByBaseName;
+    private volatile Optional<MessageUid> lastUid;
+    private volatile int messageCount;
+    private volatile Optional<Observation> observation;
+    private int lineCount;
+    private boolean rewriteNeeded;
+
+    MaildirIndex(File rootFolder) {
+        this.curFolder = new File(rootFolder, MaildirFolder.CUR);
+        this.newFolder = new File(rootFolder, MaildirFolder.NEW);
+        this.uidList = new File(rootFolder, MaildirFolder.UIDLIST_FILE).toPath();
+        this.names = new ConcurrentSkipListMap<>();
+        this.uidsByBaseName = new HashMap<>();
+        this.lastUid = Optional.empty();
+        this.observation = Optional.empty();
+    }
+
+    /**
+     * Returns whether the index reflects both the uid list and the content of the cur and new folders.
+     */
+    boolean isUpToDate() throws IOException {
+        Optional<Observation> current = observation;
+        return current.isPresent()
+            && current.get().isTrusted()
+            && current.get().uidList.equals(FileState.of(uidList))
+            && current.get().curFolder.get().equals(FileState.of(curFolder.toPath()))
+            && current.get().newFolder.get().equals(FileState.of(newFolder.toPath()));
+    }
+
+    /**
+     * Returns whether the index reflects the uid list, regardless of messages added or removed by other processes
+     * since the last synchronization.
+     */
+    boolean isUidListUpToDate() throws IOException {
+        Optional<Observation> current = observation;
+        return current.isPresent()
+            && current.get().uidList.equals(FileState.of(uidList));
+    }
+
+    /**
+     * Reloads the uid list if it changed, then reconciles the index with the content of the cur and new folders:
+     * new files are given a uid, missing ones are removed and renamed ones are updated.
+     */
+    synchronized void synchronize() throws IOException {
+        if (!isUidListUpToDate()) {
+            load();
+        }
+        long observedAt = System.currentTimeMillis();
+        FileState curState = FileState.of(curFolder.toPath());
+        FileState newState = FileState.of(newFolder.toPath());
+        String[] curFiles = curFolder.list();
+        String[] newFiles = newFolder.list();
+        if (curFiles == null || newFiles == null) {
+            throw new IOException("Not a valid Maildir folder: " + curFolder.getParent());
+        }
+
+        List<String> changes = reconcile(ArrayUtils.addAll(curFiles, newFiles));
+        if (rewriteNeeded) {
+            compact();
+        } else {
+            write(changes);
+        }
+        observation = Optional.of(new Observation(FileState.of(uidList), Optional.of(curState), Optional.of(newState), observedAt));
+    }
+
+    Optional<MessageUid> getLastUid() {
+        return lastUid;
+    }
+
+    Optional<String> getName(MessageUid uid) {
+        return Optional.ofNullable(names.get(uid));
+    }
+
+    /**
+     * Returns the names of the messages within the given uid range, an empty upper bound meaning no upper limit.
+     */
+    NavigableMap<MessageUid, String> getNames(MessageUid from, Optional<MessageUid> to) {
+        if (!to.isPresent()) {
+            return Collections.unmodifiableNavigableMap(names.tailMap(from, true));
+        }
+        if (to.get().compareTo(from) < 0) {
+            return Collections.emptyNavigableMap();
+        }
+        return Collections.unmodifiableNavigableMap(names.subMap(from, true, to.get(), true));
+    }
+
+    int count() {
+        return messageCount;
+    }
+
+    long count(Predicate<String> namePredicate) {
+        return names.values()
+            .stream()
+            .filter(namePredicate)
+            .count();
+    }
+
+    /**
+     * Gives a uid to a message already moved to the cur or new folder.
+     *
+     * @return the uid of the message, which might have already been assigned by a synchronization
+     */
+    synchronized MessageUid append(String name) throws IOException {
+        prepareModification();
+        MessageUid uid = Optional.ofNullable(uidsByBaseName.get(MaildirFolder.stripMetaFromName(name)))
+            .orElseGet(this::nextUid);
+        if (!name.equals(names.get(uid))) {
+            put(uid, name);
+            commit(Collections.singletonList(entryLine(uid, name)));
+        }
+        return uid;
+    }
+
+    /**
+     * Records the new name of a message, typically after a change of its flags.
+     */
+    synchronized void update(MessageUid uid, String name) throws IOException {
+        prepareModification();
+        String previousName = names.get(uid);
+        if (previousName != null && !previousName.equals(name)) {
+            put(uid, name);
+            commit(Collections.singletonList(entryLine(uid, name)));
+        }
+    }
+
+    /**
+     * Removes a message from the index.
+     *
+     * @return the name the message had
+     */
+    synchronized Optional<String> remove(MessageUid uid) throws IOException {
+        prepareModification();
+        Optional<String> removedName = remove(uid, names.get(uid));
+        if (removedName.isPresent()) {
+            commit(Collections.singletonList(removalLine(uid)));
+        }
+        return removedName;
+    }
+
+    @VisibleForTesting
+    synchronized int staleLineCount() {
+        return lineCount - messageCount;
+    }
+
+    private void prepareModification() throws IOException {
+        if (!isUidListUpToDate() || rewriteNeeded) {
+            synchronize();
+        }
+    }
+
+    private void commit(List<String> lines) throws IOException {
+        write(lines);
+        // Modifications are applied to the folders by the caller: their new state needs to be listed
+        FileState uidListState = FileState.of(uidList);
+        observation = observation.map(current -> current.withUnknownFolders(uidListState));
+    }
+
+    private void load() throws IOException {
+        names.clear();
+        uidsByBaseName.clear();
+        messageCount = 0;
+        lineCount = 0;
+        lastUid = Optional.empty();
+        rewriteNeeded = true;
+        if (!Files.isRegularFile(uidList)) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(uidList), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null) {
+                return;
+            }
+            rewriteNeeded = readHeader(line) != VERSION;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isEmpty()) {
+                    readEntry(line, lineNumber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the header of the uid list. The format is: version lastUid messageCount (e.g. 2 615 273)
+     *
+     * @return the version of the uid list
+     */
+    private int readHeader(String line) throws IOException {
+        String[] parts = line.split(" ");
+        if (parts.length != 3) {
+            throw new IOException("Corrupted header entry in uid-file " + uidList);
+        }
+        try {
+            int version = Integer.parseInt(parts[0]);
+            if (version != VERSION && version != LEGACY_VERSION) {
+                throw new IOException("Cannot read uidlists with versions other than " + LEGACY_VERSION + " and " + VERSION);
+            }
+            long headerLastUid = Long.parseLong(parts[1]);
+            if (headerLastUid > 0) {
+                recordUid(MessageUid.of(headerLastUid));
+            }
+            return version;
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted header entry in uid-file " + uidList, e);
+        }
+    }
+
+    private void readEntry(String line, int lineNumber) {
+        int gap = line.indexOf(' ');
+        try {
+            MessageUid uid = MessageUid.of(Long.parseLong(gap == -1 ? line : line.substring(0, gap)));
+            lineCount++;
+            recordUid(uid);
+            if (gap == -1) {
+                remove(uid, names.get(uid));
+            } else {
+                put(uid, line.substring(gap + 1));
+            }
+        } catch (NumberFormatException e) {
+            LOGGER.info("Corrupted entry in uid-file {} line {}", uidList, lineNumber);
+        }
+    }
+
+    private List<String> reconcile(String[] files) {
+        List<String> changes = new ArrayList<>();
+        Set<MessageUid> listedUids = new HashSet<>();
+        for (String file : files) {
+            MessageUid uid = Optional.ofNullable(uidsByBaseName.get(MaildirFolder.stripMetaFromName(file)))
+                .orElseGet(this::nextUid);
+            listedUids.add(uid);
+            if (!file.equals(names.get(uid))) {
+                put(uid, file);
+                changes.add(entryLine(uid, file));
+            }
+        }
+        for (Map.Entry<MessageUid, String> entry : names.entrySet()) {
+            if (!listedUids.contains(entry.getKey())) {
+                remove(entry.getKey(), entry.getValue());
+                changes.add(removalLine(entry.getKey()));
+            }
+        }
+        return changes;
+    }
+
+    private MessageUid nextUid() {
+        MessageUid uid = lastUid.map(MessageUid::next).orElse(MessageUid.MIN_VALUE);
+        lastUid = Optional.of(uid);
+        return uid;
+    }
+
+    private void recordUid(MessageUid uid) {
+        if (!lastUid.isPresent() || lastUid.get().compareTo(uid) < 0) {
+            lastUid = Optional.of(uid);
+        }
+    }
+
+    private void put(MessageUid uid, String name) {
+        String previousName = names.put(uid, name);
+        if (previousName == null) {
+            messageCount++;
+        } else {
+            uidsByBaseName.remove(MaildirFolder.stripMetaFromName(previousName), uid);
+        }
+        MessageUid previousUid = uidsByBaseName.put(MaildirFolder.stripMetaFromName(name), uid);
+        if (previousUid != null && !previousUid.equals(uid) && names.remove(previousUid) != null) {
+            // the same message was recorded twice, the latest uid wins
+            messageCount--;
+        }
+    }
+
+    private Optional<String> remove(MessageUid uid, String name) {
+        if (name == null || !names.remove(uid, name)) {
+            return Optional.empty();
+        }
+        messageCount--;
+        uidsByBaseName.remove(MaildirFolder.stripMetaFromName(name), uid);
+        return Optional.of(name);
+    }
+
+    private void write(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Files.write(uidList, lines, StandardCharsets.UTF_8, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        lineCount += lines.size();
+        if (lineCount - messageCount > Math.max(MIN_STALE_LINES_BEFORE_COMPACTION, messageCount)) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the uid list with only one line per message. The new content is written aside then moved over the
+     * uid list so that a failure never leaves a truncated uid list behind.
+     */
+    private void compact() throws IOException {
+        Path compacted = uidList.resolveSibling(uidList.getFileName() + COMPACTION_SUFFIX);
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            writer.write(VERSION + " " + lastUid.map(MessageUid::asLong).orElse(0L) + " " + messageCount);
+            writer.newLine();
+            for (Map.Entry<MessageUid, String> entry : names.entrySet()) {
+                writer.write(entryLine(entry.getKey(), entry.getValue()));
+                writer.newLine();
+            }
+        }
+        Files.move(compacted, uidList, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lineCount = messageCount;
+        rewriteNeeded = false;
+    }
+
+    private String entryLine(MessageUid uid, String name) {
+        return uid.asLong() + " " + name;
+    }
+
+    private String removalLine(MessageUid uid) {
+        return String.valueOf(uid.asLong());
+    }
+}
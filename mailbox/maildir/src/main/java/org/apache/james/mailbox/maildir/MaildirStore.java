@@ -39,6 +39,9 @@ import org.apache.james.mailbox.store.JVMMailboxPathLocker;
 import org.apache.james.mailbox.store.mail.ModSeqProvider;
 import org.apache.james.mailbox.store.mail.UidProvider;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class MaildirStore implements UidProvider, ModSeqProvider {
 
     public static final String PATH_USER = "%user";
@@ -47,11 +50,14 @@ public class MaildirStore implements UidProvider, ModSeqProvider {
     public static final String WILDCARD = "%";
     
     public static final String maildirDelimiter = ".";
+
+    private static final int INDEX_CACHE_SIZE = 1000;
     
     private final String maildirLocation;
     
     private File maildirRootFile;
     private final MailboxPathLocker locker;
+    private final Cache<String, MaildirIndex> indexes;
 
     private boolean messageNameStrictParse = false;
 
@@ -67,6 +73,9 @@ public class MaildirStore implements UidProvider, ModSeqProvider {
     public MaildirStore(String maildirLocation, MailboxPathLocker locker) {
         this.maildirLocation = maildirLocation;
         this.locker = locker;
+        this.indexes = CacheBuilder.newBuilder()
+            .maximumSize(INDEX_CACHE_SIZE)
+            .build();
     }
     
     public MaildirStore(String maildirLocation) {
@@ -84,7 +93,17 @@ public class MaildirStore implements UidProvider, ModSeqProvider {
      * @return The MaildirFolder
      */
     public MaildirFolder createMaildirFolder(Mailbox mailbox) {
-        MaildirFolder mf = new MaildirFolder(getFolderName(mailbox), mailbox.generateAssociatedPath(), locker);
+        return createMaildirFolder(getFolderName(mailbox), mailbox.generateAssociatedPath());
+    }
+
+    /**
+     * Folders sharing the same location share the same {@link MaildirIndex}, so that the uid list is only read again
+     * when changed by another process.
+     */
+    private MaildirFolder createMaildirFolder(String absPath, MailboxPath mailboxPath) {
+        MaildirIndex index = indexes.asMap()
+            .computeIfAbsent(new File(absPath).getAbsolutePath(), location -> new MaildirIndex(new File(location)));
+        MaildirFolder mf = new MaildirFolder(absPath, mailboxPath, locker, index);
         mf.setMessageNameStrictParse(isMessageNameStrictParse());
         return mf;
     }
@@ -112,8 +131,7 @@ public class MaildirStore implements UidProvider, ModSeqProvider {
      */
     public Mailbox loadMailbox(MailboxSession session, MailboxPath mailboxPath)
     throws MailboxNotFoundException, MailboxException {
-        MaildirFolder folder = new MaildirFolder(getFolderName(mailboxPath), mailboxPath, locker);
-        folder.setMessageNameStrictParse(isMessageNameStrictParse());
+        MaildirFolder folder = createMaildirFolder(getFolderName(mailboxPath), mailboxPath);
         if (!folder.exists()) {
             throw new MailboxNotFoundException(mailboxPath);
         }
@@ -128,8 +146,7 @@ public class MaildirStore implements UidProvider, ModSeqProvider {
      * @throws MailboxException If the mailbox folder doesn't exist or can't be read
      */
     private Mailbox loadMailbox(MailboxSession session, File mailboxFile, MailboxPath mailboxPath) throws MailboxException {
-        MaildirFolder folder = new MaildirFolder(mailboxFile.getAbsolutePath(), mailboxPath, locker);
-        folder.setMessageNameStrictParse(isMessageNameStrictParse());
+        MaildirFolder folder = createMaildirFolder(mailboxFile.getAbsolutePath(), mailboxPath);
         try {
             Mailbox loadedMailbox = new Mailbox(mailboxPath, folder.getUidValidity(), folder.readMailboxId());
             loadedMailbox.setACL(folder.getACL());
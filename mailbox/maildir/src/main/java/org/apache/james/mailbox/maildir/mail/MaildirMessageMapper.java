@@ -70,30 +70,12 @@ public class MaildirMessageMapper extends AbstractMessageMapper {
 
     @Override
     public long countMessagesInMailbox(Mailbox mailbox) throws MailboxException {
-        MaildirFolder folder = maildirStore.createMaildirFolder(mailbox);
-        File newFolder = folder.getNewFolder();
-        File curFolder = folder.getCurFolder();
-        File[] newFiles = newFolder.listFiles();
-        File[] curFiles = curFolder.listFiles();
-        if (newFiles == null || curFiles == null) {
-            throw new MailboxException("Unable to count messages in Mailbox " + mailbox, new IOException(
-                "Not a valid Maildir folder: " + maildirStore.getFolderName(mailbox)));
-        }
-        return newFiles.length + curFiles.length;
+        return maildirStore.createMaildirFolder(mailbox).countMessages();
     }
 
     @Override
     public long countUnseenMessagesInMailbox(Mailbox mailbox) throws MailboxException {
-        MaildirFolder folder = maildirStore.createMaildirFolder(mailbox);
-        File newFolder = folder.getNewFolder();
-        File curFolder = folder.getCurFolder();
-        String[] unseenMessages = curFolder.list(MaildirMessageName.FILTER_UNSEEN_MESSAGES);
-        String[] newUnseenMessages = newFolder.list(MaildirMessageName.FILTER_UNSEEN_MESSAGES);
-        if (newUnseenMessages == null || unseenMessages == null) {
-            throw new MailboxException("Unable to count unseen messages in Mailbox " + mailbox, new IOException(
-                "Not a valid Maildir folder: " + maildirStore.getFolderName(mailbox)));
-        }
-        return newUnseenMessages.length + unseenMessages.length;
+        return maildirStore.createMaildirFolder(mailbox).countMessages(MaildirMessageName.FILTER_UNSEEN_MESSAGES);
     }
 
     @Override
@@ -155,55 +137,57 @@ public class MaildirMessageMapper extends AbstractMessageMapper {
         final List<UpdatedFlags> updatedFlags = new ArrayList<>();
         final MaildirFolder folder = maildirStore.createMaildirFolder(mailbox);
 
-        Iterator<MailboxMessage> it = findInMailbox(mailbox, set, FetchType.Metadata, UNLIMITED);
-        while (it.hasNext()) {
-            final MailboxMessage member = it.next();
-            Flags originalFlags = member.createFlags();
-            member.setFlags(flagsUpdateCalculator.buildNewFlags(originalFlags));
-            Flags newFlags = member.createFlags();
-
+        // Names are looked up once: each update modifies the folder, which would make later lookups list it again
+        SortedMap<MessageUid, MaildirMessageName> messageNames = folder.getUidMap(set.getUidFrom(), set.getUidTo());
+        for (Entry<MessageUid, MaildirMessageName> entry : messageNames.entrySet()) {
+            MaildirMessageName messageName = entry.getValue();
+            if (!messageName.exists()) {
+                continue;
+            }
             try {
-                MaildirMessageName messageName = folder.getMessageNameByUid(member.getUid());
-                if (messageName != null) {
-                    File messageFile = messageName.getFile();
-                    messageName.setFlags(member.createFlags());
-                    // this automatically moves messages from new to cur if
-                    // needed
-                    String newMessageName = messageName.getFullName();
-
-                    File newMessageFile;
-
-                    // See MAILBOX-57
-                    if (newFlags.contains(Flag.RECENT)) {
-                        // message is recent so save it in the new folder
-                        newMessageFile = new File(folder.getNewFolder(), newMessageName);
-                    } else {
-                        newMessageFile = new File(folder.getCurFolder(), newMessageName);
-                    }
-                    long modSeq;
-                    // if the flags don't have change we should not try to move
-                    // the file
-                    if (newMessageFile.equals(messageFile) == false) {
-                        FileUtils.moveFile(messageFile, newMessageFile);
-                        modSeq = newMessageFile.lastModified();
-
-                    } else {
-                        modSeq = messageFile.lastModified();
-                    }
-                    member.setModSeq(ModSeq.of(modSeq));
+                MailboxMessage member = new MaildirMailboxMessage(mailbox, entry.getKey(), messageName);
+                Flags originalFlags = member.createFlags();
+                member.setFlags(flagsUpdateCalculator.buildNewFlags(originalFlags));
+                Flags newFlags = member.createFlags();
+
+                File messageFile = messageName.getFile();
+                messageName.setFlags(member.createFlags());
+                // this automatically moves messages from new to cur if
+                // needed
+                String newMessageName = messageName.getFullName();
+
+                File newMessageFile;
+
+                // See MAILBOX-57
+                if (newFlags.contains(Flag.RECENT)) {
+                    // message is recent so save it in the new folder
+                    newMessageFile = new File(folder.getNewFolder(), newMessageName);
+                } else {
+                    newMessageFile = new File(folder.getCurFolder(), newMessageName);
+                }
+                long modSeq;
+                // if the flags don't have change we should not try to move
+                // the file
+                if (newMessageFile.equals(messageFile) == false) {
+                    FileUtils.moveFile(messageFile, newMessageFile);
+                    modSeq = newMessageFile.lastModified();
+
+                } else {
+                    modSeq = messageFile.lastModified();
+                }
+                member.setModSeq(ModSeq.of(modSeq));
 
-                    updatedFlags.add(UpdatedFlags.builder()
-                        .uid(member.getUid())
-                        .modSeq(member.getModSeq())
-                        .newFlags(newFlags)
-                        .oldFlags(originalFlags)
-                        .build());
+                updatedFlags.add(UpdatedFlags.builder()
+                    .uid(member.getUid())
+                    .modSeq(member.getModSeq())
+                    .newFlags(newFlags)
+                    .oldFlags(originalFlags)
+                    .build());
 
-                    MessageUid uid = member.getUid();
-                    folder.update(uid, newMessageName);
-                }
+                MessageUid uid = member.getUid();
+                folder.update(uid, newMessageName);
             } catch (IOException e) {
-                throw new MailboxException("Failure while save MailboxMessage " + member + " in Mailbox " + mailbox, e);
+                throw new MailboxException("Failure while save MailboxMessage with uid " + entry.getKey() + " in Mailbox " + mailbox, e);
             }
 
         }
@@ -222,10 +206,13 @@ public class MaildirMessageMapper extends AbstractMessageMapper {
         Map<MessageUid, MessageMetaData> data = new HashMap<>();
         List<MessageRange> ranges = MessageRange.toRanges(uids);
 
+        // Messages are looked up before deleting any of them: each deletion modifies the folder, which would make
+        // later lookups list it again
+        List<MailboxMessage> messages = new ArrayList<>();
         for (MessageRange range : ranges) {
-            List<MailboxMessage> messages = findDeletedMessages(mailbox, range);
-            data.putAll(deleteDeletedMessages(mailbox, messages));
+            messages.addAll(findDeletedMessages(mailbox, range));
         }
+        data.putAll(deleteDeletedMessages(mailbox, messages));
 
         return data;
     }
@@ -0,0 +1,137 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.maildir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.store.JVMMailboxPathLocker;
+import org.apache.james.util.concurrency.ConcurrentTestRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MaildirFolderConcurrencyTest {
+    private static final MailboxPath INBOX = MailboxPath.inbox(Username.of("user"));
+    private static final int MESSAGE_COUNT = 1000;
+    private static final int THREAD_COUNT = 10;
+    private static final int OPERATION_COUNT = 100;
+    private static final long TEN_SECONDS = 10000L;
+
+    @TempDir
+    File root;
+
+    JVMMailboxPathLocker locker;
+    MaildirIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        File cur = new File(root, MaildirFolder.CUR);
+        File newFolder = new File(root, MaildirFolder.NEW);
+        cur.mkdir();
+        newFolder.mkdir();
+        new File(root, MaildirFolder.TMP).mkdir();
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            deliver(cur, messageName(i));
+        }
+        long past = System.currentTimeMillis() - TEN_SECONDS;
+        cur.setLastModified(past);
+        newFolder.setLastModified(past);
+
+        locker = new JVMMailboxPathLocker();
+        index = new MaildirIndex(root);
+    }
+
+    @Test
+    void concurrentReadersShouldSeeAllMessages() throws Exception {
+        ConcurrentLinkedQueue<Integer> sizes = new ConcurrentLinkedQueue<>();
+
+        ConcurrentTestRunner.builder()
+            .operation((threadNumber, step) -> sizes.add(folder().getUidMap(MessageUid.MIN_VALUE, null).size()))
+            .threadCount(THREAD_COUNT)
+            .operationCount(OPERATION_COUNT)
+            .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+        assertThat(sizes)
+            .hasSize(THREAD_COUNT * OPERATION_COUNT)
+            .containsOnly(MESSAGE_COUNT);
+    }
+
+    @Test
+    void concurrentReadersShouldNotWriteTheUidList() throws Exception {
+        folder().countMessages();
+        byte[] uidList = Files.readAllBytes(new File(root, MaildirFolder.UIDLIST_FILE).toPath());
+
+        ConcurrentTestRunner.builder()
+            .operation((threadNumber, step) -> folder().countMessages(MaildirMessageName.FILTER_UNSEEN_MESSAGES))
+            .threadCount(THREAD_COUNT)
+            .operationCount(OPERATION_COUNT)
+            .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+        assertThat(Files.readAllBytes(new File(root, MaildirFolder.UIDLIST_FILE).toPath())).isEqualTo(uidList);
+    }
+
+    @Test
+    void concurrentReadersShouldNotPreventAppends() throws Exception {
+        ConcurrentTestRunner.builder()
+            .operation((threadNumber, step) -> {
+                if (threadNumber == 0) {
+                    String name = messageName(MESSAGE_COUNT + step);
+                    deliver(new File(root, MaildirFolder.NEW), name);
+                    folder().appendMessage(name);
+                } else {
+                    folder().getRecentMessages();
+                }
+            })
+            .threadCount(THREAD_COUNT)
+            .operationCount(OPERATION_COUNT)
+            .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+        Collection<MessageUid> expectedUids = IntStream.rangeClosed(1, MESSAGE_COUNT + OPERATION_COUNT)
+            .mapToObj(MessageUid::of)
+            .collect(Collectors.toList());
+        assertThat(folder().getUidMap(MessageUid.MIN_VALUE, null).keySet())
+            .containsExactlyElementsOf(expectedUids);
+        assertThat(folder().getRecentMessages()).hasSize(OPERATION_COUNT);
+    }
+
+    private MaildirFolder folder() {
+        return new MaildirFolder(root.getAbsolutePath(), INBOX, locker, index);
+    }
+
+    private String messageName(int number) {
+        return (1328026049 + number) + "." + number + ".km1111,S=10:2,";
+    }
+
+    private void deliver(File folder, String name) throws IOException {
+        Files.write(new File(folder, name).toPath(), "Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,270 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.maildir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.james.mailbox.MessageUid;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+
+class MaildirIndexTest {
+    private static final String MESSAGE_1 = "1328026049.19146_0.km1111,S=10:2,";
+    private static final String MESSAGE_1_SEEN = "1328026049.19146_0.km1111,S=10:2,S";
+    private static final String MESSAGE_2 = "1328026050.19146_1.km1111,S=10:2,";
+    private static final String MESSAGE_3 = "1328026051.19146_2.km1111,S=10:2,";
+    private static final long TEN_SECONDS = 10000L;
+
+    @TempDir
+    File root;
+
+    File cur;
+    File newFolder;
+    File uidList;
+    MaildirIndex testee;
+
+    @BeforeEach
+    void setUp() {
+        cur = new File(root, MaildirFolder.CUR);
+        newFolder = new File(root, MaildirFolder.NEW);
+        uidList = new File(root, MaildirFolder.UIDLIST_FILE);
+        cur.mkdir();
+        newFolder.mkdir();
+        new File(root, MaildirFolder.TMP).mkdir();
+        testee = new MaildirIndex(root);
+    }
+
+    @Test
+    void synchronizeShouldGiveUidsToExistingMessages() throws Exception {
+        deliver(cur, MESSAGE_1);
+        deliver(newFolder, MESSAGE_2);
+
+        testee.synchronize();
+
+        assertThat(testee.getNames(MessageUid.MIN_VALUE, Optional.empty()))
+            .containsEntry(MessageUid.of(1), MESSAGE_1)
+            .containsEntry(MessageUid.of(2), MESSAGE_2)
+            .hasSize(2);
+    }
+
+    @Test
+    void synchronizeShouldCreateTheUidList() throws Exception {
+        deliver(cur, MESSAGE_1);
+
+        testee.synchronize();
+
+        assertThat(readUidList()).containsExactly(
+            MaildirIndex.VERSION + " 1 1",
+            "1 " + MESSAGE_1);
+    }
+
+    @Test
+    void appendShouldGiveTheNextUid() throws Exception {
+        deliver(cur, MESSAGE_1);
+        testee.synchronize();
+
+        deliver(cur, MESSAGE_2);
+
+        assertThat(testee.append(MESSAGE_2)).isEqualTo(MessageUid.of(2));
+    }
+
+    @Test
+    void appendShouldReturnTheUidGivenBySynchronization() throws Exception {
+        deliver(cur, MESSAGE_1);
+        testee.synchronize();
+
+        assertThat(testee.append(MESSAGE_1)).isEqualTo(MessageUid.of(1));
+    }
+
+    @Test
+    void modificationsShouldBeAppendedToTheUidList() throws Exception {
+        deliver(cur, MESSAGE_1);
+        testee.synchronize();
+
+        deliver(cur, MESSAGE_2);
+        testee.append(MESSAGE_2);
+        testee.update(MessageUid.of(1), MESSAGE_1_SEEN);
+        testee.remove(MessageUid.of(2));
+
+        assertThat(readUidList()).containsExactly(
+            MaildirIndex.VERSION + " 1 1",
+            "1 " + MESSAGE_1,
+            "2 " + MESSAGE_2,
+            "1 " + MESSAGE_1_SEEN,
+            "2");
+    }
+
+    @Test
+    void modificationsShouldBeReadBackByAnotherIndex() throws Exception {
+        deliver(cur, MESSAGE_1);
+        deliver(cur, MESSAGE_2);
+        testee.synchronize();
+
+        FileUtils.moveFile(new File(cur, MESSAGE_1), new File(cur, MESSAGE_1_SEEN));
+        testee.update(MessageUid.of(1), MESSAGE_1_SEEN);
+        FileUtils.forceDelete(new File(cur, MESSAGE_2));
+        testee.remove(MessageUid.of(2));
+
+        MaildirIndex otherIndex = new MaildirIndex(root);
+        otherIndex.synchronize();
+        assertThat(otherIndex.getNames(MessageUid.MIN_VALUE, Optional.empty()))
+            .containsOnlyKeys(MessageUid.of(1))
+            .containsEntry(MessageUid.of(1), MESSAGE_1_SEEN);
+    }
+
+    @Test
+    void removeShouldNotLowerTheLastUid() throws Exception {
+        deliver(cur, MESSAGE_1);
+        deliver(cur, MESSAGE_2);
+        testee.synchronize();
+
+        FileUtils.forceDelete(new File(cur, MESSAGE_2));
+        testee.remove(MessageUid.of(2));
+
+        MaildirIndex otherIndex = new MaildirIndex(root);
+        otherIndex.synchronize();
+        assertThat(otherIndex.getLastUid()).contains(MessageUid.of(2));
+    }
+
+    @Test
+    void uidListShouldBeCompactedOnceMostlyStale() throws Exception {
+        deliver(cur, MESSAGE_1);
+        testee.synchronize();
+
+        for (int i = 0; i <= MaildirIndex.MIN_STALE_LINES_BEFORE_COMPACTION; i++) {
+            testee.update(MessageUid.of(1), i % 2 == 0 ? MESSAGE_1_SEEN : MESSAGE_1);
+        }
+
+        assertThat(testee.staleLineCount()).isZero();
+        assertThat(readUidList()).containsExactly(
+            MaildirIndex.VERSION + " 1 1",
+            "1 " + MESSAGE_1_SEEN);
+    }
+
+    @Test
+    void synchronizeShouldUpgradeLegacyUidLists() throws Exception {
+        deliver(cur, MESSAGE_1);
+        deliver(cur, MESSAGE_2);
+        Files.write(uidList.toPath(), ImmutableList.of("1 7 2", "5 " + MESSAGE_1, "7 " + MESSAGE_2), StandardCharsets.UTF_8);
+
+        testee.synchronize();
+
+        assertThat(readUidList()).containsExactly(
+            MaildirIndex.VERSION + " 7 2",
+            "5 " + MESSAGE_1,
+            "7 " + MESSAGE_2);
+    }
+
+    @Test
+    void synchronizeShouldTakeExternalChangesIntoAccount() throws Exception {
+        deliver(cur, MESSAGE_1);
+        deliver(cur, MESSAGE_2);
+        testee.synchronize();
+
+        FileUtils.moveFile(new File(cur, MESSAGE_1), new File(cur, MESSAGE_1_SEEN));
+        FileUtils.forceDelete(new File(cur, MESSAGE_2));
+        deliver(newFolder, MESSAGE_3);
+        testee.synchronize();
+
+        assertThat(testee.getNames(MessageUid.MIN_VALUE, Optional.empty()))
+            .containsEntry(MessageUid.of(1), MESSAGE_1_SEEN)
+            .containsEntry(MessageUid.of(3), MESSAGE_3)
+            .hasSize(2);
+    }
+
+    @Test
+    void isUpToDateShouldBeFalseBeforeSynchronization() throws Exception {
+        assertThat(testee.isUpToDate()).isFalse();
+    }
+
+    @Test
+    void isUpToDateShouldBeTrueAfterSynchronization() throws Exception {
+        deliver(cur, MESSAGE_1);
+        makeFoldersOlder();
+
+        testee.synchronize();
+
+        assertThat(testee.isUpToDate()).isTrue();
+    }
+
+    @Test
+    void isUpToDateShouldBeFalseRightAfterAModificationOfTheFolders() throws Exception {
+        deliver(cur, MESSAGE_1);
+
+        testee.synchronize();
+
+        assertThat(testee.isUpToDate()).isFalse();
+    }
+
+    @Test
+    void isUpToDateShouldBeFalseAfterAnExternalDelivery() throws Exception {
+        makeFoldersOlder();
+        testee.synchronize();
+
+        deliver(newFolder, MESSAGE_1);
+
+        assertThat(testee.isUpToDate()).isFalse();
+    }
+
+    @Test
+    void isUpToDateShouldBeFalseAfterAModificationThroughTheIndex() throws Exception {
+        makeFoldersOlder();
+        testee.synchronize();
+
+        deliver(newFolder, MESSAGE_1);
+        testee.append(MESSAGE_1);
+
+        assertThat(testee.isUpToDate()).isFalse();
+        assertThat(testee.isUidListUpToDate()).isTrue();
+    }
+
+    @Test
+    void isUidListUpToDateShouldBeFalseAfterAnExternalChangeOfTheUidList() throws Exception {
+        deliver(cur, MESSAGE_1);
+        testee.synchronize();
+
+        Files.write(uidList.toPath(), ImmutableList.of(MaildirIndex.VERSION + " 0 0"), StandardCharsets.UTF_8);
+
+        assertThat(testee.isUidListUpToDate()).isFalse();
+    }
+
+    private void deliver(File folder, String name) throws IOException {
+        Files.write(new File(folder, name).toPath(), "Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void makeFoldersOlder() {
+        long past = System.currentTimeMillis() - TEN_SECONDS;
+        cur.setLastModified(past);
+        newFolder.setLastModified(past);
+    }
+
+    private ImmutableList<String> readUidList() throws IOException {
+        return ImmutableList.copyOf(Files.readAllLines(uidList.toPath(), StandardCharsets.UTF_8));
+    }
+}
@@ -20,12 +20,15 @@
 package org.apache.james.mailbox.inmemory.mail;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Predicate;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
@@ -47,9 +50,80 @@ import org.apache.james.mailbox.store.mail.model.impl.SimpleMailboxMessage;
 import org.apache.james.mailbox.store.mail.utils.ApplicableFlagCalculator;
 
 import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
 
 public class InMemoryMessageMapper extends AbstractMessageMapper {
-    private final Map<InMemoryId, Map<MessageUid, MailboxMessage>> mailboxByUid;
+
+    /**
+     * Messages of a mailbox ordered by UID.
+     *
+     * Unseen and recent UIDs are indexed separately, from the flags the message had when it was saved, so that
+     * counting and first unseen lookups do not need to scan the mailbox. Writes are serialized per mailbox in order
+     * to keep the indexes consistent with the messages, reads do not lock.
+     */
+    private static class MailboxMessages {
+        private final ConcurrentSkipListMap<MessageUid, MailboxMessage> messagesByUid = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListSet<MessageUid> unseenUids = new ConcurrentSkipListSet<>();
+        private final ConcurrentSkipListSet<MessageUid> recentUids = new ConcurrentSkipListSet<>();
+        private final AtomicLong messageCount = new AtomicLong();
+        private final AtomicLong unseenCount = new AtomicLong();
+
+        synchronized void put(MailboxMessage message) {
+            MessageUid uid = message.getUid();
+            if (messagesByUid.put(uid, message) == null) {
+                messageCount.incrementAndGet();
+            }
+            index(unseenUids, unseenCount, uid, !message.isSeen());
+            index(recentUids, null, uid, message.isRecent());
+        }
+
+        synchronized Optional<MailboxMessage> remove(MessageUid uid) {
+            MailboxMessage removed = messagesByUid.remove(uid);
+            if (removed != null) {
+                messageCount.decrementAndGet();
+                index(unseenUids, unseenCount, uid, false);
+                index(recentUids, null, uid, false);
+            }
+            return Optional.ofNullable(removed);
+        }
+
+        private void index(ConcurrentSkipListSet<MessageUid> uids, AtomicLong count, MessageUid uid, boolean indexed) {
+            boolean changed = indexed ? uids.add(uid) : uids.remove(uid);
+            if (changed && count != null) {
+                if (indexed) {
+                    count.incrementAndGet();
+                } else {
+                    count.decrementAndGet();
+                }
+            }
+        }
+
+        Collection<MailboxMessage> inRange(MessageRange range) {
+            return messagesByUid.subMap(range.getUidFrom(), true, range.getUidTo(), true).values();
+        }
+
+        Collection<MailboxMessage> all() {
+            return messagesByUid.values();
+        }
+
+        long count() {
+            return messageCount.get();
+        }
+
+        long unseenCount() {
+            return unseenCount.get();
+        }
+
+        Optional<MessageUid> firstUnseen() {
+            return Optional.ofNullable(unseenUids.ceiling(MessageUid.MIN_VALUE));
+        }
+
+        List<MessageUid> recent() {
+            return ImmutableList.copyOf(recentUids);
+        }
+    }
+
+    private final Map<InMemoryId, MailboxMessages> mailboxByUid;
     private static final int INITIAL_SIZE = 256;
 
     public InMemoryMessageMapper(MailboxSession session, UidProvider uidProvider,
@@ -58,21 +132,16 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
         this.mailboxByUid = new ConcurrentHashMap<>(INITIAL_SIZE);
     }
 
-    private Map<MessageUid, MailboxMessage> getMembershipByUidForMailbox(Mailbox mailbox) {
+    private MailboxMessages getMembershipByUidForMailbox(Mailbox mailbox) {
         return getMembershipByUidForMailbox(mailbox.getMailboxId());
     }
 
-    private Map<MessageUid, MailboxMessage> getMembershipByUidForMailbox(MailboxId mailboxId) {
+    private MailboxMessages getMembershipByUidForMailbox(MailboxId mailboxId) {
         return getMembershipByUidForId((InMemoryId) mailboxId);
     }
 
-    private Map<MessageUid, MailboxMessage> getMembershipByUidForId(InMemoryId id) {
-        Map<MessageUid, MailboxMessage> membershipByUid = mailboxByUid.get(id);
-        if (membershipByUid == null) {
-            membershipByUid = new ConcurrentHashMap<>(INITIAL_SIZE);
-            mailboxByUid.put(id, membershipByUid);
-        }
-        return membershipByUid;
+    private MailboxMessages getMembershipByUidForId(InMemoryId id) {
+        return mailboxByUid.computeIfAbsent(id, any -> new MailboxMessages());
     }
 
     @Override
@@ -81,8 +150,8 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
         return countMessagesInMailbox(mailboxId);
     }
 
-    private int countMessagesInMailbox(MailboxId mailboxId) {
-        return getMembershipByUidForMailbox(mailboxId).size();
+    private long countMessagesInMailbox(MailboxId mailboxId) {
+        return getMembershipByUidForMailbox(mailboxId).count();
     }
 
     @Override
@@ -92,10 +161,7 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
     }
 
     private long countUnseenMessagesInMailbox(MailboxId mailboxId) {
-        return getMembershipByUidForMailbox(mailboxId).values()
-            .stream()
-            .filter(Predicate.not(MailboxMessage::isSeen))
-            .count();
+        return getMembershipByUidForMailbox(mailboxId).unseenCount();
     }
 
     @Override
@@ -114,35 +180,25 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
 
     @Override
     public Iterator<MailboxMessage> findInMailbox(Mailbox mailbox, MessageRange set, FetchType ftype, int max) {
-        List<MailboxMessage> results = new ArrayList<>(getMembershipByUidForMailbox(mailbox).values());
-        results.removeIf(mailboxMessage -> !set.includes(mailboxMessage.getUid()));
-        
-        Collections.sort(results);
-
-        if (max > 0 && results.size() > max) {
-            results = results.subList(0, max);
+        Collection<MailboxMessage> inRange = getMembershipByUidForMailbox(mailbox).inRange(set);
+        List<MailboxMessage> results = new ArrayList<>();
+        for (MailboxMessage message : inRange) {
+            if (max > 0 && results.size() >= max) {
+                break;
+            }
+            results.add(message);
         }
         return results.iterator();
     }
 
     @Override
     public List<MessageUid> findRecentMessageUidsInMailbox(Mailbox mailbox) {
-        return getMembershipByUidForMailbox(mailbox).values()
-            .stream()
-            .filter(MailboxMessage::isRecent)
-            .map(MailboxMessage::getUid)
-            .sorted()
-            .collect(Guavate.toImmutableList());
+        return getMembershipByUidForMailbox(mailbox).recent();
     }
 
     @Override
     public MessageUid findFirstUnseenMessageUid(Mailbox mailbox) {
-        List<MailboxMessage> memberships = new ArrayList<>(getMembershipByUidForMailbox(mailbox).values());
-        Collections.sort(memberships);
-        return memberships.stream()
-            .filter(Predicate.not(MailboxMessage::isSeen))
-            .findFirst()
-            .map(MailboxMessage::getUid)
+        return getMembershipByUidForMailbox(mailbox).firstUnseen()
             .orElse(null);
     }
 
@@ -163,16 +219,16 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
 
     @Override
     public Map<MessageUid, MessageMetaData> deleteMessages(Mailbox mailbox, List<MessageUid> uids) {
-        return getMembershipByUidForMailbox(mailbox).values()
-            .stream()
-            .filter(message -> uids.contains(message.getUid()))
-            .peek(message -> delete(mailbox, message))
+        MailboxMessages messages = getMembershipByUidForMailbox(mailbox);
+        return uids.stream()
+            .distinct()
+            .flatMap(uid -> messages.remove(uid).stream())
             .collect(Guavate.toImmutableMap(MailboxMessage::getUid, MailboxMessage::metaData));
     }
 
     @Override
     public Flags getApplicableFlag(Mailbox mailbox) {
-        return new ApplicableFlagCalculator(getMembershipByUidForId((InMemoryId) mailbox.getMailboxId()).values())
+        return new ApplicableFlagCalculator(getMembershipByUidForId((InMemoryId) mailbox.getMailboxId()).all())
             .computeApplicableFlags();
     }
 
@@ -199,7 +255,7 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
         SimpleMailboxMessage copy = SimpleMailboxMessage.copy(mailbox.getMailboxId(), message);
         copy.setUid(message.getUid());
         copy.setModSeq(message.getModSeq());
-        getMembershipByUidForMailbox(mailbox).put(message.getUid(), copy);
+        getMembershipByUidForMailbox(mailbox).put(copy);
 
         return message.metaData();
     }
@@ -82,6 +82,13 @@ public class StoreBlobManager implements BlobManager {
                         throw new BlobNotFoundException(blobId, e);
                     }
                 })
+                .rangePayload((offset, length) -> {
+                    try {
+                        return attachmentManager.loadAttachmentContent(attachmentId, offset, length, mailboxSession);
+                    } catch (AttachmentNotFoundException e) {
+                        throw new BlobNotFoundException(blobId, e);
+                    }
+                })
                 .size(attachment.getSize())
                 .contentType(attachment.getType())
                 .build();
@@ -100,6 +107,7 @@ public class StoreBlobManager implements BlobManager {
                         .contentType(MESSAGE_RFC822_CONTENT_TYPE)
                         .size(content.size())
                         .payload(content::getInputStream)
+                        .rangePayload(content::getInputStream)
                         .build()));
     }
 
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.james.core.Username;
 import org.apache.james.mailbox.exception.AttachmentNotFoundException;
 import org.apache.james.mailbox.exception.MailboxException;
@@ -35,10 +36,24 @@ import org.apache.james.mailbox.model.ParsedAttachment;
 import org.apache.james.mailbox.store.transaction.Mapper;
 import org.reactivestreams.Publisher;
 
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
 public interface AttachmentMapper extends Mapper {
 
     InputStream loadAttachmentContent(AttachmentId attachmentId) throws AttachmentNotFoundException, IOException;
 
+    /**
+     * Loads at most {@code length} octets of the attachment content, starting at {@code offset}.
+     */
+    default InputStream loadAttachmentContent(AttachmentId attachmentId, long offset, long length) throws AttachmentNotFoundException, IOException {
+        Preconditions.checkArgument(offset >= 0, "'offset' should not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' should not be negative");
+        InputStream inputStream = loadAttachmentContent(attachmentId);
+        IOUtils.skip(inputStream, offset);
+        return ByteStreams.limit(inputStream, length);
+    }
+
     AttachmentMetadata getAttachment(AttachmentId attachmentId) throws AttachmentNotFoundException;
 
     List<AttachmentMetadata> getAttachments(Collection<AttachmentId> attachmentIds);
@@ -28,11 +28,15 @@ import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.TimeZone;
 import java.util.stream.Stream;
 
@@ -48,11 +52,13 @@ import org.apache.james.mailbox.extractor.TextExtractor;
 import org.apache.james.mailbox.model.AttachmentMetadata;
 import org.apache.james.mailbox.model.Header;
 import org.apache.james.mailbox.model.MessageAttachmentMetadata;
+import org.apache.james.mailbox.model.MessageId;
 import org.apache.james.mailbox.model.SearchQuery;
 import org.apache.james.mailbox.model.SearchQuery.AddressType;
 import org.apache.james.mailbox.model.SearchQuery.DateResolution;
 import org.apache.james.mailbox.model.SearchQuery.UidRange;
 import org.apache.james.mailbox.store.ResultUtils;
+import org.apache.james.mailbox.store.mail.MessageMapper.FetchType;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.search.comparator.CombinedComparator;
 import org.apache.james.mime4j.MimeException;
@@ -78,18 +84,96 @@ import org.apache.james.mime4j.utils.search.MessageMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.steveash.guavate.Guavate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 /**
  * Utility methods to help perform search operations.
  */
 public class MessageSearches implements Iterable<SimpleMessageSearchIndex.SearchResult> {
 
+    /**
+     * A message being matched, together with its headers once parsed so that they are read at most once whatever
+     * the count of header criteria.
+     */
+    private static class SearchedMessage {
+        private final MailboxMessage message;
+        private List<Header> headers;
+
+        private SearchedMessage(MailboxMessage message) {
+            this.message = message;
+        }
+
+        List<Header> headers() throws IOException {
+            if (headers == null) {
+                headers = ResultUtils.createHeaders(message);
+            }
+            return headers;
+        }
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageSearches.class);
+    private static final int CONTENT_MATCHING_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final ImmutableSet<SearchQuery.Sort.SortClause> METADATA_SORT_CLAUSES = ImmutableSet.of(
+        SearchQuery.Sort.SortClause.Arrival,
+        SearchQuery.Sort.SortClause.Size,
+        SearchQuery.Sort.SortClause.Uid,
+        SearchQuery.Sort.SortClause.Id);
+
+    /**
+     * @return true if the criterion can be evaluated against the metadata of a message only: neither headers nor
+     * content are read
+     */
+    static boolean isMetadataOnly(SearchQuery.Criterion criterion) {
+        if (criterion instanceof SearchQuery.ConjunctionCriterion) {
+            return ((SearchQuery.ConjunctionCriterion) criterion).getCriteria()
+                .stream()
+                .allMatch(MessageSearches::isMetadataOnly);
+        }
+        return criterion instanceof SearchQuery.UidCriterion
+            || criterion instanceof SearchQuery.FlagCriterion
+            || criterion instanceof SearchQuery.CustomFlagCriterion
+            || criterion instanceof SearchQuery.SizeCriterion
+            || criterion instanceof SearchQuery.InternalDateCriterion
+            || criterion instanceof SearchQuery.ModSeqCriterion
+            || criterion instanceof SearchQuery.AllCriterion;
+    }
+
+    private static boolean needsFullContent(SearchQuery.Criterion criterion) {
+        if (criterion instanceof SearchQuery.ConjunctionCriterion) {
+            return ((SearchQuery.ConjunctionCriterion) criterion).getCriteria()
+                .stream()
+                .anyMatch(MessageSearches::needsFullContent);
+        }
+        return criterion instanceof SearchQuery.TextCriterion
+            || criterion instanceof SearchQuery.AttachmentCriterion;
+    }
+
+    /**
+     * @return the cheapest {@link FetchType} allowing to both match and sort messages for this query
+     */
+    static FetchType fetchType(SearchQuery query) {
+        if (query.getCriteria().stream().anyMatch(MessageSearches::needsFullContent)) {
+            return FetchType.Full;
+        }
+        boolean metadataOnly = query.getCriteria().stream().allMatch(MessageSearches::isMetadataOnly)
+            && query.getSorts().stream().map(SearchQuery.Sort::getSortClause).allMatch(METADATA_SORT_CLAUSES::contains);
+        if (metadataOnly) {
+            return FetchType.Metadata;
+        }
+        return FetchType.Headers;
+    }
 
     private final Iterator<MailboxMessage> messages;
     private final SearchQuery query;
+    private final List<SearchQuery.Criterion> criteria;
+    private final boolean metadataOnly;
     private final TextExtractor textExtractor;
     private final AttachmentContentLoader attachmentContentLoader;
     private final MailboxSession mailboxSession;
@@ -97,6 +181,13 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
     public MessageSearches(Iterator<MailboxMessage> messages, SearchQuery query, TextExtractor textExtractor, AttachmentContentLoader attachmentContentLoader, MailboxSession mailboxSession) {
         this.messages = messages;
         this.query = query;
+        // Cheap metadata criteria are evaluated first so that content is not read for messages they already discard
+        this.criteria = Optional.ofNullable(query.getCriteria())
+            .orElse(ImmutableList.of())
+            .stream()
+            .sorted(Comparator.comparing(criterion -> !isMetadataOnly(criterion)))
+            .collect(Guavate.toImmutableList());
+        this.metadataOnly = criteria.stream().allMatch(MessageSearches::isMetadataOnly);
         this.textExtractor = textExtractor;
         this.attachmentContentLoader = attachmentContentLoader;
         this.mailboxSession = mailboxSession;
@@ -104,27 +195,86 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
 
     @Override
     public Iterator<SimpleMessageSearchIndex.SearchResult> iterator() {
-        ImmutableList.Builder<MailboxMessage> builder = ImmutableList.builder();
-        while (messages.hasNext()) {
-            MailboxMessage m = messages.next();
-            try {
-                if (isMatch(m)) {
-                    builder.add(m);
-                }
-            } catch (MailboxException e) {
-                LOGGER.error("Unable to search message {}", m.getUid(), e);
-            }
-        }
-        return builder.build()
+        return matchingMessages()
             .stream()
             .sorted(CombinedComparator.create(query.getSorts()))
-            .map(mailboxMessage -> new SimpleMessageSearchIndex.SearchResult(
-                Optional.of(mailboxMessage.getMessageId()),
-                mailboxMessage.getMailboxId(),
-                mailboxMessage.getUid()))
+            .map(this::asSearchResult)
             .iterator();
     }
 
+    /**
+     * Sorted search results holding at most one result per {@link MessageId}, the first one in sort order.
+     *
+     * Rather than sorting every match, only the best match of each message id is kept and a heap bounded by the
+     * limit selects the returned ones. Ties are broken by encounter order, like a stable sort would.
+     */
+    public List<SimpleMessageSearchIndex.SearchResult> distinctMessageIdResults(int limit) {
+        if (limit <= 0) {
+            return ImmutableList.of();
+        }
+        List<MailboxMessage> matches = matchingMessages();
+        Comparator<MailboxMessage> messageComparator = CombinedComparator.create(query.getSorts());
+        Comparator<Integer> comparator = Comparator.<Integer, MailboxMessage>comparing(matches::get, messageComparator)
+            .thenComparing(Comparator.naturalOrder());
+
+        Map<MessageId, Integer> bestByMessageId = new HashMap<>();
+        for (int i = 0; i < matches.size(); i++) {
+            bestByMessageId.merge(matches.get(i).getMessageId(), i,
+                (current, candidate) -> comparator.compare(candidate, current) < 0 ? candidate : current);
+        }
+
+        PriorityQueue<Integer> topK = new PriorityQueue<>(Math.min(limit, bestByMessageId.size()) + 1, comparator.reversed());
+        for (Integer index : bestByMessageId.values()) {
+            topK.add(index);
+            if (topK.size() > limit) {
+                topK.poll();
+            }
+        }
+        return topK.stream()
+            .sorted(comparator)
+            .map(matches::get)
+            .map(this::asSearchResult)
+            .collect(Guavate.toImmutableList());
+    }
+
+    private SimpleMessageSearchIndex.SearchResult asSearchResult(MailboxMessage mailboxMessage) {
+        return new SimpleMessageSearchIndex.SearchResult(
+            Optional.of(mailboxMessage.getMessageId()),
+            mailboxMessage.getMailboxId(),
+            mailboxMessage.getUid());
+    }
+
+    /**
+     * Metadata only queries are cheap and matched on the calling thread. Otherwise reading and parsing the content
+     * of messages is spread over a bounded number of concurrent evaluations. Encounter order is preserved.
+     */
+    private List<MailboxMessage> matchingMessages() {
+        Iterable<MailboxMessage> iterable = () -> messages;
+        if (metadataOnly) {
+            return Flux.fromIterable(iterable)
+                .filter(this::isMatchLoggingErrors)
+                .collectList()
+                .block();
+        }
+        return Flux.fromIterable(iterable)
+            .flatMapSequential(message -> Mono.fromCallable(() -> isMatchLoggingErrors(message))
+                    .filter(Boolean::booleanValue)
+                    .map(any -> message)
+                    .subscribeOn(Schedulers.boundedElastic()),
+                CONTENT_MATCHING_PARALLELISM)
+            .collectList()
+            .block();
+    }
+
+    private boolean isMatchLoggingErrors(MailboxMessage message) {
+        try {
+            return isMatch(message);
+        } catch (MailboxException e) {
+            LOGGER.error("Unable to search message {}", message.getUid(), e);
+            return false;
+        }
+    }
+
     /**
      * Does the row match the given criteria?
      *
@@ -134,13 +284,11 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
      *         <code>false</code> otherwise
      */
     private boolean isMatch(MailboxMessage message) throws MailboxException {
-        final List<SearchQuery.Criterion> criteria = query.getCriteria();
         final Collection<MessageUid> recentMessageUids = query.getRecentMessageUids();
-        if (criteria != null) {
-            for (SearchQuery.Criterion criterion : criteria) {
-                if (!isMatch(criterion, message, recentMessageUids)) {
-                    return false;
-                }
+        SearchedMessage searchedMessage = new SearchedMessage(message);
+        for (SearchQuery.Criterion criterion : criteria) {
+            if (!isMatch(criterion, searchedMessage, recentMessageUids)) {
+                return false;
             }
         }
         return true;
@@ -160,13 +308,19 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
      */
     public boolean isMatch(SearchQuery.Criterion criterion, MailboxMessage message,
             final Collection<MessageUid> recentMessageUids) throws MailboxException {
+        return isMatch(criterion, new SearchedMessage(message), recentMessageUids);
+    }
+
+    private boolean isMatch(SearchQuery.Criterion criterion, SearchedMessage searchedMessage,
+            final Collection<MessageUid> recentMessageUids) throws MailboxException {
+        MailboxMessage message = searchedMessage.message;
         if (criterion instanceof SearchQuery.InternalDateCriterion) {
             return matches((SearchQuery.InternalDateCriterion) criterion, message);
         } else if (criterion instanceof SearchQuery.SizeCriterion) {
             return matches((SearchQuery.SizeCriterion) criterion, message);
         } else if (criterion instanceof SearchQuery.HeaderCriterion) {
             try {
-                return matches((SearchQuery.HeaderCriterion) criterion, message);
+                return matches((SearchQuery.HeaderCriterion) criterion, searchedMessage);
             } catch (IOException e) {
                 throw new MailboxException("Unable to search header", e);
             }
@@ -181,14 +335,14 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         } else if (criterion instanceof SearchQuery.AllCriterion) {
             return true;
         } else if (criterion instanceof SearchQuery.ConjunctionCriterion) {
-            return matches((SearchQuery.ConjunctionCriterion) criterion, message, recentMessageUids);
+            return matches((SearchQuery.ConjunctionCriterion) criterion, searchedMessage, recentMessageUids);
         } else if (criterion instanceof SearchQuery.AttachmentCriterion) {
             return matches((SearchQuery.AttachmentCriterion) criterion, message);
         } else if (criterion instanceof SearchQuery.ModSeqCriterion) {
             return matches((SearchQuery.ModSeqCriterion) criterion, message);
         } else if (criterion instanceof SearchQuery.MimeMessageIDCriterion) {
             SearchQuery.MimeMessageIDCriterion mimeMessageIDCriterion = (SearchQuery.MimeMessageIDCriterion) criterion;
-            return isMatch(mimeMessageIDCriterion.asHeaderCriterion(), message, recentMessageUids);
+            return isMatch(mimeMessageIDCriterion.asHeaderCriterion(), searchedMessage, recentMessageUids);
         } else {
             throw new UnsupportedSearchException();
         }
@@ -301,7 +455,7 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         }
     }
     
-    private boolean matches(SearchQuery.ConjunctionCriterion criterion, MailboxMessage message,
+    private boolean matches(SearchQuery.ConjunctionCriterion criterion, SearchedMessage message,
             final Collection<MessageUid> recentMessageUids) throws MailboxException {
         final List<SearchQuery.Criterion> criteria = criterion.getCriteria();
         switch (criterion.getType()) {
@@ -316,7 +470,7 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         }
     }
 
-    private boolean and(List<SearchQuery.Criterion> criteria, MailboxMessage message,
+    private boolean and(List<SearchQuery.Criterion> criteria, SearchedMessage message,
                         Collection<MessageUid> recentMessageUids) throws MailboxException {
         for (SearchQuery.Criterion criterion : criteria) {
             boolean matches = isMatch(criterion, message, recentMessageUids);
@@ -327,7 +481,7 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         return true;
     }
 
-    private boolean or(List<SearchQuery.Criterion> criteria, MailboxMessage message,
+    private boolean or(List<SearchQuery.Criterion> criteria, SearchedMessage message,
                        Collection<MessageUid> recentMessageUids) throws MailboxException {
         for (SearchQuery.Criterion criterion : criteria) {
             boolean matches = isMatch(criterion, message, recentMessageUids);
@@ -338,7 +492,7 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         return false;
     }
 
-    private boolean nor(List<SearchQuery.Criterion> criteria, MailboxMessage message,
+    private boolean nor(List<SearchQuery.Criterion> criteria, SearchedMessage message,
                         Collection<MessageUid> recentMessageUids) throws MailboxException {
         for (SearchQuery.Criterion criterion : criteria) {
             boolean matches = isMatch(criterion, message, recentMessageUids);
@@ -387,7 +541,7 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
             .anyMatch(numericRange -> numericRange.isIn(uid));
     }
 
-    private boolean matches(SearchQuery.HeaderCriterion criterion, MailboxMessage message)
+    private boolean matches(SearchQuery.HeaderCriterion criterion, SearchedMessage message)
             throws MailboxException, IOException {
         SearchQuery.HeaderOperator operator = criterion.getOperator();
         String headerName = criterion.getHeaderName();
@@ -409,9 +563,9 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
      * @return containsAddress
      */
     private boolean matchesAddress(SearchQuery.AddressOperator operator, String headerName,
-                                   MailboxMessage message) throws MailboxException, IOException {
+                                   SearchedMessage message) throws MailboxException, IOException {
         String text = operator.getAddress();
-        List<Header> headers = ResultUtils.createHeaders(message);
+        List<Header> headers = message.headers();
         for (Header header : headers) {
             String name = header.getName();
             if (headerName.equalsIgnoreCase(name)) {
@@ -458,8 +612,8 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
             AddressFormatter.DEFAULT.encode(mailbox));
     }
 
-    private boolean exists(String headerName, MailboxMessage message) throws MailboxException, IOException {
-        List<Header> headers = ResultUtils.createHeaders(message);
+    private boolean exists(String headerName, SearchedMessage message) throws MailboxException, IOException {
+        List<Header> headers = message.headers();
 
         return headers.stream()
             .map(Header::getName)
@@ -467,9 +621,9 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
     }
 
     private boolean matches(SearchQuery.ContainsOperator operator, String headerName,
-            MailboxMessage message) throws MailboxException, IOException {
+            SearchedMessage message) throws MailboxException, IOException {
         String text = operator.getValue().toUpperCase(Locale.US);
-        List<Header> headers = ResultUtils.createHeaders(message);
+        List<Header> headers = message.headers();
         for (Header header : headers) {
             String name = header.getName();
             if (headerName.equalsIgnoreCase(name)) {
@@ -484,7 +638,7 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         return false;
     }
 
-    private boolean matches(SearchQuery.DateOperator operator, String headerName, MailboxMessage message)
+    private boolean matches(SearchQuery.DateOperator operator, String headerName, SearchedMessage message)
             throws MailboxException {
 
         Date date = operator.getDate();
@@ -516,8 +670,8 @@ public class MessageSearches implements Iterable<SimpleMessageSearchIndex.Search
         }
     }
 
-    private String headerValue(String headerName, MailboxMessage message) throws MailboxException, IOException {
-        List<Header> headers = ResultUtils.createHeaders(message);
+    private String headerValue(String headerName, SearchedMessage message) throws MailboxException, IOException {
+        List<Header> headers = message.headers();
         for (Header header : headers) {
             String name = header.getName();
             if (headerName.equalsIgnoreCase(name)) {
@@ -53,7 +53,6 @@ import org.apache.james.mailbox.store.mail.MessageMapper;
 import org.apache.james.mailbox.store.mail.MessageMapper.FetchType;
 import org.apache.james.mailbox.store.mail.MessageMapperFactory;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
-import org.apache.james.mailbox.store.search.comparator.CombinedComparator;
 import org.apache.james.util.streams.Iterators;
 
 import com.google.common.base.Preconditions;
@@ -124,6 +123,8 @@ public class SimpleMessageSearchIndex implements MessageSearchIndex {
         MessageMapper mapper = messageMapperFactory.getMessageMapper(session);
 
         final SortedSet<MailboxMessage> hitSet = new TreeSet<>();
+        // only read what matching and sorting need: content is not loaded for metadata only queries
+        FetchType fetchType = MessageSearches.fetchType(query);
 
         UidCriterion uidCrit = findConjugatedUidCriterion(query.getCriteria());
         if (uidCrit != null) {
@@ -131,14 +132,14 @@ public class SimpleMessageSearchIndex implements MessageSearchIndex {
             // only fetching this uid range
             UidRange[] ranges = uidCrit.getOperator().getRange();
             for (UidRange r : ranges) {
-                Iterator<MailboxMessage> it = mapper.findInMailbox(mailbox, MessageRange.range(r.getLowValue(), r.getHighValue()), FetchType.Metadata, UNLIMITED);
+                Iterator<MailboxMessage> it = mapper.findInMailbox(mailbox, MessageRange.range(r.getLowValue(), r.getHighValue()), fetchType, UNLIMITED);
                 while (it.hasNext()) {
                     hitSet.add(it.next());
                 }
             }
         } else {
             // we have to fetch all messages
-            Iterator<MailboxMessage> messages = mapper.findInMailbox(mailbox, MessageRange.all(), FetchType.Full, UNLIMITED);
+            Iterator<MailboxMessage> messages = mapper.findInMailbox(mailbox, MessageRange.all(), fetchType, UNLIMITED);
             while (messages.hasNext()) {
                 MailboxMessage m = messages.next();
                 hitSet.add(m);
@@ -155,12 +156,17 @@ public class SimpleMessageSearchIndex implements MessageSearchIndex {
             Flux.fromIterable(mailboxIds)
             .concatMap(mailboxMapper::findMailboxById);
 
-        return getAsMessageIds(searchResults(session, filteredMailboxes, searchQuery), limit);
+        return filteredMailboxes.concatMap(mailbox -> Flux.fromStream(getSearchResultStream(session, searchQuery, mailbox)))
+            .collectList()
+            .flatMapIterable(list -> new MessageSearches(list.iterator(), searchQuery, textExtractor, attachmentContentLoader, session)
+                .distinctMessageIdResults(Long.valueOf(limit).intValue()))
+            .map(searchResult -> searchResult.getMessageId().get())
+            .subscribeOn(Schedulers.elastic());
     }
 
     private Flux<? extends SearchResult> searchResults(MailboxSession session, Flux<Mailbox> mailboxes, SearchQuery query) throws MailboxException {
         return mailboxes.concatMap(mailbox -> Flux.fromStream(getSearchResultStream(session, query, mailbox)))
-            .collectSortedList(CombinedComparator.create(query.getSorts()))
+            .collectList()
             .flatMapMany(list -> Iterators.toFlux(new MessageSearches(list.iterator(), query, textExtractor, attachmentContentLoader, session).iterator()))
             .subscribeOn(Schedulers.elastic());
     }
@@ -173,10 +179,4 @@ public class SimpleMessageSearchIndex implements MessageSearchIndex {
         }
     }
 
-    private Flux<MessageId> getAsMessageIds(Flux<? extends SearchResult> temp, long limit) {
-        return temp.map(searchResult -> searchResult.getMessageId().get())
-            .filter(SearchUtil.distinct())
-            .take(Long.valueOf(limit).intValue());
-    }
-
 }
@@ -112,6 +112,34 @@ public abstract class AttachmentMapperTest {
             .hasSameContentAs(new ByteArrayInputStream(bytes));
     }
 
+    @Test
+    void loadAttachmentContentShouldReturnRequestedRange() throws Exception {
+        ContentType content = ContentType.of("content");
+        byte[] bytes = "payload".getBytes(StandardCharsets.UTF_8);
+
+        AttachmentMetadata stored = Mono.from(attachmentMapper.storeAttachmentForOwner(content, new ByteArrayInputStream(bytes), OWNER)).block();
+
+        assertThat(attachmentMapper.loadAttachmentContent(stored.getAttachmentId(), 2, 3))
+            .hasSameContentAs(new ByteArrayInputStream("ylo".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void loadAttachmentContentShouldTruncateRangeExceedingTheContent() throws Exception {
+        ContentType content = ContentType.of("content");
+        byte[] bytes = "payload".getBytes(StandardCharsets.UTF_8);
+
+        AttachmentMetadata stored = Mono.from(attachmentMapper.storeAttachmentForOwner(content, new ByteArrayInputStream(bytes), OWNER)).block();
+
+        assertThat(attachmentMapper.loadAttachmentContent(stored.getAttachmentId(), 4, 100))
+            .hasSameContentAs(new ByteArrayInputStream("oad".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void loadAttachmentContentWithRangeShouldThrowWhenUnknownAttachment() {
+        assertThatThrownBy(() -> attachmentMapper.loadAttachmentContent(UNKNOWN_ATTACHMENT_ID, 0, 10))
+            .isInstanceOf(AttachmentNotFoundException.class);
+    }
+
     @Test
     void getAttachmentsShouldThrowWhenNullAttachmentId() {
         assertThatThrownBy(() -> attachmentMapper.getAttachments(null))
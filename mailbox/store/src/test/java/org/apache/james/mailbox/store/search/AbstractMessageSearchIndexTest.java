@@ -331,6 +331,49 @@ public abstract class AbstractMessageSearchIndexTest {
             .hasSize(limit);
     }
 
+    @Test
+    void metadataOnlySearchInMultipleMailboxShouldNotReturnTwiceTheSameMessage() throws MailboxException {
+        assumeTrue(messageIdManager != null);
+        messageIdManager.setInMailboxes(m2.getMessageId(),
+            ImmutableList.of(mailbox.getMailboxId(), mailbox2.getMailboxId()),
+            session);
+
+        awaitMessageCount(ImmutableList.of(), SearchQuery.matchAll(), 14);
+
+        List<MessageId> result = messageSearchIndex.search(session,
+            ImmutableList.of(mailbox.getMailboxId(), mailbox2.getMailboxId()),
+            SearchQuery.of(SearchQuery.flagIsSet(Flags.Flag.ANSWERED)),
+            LIMIT)
+            .collectList().block();
+
+        assertThat(result)
+            .containsExactly(m2.getMessageId());
+    }
+
+    @Test
+    void searchingMessageInMultipleMailboxShouldApplyTheLimitToDistinctMessages() throws MailboxException {
+        assumeTrue(messageIdManager != null);
+        messageIdManager.setInMailboxes(m9.getMessageId(), ImmutableList.of(mailbox.getMailboxId(), mailbox2.getMailboxId()), session);
+        messageIdManager.setInMailboxes(m8.getMessageId(), ImmutableList.of(mailbox.getMailboxId(), mailbox2.getMailboxId()), session);
+
+        awaitMessageCount(ImmutableList.of(), SearchQuery.matchAll(), 15);
+
+        int limit = 3;
+        SearchQuery searchQuery = SearchQuery.builder()
+            .andCriteria(SearchQuery.flagIsUnSet(Flags.Flag.DELETED))
+            .sorts(new Sort(SortClause.Uid, Order.REVERSE))
+            .build();
+        List<MessageId> result = messageSearchIndex.search(session,
+            ImmutableList.of(mailbox.getMailboxId(), mailbox2.getMailboxId()),
+            searchQuery,
+            limit)
+            .collectList().block();
+
+        assertThat(result)
+            .hasSize(limit)
+            .doesNotHaveDuplicates();
+    }
+
     @Test
     void whenEmptyListOfMailboxGivenSearchShouldReturnEmpty() throws MailboxException {
         SearchQuery searchQuery = SearchQuery.matchAll();
@@ -1137,6 +1180,28 @@ public abstract class AbstractMessageSearchIndexTest {
             .containsExactly(m1.getUid(), m2.getUid(), m3.getUid(), m5.getUid(), m4.getUid(), m6.getUid(), m7.getUid(), m8.getUid(), m9.getUid());
     }
 
+    @Test
+    void metadataOnlySearchShouldBeSortedOnMetadata() throws Exception {
+        SearchQuery searchQuery = SearchQuery.builder()
+            .andCriteria(SearchQuery.flagIsUnSet(Flags.Flag.DELETED), SearchQuery.flagIsUnSet(Flags.Flag.SEEN))
+            .sorts(new Sort(SortClause.Uid, Order.REVERSE))
+            .build();
+
+        assertThat(messageSearchIndex.search(session, mailbox, searchQuery).toStream())
+            .containsExactly(m9.getUid(), m8.getUid(), m7.getUid(), m5.getUid(), m4.getUid(), m3.getUid(), m2.getUid());
+    }
+
+    @Test
+    void metadataOnlySearchShouldCombineUidAndFlagCriteria() throws Exception {
+        SearchQuery searchQuery = SearchQuery.of(
+            SearchQuery.uid(new SearchQuery.UidRange(m1.getUid(), m5.getUid())),
+            SearchQuery.flagIsUnSet(Flags.Flag.DELETED),
+            SearchQuery.flagIsUnSet(Flags.Flag.FLAGGED));
+
+        assertThat(messageSearchIndex.search(session, mailbox, searchQuery).toStream())
+            .containsOnly(m2.getUid(), m3.getUid(), m4.getUid());
+    }
+
     @Test
     void revertSortingShouldReturnElementsInAReversedOrder() throws Exception {
         SearchQuery searchQuery = SearchQuery.allSortedWith(new Sort(SortClause.Arrival, Order.REVERSE));
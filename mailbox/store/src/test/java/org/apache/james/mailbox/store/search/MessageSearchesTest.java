@@ -0,0 +1,216 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.store.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.mail.Flags;
+
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.model.MessageId;
+import org.apache.james.mailbox.model.SearchQuery;
+import org.apache.james.mailbox.model.SearchQuery.Sort;
+import org.apache.james.mailbox.model.SearchQuery.Sort.Order;
+import org.apache.james.mailbox.model.SearchQuery.Sort.SortClause;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.store.MessageBuilder;
+import org.apache.james.mailbox.store.mail.MessageMapper.FetchType;
+import org.apache.james.mailbox.store.mail.model.DefaultMessageId;
+import org.apache.james.mailbox.store.mail.model.MailboxMessage;
+import org.junit.jupiter.api.Test;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
+
+class MessageSearchesTest {
+    private static final TestId MAILBOX_ID_1 = TestId.of(1);
+    private static final TestId MAILBOX_ID_2 = TestId.of(2);
+
+    private MessageSearches messageSearches(List<MailboxMessage> messages, SearchQuery query) {
+        return new MessageSearches(messages.iterator(), query, null, null, null);
+    }
+
+    private MailboxMessage message(TestId mailboxId, long uid, MessageId messageId) throws Exception {
+        return new MessageBuilder()
+            .mailboxId(mailboxId)
+            .uid(MessageUid.of(uid))
+            .build(messageId);
+    }
+
+    @Test
+    void isMetadataOnlyShouldBeTrueForMetadataCriteria() {
+        assertThat(ImmutableList.of(
+                SearchQuery.all(),
+                SearchQuery.uid(new SearchQuery.UidRange(MessageUid.of(1), MessageUid.of(5))),
+                SearchQuery.flagIsSet(Flags.Flag.SEEN),
+                SearchQuery.flagIsSet("custom"),
+                SearchQuery.sizeGreaterThan(12),
+                SearchQuery.internalDateAfter(new Date(), SearchQuery.DateResolution.Day),
+                SearchQuery.modSeqGreaterThan(3),
+                SearchQuery.and(SearchQuery.flagIsUnSet(Flags.Flag.DELETED), SearchQuery.sizeLessThan(36))))
+            .allMatch(MessageSearches::isMetadataOnly);
+    }
+
+    @Test
+    void isMetadataOnlyShouldBeFalseForHeaderAndContentCriteria() {
+        assertThat(ImmutableList.of(
+                SearchQuery.headerContains("Subject", "james"),
+                SearchQuery.address(SearchQuery.AddressType.From, "bob@domain.tld"),
+                SearchQuery.bodyContains("james"),
+                SearchQuery.hasAttachment()))
+            .noneMatch(MessageSearches::isMetadataOnly);
+    }
+
+    @Test
+    void isMetadataOnlyShouldBeFalseWhenAConjunctionContainsAHeaderCriterion() {
+        assertThat(MessageSearches.isMetadataOnly(
+                SearchQuery.or(SearchQuery.flagIsSet(Flags.Flag.SEEN), SearchQuery.headerExists("Subject"))))
+            .isFalse();
+    }
+
+    @Test
+    void fetchTypeShouldBeMetadataForMetadataCriteriaAndSorts() {
+        SearchQuery query = SearchQuery.builder()
+            .andCriteria(SearchQuery.flagIsSet(Flags.Flag.SEEN), SearchQuery.sizeGreaterThan(12))
+            .sorts(new Sort(SortClause.Arrival, Order.REVERSE), new Sort(SortClause.Uid))
+            .build();
+
+        assertThat(MessageSearches.fetchType(query)).isEqualTo(FetchType.Metadata);
+    }
+
+    @Test
+    void fetchTypeShouldBeHeadersWhenSortingOnHeaders() {
+        SearchQuery query = SearchQuery.builder()
+            .andCriteria(SearchQuery.flagIsSet(Flags.Flag.SEEN))
+            .sorts(new Sort(SortClause.BaseSubject))
+            .build();
+
+        assertThat(MessageSearches.fetchType(query)).isEqualTo(FetchType.Headers);
+    }
+
+    @Test
+    void fetchTypeShouldBeHeadersForHeaderCriteria() {
+        SearchQuery query = SearchQuery.of(SearchQuery.headerContains("Subject", "james"));
+
+        assertThat(MessageSearches.fetchType(query)).isEqualTo(FetchType.Headers);
+    }
+
+    @Test
+    void fetchTypeShouldBeFullWhenAConjunctionReadsContent() {
+        SearchQuery query = SearchQuery.of(
+            SearchQuery.or(SearchQuery.flagIsSet(Flags.Flag.SEEN), SearchQuery.bodyContains("james")));
+
+        assertThat(MessageSearches.fetchType(query)).isEqualTo(FetchType.Full);
+    }
+
+    @Test
+    void metadataOnlySearchShouldReturnMatchesInSortOrder() {
+        List<MailboxMessage> messages = IntStream.rangeClosed(1, 10)
+            .mapToObj(uid -> new MessageBuilder()
+                .uid(MessageUid.of(uid))
+                .size(uid * 10))
+            .map(this::build)
+            .collect(Guavate.toImmutableList());
+        SearchQuery query = SearchQuery.builder()
+            .andCriteria(SearchQuery.sizeGreaterThan(55))
+            .sorts(new Sort(SortClause.Uid, Order.REVERSE))
+            .build();
+
+        assertThat(ImmutableList.copyOf(messageSearches(messages, query)))
+            .extracting(SimpleMessageSearchIndex.SearchResult::getMessageUid)
+            .containsExactly(MessageUid.of(10), MessageUid.of(9), MessageUid.of(8), MessageUid.of(7), MessageUid.of(6));
+    }
+
+    @Test
+    void concurrentHeaderEvaluationShouldPreserveSortOrder() {
+        List<MailboxMessage> messages = IntStream.rangeClosed(1, 200)
+            .mapToObj(uid -> new MessageBuilder()
+                .uid(MessageUid.of(uid))
+                .header("Subject", uid % 2 == 0 ? "even" : "odd"))
+            .map(this::build)
+            .collect(Guavate.toImmutableList());
+        SearchQuery query = SearchQuery.builder()
+            .andCriteria(SearchQuery.sizeGreaterThan(0), SearchQuery.headerContains("Subject", "even"))
+            .sorts(new Sort(SortClause.Uid, Order.REVERSE))
+            .build();
+
+        assertThat(ImmutableList.copyOf(messageSearches(messages, query)))
+            .extracting(SimpleMessageSearchIndex.SearchResult::getMessageUid)
+            .containsExactlyElementsOf(IntStream.iterate(200, uid -> uid - 2)
+                .limit(100)
+                .mapToObj(MessageUid::of)
+                .collect(Guavate.toImmutableList()));
+    }
+
+    @Test
+    void distinctMessageIdResultsShouldKeepTheFirstResultOfAMessageInSeveralMailboxes() throws Exception {
+        MessageId messageId = new DefaultMessageId();
+        List<MailboxMessage> messages = ImmutableList.of(
+            message(MAILBOX_ID_1, 8, messageId),
+            message(MAILBOX_ID_2, 3, messageId));
+
+        List<SimpleMessageSearchIndex.SearchResult> results = messageSearches(messages, SearchQuery.matchAll())
+            .distinctMessageIdResults(10);
+
+        assertThat(results)
+            .extracting(SimpleMessageSearchIndex.SearchResult::getMailboxId, SimpleMessageSearchIndex.SearchResult::getMessageUid)
+            .containsExactly(tuple(MAILBOX_ID_2, MessageUid.of(3)));
+    }
+
+    @Test
+    void distinctMessageIdResultsShouldApplyTheLimitAfterDeduplication() throws Exception {
+        MessageId duplicated = new DefaultMessageId();
+        MessageId other1 = new DefaultMessageId();
+        MessageId other2 = new DefaultMessageId();
+        List<MailboxMessage> messages = ImmutableList.of(
+            message(MAILBOX_ID_1, 1, duplicated),
+            message(MAILBOX_ID_2, 2, duplicated),
+            message(MAILBOX_ID_1, 3, other1),
+            message(MAILBOX_ID_1, 4, other2));
+
+        List<SimpleMessageSearchIndex.SearchResult> results = messageSearches(messages, SearchQuery.matchAll())
+            .distinctMessageIdResults(2);
+
+        assertThat(results)
+            .extracting(result -> result.getMessageId().get())
+            .containsExactly(duplicated, other1);
+    }
+
+    @Test
+    void distinctMessageIdResultsShouldReturnEmptyWhenLimitIsZero() throws Exception {
+        List<MailboxMessage> messages = ImmutableList.of(message(MAILBOX_ID_1, 1, new DefaultMessageId()));
+
+        assertThat(messageSearches(messages, SearchQuery.matchAll()).distinctMessageIdResults(0))
+            .isEmpty();
+    }
+
+    private MailboxMessage build(MessageBuilder builder) {
+        try {
+            return builder.build();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -20,11 +20,13 @@
 package org.apache.james.mpt.imapmailbox.elasticsearch.host;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.ZoneId;
 
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.james.backends.es.v7.DockerElasticSearch;
 import org.apache.james.backends.es.v7.DockerElasticSearchSingleton;
+import org.apache.james.backends.es.v7.ElasticSearchBulkIndexer;
 import org.apache.james.backends.es.v7.ElasticSearchConfiguration;
 import org.apache.james.backends.es.v7.ElasticSearchIndexer;
 import org.apache.james.backends.es.v7.ReactorElasticSearchClient;
@@ -88,6 +90,9 @@ public class ElasticSearchHostSystem extends JamesImapHostSystem {
 
         InMemoryMessageId.Factory messageIdFactory = new InMemoryMessageId.Factory();
         MailboxIdRoutingKeyFactory routingKeyFactory = new MailboxIdRoutingKeyFactory();
+        ElasticSearchIndexer indexer = new ElasticSearchIndexer(client,
+            MailboxElasticSearchConstants.DEFAULT_MAILBOX_WRITE_ALIAS);
+        ElasticSearchBulkIndexer bulkIndexer = new ElasticSearchBulkIndexer(indexer, 1, Duration.ZERO, new DefaultMetricFactory());
 
         InMemoryIntegrationResources resources = InMemoryIntegrationResources.builder()
             .authenticator(authenticator)
@@ -97,8 +102,8 @@ public class ElasticSearchHostSystem extends JamesImapHostSystem {
             .defaultMessageParser()
             .listeningSearchIndex(preInstanciationStage -> new ElasticSearchListeningMessageSearchIndex(
                 preInstanciationStage.getMapperFactory(),
-                new ElasticSearchIndexer(client,
-                    MailboxElasticSearchConstants.DEFAULT_MAILBOX_WRITE_ALIAS),
+                indexer,
+                bulkIndexer,
                 new ElasticSearchSearcher(client, new QueryConverter(new CriterionConverter()), ElasticSearchSearcher.DEFAULT_SEARCH_SIZE,
                     new InMemoryId.Factory(), messageIdFactory,
                     MailboxElasticSearchConstants.DEFAULT_MAILBOX_READ_ALIAS, routingKeyFactory),
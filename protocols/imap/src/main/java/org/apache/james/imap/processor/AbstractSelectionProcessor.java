@@ -69,6 +69,7 @@ abstract class AbstractSelectionProcessor<R extends AbstractMailboxSelectionRequ
     private final StatusResponseFactory statusResponseFactory;
     private final boolean openReadOnly;
     private final EventBus eventBus;
+    private final MetricFactory metricFactory;
     
     public AbstractSelectionProcessor(Class<R> acceptableClass, ImapProcessor next, MailboxManager mailboxManager, StatusResponseFactory statusResponseFactory, boolean openReadOnly,
                                       MetricFactory metricFactory, EventBus eventBus) {
@@ -77,6 +78,7 @@ abstract class AbstractSelectionProcessor<R extends AbstractMailboxSelectionRequ
         this.openReadOnly = openReadOnly;
 
         this.eventBus = eventBus;
+        this.metricFactory = metricFactory;
     }
 
     @Override
@@ -399,7 +401,7 @@ abstract class AbstractSelectionProcessor<R extends AbstractMailboxSelectionRequ
             if (currentMailbox != null) {
                 getStatusResponseFactory().untaggedOk(HumanReadableText.QRESYNC_CLOSED, ResponseCode.closed());
             }
-            session.selected(new SelectedMailboxImpl(getMailboxManager(), eventBus, session, mailbox));
+            session.selected(new SelectedMailboxImpl(getMailboxManager(), eventBus, session, mailbox, metricFactory));
 
             sessionMailbox = session.getSelected();
             
@@ -24,14 +24,13 @@ import static io.vavr.API.Case;
 import static io.vavr.API.Match;
 import static io.vavr.Predicates.instanceOf;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
@@ -60,10 +59,13 @@ import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.model.SearchQuery;
 import org.apache.james.mailbox.model.UpdatedFlags;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
 
 import com.github.steveash.guavate.Guavate;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -71,9 +73,17 @@ import reactor.core.scheduler.Schedulers;
 
 /**
  * Default implementation of {@link SelectedMailbox}
+ *
+ * Event ingestion relies on concurrent collections and atomic fields rather than on the instance monitor so that event
+ * bus dispatch never waits on the IMAP worker thread currently serving this session.
  */
 public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
-
+    /**
+     * Server wide count of the flag updates and expunges received by selected mailboxes and not yet sent to their
+     * clients. Each session adds its own pending updates and removes them once they are sent or upon deselection, so
+     * that the metric is the sum over all sessions rather than a per session value.
+     */
+    public static final String PENDING_UNSOLICITED_UPDATES_METRIC_NAME = "IMAP-pendingUnsolicitedUpdates";
 
     private static final Void VOID = null;
 
@@ -125,22 +135,24 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     private final MailboxSession.SessionId sessionId;
     private final MailboxSession mailboxSession;
     private final UidMsnConverter uidMsnConverter;
-    private final Set<MessageUid> recentUids = new TreeSet<>();
-    private final Set<MessageUid> flagUpdateUids = new TreeSet<>();
+    private final Set<MessageUid> recentUids = new ConcurrentSkipListSet<>();
+    private final Set<MessageUid> flagUpdateUids = new ConcurrentSkipListSet<>();
     private final Flags.Flag uninterestingFlag = Flags.Flag.RECENT;
-    private final Set<MessageUid> expungedUids = new TreeSet<>();
-    private final Object applicableFlagsLock = new Object();
+    private final Set<MessageUid> expungedUids = new ConcurrentSkipListSet<>();
+    private final AtomicReference<ApplicableFlags> applicableFlags = new AtomicReference<>(ApplicableFlags.from(new Flags()));
+    private final Metric pendingUnsolicitedUpdates;
 
-    private boolean recentUidRemoved = false;
-    private boolean isDeletedByOtherSession = false;
-    private boolean sizeChanged = false;
-    private boolean silentFlagChanges = false;
-    private ApplicableFlags applicableFlags = ApplicableFlags.from(new Flags());
+    private volatile boolean recentUidRemoved = false;
+    private volatile boolean isDeletedByOtherSession = false;
+    private volatile boolean sizeChanged = false;
+    private volatile boolean silentFlagChanges = false;
 
-    public SelectedMailboxImpl(MailboxManager mailboxManager, EventBus eventBus, ImapSession session, MessageManager messageManager) throws MailboxException {
+    public SelectedMailboxImpl(MailboxManager mailboxManager, EventBus eventBus, ImapSession session, MessageManager messageManager,
+                               MetricFactory metricFactory) throws MailboxException {
         this.session = session;
         this.sessionId = session.getMailboxSession().getSessionId();
         this.mailboxManager = mailboxManager;
+        this.pendingUnsolicitedUpdates = metricFactory.generate(PENDING_UNSOLICITED_UPDATES_METRIC_NAME);
         
         // Ignore events from our session
         setSilentFlagChanges(true);
@@ -155,9 +167,8 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
             .subscribeOn(Schedulers.elastic())
             .block();
 
-        synchronized (applicableFlagsLock) {
-            applicableFlags = applicableFlags.updateWithNewFlags(messageManager.getApplicableFlags(mailboxSession));
-        }
+        Flags initialApplicableFlags = messageManager.getApplicableFlags(mailboxSession);
+        applicableFlags.updateAndGet(flags -> flags.updateWithNewFlags(initialApplicableFlags));
         ImmutableList<MessageUid> uids = Flux.from(messageManager.search(SearchQuery.of(SearchQuery.all()), mailboxSession))
             .collect(Guavate.toImmutableList())
             .block();
@@ -165,12 +176,12 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     }
 
     @Override
-    public synchronized Optional<MessageUid> getFirstUid() {
+    public Optional<MessageUid> getFirstUid() {
         return uidMsnConverter.getFirstUid();
     }
 
     @Override
-    public synchronized Optional<MessageUid> getLastUid() {
+    public Optional<MessageUid> getLastUid() {
         return uidMsnConverter.getLastUid();
     }
 
@@ -179,14 +190,14 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
         registration.unregister();
         
         uidMsnConverter.clear();
-        flagUpdateUids.clear();
+        drain(flagUpdateUids);
 
-        expungedUids.clear();
+        drain(expungedUids);
         recentUids.clear();
     }
 
     @Override
-    public synchronized  boolean removeRecent(MessageUid uid) {
+    public boolean removeRecent(MessageUid uid) {
         final boolean result = recentUids.remove(uid);
         if (result) {
             recentUidRemoved = true;
@@ -195,18 +206,18 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     }
 
     @Override
-    public synchronized boolean addRecent(MessageUid uid) {
+    public boolean addRecent(MessageUid uid) {
         return recentUids.add(uid);
     }
 
     @Override
-    public synchronized Collection<MessageUid> getRecent() {
+    public Collection<MessageUid> getRecent() {
         checkExpungedRecents();
-        return new ArrayList<>(recentUids);
+        return ImmutableList.copyOf(recentUids);
     }
 
     @Override
-    public synchronized int recentCount() {
+    public int recentCount() {
         checkExpungedRecents();
         return recentUids.size();
     }
@@ -222,33 +233,49 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     }
 
     private void checkExpungedRecents() {
-        for (MessageUid uid : expungedUids()) {
+        for (MessageUid uid : expungedUids) {
             removeRecent(uid);
         }
     }
 
     @Override
-    public synchronized boolean isRecent(MessageUid uid) {
+    public boolean isRecent(MessageUid uid) {
         return recentUids.contains(uid);
     }
 
     @Override
-    public synchronized boolean isRecentUidRemoved() {
+    public boolean isRecentUidRemoved() {
         return recentUidRemoved;
     }
 
     @Override
-    public synchronized void resetRecentUidRemoved() {
+    public void resetRecentUidRemoved() {
         recentUidRemoved = false;
     }
 
     @Override
-    public synchronized void resetEvents() {
+    public void resetEvents() {
         sizeChanged = false;
-        flagUpdateUids.clear();
+        drain(flagUpdateUids);
         isDeletedByOtherSession = false;
-        synchronized (applicableFlagsLock) {
-            applicableFlags = applicableFlags.ackUpdates();
+        applicableFlags.updateAndGet(ApplicableFlags::ackUpdates);
+    }
+
+    /**
+     * Removes entries one by one so that the pending update metric stays accurate even when events are concurrently
+     * added to the set.
+     */
+    private void drain(Set<MessageUid> pendingUids) {
+        for (MessageUid uid : pendingUids) {
+            if (pendingUids.remove(uid)) {
+                pendingUnsolicitedUpdates.decrement();
+            }
+        }
+    }
+
+    private void addPending(Set<MessageUid> pendingUids, MessageUid uid) {
+        if (pendingUids.add(uid)) {
+            pendingUnsolicitedUpdates.increment();
         }
     }
 
@@ -283,8 +310,8 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     
     
     @Override
-    public synchronized void resetExpungedUids() {
-        expungedUids.clear();
+    public void resetExpungedUids() {
+        drain(expungedUids);
     }
 
     /**
@@ -293,7 +320,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
      * @return true if any flag changes from current session will be ignored,
      *         false otherwise
      */
-    public final synchronized boolean isSilentFlagChanges() {
+    public final boolean isSilentFlagChanges() {
         return silentFlagChanges;
     }
 
@@ -304,7 +331,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
      *            true if any flag changes from current session should be
      *            ignored, false otherwise
      */
-    public final synchronized void setSilentFlagChanges(boolean silentFlagChanges) {
+    public final void setSilentFlagChanges(boolean silentFlagChanges) {
         this.silentFlagChanges = silentFlagChanges;
     }
 
@@ -315,7 +342,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
      */
 
     @Override
-    public final synchronized boolean isSizeChanged() {
+    public final boolean isSizeChanged() {
         return sizeChanged;
     }
 
@@ -327,7 +354,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
      */
 
     @Override
-    public final synchronized boolean isDeletedByOtherSession() {
+    public final boolean isDeletedByOtherSession() {
         return isDeletedByOtherSession;
     }
 
@@ -335,45 +362,41 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
      * Return a unmodifiable {@link Collection} of uids which have updated flags
      */
     @Override
-    public synchronized Collection<MessageUid> flagUpdateUids() {
-        // copy the TreeSet to fix possible
+    public Collection<MessageUid> flagUpdateUids() {
+        // Snapshot of a concurrent set: iteration never throws
         // java.util.ConcurrentModificationException
         // See IMAP-278
-        return Collections.unmodifiableSet(new TreeSet<>(flagUpdateUids));
-        
+        return ImmutableSet.copyOf(flagUpdateUids);
     }
 
     @Override
-    public synchronized Collection<MessageUid> expungedUids() {
-        // copy the TreeSet to fix possible
+    public Collection<MessageUid> expungedUids() {
+        // Snapshot of a concurrent set: iteration never throws
         // java.util.ConcurrentModificationException
         // See IMAP-278
-        return Collections.unmodifiableSet(new TreeSet<>(expungedUids));
-        
+        return ImmutableSet.copyOf(expungedUids);
     }
 
     @Override
     public Flags getApplicableFlags() {
-        return applicableFlags.flags();
+        return applicableFlags.get().flags();
     }
 
     
     @Override
     public boolean hasNewApplicableFlags() {
-        return applicableFlags.updated();
+        return applicableFlags.get().updated();
     }
 
     
     @Override
-    public synchronized void resetNewApplicableFlags() {
-        synchronized (applicableFlagsLock) {
-            applicableFlags = applicableFlags.ackUpdates();
-        }
+    public void resetNewApplicableFlags() {
+        applicableFlags.updateAndGet(ApplicableFlags::ackUpdates);
     }
 
     
     @Override
-    public synchronized void event(Event event) {
+    public void event(Event event) {
 
         if (event instanceof MailboxEvent) {
             MailboxEvent mailboxEvent = (MailboxEvent) event;
@@ -406,7 +429,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     }
 
     private Void handleMailboxExpunge(MessageEvent messageEvent) {
-        expungedUids.addAll(messageEvent.getUids());
+        messageEvent.getUids().forEach(uid -> addPending(expungedUids, uid));
         return VOID;
     }
 
@@ -416,7 +439,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
 
             for (UpdatedFlags u : uFlags) {
                 if (interestingFlags(u)) {
-                    flagUpdateUids.add(u.getUid());
+                    addPending(flagUpdateUids, u.getUid());
                 }
             }
         }
@@ -441,9 +464,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
                 }
             }
         }
-        synchronized (applicableFlagsLock) {
-            applicableFlags = updateApplicableFlags(applicableFlags, updated);
-        }
+        applicableFlags.updateAndGet(flags -> updateApplicableFlags(flags, updated));
         return VOID;
     }
 
@@ -473,12 +494,12 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
     }
 
     @Override
-    public synchronized NullableMessageSequenceNumber msn(MessageUid uid) {
+    public NullableMessageSequenceNumber msn(MessageUid uid) {
         return uidMsnConverter.getMsn(uid);
     }
 
     @Override
-    public synchronized Optional<MessageUid> uid(int msn) {
+    public Optional<MessageUid> uid(int msn) {
         if (msn == NO_SUCH_MESSAGE) {
             return Optional.empty();
         }
@@ -488,7 +509,7 @@ public class SelectedMailboxImpl implements SelectedMailbox, EventListener {
 
     
     @Override
-    public synchronized long existsCount() {
+    public long existsCount() {
         return uidMsnConverter.getNumMessage();
     }
 }
@@ -19,97 +19,323 @@
 
 package org.apache.james.imap.processor.base;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.TreeSet;
 
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.NullableMessageSequenceNumber;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
 
+/**
+ * Maps message sequence numbers to UIDs for a selected mailbox.
+ *
+ * UIDs are stored as runs of contiguous values in primitive arrays: the first UID of each run together with the
+ * number of messages preceding it. Lookups are binary searches over the runs.
+ *
+ * Readers do not lock: they work on an immutable {@link UidRuns} view published through a volatile field. Writers are
+ * serialized. Appending only writes array slots that no published view can see, any other update copies the arrays.
+ */
 public class UidMsnConverter {
 
     public static final int FIRST_MSN = 1;
+    private static final int INITIAL_CAPACITY = 16;
 
-    @VisibleForTesting final ArrayList<MessageUid> uids;
+    private static class UidRuns {
+        static UidRuns empty() {
+            return new UidRuns(new long[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0, 0);
+        }
+
+        static UidRuns of(long[] sortedDistinctUids) {
+            UidRuns result = empty();
+            for (long uid : sortedDistinctUids) {
+                result = result.append(uid);
+            }
+            return result;
+        }
+
+        private final long[] runStarts;
+        private final int[] runOffsets;
+        private final int runCount;
+        private final int messageCount;
+
+        private UidRuns(long[] runStarts, int[] runOffsets, int runCount, int messageCount) {
+            this.runStarts = runStarts;
+            this.runOffsets = runOffsets;
+            this.runCount = runCount;
+            this.messageCount = messageCount;
+        }
+
+        boolean isEmpty() {
+            return messageCount == 0;
+        }
+
+        int runLength(int run) {
+            int nextOffset = run == runCount - 1 ? messageCount : runOffsets[run + 1];
+            return nextOffset - runOffsets[run];
+        }
+
+        long firstUid() {
+            return runStarts[0];
+        }
+
+        long lastUid() {
+            int lastRun = runCount - 1;
+            return runStarts[lastRun] + runLength(lastRun) - 1;
+        }
+
+        /**
+         * @return the index of the run that would hold this UID, -1 if the UID is lower than every stored UID
+         */
+        int runOfUid(long uid) {
+            int low = 0;
+            int high = runCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (runStarts[middle] <= uid) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        int runOfMsn(int msn) {
+            int low = 0;
+            int high = runCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (runOffsets[middle] < msn) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        boolean contains(long uid) {
+            return positionOf(uid) >= 0;
+        }
+
+        /**
+         * @return the zero based position of this UID, -1 if it is not stored
+         */
+        int positionOf(long uid) {
+            int run = runOfUid(uid);
+            if (run < 0) {
+                return -1;
+            }
+            long delta = uid - runStarts[run];
+            if (delta >= runLength(run)) {
+                return -1;
+            }
+            return runOffsets[run] + (int) delta;
+        }
+
+        long uidAt(int msn) {
+            int run = runOfMsn(msn);
+            return runStarts[run] + (msn - 1 - runOffsets[run]);
+        }
+
+        /**
+         * Caller needs to ensure uid is greater than {@link #lastUid()}.
+         */
+        UidRuns append(long uid) {
+            if (!isEmpty() && uid == lastUid() + 1) {
+                return new UidRuns(runStarts, runOffsets, runCount, messageCount + 1);
+            }
+            long[] newRunStarts = runStarts;
+            int[] newRunOffsets = runOffsets;
+            if (runCount == runStarts.length) {
+                int newCapacity = runStarts.length + (runStarts.length >> 1) + 1;
+                newRunStarts = Arrays.copyOf(runStarts, newCapacity);
+                newRunOffsets = Arrays.copyOf(runOffsets, newCapacity);
+            }
+            newRunStarts[runCount] = uid;
+            newRunOffsets[runCount] = messageCount;
+            return new UidRuns(newRunStarts, newRunOffsets, runCount + 1, messageCount + 1);
+        }
+
+        UidRuns remove(long uid) {
+            int run = runOfUid(uid);
+            if (run < 0) {
+                return this;
+            }
+            int length = runLength(run);
+            long delta = uid - runStarts[run];
+            if (delta >= length) {
+                return this;
+            }
+            if (length == 1) {
+                return withoutRun(run);
+            }
+            if (delta == length - 1 || delta == 0) {
+                return shrinkRun(run, delta == 0);
+            }
+            return splitRun(run, uid);
+        }
+
+        private UidRuns withoutRun(int run) {
+            long[] newRunStarts = new long[Math.max(INITIAL_CAPACITY, runCount)];
+            int[] newRunOffsets = new int[Math.max(INITIAL_CAPACITY, runCount)];
+            System.arraycopy(runStarts, 0, newRunStarts, 0, run);
+            System.arraycopy(runOffsets, 0, newRunOffsets, 0, run);
+            for (int i = run + 1; i < runCount; i++) {
+                newRunStarts[i - 1] = runStarts[i];
+                newRunOffsets[i - 1] = runOffsets[i] - 1;
+            }
+            return new UidRuns(newRunStarts, newRunOffsets, runCount - 1, messageCount - 1);
+        }
+
+        private UidRuns shrinkRun(int run, boolean fromStart) {
+            long[] newRunStarts = Arrays.copyOf(runStarts, Math.max(INITIAL_CAPACITY, runCount));
+            int[] newRunOffsets = Arrays.copyOf(runOffsets, Math.max(INITIAL_CAPACITY, runCount));
+            if (fromStart) {
+                newRunStarts[run]++;
+            }
+            for (int i = run + 1; i < runCount; i++) {
+                newRunOffsets[i]--;
+            }
+            return new UidRuns(newRunStarts, newRunOffsets, runCount, messageCount - 1);
+        }
+
+        private UidRuns splitRun(int run, long uid) {
+            long[] newRunStarts = new long[Math.max(INITIAL_CAPACITY, runCount + 1)];
+            int[] newRunOffsets = new int[Math.max(INITIAL_CAPACITY, runCount + 1)];
+            System.arraycopy(runStarts, 0, newRunStarts, 0, run + 1);
+            System.arraycopy(runOffsets, 0, newRunOffsets, 0, run + 1);
+            newRunStarts[run + 1] = uid + 1;
+            newRunOffsets[run + 1] = runOffsets[run] + (int) (uid - runStarts[run]);
+            for (int i = run + 1; i < runCount; i++) {
+                newRunStarts[i + 1] = runStarts[i];
+                newRunOffsets[i + 1] = runOffsets[i] - 1;
+            }
+            return new UidRuns(newRunStarts, newRunOffsets, runCount + 1, messageCount - 1);
+        }
+
+        long[] toArray() {
+            long[] result = new long[messageCount];
+            for (int run = 0; run < runCount; run++) {
+                int length = runLength(run);
+                for (int i = 0; i < length; i++) {
+                    result[runOffsets[run] + i] = runStarts[run] + i;
+                }
+            }
+            return result;
+        }
+    }
+
+    private volatile UidRuns runs;
 
     public UidMsnConverter() {
-        this.uids = Lists.newArrayList();
+        this.runs = UidRuns.empty();
     }
 
     public synchronized void addAll(List<MessageUid> addedUids) {
-        TreeSet<MessageUid> tmp = new TreeSet<>();
-        tmp.addAll(uids);
-        tmp.addAll(addedUids);
-        uids.clear();
-        uids.addAll(tmp);
+        long[] added = addedUids.stream()
+            .mapToLong(MessageUid::asLong)
+            .sorted()
+            .distinct()
+            .toArray();
+        if (added.length == 0) {
+            return;
+        }
+        UidRuns current = runs;
+        if (current.isEmpty() || added[0] > current.lastUid()) {
+            for (long uid : added) {
+                current = current.append(uid);
+            }
+            runs = current;
+        } else {
+            runs = UidRuns.of(merge(current.toArray(), added));
+        }
     }
 
-    public synchronized NullableMessageSequenceNumber getMsn(MessageUid uid) {
-        int position = Collections.binarySearch(uids, uid);
+    public NullableMessageSequenceNumber getMsn(MessageUid uid) {
+        int position = runs.positionOf(uid.asLong());
         if (position < 0) {
             return NullableMessageSequenceNumber.noMessage();
         }
         return NullableMessageSequenceNumber.of(position + 1);
     }
 
-    public synchronized Optional<MessageUid> getUid(int msn) {
-        if (msn <= uids.size() && msn > 0) {
-            return Optional.of(uids.get(msn - 1));
+    public Optional<MessageUid> getUid(int msn) {
+        UidRuns current = runs;
+        if (msn <= current.messageCount && msn > 0) {
+            return Optional.of(MessageUid.of(current.uidAt(msn)));
         }
         return Optional.empty();
     }
 
-    public synchronized Optional<MessageUid> getLastUid() {
-        if (uids.isEmpty()) {
+    public Optional<MessageUid> getLastUid() {
+        UidRuns current = runs;
+        if (current.isEmpty()) {
             return Optional.empty();
         }
-        return getUid(getLastMsn());
+        return Optional.of(MessageUid.of(current.lastUid()));
     }
 
-    public synchronized Optional<MessageUid> getFirstUid() {
-        return getUid(FIRST_MSN);
+    public Optional<MessageUid> getFirstUid() {
+        UidRuns current = runs;
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(MessageUid.of(current.firstUid()));
     }
 
-    public synchronized int getNumMessage() {
-        return uids.size();
+    public int getNumMessage() {
+        return runs.messageCount;
     }
 
     public synchronized void remove(MessageUid uid) {
-        uids.remove(uid);
+        runs = runs.remove(uid.asLong());
     }
 
-    public synchronized boolean isEmpty() {
-        return uids.isEmpty();
+    public boolean isEmpty() {
+        return runs.isEmpty();
     }
 
     public synchronized void clear() {
-        uids.clear();
+        runs = UidRuns.empty();
     }
 
     public synchronized void addUid(MessageUid uid) {
-        if (uids.contains(uid)) {
+        UidRuns current = runs;
+        long value = uid.asLong();
+        if (current.isEmpty() || current.lastUid() < value) {
+            runs = current.append(value);
             return;
         }
-        if (isLastUid(uid)) {
-            uids.add(uid);
-        } else {
-            uids.add(uid);
-            Collections.sort(uids);
+        if (current.contains(value)) {
+            return;
         }
+        runs = UidRuns.of(merge(current.toArray(), new long[] {value}));
     }
 
-    private boolean isLastUid(MessageUid uid) {
-        Optional<MessageUid> lastUid = getLastUid();
-        return !lastUid.isPresent() ||
-            lastUid.get().compareTo(uid) < 0;
+    @VisibleForTesting
+    int getRunCount() {
+        return runs.runCount;
     }
 
-    private int getLastMsn() {
-        return getNumMessage();
+    private static long[] merge(long[] left, long[] right) {
+        long[] result = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length || j < right.length) {
+            long next;
+            if (j == right.length || (i < left.length && left[i] <= right[j])) {
+                next = left[i++];
+            } else {
+                next = right[j++];
+            }
+            if (size == 0 || result[size - 1] != next) {
+                result[size++] = next;
+            }
+        }
+        return Arrays.copyOf(result, size);
     }
 }
@@ -57,4 +57,11 @@ class ContentBodyElement implements BodyElement {
     public InputStream getInputStream() throws IOException {
         return content.getInputStream();
     }
+
+    /**
+     * Allows partial fetches to only retrieve the requested octets of the content
+     */
+    public InputStream getInputStream(long firstOctet, long numberOfOctets) throws IOException {
+        return content.getInputStream(firstOctet, numberOfOctets);
+    }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ package org.apache.james.imap.processor.fetch;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -41,10 +42,12 @@ import org.apache.james.mailbox.MailboxManager;
 import org.apache.james.mailbox.MailboxSession;
 import org.apache.james.mailbox.MessageManager;
 import org.apache.james.mailbox.MessageManager.MailboxMetaData;
+import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.exception.MessageRangeException;
 import org.apache.james.mailbox.model.ComposedMessageIdWithMetaData;
 import org.apache.james.mailbox.model.FetchGroup;
+import org.apache.james.mailbox.model.FetchGroup.Profile;
 import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.MessageResult;
 import org.apache.james.mailbox.model.MessageResultIterator;
@@ -60,6 +63,7 @@ import reactor.core.publisher.Flux;
 
 public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
     private static final Logger LOGGER = LoggerFactory.getLogger(FetchProcessor.class);
+    private static final EnumSet<Profile> CONTENT_PROFILES = EnumSet.of(Profile.FULL_CONTENT, Profile.BODY_CONTENT, Profile.MIME_CONTENT);
 
     public FetchProcessor(ImapProcessor next, MailboxManager mailboxManager, StatusResponseFactory factory,
             MetricFactory metricFactory) {
@@ -152,6 +156,8 @@ public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
         for (MessageRange range : ranges) {
             if (fetch.isOnlyFlags()) {
                 processMessageRangeForFlags(session, mailbox, fetch, mailboxSession, responder, builder, range);
+            } else if (fetchesContent(resultToFetch)) {
+                processMessageRangeOneByOne(session, mailbox, fetch, mailboxSession, responder, builder, resultToFetch, range);
             } else {
                 processMessageRange(session, mailbox, fetch, mailboxSession, responder, builder, resultToFetch, range);
             }
@@ -186,6 +192,27 @@ public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
         }
     }
 
+    private boolean fetchesContent(FetchGroup fetchGroup) {
+        return !fetchGroup.getPartContentDescriptors().isEmpty()
+            || fetchGroup.profiles().stream().anyMatch(CONTENT_PROFILES::contains);
+    }
+
+    /**
+     * Message contents are loaded one message at a time, right before being written, rather than a whole batch at once.
+     * As the response writer applies backpressure, at most one message content is held in memory per session.
+     */
+    private void processMessageRangeOneByOne(ImapSession session, MessageManager mailbox, FetchData fetch, MailboxSession mailboxSession, Responder responder, FetchResponseBuilder builder, FetchGroup resultToFetch, MessageRange range) throws MailboxException {
+        Iterator<MessageUid> uids = Flux.from(mailbox.listMessagesMetadata(range, mailboxSession))
+            .filter(ids -> !fetch.contains(Item.MODSEQ) || ids.getModSeq().asLong() > fetch.getChangedSince())
+            .map(ids -> ids.getComposedMessageId().getUid())
+            .toStream()
+            .iterator();
+
+        while (uids.hasNext()) {
+            processMessageRange(session, mailbox, fetch, mailboxSession, responder, builder, resultToFetch, MessageRange.one(uids.next()));
+        }
+    }
+
     private void processMessageRange(ImapSession session, MessageManager mailbox, FetchData fetch, MailboxSession mailboxSession, Responder responder, FetchResponseBuilder builder, FetchGroup resultToFetch, MessageRange range) throws MailboxException {
         MessageResultIterator messages = mailbox.getMessages(range, resultToFetch, mailboxSession);
         SelectedMailbox selected = session.getSelected();
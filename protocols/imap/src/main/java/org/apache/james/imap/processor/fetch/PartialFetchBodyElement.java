@@ -61,6 +61,9 @@ final class PartialFetchBodyElement implements BodyElement {
 
     @Override
     public InputStream getInputStream() throws IOException {
+        if (delegate instanceof ContentBodyElement) {
+            return ((ContentBodyElement) delegate).getInputStream(firstOctet, size());
+        }
         return new LimitingInputStream(delegate.getInputStream(), firstOctet, size());
     }
 
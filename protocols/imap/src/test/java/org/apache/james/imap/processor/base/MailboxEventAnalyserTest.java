@@ -133,6 +133,7 @@ class MailboxEventAnalyserTest {
         .build();
 
     private SelectedMailboxImpl testee;
+    private RecordingMetricFactory metricFactory;
 
     @BeforeEach
     void setUp() throws MailboxException {
@@ -162,7 +163,8 @@ class MailboxEventAnalyserTest {
         when(messageManager.getMessages(any(), any(), any()))
             .thenReturn(new SingleMessageResultIterator(messageResult));
 
-        testee = new SelectedMailboxImpl(mailboxManager, eventBus, imapSession, messageManager);
+        metricFactory = new RecordingMetricFactory();
+        testee = new SelectedMailboxImpl(mailboxManager, eventBus, imapSession, messageManager, metricFactory);
     }
 
     @Test
@@ -237,6 +239,53 @@ class MailboxEventAnalyserTest {
         assertThat(analyser.flagUpdateUids()).isEmpty();
     }
 
+    @Test
+    void pendingUnsolicitedUpdatesShouldCountFlagUpdates() {
+        FlagsUpdated update = EventFactory.flagsUpdated()
+            .randomEventId()
+            .mailboxSession(OTHER_MAILBOX_SESSION)
+            .mailbox(DEFAULT_MAILBOX)
+            .updatedFlag(ADD_ANSWERED_UPDATED_FLAGS)
+            .build();
+
+        testee.event(update);
+
+        assertThat(metricFactory.countFor(SelectedMailboxImpl.PENDING_UNSOLICITED_UPDATES_METRIC_NAME))
+            .isEqualTo(1);
+    }
+
+    @Test
+    void pendingUnsolicitedUpdatesShouldBeDecrementedUponReset() {
+        FlagsUpdated update = EventFactory.flagsUpdated()
+            .randomEventId()
+            .mailboxSession(OTHER_MAILBOX_SESSION)
+            .mailbox(DEFAULT_MAILBOX)
+            .updatedFlag(ADD_ANSWERED_UPDATED_FLAGS)
+            .build();
+
+        testee.event(update);
+        testee.resetEvents();
+
+        assertThat(metricFactory.countFor(SelectedMailboxImpl.PENDING_UNSOLICITED_UPDATES_METRIC_NAME))
+            .isZero();
+    }
+
+    @Test
+    void pendingUnsolicitedUpdatesShouldBeDecrementedUponDeselect() {
+        FlagsUpdated update = EventFactory.flagsUpdated()
+            .randomEventId()
+            .mailboxSession(OTHER_MAILBOX_SESSION)
+            .mailbox(DEFAULT_MAILBOX)
+            .updatedFlag(ADD_ANSWERED_UPDATED_FLAGS)
+            .build();
+
+        testee.event(update);
+        testee.deselect();
+
+        assertThat(metricFactory.countFor(SelectedMailboxImpl.PENDING_UNSOLICITED_UPDATES_METRIC_NAME))
+            .isZero();
+    }
+
     @Test
     void testShouldSetUidWhenSystemFlagChangeDifferentSessionInSilentMode() {
         FlagsUpdated update = EventFactory.flagsUpdated()
@@ -64,6 +64,7 @@ import org.apache.james.mailbox.model.TestId;
 import org.apache.james.mailbox.model.UpdatedFlags;
 import org.apache.james.mailbox.store.event.EventFactory;
 import org.apache.james.mailbox.store.mail.model.DefaultMessageId;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.apache.james.util.concurrent.NamedThreadFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -142,7 +143,8 @@ class SelectedMailboxImplTest {
             mailboxManager,
             eventBus,
             imapSession,
-            messageManager);
+            messageManager,
+            new RecordingMetricFactory());
 
         assertThat(selectedMailbox.getLastUid().get()).isEqualTo(EMITTED_EVENT_UID);
     }
@@ -154,7 +156,7 @@ class SelectedMailboxImplTest {
             .when(eventBus)
             .register(any(EventListener.class), eq(mailboxIdRegistrationKey));
 
-        new SelectedMailboxImpl(mailboxManager, eventBus, imapSession, messageManager);
+        new SelectedMailboxImpl(mailboxManager, eventBus, imapSession, messageManager, new RecordingMetricFactory());
 
         assertThat(successCount.get()).isEqualTo(1);
     }
@@ -166,7 +168,7 @@ class SelectedMailboxImplTest {
             .when(eventBus)
             .register(any(EventListener.class), eq(mailboxIdRegistrationKey));
 
-        SelectedMailboxImpl selectedMailbox = new SelectedMailboxImpl(mailboxManager, eventBus, imapSession, messageManager);
+        SelectedMailboxImpl selectedMailbox = new SelectedMailboxImpl(mailboxManager, eventBus, imapSession, messageManager, new RecordingMetricFactory());
 
         assertThat(selectedMailbox.getApplicableFlags().getUserFlags()).containsOnly(CUSTOM_FLAG);
     }
@@ -182,7 +184,8 @@ class SelectedMailboxImplTest {
             mailboxManager,
             eventBus,
             imapSession,
-            messageManager);
+            messageManager,
+            new RecordingMetricFactory());
 
         assertThat(successCount.get())
             .as("Get the incremented value in case of successful event processing.")
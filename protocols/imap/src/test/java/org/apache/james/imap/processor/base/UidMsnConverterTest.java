@@ -74,6 +74,83 @@ class UidMsnConverterTest {
             .forEach(i -> testee.getMsn(MessageUid.of(i + 1)));
     }
 
+    @Test
+    void selectFetchAndExpungeShouldSucceedForLargeMailboxes() {
+        int count = 200000;
+        testee.addAll(IntStream.range(0, count)
+            .mapToObj(i -> MessageUid.of(i + 1))
+            .collect(Collectors.toList()));
+
+        IntStream.rangeClosed(1, count)
+            .forEach(msn -> testee.getUid(msn));
+        IntStream.range(0, 1000)
+            .forEach(i -> testee.remove(MessageUid.of(2 * i + 1)));
+
+        assertThat(testee.getNumMessage()).isEqualTo(count - 1000);
+    }
+
+    @Test
+    void contiguousUidsShouldBeStoredAsASingleRun() {
+        testee.addAll(IntStream.range(0, 1000)
+            .mapToObj(i -> MessageUid.of(i + 1))
+            .collect(Collectors.toList()));
+        testee.addUid(MessageUid.of(1001));
+
+        assertThat(testee.getRunCount()).isEqualTo(1);
+    }
+
+    @Test
+    void removeShouldSplitRuns() {
+        testee.addUid(messageUid1);
+        testee.addUid(messageUid2);
+        testee.addUid(messageUid3);
+
+        testee.remove(messageUid2);
+
+        assertThat(testee.getRunCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getMsnShouldReturnAbsentForUidsInGapsBetweenRuns() {
+        testee.addUid(messageUid1);
+        testee.addUid(messageUid2);
+        testee.addUid(messageUid4);
+
+        assertThat(testee.getMsn(messageUid3))
+            .isEqualTo(NullableMessageSequenceNumber.noMessage());
+    }
+
+    @Test
+    void getUidShouldReturnUidsOfLaterRuns() {
+        testee.addUid(messageUid1);
+        testee.addUid(messageUid2);
+        testee.addUid(messageUid4);
+
+        assertThat(testee.getUid(3)).contains(messageUid4);
+    }
+
+    @Test
+    void readsShouldSeeAMonotonicMappingWhileAppending() throws Exception {
+        int operationCount = 1000;
+
+        ConcurrentTestRunner.builder()
+            .operation((threadNumber, step) -> {
+                if (threadNumber == 0) {
+                    testee.addUid(MessageUid.of(step + 1));
+                } else {
+                    int numMessage = testee.getNumMessage();
+                    if (numMessage > 0) {
+                        assertThat(testee.getUid(numMessage)).isPresent();
+                    }
+                }
+            })
+            .threadCount(2)
+            .operationCount(operationCount)
+            .runSuccessfullyWithin(Duration.ofSeconds(10));
+
+        assertThat(testee.getNumMessage()).isEqualTo(operationCount);
+    }
+
     @Test
     void getUidShouldTheCorrespondingUidIfItExist() {
         testee.addUid(messageUid1);
@@ -461,8 +538,8 @@ class UidMsnConverterTest {
 
     private Map<Integer, MessageUid> mapTesteeInternalDataToMsnByUid() {
         ImmutableMap.Builder<Integer, MessageUid> result = ImmutableMap.builder();
-        for (int i = 0; i < testee.uids.size(); i++) {
-            result.put(i + 1, testee.uids.get(i));
+        for (int msn = 1; msn <= testee.getNumMessage(); msn++) {
+            result.put(msn, testee.getUid(msn).get());
         }
         return result.build();
     }
@@ -0,0 +1,245 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.protocols.netty4;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.james.core.Username;
+import org.apache.james.protocols.api.Encryption;
+import org.apache.james.protocols.api.Protocol;
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.protocols.api.ProtocolSessionImpl;
+import org.apache.james.protocols.api.ProtocolTransport;
+import org.apache.james.protocols.api.Response;
+import org.apache.james.protocols.api.handler.ConnectHandler;
+import org.apache.james.protocols.api.handler.DisconnectHandler;
+import org.apache.james.protocols.api.handler.LineHandler;
+import org.apache.james.protocols.api.handler.ProtocolHandlerChain;
+import org.apache.james.protocols.api.handler.ProtocolHandlerResultHandler;
+import org.apache.james.util.MDCBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * {@link ChannelInboundHandler} which is used by the SMTPServer and other line based protocols
+ */
+@Sharable
+public class BasicChannelInboundHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BasicChannelInboundHandler.class);
+    static final AttributeKey<ProtocolSession> SESSION = AttributeKey.valueOf(ProtocolSession.class.getName());
+
+    protected final Protocol protocol;
+    protected final ProtocolHandlerChain chain;
+    protected final Encryption secure;
+
+    public BasicChannelInboundHandler(Protocol protocol, Encryption secure) {
+        this.protocol = protocol;
+        this.chain = protocol.getProtocolChain();
+        this.secure = secure;
+    }
+
+    /**
+     * Call the {@link ConnectHandler} instances which are stored in the {@link ProtocolHandlerChain}
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        ProtocolSession session = createSession(ctx);
+        ctx.channel().attr(SESSION).set(session);
+        try (Closeable closeable = mdcContext(ctx)) {
+            List<ConnectHandler> connectHandlers = chain.getHandlers(ConnectHandler.class);
+            List<ProtocolHandlerResultHandler> resultHandlers = chain.getHandlers(ProtocolHandlerResultHandler.class);
+            LOGGER.info("Connection established from {}", session.getRemoteAddress().getAddress().getHostAddress());
+            if (connectHandlers != null) {
+                for (ConnectHandler cHandler : connectHandlers) {
+                    long start = System.currentTimeMillis();
+                    Response response = cHandler.onConnect(session);
+                    long executionTime = System.currentTimeMillis() - start;
+
+                    for (ProtocolHandlerResultHandler resultHandler : resultHandlers) {
+                        resultHandler.onResponse(session, response, executionTime, cHandler);
+                    }
+                    if (response != null) {
+                        ((ProtocolSessionImpl) session).getProtocolTransport().writeResponse(response, session);
+                    }
+                }
+            }
+            ctx.flush();
+            super.channelActive(ctx);
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        try (Closeable closeable = mdcContext(ctx)) {
+            ProtocolSession session = ctx.channel().attr(SESSION).get();
+            List<DisconnectHandler> disconnectHandlers = chain.getHandlers(DisconnectHandler.class);
+            if (disconnectHandlers != null && session != null) {
+                for (DisconnectHandler disconnectHandler : disconnectHandlers) {
+                    disconnectHandler.onDisconnect(session);
+                }
+            }
+            if (session != null) {
+                LOGGER.info("Connection closed for {}", session.getRemoteAddress().getAddress().getHostAddress());
+            }
+            cleanup(ctx);
+            super.channelInactive(ctx);
+        }
+    }
+
+    /**
+     * Call the {@link LineHandler}
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        try (Closeable closeable = mdcContext(ctx)) {
+            ProtocolSession pSession = ctx.channel().attr(SESSION).get();
+            LinkedList<LineHandler> lineHandlers = chain.getHandlers(LineHandler.class);
+            LinkedList<ProtocolHandlerResultHandler> resultHandlers = chain.getHandlers(ProtocolHandlerResultHandler.class);
+
+            if (lineHandlers.size() > 0) {
+                ByteBuf buf = (ByteBuf) msg;
+                LineHandler lHandler = lineHandlers.getLast();
+                long start = System.currentTimeMillis();
+                Response response = lHandler.onLine(pSession, buf.nioBuffer());
+                long executionTime = System.currentTimeMillis() - start;
+
+                for (ProtocolHandlerResultHandler resultHandler : resultHandlers) {
+                    response = resultHandler.onResponse(pSession, response, executionTime, lHandler);
+                }
+                if (response != null) {
+                    ((ProtocolSessionImpl) pSession).getProtocolTransport().writeResponse(response, pSession);
+                }
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * Flush the responses written while processing the lines of the last read
+     */
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.flush();
+        super.channelReadComplete(ctx);
+    }
+
+    /**
+     * Cleanup the channel
+     */
+    protected void cleanup(ChannelHandlerContext ctx) {
+        ProtocolSession session = ctx.channel().attr(SESSION).getAndSet(null);
+        if (session != null) {
+            session.resetState();
+        }
+    }
+
+    protected ProtocolSession createSession(ChannelHandlerContext ctx) throws Exception {
+        SSLEngine engine = null;
+        if (secure != null) {
+            engine = secure.getContext().createSSLEngine();
+            String[] enabledCipherSuites = secure.getEnabledCipherSuites();
+            if (enabledCipherSuites != null && enabledCipherSuites.length > 0) {
+                engine.setEnabledCipherSuites(enabledCipherSuites);
+            }
+        }
+
+        return protocol.newSession(new Netty4ProtocolTransport(ctx.channel(), engine));
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        try (Closeable closeable = mdcContext(ctx)) {
+            Channel channel = ctx.channel();
+            ProtocolSession session = channel.attr(SESSION).get();
+            if (cause instanceof TooLongFrameException && session != null) {
+                Response r = session.newLineTooLongResponse();
+                ProtocolTransport transport = ((ProtocolSessionImpl) session).getProtocolTransport();
+                if (r != null) {
+                    transport.writeResponse(r, session);
+                    ctx.flush();
+                }
+            } else {
+                if (channel.isActive() && session != null) {
+                    ProtocolTransport transport = ((ProtocolSessionImpl) session).getProtocolTransport();
+
+                    Response r = session.newFatalErrorResponse();
+                    if (r != null) {
+                        transport.writeResponse(r, session);
+                    }
+                    transport.writeResponse(Response.DISCONNECT, session);
+                }
+                if (cause instanceof ClosedChannelException || cause instanceof IOException) {
+                    LOGGER.info("Unable to process request", cause);
+                } else {
+                    LOGGER.error("Unable to process request", cause);
+                }
+                cleanup(ctx);
+            }
+        }
+    }
+
+    private Closeable mdcContext(ChannelHandlerContext ctx) {
+        return MDCBuilder.create()
+            .addContext(Optional.ofNullable(ctx.channel().attr(SESSION).get())
+                .map(BasicChannelInboundHandler::forSession)
+                .orElse(MDCBuilder.create()))
+            .addContext(MDCBuilder.PROTOCOL, protocol.getName())
+            .addContext(MDCBuilder.IP, retrieveIp(ctx))
+            .build();
+    }
+
+    private static MDCBuilder forSession(ProtocolSession protocolSession) {
+        return MDCBuilder.create()
+            .addContext(MDCBuilder.SESSION_ID, protocolSession.getSessionID())
+            .addContext(MDCBuilder.CHARSET, protocolSession.getCharset().displayName())
+            .addContext(MDCBuilder.USER, Optional.ofNullable(protocolSession.getUsername()).map(Username::asString));
+    }
+
+    private static String retrieveIp(ChannelHandlerContext ctx) {
+        SocketAddress remoteAddress = ctx.channel().remoteAddress();
+        if (remoteAddress instanceof InetSocketAddress) {
+            return ((InetSocketAddress) remoteAddress).getAddress().getHostAddress();
+        }
+        return String.valueOf(remoteAddress);
+    }
+}
@@ -0,0 +1,57 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.protocols.netty4;
+
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.protocols.api.ProtocolSessionImpl;
+import org.apache.james.protocols.api.Response;
+import org.apache.james.protocols.api.handler.LineHandler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.SimpleChannelInboundHandler;
+
+/**
+ * {@link ChannelInboundHandler} implementation which will call a given {@link LineHandler} implementation
+ *
+ * The line is released once the {@link LineHandler} returns, which hence must not retain the passed buffer.
+ *
+ * @param <S>
+ */
+public class LineHandlerChannelInboundHandler<S extends ProtocolSession> extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private final LineHandler<S> handler;
+    private final S session;
+
+    public LineHandlerChannelInboundHandler(S session, LineHandler<S> handler) {
+        this.handler = handler;
+        this.session = session;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buf) {
+        Response response = handler.onLine(session, buf.nioBuffer());
+        if (response != null) {
+            ((ProtocolSessionImpl) session).getProtocolTransport().writeResponse(response, session);
+        }
+    }
+
+}
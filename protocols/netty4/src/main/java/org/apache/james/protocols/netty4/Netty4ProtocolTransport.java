@@ -0,0 +1,182 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.protocols.netty4;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.james.protocols.api.AbstractProtocolTransport;
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.protocols.api.handler.LineHandler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedStream;
+
+/**
+ * A Netty 4 implementation of a ProtocolTransport
+ *
+ * Responses are written to pooled buffers. Writes issued from the event loop of the channel, which is where the
+ * protocol handlers run, are only flushed once the current read completes, so that pipelined commands lead to a
+ * single flush.
+ */
+public class Netty4ProtocolTransport extends AbstractProtocolTransport {
+
+    private final Channel channel;
+    private final SSLEngine engine;
+    private int lineHandlerCount = 0;
+
+    public Netty4ProtocolTransport(Channel channel, SSLEngine engine) {
+        this.channel = channel;
+        this.engine = engine;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) channel.remoteAddress();
+    }
+
+    @Override
+    public String getId() {
+        return channel.id().asShortText();
+    }
+
+    @Override
+    public boolean isTLSStarted() {
+        return channel.pipeline().get(SslHandler.class) != null;
+    }
+
+    @Override
+    public boolean isStartTLSSupported() {
+        return engine != null;
+    }
+
+    @Override
+    public void popLineHandler() {
+        if (lineHandlerCount > 0) {
+            channel.pipeline().remove("lineHandler" + lineHandlerCount);
+            lineHandlerCount--;
+        }
+    }
+
+    @Override
+    public int getPushedLineHandlerCount() {
+        return lineHandlerCount;
+    }
+
+    /**
+     * Add the {@link SslHandler} to the pipeline and start encrypting after the next written message
+     */
+    private void prepareStartTLS() {
+        engine.setUseClientMode(false);
+        channel.pipeline().addFirst(HandlerConstants.SSL_HANDLER, new SslHandler(engine, true));
+    }
+
+    @Override
+    protected void writeToClient(byte[] bytes, ProtocolSession session, boolean startTLS) {
+        ByteBuf buffer = channel.alloc().ioBuffer(bytes.length).writeBytes(bytes);
+        if (startTLS) {
+            prepareStartTLS();
+            channel.writeAndFlush(buffer);
+            return;
+        }
+        write(buffer);
+    }
+
+    @Override
+    protected void close() {
+        channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    @Override
+    protected void writeToClient(InputStream in, ProtocolSession session, boolean startTLS) {
+        if (startTLS) {
+            prepareStartTLS();
+        }
+        if (!isTLSStarted() && in instanceof FileInputStream) {
+            FileChannel fChannel = ((FileInputStream) in).getChannel();
+            try {
+                write(new DefaultFileRegion(fChannel, 0, fChannel.size()));
+                return;
+            } catch (IOException e) {
+                // We handle this later
+                write(new ChunkedStream(new ExceptionInputStream(e)));
+                return;
+            }
+        }
+        write(new ChunkedStream(in));
+    }
+
+    private void write(Object message) {
+        if (channel.eventLoop().inEventLoop()) {
+            channel.write(message);
+        } else {
+            channel.writeAndFlush(message);
+        }
+    }
+
+    @Override
+    public void setReadable(boolean readable) {
+        channel.config().setAutoRead(readable);
+    }
+
+    @Override
+    public boolean isReadable() {
+        return channel.config().isAutoRead();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void pushLineHandler(LineHandler<? extends ProtocolSession> overrideCommandHandler, ProtocolSession session) {
+        lineHandlerCount++;
+        channel.pipeline().addBefore(HandlerConstants.CORE_HANDLER, "lineHandler" + lineHandlerCount, new LineHandlerChannelInboundHandler(session, overrideCommandHandler));
+    }
+
+    /**
+     * {@link InputStream} which just re-throw the {@link IOException} on the next {@link #read()} operation.
+     */
+    private static final class ExceptionInputStream extends InputStream {
+        private final IOException e;
+
+        public ExceptionInputStream(IOException e) {
+            this.e = e;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw e;
+        }
+    }
+
+}
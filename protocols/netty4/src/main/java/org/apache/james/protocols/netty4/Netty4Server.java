@@ -0,0 +1,300 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.protocols.netty4;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.james.protocols.api.Encryption;
+import org.apache.james.protocols.api.Protocol;
+import org.apache.james.protocols.api.ProtocolServer;
+import org.apache.james.util.concurrent.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+/**
+ * {@link ProtocolServer} running a {@link Protocol} on top of Netty 4.
+ *
+ * Buffers are allocated from the pooled allocator, and the native epoll transport is used when requested and
+ * available. The {@link Protocol} handler chain is driven the same way as by the Netty 3 based NettyServer.
+ */
+public class Netty4Server implements ProtocolServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Netty4Server.class);
+
+    public static final int MAX_LINE_LENGTH = 8192;
+    public static final int DEFAULT_IO_WORKER_COUNT = Runtime.getRuntime().availableProcessors() * 2;
+
+    public static class Factory {
+        private Protocol protocol;
+        private Optional<Encryption> secure;
+        private Optional<Integer> maxLineLength;
+        private boolean useEpoll;
+
+        public Factory() {
+            secure = Optional.empty();
+            maxLineLength = Optional.empty();
+            useEpoll = false;
+        }
+
+        public Factory protocol(Protocol protocol) {
+            Preconditions.checkNotNull(protocol, "'protocol' is mandatory");
+            this.protocol = protocol;
+            return this;
+        }
+
+        public Factory secure(Encryption secure) {
+            this.secure = Optional.ofNullable(secure);
+            return this;
+        }
+
+        public Factory maxLineLength(int maxLineLength) {
+            Preconditions.checkArgument(maxLineLength > 0, "'maxLineLength' should be strictly positive");
+            this.maxLineLength = Optional.of(maxLineLength);
+            return this;
+        }
+
+        /**
+         * Use the native epoll transport when available on this platform, falls back to NIO otherwise.
+         *
+         * netty-transport-native-epoll is an optional dependency, it needs to be added to the classpath.
+         */
+        public Factory useEpoll(boolean useEpoll) {
+            this.useEpoll = useEpoll;
+            return this;
+        }
+
+        public Netty4Server build() {
+            Preconditions.checkState(protocol != null, "'protocol' is mandatory");
+            return new Netty4Server(protocol,
+                secure.orElse(null),
+                maxLineLength.orElse(MAX_LINE_LENGTH),
+                useEpoll);
+        }
+    }
+
+    private final Protocol protocol;
+    private final Encryption secure;
+    private final int maxLineLength;
+    private final boolean useEpoll;
+    private final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    private volatile int backlog = 250;
+    private volatile int timeout = 120;
+    private volatile int ioWorker = DEFAULT_IO_WORKER_COUNT;
+    private volatile boolean started;
+    private List<InetSocketAddress> addresses = new ArrayList<>();
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+
+    private Netty4Server(Protocol protocol, Encryption secure, int maxLineLength, boolean useEpoll) {
+        this.protocol = protocol;
+        this.secure = secure;
+        this.maxLineLength = maxLineLength;
+        this.useEpoll = useEpoll;
+    }
+
+    public synchronized void setListenAddresses(InetSocketAddress... addresses) {
+        if (started) {
+            throw new IllegalStateException("Can only be set when the server is not running");
+        }
+        this.addresses = ImmutableList.copyOf(addresses);
+    }
+
+    /**
+     * Set the IO-worker thread count to use. Default is nCores * 2
+     */
+    public void setIoWorkerCount(int ioWorker) {
+        if (started) {
+            throw new IllegalStateException("Can only be set when the server is not running");
+        }
+        this.ioWorker = ioWorker;
+    }
+
+    /**
+     * Set the read timeout for the server. This will throw a {@link IllegalStateException} if the
+     * server is running.
+     */
+    public void setTimeout(int timeout) {
+        if (started) {
+            throw new IllegalStateException("Can only be set when the server is not running");
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * Set the Backlog for the socket. This will throw a {@link IllegalStateException} if the server is running.
+     */
+    public void setBacklog(int backlog) {
+        if (started) {
+            throw new IllegalStateException("Can only be set when the server is not running");
+        }
+        this.backlog = backlog;
+    }
+
+    @Override
+    public synchronized void bind() throws Exception {
+        if (started) {
+            throw new IllegalStateException("Server running already");
+        }
+        if (addresses.isEmpty()) {
+            throw new RuntimeException("Please specify at least on socketaddress to which the server should get bound!");
+        }
+
+        boolean epoll = useEpoll && isEpollAvailable();
+        bossGroup = createEventLoopGroup(epoll, 1, "boss");
+        workerGroup = createEventLoopGroup(epoll, ioWorker, "worker");
+        BasicChannelInboundHandler coreHandler = new BasicChannelInboundHandler(protocol, secure);
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+            .group(bossGroup, workerGroup)
+            .channel(serverChannelClass(epoll))
+            .option(ChannelOption.SO_BACKLOG, backlog)
+            .option(ChannelOption.SO_REUSEADDR, true)
+            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+            .childOption(ChannelOption.TCP_NODELAY, true)
+            .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel channel) {
+                    channels.add(channel);
+                    ChannelPipeline pipeline = channel.pipeline();
+                    if (isSSLSocket()) {
+                        pipeline.addLast(HandlerConstants.SSL_HANDLER, new SslHandler(createSSLEngine()));
+                    }
+                    // Don't strip the delimiter, the line handlers expect it
+                    pipeline.addLast(HandlerConstants.FRAMER, new LineBasedFrameDecoder(maxLineLength, false, false));
+                    pipeline.addLast(HandlerConstants.CHUNK_HANDLER, new ChunkedWriteHandler());
+                    pipeline.addLast(HandlerConstants.TIMEOUT_HANDLER, new TimeoutHandler(timeout));
+                    pipeline.addLast(HandlerConstants.CORE_HANDLER, coreHandler);
+                }
+            });
+
+        for (InetSocketAddress address : addresses) {
+            channels.add(bootstrap.bind(address).sync().channel());
+        }
+        started = true;
+    }
+
+    private boolean isEpollAvailable() {
+        try {
+            if (EpollTransport.isAvailable()) {
+                return true;
+            }
+            LOGGER.warn("Native epoll transport is not available, falling back to NIO", EpollTransport.unavailabilityCause());
+            return false;
+        } catch (NoClassDefFoundError e) {
+            LOGGER.warn("netty-transport-native-epoll is not on the classpath, falling back to NIO");
+            return false;
+        }
+    }
+
+    private EventLoopGroup createEventLoopGroup(boolean epoll, int threadCount, String name) {
+        NamedThreadFactory threadFactory = NamedThreadFactory.withName(getClass().getSimpleName() + "-" + protocol.getName() + "-" + name);
+        if (epoll) {
+            return EpollTransport.eventLoopGroup(threadCount, threadFactory);
+        }
+        return new NioEventLoopGroup(threadCount, threadFactory);
+    }
+
+    private Class<? extends ServerChannel> serverChannelClass(boolean epoll) {
+        if (epoll) {
+            return EpollTransport.serverChannelClass();
+        }
+        return NioServerSocketChannel.class;
+    }
+
+    private boolean isSSLSocket() {
+        return secure != null && !secure.isStartTLS();
+    }
+
+    private SSLEngine createSSLEngine() {
+        // We need to set clientMode to false.
+        // See https://issues.apache.org/jira/browse/JAMES-1025
+        SSLEngine engine = secure.getContext().createSSLEngine();
+        engine.setUseClientMode(false);
+        String[] enabledCipherSuites = secure.getEnabledCipherSuites();
+        if (enabledCipherSuites != null && enabledCipherSuites.length > 0) {
+            engine.setEnabledCipherSuites(enabledCipherSuites);
+        }
+        return engine;
+    }
+
+    @Override
+    public synchronized void unbind() {
+        if (!started) {
+            return;
+        }
+        channels.close().awaitUninterruptibly();
+        bossGroup.shutdownGracefully().awaitUninterruptibly();
+        workerGroup.shutdownGracefully().awaitUninterruptibly();
+        started = false;
+    }
+
+    @Override
+    public synchronized List<InetSocketAddress> getListenAddresses() {
+        ImmutableList.Builder<InetSocketAddress> builder = ImmutableList.builder();
+        for (Channel channel : ImmutableList.copyOf(channels.iterator())) {
+            if (channel instanceof ServerChannel) {
+                builder.add((InetSocketAddress) channel.localAddress());
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int getBacklog() {
+        return backlog;
+    }
+
+    @Override
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public boolean isBound() {
+        return started;
+    }
+}
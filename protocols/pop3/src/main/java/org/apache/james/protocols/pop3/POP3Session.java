@@ -19,11 +19,8 @@
 
 package org.apache.james.protocols.pop3;
 
-import java.util.List;
-
 import org.apache.james.protocols.api.ProtocolSession;
 import org.apache.james.protocols.pop3.mailbox.Mailbox;
-import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
 
 /**
  * All the handlers access this interface to communicate with POP3Handler object
@@ -31,10 +28,7 @@ import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
 
 public interface POP3Session extends ProtocolSession {
 
-    @SuppressWarnings("unchecked")
-    AttachmentKey<List<MessageMetaData>> UID_LIST = AttachmentKey.of("UID_LIST", (Class<List<MessageMetaData>>) (Object) List.class);
-    @SuppressWarnings("unchecked")
-    AttachmentKey<List<String>> DELETED_UID_LIST = AttachmentKey.of("DELETED_UID_LIST", (Class<List<String>>) (Object) List.class);
+    AttachmentKey<POP3TransactionState> TRANSACTION_STATE = AttachmentKey.of("TRANSACTION_STATE", POP3TransactionState.class);
     AttachmentKey<String> APOP_TIMESTAMP = AttachmentKey.of("APOP_TIMESTAMP", String.class);
 
     // Authentication states for the POP3 interaction
@@ -0,0 +1,108 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.protocols.pop3;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Messages of a POP3 transaction, addressed by their message number (starting at 1), along with the messages marked
+ * for deletion.
+ *
+ * Deletions are tracked in a {@link BitSet} indexed by message number and the count and size of the remaining
+ * messages are maintained upon deletion, hence lookups, deletions and STAT are done in constant time.
+ */
+public class POP3TransactionState {
+    public static final POP3TransactionState EMPTY = new POP3TransactionState(ImmutableList.of());
+
+    private final List<MessageMetaData> messages;
+    private final BitSet deleted;
+    private int remainingCount;
+    private long remainingSize;
+
+    public POP3TransactionState(List<MessageMetaData> messages) {
+        this.messages = ImmutableList.copyOf(messages);
+        this.deleted = new BitSet(messages.size());
+        this.remainingCount = messages.size();
+        this.remainingSize = messages.stream()
+            .mapToLong(MessageMetaData::getSize)
+            .sum();
+    }
+
+    /**
+     * Return the {@link MessageMetaData} of the given message number, deleted or not, if it exists
+     */
+    public Optional<MessageMetaData> getMessage(int number) {
+        if (number < 1 || number > messages.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(messages.get(number - 1));
+    }
+
+    public boolean isDeleted(int number) {
+        return number >= 1 && deleted.get(number - 1);
+    }
+
+    /**
+     * Mark the given message number as deleted.
+     *
+     * @return false if the message was already marked as deleted
+     */
+    public boolean delete(int number) {
+        Preconditions.checkArgument(number >= 1 && number <= messages.size(), "Message (%s) does not exist", number);
+
+        if (deleted.get(number - 1)) {
+            return false;
+        }
+        deleted.set(number - 1);
+        remainingCount--;
+        remainingSize -= messages.get(number - 1).getSize();
+        return true;
+    }
+
+    /**
+     * Return the numbers of the messages which are not marked as deleted, in ascending order
+     */
+    public IntStream remainingMessageNumbers() {
+        return IntStream.rangeClosed(1, messages.size())
+            .filter(number -> !isDeleted(number));
+    }
+
+    public int getRemainingCount() {
+        return remainingCount;
+    }
+
+    public long getRemainingSize() {
+        return remainingSize;
+    }
+
+    public List<String> getDeletedUids() {
+        return deleted.stream()
+            .mapToObj(index -> messages.get(index).getUid())
+            .collect(ImmutableList.toImmutableList());
+    }
+}
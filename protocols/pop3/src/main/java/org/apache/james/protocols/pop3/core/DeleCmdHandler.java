@@ -19,14 +19,11 @@
 
 package org.apache.james.protocols.pop3.core;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import javax.inject.Inject;
 
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.CommandHandler;
@@ -82,23 +79,11 @@ public class DeleCmdHandler implements CommandHandler<POP3Session> {
                     StringBuilder responseBuffer = new StringBuilder(64).append("Message (").append(num).append(") does not exist.");
                     return  new POP3Response(POP3Response.ERR_RESPONSE, responseBuffer.toString());
                 }
-                List<String> deletedUidList = session.getAttachment(POP3Session.DELETED_UID_LIST, State.Transaction)
-                    .orElseGet(() -> {
-                        ArrayList<String> uidList = new ArrayList<>();
-                        session.setAttachment(POP3Session.DELETED_UID_LIST, uidList, State.Transaction);
-                        return uidList;
-                    });
-
-                String uid = meta.getUid();
-
-                if (deletedUidList.contains(uid)) {
+                if (MessageMetaDataUtils.getTransactionState(session).delete(num)) {
+                    return DELETED;
+                } else {
                     StringBuilder responseBuffer = new StringBuilder(64).append("Message (").append(num).append(") already deleted.");
                     return new POP3Response(POP3Response.ERR_RESPONSE, responseBuffer.toString());
-                } else {
-                    deletedUidList.add(uid);
-                    // we are replacing our reference with "DELETED", so we have
-                    // to dispose the no-more-referenced mail object.
-                    return DELETED;
                 }
             } catch (IndexOutOfBoundsException iob) {
                 StringBuilder responseBuffer = new StringBuilder(64).append("Message (").append(num).append(") does not exist.");
@@ -19,23 +19,20 @@
 
 package org.apache.james.protocols.pop3.core;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import javax.inject.Inject;
 
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.CommandHandler;
 import org.apache.james.protocols.pop3.POP3Response;
 import org.apache.james.protocols.pop3.POP3Session;
+import org.apache.james.protocols.pop3.POP3TransactionState;
 import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
 import org.apache.james.util.MDCBuilder;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -76,32 +73,22 @@ public class ListCmdHandler implements CommandHandler<POP3Session> {
 
     private Response list(POP3Session session, Request request) {
         String parameters = request.getArgument();
-        List<MessageMetaData> uidList = session.getAttachment(POP3Session.UID_LIST, State.Transaction).orElse(ImmutableList.of());
-        List<String> deletedUidList = session.getAttachment(POP3Session.DELETED_UID_LIST, State.Transaction).orElse(ImmutableList.of());
+        POP3TransactionState transactionState = MessageMetaDataUtils.getTransactionState(session);
 
         if (session.getHandlerState() == POP3Session.TRANSACTION) {
             POP3Response response = null;
 
             if (parameters == null) {
 
-                long size = 0;
-                int count = 0;
-                List<MessageMetaData> validResults = new ArrayList<>();
-                if (!uidList.isEmpty()) {
-
-                    for (MessageMetaData data : uidList) {
-                        if (!deletedUidList.contains(data.getUid())) {
-                            size += data.getSize();
-                            count++;
-                            validResults.add(data);
-                        }
-                    }
-                }
-                StringBuilder responseBuffer = new StringBuilder(32).append(count).append(" ").append(size);
+                StringBuilder responseBuffer = new StringBuilder(32)
+                    .append(transactionState.getRemainingCount())
+                    .append(" ")
+                    .append(transactionState.getRemainingSize());
                 response = new POP3Response(POP3Response.OK_RESPONSE, responseBuffer.toString());
-                count = 0;
-                for (int i = 0; i < validResults.size(); i++) {
-                    responseBuffer = new StringBuilder(16).append(i + 1).append(" ").append(validResults.get(i).getSize());
+                int[] remainingNumbers = transactionState.remainingMessageNumbers().toArray();
+                for (int i = 0; i < remainingNumbers.length; i++) {
+                    MessageMetaData data = transactionState.getMessage(remainingNumbers[i]).get();
+                    responseBuffer = new StringBuilder(16).append(i + 1).append(" ").append(data.getSize());
                     response.appendLine(responseBuffer.toString());
                 }
                 response.appendLine(".");
@@ -116,7 +103,7 @@ public class ListCmdHandler implements CommandHandler<POP3Session> {
                         return  new POP3Response(POP3Response.ERR_RESPONSE, responseBuffer.toString());
                     }
 
-                    if (!deletedUidList.contains(data.getUid())) {
+                    if (!transactionState.isDeleted(num)) {
                         StringBuilder responseBuffer = new StringBuilder(64).append(num).append(" ").append(data.getSize());
                         response = new POP3Response(POP3Response.OK_RESPONSE, responseBuffer.toString());
                     } else {
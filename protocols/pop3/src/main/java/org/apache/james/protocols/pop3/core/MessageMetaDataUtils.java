@@ -23,6 +23,7 @@ import java.util.stream.IntStream;
 
 import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.pop3.POP3Session;
+import org.apache.james.protocols.pop3.POP3TransactionState;
 import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
 
 public class MessageMetaDataUtils {
@@ -32,12 +33,19 @@ public class MessageMetaDataUtils {
      * found.
      */
     public static MessageMetaData getMetaData(POP3Session session, int number) {
-        return session.getAttachment(POP3Session.UID_LIST, State.Transaction)
-            .filter(uidList -> number <= uidList.size())
-            .map(uidList -> uidList.get(number - 1))
+        return getTransactionState(session)
+            .getMessage(number)
             .orElse(null);
     }
 
+    /**
+     * Returns the {@link POP3TransactionState} of the session, which is empty outside of the transaction state.
+     */
+    public static POP3TransactionState getTransactionState(POP3Session session) {
+        return session.getAttachment(POP3Session.TRANSACTION_STATE, State.Transaction)
+            .orElse(POP3TransactionState.EMPTY);
+    }
+
     /**
      * Check whether POP3 UID is compatible with RFC1939
      */
@@ -20,7 +20,6 @@
 package org.apache.james.protocols.pop3.core;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -33,6 +32,7 @@ import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.CommandHandler;
 import org.apache.james.protocols.pop3.POP3Response;
 import org.apache.james.protocols.pop3.POP3Session;
+import org.apache.james.protocols.pop3.POP3TransactionState;
 import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
 import org.apache.james.util.MDCBuilder;
 import org.slf4j.Logger;
@@ -88,8 +88,7 @@ public class RsetCmdHandler implements CommandHandler<POP3Session> {
         try {
             List<MessageMetaData> messages = session.getUserMailbox().getMessages();
 
-            session.setAttachment(POP3Session.UID_LIST, messages, State.Transaction);
-            session.setAttachment(POP3Session.DELETED_UID_LIST, new ArrayList<>(), State.Transaction);
+            session.setAttachment(POP3Session.TRANSACTION_STATE, new POP3TransactionState(messages), State.Transaction);
         } catch (IOException e) {
             // In the event of an exception being thrown there may or may not be
             // anything in userMailbox
@@ -19,25 +19,21 @@
 
 package org.apache.james.protocols.pop3.core;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import javax.inject.Inject;
 
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.CommandHandler;
 import org.apache.james.protocols.pop3.POP3Response;
 import org.apache.james.protocols.pop3.POP3Session;
-import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
+import org.apache.james.protocols.pop3.POP3TransactionState;
 import org.apache.james.util.MDCBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -72,21 +68,11 @@ public class StatCmdHandler implements CommandHandler<POP3Session> {
         LOGGER.trace("STAT command received");
         if (session.getHandlerState() == POP3Session.TRANSACTION) {
 
-            List<MessageMetaData> uidList = session.getAttachment(POP3Session.UID_LIST, State.Transaction).orElse(ImmutableList.of());
-            List<String> deletedUidList = session.getAttachment(POP3Session.DELETED_UID_LIST, State.Transaction).orElse(ImmutableList.of());
-            long size = 0;
-            int count = 0;
-            if (!uidList.isEmpty()) {
-                List<MessageMetaData> validResults = new ArrayList<>();
-                for (MessageMetaData data : uidList) {
-                    if (!deletedUidList.contains(data.getUid())) {
-                        size += data.getSize();
-                        count++;
-                        validResults.add(data);
-                    }
-                }
-            }
-            StringBuilder responseBuffer = new StringBuilder(32).append(count).append(" ").append(size);
+            POP3TransactionState transactionState = MessageMetaDataUtils.getTransactionState(session);
+            StringBuilder responseBuffer = new StringBuilder(32)
+                .append(transactionState.getRemainingCount())
+                .append(" ")
+                .append(transactionState.getRemainingSize());
             return new POP3Response(POP3Response.OK_RESPONSE, responseBuffer.toString());
 
         } else {
@@ -22,24 +22,22 @@ package org.apache.james.protocols.pop3.core;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 
 import javax.inject.Inject;
 
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.CommandHandler;
 import org.apache.james.protocols.pop3.POP3Response;
 import org.apache.james.protocols.pop3.POP3Session;
+import org.apache.james.protocols.pop3.POP3TransactionState;
 import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
 import org.apache.james.util.MDCBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -77,19 +75,16 @@ public class UidlCmdHandler implements CommandHandler<POP3Session>, CapaCapabili
         POP3Response response = null;
         String parameters = request.getArgument();
         if (session.getHandlerState() == POP3Session.TRANSACTION) {
-            List<MessageMetaData> uidList = session.getAttachment(POP3Session.UID_LIST, State.Transaction).orElse(ImmutableList.of());
-            List<String> deletedUidList = session.getAttachment(POP3Session.DELETED_UID_LIST, State.Transaction).orElse(ImmutableList.of());
+            POP3TransactionState transactionState = MessageMetaDataUtils.getTransactionState(session);
             try {
                 String identifier = session.getUserMailbox().getIdentifier();
                 if (parameters == null) {
                     response = new POP3Response(POP3Response.OK_RESPONSE, "unique-id listing follows");
 
-                    for (int i = 0; i < uidList.size(); i++) {
-                        MessageMetaData metadata = uidList.get(i);
-                        if (!deletedUidList.contains(metadata.getUid())) {
-                            StringBuilder responseBuffer = new StringBuilder().append(i + 1).append(" ").append(metadata.getUid(identifier));
-                            response.appendLine(responseBuffer.toString());
-                        }
+                    for (int number : transactionState.remainingMessageNumbers().toArray()) {
+                        MessageMetaData metadata = transactionState.getMessage(number).get();
+                        StringBuilder responseBuffer = new StringBuilder().append(number).append(" ").append(metadata.getUid(identifier));
+                        response.appendLine(responseBuffer.toString());
                     }
 
                     response.appendLine(".");
@@ -105,7 +100,7 @@ public class UidlCmdHandler implements CommandHandler<POP3Session>, CapaCapabili
                             return  new POP3Response(POP3Response.ERR_RESPONSE, responseBuffer.toString());
                         }
 
-                        if (deletedUidList.contains(metadata.getUid()) == false) {
+                        if (!transactionState.isDeleted(num)) {
                             StringBuilder responseBuffer = new StringBuilder(64).append(num).append(" ").append(metadata.getUid(identifier));
                             response = new POP3Response(POP3Response.OK_RESPONSE, responseBuffer.toString());
                         } else {
@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.protocols.pop3;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+class POP3TransactionStateTest {
+    private static final MessageMetaData MESSAGE_1 = new MessageMetaData("1", 10);
+    private static final MessageMetaData MESSAGE_2 = new MessageMetaData("2", 20);
+    private static final MessageMetaData MESSAGE_3 = new MessageMetaData("3", 30);
+
+    private POP3TransactionState testee;
+
+    @BeforeEach
+    void setUp() {
+        testee = new POP3TransactionState(ImmutableList.of(MESSAGE_1, MESSAGE_2, MESSAGE_3));
+    }
+
+    @Test
+    void getMessageShouldReturnMessageByNumber() {
+        assertThat(testee.getMessage(2)).contains(MESSAGE_2);
+    }
+
+    @Test
+    void getMessageShouldReturnEmptyWhenOutOfRange() {
+        assertThat(testee.getMessage(0)).isEmpty();
+        assertThat(testee.getMessage(4)).isEmpty();
+    }
+
+    @Test
+    void remainingCountAndSizeShouldIncludeAllMessagesInitially() {
+        assertThat(testee.getRemainingCount()).isEqualTo(3);
+        assertThat(testee.getRemainingSize()).isEqualTo(60);
+    }
+
+    @Test
+    void deleteShouldUpdateRemainingCountAndSize() {
+        testee.delete(2);
+
+        assertThat(testee.getRemainingCount()).isEqualTo(2);
+        assertThat(testee.getRemainingSize()).isEqualTo(40);
+    }
+
+    @Test
+    void deleteShouldReturnFalseWhenAlreadyDeleted() {
+        testee.delete(2);
+
+        assertThat(testee.delete(2)).isFalse();
+        assertThat(testee.getRemainingCount()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteShouldThrowWhenOutOfRange() {
+        assertThatThrownBy(() -> testee.delete(4))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deletedMessagesShouldStillBeAddressable() {
+        testee.delete(2);
+
+        assertThat(testee.isDeleted(2)).isTrue();
+        assertThat(testee.getMessage(2)).contains(MESSAGE_2);
+    }
+
+    @Test
+    void remainingMessageNumbersShouldExcludeDeletedMessages() {
+        testee.delete(1);
+        testee.delete(3);
+
+        assertThat(testee.remainingMessageNumbers()).containsExactly(2);
+    }
+
+    @Test
+    void getDeletedUidsShouldReturnDeletedMessagesUids() {
+        testee.delete(3);
+        testee.delete(1);
+
+        assertThat(testee.getDeletedUids()).containsExactly("1", "3");
+    }
+}
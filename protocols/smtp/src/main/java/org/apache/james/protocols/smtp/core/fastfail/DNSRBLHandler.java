@@ -124,47 +124,53 @@ public class DNSRBLHandler implements RcptHook {
             String reversedOctets = sb.toString();
 
             if (whitelist != null) {
-                String[] rblList = whitelist;
-                for (String rbl : rblList) {
-                    if (resolve(reversedOctets + rbl)) {
-                        LOGGER.info("Connection from {} whitelisted by {}", ipAddress, rbl);
-                        return;
-                    } else {
-                        LOGGER.debug("IpAddress {} not listed on {}", session.getRemoteAddress().getAddress(), rbl);
-                    }
+                Optional<String> listingRbl = findListingRbl(reversedOctets, whitelist);
+                if (listingRbl.isPresent()) {
+                    LOGGER.info("Connection from {} whitelisted by {}", ipAddress, listingRbl.get());
+                    return;
                 }
             }
 
             if (blacklist != null) {
-                String[] rblList = blacklist;
-                for (String rbl : rblList) {
-                    if (resolve(reversedOctets + rbl)) {
-                        LOGGER.info("Connection from {} restricted by {} to SMTP AUTH/postmaster/abuse.", ipAddress, rbl);
-
-                        // we should try to retrieve details
-                        if (getDetail) {
-                            Collection<String> txt = resolveTXTRecords(reversedOctets + rbl);
-
-                            // Check if we found a txt record
-                            if (!txt.isEmpty()) {
-                                // Set the detail
-                                String blocklistedDetail = txt.iterator().next().toString();
-
-                                session.setAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, blocklistedDetail, State.Connection);
-                            }
-                        }
+                Optional<String> listingRbl = findListingRbl(reversedOctets, blacklist);
+                if (listingRbl.isPresent()) {
+                    String rbl = listingRbl.get();
+                    LOGGER.info("Connection from {} restricted by {} to SMTP AUTH/postmaster/abuse.", ipAddress, rbl);
+
+                    // we should try to retrieve details
+                    if (getDetail) {
+                        Collection<String> txt = resolveTXTRecords(reversedOctets + rbl);
 
-                        session.setAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, true, State.Connection);
-                        return;
-                    } else {
-                        // if it is unknown, it isn't blocked
-                        LOGGER.debug("unknown host exception thrown: {}", rbl);
+                        // Check if we found a txt record
+                        if (!txt.isEmpty()) {
+                            // Set the detail
+                            String blocklistedDetail = txt.iterator().next().toString();
+
+                            session.setAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, blocklistedDetail, State.Connection);
+                        }
                     }
 
+                    session.setAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, true, State.Connection);
                 }
             }
         }
     }
+
+    /**
+     * Return the first rbl server, in the given order, listing the reversed octets. Rbl servers are queried one after
+     * the other: override to query them concurrently.
+     *
+     * @param reversedOctets the octets of the ip address in reverse order, each followed by a dot
+     */
+    protected Optional<String> findListingRbl(String reversedOctets, String[] rblList) {
+        for (String rbl : rblList) {
+            if (resolve(reversedOctets + rbl)) {
+                return Optional.of(rbl);
+            }
+            LOGGER.debug("IpAddress {} not listed on {}", reversedOctets, rbl);
+        }
+        return Optional.empty();
+    }
     
     @Override
     public HookResult doRcpt(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
@@ -0,0 +1,161 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.smtp.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Properties;
+
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.net.smtp.SMTPReply;
+import org.apache.commons.net.smtp.SMTPSClient;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.protocols.api.Encryption;
+import org.apache.james.protocols.api.Protocol;
+import org.apache.james.protocols.api.ProtocolServer;
+import org.apache.james.protocols.api.handler.WiringException;
+import org.apache.james.protocols.api.utils.BogusSSLSocketFactory;
+import org.apache.james.protocols.api.utils.BogusSslContextFactory;
+import org.apache.james.protocols.api.utils.BogusTrustManagerFactory;
+import org.apache.james.protocols.api.utils.ProtocolServerUtils;
+import org.apache.james.protocols.netty4.Netty4Server;
+import org.apache.james.protocols.smtp.SMTPConfigurationImpl;
+import org.apache.james.protocols.smtp.SMTPProtocol;
+import org.apache.james.protocols.smtp.SMTPProtocolHandlerChain;
+import org.apache.james.protocols.smtp.utils.TestMessageHook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.mail.smtp.SMTPTransport;
+
+/**
+ * STARTTLS integration tests which use the netty 4 implementation
+ */
+public class Netty4StartTlsSMTPServerTest {
+
+    private static final String LOCALHOST_IP = "127.0.0.1";
+    private static final int RANDOM_PORT = 0;
+
+    private TestMessageHook hook;
+    private ProtocolServer server;
+    private SMTPSClient smtpsClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hook = new TestMessageHook();
+        server = createServer(createProtocol(), Encryption.createStartTls(BogusSslContextFactory.getServerContext()));
+        server.bind();
+        smtpsClient = new SMTPSClient(false, BogusSslContextFactory.getClientContext());
+        smtpsClient.setTrustManager(BogusTrustManagerFactory.getTrustManagers()[0]);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (smtpsClient.isConnected()) {
+            smtpsClient.disconnect();
+        }
+        server.unbind();
+    }
+
+    private ProtocolServer createServer(Protocol protocol, Encryption encryption) {
+        Netty4Server server = new Netty4Server.Factory()
+                .protocol(protocol)
+                .secure(encryption)
+                .build();
+        server.setListenAddresses(new InetSocketAddress(LOCALHOST_IP, RANDOM_PORT));
+        return server;
+    }
+
+    private Protocol createProtocol() throws WiringException {
+        SMTPProtocolHandlerChain chain = new SMTPProtocolHandlerChain(new RecordingMetricFactory());
+        chain.add(hook);
+        chain.wireExtensibleHandlers();
+        return new SMTPProtocol(chain, new SMTPConfigurationImpl());
+    }
+
+    private void connect() throws Exception {
+        InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+        smtpsClient.connect(bindedAddress.getAddress().getHostAddress(), bindedAddress.getPort());
+    }
+
+    @Test
+    void ehloShouldBeAnsweredInClear() throws Exception {
+        connect();
+
+        smtpsClient.sendCommand("EHLO localhost");
+
+        assertThat(SMTPReply.isPositiveCompletion(smtpsClient.getReplyCode())).isTrue();
+        assertThat(smtpsClient.getReplyStrings()).anyMatch(reply -> reply.endsWith("STARTTLS"));
+    }
+
+    @Test
+    void startTlsShouldPerformTheHandshake() throws Exception {
+        connect();
+        smtpsClient.sendCommand("EHLO localhost");
+
+        assertThat(smtpsClient.execTLS()).isTrue();
+    }
+
+    @Test
+    void commandsShouldBeAnsweredOnceTlsIsStarted() throws Exception {
+        connect();
+        smtpsClient.sendCommand("EHLO localhost");
+        smtpsClient.execTLS();
+
+        smtpsClient.sendCommand("EHLO localhost");
+
+        assertThat(SMTPReply.isPositiveCompletion(smtpsClient.getReplyCode())).isTrue();
+        assertThat(smtpsClient.getReplyStrings()).noneMatch(reply -> reply.endsWith("STARTTLS"));
+    }
+
+    @Test
+    void startTlsShouldWorkWhenUsingJavamail() throws Exception {
+        InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+
+        Properties mailProps = new Properties();
+        mailProps.put("mail.smtp.from", "test@localhost");
+        mailProps.put("mail.smtp.host", bindedAddress.getHostName());
+        mailProps.put("mail.smtp.port", bindedAddress.getPort());
+        mailProps.put("mail.smtp.socketFactory.class", BogusSSLSocketFactory.class.getName());
+        mailProps.put("mail.smtp.socketFactory.fallback", "false");
+        mailProps.put("mail.smtp.starttls.enable", "true");
+        Session mailSession = Session.getInstance(mailProps);
+
+        InternetAddress[] rcpts = new InternetAddress[]{new InternetAddress("valid@localhost")};
+        MimeMessage message = new MimeMessage(mailSession);
+        message.setFrom(new InternetAddress("test@localhost"));
+        message.setRecipients(Message.RecipientType.TO, rcpts);
+        message.setSubject("Testmail", "UTF-8");
+        message.setText("Test.....");
+
+        try (SMTPTransport transport = (SMTPTransport) mailSession.getTransport("smtps")) {
+            transport.connect(new Socket(bindedAddress.getHostName(), bindedAddress.getPort()));
+            transport.sendMessage(message, rcpts);
+        }
+
+        assertThat(hook.getQueued()).hasSize(1);
+    }
+}
@@ -0,0 +1,60 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.api;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Helpers for reading a range of a blob.
+ *
+ * A range is described by the offset of its first byte and its length. Ranges extending past the end of the blob are
+ * truncated, ranges starting past the end of the blob are empty.
+ */
+public final class BlobRanges {
+    public static void check(long offset, long length) {
+        Preconditions.checkArgument(offset >= 0, "'offset' should not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' should not be negative");
+    }
+
+    /**
+     * @return the position of the last byte of the range, saturated to {@link Long#MAX_VALUE}. The range needs to be
+     * non empty.
+     */
+    public static long lastByte(long offset, long length) {
+        Preconditions.checkArgument(length > 0, "'length' should be strictly positive");
+        if (length > Long.MAX_VALUE - offset) {
+            return Long.MAX_VALUE;
+        }
+        return offset + length - 1;
+    }
+
+    public static byte[] slice(byte[] data, long offset, long length) {
+        if (offset >= data.length || length == 0) {
+            return new byte[0];
+        }
+        int end = (int) Math.min(data.length, lastByte(offset, length) + 1);
+        return Arrays.copyOfRange(data, (int) offset, end);
+    }
+
+    private BlobRanges() {
+    }
+}
@@ -25,6 +25,8 @@ import org.reactivestreams.Publisher;
 
 import com.google.common.io.ByteSource;
 
+import reactor.core.publisher.Mono;
+
 public interface BlobStore {
 
     enum StoragePolicy {
@@ -47,6 +49,15 @@ public interface BlobStore {
 
     InputStream read(BucketName bucketName, BlobId blobId);
 
+    /**
+     * @see BlobStoreDAO#readRange(BucketName, BlobId, long, long)
+     */
+    default Publisher<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        BlobRanges.check(offset, length);
+        return Mono.from(readBytes(bucketName, blobId))
+            .map(bytes -> BlobRanges.slice(bytes, offset, length));
+    }
+
     default Publisher<byte[]> readBytes(BucketName bucketName, BlobId blobId, StoragePolicy storagePolicy) {
        return readBytes(bucketName, blobId);
     }
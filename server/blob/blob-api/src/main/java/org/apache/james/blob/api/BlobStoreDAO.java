@@ -26,6 +26,8 @@ import org.reactivestreams.Publisher;
 
 import com.google.common.io.ByteSource;
 
+import reactor.core.publisher.Mono;
+
 public interface BlobStoreDAO {
 
     /**
@@ -46,6 +48,23 @@ public interface BlobStoreDAO {
      */
     Publisher<byte[]> readBytes(BucketName bucketName, BlobId blobId);
 
+    /**
+     * Reads at most {@code length} bytes of a Blob, starting at {@code offset}.
+     *
+     * The result is truncated when the range extends past the end of the blob, and empty when it starts after it.
+     * Implementations should only retrieve the requested part of the blob. The default implementation reads the whole
+     * blob.
+     *
+     * @return a Mono containing the requested bytes or
+     *  an ObjectNotFoundException in its error channel when the blobId or the bucket is not found
+     *  or an IOObjectStoreException when an unexpected IO error occurs
+     */
+    default Publisher<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        BlobRanges.check(offset, length);
+        return Mono.from(readBytes(bucketName, blobId))
+            .map(bytes -> BlobRanges.slice(bytes, offset, length));
+    }
+
 
     /**
      * Save the blob with the provided blob id, and overwrite the previous blob with the same id if it already exists
@@ -99,4 +118,14 @@ public interface BlobStoreDAO {
      *  otherwise an IOObjectStoreException in its error channel
      */
     Publisher<Void> deleteBucket(BucketName bucketName);
+
+    /**
+     * List the blobs stored in a bucket.
+     *
+     * Blobs are streamed, without being loaded in memory all at once. The order is unspecified.
+     *
+     * @return the BlobIds of the blobs stored in this bucket, empty if the bucket doesn't exist,
+     *  otherwise an IOObjectStoreException in its error channel
+     */
+    Publisher<BlobId> listBlobs(BucketName bucketName);
 }
@@ -0,0 +1,128 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.api;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.CUSTOM_BUCKET_NAME;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.OTHER_TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ListBlobsBlobStoreDAOContract {
+
+    BlobStoreDAO testee();
+
+    @Test
+    default void listBlobsShouldReturnEmptyWhenBucketDoesNotExist() {
+        BlobStoreDAO store = testee();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void listBlobsShouldReturnSavedBlob() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .containsOnly(TEST_BLOB_ID);
+    }
+
+    @Test
+    default void listBlobsShouldReturnAllSavedBlobs() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(store.save(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .containsOnly(TEST_BLOB_ID, OTHER_TEST_BLOB_ID);
+    }
+
+    @Test
+    default void listBlobsShouldReturnBlobsOfTheDefaultBucket() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(BucketName.DEFAULT, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Flux.from(store.listBlobs(BucketName.DEFAULT)).collectList().block())
+            .containsOnly(TEST_BLOB_ID);
+    }
+
+    @Test
+    default void listBlobsShouldNotReturnDeletedBlobs() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(store.save(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(store.delete(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .containsOnly(OTHER_TEST_BLOB_ID);
+    }
+
+    @Test
+    default void listBlobsShouldNotReturnBlobsOfOtherBuckets() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(store.save(CUSTOM_BUCKET_NAME, OTHER_TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .containsOnly(TEST_BLOB_ID);
+    }
+
+    @Test
+    default void listBlobsShouldReturnEmptyAfterBucketDeletion() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(store.deleteBucket(TEST_BUCKET_NAME)).block();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void listBlobsShouldReturnAllBlobsWhenMoreThanAPage() {
+        BlobStoreDAO store = testee();
+        List<BlobId> blobIds = Flux.range(0, 1050)
+            .<BlobId>map(i -> new TestBlobId("blob-" + i))
+            .collectList()
+            .block();
+
+        Flux.fromIterable(blobIds)
+            .flatMap(blobId -> store.save(TEST_BUCKET_NAME, blobId, SHORT_BYTEARRAY), 16)
+            .blockLast();
+
+        assertThat(Flux.from(store.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .hasSameElementsAs(blobIds);
+    }
+}
@@ -147,6 +147,99 @@ public interface ReadSaveBlobStoreDAOContract {
         assertThat(bytes).isEqualTo(SHORT_BYTEARRAY);
     }
 
+    @Test
+    default void readRangeShouldReturnRequestedBytes() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, 2, 5)).block();
+
+        assertThat(bytes).isEqualTo(Arrays.copyOfRange(SHORT_BYTEARRAY, 2, 7));
+    }
+
+    @Test
+    default void readRangeShouldBeTruncatedWhenExceedingTheBlob() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, 2, Long.MAX_VALUE)).block();
+
+        assertThat(bytes).isEqualTo(Arrays.copyOfRange(SHORT_BYTEARRAY, 2, SHORT_BYTEARRAY.length));
+    }
+
+    @Test
+    default void readRangeShouldBeEmptyWhenStartingAfterTheBlob() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY.length + 10, 5)).block();
+
+        assertThat(bytes).isEmpty();
+    }
+
+    @Test
+    default void readRangeShouldBeEmptyWhenZeroLength() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, 2, 0)).block();
+
+        assertThat(bytes).isEmpty();
+    }
+
+    @Test
+    default void readRangeShouldBeEmptyForEmptyBlobs() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, EMPTY_BYTEARRAY)).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, 0, 5)).block();
+
+        assertThat(bytes).isEmpty();
+    }
+
+    @Test
+    default void readRangeShouldReturnBytesSpanningSeveralParts() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(ELEVEN_KILOBYTES))).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, 10000, 1000)).block();
+
+        assertThat(bytes).isEqualTo(Arrays.copyOfRange(ELEVEN_KILOBYTES, 10000, 11000));
+    }
+
+    @Test
+    default void readRangeShouldReturnTheEndOfBigBlobs() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, TWELVE_MEGABYTES)).block();
+
+        byte[] bytes = Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, TWELVE_MEGABYTES.length - 100, 1000)).block();
+
+        assertThat(bytes).isEqualTo(Arrays.copyOfRange(TWELVE_MEGABYTES, TWELVE_MEGABYTES.length - 100, TWELVE_MEGABYTES.length));
+    }
+
+    @Test
+    default void readRangeShouldThrowWhenNotExisting() {
+        BlobStoreDAO store = testee();
+
+        assertThatThrownBy(() -> Mono.from(store.readRange(TEST_BUCKET_NAME, new TestBlobId("unknown"), 0, 10)).block())
+            .isExactlyInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    default void readRangeShouldThrowWhenNegativeOffset() {
+        BlobStoreDAO store = testee();
+
+        assertThatThrownBy(() -> Mono.from(store.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, -1, 10)).block())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     default void readBytesShouldReturnLongSavedData() {
         BlobStoreDAO store = testee();
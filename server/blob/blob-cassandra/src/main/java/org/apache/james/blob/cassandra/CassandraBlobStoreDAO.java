@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,6 +33,7 @@ import javax.inject.Named;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobRanges;
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.ObjectNotFoundException;
@@ -79,6 +81,43 @@ public class CassandraBlobStoreDAO implements BlobStoreDAO {
             .map(this::byteBuffersToBytesArray);
     }
 
+    /**
+     * Parts are read in order, and reading stops after the part holding the last byte of the range. Parts preceding the
+     * range still need to be read, as parts of a blob saved from a stream do not have a uniform size.
+     */
+    @Override
+    public Mono<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        BlobRanges.check(offset, length);
+        if (length == 0) {
+            return selectRowCountOrFail(bucketName, blobId)
+                .thenReturn(new byte[0]);
+        }
+        long lastByte = BlobRanges.lastByte(offset, length);
+
+        return selectRowCountOrFail(bucketName, blobId)
+            .flatMap(rowCount -> Mono.defer(() -> {
+                AtomicLong partStart = new AtomicLong(0);
+                return Flux.range(0, rowCount)
+                    .concatMap(partIndex -> readPartOrFail(bucketName, blobId, partIndex))
+                    .map(part -> intersect(part, partStart.getAndAdd(part.remaining()), offset, lastByte))
+                    .takeUntil(any -> partStart.get() > lastByte)
+                    .collectList()
+                    .map(this::byteBuffersToBytesArray);
+            }));
+    }
+
+    private ByteBuffer intersect(ByteBuffer part, long partStart, long offset, long lastByte) {
+        long from = Math.max(offset, partStart);
+        long to = Math.min(lastByte + 1, partStart + part.remaining());
+        if (from >= to) {
+            return ByteBuffer.allocate(0);
+        }
+        ByteBuffer result = part.duplicate();
+        result.position(part.position() + (int) (from - partStart));
+        result.limit(part.position() + (int) (to - partStart));
+        return result;
+    }
+
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
         Preconditions.checkNotNull(data);
@@ -164,6 +203,17 @@ public class CassandraBlobStoreDAO implements BlobStoreDAO {
             .then();
     }
 
+    @Override
+    public Flux<BlobId> listBlobs(BucketName bucketName) {
+        if (isDefaultBucket(bucketName)) {
+            return defaultBucketDAO.listBlobs();
+        } else {
+            return bucketDAO.listAll()
+                .filter(bucketNameBlobIdPair -> bucketNameBlobIdPair.getKey().equals(bucketName))
+                .map(Pair::getValue);
+        }
+    }
+
     private Mono<ByteBuffer> readPart(BucketName bucketName, BlobId blobId, Integer partIndex) {
         if (isDefaultBucket(bucketName)) {
             return defaultBucketDAO.readPart(blobId, partIndex);
@@ -181,15 +231,23 @@ public class CassandraBlobStoreDAO implements BlobStoreDAO {
     }
 
     private Flux<ByteBuffer> readBlobParts(BucketName bucketName, BlobId blobId) {
+        return selectRowCountOrFail(bucketName, blobId)
+            .flatMapMany(rowCount -> Flux.range(0, rowCount)
+                .concatMap(partIndex -> readPartOrFail(bucketName, blobId, partIndex)));
+    }
+
+    private Mono<Integer> selectRowCountOrFail(BucketName bucketName, BlobId blobId) {
         return selectRowCount(bucketName, blobId)
             .single()
             .onErrorMap(NoSuchElementException.class, e ->
-                new ObjectNotFoundException(String.format("Could not retrieve blob metadata for %s", blobId)))
-            .flatMapMany(rowCount -> Flux.range(0, rowCount)
-                .concatMap(partIndex -> readPart(bucketName, blobId, partIndex)
-                    .single()
-                    .onErrorMap(NoSuchElementException.class, e ->
-                        new ObjectNotFoundException(String.format("Missing blob part for blobId %s and position %d", blobId.asString(), partIndex)))));
+                new ObjectNotFoundException(String.format("Could not retrieve blob metadata for %s", blobId)));
+    }
+
+    private Mono<ByteBuffer> readPartOrFail(BucketName bucketName, BlobId blobId, int partIndex) {
+        return readPart(bucketName, blobId, partIndex)
+            .single()
+            .onErrorMap(NoSuchElementException.class, e ->
+                new ObjectNotFoundException(String.format("Missing blob part for blobId %s and position %d", blobId.asString(), partIndex)));
     }
 
     private byte[] byteBuffersToBytesArray(List<ByteBuffer> byteBuffers) {
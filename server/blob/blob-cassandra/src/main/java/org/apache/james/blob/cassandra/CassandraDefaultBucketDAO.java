@@ -40,9 +40,11 @@ import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.google.common.annotations.VisibleForTesting;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class CassandraDefaultBucketDAO {
+    private final BlobId.Factory blobIdFactory;
     private final CassandraAsyncExecutor cassandraAsyncExecutor;
     private final PreparedStatement insert;
     private final PreparedStatement insertPart;
@@ -50,10 +52,12 @@ public class CassandraDefaultBucketDAO {
     private final PreparedStatement selectPart;
     private final PreparedStatement delete;
     private final PreparedStatement deleteParts;
+    private final PreparedStatement listBlobs;
 
     @Inject
     @VisibleForTesting
-    public CassandraDefaultBucketDAO(Session session) {
+    public CassandraDefaultBucketDAO(BlobId.Factory blobIdFactory, Session session) {
+        this.blobIdFactory = blobIdFactory;
         this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
         this.insert = prepareInsert(session);
         this.select = prepareSelect(session);
@@ -61,6 +65,14 @@ public class CassandraDefaultBucketDAO {
         this.selectPart = prepareSelectPart(session);
         this.delete = prepareDelete(session);
         this.deleteParts = prepareDeleteParts(session);
+        this.listBlobs = prepareListBlobs(session);
+    }
+
+    private PreparedStatement prepareListBlobs(Session session) {
+        return session.prepare(select()
+            .distinct()
+            .column(ID)
+            .from(BlobTables.DefaultBucketBlobTable.TABLE_NAME));
     }
 
     private PreparedStatement prepareSelect(Session session) {
@@ -143,6 +155,11 @@ public class CassandraDefaultBucketDAO {
                 .setString(DefaultBucketBlobParts.ID, blobId.asString()));
     }
 
+    Flux<BlobId> listBlobs() {
+        return cassandraAsyncExecutor.executeRows(listBlobs.bind())
+            .map(row -> blobIdFactory.from(row.getString(ID)));
+    }
+
     private ByteBuffer rowToData(Row row) {
         return row.getBytes(DefaultBucketBlobParts.DATA);
     }
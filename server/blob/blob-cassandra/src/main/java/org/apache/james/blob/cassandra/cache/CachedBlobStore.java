@@ -177,6 +177,11 @@ public class CachedBlobStore implements BlobStore {
         return read(bucketName, blobId, LOW_COST);
     }
 
+    @Override
+    public Publisher<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        return backend.readRange(bucketName, blobId, offset, length);
+    }
+
     private Mono<byte[]> readBytesInDefaultBucket(BucketName bucketName, BlobId blobId) {
         return readFromCache(blobId).switchIfEmpty(
             readBytesFromBackend(bucketName, blobId)
@@ -34,6 +34,7 @@ import java.util.Optional;
 
 import org.apache.james.backends.cassandra.CassandraCluster;
 import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.blob.api.HashBlobId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -47,7 +48,7 @@ class CassandraDefaultBucketDAOTest {
 
     @BeforeEach
     void setUp(CassandraCluster cassandra) {
-        testee = new CassandraDefaultBucketDAO(cassandraCluster.getCassandraCluster().getConf());
+        testee = new CassandraDefaultBucketDAO(new HashBlobId.Factory(), cassandraCluster.getCassandraCluster().getConf());
     }
 
     @Test
@@ -154,4 +155,27 @@ class CassandraDefaultBucketDAOTest {
         assertThat(maybeBytes).isEmpty();
         assertThat(maybeBytes2).isEmpty();
     }
+
+    @Test
+    void listBlobsShouldReturnEmptyWhenNone() {
+        assertThat(testee.listBlobs().collectList().block()).isEmpty();
+    }
+
+    @Test
+    void listBlobsShouldReturnSavedBlobs() {
+        testee.saveBlobPartsReferences(BLOB_ID, NUMBER_OF_CHUNK).block();
+        testee.saveBlobPartsReferences(BLOB_ID_2, NUMBER_OF_CHUNK).block();
+
+        assertThat(testee.listBlobs().collectList().block()).containsOnly(BLOB_ID, BLOB_ID_2);
+    }
+
+    @Test
+    void listBlobsShouldNotReturnDeletedBlobs() {
+        testee.saveBlobPartsReferences(BLOB_ID, NUMBER_OF_CHUNK).block();
+        testee.saveBlobPartsReferences(BLOB_ID_2, NUMBER_OF_CHUNK).block();
+
+        testee.deletePosition(BLOB_ID).block();
+
+        assertThat(testee.listBlobs().collectList().block()).containsOnly(BLOB_ID_2);
+    }
 }
\ No newline at end of file
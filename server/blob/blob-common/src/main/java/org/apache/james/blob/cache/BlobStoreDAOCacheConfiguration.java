@@ -0,0 +1,250 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.util.SizeFormat;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+public class BlobStoreDAOCacheConfiguration {
+
+    public enum CachePolicy {
+        NONE,
+        HEAP,
+        HEAP_AND_DISK;
+
+        static CachePolicy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.US));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(value + " is not a valid blob cache policy, expecting one of none, heap, heap_and_disk", e);
+            }
+        }
+    }
+
+    public static class Builder {
+        private static final long DEFAULT_HEAP_SIZE = 100L * 1024 * 1024;
+        private static final long DEFAULT_DISK_SIZE = 1024L * 1024 * 1024;
+        private static final int DEFAULT_MAX_BLOB_SIZE = 1024 * 1024;
+
+        private Optional<Long> heapSizeInBytes = Optional.empty();
+        private Optional<Path> diskDirectory = Optional.empty();
+        private Optional<Long> diskSizeInBytes = Optional.empty();
+        private Optional<Integer> maxBlobSizeInBytes = Optional.empty();
+        private Optional<CachePolicy> defaultPolicy = Optional.empty();
+        private final ImmutableMap.Builder<BucketName, CachePolicy> bucketPolicies = ImmutableMap.builder();
+
+        public Builder heapSizeInBytes(long heapSizeInBytes) {
+            Preconditions.checkArgument(heapSizeInBytes > 0, "'Heap size' needs to be strictly positive");
+
+            this.heapSizeInBytes = Optional.of(heapSizeInBytes);
+            return this;
+        }
+
+        public Builder diskDirectory(Path diskDirectory) {
+            Preconditions.checkNotNull(diskDirectory, "'Disk directory' must not be null");
+
+            this.diskDirectory = Optional.of(diskDirectory);
+            return this;
+        }
+
+        public Builder diskSizeInBytes(long diskSizeInBytes) {
+            Preconditions.checkArgument(diskSizeInBytes > 0, "'Disk size' needs to be strictly positive");
+
+            this.diskSizeInBytes = Optional.of(diskSizeInBytes);
+            return this;
+        }
+
+        public Builder maxBlobSizeInBytes(int maxBlobSizeInBytes) {
+            Preconditions.checkArgument(maxBlobSizeInBytes > 0, "'Maximum blob size' needs to be strictly positive");
+
+            this.maxBlobSizeInBytes = Optional.of(maxBlobSizeInBytes);
+            return this;
+        }
+
+        public Builder defaultPolicy(CachePolicy defaultPolicy) {
+            Preconditions.checkNotNull(defaultPolicy, "'Default policy' must not be null");
+
+            this.defaultPolicy = Optional.of(defaultPolicy);
+            return this;
+        }
+
+        public Builder bucketPolicy(BucketName bucketName, CachePolicy policy) {
+            Preconditions.checkNotNull(bucketName, "'Bucket name' must not be null");
+            Preconditions.checkNotNull(policy, "'Policy' must not be null");
+
+            this.bucketPolicies.put(bucketName, policy);
+            return this;
+        }
+
+        public Builder heapSizeInBytes(Optional<Long> heapSizeInBytes) {
+            heapSizeInBytes.ifPresent(this::heapSizeInBytes);
+            return this;
+        }
+
+        public Builder diskDirectory(Optional<Path> diskDirectory) {
+            diskDirectory.ifPresent(this::diskDirectory);
+            return this;
+        }
+
+        public Builder diskSizeInBytes(Optional<Long> diskSizeInBytes) {
+            diskSizeInBytes.ifPresent(this::diskSizeInBytes);
+            return this;
+        }
+
+        public Builder maxBlobSizeInBytes(Optional<Integer> maxBlobSizeInBytes) {
+            maxBlobSizeInBytes.ifPresent(this::maxBlobSizeInBytes);
+            return this;
+        }
+
+        public Builder defaultPolicy(Optional<CachePolicy> defaultPolicy) {
+            defaultPolicy.ifPresent(this::defaultPolicy);
+            return this;
+        }
+
+        public BlobStoreDAOCacheConfiguration build() {
+            CachePolicy policy = defaultPolicy.orElse(diskDirectory.map(any -> CachePolicy.HEAP_AND_DISK).orElse(CachePolicy.HEAP));
+            return new BlobStoreDAOCacheConfiguration(
+                heapSizeInBytes.orElse(DEFAULT_HEAP_SIZE),
+                diskDirectory,
+                diskSizeInBytes.orElse(DEFAULT_DISK_SIZE),
+                maxBlobSizeInBytes.orElse(DEFAULT_MAX_BLOB_SIZE),
+                policy,
+                bucketPolicies.build());
+        }
+    }
+
+    static final String ENABLE_PROPERTY = "cache.dao.enable";
+    private static final String HEAP_SIZE_PROPERTY = "cache.dao.heap.size";
+    private static final String DISK_DIRECTORY_PROPERTY = "cache.dao.disk.directory";
+    private static final String DISK_SIZE_PROPERTY = "cache.dao.disk.size";
+    private static final String MAX_BLOB_SIZE_PROPERTY = "cache.dao.blob.size.max";
+    private static final String POLICY_PROPERTY = "cache.dao.policy";
+    private static final String BUCKET_POLICY_PREFIX = "cache.dao.bucket";
+
+    public static final BlobStoreDAOCacheConfiguration DEFAULT = builder().build();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static boolean isEnabled(Configuration configuration) {
+        return configuration.getBoolean(ENABLE_PROPERTY, false);
+    }
+
+    public static BlobStoreDAOCacheConfiguration from(Configuration configuration) {
+        Builder builder = builder()
+            .heapSizeInBytes(Optional.ofNullable(configuration.getString(HEAP_SIZE_PROPERTY, null))
+                .map(SizeFormat::parseAsByteCount))
+            .diskDirectory(Optional.ofNullable(configuration.getString(DISK_DIRECTORY_PROPERTY, null))
+                .map(Paths::get))
+            .diskSizeInBytes(Optional.ofNullable(configuration.getString(DISK_SIZE_PROPERTY, null))
+                .map(SizeFormat::parseAsByteCount))
+            .maxBlobSizeInBytes(Optional.ofNullable(configuration.getString(MAX_BLOB_SIZE_PROPERTY, null))
+                .map(SizeFormat::parseAsByteCount)
+                .map(Math::toIntExact))
+            .defaultPolicy(Optional.ofNullable(configuration.getString(POLICY_PROPERTY, null))
+                .map(CachePolicy::parse));
+
+        Iterator<String> bucketKeys = configuration.getKeys(BUCKET_POLICY_PREFIX);
+        while (bucketKeys.hasNext()) {
+            String key = bucketKeys.next();
+            builder.bucketPolicy(BucketName.of(key.substring(BUCKET_POLICY_PREFIX.length() + 1)),
+                CachePolicy.parse(configuration.getString(key)));
+        }
+        return builder.build();
+    }
+
+    private final long heapSizeInBytes;
+    private final Optional<Path> diskDirectory;
+    private final long diskSizeInBytes;
+    private final int maxBlobSizeInBytes;
+    private final CachePolicy defaultPolicy;
+    private final ImmutableMap<BucketName, CachePolicy> bucketPolicies;
+
+    private BlobStoreDAOCacheConfiguration(long heapSizeInBytes, Optional<Path> diskDirectory, long diskSizeInBytes,
+                                           int maxBlobSizeInBytes, CachePolicy defaultPolicy,
+                                           ImmutableMap<BucketName, CachePolicy> bucketPolicies) {
+        Preconditions.checkArgument(diskDirectory.isPresent() || !usesDisk(defaultPolicy, bucketPolicies),
+            "'%s' needs to be specified when using the %s policy", DISK_DIRECTORY_PROPERTY, CachePolicy.HEAP_AND_DISK);
+
+        this.heapSizeInBytes = heapSizeInBytes;
+        this.diskDirectory = diskDirectory;
+        this.diskSizeInBytes = diskSizeInBytes;
+        this.maxBlobSizeInBytes = maxBlobSizeInBytes;
+        this.defaultPolicy = defaultPolicy;
+        this.bucketPolicies = bucketPolicies;
+    }
+
+    private static boolean usesDisk(CachePolicy defaultPolicy, ImmutableMap<BucketName, CachePolicy> bucketPolicies) {
+        return defaultPolicy == CachePolicy.HEAP_AND_DISK
+            || bucketPolicies.containsValue(CachePolicy.HEAP_AND_DISK);
+    }
+
+    public long getHeapSizeInBytes() {
+        return heapSizeInBytes;
+    }
+
+    public Optional<Path> getDiskDirectory() {
+        return diskDirectory;
+    }
+
+    public long getDiskSizeInBytes() {
+        return diskSizeInBytes;
+    }
+
+    public int getMaxBlobSizeInBytes() {
+        return maxBlobSizeInBytes;
+    }
+
+    public CachePolicy policy(BucketName bucketName) {
+        return bucketPolicies.getOrDefault(bucketName, defaultPolicy);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof BlobStoreDAOCacheConfiguration) {
+            BlobStoreDAOCacheConfiguration that = (BlobStoreDAOCacheConfiguration) o;
+
+            return Objects.equals(this.heapSizeInBytes, that.heapSizeInBytes)
+                && Objects.equals(this.diskDirectory, that.diskDirectory)
+                && Objects.equals(this.diskSizeInBytes, that.diskSizeInBytes)
+                && Objects.equals(this.maxBlobSizeInBytes, that.maxBlobSizeInBytes)
+                && Objects.equals(this.defaultPolicy, that.defaultPolicy)
+                && Objects.equals(this.bucketPolicies, that.bucketPolicies);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(heapSizeInBytes, diskDirectory, diskSizeInBytes, maxBlobSizeInBytes, defaultPolicy, bucketPolicies);
+    }
+}
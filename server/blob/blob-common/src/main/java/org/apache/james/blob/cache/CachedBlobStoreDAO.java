@@ -0,0 +1,319 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobRanges;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.blob.api.ObjectStoreIOException;
+import org.apache.james.blob.cache.BlobStoreDAOCacheConfiguration.CachePolicy;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.reactivestreams.Publisher;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteSource;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link BlobStoreDAO} decorator caching small blobs in a size bounded heap tier, backed by an optional local disk tier.
+ *
+ * The tiers used for a blob depend on the {@link CachePolicy} of its bucket. Concurrent reads of the same missing blob,
+ * blocking or not, share a single backend read: the first one loads the blob, the others wait for its outcome. Blobs
+ * too big to be cached are then read again by each waiting reader.
+ */
+public class CachedBlobStoreDAO implements BlobStoreDAO {
+    public static final String HEAP_HIT_METRIC_NAME = "blobStoreDAOCacheHeapHits";
+    public static final String DISK_HIT_METRIC_NAME = "blobStoreDAOCacheDiskHits";
+    public static final String MISS_METRIC_NAME = "blobStoreDAOCacheMisses";
+    public static final String EVICTION_METRIC_NAME = "blobStoreDAOCacheEvictions";
+
+    private final BlobStoreDAO backend;
+    private final BlobStoreDAOCacheConfiguration configuration;
+    private final Cache<BlobCacheKey, byte[]> heap;
+    private final Optional<DiskBlobCache> disk;
+    private final Map<BlobCacheKey, CompletableFuture<Optional<byte[]>>> inFlight;
+    private final Metric heapHitMetric;
+    private final Metric diskHitMetric;
+    private final Metric missMetric;
+
+    public CachedBlobStoreDAO(BlobStoreDAO backend, BlobStoreDAOCacheConfiguration configuration, MetricFactory metricFactory) throws IOException {
+        this.backend = backend;
+        this.configuration = configuration;
+        this.heapHitMetric = metricFactory.generate(HEAP_HIT_METRIC_NAME);
+        this.diskHitMetric = metricFactory.generate(DISK_HIT_METRIC_NAME);
+        this.missMetric = metricFactory.generate(MISS_METRIC_NAME);
+        Metric evictionMetric = metricFactory.generate(EVICTION_METRIC_NAME);
+        this.heap = CacheBuilder.newBuilder()
+            .maximumWeight(configuration.getHeapSizeInBytes())
+            .<BlobCacheKey, byte[]>weigher((key, bytes) -> bytes.length)
+            .removalListener(notification -> {
+                if (notification.wasEvicted()) {
+                    evictionMetric.increment();
+                }
+            })
+            .build();
+        if (configuration.getDiskDirectory().isPresent()) {
+            this.disk = Optional.of(DiskBlobCache.open(configuration.getDiskDirectory().get(), configuration.getDiskSizeInBytes(), evictionMetric));
+        } else {
+            this.disk = Optional.empty();
+        }
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId) throws ObjectStoreIOException, ObjectNotFoundException {
+        CachePolicy policy = configuration.policy(bucketName);
+        if (policy == CachePolicy.NONE) {
+            return backend.read(bucketName, blobId);
+        }
+        BlobCacheKey key = new BlobCacheKey(bucketName, blobId);
+        Optional<byte[]> fromHeap = readFromHeap(key);
+        if (fromHeap.isPresent()) {
+            return new ByteArrayInputStream(fromHeap.get());
+        }
+        Optional<InputStream> fromDisk = streamFromDiskIfEnabled(key, policy);
+        if (fromDisk.isPresent()) {
+            return fromDisk.get();
+        }
+
+        CompletableFuture<Optional<byte[]>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<byte[]>> concurrentLoad = inFlight.putIfAbsent(key, load);
+        if (concurrentLoad != null) {
+            return awaitConcurrentLoad(concurrentLoad)
+                .<InputStream>map(ByteArrayInputStream::new)
+                .orElseGet(() -> backend.read(bucketName, blobId));
+        }
+        try {
+            return load(key, policy, load);
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private InputStream load(BlobCacheKey key, CachePolicy policy, CompletableFuture<Optional<byte[]>> load) {
+        missMetric.increment();
+        try {
+            InputStream inputStream = backend.read(key.getBucketName(), key.getBlobId());
+            byte[] firstBytes = inputStream.readNBytes(configuration.getMaxBlobSizeInBytes() + 1);
+            if (firstBytes.length > configuration.getMaxBlobSizeInBytes()) {
+                load.complete(Optional.empty());
+                return new SequenceInputStream(new ByteArrayInputStream(firstBytes), inputStream);
+            }
+            inputStream.close();
+            populate(key, policy, firstBytes);
+            load.complete(Optional.of(firstBytes));
+            return new ByteArrayInputStream(firstBytes);
+        } catch (IOException e) {
+            ObjectStoreIOException failure = new ObjectStoreIOException("Failed reading blob " + key.getBlobId().asString(), e);
+            load.completeExceptionally(failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Optional<byte[]> awaitConcurrentLoad(CompletableFuture<Optional<byte[]>> concurrentLoad) {
+        try {
+            return concurrentLoad.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ObjectStoreException) {
+                throw (ObjectStoreException) e.getCause();
+            }
+            throw new ObjectStoreIOException("Concurrent read of the blob failed", e.getCause());
+        }
+    }
+
+    @Override
+    public Publisher<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+        CachePolicy policy = configuration.policy(bucketName);
+        if (policy == CachePolicy.NONE) {
+            return backend.readBytes(bucketName, blobId);
+        }
+        BlobCacheKey key = new BlobCacheKey(bucketName, blobId);
+        return Mono.defer(() -> Mono.justOrEmpty(readFromHeap(key)))
+            .switchIfEmpty(readFromDiskIfEnabled(key, policy))
+            .switchIfEmpty(Mono.defer(() -> loadBytes(key, policy)));
+    }
+
+    /**
+     * Ranges are served from the cache when the whole blob is cached, and read from the backend otherwise, without
+     * populating the cache.
+     */
+    @Override
+    public Publisher<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        BlobRanges.check(offset, length);
+        CachePolicy policy = configuration.policy(bucketName);
+        if (policy == CachePolicy.NONE) {
+            return backend.readRange(bucketName, blobId, offset, length);
+        }
+        BlobCacheKey key = new BlobCacheKey(bucketName, blobId);
+        return Mono.defer(() -> Mono.justOrEmpty(readFromHeap(key)))
+            .map(bytes -> BlobRanges.slice(bytes, offset, length))
+            .switchIfEmpty(readRangeFromDiskIfEnabled(key, policy, offset, length))
+            .switchIfEmpty(Mono.defer(() -> Mono.from(backend.readRange(bucketName, blobId, offset, length))));
+    }
+
+    private Mono<byte[]> readFromDiskIfEnabled(BlobCacheKey key, CachePolicy policy) {
+        if (policy == CachePolicy.HEAP_AND_DISK && disk.isPresent()) {
+            return Mono.fromCallable(() -> readFromDisk(key))
+                .flatMap(Mono::justOrEmpty)
+                .subscribeOn(Schedulers.elastic());
+        }
+        return Mono.empty();
+    }
+
+    private Mono<byte[]> readRangeFromDiskIfEnabled(BlobCacheKey key, CachePolicy policy, long offset, long length) {
+        if (policy == CachePolicy.HEAP_AND_DISK && disk.isPresent()) {
+            return Mono.fromCallable(() -> disk.get().getRange(key, offset, length))
+                .flatMap(Mono::justOrEmpty)
+                .doOnNext(any -> diskHitMetric.increment())
+                .subscribeOn(Schedulers.elastic());
+        }
+        return Mono.empty();
+    }
+
+    private Optional<InputStream> streamFromDiskIfEnabled(BlobCacheKey key, CachePolicy policy) {
+        if (policy == CachePolicy.HEAP_AND_DISK) {
+            Optional<InputStream> fromDisk = disk.flatMap(diskCache -> diskCache.openStream(key));
+            fromDisk.ifPresent(any -> diskHitMetric.increment());
+            return fromDisk;
+        }
+        return Optional.empty();
+    }
+
+    private Mono<byte[]> loadBytes(BlobCacheKey key, CachePolicy policy) {
+        CompletableFuture<Optional<byte[]>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<byte[]>> concurrentLoad = inFlight.putIfAbsent(key, load);
+        if (concurrentLoad != null) {
+            // Waiting on a copy: a cancelled reader should not cancel the load shared with the others
+            return Mono.fromFuture(concurrentLoad.copy())
+                .flatMap(loaded -> loaded.map(Mono::just)
+                    .orElseGet(() -> Mono.from(backend.readBytes(key.getBucketName(), key.getBlobId()))));
+        }
+        missMetric.increment();
+        return Mono.from(backend.readBytes(key.getBucketName(), key.getBlobId()))
+            .publishOn(Schedulers.elastic())
+            .doOnNext(bytes -> {
+                populate(key, policy, bytes);
+                load.complete(Optional.of(bytes));
+            })
+            .doOnError(load::completeExceptionally)
+            .doFinally(any -> {
+                inFlight.remove(key, load);
+                // Cancelled: waiting readers read the blob on their own
+                load.complete(Optional.empty());
+            });
+    }
+
+    private Optional<byte[]> readFromHeap(BlobCacheKey key) {
+        Optional<byte[]> fromHeap = Optional.ofNullable(heap.getIfPresent(key));
+        fromHeap.ifPresent(any -> heapHitMetric.increment());
+        return fromHeap;
+    }
+
+    private Optional<byte[]> readFromDisk(BlobCacheKey key) {
+        Optional<byte[]> fromDisk = disk.flatMap(diskCache -> diskCache.get(key));
+        fromDisk.ifPresent(bytes -> {
+            diskHitMetric.increment();
+            heap.put(key, bytes);
+        });
+        return fromDisk;
+    }
+
+    private void populate(BlobCacheKey key, CachePolicy policy, byte[] bytes) {
+        if (policy == CachePolicy.NONE || bytes.length > configuration.getMaxBlobSizeInBytes()) {
+            return;
+        }
+        heap.put(key, bytes);
+        if (policy == CachePolicy.HEAP_AND_DISK) {
+            disk.ifPresent(diskCache -> diskCache.put(key, bytes));
+        }
+    }
+
+    @Override
+    public Publisher<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
+        return Mono.from(backend.save(bucketName, blobId, data))
+            .then(Mono.fromRunnable(() -> populate(new BlobCacheKey(bucketName, blobId), configuration.policy(bucketName), data))
+                .subscribeOn(Schedulers.elastic()))
+            .then();
+    }
+
+    @Override
+    public Publisher<Void> save(BucketName bucketName, BlobId blobId, InputStream inputStream) {
+        return backend.save(bucketName, blobId, inputStream);
+    }
+
+    @Override
+    public Publisher<Void> save(BucketName bucketName, BlobId blobId, ByteSource content) {
+        return backend.save(bucketName, blobId, content);
+    }
+
+    @Override
+    public Publisher<Void> delete(BucketName bucketName, BlobId blobId) {
+        BlobCacheKey key = new BlobCacheKey(bucketName, blobId);
+        return Mono.from(backend.delete(bucketName, blobId))
+            .then(Mono.fromRunnable(() -> {
+                heap.invalidate(key);
+                disk.ifPresent(diskCache -> diskCache.invalidate(key));
+            }))
+            .then();
+    }
+
+    @Override
+    public Publisher<Void> deleteBucket(BucketName bucketName) {
+        return Mono.from(backend.deleteBucket(bucketName))
+            .then(Mono.fromRunnable(() -> {
+                heap.asMap().keySet().removeIf(key -> key.getBucketName().equals(bucketName));
+                disk.ifPresent(diskCache -> diskCache.invalidate(bucketName));
+            }))
+            .then();
+    }
+
+    @Override
+    public Publisher<BlobId> listBlobs(BucketName bucketName) {
+        return backend.listBlobs(bucketName);
+    }
+
+    @VisibleForTesting
+    long heapSizeInBytes() {
+        return heap.asMap().values().stream()
+            .mapToLong(bytes -> bytes.length)
+            .sum();
+    }
+}
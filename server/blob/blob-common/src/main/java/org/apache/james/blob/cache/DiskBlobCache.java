@@ -0,0 +1,257 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.james.blob.api.BlobRanges;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.metrics.api.Metric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local disk tier of {@link CachedBlobStoreDAO}.
+ *
+ * Each entry is stored in its own file, read back through a read only memory mapping: streams are served straight from
+ * the mapping, without copying the blob on the heap. The index is kept in memory,
+ * in access order, and least recently used entries are evicted once the configured size is exceeded. The content of
+ * the directory is discarded on startup.
+ */
+class DiskBlobCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskBlobCache.class);
+    private static final String EXTENSION = ".blob";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static class Entry {
+        private final Path file;
+        private final long size;
+
+        private Entry(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    static DiskBlobCache open(Path directory, long maxSizeInBytes, Metric evictionMetric) throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> leftOvers = Files.newDirectoryStream(directory, "*{" + EXTENSION + "," + TEMPORARY_EXTENSION + "}")) {
+            for (Path leftOver : leftOvers) {
+                Files.deleteIfExists(leftOver);
+            }
+        }
+        return new DiskBlobCache(directory, maxSizeInBytes, evictionMetric);
+    }
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final Metric evictionMetric;
+    private final LinkedHashMap<BlobCacheKey, Entry> index;
+    private long sizeInBytes;
+
+    private DiskBlobCache(Path directory, long maxSizeInBytes, Metric evictionMetric) {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.evictionMetric = evictionMetric;
+        this.index = new LinkedHashMap<>(16, 0.75f, true);
+        this.sizeInBytes = 0;
+    }
+
+    /**
+     * The stream reads the memory mapping directly. The mapping outlives the eviction of the entry.
+     */
+    Optional<InputStream> openStream(BlobCacheKey key) {
+        return map(key).map(ByteBufferInputStream::new);
+    }
+
+    Optional<byte[]> get(BlobCacheKey key) {
+        return map(key).map(buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        });
+    }
+
+    /**
+     * Copies only the requested range out of the memory mapping.
+     */
+    Optional<byte[]> getRange(BlobCacheKey key, long offset, long length) {
+        return map(key).map(buffer -> {
+            if (offset >= buffer.limit() || length == 0) {
+                return new byte[0];
+            }
+            int end = (int) Math.min(buffer.limit(), BlobRanges.lastByte(offset, length) + 1);
+            byte[] bytes = new byte[end - (int) offset];
+            buffer.position((int) offset);
+            buffer.get(bytes);
+            return bytes;
+        });
+    }
+
+    private Optional<ByteBuffer> map(BlobCacheKey key) {
+        Optional<Entry> entry = lookup(key);
+        if (entry.isEmpty()) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(entry.get().file, StandardOpenOption.READ)) {
+            return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.get().size));
+        } catch (NoSuchFileException e) {
+            // Evicted concurrently
+            return Optional.empty();
+        } catch (IOException e) {
+            LOGGER.warn("Failed reading {} from the disk blob cache", key, e);
+            invalidate(key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Best effort: the entry is not cached when it can not be written to the disk.
+     */
+    void put(BlobCacheKey key, byte[] bytes) {
+        if (bytes.length > maxSizeInBytes) {
+            return;
+        }
+        Path file = directory.resolve(UUID.randomUUID().toString() + EXTENSION);
+        Optional<Path> temporaryFile = Optional.empty();
+        try {
+            temporaryFile = Optional.of(Files.createTempFile(directory, "cache", TEMPORARY_EXTENSION));
+            Files.write(temporaryFile.get(), bytes);
+            Files.move(temporaryFile.get(), file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed writing {} to the disk blob cache", key, e);
+            return;
+        } finally {
+            temporaryFile.ifPresent(this::deleteTemporaryFile);
+        }
+        synchronized (this) {
+            Optional.ofNullable(index.put(key, new Entry(file, bytes.length)))
+                .ifPresent(this::discard);
+            sizeInBytes += bytes.length;
+            evictIfNeeded();
+        }
+    }
+
+    synchronized void invalidate(BlobCacheKey key) {
+        Optional.ofNullable(index.remove(key))
+            .ifPresent(this::discard);
+    }
+
+    synchronized void invalidate(BucketName bucketName) {
+        Iterator<Map.Entry<BlobCacheKey, Entry>> entries = index.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<BlobCacheKey, Entry> entry = entries.next();
+            if (entry.getKey().getBucketName().equals(bucketName)) {
+                entries.remove();
+                discard(entry.getValue());
+            }
+        }
+    }
+
+    synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    private synchronized Optional<Entry> lookup(BlobCacheKey key) {
+        return Optional.ofNullable(index.get(key));
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> eldest = index.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            discard(entry);
+            evictionMetric.increment();
+        }
+    }
+
+    private void deleteTemporaryFile(Path temporaryFile) {
+        try {
+            Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed deleting {} from the disk blob cache", temporaryFile, e);
+        }
+    }
+
+    private void discard(Entry entry) {
+        sizeInBytes -= entry.size;
+        try {
+            Files.deleteIfExists(entry.file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed deleting {} from the disk blob cache", entry.file, e);
+        }
+    }
+}
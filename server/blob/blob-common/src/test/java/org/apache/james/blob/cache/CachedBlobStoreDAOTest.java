@@ -0,0 +1,249 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.CUSTOM_BUCKET_NAME;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.ELEVEN_KILOBYTES;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.OTHER_TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BlobStoreDAOContract;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.cache.BlobStoreDAOCacheConfiguration.CachePolicy;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class CachedBlobStoreDAOTest implements BlobStoreDAOContract {
+    private static class CountingBlobStoreDAO extends MemoryBlobStoreDAO {
+        private final AtomicInteger readCount = new AtomicInteger();
+
+        @Override
+        public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+            return super.readBytes(bucketName, blobId)
+                .doOnSubscribe(any -> readCount.incrementAndGet())
+                .delayElement(Duration.ofMillis(50));
+        }
+
+        @Override
+        public InputStream read(BucketName bucketName, BlobId blobId) {
+            readCount.incrementAndGet();
+            Mono.delay(Duration.ofMillis(50)).block();
+            return super.read(bucketName, blobId);
+        }
+    }
+
+    @TempDir
+    Path cacheDirectory;
+
+    private CountingBlobStoreDAO backend;
+    private RecordingMetricFactory metricFactory;
+    private CachedBlobStoreDAO testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backend = new CountingBlobStoreDAO();
+        metricFactory = new RecordingMetricFactory();
+        testee = new CachedBlobStoreDAO(backend, BlobStoreDAOCacheConfiguration.builder()
+                .diskDirectory(cacheDirectory)
+                .maxBlobSizeInBytes(ELEVEN_KILOBYTES.length)
+                .bucketPolicy(CUSTOM_BUCKET_NAME, CachePolicy.NONE)
+                .build(),
+            metricFactory);
+    }
+
+    @Override
+    public BlobStoreDAO testee() {
+        return testee;
+    }
+
+    @Test
+    void readBytesShouldBeServedFromTheCache() {
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        byte[] bytes = Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(bytes).isEqualTo(SHORT_BYTEARRAY);
+        assertThat(backend.readCount.get()).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachedBlobStoreDAO.HEAP_HIT_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachedBlobStoreDAO.MISS_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentReadBytesShouldShareASingleBackendRead() {
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Flux.range(0, 10)
+            .flatMap(i -> Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID))
+                .subscribeOn(Schedulers.elastic()))
+            .collectList()
+            .block();
+
+        assertThat(backend.readCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentReadsShouldShareASingleBackendRead() {
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        List<byte[]> contents = Flux.range(0, 10)
+            .flatMap(i -> Mono.fromCallable(() -> testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID).readAllBytes())
+                .subscribeOn(Schedulers.elastic()))
+            .collectList()
+            .block();
+
+        assertThat(contents).allSatisfy(bytes -> assertThat(bytes).isEqualTo(SHORT_BYTEARRAY));
+        assertThat(backend.readCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentReadsOfAMissingBlobShouldShareASingleBackendRead() {
+        List<Throwable> failures = Flux.range(0, 10)
+            .flatMap(i -> Mono.fromCallable(() -> testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID))
+                .<Throwable>then(Mono.empty())
+                .onErrorResume(Mono::just)
+                .subscribeOn(Schedulers.elastic()))
+            .collectList()
+            .block();
+
+        assertThat(failures)
+            .hasSize(10)
+            .allSatisfy(failure -> assertThat(failure).isInstanceOf(ObjectNotFoundException.class));
+        assertThat(backend.readCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void readAndReadRangeShouldBeServedFromDiskAfterHeapEviction() throws Exception {
+        testee = new CachedBlobStoreDAO(backend, BlobStoreDAOCacheConfiguration.builder()
+                .heapSizeInBytes(ELEVEN_KILOBYTES.length)
+                .diskDirectory(cacheDirectory)
+                .build(),
+            metricFactory);
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES)).block();
+        Mono.from(backend.save(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID, ELEVEN_KILOBYTES)).block();
+
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID)).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasBinaryContent(ELEVEN_KILOBYTES);
+        assertThat(Mono.from(testee.readRange(TEST_BUCKET_NAME, TEST_BLOB_ID, 10, 20)).block())
+            .isEqualTo(Arrays.copyOfRange(ELEVEN_KILOBYTES, 10, 30));
+        assertThat(backend.readCount.get()).isEqualTo(2);
+        assertThat(metricFactory.countFor(CachedBlobStoreDAO.DISK_HIT_METRIC_NAME)).isEqualTo(2);
+    }
+
+    @Test
+    void readBytesShouldBeServedFromDiskAfterHeapEviction() throws Exception {
+        testee = new CachedBlobStoreDAO(backend, BlobStoreDAOCacheConfiguration.builder()
+                .heapSizeInBytes(ELEVEN_KILOBYTES.length)
+                .diskDirectory(cacheDirectory)
+                .build(),
+            metricFactory);
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES)).block();
+        Mono.from(backend.save(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID, ELEVEN_KILOBYTES)).block();
+
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID)).block();
+        byte[] bytes = Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(bytes).isEqualTo(ELEVEN_KILOBYTES);
+        assertThat(backend.readCount.get()).isEqualTo(2);
+        assertThat(metricFactory.countFor(CachedBlobStoreDAO.DISK_HIT_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachedBlobStoreDAO.EVICTION_METRIC_NAME)).isPositive();
+    }
+
+    @Test
+    void diskCacheFailuresShouldNotFailReadsNorSaves() throws Exception {
+        Path diskDirectory = cacheDirectory.resolve("disk");
+        testee = new CachedBlobStoreDAO(backend, BlobStoreDAOCacheConfiguration.builder()
+                .diskDirectory(diskDirectory)
+                .build(),
+            metricFactory);
+        Files.delete(diskDirectory);
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasBinaryContent(SHORT_BYTEARRAY);
+        Mono.from(testee.save(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        assertThat(Mono.from(testee.readBytes(TEST_BUCKET_NAME, OTHER_TEST_BLOB_ID)).block())
+            .isEqualTo(SHORT_BYTEARRAY);
+    }
+
+    @Test
+    void readShouldBeServedFromTheCacheAfterSave() {
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(backend.delete(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasBinaryContent(SHORT_BYTEARRAY);
+    }
+
+    @Test
+    void deleteShouldInvalidateTheCache() {
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Mono.from(testee.delete(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThatThrownBy(() -> Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    void blobsAboveTheMaximumSizeShouldNotBeCached() {
+        byte[] bigBlob = new byte[ELEVEN_KILOBYTES.length + 1];
+        Mono.from(backend.save(TEST_BUCKET_NAME, TEST_BLOB_ID, bigBlob)).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasBinaryContent(bigBlob);
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(backend.readCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    void bucketsWithNonePolicyShouldNotBeCached() {
+        Mono.from(backend.save(CUSTOM_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Mono.from(testee.readBytes(CUSTOM_BUCKET_NAME, TEST_BLOB_ID)).block();
+        Mono.from(testee.readBytes(CUSTOM_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(backend.readCount.get()).isEqualTo(2);
+    }
+}
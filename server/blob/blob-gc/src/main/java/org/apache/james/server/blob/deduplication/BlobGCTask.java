@@ -0,0 +1,184 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.server.blob.deduplication;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskType;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import reactor.core.scheduler.Schedulers;
+
+public class BlobGCTask implements Task {
+    public static final TaskType TASK_TYPE = TaskType.of("BlobGCTask");
+    public static final long DEFAULT_EXPECTED_BLOB_COUNT = 1_000_000;
+    public static final double DEFAULT_ASSOCIATED_PROBABILITY = 0.01;
+
+    public static class AdditionalInformation implements TaskExecutionDetails.AdditionalInformation {
+        private static AdditionalInformation from(BloomFilterGCAlgorithm.Context.Snapshot snapshot, boolean dryRun, Clock clock) {
+            return new AdditionalInformation(
+                snapshot.getReferenceSourceCount(),
+                snapshot.getBlobCount(),
+                snapshot.getGcedBlobCount(),
+                snapshot.getErrorCount(),
+                snapshot.getBloomFilterExpectedBlobCount(),
+                snapshot.getBloomFilterAssociatedProbability(),
+                dryRun,
+                clock.instant());
+        }
+
+        private final long referenceSourceCount;
+        private final long blobCount;
+        private final long gcedBlobCount;
+        private final long errorCount;
+        private final long bloomFilterExpectedBlobCount;
+        private final double bloomFilterAssociatedProbability;
+        private final boolean dryRun;
+        private final Instant timestamp;
+
+        public AdditionalInformation(long referenceSourceCount, long blobCount, long gcedBlobCount, long errorCount,
+                                     long bloomFilterExpectedBlobCount, double bloomFilterAssociatedProbability,
+                                     boolean dryRun, Instant timestamp) {
+            this.referenceSourceCount = referenceSourceCount;
+            this.blobCount = blobCount;
+            this.gcedBlobCount = gcedBlobCount;
+            this.errorCount = errorCount;
+            this.bloomFilterExpectedBlobCount = bloomFilterExpectedBlobCount;
+            this.bloomFilterAssociatedProbability = bloomFilterAssociatedProbability;
+            this.dryRun = dryRun;
+            this.timestamp = timestamp;
+        }
+
+        public long getReferenceSourceCount() {
+            return referenceSourceCount;
+        }
+
+        public long getBlobCount() {
+            return blobCount;
+        }
+
+        public long getGcedBlobCount() {
+            return gcedBlobCount;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getBloomFilterExpectedBlobCount() {
+            return bloomFilterExpectedBlobCount;
+        }
+
+        public double getBloomFilterAssociatedProbability() {
+            return bloomFilterAssociatedProbability;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        @Override
+        public Instant timestamp() {
+            return timestamp;
+        }
+    }
+
+    public static class BlobGCTaskDTO implements TaskDTO {
+        private final String type;
+        private final long expectedBlobCount;
+        private final double associatedProbability;
+        private final boolean dryRun;
+
+        public BlobGCTaskDTO(@JsonProperty("type") String type,
+                             @JsonProperty("expectedBlobCount") long expectedBlobCount,
+                             @JsonProperty("associatedProbability") double associatedProbability,
+                             @JsonProperty("dryRun") boolean dryRun) {
+            this.type = type;
+            this.expectedBlobCount = expectedBlobCount;
+            this.associatedProbability = associatedProbability;
+            this.dryRun = dryRun;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        public long getExpectedBlobCount() {
+            return expectedBlobCount;
+        }
+
+        public double getAssociatedProbability() {
+            return associatedProbability;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+    }
+
+    public static TaskDTOModule<BlobGCTask, BlobGCTaskDTO> module(BloomFilterGCAlgorithm gcAlgorithm, Clock clock) {
+        return DTOModule
+            .forDomainObject(BlobGCTask.class)
+            .convertToDTO(BlobGCTaskDTO.class)
+            .toDomainObjectConverter(dto -> new BlobGCTask(gcAlgorithm, clock, dto.getExpectedBlobCount(), dto.getAssociatedProbability(), dto.isDryRun()))
+            .toDTOConverter((task, type) -> new BlobGCTaskDTO(type, task.context.getBloomFilterExpectedBlobCount(),
+                task.context.getBloomFilterAssociatedProbability(), task.dryRun))
+            .typeName(TASK_TYPE.asString())
+            .withFactory(TaskDTOModule::new);
+    }
+
+    private final BloomFilterGCAlgorithm gcAlgorithm;
+    private final Clock clock;
+    private final BloomFilterGCAlgorithm.Context context;
+    private final boolean dryRun;
+
+    public BlobGCTask(BloomFilterGCAlgorithm gcAlgorithm, Clock clock, long expectedBlobCount, double associatedProbability, boolean dryRun) {
+        this.gcAlgorithm = gcAlgorithm;
+        this.clock = clock;
+        this.context = new BloomFilterGCAlgorithm.Context(expectedBlobCount, associatedProbability);
+        this.dryRun = dryRun;
+    }
+
+    @Override
+    public Result run() {
+        return gcAlgorithm.gc(context, dryRun)
+            .subscribeOn(Schedulers.elastic())
+            .block();
+    }
+
+    @Override
+    public TaskType type() {
+        return TASK_TYPE;
+    }
+
+    @Override
+    public Optional<TaskExecutionDetails.AdditionalInformation> details() {
+        return Optional.of(AdditionalInformation.from(context.snapshot(), dryRun, clock));
+    }
+}
@@ -0,0 +1,240 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.server.blob.deduplication;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceSource;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Deletes the blobs of a bucket that are no longer referenced.
+ *
+ * The mark phase streams the references of every {@link BlobReferenceSource} into a Bloom filter, whose size only
+ * depends on the expected blob count and the accepted false positive probability. The sweep phase then streams the
+ * blobs of the bucket and deletes the ones that neither belong to an active generation nor are in the Bloom filter.
+ *
+ * False positives only prevent some unreferenced blobs from being collected. The Bloom filter is salted at each run so
+ * that a given unreferenced blob does not always collide.
+ *
+ * Only {@link GenerationAwareBlobId} are collected: deduplication never creates new references to blobs of inactive
+ * generations. Blobs stored before generations were introduced belong to no generation, and are collected as well.
+ */
+public class BloomFilterGCAlgorithm {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BloomFilterGCAlgorithm.class);
+    private static final int DELETION_CONCURRENCY = 16;
+
+    public static class Context {
+        public static class Snapshot {
+            private final long referenceSourceCount;
+            private final long blobCount;
+            private final long gcedBlobCount;
+            private final long errorCount;
+            private final long bloomFilterExpectedBlobCount;
+            private final double bloomFilterAssociatedProbability;
+
+            public Snapshot(long referenceSourceCount, long blobCount, long gcedBlobCount, long errorCount,
+                            long bloomFilterExpectedBlobCount, double bloomFilterAssociatedProbability) {
+                this.referenceSourceCount = referenceSourceCount;
+                this.blobCount = blobCount;
+                this.gcedBlobCount = gcedBlobCount;
+                this.errorCount = errorCount;
+                this.bloomFilterExpectedBlobCount = bloomFilterExpectedBlobCount;
+                this.bloomFilterAssociatedProbability = bloomFilterAssociatedProbability;
+            }
+
+            public long getReferenceSourceCount() {
+                return referenceSourceCount;
+            }
+
+            public long getBlobCount() {
+                return blobCount;
+            }
+
+            public long getGcedBlobCount() {
+                return gcedBlobCount;
+            }
+
+            public long getErrorCount() {
+                return errorCount;
+            }
+
+            public long getBloomFilterExpectedBlobCount() {
+                return bloomFilterExpectedBlobCount;
+            }
+
+            public double getBloomFilterAssociatedProbability() {
+                return bloomFilterAssociatedProbability;
+            }
+
+            @Override
+            public final boolean equals(Object o) {
+                if (o instanceof Snapshot) {
+                    Snapshot that = (Snapshot) o;
+
+                    return Objects.equals(this.referenceSourceCount, that.referenceSourceCount)
+                        && Objects.equals(this.blobCount, that.blobCount)
+                        && Objects.equals(this.gcedBlobCount, that.gcedBlobCount)
+                        && Objects.equals(this.errorCount, that.errorCount)
+                        && Objects.equals(this.bloomFilterExpectedBlobCount, that.bloomFilterExpectedBlobCount)
+                        && Objects.equals(this.bloomFilterAssociatedProbability, that.bloomFilterAssociatedProbability);
+                }
+                return false;
+            }
+
+            @Override
+            public final int hashCode() {
+                return Objects.hash(referenceSourceCount, blobCount, gcedBlobCount, errorCount, bloomFilterExpectedBlobCount, bloomFilterAssociatedProbability);
+            }
+
+            @Override
+            public String toString() {
+                return MoreObjects.toStringHelper(this)
+                    .add("referenceSourceCount", referenceSourceCount)
+                    .add("blobCount", blobCount)
+                    .add("gcedBlobCount", gcedBlobCount)
+                    .add("errorCount", errorCount)
+                    .add("bloomFilterExpectedBlobCount", bloomFilterExpectedBlobCount)
+                    .add("bloomFilterAssociatedProbability", bloomFilterAssociatedProbability)
+                    .toString();
+            }
+        }
+
+        private final AtomicLong referenceSourceCount;
+        private final AtomicLong blobCount;
+        private final AtomicLong gcedBlobCount;
+        private final AtomicLong errorCount;
+        private final long bloomFilterExpectedBlobCount;
+        private final double bloomFilterAssociatedProbability;
+
+        public Context(long bloomFilterExpectedBlobCount, double bloomFilterAssociatedProbability) {
+            Preconditions.checkArgument(bloomFilterExpectedBlobCount > 0, "'bloomFilterExpectedBlobCount' needs to be strictly positive");
+            Preconditions.checkArgument(bloomFilterAssociatedProbability > 0 && bloomFilterAssociatedProbability < 1,
+                "'bloomFilterAssociatedProbability' needs to be strictly between 0 and 1");
+
+            this.referenceSourceCount = new AtomicLong();
+            this.blobCount = new AtomicLong();
+            this.gcedBlobCount = new AtomicLong();
+            this.errorCount = new AtomicLong();
+            this.bloomFilterExpectedBlobCount = bloomFilterExpectedBlobCount;
+            this.bloomFilterAssociatedProbability = bloomFilterAssociatedProbability;
+        }
+
+        public long getBloomFilterExpectedBlobCount() {
+            return bloomFilterExpectedBlobCount;
+        }
+
+        public double getBloomFilterAssociatedProbability() {
+            return bloomFilterAssociatedProbability;
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(referenceSourceCount.get(), blobCount.get(), gcedBlobCount.get(), errorCount.get(),
+                bloomFilterExpectedBlobCount, bloomFilterAssociatedProbability);
+        }
+    }
+
+    private final BlobStoreDAO blobStoreDAO;
+    private final BucketName bucketName;
+    private final Set<BlobReferenceSource> referenceSources;
+    private final GenerationAwareBlobId.Configuration generationConfiguration;
+    private final Clock clock;
+
+    public BloomFilterGCAlgorithm(BlobStoreDAO blobStoreDAO, BucketName bucketName, Set<BlobReferenceSource> referenceSources,
+                                  GenerationAwareBlobId.Configuration generationConfiguration, Clock clock) {
+        this.blobStoreDAO = blobStoreDAO;
+        this.bucketName = bucketName;
+        this.referenceSources = ImmutableSet.copyOf(referenceSources);
+        this.generationConfiguration = generationConfiguration;
+        this.clock = clock;
+    }
+
+    /**
+     * @param dryRun when true, unreferenced blobs are only counted as collected, and are not deleted.
+     */
+    public Mono<Task.Result> gc(Context context, boolean dryRun) {
+        String salt = UUID.randomUUID().toString();
+        BloomFilter<CharSequence> bloomFilter = BloomFilter.create(
+            Funnels.stringFunnel(StandardCharsets.UTF_8),
+            context.bloomFilterExpectedBlobCount,
+            context.bloomFilterAssociatedProbability);
+
+        return populatedBloomFilter(bloomFilter, salt, context)
+            .thenMany(Flux.from(blobStoreDAO.listBlobs(bucketName)))
+            .doOnNext(blobId -> context.blobCount.incrementAndGet())
+            .filter(this::isCollectible)
+            .filter(blobId -> !bloomFilter.mightContain(salt + blobId.asString()))
+            .flatMap(blobId -> gcBlob(blobId, context, dryRun), DELETION_CONCURRENCY)
+            .reduce(Task.Result.COMPLETED, Task::combine);
+    }
+
+    private Mono<Void> populatedBloomFilter(BloomFilter<CharSequence> bloomFilter, String salt, Context context) {
+        return Flux.fromIterable(referenceSources)
+            .flatMap(BlobReferenceSource::listReferencedBlobs)
+            .doOnNext(blobId -> {
+                bloomFilter.put(salt + blobId.asString());
+                context.referenceSourceCount.incrementAndGet();
+            })
+            .then();
+    }
+
+    private boolean isCollectible(BlobId blobId) {
+        if (blobId instanceof GenerationAwareBlobId) {
+            return !((GenerationAwareBlobId) blobId).inActiveGeneration(generationConfiguration, clock.instant());
+        }
+        return false;
+    }
+
+    private Mono<Task.Result> gcBlob(BlobId blobId, Context context, boolean dryRun) {
+        if (dryRun) {
+            context.gcedBlobCount.incrementAndGet();
+            return Mono.just(Task.Result.COMPLETED);
+        }
+        return Mono.from(blobStoreDAO.delete(bucketName, blobId))
+            .then(Mono.fromCallable(() -> {
+                context.gcedBlobCount.incrementAndGet();
+                return Task.Result.COMPLETED;
+            }))
+            .onErrorResume(e -> {
+                LOGGER.error("Failed to garbage collect blob {}", blobId.asString(), e);
+                context.errorCount.incrementAndGet();
+                return Mono.just(Task.Result.PARTIAL);
+            });
+    }
+}
@@ -0,0 +1,60 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.server.blob.deduplication;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import org.apache.james.JsonSerializationVerifier;
+import org.junit.jupiter.api.Test;
+
+class BlobGCTaskSerializationTest {
+    private static final Instant INSTANT = Instant.parse("2007-12-03T10:15:30.00Z");
+    private static final Clock CLOCK = Clock.systemUTC();
+    private static final BloomFilterGCAlgorithm GC_ALGORITHM = mock(BloomFilterGCAlgorithm.class);
+
+    @Test
+    void taskShouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(BlobGCTask.module(GC_ALGORITHM, CLOCK))
+            .bean(new BlobGCTask(GC_ALGORITHM, CLOCK, 100, 0.05, true))
+            .json("{\"type\":\"BlobGCTask\",\"expectedBlobCount\":100,\"associatedProbability\":0.05,\"dryRun\":true}")
+            .verify();
+    }
+
+    @Test
+    void additionalInformationShouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(BlobGCTaskAdditionalInformationDTO.module())
+            .bean(new BlobGCTask.AdditionalInformation(1, 2, 3, 4, 100, 0.05, false, INSTANT))
+            .json("{" +
+                "\"type\":\"BlobGCTask\"," +
+                "\"timestamp\":\"2007-12-03T10:15:30Z\"," +
+                "\"referenceSourceCount\":1," +
+                "\"blobCount\":2," +
+                "\"gcedBlobCount\":3," +
+                "\"errorCount\":4," +
+                "\"bloomFilterExpectedBlobCount\":100," +
+                "\"bloomFilterAssociatedProbability\":0.05," +
+                "\"dryRun\":false" +
+                "}")
+            .verify();
+    }
+}
@@ -0,0 +1,231 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.server.blob.deduplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceSource;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.task.Task;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Flux;
+
+class BloomFilterGCAlgorithmTest {
+    private static final BucketName BUCKET = BucketName.DEFAULT;
+    private static final Instant NOW = Instant.parse("2021-01-01T00:00:00Z");
+    private static final GenerationAwareBlobId.Configuration CONFIGURATION = GenerationAwareBlobId.Configuration.builder()
+        .duration(Duration.ofDays(30))
+        .family(1)
+        .build();
+    private static final long EXPECTED_BLOB_COUNT = 100;
+    private static final double ASSOCIATED_PROBABILITY = 0.01;
+
+    private MemoryBlobStoreDAO blobStoreDAO;
+    private UpdatableTickingClock clock;
+    private GenerationAwareBlobId.Factory blobIdFactory;
+
+    @BeforeEach
+    void setUp() {
+        blobStoreDAO = new MemoryBlobStoreDAO();
+        clock = new UpdatableTickingClock(NOW);
+        blobIdFactory = new GenerationAwareBlobId.Factory(clock, new HashBlobId.Factory(), CONFIGURATION);
+    }
+
+    private BloomFilterGCAlgorithm testee(BlobReferenceSource... referenceSources) {
+        return new BloomFilterGCAlgorithm(blobStoreDAO, BUCKET, ImmutableSet.copyOf(referenceSources), CONFIGURATION, clock);
+    }
+
+    private BlobId save(String content) {
+        BlobId blobId = blobIdFactory.forPayload(content.getBytes(StandardCharsets.UTF_8));
+        blobStoreDAO.save(BUCKET, blobId, content.getBytes(StandardCharsets.UTF_8)).block();
+        return blobId;
+    }
+
+    private void expireGenerations() {
+        clock.setInstant(NOW.plus(CONFIGURATION.getDuration().multipliedBy(3)));
+    }
+
+    private Set<BlobId> storedBlobs() {
+        return ImmutableSet.copyOf(Flux.from(blobStoreDAO.listBlobs(BUCKET)).collectList().block());
+    }
+
+    private BloomFilterGCAlgorithm.Context context() {
+        return new BloomFilterGCAlgorithm.Context(EXPECTED_BLOB_COUNT, ASSOCIATED_PROBABILITY);
+    }
+
+    @Test
+    void gcShouldDeleteUnreferencedBlobsOfExpiredGenerations() {
+        save("unreferenced");
+        expireGenerations();
+
+        Task.Result result = testee().gc(context(), false).block();
+
+        assertThat(result).isEqualTo(Task.Result.COMPLETED);
+        assertThat(storedBlobs()).isEmpty();
+    }
+
+    @Test
+    void gcShouldNotDeleteReferencedBlobs() {
+        BlobId referenced = save("referenced");
+        save("unreferenced");
+        expireGenerations();
+
+        testee(() -> Flux.just(referenced)).gc(context(), false).block();
+
+        assertThat(storedBlobs()).containsOnly(referenced);
+    }
+
+    @Test
+    void gcShouldConsiderAllReferenceSources() {
+        BlobId referenced1 = save("referenced1");
+        BlobId referenced2 = save("referenced2");
+        expireGenerations();
+
+        testee(() -> Flux.just(referenced1), () -> Flux.just(referenced2)).gc(context(), false).block();
+
+        assertThat(storedBlobs()).containsOnly(referenced1, referenced2);
+    }
+
+    @Test
+    void gcShouldNotDeleteBlobsOfTheCurrentGeneration() {
+        BlobId blobId = save("unreferenced");
+
+        testee().gc(context(), false).block();
+
+        assertThat(storedBlobs()).containsOnly(blobId);
+    }
+
+    @Test
+    void gcShouldNotDeleteBlobsOfThePreviousGeneration() {
+        BlobId blobId = save("unreferenced");
+        clock.setInstant(NOW.plus(CONFIGURATION.getDuration()));
+
+        testee().gc(context(), false).block();
+
+        assertThat(storedBlobs()).containsOnly(blobId);
+    }
+
+    @Test
+    void gcShouldNotDeleteBlobsWhoseIdIsNotAwareOfGenerations() {
+        BlobId legacy = new HashBlobId.Factory().forPayload("legacy".getBytes(StandardCharsets.UTF_8));
+        blobStoreDAO.save(BUCKET, legacy, "legacy".getBytes(StandardCharsets.UTF_8)).block();
+        expireGenerations();
+
+        testee().gc(context(), false).block();
+
+        assertThat(storedBlobs()).containsOnly(legacy);
+    }
+
+    @Test
+    void gcShouldDeleteUnreferencedLegacyBlobs() {
+        BlobId legacy = blobIdFactory.from(new HashBlobId.Factory().forPayload("legacy".getBytes(StandardCharsets.UTF_8)).asString());
+        blobStoreDAO.save(BUCKET, legacy, "legacy".getBytes(StandardCharsets.UTF_8)).block();
+
+        testee().gc(context(), false).block();
+
+        assertThat(storedBlobs()).isEmpty();
+    }
+
+    @Test
+    void gcShouldNotDeleteBlobsOfOtherBuckets() {
+        BlobId blobId = blobIdFactory.forPayload("other".getBytes(StandardCharsets.UTF_8));
+        BucketName otherBucket = BucketName.of("other");
+        blobStoreDAO.save(otherBucket, blobId, "other".getBytes(StandardCharsets.UTF_8)).block();
+        expireGenerations();
+
+        testee().gc(context(), false).block();
+
+        assertThat(Flux.from(blobStoreDAO.listBlobs(otherBucket)).collectList().block())
+            .containsOnly(blobId);
+    }
+
+    @Test
+    void dryRunShouldNotDeleteBlobs() {
+        BlobId blobId = save("unreferenced");
+        expireGenerations();
+
+        testee().gc(context(), true).block();
+
+        assertThat(storedBlobs()).containsOnly(blobId);
+    }
+
+    @Test
+    void dryRunShouldReportCollectableBlobs() {
+        BlobId referenced = save("referenced");
+        save("unreferenced");
+        expireGenerations();
+
+        BloomFilterGCAlgorithm.Context context = context();
+        testee(() -> Flux.just(referenced)).gc(context, true).block();
+
+        assertThat(context.snapshot())
+            .isEqualTo(new BloomFilterGCAlgorithm.Context.Snapshot(1, 2, 1, 0, EXPECTED_BLOB_COUNT, ASSOCIATED_PROBABILITY));
+    }
+
+    @Test
+    void gcShouldUpdateContext() {
+        BlobId referenced = save("referenced");
+        save("unreferenced1");
+        save("unreferenced2");
+        expireGenerations();
+
+        BloomFilterGCAlgorithm.Context context = context();
+        testee(() -> Flux.just(referenced)).gc(context, false).block();
+
+        assertThat(context.snapshot())
+            .isEqualTo(new BloomFilterGCAlgorithm.Context.Snapshot(1, 3, 2, 0, EXPECTED_BLOB_COUNT, ASSOCIATED_PROBABILITY));
+    }
+
+    @Test
+    void gcShouldFailWhenAReferenceSourceFails() {
+        save("unreferenced");
+        expireGenerations();
+
+        assertThatThrownBy(() -> testee(() -> Flux.error(new RuntimeException())).gc(context(), false).block())
+            .isInstanceOf(RuntimeException.class);
+        assertThat(storedBlobs()).hasSize(1);
+    }
+
+    @Test
+    void contextShouldRejectNonPositiveExpectedBlobCount() {
+        assertThatThrownBy(() -> new BloomFilterGCAlgorithm.Context(0, ASSOCIATED_PROBABILITY))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void contextShouldRejectInvalidProbability() {
+        assertThatThrownBy(() -> new BloomFilterGCAlgorithm.Context(EXPECTED_BLOB_COUNT, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
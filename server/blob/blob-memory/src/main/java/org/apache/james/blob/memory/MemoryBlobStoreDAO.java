@@ -25,6 +25,7 @@ import java.io.InputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobRanges;
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.ObjectNotFoundException;
@@ -32,9 +33,11 @@ import org.apache.james.blob.api.ObjectStoreIOException;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Table;
 import com.google.common.io.ByteSource;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class MemoryBlobStoreDAO implements BlobStoreDAO {
@@ -58,6 +61,13 @@ public class MemoryBlobStoreDAO implements BlobStoreDAO {
             .switchIfEmpty(Mono.error(() -> new ObjectNotFoundException(String.format("blob '%s' not found in bucket '%s'", blobId.asString(), bucketName.asString()))));
     }
 
+    @Override
+    public Mono<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        BlobRanges.check(offset, length);
+        return readBytes(bucketName, blobId)
+            .map(bytes -> BlobRanges.slice(bytes, offset, length));
+    }
+
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
         return Mono.fromRunnable(() -> {
@@ -110,4 +120,13 @@ public class MemoryBlobStoreDAO implements BlobStoreDAO {
             }
         });
     }
+
+    @Override
+    public Flux<BlobId> listBlobs(BucketName bucketName) {
+        return Flux.defer(() -> {
+            synchronized (blobs) {
+                return Flux.fromIterable(ImmutableList.copyOf(blobs.row(bucketName).keySet()));
+            }
+        });
+    }
 }
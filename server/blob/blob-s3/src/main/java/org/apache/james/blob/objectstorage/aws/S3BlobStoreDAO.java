@@ -35,6 +35,7 @@ import javax.inject.Inject;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobRanges;
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.ObjectNotFoundException;
@@ -71,10 +72,12 @@ import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
@@ -86,12 +89,15 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
     private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
     private static final boolean LAZY = false;
     private static final int MAX_RETRIES = 5;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
 
     private final InstrumentedPool<S3AsyncClient> clientPool;
     private final BucketNameResolver bucketNameResolver;
+    private final BlobId.Factory blobIdFactory;
 
     @Inject
-    S3BlobStoreDAO(S3BlobStoreConfiguration configuration) {
+    S3BlobStoreDAO(S3BlobStoreConfiguration configuration, BlobId.Factory blobIdFactory) {
+        this.blobIdFactory = blobIdFactory;
         AwsS3AuthConfiguration authConfiguration = configuration.getSpecificAuthConfiguration();
 
         S3Configuration pathStyleAccess = S3Configuration.builder()
@@ -197,6 +203,33 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
             .map(BytesWrapper::asByteArray);
     }
 
+    @Override
+    public Mono<byte[]> readRange(BucketName bucketName, BlobId blobId, long offset, long length) {
+        BlobRanges.check(offset, length);
+        if (length == 0) {
+            // S3 has no empty ranges: read a single byte to check the blob exists
+            return readRange(bucketName, blobId, offset, 1)
+                .map(any -> new byte[0]);
+        }
+        BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
+        String range = "bytes=" + offset + "-" + BlobRanges.lastByte(offset, length);
+
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.getObject(
+                    builder -> builder.bucket(resolvedBucketName.asString()).key(blobId.asString()).range(range),
+                    AsyncResponseTransformer.toBytes())))
+            .next()
+            .map(BytesWrapper::asByteArray)
+            .onErrorResume(S3Exception.class, e -> {
+                if (e.statusCode() == RANGE_NOT_SATISFIABLE) {
+                    return Mono.just(new byte[0]);
+                }
+                return Mono.error(e);
+            })
+            .onErrorMap(NoSuchBucketException.class, e -> new ObjectNotFoundException("Bucket not found " + resolvedBucketName.asString(), e))
+            .onErrorMap(NoSuchKeyException.class, e -> new ObjectNotFoundException("Blob not found " + resolvedBucketName.asString(), e));
+    }
+
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
         BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
@@ -302,6 +335,21 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
             .then(Mono.just(bucketName));
     }
 
+    @Override
+    public Flux<BlobId> listBlobs(BucketName bucketName) {
+        BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
+
+        return clientPool.withPoolable(client -> Flux.from(client.listObjectsV2Paginator(builder -> builder.bucket(resolvedBucketName.asString())))
+                .flatMapIterable(ListObjectsV2Response::contents))
+            .map(object -> blobIdFactory.from(object.key()))
+            .onErrorResume(this::isNoSuchBucket, e -> Flux.empty());
+    }
+
+    private boolean isNoSuchBucket(Throwable throwable) {
+        return throwable instanceof NoSuchBucketException
+            || throwable.getCause() instanceof NoSuchBucketException;
+    }
+
     private Mono<List<ObjectIdentifier>> buildListForBatch(Flux<S3Object> batch) {
         return batch
             .map(element -> ObjectIdentifier.builder().key(element.key()).build())
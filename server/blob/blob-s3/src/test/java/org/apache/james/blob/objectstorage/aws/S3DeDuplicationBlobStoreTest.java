@@ -48,7 +48,7 @@ class S3DeDuplicationBlobStoreTest implements BlobStoreContract {
             .region(dockerAwsS3.dockerAwsS3().region())
             .build();
 
-        s3BlobStoreDAO = new S3BlobStoreDAO(s3Configuration);
+        s3BlobStoreDAO = new S3BlobStoreDAO(s3Configuration, new HashBlobId.Factory());
 
         testee = BlobStoreFactory.builder()
             .blobStoreDAO(s3BlobStoreDAO)
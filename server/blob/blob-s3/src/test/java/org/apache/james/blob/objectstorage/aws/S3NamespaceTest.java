@@ -49,7 +49,7 @@ class S3NamespaceTest implements BlobStoreContract {
             .defaultBucketName(BucketName.of("namespace"))
             .build();
 
-        s3BlobStoreDAO = new S3BlobStoreDAO(s3Configuration);
+        s3BlobStoreDAO = new S3BlobStoreDAO(s3Configuration, new HashBlobId.Factory());
 
         testee = BlobStoreFactory.builder()
             .blobStoreDAO(s3BlobStoreDAO)
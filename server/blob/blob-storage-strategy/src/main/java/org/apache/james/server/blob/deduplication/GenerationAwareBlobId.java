@@ -0,0 +1,239 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.server.blob.deduplication;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.james.blob.api.BlobId;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+/**
+ * A BlobId recording the time window (generation) it was created in.
+ *
+ * Deduplicated blobs can only be garbage collected once no more references to them can be created: identical content
+ * saved in a later generation gets a distinct BlobId, thus blobs of old generations are no longer shared with
+ * newly saved content.
+ *
+ * Serialized as {@code family.generation.delegate}. The dot is not part of the base64url alphabet of
+ * {@link org.apache.james.blob.api.HashBlobId}, so legacy hash BlobIds can not be mistaken for generation aware ones.
+ * BlobIds not following this format are legacy BlobIds and belong to no generation. Changing the family allows to consider all the previously created blobs as belonging to old
+ * generations.
+ */
+public class GenerationAwareBlobId implements BlobId {
+    private static final int NO_FAMILY = 0;
+    private static final long NO_GENERATION = 0L;
+    private static final String SEPARATOR = ".";
+
+    public static class Configuration {
+        public static final Duration DEFAULT_DURATION = Duration.ofDays(30);
+        public static final int DEFAULT_FAMILY = 1;
+        public static final Configuration DEFAULT = builder().build();
+
+        public static class Builder {
+            private Optional<Duration> duration;
+            private Optional<Integer> family;
+
+            private Builder() {
+                duration = Optional.empty();
+                family = Optional.empty();
+            }
+
+            public Builder duration(Duration duration) {
+                this.duration = Optional.of(duration);
+                return this;
+            }
+
+            public Builder family(int family) {
+                this.family = Optional.of(family);
+                return this;
+            }
+
+            public Configuration build() {
+                return new Configuration(duration.orElse(DEFAULT_DURATION), family.orElse(DEFAULT_FAMILY));
+            }
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        private final Duration duration;
+        private final int family;
+
+        private Configuration(Duration duration, int family) {
+            Preconditions.checkArgument(!duration.isNegative() && !duration.isZero(), "'duration' needs to be strictly positive");
+            Preconditions.checkArgument(family > NO_FAMILY, "'family' needs to be strictly positive");
+
+            this.duration = duration;
+            this.family = family;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public int getFamily() {
+            return family;
+        }
+
+        long generationAt(Instant instant) {
+            return instant.toEpochMilli() / duration.toMillis();
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof Configuration) {
+                Configuration that = (Configuration) o;
+
+                return Objects.equals(this.duration, that.duration)
+                    && Objects.equals(this.family, that.family);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(duration, family);
+        }
+    }
+
+    public static class Factory implements BlobId.Factory {
+        private final Clock clock;
+        private final BlobId.Factory delegate;
+        private final Configuration configuration;
+
+        public Factory(Clock clock, BlobId.Factory delegate, Configuration configuration) {
+            this.clock = clock;
+            this.delegate = delegate;
+            this.configuration = configuration;
+        }
+
+        @Override
+        public GenerationAwareBlobId forPayload(byte[] payload) {
+            return decorate(delegate.forPayload(payload));
+        }
+
+        @Override
+        public GenerationAwareBlobId forPayload(ByteSource payload) {
+            return decorate(delegate.forPayload(payload));
+        }
+
+        @Override
+        public GenerationAwareBlobId randomId() {
+            return decorate(delegate.randomId());
+        }
+
+        @Override
+        public GenerationAwareBlobId from(String id) {
+            List<String> parts = Splitter.on(SEPARATOR).limit(3).splitToList(id);
+            if (parts.size() == 3) {
+                Integer family = Ints.tryParse(parts.get(0));
+                Long generation = Longs.tryParse(parts.get(1));
+                if (family != null && family > NO_FAMILY && generation != null) {
+                    GenerationAwareBlobId blobId = new GenerationAwareBlobId(generation, family, delegate.from(parts.get(2)));
+                    if (blobId.asString().equals(id)) {
+                        return blobId;
+                    }
+                }
+            }
+            return new GenerationAwareBlobId(NO_GENERATION, NO_FAMILY, delegate.from(id));
+        }
+
+        private GenerationAwareBlobId decorate(BlobId blobId) {
+            return new GenerationAwareBlobId(configuration.generationAt(clock.instant()), configuration.getFamily(), blobId);
+        }
+    }
+
+    private final long generation;
+    private final int family;
+    private final BlobId delegate;
+
+    GenerationAwareBlobId(long generation, int family, BlobId delegate) {
+        this.generation = generation;
+        this.family = family;
+        this.delegate = delegate;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getFamily() {
+        return family;
+    }
+
+    public BlobId getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Blobs of the current and of the previous generation are active: new references to them might still be created.
+     * Blobs of other families, including legacy ones, are never active.
+     */
+    public boolean inActiveGeneration(Configuration configuration, Instant now) {
+        return family == configuration.getFamily()
+            && generation >= configuration.generationAt(now) - 1;
+    }
+
+    @Override
+    public String asString() {
+        if (family == NO_FAMILY) {
+            return delegate.asString();
+        }
+        return family + SEPARATOR + generation + SEPARATOR + delegate.asString();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof GenerationAwareBlobId) {
+            GenerationAwareBlobId that = (GenerationAwareBlobId) o;
+
+            return Objects.equals(this.generation, that.generation)
+                && Objects.equals(this.family, that.family)
+                && Objects.equals(this.delegate, that.delegate);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(generation, family, delegate);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("generation", generation)
+            .add("family", family)
+            .add("delegate", delegate)
+            .toString();
+    }
+}
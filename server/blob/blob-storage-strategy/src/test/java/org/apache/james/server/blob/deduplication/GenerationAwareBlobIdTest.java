@@ -0,0 +1,185 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.server.blob.deduplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+
+class GenerationAwareBlobIdTest {
+    private static final Instant NOW = Instant.parse("2021-01-01T00:00:00.000Z");
+    private static final GenerationAwareBlobId.Configuration CONFIGURATION = GenerationAwareBlobId.Configuration.builder()
+        .duration(Duration.ofDays(30))
+        .family(2)
+        .build();
+    private static final byte[] PAYLOAD = "payload".getBytes(StandardCharsets.UTF_8);
+
+    private UpdatableTickingClock clock;
+    private GenerationAwareBlobId.Factory testee;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        testee = new GenerationAwareBlobId.Factory(clock, new HashBlobId.Factory(), CONFIGURATION);
+    }
+
+    @Test
+    void shouldMatchBeanContract() {
+        EqualsVerifier.forClass(GenerationAwareBlobId.class).verify();
+    }
+
+    @Test
+    void configurationShouldMatchBeanContract() {
+        EqualsVerifier.forClass(GenerationAwareBlobId.Configuration.class).verify();
+    }
+
+    @Test
+    void configurationShouldRejectZeroDuration() {
+        assertThatThrownBy(() -> GenerationAwareBlobId.Configuration.builder().duration(Duration.ZERO).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void configurationShouldRejectNonPositiveFamily() {
+        assertThatThrownBy(() -> GenerationAwareBlobId.Configuration.builder().family(0).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void forPayloadShouldEmbedFamilyAndCurrentGeneration() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        assertThat(blobId.asString())
+            .isEqualTo("2." + (NOW.toEpochMilli() / Duration.ofDays(30).toMillis()) + "." + new HashBlobId.Factory().forPayload(PAYLOAD).asString());
+    }
+
+    @Test
+    void forPayloadShouldBeDeduplicatedWithinAGeneration() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        clock.setInstant(NOW.plus(Duration.ofHours(1)));
+
+        assertThat(testee.forPayload(PAYLOAD)).isEqualTo(blobId);
+    }
+
+    @Test
+    void forPayloadShouldDifferAcrossGenerations() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        clock.setInstant(NOW.plus(Duration.ofDays(30)));
+
+        assertThat(testee.forPayload(PAYLOAD)).isNotEqualTo(blobId);
+    }
+
+    @Test
+    void fromShouldRevertAsString() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        assertThat(testee.from(blobId.asString())).isEqualTo(blobId);
+    }
+
+    @Test
+    void fromShouldAcceptLegacyBlobIds() {
+        BlobId legacy = new HashBlobId.Factory().forPayload(PAYLOAD);
+
+        GenerationAwareBlobId blobId = testee.from(legacy.asString());
+
+        assertThat(blobId.getDelegate()).isEqualTo(legacy);
+        assertThat(blobId.asString()).isEqualTo(legacy.asString());
+    }
+
+    @Test
+    void fromShouldTreatMalformedPrefixesAsLegacy() {
+        GenerationAwareBlobId blobId = testee.from("abc.12.def");
+
+        assertThat(blobId.asString()).isEqualTo("abc.12.def");
+        assertThat(blobId.getFamily()).isZero();
+    }
+
+    @Test
+    void fromShouldTreatLegacyBlobIdsStartingWithDigitsAsLegacy() {
+        GenerationAwareBlobId blobId = testee.from("12_345_A-b_c");
+
+        assertThat(blobId.asString()).isEqualTo("12_345_A-b_c");
+        assertThat(blobId.getFamily()).isZero();
+        assertThat(blobId.getDelegate()).isEqualTo(new HashBlobId.Factory().from("12_345_A-b_c"));
+    }
+
+    @Test
+    void fromShouldTreatNonCanonicalPrefixesAsLegacy() {
+        GenerationAwareBlobId blobId = testee.from("02.12.def");
+
+        assertThat(blobId.asString()).isEqualTo("02.12.def");
+        assertThat(blobId.getFamily()).isZero();
+    }
+
+    @Test
+    void blobsOfTheCurrentGenerationShouldBeActive() {
+        assertThat(testee.forPayload(PAYLOAD).inActiveGeneration(CONFIGURATION, NOW))
+            .isTrue();
+    }
+
+    @Test
+    void blobsOfThePreviousGenerationShouldBeActive() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        assertThat(blobId.inActiveGeneration(CONFIGURATION, NOW.plus(Duration.ofDays(30))))
+            .isTrue();
+    }
+
+    @Test
+    void blobsOfOlderGenerationsShouldNotBeActive() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        assertThat(blobId.inActiveGeneration(CONFIGURATION, NOW.plus(Duration.ofDays(60))))
+            .isFalse();
+    }
+
+    @Test
+    void blobsOfOtherFamiliesShouldNotBeActive() {
+        GenerationAwareBlobId blobId = testee.forPayload(PAYLOAD);
+
+        GenerationAwareBlobId.Configuration otherFamily = GenerationAwareBlobId.Configuration.builder()
+            .duration(Duration.ofDays(30))
+            .family(3)
+            .build();
+        assertThat(blobId.inActiveGeneration(otherFamily, NOW))
+            .isFalse();
+    }
+
+    @Test
+    void legacyBlobsShouldNotBeActive() {
+        GenerationAwareBlobId blobId = testee.from(new HashBlobId.Factory().forPayload(PAYLOAD).asString());
+
+        assertThat(blobId.inActiveGeneration(CONFIGURATION, NOW))
+            .isFalse();
+    }
+}
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -42,6 +43,7 @@ import org.apache.james.blob.api.Store.CloseableByteSource;
 import org.apache.james.lifecycle.api.Disposable;
 import org.apache.james.server.core.MailHeaders;
 import org.apache.james.server.core.MimeMessageInputStream;
+import org.apache.james.server.core.MimeMessageInputStreamSource;
 import org.apache.james.server.core.MimeMessageSource;
 import org.apache.james.server.core.MimeMessageWrapper;
 
@@ -74,6 +76,52 @@ public class MimeMessageStore {
         @Override
         public Stream<Pair<BlobType, Store.Impl.ValueToSave>> encode(MimeMessage message) {
             Preconditions.checkNotNull(message);
+            return spooledSource(message)
+                .map(this::encodeSpooled)
+                .orElseGet(() -> encodeParsed(message));
+        }
+
+        /**
+         * Messages received over SMTP / LMTP and left untouched are backed by the spooled DATA. Headers and body
+         * are then saved straight from the spooled octets, without parsing nor re-serializing the message.
+         */
+        private Optional<MimeMessageInputStreamSource> spooledSource(MimeMessage message) {
+            if (message instanceof MimeMessageWrapper) {
+                return ((MimeMessageWrapper) message).getUnmodifiedSource()
+                    .filter(MimeMessageInputStreamSource.class::isInstance)
+                    .map(MimeMessageInputStreamSource.class::cast)
+                    .filter(source -> source.getBodyStartOctet().isPresent());
+            }
+            return Optional.empty();
+        }
+
+        private Stream<Pair<BlobType, Store.Impl.ValueToSave>> encodeSpooled(MimeMessageInputStreamSource source) {
+            long bodyStartOctet = source.getBodyStartOctet().get();
+            return Stream.of(
+                Pair.of(HEADER_BLOB_TYPE, (bucketName, blobStore) ->
+                    Mono.from(blobStore.save(bucketName, spooledRange(source, 0, bodyStartOctet), SIZE_BASED))),
+                Pair.of(BODY_BLOB_TYPE, (bucketName, blobStore) ->
+                    Mono.from(blobStore.save(bucketName, spooledRange(source, bodyStartOctet, -1), SIZE_BASED))));
+        }
+
+        private ByteSource spooledRange(MimeMessageInputStreamSource source, long start, long end) {
+            return new ByteSource() {
+                @Override
+                public InputStream openStream() throws IOException {
+                    return source.getInputStream(start, end);
+                }
+
+                @Override
+                public long size() throws IOException {
+                    if (end < 0) {
+                        return source.getMessageSize() - start;
+                    }
+                    return end - start;
+                }
+            };
+        }
+
+        private Stream<Pair<BlobType, Store.Impl.ValueToSave>> encodeParsed(MimeMessage message) {
             return Stream.of(
                 Pair.of(HEADER_BLOB_TYPE, (bucketName, blobStore) -> {
                     try {
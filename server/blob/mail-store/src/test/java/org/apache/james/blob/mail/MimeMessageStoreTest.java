@@ -23,6 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 
 import javax.mail.internet.MimeMessage;
@@ -34,6 +35,8 @@ import org.apache.james.blob.api.ObjectNotFoundException;
 import org.apache.james.blob.api.Store;
 import org.apache.james.blob.memory.MemoryBlobStoreFactory;
 import org.apache.james.core.builder.MimeMessageBuilder;
+import org.apache.james.server.core.MimeMessageInputStreamSource;
+import org.apache.james.server.core.MimeMessageWrapper;
 import org.apache.james.util.MimeMessageUtil;
 import org.assertj.core.api.SoftAssertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -160,4 +163,37 @@ class MimeMessageStoreTest {
                     .isEqualTo("Important mail content");
             });
     }
+
+    @Test
+    void saveShouldSplitSpooledMessagesOnTheEmptyLine() throws Exception {
+        String headers = "Subject: Important Mail\r\n" +
+            "From: any@any.com\r\n\r\n";
+        String body = "Important mail content\r\n";
+        MimeMessageInputStreamSource source = new MimeMessageInputStreamSource("key",
+            new ByteArrayInputStream((headers + body).getBytes(StandardCharsets.UTF_8)));
+
+        MimeMessagePartsId parts = testee.save(new MimeMessageWrapper(source)).block();
+
+        SoftAssertions.assertSoftly(
+            softly -> {
+                softly.assertThat(new String(Mono.from(blobStore.readBytes(blobStore.getDefaultBucketName(), parts.getHeaderBlobId())).block(), StandardCharsets.UTF_8))
+                    .isEqualTo(headers);
+                softly.assertThat(new String(Mono.from(blobStore.readBytes(blobStore.getDefaultBucketName(), parts.getBodyBlobId())).block(), StandardCharsets.UTF_8))
+                    .isEqualTo(body);
+            });
+        source.dispose();
+    }
+
+    @Test
+    void saveShouldPreserveModificationsOfSpooledMessages() throws Exception {
+        MimeMessageInputStreamSource source = new MimeMessageInputStreamSource("key",
+            new ByteArrayInputStream("Subject: Important Mail\r\n\r\nImportant mail content\r\n".getBytes(StandardCharsets.UTF_8)));
+        MimeMessageWrapper message = new MimeMessageWrapper(source);
+        message.addHeader("X-Custom", "value");
+
+        MimeMessagePartsId parts = testee.save(message).block();
+
+        assertThat(testee.read(parts).block().getHeader("X-Custom")).containsExactly("value");
+        source.dispose();
+    }
 }
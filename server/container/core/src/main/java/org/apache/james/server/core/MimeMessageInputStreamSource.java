@@ -20,13 +20,16 @@
 package org.apache.james.server.core;
 
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 
 import javax.mail.MessagingException;
+import javax.mail.internet.SharedInputStream;
 import javax.mail.util.SharedByteArrayInputStream;
 import javax.mail.util.SharedFileInputStream;
 
@@ -39,6 +42,10 @@ import org.apache.james.lifecycle.api.Disposable;
  * Takes an input stream and creates a repeatable input stream source for a
  * MimeMessageWrapper. It does this by completely reading the input stream and
  * saving that to data to an {@link DeferredFileOutputStream} with its threshold set to 100kb
+ * unless specified otherwise.
+ *
+ * The offset of the first body octet is detected while the data is written so
+ * that headers and body can later be read separately without parsing the message.
  *
  * This class is not thread safe!
  */
@@ -51,15 +58,20 @@ public class MimeMessageInputStreamSource extends MimeMessageSource implements D
      */
     private BufferedDeferredFileOutputStream out;
 
+    /**
+     * Writes to the temporary file while locating the header / body separator
+     */
+    private HeaderBoundaryOutputStream writableOut;
+
     /**
      * The full path of the temporary file
      */
     private final String sourceId;
 
     /**
-     * 100kb threshold for the stream.
+     * Default 100kb threshold for the stream.
      */
-    private static final int THRESHOLD = 1024 * 100;
+    public static final int DEFAULT_THRESHOLD = 1024 * 100;
 
     /**
      * Temporary directory to use
@@ -75,12 +87,26 @@ public class MimeMessageInputStreamSource extends MimeMessageSource implements D
      * @throws MessagingException if an error occurs while trying to store the stream
      */
     public MimeMessageInputStreamSource(String key, InputStream in) throws MessagingException {
+        this(key, in, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Construct a new MimeMessageInputStreamSource from an
+     * <code>InputStream</code> that contains the bytes of a MimeMessage.
+     *
+     * @param key the prefix for the name of the temp file
+     * @param in  the stream containing the MimeMessage
+     * @param threshold count of bytes kept in memory before spooling to a temporary file
+     * @throws MessagingException if an error occurs while trying to store the stream
+     */
+    public MimeMessageInputStreamSource(String key, InputStream in, int threshold) throws MessagingException {
         super();
         // We want to immediately read this into a temporary file
         // Create a temp file and channel the input stream into it
         try {
-            out = new BufferedDeferredFileOutputStream(THRESHOLD, "mimemessage-" + key, ".m64", TMPDIR);
-            IOUtils.copy(in, out);
+            out = new BufferedDeferredFileOutputStream(threshold, "mimemessage-" + key, ".m64", TMPDIR);
+            writableOut = new HeaderBoundaryOutputStream(out);
+            IOUtils.copy(in, writableOut);
             sourceId = key;
         } catch (IOException ioe) {
             File file = out.getFile();
@@ -109,8 +135,17 @@ public class MimeMessageInputStreamSource extends MimeMessageSource implements D
     }
 
     public MimeMessageInputStreamSource(String key) {
+        this(key, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param key the prefix for the name of the temp file
+     * @param threshold count of bytes kept in memory before spooling to a temporary file
+     */
+    public MimeMessageInputStreamSource(String key, int threshold) {
         super();
-        out = new BufferedDeferredFileOutputStream(THRESHOLD, key, ".m64", TMPDIR);
+        out = new BufferedDeferredFileOutputStream(threshold, key, ".m64", TMPDIR);
+        writableOut = new HeaderBoundaryOutputStream(out);
         sourceId = key;
     }
 
@@ -141,6 +176,29 @@ public class MimeMessageInputStreamSource extends MimeMessageSource implements D
         return in;
     }
 
+    /**
+     * Get an input stream on a range of the stored data, without copying it
+     *
+     * @param start the offset of the first octet to read
+     * @param end the offset following the last octet to read, -1 meaning the end of the data
+     */
+    public InputStream getInputStream(long start, long end) throws IOException {
+        InputStream in = ((SharedInputStream) getInputStream()).newStream(start, end);
+        streams.add(in);
+        return in;
+    }
+
+    /**
+     * Offset of the first body octet, that is right after the empty line ending the headers.
+     *
+     * @return empty if no header / body separator had been written
+     */
+    public Optional<Long> getBodyStartOctet() {
+        return Optional.ofNullable(writableOut)
+            .map(HeaderBoundaryOutputStream::getBodyStartOctet)
+            .filter(offset -> offset >= 0);
+    }
+
     /**
      * Get the size of the temp file
      *
@@ -154,7 +212,7 @@ public class MimeMessageInputStreamSource extends MimeMessageSource implements D
     }
 
     public OutputStream getWritableOutputStream() {
-        return out;
+        return writableOut;
     }
 
     @Override
@@ -180,6 +238,59 @@ public class MimeMessageInputStreamSource extends MimeMessageSource implements D
                 file = null;
             }
             out = null;
+            writableOut = null;
+        }
+    }
+
+    /**
+     * Keeps track of the offset of the first body octet while forwarding the written data.
+     * The scan stops once the empty line separating headers from the body is found.
+     */
+    private static class HeaderBoundaryOutputStream extends FilterOutputStream {
+        private static final int IN_LINE = 0;
+        private static final int LINE_START = 1;
+        private static final int CR_AT_LINE_START = 2;
+
+        private long count = 0;
+        private long bodyStartOctet = -1;
+        private int state = LINE_START;
+
+        HeaderBoundaryOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long getBodyStartOctet() {
+            return bodyStartOctet;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            scan((byte) b);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off; i < off + len && bodyStartOctet < 0; i++) {
+                scan(b[i]);
+            }
+            out.write(b, off, len);
+        }
+
+        private void scan(byte b) {
+            if (bodyStartOctet >= 0) {
+                return;
+            }
+            count++;
+            if (b == '\n' && state != IN_LINE) {
+                bodyStartOctet = count;
+            } else if (b == '\n') {
+                state = LINE_START;
+            } else if (b == '\r' && state == LINE_START) {
+                state = CR_AT_LINE_START;
+            } else {
+                state = IN_LINE;
+            }
         }
     }
 
@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.io.SequenceInputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Enumeration;
+import java.util.Optional;
 import java.util.UUID;
 
 import javax.activation.DataHandler;
@@ -268,6 +269,19 @@ public class MimeMessageWrapper extends MimeMessage implements Disposable {
         return headersModified;
     }
 
+    /**
+     * Get the source backing this message as long as its content is still the
+     * content of the source.
+     *
+     * @return the source, or empty if the message was modified
+     */
+    public Optional<MimeMessageSource> getUnmodifiedSource() {
+        if (isModified()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(source);
+    }
+
     /**
      * Rewritten for optimization purposes
      */
@@ -20,7 +20,10 @@ package org.apache.james.server.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 import javax.mail.MessagingException;
 
@@ -57,4 +60,51 @@ public class MimeMessageInputStreamSourceTest {
         testee = new MimeMessageInputStreamSource(veryShortName, new ZeroedInputStream(_1M));
         assertThat(testee.getInputStream()).isNotNull();
     }
+
+    @Test
+    public void bodyStartOctetShouldFollowTheEmptyLine() throws MessagingException {
+        testee = new MimeMessageInputStreamSource("myKey", new ByteArrayInputStream("Subject: test\r\nFrom: a@b.com\r\n\r\nbody\r\n".getBytes(StandardCharsets.US_ASCII)));
+
+        assertThat(testee.getBodyStartOctet()).contains(32L);
+    }
+
+    @Test
+    public void bodyStartOctetShouldSupportBareLineFeeds() throws MessagingException {
+        testee = new MimeMessageInputStreamSource("myKey", new ByteArrayInputStream("Subject: test\n\nbody\n".getBytes(StandardCharsets.US_ASCII)));
+
+        assertThat(testee.getBodyStartOctet()).contains(15L);
+    }
+
+    @Test
+    public void bodyStartOctetShouldBeEmptyWhenNoEmptyLine() throws MessagingException {
+        testee = new MimeMessageInputStreamSource("myKey", new ByteArrayInputStream("Subject: test\r\n".getBytes(StandardCharsets.US_ASCII)));
+
+        assertThat(testee.getBodyStartOctet()).isEmpty();
+    }
+
+    @Test
+    public void bodyStartOctetShouldBeDetectedWhenWrittenLineByLine() throws IOException {
+        testee = new MimeMessageInputStreamSource("myKey");
+        OutputStream out = testee.getWritableOutputStream();
+        out.write("Subject: test\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.write("body\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.close();
+
+        assertThat(testee.getBodyStartOctet()).contains(17L);
+    }
+
+    @Test
+    public void rangeShouldBeReadableWhenSpooledToAFile() throws MessagingException, IOException {
+        testee = new MimeMessageInputStreamSource("myKey", new ZeroedInputStream(_1M), _10KB);
+
+        assertThat(testee.getInputStream(_10KB, -1)).hasSameContentAs(new ZeroedInputStream(_1M - _10KB));
+    }
+
+    @Test
+    public void rangeShouldBeReadableWhenInMemory() throws MessagingException, IOException {
+        testee = new MimeMessageInputStreamSource("myKey", new ByteArrayInputStream("Subject: test\r\n\r\nbody".getBytes(StandardCharsets.US_ASCII)));
+
+        assertThat(testee.getInputStream(0, 17)).hasSameContentAs(new ByteArrayInputStream("Subject: test\r\n\r\n".getBytes(StandardCharsets.US_ASCII)));
+    }
 }
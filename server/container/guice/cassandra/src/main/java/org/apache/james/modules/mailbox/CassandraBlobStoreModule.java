@@ -19,8 +19,10 @@
 
 package org.apache.james.modules.mailbox;
 
+import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BlobStore;
 import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.HashBlobId;
 import org.apache.james.blob.api.MetricableBlobStore;
 import org.apache.james.blob.cassandra.CassandraBlobStoreDAO;
 import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
@@ -35,6 +37,7 @@ public class CassandraBlobStoreModule extends AbstractModule {
         bind(CassandraBlobStoreDAO.class).in(Scopes.SINGLETON);
         bind(DeDuplicationBlobStore.class).in(Scopes.SINGLETON);
 
+        bind(BlobId.Factory.class).to(HashBlobId.Factory.class);
         bind(BlobStoreDAO.class).to(CassandraBlobStoreDAO.class);
         bind(BlobStore.class)
             .annotatedWith(Names.named(MetricableBlobStore.BLOB_STORE_IMPLEMENTATION))
@@ -32,6 +32,7 @@ import org.apache.james.backends.cassandra.components.CassandraModule;
 import org.apache.james.backends.rabbitmq.SimpleConnectionPool;
 import org.apache.james.modules.server.HostnameModule;
 import org.apache.james.modules.server.TaskSerializationModule;
+import org.apache.james.task.TaskConcurrencyConfiguration;
 import org.apache.james.task.TaskManager;
 import org.apache.james.task.eventsourcing.EventSourcingTaskManager;
 import org.apache.james.task.eventsourcing.TaskExecutionDetailsProjection;
@@ -95,6 +96,17 @@ public class DistributedTaskManagerModule extends AbstractModule {
         }
     }
 
+    @Provides
+    @Singleton
+    private TaskConcurrencyConfiguration getTaskConcurrencyConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfiguration(RABBITMQ_CONFIGURATION_NAME);
+            return TaskConcurrencyConfiguration.from(configuration);
+        } catch (FileNotFoundException e) {
+            return TaskConcurrencyConfiguration.DEFAULT;
+        }
+    }
+
     @ProvidesIntoSet
     InitializationOperation terminationSubscriber(RabbitMQTerminationSubscriber instance) {
         return InitilizationOperationBuilder
@@ -0,0 +1,125 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.modules.blobstore;
+
+import java.io.FileNotFoundException;
+import java.time.Clock;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceSource;
+import org.apache.james.blob.api.BlobStore;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.modules.mailbox.ConfigurationComponent;
+import org.apache.james.server.blob.deduplication.BlobGCTask;
+import org.apache.james.server.blob.deduplication.BlobGCTaskAdditionalInformationDTO;
+import org.apache.james.server.blob.deduplication.BloomFilterGCAlgorithm;
+import org.apache.james.server.blob.deduplication.GenerationAwareBlobId;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.util.DurationParser;
+import org.apache.james.utils.PropertiesProvider;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.dto.DTOModuleInjections;
+import org.apache.james.webadmin.routes.BlobRoutes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.google.inject.name.Named;
+
+/**
+ * Generation aware blob ids, and the garbage collection of the unreferenced blobs they enable, for the deduplicating
+ * blob store.
+ */
+public class BlobGCModule extends AbstractModule {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobGCModule.class);
+    private static final String GENERATION_DURATION_PROPERTY = "deduplication.gc.generation.duration";
+    private static final String GENERATION_FAMILY_PROPERTY = "deduplication.gc.generation.family";
+
+    @Override
+    protected void configure() {
+        bind(BlobId.Factory.class).to(GenerationAwareBlobId.Factory.class);
+
+        Multibinder.newSetBinder(binder(), BlobReferenceSource.class);
+        Multibinder.newSetBinder(binder(), Routes.class).addBinding().to(BlobRoutes.class);
+    }
+
+    @Provides
+    @Singleton
+    GenerationAwareBlobId.Configuration provideGenerationConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfigurations(ConfigurationComponent.NAMES);
+            return GenerationAwareBlobId.Configuration.builder()
+                .duration(Optional.ofNullable(configuration.getString(GENERATION_DURATION_PROPERTY, null))
+                    .map(value -> DurationParser.parse(value, ChronoUnit.DAYS))
+                    .orElse(GenerationAwareBlobId.Configuration.DEFAULT_DURATION))
+                .family(configuration.getInt(GENERATION_FAMILY_PROPERTY, GenerationAwareBlobId.Configuration.DEFAULT_FAMILY))
+                .build();
+        } catch (FileNotFoundException e) {
+            LOGGER.warn("Could not find " + ConfigurationComponent.NAME + " configuration file, using default blob generation configuration");
+            return GenerationAwareBlobId.Configuration.DEFAULT;
+        }
+    }
+
+    @Provides
+    @Singleton
+    GenerationAwareBlobId.Factory provideGenerationAwareBlobIdFactory(Clock clock, HashBlobId.Factory delegate,
+                                                                      GenerationAwareBlobId.Configuration configuration) {
+        return new GenerationAwareBlobId.Factory(clock, delegate, configuration);
+    }
+
+    @Provides
+    @Singleton
+    BloomFilterGCAlgorithm provideGCAlgorithm(BlobStoreDAO blobStoreDAO, BlobStore blobStore, Set<BlobReferenceSource> referenceSources,
+                                              GenerationAwareBlobId.Configuration configuration, Clock clock) {
+        return new BloomFilterGCAlgorithm(blobStoreDAO, blobStore.getDefaultBucketName(), referenceSources, configuration, clock);
+    }
+
+    @ProvidesIntoSet
+    public TaskDTOModule<? extends Task, ? extends TaskDTO> blobGCTask(BloomFilterGCAlgorithm gcAlgorithm, Clock clock) {
+        return BlobGCTask.module(gcAlgorithm, clock);
+    }
+
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> blobGCAdditionalInformation() {
+        return BlobGCTaskAdditionalInformationDTO.module();
+    }
+
+    @Named(DTOModuleInjections.WEBADMIN_DTO)
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> webAdminBlobGCAdditionalInformation() {
+        return BlobGCTaskAdditionalInformationDTO.module();
+    }
+}
@@ -19,10 +19,21 @@
 
 package org.apache.james.modules.blobstore;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.List;
 
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BlobStore;
 import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.cache.BlobStoreDAOCacheConfiguration;
+import org.apache.james.blob.cache.CachedBlobStoreDAO;
 import org.apache.james.blob.cassandra.CassandraBlobStoreDAO;
 import org.apache.james.blob.cassandra.cache.CachedBlobStore;
 import org.apache.james.blob.objectstorage.aws.S3BlobStoreDAO;
@@ -30,33 +41,44 @@ import org.apache.james.eventsourcing.Event;
 import org.apache.james.eventsourcing.eventstore.cassandra.dto.EventDTO;
 import org.apache.james.eventsourcing.eventstore.cassandra.dto.EventDTOModule;
 import org.apache.james.lifecycle.api.StartUpCheck;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.modules.blobstore.validation.EventsourcingStorageStrategy;
 import org.apache.james.modules.blobstore.validation.StorageStrategyModule;
 import org.apache.james.modules.mailbox.CassandraBlobStoreDependenciesModule;
 import org.apache.james.modules.mailbox.CassandraBucketModule;
+import org.apache.james.modules.mailbox.ConfigurationComponent;
 import org.apache.james.modules.objectstorage.DefaultBucketModule;
 import org.apache.james.modules.objectstorage.S3BlobStoreModule;
 import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.server.blob.deduplication.PassThroughBlobStore;
 import org.apache.james.server.blob.deduplication.StorageStrategy;
+import org.apache.james.utils.PropertiesProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
+import com.google.inject.util.Modules;
 
 public class BlobStoreModulesChooser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreModulesChooser.class);
+    private static final String UNCACHED_BLOB_STORE_DAO = "uncachedBlobStoreDAO";
+
     static class CassandraBlobStoreDAODeclarationModule extends AbstractModule {
         @Override
         protected void configure() {
             install(new CassandraBlobStoreDependenciesModule());
             install(new CassandraBucketModule());
+            install(new BlobStoreDAOCacheModule());
 
-            bind(BlobStoreDAO.class).to(CassandraBlobStoreDAO.class);
+            bind(BlobStoreDAO.class).annotatedWith(Names.named(UNCACHED_BLOB_STORE_DAO)).to(CassandraBlobStoreDAO.class);
         }
     }
 
@@ -65,8 +87,27 @@ public class BlobStoreModulesChooser {
         protected void configure() {
             install(new S3BlobStoreModule());
             install(new DefaultBucketModule());
+            install(new BlobStoreDAOCacheModule());
+
+            bind(BlobStoreDAO.class).annotatedWith(Names.named(UNCACHED_BLOB_STORE_DAO)).to(S3BlobStoreDAO.class);
+        }
+    }
 
-            bind(BlobStoreDAO.class).to(S3BlobStoreDAO.class);
+    static class BlobStoreDAOCacheModule extends AbstractModule {
+        @Provides
+        @Singleton
+        BlobStoreDAO provideBlobStoreDAO(@Named(UNCACHED_BLOB_STORE_DAO) BlobStoreDAO blobStoreDAO,
+                                         PropertiesProvider propertiesProvider,
+                                         MetricFactory metricFactory) throws ConfigurationException, IOException {
+            try {
+                Configuration configuration = propertiesProvider.getConfigurations(ConfigurationComponent.NAMES);
+                if (BlobStoreDAOCacheConfiguration.isEnabled(configuration)) {
+                    return new CachedBlobStoreDAO(blobStoreDAO, BlobStoreDAOCacheConfiguration.from(configuration), metricFactory);
+                }
+            } catch (FileNotFoundException e) {
+                LOGGER.warn("Could not find " + ConfigurationComponent.NAME + " configuration file, blob store DAO cache is disabled");
+            }
+            return blobStoreDAO;
         }
     }
 
@@ -114,13 +155,18 @@ public class BlobStoreModulesChooser {
     private static Module chooseStoragePolicyModule(StorageStrategy storageStrategy) {
         switch (storageStrategy) {
             case DEDUPLICATION:
-                return binder -> binder.bind(BlobStore.class)
-                    .annotatedWith(Names.named(CachedBlobStore.BACKEND))
-                    .to(DeDuplicationBlobStore.class);
+                return Modules.combine(
+                    binder -> binder.bind(BlobStore.class)
+                        .annotatedWith(Names.named(CachedBlobStore.BACKEND))
+                        .to(DeDuplicationBlobStore.class),
+                    new BlobGCModule());
             case PASSTHROUGH:
-                return binder -> binder.bind(BlobStore.class)
-                    .annotatedWith(Names.named(CachedBlobStore.BACKEND))
-                    .to(PassThroughBlobStore.class);
+                return binder -> {
+                    binder.bind(BlobStore.class)
+                        .annotatedWith(Names.named(CachedBlobStore.BACKEND))
+                        .to(PassThroughBlobStore.class);
+                    binder.bind(BlobId.Factory.class).to(HashBlobId.Factory.class);
+                };
             default:
                 throw new RuntimeException("Unknown storage strategy " + storageStrategy.name());
         }
@@ -19,7 +19,16 @@
 
 package org.apache.james.modules.event;
 
+import static org.apache.james.modules.queue.rabbitmq.RabbitMQModule.RABBITMQ_CONFIGURATION_NAME;
+
+import java.io.FileNotFoundException;
+
+import javax.inject.Singleton;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.backends.rabbitmq.SimpleConnectionPool;
+import org.apache.james.event.json.BinaryMailboxEventSerializer;
 import org.apache.james.event.json.MailboxEventSerializer;
 import org.apache.james.events.EventBus;
 import org.apache.james.events.EventBusId;
@@ -32,18 +41,21 @@ import org.apache.james.events.RetryBackoffConfiguration;
 import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
+import org.apache.james.utils.PropertiesProvider;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 
 public class RabbitMQEventBusModule extends AbstractModule {
+    private static final String EVENT_BUS_SERIALIZATION_FORMAT = "event.bus.serialization.format";
 
     @Override
     protected void configure() {
         bind(MailboxEventSerializer.class).in(Scopes.SINGLETON);
-        bind(EventSerializer.class).to(MailboxEventSerializer.class);
+        bind(BinaryMailboxEventSerializer.class).in(Scopes.SINGLETON);
 
         bind(NamingStrategy.class).toInstance(new NamingStrategy("mailboxEvent"));
         bind(RabbitMQEventBus.class).in(Scopes.SINGLETON);
@@ -59,6 +71,25 @@ public class RabbitMQEventBusModule extends AbstractModule {
         reconnectionHandlerMultibinder.addBinding().to(KeyReconnectionHandler.class);
     }
 
+    @Provides
+    @Singleton
+    private EventSerializer eventSerializer(PropertiesProvider propertiesProvider, MailboxEventSerializer jsonSerializer,
+                                            BinaryMailboxEventSerializer binarySerializer) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfiguration(RABBITMQ_CONFIGURATION_NAME);
+            String format = configuration.getString(EVENT_BUS_SERIALIZATION_FORMAT, EventSerializer.JSON_FORMAT);
+            if (format.equals(binarySerializer.format())) {
+                return binarySerializer;
+            }
+            if (format.equals(jsonSerializer.format())) {
+                return jsonSerializer;
+            }
+            throw new ConfigurationException("Unsupported " + EVENT_BUS_SERIALIZATION_FORMAT + " '" + format + "'");
+        } catch (FileNotFoundException e) {
+            return jsonSerializer;
+        }
+    }
+
     @ProvidesIntoSet
     InitializationOperation workQueue(RabbitMQEventBus instance) {
         return InitilizationOperationBuilder
@@ -24,12 +24,14 @@ import static org.apache.james.mailbox.elasticsearch.v7.search.ElasticSearchSear
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.backends.es.v7.ElasticSearchBulkIndexer;
 import org.apache.james.backends.es.v7.ElasticSearchConfiguration;
 import org.apache.james.backends.es.v7.ElasticSearchIndexer;
 import org.apache.james.backends.es.v7.ReactorElasticSearchClient;
@@ -49,6 +51,8 @@ import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MessageId;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndex;
 import org.apache.james.mailbox.store.search.MessageSearchIndex;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.onami.lifecycle.DisposingStager;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
 import org.apache.james.utils.PropertiesProvider;
@@ -121,6 +125,20 @@ public class ElasticSearchMailboxModule extends AbstractModule {
             configuration.getWriteAliasMailboxName());
     }
 
+    @Provides
+    @Singleton
+    @Named(MailboxElasticSearchConstants.InjectionNames.MAILBOX)
+    private ElasticSearchBulkIndexer createMailboxElasticSearchBulkIndexer(@Named(MailboxElasticSearchConstants.InjectionNames.MAILBOX) ElasticSearchIndexer indexer,
+                                                                           ElasticSearchMailboxConfiguration configuration,
+                                                                           MetricFactory metricFactory,
+                                                                           DisposingStager<PreDestroy> preDestroyStager) {
+        return preDestroyStager.register(new ElasticSearchBulkIndexer(
+            indexer,
+            configuration.getIndexingBatchSize(),
+            configuration.getIndexingBatchDelay(),
+            metricFactory));
+    }
+
     @Provides
     @Singleton
     private ElasticSearchSearcher createMailboxElasticSearchSearcher(ReactorElasticSearchClient client,
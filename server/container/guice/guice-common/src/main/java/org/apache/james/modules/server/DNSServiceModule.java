@@ -19,7 +19,9 @@
 package org.apache.james.modules.server;
 
 import org.apache.james.dnsservice.api.DNSService;
+import org.apache.james.dnsservice.api.ReactiveDNSService;
 import org.apache.james.dnsservice.dnsjava.DNSJavaService;
+import org.apache.james.dnsservice.dnsjava.ReactiveDNSJavaService;
 import org.apache.james.server.core.configuration.ConfigurationProvider;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
@@ -33,6 +35,8 @@ public class DNSServiceModule extends AbstractModule {
     protected void configure() {
         bind(DNSJavaService.class).in(Scopes.SINGLETON);
         bind(DNSService.class).to(DNSJavaService.class);
+        bind(ReactiveDNSJavaService.class).in(Scopes.SINGLETON);
+        bind(ReactiveDNSService.class).to(ReactiveDNSJavaService.class);
     }
 
     @ProvidesIntoSet
@@ -44,4 +48,11 @@ public class DNSServiceModule extends AbstractModule {
                 dnsService.init();
             });
     }
-}
\ No newline at end of file
+
+    @ProvidesIntoSet
+    InitializationOperation configureReactiveDNS(ConfigurationProvider configurationProvider, ReactiveDNSJavaService reactiveDNSService) {
+        return InitilizationOperationBuilder
+            .forClass(ReactiveDNSJavaService.class)
+            .init(() -> reactiveDNSService.configure(configurationProvider.getConfiguration("dnsservice")));
+    }
+}
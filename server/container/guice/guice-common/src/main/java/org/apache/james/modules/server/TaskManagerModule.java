@@ -20,6 +20,7 @@
 package org.apache.james.modules.server;
 
 import org.apache.james.task.MemoryTaskManager;
+import org.apache.james.task.TaskConcurrencyConfiguration;
 import org.apache.james.task.TaskManager;
 
 import com.google.inject.AbstractModule;
@@ -31,6 +32,7 @@ public class TaskManagerModule extends AbstractModule {
         install(new HostnameModule());
         install(new TaskSerializationModule());
 
+        bind(TaskConcurrencyConfiguration.class).toInstance(TaskConcurrencyConfiguration.DEFAULT);
         bind(MemoryTaskManager.class).in(Scopes.SINGLETON);
         bind(TaskManager.class).to(MemoryTaskManager.class);
     }
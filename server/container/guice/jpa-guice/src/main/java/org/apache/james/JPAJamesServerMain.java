@@ -38,6 +38,8 @@ import org.apache.james.modules.server.DefaultProcessorsConfigurationProviderMod
 import org.apache.james.modules.server.ElasticSearchMetricReporterModule;
 import org.apache.james.modules.server.InconsistencyQuotasSolvingRoutesModule;
 import org.apache.james.modules.server.JMXServerModule;
+import org.apache.james.modules.server.JPAMailboxTasksRoutesModule;
+import org.apache.james.modules.server.JPATaskSerializationModule;
 import org.apache.james.modules.server.MailQueueRoutesModule;
 import org.apache.james.modules.server.MailRepositoriesRoutesModule;
 import org.apache.james.modules.server.MailboxRoutesModule;
@@ -61,6 +63,8 @@ public class JPAJamesServerMain implements JamesServerMain {
         new WebAdminServerModule(),
         new DataRoutesModules(),
         new InconsistencyQuotasSolvingRoutesModule(),
+        new JPAMailboxTasksRoutesModule(),
+        new JPATaskSerializationModule(),
         new MailboxRoutesModule(),
         new MailQueueRoutesModule(),
         new MailRepositoriesRoutesModule(),
@@ -0,0 +1,67 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.modules.server;
+
+import javax.inject.Inject;
+
+import org.apache.james.mailbox.jpa.mail.task.JPAMessageBodyMigrationService;
+import org.apache.james.mailbox.jpa.mail.task.JPAMessageBodyMigrationTask;
+import org.apache.james.mailbox.jpa.mail.task.JPARecomputeMailboxCountersService;
+import org.apache.james.mailbox.jpa.mail.task.JPARecomputeMailboxCountersTask;
+import org.apache.james.webadmin.routes.MailboxesRoutes;
+import org.apache.james.webadmin.tasks.TaskFromRequestRegistry;
+import org.apache.james.webadmin.tasks.TaskRegistrationKey;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.name.Names;
+
+public class JPAMailboxTasksRoutesModule extends AbstractModule {
+    public static class RecomputeMailboxCountersRequestToTask extends TaskFromRequestRegistry.TaskRegistration {
+        private static final TaskRegistrationKey REGISTRATION_KEY = TaskRegistrationKey.of("RecomputeMailboxCounters");
+
+        @Inject
+        public RecomputeMailboxCountersRequestToTask(JPARecomputeMailboxCountersService service) {
+            super(REGISTRATION_KEY, request -> new JPARecomputeMailboxCountersTask(service));
+        }
+    }
+
+    public static class MigrateMessageBodiesRequestToTask extends TaskFromRequestRegistry.TaskRegistration {
+        private static final TaskRegistrationKey REGISTRATION_KEY = TaskRegistrationKey.of("MigrateMessageBodies");
+
+        @Inject
+        public MigrateMessageBodiesRequestToTask(JPAMessageBodyMigrationService service) {
+            super(REGISTRATION_KEY, request -> new JPAMessageBodyMigrationTask(service));
+        }
+    }
+
+    @Override
+    protected void configure() {
+        bind(JPARecomputeMailboxCountersService.class).in(Scopes.SINGLETON);
+        bind(JPAMessageBodyMigrationService.class).in(Scopes.SINGLETON);
+
+        Multibinder<TaskFromRequestRegistry.TaskRegistration> multiBinder = Multibinder.newSetBinder(binder(),
+            TaskFromRequestRegistry.TaskRegistration.class, Names.named(MailboxesRoutes.ALL_MAILBOXES_TASKS));
+
+        multiBinder.addBinding().to(RecomputeMailboxCountersRequestToTask.class);
+        multiBinder.addBinding().to(MigrateMessageBodiesRequestToTask.class);
+    }
+}
@@ -44,7 +44,7 @@ import org.apache.james.mailetcontainer.impl.JamesMailSpooler;
 import org.apache.james.mailetcontainer.impl.JamesMailetContext;
 import org.apache.james.mailetcontainer.impl.MatcherMailetPair;
 import org.apache.james.mailetcontainer.impl.camel.CamelCompositeProcessor;
-import org.apache.james.mailetcontainer.impl.camel.CamelMailetProcessor;
+import org.apache.james.mailetcontainer.lib.AbstractStateMailetProcessor;
 import org.apache.james.mailrepository.api.MailRepositoryStore;
 import org.apache.james.server.core.configuration.ConfigurationProvider;
 import org.apache.james.transport.mailets.RemoveMimeHeader;
@@ -217,9 +217,9 @@ public class CamelMailetContainerModule extends AbstractModule {
             ImmutableListMultimap<String, MatcherMailetPair> processors = Arrays.stream(camelCompositeProcessor.getProcessorStates())
                 .flatMap(state -> {
                     MailProcessor processor = camelCompositeProcessor.getProcessor(state);
-                    if (processor instanceof CamelMailetProcessor) {
-                        CamelMailetProcessor camelProcessor = (CamelMailetProcessor) processor;
-                        return camelProcessor.getPairs().stream()
+                    if (processor instanceof AbstractStateMailetProcessor) {
+                        AbstractStateMailetProcessor stateProcessor = (AbstractStateMailetProcessor) processor;
+                        return stateProcessor.getPairs().stream()
                             .map(pair -> Pair.of(state, pair));
                     } else {
                         throw new RuntimeException("Can not perform checks as transport processor is not an instance of " + MailProcessor.class);
@@ -21,6 +21,7 @@ package org.apache.james.modules.mailrepository;
 
 import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
 import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.blob.api.BlobReferenceSource;
 import org.apache.james.mailrepository.api.MailRepositoryUrlStore;
 import org.apache.james.mailrepository.api.Protocol;
 import org.apache.james.mailrepository.cassandra.CassandraMailRepository;
@@ -31,6 +32,7 @@ import org.apache.james.mailrepository.cassandra.CassandraMailRepositoryMailDaoA
 import org.apache.james.mailrepository.cassandra.CassandraMailRepositoryMailDaoV2;
 import org.apache.james.mailrepository.cassandra.CassandraMailRepositoryUrlModule;
 import org.apache.james.mailrepository.cassandra.CassandraMailRepositoryUrlStore;
+import org.apache.james.mailrepository.cassandra.MailRepositoryBlobReferenceSource;
 import org.apache.james.mailrepository.cassandra.MergingCassandraMailRepositoryMailDao;
 import org.apache.james.mailrepository.memory.MailRepositoryStoreConfiguration;
 
@@ -63,6 +65,8 @@ public class CassandraMailRepositoryModule extends AbstractModule {
         Multibinder<CassandraModule> cassandraModuleBinder = Multibinder.newSetBinder(binder(), CassandraModule.class);
         cassandraModuleBinder.addBinding().toInstance(org.apache.james.mailrepository.cassandra.CassandraMailRepositoryModule.MODULE);
         cassandraModuleBinder.addBinding().toInstance(CassandraMailRepositoryUrlModule.MODULE);
+
+        Multibinder.newSetBinder(binder(), BlobReferenceSource.class).addBinding().to(MailRepositoryBlobReferenceSource.class);
     }
 
 }
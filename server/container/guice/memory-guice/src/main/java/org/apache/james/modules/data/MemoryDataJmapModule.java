@@ -26,11 +26,13 @@ import org.apache.james.jmap.api.filtering.impl.EventSourcingFilteringManagement
 import org.apache.james.jmap.api.projections.EmailQueryView;
 import org.apache.james.jmap.api.projections.MessageFastViewProjection;
 import org.apache.james.jmap.api.projections.MessageFastViewProjectionHealthCheck;
+import org.apache.james.jmap.api.projections.ThreadIndex;
 import org.apache.james.jmap.api.vacation.NotificationRegistry;
 import org.apache.james.jmap.api.vacation.VacationRepository;
 import org.apache.james.jmap.memory.access.MemoryAccessTokenRepository;
 import org.apache.james.jmap.memory.projections.MemoryEmailQueryView;
 import org.apache.james.jmap.memory.projections.MemoryMessageFastViewProjection;
+import org.apache.james.jmap.memory.projections.MemoryThreadIndex;
 import org.apache.james.jmap.memory.vacation.MemoryNotificationRegistry;
 import org.apache.james.jmap.memory.vacation.MemoryVacationRepository;
 import org.apache.james.mailbox.extractor.TextExtractor;
@@ -66,6 +68,9 @@ public class MemoryDataJmapModule extends AbstractModule {
         bind(MemoryEmailQueryView.class).in(Scopes.SINGLETON);
         bind(EmailQueryView.class).to(MemoryEmailQueryView.class);
 
+        bind(MemoryThreadIndex.class).in(Scopes.SINGLETON);
+        bind(ThreadIndex.class).to(MemoryThreadIndex.class);
+
         bind(MessageFastViewProjectionHealthCheck.class).in(Scopes.SINGLETON);
         Multibinder.newSetBinder(binder(), HealthCheck.class)
             .addBinding()
@@ -20,6 +20,7 @@
 package org.apache.james.jmap.draft;
 
 import java.util.Arrays;
+import java.util.Optional;
 
 import javax.inject.Inject;
 
@@ -33,6 +34,7 @@ import org.apache.james.jmap.api.change.MailboxChangeRepository;
 import org.apache.james.jmap.api.change.State;
 import org.apache.james.jmap.api.model.AccountId;
 import org.apache.james.jmap.api.projections.MessageFastViewProjection;
+import org.apache.james.jmap.api.projections.ThreadIndex;
 import org.apache.james.jmap.api.vacation.Vacation;
 import org.apache.james.jmap.api.vacation.VacationPatch;
 import org.apache.james.jmap.api.vacation.VacationRepository;
@@ -57,9 +59,10 @@ public class JmapGuiceProbe implements GuiceProbe {
     private final MailboxManager mailboxManager;
     private final EventBus eventBus;
     private final MessageFastViewProjection messageFastViewProjection;
+    private final ThreadIndex threadIndex;
 
     @Inject
-    private JmapGuiceProbe(VacationRepository vacationRepository, MailboxChangeRepository mailboxChangeRepository, EmailChangeRepository emailChangeRepository, JMAPServer jmapServer, MessageIdManager messageIdManager, MailboxManager mailboxManager, EventBus eventBus, MessageFastViewProjection messageFastViewProjection) {
+    private JmapGuiceProbe(VacationRepository vacationRepository, MailboxChangeRepository mailboxChangeRepository, EmailChangeRepository emailChangeRepository, JMAPServer jmapServer, MessageIdManager messageIdManager, MailboxManager mailboxManager, EventBus eventBus, MessageFastViewProjection messageFastViewProjection, ThreadIndex threadIndex) {
         this.vacationRepository = vacationRepository;
         this.mailboxChangeRepository = mailboxChangeRepository;
         this.emailChangeRepository = emailChangeRepository;
@@ -68,6 +71,7 @@ public class JmapGuiceProbe implements GuiceProbe {
         this.mailboxManager = mailboxManager;
         this.eventBus = eventBus;
         this.messageFastViewProjection = messageFastViewProjection;
+        this.threadIndex = threadIndex;
     }
 
     public Port getJmapPort() {
@@ -95,6 +99,10 @@ public class JmapGuiceProbe implements GuiceProbe {
         Mono.from(messageFastViewProjection.clear()).block();
     }
 
+    public Optional<MessageId> retrieveThreadId(Username username, MessageId messageId) {
+        return threadIndex.retrieveThreadId(username, messageId).blockOptional();
+    }
+
     public void saveEmailChange(EmailChange change) {
         emailChangeRepository.save(change).block();
     }
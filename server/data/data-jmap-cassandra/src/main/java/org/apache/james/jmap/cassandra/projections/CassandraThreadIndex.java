@@ -0,0 +1,228 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.cassandra.projections;
+
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.BASE_SUBJECT_HASH;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.LOOKUP_TABLE;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MEMBERS_TABLE;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MESSAGE_ID;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MESSAGE_TABLE;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MIME_MESSAGE_ID_HASH;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MIME_MESSAGE_ID_HASHES;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.THREAD_ID;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.USERNAME;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.projections.ThreadIndex;
+import org.apache.james.mailbox.cassandra.ids.CassandraMessageId;
+import org.apache.james.mailbox.model.MessageId;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class CassandraThreadIndex implements ThreadIndex {
+    private final CassandraMessageId.Factory messageIdFactory;
+    private final CassandraAsyncExecutor executor;
+    private final PreparedStatement selectLookup;
+    private final PreparedStatement insertLookup;
+    private final PreparedStatement selectMembers;
+    private final PreparedStatement insertMember;
+    private final PreparedStatement deleteLookup;
+    private final PreparedStatement deleteMember;
+    private final PreparedStatement selectThreadId;
+    private final PreparedStatement insertThreadId;
+    private final PreparedStatement deleteThreadId;
+
+    @Inject
+    public CassandraThreadIndex(CassandraMessageId.Factory messageIdFactory, Session session) {
+        this.messageIdFactory = messageIdFactory;
+        this.executor = new CassandraAsyncExecutor(session);
+
+        selectLookup = session.prepare(select(THREAD_ID, BASE_SUBJECT_HASH)
+            .from(LOOKUP_TABLE)
+            .where(eq(USERNAME, bindMarker(USERNAME)))
+            .and(eq(MIME_MESSAGE_ID_HASH, bindMarker(MIME_MESSAGE_ID_HASH))));
+
+        insertLookup = session.prepare(insertInto(LOOKUP_TABLE)
+            .value(USERNAME, bindMarker(USERNAME))
+            .value(MIME_MESSAGE_ID_HASH, bindMarker(MIME_MESSAGE_ID_HASH))
+            .value(MESSAGE_ID, bindMarker(MESSAGE_ID))
+            .value(THREAD_ID, bindMarker(THREAD_ID))
+            .value(BASE_SUBJECT_HASH, bindMarker(BASE_SUBJECT_HASH)));
+
+        deleteLookup = session.prepare(QueryBuilder.delete()
+            .from(LOOKUP_TABLE)
+            .where(eq(USERNAME, bindMarker(USERNAME)))
+            .and(eq(MIME_MESSAGE_ID_HASH, bindMarker(MIME_MESSAGE_ID_HASH)))
+            .and(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
+
+        selectMembers = session.prepare(select(MESSAGE_ID)
+            .from(MEMBERS_TABLE)
+            .where(eq(USERNAME, bindMarker(USERNAME)))
+            .and(eq(THREAD_ID, bindMarker(THREAD_ID))));
+
+        insertMember = session.prepare(insertInto(MEMBERS_TABLE)
+            .value(USERNAME, bindMarker(USERNAME))
+            .value(THREAD_ID, bindMarker(THREAD_ID))
+            .value(MESSAGE_ID, bindMarker(MESSAGE_ID)));
+
+        deleteMember = session.prepare(QueryBuilder.delete()
+            .from(MEMBERS_TABLE)
+            .where(eq(USERNAME, bindMarker(USERNAME)))
+            .and(eq(THREAD_ID, bindMarker(THREAD_ID)))
+            .and(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
+
+        selectThreadId = session.prepare(select(THREAD_ID, MIME_MESSAGE_ID_HASHES)
+            .from(MESSAGE_TABLE)
+            .where(eq(USERNAME, bindMarker(USERNAME)))
+            .and(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
+
+        insertThreadId = session.prepare(insertInto(MESSAGE_TABLE)
+            .value(USERNAME, bindMarker(USERNAME))
+            .value(MESSAGE_ID, bindMarker(MESSAGE_ID))
+            .value(THREAD_ID, bindMarker(THREAD_ID))
+            .value(MIME_MESSAGE_ID_HASHES, bindMarker(MIME_MESSAGE_ID_HASHES)));
+
+        deleteThreadId = session.prepare(QueryBuilder.delete()
+            .from(MESSAGE_TABLE)
+            .where(eq(USERNAME, bindMarker(USERNAME)))
+            .and(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
+    }
+
+    @Override
+    public Mono<MessageId> assignThread(Username username, MessageId messageId, ThreadingKeys keys) {
+        return retrieveThreadId(username, messageId)
+            .switchIfEmpty(Mono.defer(() -> lookupThread(username, keys)
+                .defaultIfEmpty(messageId)
+                .flatMap(threadId -> save(username, (CassandraMessageId) messageId, (CassandraMessageId) threadId, keys)
+                    .thenReturn(threadId))));
+    }
+
+    private Mono<MessageId> lookupThread(Username username, ThreadingKeys keys) {
+        return Flux.fromIterable(keys.getMimeMessageIdHashes())
+            .concatMap(hash -> executor.executeRows(selectLookup.bind()
+                .setString(USERNAME, username.asString())
+                .setLong(MIME_MESSAGE_ID_HASH, hash)))
+            .filter(row -> readBaseSubjectHash(row).equals(keys.getBaseSubjectHash()))
+            .<MessageId>map(row -> messageIdFactory.of(row.getUUID(THREAD_ID)))
+            .next();
+    }
+
+    private Optional<Long> readBaseSubjectHash(Row row) {
+        if (row.isNull(BASE_SUBJECT_HASH)) {
+            return Optional.empty();
+        }
+        return Optional.of(row.getLong(BASE_SUBJECT_HASH));
+    }
+
+    private Mono<Void> save(Username username, CassandraMessageId messageId, CassandraMessageId threadId, ThreadingKeys keys) {
+        BatchStatement batchStatement = new BatchStatement();
+        keys.getMimeMessageIdHashes()
+            .forEach(hash -> batchStatement.add(bindBaseSubjectHash(insertLookup.bind()
+                .setString(USERNAME, username.asString())
+                .setLong(MIME_MESSAGE_ID_HASH, hash)
+                .setUUID(MESSAGE_ID, messageId.get())
+                .setUUID(THREAD_ID, threadId.get()), keys)));
+        batchStatement.add(insertMember.bind()
+            .setString(USERNAME, username.asString())
+            .setUUID(THREAD_ID, threadId.get())
+            .setUUID(MESSAGE_ID, messageId.get()));
+        batchStatement.add(insertThreadId.bind()
+            .setString(USERNAME, username.asString())
+            .setUUID(MESSAGE_ID, messageId.get())
+            .setUUID(THREAD_ID, threadId.get())
+            .setSet(MIME_MESSAGE_ID_HASHES, keys.getMimeMessageIdHashes(), Long.class));
+
+        return executor.executeVoid(batchStatement);
+    }
+
+    private BoundStatement bindBaseSubjectHash(BoundStatement statement, ThreadingKeys keys) {
+        return keys.getBaseSubjectHash()
+            .map(hash -> statement.setLong(BASE_SUBJECT_HASH, hash))
+            .orElseGet(() -> statement.setToNull(BASE_SUBJECT_HASH));
+    }
+
+    @Override
+    public Mono<MessageId> retrieveThreadId(Username username, MessageId messageId) {
+        return selectMessage(username, (CassandraMessageId) messageId)
+            .map(row -> messageIdFactory.of(row.getUUID(THREAD_ID)));
+    }
+
+    private Mono<Row> selectMessage(Username username, CassandraMessageId messageId) {
+        return executor.executeSingleRow(selectThreadId.bind()
+            .setString(USERNAME, username.asString())
+            .setUUID(MESSAGE_ID, messageId.get()));
+    }
+
+    @Override
+    public Flux<MessageId> listThread(Username username, MessageId threadId) {
+        CassandraMessageId cassandraThreadId = (CassandraMessageId) threadId;
+
+        return executor.executeRows(selectMembers.bind()
+                .setString(USERNAME, username.asString())
+                .setUUID(THREAD_ID, cassandraThreadId.get()))
+            .map(row -> messageIdFactory.of(row.getUUID(MESSAGE_ID)));
+    }
+
+    @Override
+    public Mono<Void> delete(Username username, MessageId messageId) {
+        CassandraMessageId cassandraMessageId = (CassandraMessageId) messageId;
+
+        return selectMessage(username, cassandraMessageId)
+            .flatMap(row -> executor.executeVoid(deleteStatement(username, cassandraMessageId,
+                row.getUUID(THREAD_ID), row.getSet(MIME_MESSAGE_ID_HASHES, Long.class))));
+    }
+
+    // Lookup rows are per email: those of other emails referencing the same ids are kept
+    private BatchStatement deleteStatement(Username username, CassandraMessageId messageId, UUID threadId, Set<Long> mimeMessageIdHashes) {
+        BatchStatement batchStatement = new BatchStatement();
+        mimeMessageIdHashes
+            .forEach(hash -> batchStatement.add(deleteLookup.bind()
+                .setString(USERNAME, username.asString())
+                .setLong(MIME_MESSAGE_ID_HASH, hash)
+                .setUUID(MESSAGE_ID, messageId.get())));
+        batchStatement.add(deleteMember.bind()
+            .setString(USERNAME, username.asString())
+            .setUUID(THREAD_ID, threadId)
+            .setUUID(MESSAGE_ID, messageId.get()));
+        batchStatement.add(deleteThreadId.bind()
+            .setString(USERNAME, username.asString())
+            .setUUID(MESSAGE_ID, messageId.get()));
+        return batchStatement;
+    }
+}
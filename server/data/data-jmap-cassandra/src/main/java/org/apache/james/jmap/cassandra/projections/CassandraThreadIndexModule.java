@@ -0,0 +1,73 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.cassandra.projections;
+
+import static com.datastax.driver.core.DataType.bigint;
+import static com.datastax.driver.core.DataType.set;
+import static com.datastax.driver.core.DataType.text;
+import static com.datastax.driver.core.DataType.uuid;
+import static org.apache.james.backends.cassandra.utils.CassandraConstants.DEFAULT_CACHED_ROW_PER_PARTITION;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.BASE_SUBJECT_HASH;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.LOOKUP_TABLE;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MEMBERS_TABLE;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MESSAGE_ID;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MESSAGE_TABLE;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MIME_MESSAGE_ID_HASH;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.MIME_MESSAGE_ID_HASHES;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.THREAD_ID;
+import static org.apache.james.jmap.cassandra.projections.table.CassandraThreadIndexTable.USERNAME;
+
+import org.apache.james.backends.cassandra.components.CassandraModule;
+
+import com.datastax.driver.core.schemabuilder.SchemaBuilder;
+
+public interface CassandraThreadIndexModule {
+    CassandraModule MODULE = CassandraModule.table(LOOKUP_TABLE)
+        .comment("Given the hash of a Message-ID, In-Reply-To or References id of a user, lookup the JMAP threads it belongs to.")
+        .options(options -> options
+            .caching(SchemaBuilder.KeyCaching.ALL, SchemaBuilder.rows(DEFAULT_CACHED_ROW_PER_PARTITION)))
+        .statement(statement -> statement
+            .addPartitionKey(USERNAME, text())
+            .addPartitionKey(MIME_MESSAGE_ID_HASH, bigint())
+            .addClusteringColumn(MESSAGE_ID, uuid())
+            .addColumn(THREAD_ID, uuid())
+            .addColumn(BASE_SUBJECT_HASH, bigint()))
+
+        .table(MEMBERS_TABLE)
+        .comment("Lists the emails of a JMAP thread of a user.")
+        .options(options -> options
+            .caching(SchemaBuilder.KeyCaching.ALL, SchemaBuilder.rows(DEFAULT_CACHED_ROW_PER_PARTITION)))
+        .statement(statement -> statement
+            .addPartitionKey(USERNAME, text())
+            .addPartitionKey(THREAD_ID, uuid())
+            .addClusteringColumn(MESSAGE_ID, uuid()))
+
+        .table(MESSAGE_TABLE)
+        .comment("Given a MessageId of a user lookup the JMAP thread it belongs to, and the hashes it is indexed by.")
+        .options(options -> options
+            .caching(SchemaBuilder.KeyCaching.ALL, SchemaBuilder.rows(DEFAULT_CACHED_ROW_PER_PARTITION)))
+        .statement(statement -> statement
+            .addPartitionKey(USERNAME, text())
+            .addPartitionKey(MESSAGE_ID, uuid())
+            .addColumn(THREAD_ID, uuid())
+            .addColumn(MIME_MESSAGE_ID_HASHES, set(bigint())))
+
+        .build();
+}
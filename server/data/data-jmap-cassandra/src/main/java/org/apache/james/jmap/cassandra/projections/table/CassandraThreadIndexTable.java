@@ -0,0 +1,33 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.cassandra.projections.table;
+
+public interface CassandraThreadIndexTable {
+    String LOOKUP_TABLE = "thread_index_lookup";
+    String MEMBERS_TABLE = "thread_index_members";
+    String MESSAGE_TABLE = "thread_index_message";
+
+    String USERNAME = "username";
+    String MIME_MESSAGE_ID_HASH = "mimeMessageIdHash";
+    String MIME_MESSAGE_ID_HASHES = "mimeMessageIdHashes";
+    String BASE_SUBJECT_HASH = "baseSubjectHash";
+    String MESSAGE_ID = "messageId";
+    String THREAD_ID = "threadId";
+}
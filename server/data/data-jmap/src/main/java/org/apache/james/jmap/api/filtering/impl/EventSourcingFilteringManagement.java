@@ -25,6 +25,7 @@ import javax.inject.Inject;
 
 import org.apache.james.core.Username;
 import org.apache.james.eventsourcing.EventSourcingSystem;
+import org.apache.james.eventsourcing.Snapshotter;
 import org.apache.james.eventsourcing.Subscriber;
 import org.apache.james.eventsourcing.eventstore.EventStore;
 import org.apache.james.jmap.api.filtering.FilteringManagement;
@@ -48,6 +49,7 @@ public class EventSourcingFilteringManagement implements FilteringManagement {
         this.eventSourcingSystem = EventSourcingSystem.fromJava(
             ImmutableSet.of(new DefineRulesCommandHandler(eventStore)),
             NO_SUBSCRIBER,
+            ImmutableSet.of(Snapshotter.latestEvent(FilteringAggregateId.class::isInstance)),
             eventStore);
         this.eventStore = eventStore;
     }
@@ -0,0 +1,127 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.api.projections;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.model.MessageId;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Groups the emails of a user into JMAP threads.
+ *
+ * A thread is identified by the {@link MessageId} of the first email assigned to it. An email joins an existing
+ * thread if one of its Message-ID, In-Reply-To or References ids is already known for that user, with the same base
+ * subject. Ids and subjects are stored hashed.
+ *
+ * Threads are scoped by user: the same email can belong to different threads for different users.
+ */
+public interface ThreadIndex {
+    class ThreadingKeys {
+        private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+        public static ThreadingKeys of(Set<String> mimeMessageIds, Optional<String> baseSubject) {
+            return new ThreadingKeys(
+                mimeMessageIds.stream()
+                    .map(ThreadingKeys::hash)
+                    .collect(Guavate.toImmutableSet()),
+                baseSubject.map(ThreadingKeys::hash));
+        }
+
+        private static long hash(String value) {
+            return HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asLong();
+        }
+
+        private final ImmutableSet<Long> mimeMessageIdHashes;
+        private final Optional<Long> baseSubjectHash;
+
+        public ThreadingKeys(ImmutableSet<Long> mimeMessageIdHashes, Optional<Long> baseSubjectHash) {
+            this.mimeMessageIdHashes = mimeMessageIdHashes;
+            this.baseSubjectHash = baseSubjectHash;
+        }
+
+        public ImmutableSet<Long> getMimeMessageIdHashes() {
+            return mimeMessageIdHashes;
+        }
+
+        public Optional<Long> getBaseSubjectHash() {
+            return baseSubjectHash;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof ThreadingKeys) {
+                ThreadingKeys that = (ThreadingKeys) o;
+
+                return Objects.equals(this.mimeMessageIdHashes, that.mimeMessageIdHashes)
+                    && Objects.equals(this.baseSubjectHash, that.baseSubjectHash);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(mimeMessageIdHashes, baseSubjectHash);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("mimeMessageIdHashes", mimeMessageIdHashes)
+                .add("baseSubjectHash", baseSubjectHash)
+                .toString();
+        }
+    }
+
+    /**
+     * Assigns a thread to this email. Idempotent: an email keeps the thread it was first assigned.
+     *
+     * @return the id of the thread of this email
+     */
+    Mono<MessageId> assignThread(Username username, MessageId messageId, ThreadingKeys keys);
+
+    /**
+     * @return the id of the thread of this email, empty if no thread was assigned to it
+     */
+    Mono<MessageId> retrieveThreadId(Username username, MessageId messageId);
+
+    /**
+     * @return the ids of the emails of this thread, in no particular order. Cost is linear with the thread size.
+     */
+    Flux<MessageId> listThread(Username username, MessageId threadId);
+
+    /**
+     * Removes this email from its thread, along with its thread id and its threading keys. Keys shared with other
+     * emails of the thread are kept, so that later replies still join the thread of its siblings.
+     */
+    Mono<Void> delete(Username username, MessageId messageId);
+}
@@ -0,0 +1,194 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.memory.projections;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.projections.ThreadIndex;
+import org.apache.james.mailbox.model.MessageId;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Table;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class MemoryThreadIndex implements ThreadIndex {
+    private static class LookupKey {
+        private final Username username;
+        private final long mimeMessageIdHash;
+        private final Optional<Long> baseSubjectHash;
+
+        LookupKey(Username username, long mimeMessageIdHash, Optional<Long> baseSubjectHash) {
+            this.username = username;
+            this.mimeMessageIdHash = mimeMessageIdHash;
+            this.baseSubjectHash = baseSubjectHash;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof LookupKey) {
+                LookupKey that = (LookupKey) o;
+
+                return this.mimeMessageIdHash == that.mimeMessageIdHash
+                    && Objects.equals(this.username, that.username)
+                    && Objects.equals(this.baseSubjectHash, that.baseSubjectHash);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(username, mimeMessageIdHash, baseSubjectHash);
+        }
+    }
+
+    private static class Lookup {
+        private final MessageId threadId;
+        private final Set<MessageId> referencingMessages;
+
+        Lookup(MessageId threadId) {
+            this.threadId = threadId;
+            this.referencingMessages = new HashSet<>();
+        }
+    }
+
+    private static class IndexedMessage {
+        private final MessageId threadId;
+        private final ThreadingKeys keys;
+
+        IndexedMessage(MessageId threadId, ThreadingKeys keys) {
+            this.threadId = threadId;
+            this.keys = keys;
+        }
+    }
+
+    // Guarded by this
+    private final Map<LookupKey, Lookup> lookups;
+    private final Table<Username, MessageId, Set<MessageId>> members;
+    private final Table<Username, MessageId, IndexedMessage> messages;
+
+    @Inject
+    public MemoryThreadIndex() {
+        lookups = new HashMap<>();
+        members = HashBasedTable.create();
+        messages = HashBasedTable.create();
+    }
+
+    @Override
+    public Mono<MessageId> assignThread(Username username, MessageId messageId, ThreadingKeys keys) {
+        return Mono.fromCallable(() -> doAssignThread(username, messageId, keys));
+    }
+
+    private synchronized MessageId doAssignThread(Username username, MessageId messageId, ThreadingKeys keys) {
+        IndexedMessage existing = messages.get(username, messageId);
+        if (existing != null) {
+            return existing.threadId;
+        }
+
+        MessageId threadId = keys.getMimeMessageIdHashes().stream()
+            .map(hash -> lookups.get(new LookupKey(username, hash, keys.getBaseSubjectHash())))
+            .filter(Objects::nonNull)
+            .map(lookup -> lookup.threadId)
+            .findFirst()
+            .orElse(messageId);
+
+        // A key already leading to another thread is left untouched: the first thread referencing an id keeps it
+        keys.getMimeMessageIdHashes().stream()
+            .map(hash -> lookups.computeIfAbsent(new LookupKey(username, hash, keys.getBaseSubjectHash()), any -> new Lookup(threadId)))
+            .filter(lookup -> lookup.threadId.equals(threadId))
+            .forEach(lookup -> lookup.referencingMessages.add(messageId));
+        threadMembers(username, threadId).add(messageId);
+        messages.put(username, messageId, new IndexedMessage(threadId, keys));
+        return threadId;
+    }
+
+    private Set<MessageId> threadMembers(Username username, MessageId threadId) {
+        Set<MessageId> threadMembers = members.get(username, threadId);
+        if (threadMembers == null) {
+            threadMembers = new HashSet<>();
+            members.put(username, threadId, threadMembers);
+        }
+        return threadMembers;
+    }
+
+    @Override
+    public Mono<MessageId> retrieveThreadId(Username username, MessageId messageId) {
+        return Mono.fromCallable(() -> doRetrieveThreadId(username, messageId));
+    }
+
+    private synchronized MessageId doRetrieveThreadId(Username username, MessageId messageId) {
+        return Optional.ofNullable(messages.get(username, messageId))
+            .map(indexedMessage -> indexedMessage.threadId)
+            .orElse(null);
+    }
+
+    @Override
+    public Flux<MessageId> listThread(Username username, MessageId threadId) {
+        return Flux.defer(() -> Flux.fromIterable(members(username, threadId)));
+    }
+
+    private synchronized ImmutableSet<MessageId> members(Username username, MessageId threadId) {
+        return Optional.ofNullable(members.get(username, threadId))
+            .map(ImmutableSet::copyOf)
+            .orElse(ImmutableSet.of());
+    }
+
+    @Override
+    public Mono<Void> delete(Username username, MessageId messageId) {
+        return Mono.fromRunnable(() -> doDelete(username, messageId));
+    }
+
+    private synchronized void doDelete(Username username, MessageId messageId) {
+        IndexedMessage indexedMessage = messages.remove(username, messageId);
+        if (indexedMessage == null) {
+            return;
+        }
+
+        Set<MessageId> threadMembers = members.get(username, indexedMessage.threadId);
+        if (threadMembers != null) {
+            threadMembers.remove(messageId);
+            if (threadMembers.isEmpty()) {
+                members.remove(username, indexedMessage.threadId);
+            }
+        }
+        indexedMessage.keys.getMimeMessageIdHashes()
+            .forEach(hash -> removeReference(new LookupKey(username, hash, indexedMessage.keys.getBaseSubjectHash()), messageId));
+    }
+
+    private void removeReference(LookupKey key, MessageId messageId) {
+        Lookup lookup = lookups.get(key);
+        if (lookup != null) {
+            lookup.referencingMessages.remove(messageId);
+            if (lookup.referencingMessages.isEmpty()) {
+                lookups.remove(key);
+            }
+        }
+    }
+}
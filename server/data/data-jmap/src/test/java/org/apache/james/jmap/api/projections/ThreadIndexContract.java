@@ -0,0 +1,217 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.api.projections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.projections.ThreadIndex.ThreadingKeys;
+import org.apache.james.mailbox.model.MessageId;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+public interface ThreadIndexContract {
+    Username BOB = Username.of("bob");
+    Username ALICE = Username.of("alice");
+    Optional<String> SUBJECT = Optional.of("Meeting");
+
+    ThreadIndex testee();
+
+    MessageId messageId1();
+
+    MessageId messageId2();
+
+    MessageId messageId3();
+
+    @Test
+    default void retrieveThreadIdShouldReturnEmptyByDefault() {
+        assertThat(testee().retrieveThreadId(BOB, messageId1()).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void listThreadShouldReturnEmptyByDefault() {
+        assertThat(testee().listThread(BOB, messageId1()).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void assignThreadShouldStartANewThreadWhenNoKnownReference() {
+        MessageId threadId = testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId1());
+    }
+
+    @Test
+    default void assignThreadShouldJoinTheThreadOfAReferencedMessage() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId1());
+    }
+
+    @Test
+    default void assignThreadShouldJoinTheThreadOfASiblingReply() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<3@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId1());
+    }
+
+    @Test
+    default void assignThreadShouldNotJoinAThreadWithADifferentSubject() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), Optional.of("Other"))).block();
+
+        assertThat(threadId).isEqualTo(messageId2());
+    }
+
+    @Test
+    default void assignThreadShouldNotJoinThreadsOfOtherUsers() {
+        testee().assignThread(ALICE, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId2());
+    }
+
+    @Test
+    default void assignThreadShouldBeIdempotent() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>"), Optional.of("Other"))).block();
+
+        assertThat(threadId).isEqualTo(messageId1());
+    }
+
+    @Test
+    default void retrieveThreadIdShouldReturnTheAssignedThread() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(testee().retrieveThreadId(BOB, messageId2()).block())
+            .isEqualTo(messageId1());
+    }
+
+    @Test
+    default void listThreadShouldReturnAllMembers() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId3(), ThreadingKeys.of(ImmutableSet.of("<3@domain>"), SUBJECT)).block();
+
+        assertThat(testee().listThread(BOB, messageId1()).collectList().block())
+            .containsOnly(messageId1(), messageId2());
+    }
+
+    @Test
+    default void deleteShouldRemoveTheMessageFromItsThread() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        testee().delete(BOB, messageId2()).block();
+
+        assertThat(testee().listThread(BOB, messageId1()).collectList().block())
+            .containsOnly(messageId1());
+    }
+
+    @Test
+    default void deleteShouldRemoveTheThreadIdOfTheMessage() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        testee().delete(BOB, messageId2()).block();
+
+        assertThat(testee().retrieveThreadId(BOB, messageId2()).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void repliesShouldStartANewThreadOnceAllReferencingMessagesAreDeleted() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().delete(BOB, messageId1()).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId2());
+    }
+
+    @Test
+    default void retrieveThreadIdShouldNotReturnThreadsOfOtherUsers() {
+        testee().assignThread(ALICE, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        assertThat(testee().retrieveThreadId(BOB, messageId1()).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void listThreadShouldNotReturnMembersOfOtherUsers() {
+        testee().assignThread(ALICE, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        assertThat(testee().listThread(BOB, messageId1()).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void assignThreadShouldBeScopedByUser() {
+        testee().assignThread(ALICE, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(ALICE, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId2());
+    }
+
+    @Test
+    default void deleteShouldNotAffectOtherUsers() {
+        testee().assignThread(ALICE, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+
+        testee().delete(BOB, messageId1()).block();
+
+        assertThat(testee().listThread(ALICE, messageId1()).collectList().block())
+            .containsOnly(messageId1());
+    }
+
+    @Test
+    default void repliesShouldStillJoinTheThreadAfterTheOriginalMessageIsDeleted() {
+        testee().assignThread(BOB, messageId1(), ThreadingKeys.of(ImmutableSet.of("<1@domain>"), SUBJECT)).block();
+        testee().assignThread(BOB, messageId2(), ThreadingKeys.of(ImmutableSet.of("<2@domain>", "<1@domain>"), SUBJECT)).block();
+        testee().delete(BOB, messageId1()).block();
+
+        MessageId threadId = testee().assignThread(BOB, messageId3(), ThreadingKeys.of(ImmutableSet.of("<3@domain>", "<1@domain>"), SUBJECT)).block();
+
+        assertThat(threadId).isEqualTo(messageId1());
+    }
+
+    @Test
+    default void deleteShouldBeIdempotent() {
+        testee().delete(BOB, messageId1()).block();
+
+        assertThat(testee().retrieveThreadId(BOB, messageId1()).blockOptional())
+            .isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.dnsservice.api;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking counterpart of {@link DNSService}.
+ *
+ * Resolution failures are signaled as errors: {@link TemporaryResolutionException} for temporary problems and
+ * {@link UnknownHostException} for names that do not resolve.
+ */
+public interface ReactiveDNSService {
+
+    /**
+     * Return a prioritized list of host handling mail for the domain.
+     *
+     * Falls back to the domain itself when it has no MX records but resolves to an address.
+     *
+     * @param hostname domain name to look up
+     */
+    Mono<List<String>> findMXRecords(String hostname);
+
+    /**
+     * Get the DNS TXT Records of a host, empty if none can be found.
+     */
+    Mono<List<String>> findTXTRecords(String hostname);
+
+    /**
+     * Resolve the given hostname to its addresses based on the DNS Server.
+     */
+    Mono<List<InetAddress>> getAllByName(String host);
+
+    /**
+     * Resolve the given InetAddress to a host name based on the DNS Server, or to its textual
+     * representation when no PTR record exists.
+     */
+    Mono<String> getHostName(InetAddress addr);
+
+    /**
+     * Check in parallel in which DNS block lists the given reversed IP is listed.
+     *
+     * @param reversedIp the IP to check, with its octets reversed, as expected by DNS block lists
+     * @param zones the DNS block list zones to query
+     * @return the zones listing the IP
+     */
+    default Flux<String> findListingZones(String reversedIp, Collection<String> zones) {
+        return Flux.fromIterable(zones)
+            .flatMap(zone -> getAllByName(reversedIp + "." + zone)
+                .map(any -> zone)
+                .onErrorResume(UnknownHostException.class, e -> Mono.empty()));
+    }
+}
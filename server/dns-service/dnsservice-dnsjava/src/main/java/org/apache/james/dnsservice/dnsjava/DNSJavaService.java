@@ -265,6 +265,15 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         return searchPaths;
     }
 
+    /**
+     * Return the resolver configured by this service
+     *
+     * @return the resolver used for lookups
+     */
+    public Resolver getResolver() {
+        return resolver;
+    }
+
     /**
      * Return a prioritized unmodifiable list of MX records obtained from the
      * server.
@@ -0,0 +1,313 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.dnsservice.dnsjava;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.dnsservice.api.ReactiveDNSService;
+import org.apache.james.dnsservice.api.TemporaryResolutionException;
+import org.apache.james.lifecycle.api.Configurable;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.MXRecord;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.ReverseMap;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveDNSService} sending its queries asynchronously through the resolver of {@link DNSJavaService}.
+ *
+ * Identical queries in flight are coalesced into a single DNS query. Answers, including negative ones, are kept in a
+ * bounded cache for their TTL.
+ */
+public class ReactiveDNSJavaService implements ReactiveDNSService, Configurable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveDNSJavaService.class);
+
+    public static final String CACHE_HIT_METRIC = "reactiveDnsCacheHit";
+    public static final String CACHE_MISS_METRIC = "reactiveDnsCacheMiss";
+    public static final String QUERY_METRIC = "reactiveDnsQuery";
+    private static final int DEFAULT_MAX_CACHE_SIZE = 50000;
+    private static final Duration DEFAULT_NEGATIVE_CACHE_TTL = Duration.ofMinutes(5);
+
+    private static class Query {
+        private final Name name;
+        private final int type;
+
+        private Query(Name name, int type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof Query) {
+                Query other = (Query) o;
+                return Objects.equals(this.name, other.name)
+                    && this.type == other.type;
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(name, type);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("type", Type.string(type))
+                .toString();
+        }
+    }
+
+    private static class Answer {
+        private final List<Record> records;
+        private final Instant expiration;
+
+        private Answer(List<Record> records, Instant expiration) {
+            this.records = records;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiration);
+        }
+    }
+
+    private final Supplier<Resolver> resolver;
+    private final Clock clock;
+    private final Metric cacheHitMetric;
+    private final Metric cacheMissMetric;
+    private final MetricFactory metricFactory;
+    private final Map<Query, Mono<Answer>> inFlight = new ConcurrentHashMap<>();
+    private Cache<Query, Answer> cache;
+    private Duration negativeCacheTTL;
+
+    @Inject
+    public ReactiveDNSJavaService(DNSJavaService dnsJavaService, MetricFactory metricFactory) {
+        this(dnsJavaService::getResolver, metricFactory, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    ReactiveDNSJavaService(Supplier<Resolver> resolver, MetricFactory metricFactory, Clock clock) {
+        this.resolver = resolver;
+        this.metricFactory = metricFactory;
+        this.clock = clock;
+        this.cacheHitMetric = metricFactory.generate(CACHE_HIT_METRIC);
+        this.cacheMissMetric = metricFactory.generate(CACHE_MISS_METRIC);
+        configure(DEFAULT_MAX_CACHE_SIZE, DEFAULT_NEGATIVE_CACHE_TTL);
+    }
+
+    @Override
+    public void configure(HierarchicalConfiguration<ImmutableNode> configuration) {
+        int maxCacheSize = configuration.getInt("maxcachesize", DEFAULT_MAX_CACHE_SIZE);
+        int negativeCacheTTLInSeconds = configuration.getInt("negativeCacheTTL", -1);
+        configure(maxCacheSize, Optional.of(negativeCacheTTLInSeconds)
+            .filter(ttl -> ttl >= 0)
+            .map(Duration::ofSeconds)
+            .orElse(DEFAULT_NEGATIVE_CACHE_TTL));
+    }
+
+    @VisibleForTesting
+    void configure(int maxCacheSize, Duration negativeCacheTTL) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maxCacheSize)
+            .build();
+        this.negativeCacheTTL = negativeCacheTTL;
+    }
+
+    @Override
+    public Mono<List<String>> findMXRecords(String hostname) {
+        return lookup(hostname, Type.MX)
+            .map(this::sortMXRecords)
+            .flatMap(servers -> {
+                if (servers.isEmpty()) {
+                    LOGGER.info("Couldn't resolve MX records for domain {}.", hostname);
+                    return getAllByName(hostname)
+                        .map(any -> ImmutableList.of(hostname))
+                        .onErrorResume(UnknownHostException.class, e -> Mono.just(ImmutableList.of()));
+                }
+                return Mono.just(servers);
+            });
+    }
+
+    private List<String> sortMXRecords(List<Record> records) {
+        // RFC 2821 section 5 requires that we sort the MX records by their preference, records with the same
+        // preference are shuffled (JAMES-913)
+        List<MXRecord> mxRecords = new ArrayList<>();
+        records.forEach(record -> mxRecords.add((MXRecord) record));
+        Collections.shuffle(mxRecords);
+        mxRecords.sort((a, b) -> Integer.compare(a.getPriority(), b.getPriority()));
+        return mxRecords.stream()
+            .map(mx -> mx.getTarget().toString())
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public Mono<List<String>> findTXTRecords(String hostname) {
+        return lookup(hostname, Type.TXT)
+            .map(records -> records.stream()
+                .map(record -> ((TXTRecord) record).rdataToString())
+                .collect(ImmutableList.toImmutableList()))
+            .onErrorResume(TemporaryResolutionException.class, e -> Mono.just(ImmutableList.of()));
+    }
+
+    @Override
+    public Mono<List<InetAddress>> getAllByName(String host) {
+        String name = allowIPLiteral(host);
+        if (org.xbill.DNS.Address.isDottedQuad(name)) {
+            return Mono.fromCallable(() -> ImmutableList.of(org.xbill.DNS.Address.getByAddress(name)));
+        }
+        return lookup(name, Type.A)
+            .onErrorMap(TemporaryResolutionException.class, e -> new UnknownHostException(name))
+            .flatMap(records -> {
+                if (records.isEmpty()) {
+                    return Mono.error(new UnknownHostException(name));
+                }
+                return Mono.fromCallable(() -> toAddresses(name, records));
+            });
+    }
+
+    private List<InetAddress> toAddresses(String name, List<Record> records) throws UnknownHostException {
+        ImmutableList.Builder<InetAddress> addresses = ImmutableList.builder();
+        for (Record record : records) {
+            addresses.add(InetAddress.getByAddress(name, ((ARecord) record).getAddress().getAddress()));
+        }
+        return addresses.build();
+    }
+
+    @Override
+    public Mono<String> getHostName(InetAddress addr) {
+        return lookup(ReverseMap.fromAddress(addr).toString(), Type.PTR)
+            .map(records -> records.stream()
+                .findFirst()
+                .map(record -> ((PTRRecord) record).getTarget().toString())
+                .orElse(addr.getHostAddress()))
+            .onErrorResume(TemporaryResolutionException.class, e -> Mono.just(addr.getHostAddress()));
+    }
+
+    private static String allowIPLiteral(String host) {
+        if ((host.charAt(host.length() - 1) == '.')) {
+            String possibleIpLiteral = host.substring(0, host.length() - 1);
+            if (org.xbill.DNS.Address.isDottedQuad(possibleIpLiteral)) {
+                return possibleIpLiteral;
+            }
+        }
+        return host;
+    }
+
+    /**
+     * @return the records of the given type, empty if the name or the record type does not exist
+     */
+    private Mono<List<Record>> lookup(String name, int type) {
+        try {
+            return lookup(new Query(Name.fromString(name, Name.root), type));
+        } catch (TextParseException e) {
+            LOGGER.error("Couldn't parse name {}", name, e);
+            return Mono.just(ImmutableList.of());
+        }
+    }
+
+    private Mono<List<Record>> lookup(Query query) {
+        return Mono.defer(() -> {
+            Answer cached = cache.getIfPresent(query);
+            if (cached != null && !cached.isExpired(clock.instant())) {
+                cacheHitMetric.increment();
+                return Mono.just(cached.records);
+            }
+            cacheMissMetric.increment();
+            return inFlight.computeIfAbsent(query, this::send)
+                .map(answer -> answer.records);
+        });
+    }
+
+    private Mono<Answer> send(Query query) {
+        Message message = Message.newQuery(Record.newRecord(query.name, query.type, DClass.IN));
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric(QUERY_METRIC,
+                Mono.fromCompletionStage(() -> resolver.get().sendAsync(message))))
+            .onErrorMap(e -> !(e instanceof TemporaryResolutionException), e -> {
+                LOGGER.warn("DNS query {} failed", query, e);
+                return new TemporaryResolutionException("DNSService is temporary not reachable");
+            })
+            .flatMap(response -> toAnswer(query, response))
+            .doOnNext(answer -> cache.put(query, answer))
+            .doFinally(signal -> inFlight.remove(query))
+            .cache();
+    }
+
+    private Mono<Answer> toAnswer(Query query, Message response) {
+        int rcode = response.getRcode();
+        if (rcode != Rcode.NOERROR && rcode != Rcode.NXDOMAIN) {
+            return Mono.error(new TemporaryResolutionException("DNS query " + query + " failed with " + Rcode.string(rcode)));
+        }
+        List<Record> records = response.getSection(Section.ANSWER)
+            .stream()
+            .filter(record -> record.getType() == query.type)
+            .collect(ImmutableList.toImmutableList());
+        Duration ttl = records.stream()
+            .map(record -> Duration.ofSeconds(record.getTTL()))
+            .min(Duration::compareTo)
+            .orElse(negativeCacheTTL);
+        return Mono.just(new Answer(records, clock.instant().plus(ttl)));
+    }
+
+    @VisibleForTesting
+    long getCacheSize() {
+        return cache.size();
+    }
+}
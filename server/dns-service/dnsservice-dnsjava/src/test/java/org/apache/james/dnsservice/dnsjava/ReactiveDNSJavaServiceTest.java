@@ -0,0 +1,232 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.dnsservice.dnsjava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.MXRecord;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.TXTRecord;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class ReactiveDNSJavaServiceTest {
+    private static final long TTL = 3600;
+
+    /**
+     * Minimal UDP DNS server answering from an in-memory zone, counting the queries it receives.
+     */
+    private static class FakeDNSServer implements AutoCloseable {
+        private final DatagramSocket socket;
+        private final Map<Name, List<Record>> records = new ConcurrentHashMap<>();
+        private final AtomicInteger queryCount = new AtomicInteger();
+        private final Thread thread;
+        private volatile Duration latency = Duration.ZERO;
+
+        FakeDNSServer() throws SocketException, UnknownHostException {
+            socket = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+            thread = new Thread(this::serve, "fake-dns-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void add(Record record) {
+            records.computeIfAbsent(record.getName(), any -> new CopyOnWriteArrayList<>())
+                .add(record);
+        }
+
+        int getPort() {
+            return socket.getLocalPort();
+        }
+
+        private void serve() {
+            byte[] buffer = new byte[512];
+            while (!socket.isClosed()) {
+                try {
+                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                    socket.receive(packet);
+                    queryCount.incrementAndGet();
+                    Thread.sleep(latency.toMillis());
+                    byte[] response = answer(new Message(packet.getData())).toWire();
+                    socket.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+                } catch (IOException | InterruptedException e) {
+                    // socket closed
+                }
+            }
+        }
+
+        private Message answer(Message query) {
+            Record question = query.getQuestion();
+            Message response = new Message(query.getHeader().getID());
+            response.getHeader().setFlag(Flags.QR);
+            response.addRecord(question, Section.QUESTION);
+            List<Record> known = records.get(question.getName());
+            if (known == null) {
+                response.getHeader().setRcode(Rcode.NXDOMAIN);
+                return response;
+            }
+            known.stream()
+                .filter(record -> record.getType() == question.getType())
+                .forEach(record -> response.addRecord(record, Section.ANSWER));
+            return response;
+        }
+
+        @Override
+        public void close() {
+            socket.close();
+        }
+    }
+
+    private FakeDNSServer server;
+    private ReactiveDNSJavaService testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeDNSServer();
+        SimpleResolver resolver = new SimpleResolver("127.0.0.1");
+        resolver.setPort(server.getPort());
+        resolver.setTimeout(Duration.ofSeconds(2));
+        testee = new ReactiveDNSJavaService(() -> resolver, new RecordingMetricFactory(), Clock.systemUTC());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void findMXRecordsShouldSortByPriority() throws Exception {
+        server.add(new MXRecord(Name.fromString("domain.tld."), DClass.IN, TTL, 20, Name.fromString("mx2.domain.tld.")));
+        server.add(new MXRecord(Name.fromString("domain.tld."), DClass.IN, TTL, 10, Name.fromString("mx1.domain.tld.")));
+
+        assertThat(testee.findMXRecords("domain.tld").block())
+            .containsExactly("mx1.domain.tld.", "mx2.domain.tld.");
+    }
+
+    @Test
+    void findMXRecordsShouldFallbackToTheHostWhenNoMX() throws Exception {
+        server.add(new ARecord(Name.fromString("domain.tld."), DClass.IN, TTL, InetAddress.getByName("192.0.2.1")));
+
+        assertThat(testee.findMXRecords("domain.tld").block())
+            .containsExactly("domain.tld");
+    }
+
+    @Test
+    void findTXTRecordsShouldReturnTheRecords() throws Exception {
+        server.add(new TXTRecord(Name.fromString("domain.tld."), DClass.IN, TTL, "v=spf1 -all"));
+
+        assertThat(testee.findTXTRecords("domain.tld").block())
+            .containsExactly("\"v=spf1 -all\"");
+    }
+
+    @Test
+    void getAllByNameShouldReturnTheAddresses() throws Exception {
+        server.add(new ARecord(Name.fromString("host.domain.tld."), DClass.IN, TTL, InetAddress.getByName("192.0.2.1")));
+
+        assertThat(testee.getAllByName("host.domain.tld").block())
+            .containsExactly(InetAddress.getByAddress("host.domain.tld", new byte[] {(byte) 192, 0, 2, 1}));
+    }
+
+    @Test
+    void getAllByNameShouldNotQueryIPLiterals() {
+        assertThat(testee.getAllByName("192.0.2.1.").block())
+            .hasSize(1);
+        assertThat(server.queryCount.get()).isZero();
+    }
+
+    @Test
+    void getAllByNameShouldFailWhenUnknownHost() {
+        assertThatThrownBy(() -> testee.getAllByName("unknown.domain.tld").block())
+            .hasCauseInstanceOf(UnknownHostException.class);
+    }
+
+    @Test
+    void answersShouldBeServedFromTheCache() throws Exception {
+        server.add(new ARecord(Name.fromString("host.domain.tld."), DClass.IN, TTL, InetAddress.getByName("192.0.2.1")));
+
+        testee.getAllByName("host.domain.tld").block();
+        testee.getAllByName("host.domain.tld").block();
+
+        assertThat(server.queryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void negativeAnswersShouldBeServedFromTheCache() {
+        testee.findTXTRecords("unknown.domain.tld").block();
+        testee.findTXTRecords("unknown.domain.tld").block();
+
+        assertThat(server.queryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentIdenticalQueriesShouldBeCoalesced() throws Exception {
+        server.add(new ARecord(Name.fromString("host.domain.tld."), DClass.IN, TTL, InetAddress.getByName("192.0.2.1")));
+        server.latency = Duration.ofMillis(200);
+
+        List<List<InetAddress>> results = Flux.range(0, 10)
+            .flatMap(i -> testee.getAllByName("host.domain.tld")
+                .subscribeOn(Schedulers.parallel()))
+            .collectList()
+            .block();
+
+        assertThat(results).hasSize(10);
+        assertThat(server.queryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void findListingZonesShouldReturnOnlyListingZones() throws Exception {
+        server.add(new ARecord(Name.fromString("2.0.0.127.bl.example."), DClass.IN, TTL, InetAddress.getByName("127.0.0.2")));
+
+        assertThat(testee.findListingZones("2.0.0.127", ImmutableList.of("bl.example", "clean.example"))
+                .collectList()
+                .block())
+            .containsExactly("bl.example");
+    }
+}
@@ -0,0 +1,59 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.dnsservice.api;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Exposes a {@link DNSService} as a {@link ReactiveDNSService}, so that tests can reuse their in memory
+ * {@link DNSService}.
+ */
+public class ReactiveDNSServiceAdapter implements ReactiveDNSService {
+    private final DNSService dnsService;
+
+    public ReactiveDNSServiceAdapter(DNSService dnsService) {
+        this.dnsService = dnsService;
+    }
+
+    @Override
+    public Mono<List<String>> findMXRecords(String hostname) {
+        return Mono.fromCallable(() -> ImmutableList.copyOf(dnsService.findMXRecords(hostname)));
+    }
+
+    @Override
+    public Mono<List<String>> findTXTRecords(String hostname) {
+        return Mono.fromCallable(() -> ImmutableList.copyOf(dnsService.findTXTRecords(hostname)));
+    }
+
+    @Override
+    public Mono<List<InetAddress>> getAllByName(String host) {
+        return Mono.fromCallable(() -> ImmutableList.copyOf(dnsService.getAllByName(host)));
+    }
+
+    @Override
+    public Mono<String> getHostName(InetAddress addr) {
+        return Mono.fromCallable(() -> dnsService.getHostName(addr));
+    }
+}
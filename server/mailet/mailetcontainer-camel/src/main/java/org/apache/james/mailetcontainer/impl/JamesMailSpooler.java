@@ -37,6 +37,7 @@ import org.apache.james.lifecycle.api.Disposable;
 import org.apache.james.lifecycle.api.LifecycleUtil;
 import org.apache.james.mailetcontainer.api.MailProcessor;
 import org.apache.james.mailetcontainer.api.jmx.MailSpoolerMBean;
+import org.apache.james.mailetcontainer.lib.ReactiveMailProcessor;
 import org.apache.james.mailrepository.api.MailRepository;
 import org.apache.james.mailrepository.api.MailRepositoryPath;
 import org.apache.james.mailrepository.api.MailRepositoryStore;
@@ -106,24 +107,27 @@ public class JamesMailSpooler implements Disposable, Configurable, MailSpoolerMB
             return Mono
                 .using(
                     queueItem::getMail,
-                    mail -> Mono.fromRunnable(() -> performProcessMail(queueItem, mail)),
+                    mail -> performProcessMail(queueItem, mail),
                     LifecycleUtil::dispose);
         }
 
-        private void performProcessMail(MailQueueItem queueItem, Mail mail) {
-            LOGGER.debug("==== Begin processing mail {} ====", mail.getName());
-            try {
-                mailProcessor.service(mail);
-
-                if (Thread.currentThread().isInterrupted()) {
-                    throw new InterruptedException("Thread has been interrupted");
-                }
-                queueItem.done(true);
-            } catch (Exception e) {
-                handleError(queueItem, mail, e);
-            } finally {
-                LOGGER.debug("==== End processing mail {} ====", mail.getName());
-            }
+        /**
+         * The mail processor is not blocked on when it is a {@link ReactiveMailProcessor}: the spooled mail is then
+         * acknowledged once processed, without holding a thread in the meantime.
+         */
+        private Mono<Void> performProcessMail(MailQueueItem queueItem, Mail mail) {
+            return Mono.fromRunnable(() -> LOGGER.debug("==== Begin processing mail {} ====", mail.getName()))
+                .then(ReactiveMailProcessor.serviceReactive(mailProcessor, mail))
+                .then(Mono.fromCallable(() -> {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("Thread has been interrupted");
+                    }
+                    queueItem.done(true);
+                    return mail;
+                }))
+                .then()
+                .onErrorResume(Exception.class, e -> Mono.fromRunnable(() -> handleError(queueItem, mail, e)))
+                .doFinally(signal -> LOGGER.debug("==== End processing mail {} ====", mail.getName()));
         }
 
         private void handleError(MailQueueItem queueItem, Mail mail, Exception processingException) {
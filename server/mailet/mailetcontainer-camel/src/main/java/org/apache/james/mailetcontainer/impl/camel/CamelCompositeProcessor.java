@@ -30,6 +30,7 @@ import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.mailetcontainer.api.MailProcessor;
 import org.apache.james.mailetcontainer.api.MailetLoader;
 import org.apache.james.mailetcontainer.api.MatcherLoader;
+import org.apache.james.mailetcontainer.impl.reactive.ReactiveMailetProcessor;
 import org.apache.james.mailetcontainer.lib.AbstractStateCompositeProcessor;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.mailet.Mail;
@@ -41,6 +42,9 @@ import org.apache.mailet.MailetContext;
  * 
  * It also offer the {@link AbstractStateCompositeProcessor} implementation
  * which allow to inject {@link Mail} into the routes.
+ *
+ * Processors declared with <code>reactive="true"</code> are served by a {@link ReactiveMailetProcessor}
+ * instead of Camel routes.
  */
 public class CamelCompositeProcessor extends AbstractStateCompositeProcessor implements CamelContextAware {
 
@@ -88,6 +92,9 @@ public class CamelCompositeProcessor extends AbstractStateCompositeProcessor imp
 
     @Override
     protected MailProcessor createMailProcessor(String name, HierarchicalConfiguration<ImmutableNode> config) throws Exception {
+        if (config.getBoolean("[@reactive]", false)) {
+            return createReactiveMailProcessor(config);
+        }
         CamelMailetProcessor processor = new CamelMailetProcessor(metricFactory);
         try {
             processor.setCamelContext(camelContext);
@@ -105,4 +112,21 @@ public class CamelCompositeProcessor extends AbstractStateCompositeProcessor imp
         }
     }
 
+    private MailProcessor createReactiveMailProcessor(HierarchicalConfiguration<ImmutableNode> config) throws Exception {
+        ReactiveMailetProcessor processor = new ReactiveMailetProcessor(metricFactory);
+        try {
+            processor.setMailetContext(mailetContext);
+            processor.setMailetLoader(mailetLoader);
+            processor.setMatcherLoader(matcherLoader);
+            processor.configure(config);
+            processor.setRootMailProcessor(this);
+            processor.init();
+            return processor;
+        } catch (Exception e) {
+            processor.destroy();
+
+            throw e;
+        }
+    }
+
 }
@@ -26,6 +26,7 @@ import java.util.Locale;
 
 import org.apache.james.mailetcontainer.impl.MailetConfigImpl;
 import org.apache.james.mailetcontainer.impl.ProcessorUtil;
+import org.apache.james.mailetcontainer.lib.AbstractStateMailetProcessor;
 import org.apache.james.mailetcontainer.lib.AbstractStateMailetProcessor.MailetProcessorListener;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.metrics.api.TimeMetric;
@@ -47,9 +48,9 @@ public class CamelProcessor {
 
     private final MetricFactory metricFactory;
     private final Mailet mailet;
-    private final CamelMailetProcessor processor;
+    private final AbstractStateMailetProcessor processor;
 
-    public CamelProcessor(MetricFactory metricFactory, CamelMailetProcessor processor, Mailet mailet) {
+    public CamelProcessor(MetricFactory metricFactory, AbstractStateMailetProcessor processor, Mailet mailet) {
         this.metricFactory = metricFactory;
         this.processor = processor;
         this.mailet = mailet;
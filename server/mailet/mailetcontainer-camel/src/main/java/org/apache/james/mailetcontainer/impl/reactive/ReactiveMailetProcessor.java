@@ -0,0 +1,307 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailetcontainer.impl.reactive;
+
+import static org.apache.james.metrics.api.TimeMetric.ExecutionResult.DEFAULT_100_MS_THRESHOLD;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import javax.mail.MessagingException;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.lifecycle.api.LifecycleUtil;
+import org.apache.james.mailetcontainer.impl.MailetConfigImpl;
+import org.apache.james.mailetcontainer.impl.MatcherMailetPair;
+import org.apache.james.mailetcontainer.impl.camel.CamelProcessor;
+import org.apache.james.mailetcontainer.impl.camel.MatcherSplitter;
+import org.apache.james.mailetcontainer.lib.AbstractStateMailetProcessor;
+import org.apache.james.mailetcontainer.lib.ReactiveMailProcessor;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+import org.apache.mailet.Mail;
+import org.apache.mailet.Mailet;
+import org.apache.mailet.MailetConfig;
+import org.apache.mailet.Matcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * {@link AbstractStateMailetProcessor} implementation which does not rely on Camel for the {@link Matcher} /
+ * {@link Mailet} routing.
+ *
+ * Each processor runs on its own bounded scheduler, which caps the count of mails concurrently handled by this
+ * processor (<code>concurrency</code> attribute) and the count of mails waiting for it (<code>queueSize</code>
+ * attribute). Mailets flagged with <code>isolated="true"</code> are executed on a dedicated scheduler so that
+ * blocking mailets do not hold the threads of the processor. Processing moves back to the processor scheduler once
+ * such a mailet had been executed.
+ *
+ * A saturated scheduler rejects new tasks: moving to it is then retried with a backoff rather than failing the mail,
+ * which slows the spooler intake down until capacity is available again.
+ *
+ * For each matcher / mailet pair, the matcher is first evaluated for all the mails currently in the processor (the
+ * processed mail and the mails split out of it), then the mailet is executed on the matched ones.
+ *
+ * Mails leaving the processor are handed over reactively, so that the spooler does not hold a thread per mail while
+ * it is processed.
+ */
+public class ReactiveMailetProcessor extends AbstractStateMailetProcessor implements ReactiveMailProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveMailetProcessor.class);
+
+    public static final String PROCESSOR_METRIC_PREFIX = "mailetProcessor-";
+    public static final String BACKLOG_METRIC_PREFIX = "mailetProcessorBacklog-";
+    private static final Duration REJECTION_FIRST_BACKOFF = Duration.ofMillis(10);
+    private static final Duration REJECTION_MAX_BACKOFF = Duration.ofSeconds(1);
+
+    private static class Stage {
+        static Stage of(Mail mail) {
+            return new Stage(ImmutableList.of(mail), ImmutableList.of());
+        }
+
+        private final List<Mail> inProcessor;
+        private final List<Mail> leaving;
+
+        private Stage(List<Mail> inProcessor, List<Mail> leaving) {
+            this.inProcessor = inProcessor;
+            this.leaving = leaving;
+        }
+    }
+
+    private class Step {
+        private final MatcherSplitter matcherSplitter;
+        private final CamelProcessor mailetProcessor;
+        private final Optional<Scheduler> isolatedScheduler;
+
+        private Step(MatcherMailetPair pair, Optional<Scheduler> isolatedScheduler) {
+            this.matcherSplitter = new MatcherSplitter(metricFactory, ReactiveMailetProcessor.this, pair);
+            this.mailetProcessor = new CamelProcessor(metricFactory, ReactiveMailetProcessor.this, pair.getMailet());
+            this.isolatedScheduler = isolatedScheduler;
+        }
+
+        Mono<Stage> apply(Stage stage) {
+            return Flux.fromIterable(stage.inProcessor)
+                .concatMap(mail -> Mono.fromCallable(() -> matcherSplitter.split(mail))
+                    .flatMapIterable(Function.identity()))
+                .collectList()
+                .flatMap(mails -> Flux.fromIterable(mails)
+                    .concatMap(this::serviceIfMatched)
+                    .then(Mono.fromCallable(() -> route(stage, mails))));
+        }
+
+        private Mono<Void> serviceIfMatched(Mail mail) {
+            boolean isMatched = mail.removeAttribute(MatcherSplitter.MATCHER_MATCHED_ATTRIBUTE).isPresent();
+            if (!isMatched) {
+                return Mono.empty();
+            }
+            Mono<Void> service = Mono.fromRunnable(() -> {
+                try {
+                    mailetProcessor.process(mail);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            return isolatedScheduler
+                .map(isolated -> switchTo(isolated)
+                    .then(service)
+                    .then(switchTo(scheduler)))
+                .orElse(service);
+        }
+    }
+
+    private final MetricFactory metricFactory;
+    private int concurrency;
+    private int queueSize;
+    private Metric backlogMetric;
+    private Scheduler scheduler;
+    private List<Scheduler> isolatedSchedulers = ImmutableList.of();
+    private List<Step> steps = ImmutableList.of();
+    private CamelProcessor terminatingMailetProcessor;
+
+    public ReactiveMailetProcessor(MetricFactory metricFactory) {
+        this.metricFactory = metricFactory;
+    }
+
+    @Override
+    public void configure(HierarchicalConfiguration<ImmutableNode> config) throws ConfigurationException {
+        super.configure(config);
+        this.concurrency = config.getInt("[@concurrency]", Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE);
+        this.queueSize = config.getInt("[@queueSize]", Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE);
+        if (concurrency < 1) {
+            throw new ConfigurationException("Processor concurrency must be strictly positive");
+        }
+        if (queueSize < 1) {
+            throw new ConfigurationException("Processor queueSize must be strictly positive");
+        }
+    }
+
+    /**
+     * Blocking bridge for callers not aware of {@link ReactiveMailProcessor}.
+     */
+    @Override
+    public void service(Mail mail) throws MessagingException {
+        try {
+            serviceReactive(mail).block();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof MessagingException) {
+                throw (MessagingException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Mono<Void> serviceReactive(Mail mail) {
+        return process(mail)
+            .onErrorMap(RuntimeException.class, e -> new MessagingException("Unable to process mail " + mail.getName(), e))
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(this::toProcessorReactive)
+            .then();
+    }
+
+    /**
+     * Run the mail through this processor.
+     *
+     * @return the mails that need to be handed over to another processor
+     */
+    public Mono<List<Mail>> process(Mail mail) {
+        return Mono.defer(() -> {
+            TimeMetric timeMetric = metricFactory.timer(PROCESSOR_METRIC_PREFIX + getState());
+            backlogMetric.increment();
+            return switchTo(scheduler)
+                .then(runSteps(mail))
+                .doFinally(signal -> {
+                    backlogMetric.decrement();
+                    timeMetric.stopAndPublish().logWhenExceedP99(DEFAULT_100_MS_THRESHOLD);
+                });
+        });
+    }
+
+    private Mono<List<Mail>> runSteps(Mail mail) {
+        Mono<Stage> result = Mono.just(Stage.of(mail));
+        for (Step step : steps) {
+            result = result.flatMap(step::apply);
+        }
+        return result.map(this::terminate);
+    }
+
+    /**
+     * Completes on a thread of the given scheduler. Only this switch is retried when the scheduler is saturated, so that
+     * mailets already executed are not executed again.
+     */
+    private Mono<Void> switchTo(Scheduler target) {
+        return Mono.<Void>empty()
+            .publishOn(target)
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, REJECTION_FIRST_BACKOFF)
+                .maxBackoff(REJECTION_MAX_BACKOFF)
+                .filter(e -> e instanceof RejectedExecutionException && !target.isDisposed()));
+    }
+
+    private Stage route(Stage stage, List<Mail> mails) {
+        ImmutableList.Builder<Mail> inProcessor = ImmutableList.builder();
+        ImmutableList.Builder<Mail> leaving = ImmutableList.<Mail>builder().addAll(stage.leaving);
+        for (Mail mail : mails) {
+            if (mail.getState().equals(Mail.GHOST)) {
+                dispose(mail);
+            } else if (mail.getState().equals(getState())) {
+                inProcessor.add(mail);
+            } else {
+                leaving.add(mail);
+            }
+        }
+        return new Stage(inProcessor.build(), leaving.build());
+    }
+
+    private List<Mail> terminate(Stage stage) {
+        ImmutableList.Builder<Mail> leaving = ImmutableList.<Mail>builder().addAll(stage.leaving);
+        for (Mail mail : stage.inProcessor) {
+            try {
+                terminatingMailetProcessor.process(mail);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            if (mail.getState().equals(Mail.GHOST)) {
+                dispose(mail);
+            } else {
+                leaving.add(mail);
+            }
+        }
+        LOGGER.debug("End of mailetprocessor for state {} reached", getState());
+        return leaving.build();
+    }
+
+    private void dispose(Mail mail) {
+        try {
+            LifecycleUtil.dispose(mail.getMessage());
+        } catch (MessagingException e) {
+            LOGGER.debug("Unable to dispose the message of {}", mail.getName(), e);
+        }
+        LifecycleUtil.dispose(mail);
+    }
+
+    @Override
+    protected void setupRouting(List<MatcherMailetPair> pairs) {
+        this.backlogMetric = metricFactory.generate(BACKLOG_METRIC_PREFIX + getState());
+        this.scheduler = Schedulers.newBoundedElastic(concurrency, queueSize, "processor-" + getState());
+        this.terminatingMailetProcessor = new CamelProcessor(metricFactory, this, new TerminatingMailet());
+
+        ImmutableList.Builder<Scheduler> isolatedSchedulersBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Step> stepsBuilder = ImmutableList.builder();
+        for (MatcherMailetPair pair : pairs) {
+            Optional<Scheduler> isolatedScheduler = isolatedScheduler(pair.getMailet());
+            isolatedScheduler.ifPresent(isolatedSchedulersBuilder::add);
+            stepsBuilder.add(new Step(pair, isolatedScheduler));
+        }
+        this.isolatedSchedulers = isolatedSchedulersBuilder.build();
+        this.steps = stepsBuilder.build();
+    }
+
+    private Optional<Scheduler> isolatedScheduler(Mailet mailet) {
+        MailetConfig mailetConfig = mailet.getMailetConfig();
+        if (mailetConfig instanceof MailetConfigImpl
+            && Boolean.parseBoolean(mailetConfig.getInitParameter("[@isolated]"))) {
+            return Optional.of(Schedulers.newBoundedElastic(concurrency, queueSize,
+                "processor-" + getState() + "-" + mailetConfig.getMailetName()));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        isolatedSchedulers.forEach(Scheduler::dispose);
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+}
@@ -40,11 +40,13 @@ import org.apache.mailet.Mail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Abstract base class for {@link org.apache.james.mailetcontainer.impl.camel.CamelCompositeProcessor} which service the
  * {@link Mail} with a {@link org.apache.james.mailetcontainer.impl.camel.CamelProcessor} instances
  */
-public abstract class AbstractStateCompositeProcessor implements MailProcessor, Configurable {
+public abstract class AbstractStateCompositeProcessor implements ReactiveMailProcessor, Configurable {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractStateCompositeProcessor.class);
 
     private final List<CompositeProcessorListener> listeners = Collections.synchronizedList(new ArrayList<>());
@@ -71,6 +73,27 @@ public abstract class AbstractStateCompositeProcessor implements MailProcessor,
         handleWithProcessor(mail, getProcessorOrFallBackToError(mail));
     }
 
+    /**
+     * Processes the mail without blocking when its {@link MailProcessor} is a {@link ReactiveMailProcessor}
+     */
+    @Override
+    public Mono<Void> serviceReactive(Mail mail) {
+        return Mono.defer(() -> {
+            MailProcessor processor = getProcessorOrFallBackToError(mail);
+            long start = System.currentTimeMillis();
+            LOGGER.debug("Call MailProcessor {}", mail.getState());
+            return ReactiveMailProcessor.serviceReactive(processor, mail)
+                .then(Mono.fromRunnable(() -> {
+                    if (Mail.GHOST.equals(mail.getState())) {
+                        LifecycleUtil.dispose(mail);
+                    }
+                }))
+                .doOnSuccess(any -> afterProcessor(processor, mail, start, null))
+                .doOnError(e -> afterProcessor(processor, mail, start, e instanceof MessagingException ? (MessagingException) e : null))
+                .then();
+        });
+    }
+
     private MailProcessor getProcessorOrFallBackToError(Mail mail) {
         return Optional.ofNullable(getProcessor(mail.getState()))
             .orElseGet(() -> {
@@ -100,10 +123,14 @@ public abstract class AbstractStateCompositeProcessor implements MailProcessor,
             ex = e;
             throw e;
         } finally {
-            long end = System.currentTimeMillis() - start;
-            for (CompositeProcessorListener listener : listeners) {
-                listener.afterProcessor(processor, mail.getName(), end, ex);
-            }
+            afterProcessor(processor, mail, start, ex);
+        }
+    }
+
+    private void afterProcessor(MailProcessor processor, Mail mail, long start, MessagingException ex) {
+        long end = System.currentTimeMillis() - start;
+        for (CompositeProcessorListener listener : listeners) {
+            listener.afterProcessor(processor, mail.getName(), end, ex);
         }
     }
 
@@ -55,6 +55,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
 
 /**
  * Abstract base class for {@link MailProcessor} implementations which want to
@@ -151,6 +154,14 @@ public abstract class AbstractStateMailetProcessor implements MailProcessor, Con
         rootMailProcessor.service(mail);
     }
 
+    /**
+     * Hand the mail over to another processor, without blocking when the root processor is a
+     * {@link ReactiveMailProcessor}
+     */
+    protected Mono<Void> toProcessorReactive(Mail mail) {
+        return ReactiveMailProcessor.serviceReactive(rootMailProcessor, mail);
+    }
+
     protected String getState() {
         return state;
     }
@@ -164,6 +175,13 @@ public abstract class AbstractStateMailetProcessor implements MailProcessor, Con
             .collect(Guavate.toImmutableList());
     }
 
+    /**
+     * Return a unmodifiable {@link List} of the configured {@link MatcherMailetPair}'s
+     */
+    public List<MatcherMailetPair> getPairs() {
+        return ImmutableList.copyOf(pairs);
+    }
+
     /**
      * Return a unmodifiable {@link List} of the configured {@link Matcher}'s
      */
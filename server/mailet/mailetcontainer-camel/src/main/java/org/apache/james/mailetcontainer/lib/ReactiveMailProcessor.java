@@ -0,0 +1,53 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailetcontainer.lib;
+
+import org.apache.james.mailetcontainer.api.MailProcessor;
+import org.apache.mailet.Mail;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link MailProcessor} which can process a {@link Mail} without blocking the calling thread.
+ */
+public interface ReactiveMailProcessor extends MailProcessor {
+
+    /**
+     * Process the given {@link MailProcessor} reactively when it supports it, on a blocking friendly thread otherwise.
+     */
+    static Mono<Void> serviceReactive(MailProcessor processor, Mail mail) {
+        if (processor instanceof ReactiveMailProcessor) {
+            return ((ReactiveMailProcessor) processor).serviceReactive(mail);
+        }
+        return Mono.fromCallable(() -> {
+                processor.service(mail);
+                return mail;
+            })
+            .subscribeOn(Schedulers.elastic())
+            .then();
+    }
+
+    /**
+     * Reactive counterpart of {@link #service(Mail)}: completes once the mail, and the mails it was split into, had
+     * been processed. Errors are signaled as a {@link javax.mail.MessagingException}.
+     */
+    Mono<Void> serviceReactive(Mail mail);
+}
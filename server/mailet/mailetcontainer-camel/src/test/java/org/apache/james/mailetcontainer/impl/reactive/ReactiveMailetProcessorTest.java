@@ -0,0 +1,267 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailetcontainer.impl.reactive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.MessagingException;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.mailetcontainer.api.MailProcessor;
+import org.apache.james.mailetcontainer.api.mock.ExceptionThrowingMailet;
+import org.apache.james.mailetcontainer.api.mock.MockMailetLoader;
+import org.apache.james.mailetcontainer.api.mock.MockMatcher;
+import org.apache.james.mailetcontainer.api.mock.MockMatcherLoader;
+import org.apache.james.mailetcontainer.lib.AbstractStateMailetProcessor;
+import org.apache.james.mailetcontainer.lib.AbstractStateMailetProcessorTest;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.server.core.MailImpl;
+import org.apache.james.server.core.configuration.FileConfigurationProvider;
+import org.apache.james.util.MimeMessageUtil;
+import org.apache.mailet.Mail;
+import org.apache.mailet.base.GenericMailet;
+import org.apache.mailet.base.test.FakeMailContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+
+public class ReactiveMailetProcessorTest extends AbstractStateMailetProcessorTest {
+    private static final String STATE = "reactive";
+    private static final String NEXT_STATE = "next";
+
+    public static class BarrierMailet extends GenericMailet {
+        static CyclicBarrier barrier;
+
+        @Override
+        public void service(Mail mail) throws MessagingException {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new MessagingException("Mails were not processed concurrently", e);
+            }
+            mail.setState(NEXT_STATE);
+        }
+    }
+
+    public static class SlowMailet extends GenericMailet {
+        @Override
+        public void service(Mail mail) throws MessagingException {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new MessagingException("Interrupted", e);
+            }
+            mail.setState(NEXT_STATE);
+        }
+    }
+
+    public static class ThreadRecordingMailet extends GenericMailet {
+        static volatile String threadName;
+
+        @Override
+        public void service(Mail mail) {
+            threadName = Thread.currentThread().getName();
+            mail.setState(NEXT_STATE);
+        }
+    }
+
+    public static class NoopMailet extends GenericMailet {
+        @Override
+        public void service(Mail mail) {
+
+        }
+    }
+
+    public static class PoisonAwareMailet extends GenericMailet {
+        @Override
+        public void service(Mail mail) throws MessagingException {
+            if (mail.getName().startsWith("poison")) {
+                new ExceptionThrowingMailet().service(mail);
+            }
+            mail.setState(NEXT_STATE);
+        }
+    }
+
+    private RecordingMetricFactory metricFactory;
+    private MailProcessor rootProcessor;
+    private ReactiveMailetProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+        rootProcessor = mock(MailProcessor.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (processor != null) {
+            processor.destroy();
+        }
+    }
+
+    @Override
+    protected AbstractStateMailetProcessor createProcessor(HierarchicalConfiguration<ImmutableNode> configuration) throws Exception {
+        ReactiveMailetProcessor processor = new ReactiveMailetProcessor(new RecordingMetricFactory());
+        try {
+            processor.setMailetContext(FakeMailContext.defaultContext());
+            processor.setMailetLoader(new MockMailetLoader());
+            processor.setMatcherLoader(new MockMatcherLoader());
+            processor.setRootMailProcessor(mock(MailProcessor.class));
+            processor.configure(configuration);
+            processor.init();
+            return processor;
+        } catch (Exception e) {
+            processor.destroy();
+            throw e;
+        }
+    }
+
+    private ReactiveMailetProcessor createReactiveProcessor(Class<?> mailetClass, int concurrency) throws Exception {
+        return createReactiveProcessor("<processor state=\"" + STATE + "\" enableJmx=\"false\" concurrency=\"" + concurrency + "\">"
+            + "<mailet match=\"" + MockMatcher.class.getName() + "=1\" class=\"" + mailetClass.getName() + "\"/>"
+            + "</processor>");
+    }
+
+    private ReactiveMailetProcessor createReactiveProcessor(String configuration) throws Exception {
+        processor = new ReactiveMailetProcessor(metricFactory);
+        processor.setMailetContext(FakeMailContext.defaultContext());
+        processor.setMailetLoader(new MockMailetLoader());
+        processor.setMatcherLoader(new MockMatcherLoader());
+        processor.setRootMailProcessor(rootProcessor);
+        processor.configure(FileConfigurationProvider.getConfig(new ByteArrayInputStream(configuration.getBytes(UTF_8))));
+        processor.init();
+        return processor;
+    }
+
+    private MailImpl newMail(String name) throws MessagingException {
+        return MailImpl.builder()
+            .name(name)
+            .sender("test@localhost")
+            .addRecipient("test@localhost")
+            .state(STATE)
+            .mimeMessage(MimeMessageUtil.mimeMessageFromBytes("header: value\r\n".getBytes(UTF_8)))
+            .build();
+    }
+
+    @Test
+    void serviceReactiveShouldProcessMailsConcurrently() throws Exception {
+        BarrierMailet.barrier = new CyclicBarrier(2);
+        createReactiveProcessor(BarrierMailet.class, 2);
+        MailImpl mail1 = newMail("mail1");
+        MailImpl mail2 = newMail("mail2");
+
+        Flux.just(mail1, mail2)
+            .flatMap(processor::serviceReactive)
+            .then()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(mail1.getState()).isEqualTo(NEXT_STATE);
+        assertThat(mail2.getState()).isEqualTo(NEXT_STATE);
+    }
+
+    @Test
+    void saturatedProcessorShouldDelayMailsRatherThanFailingThem() throws Exception {
+        createReactiveProcessor("<processor state=\"" + STATE + "\" enableJmx=\"false\" concurrency=\"1\" queueSize=\"1\">"
+            + "<mailet match=\"" + MockMatcher.class.getName() + "=1\" class=\"" + SlowMailet.class.getName() + "\"/>"
+            + "</processor>");
+        List<MailImpl> mails = ImmutableList.of(newMail("mail1"), newMail("mail2"), newMail("mail3"), newMail("mail4"), newMail("mail5"));
+
+        Flux.fromIterable(mails)
+            .flatMap(processor::serviceReactive)
+            .then()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(mails)
+            .extracting(Mail::getState)
+            .containsOnly(NEXT_STATE);
+    }
+
+    @Test
+    void mailetsFollowingAnIsolatedMailetShouldRunOnTheProcessorScheduler() throws Exception {
+        createReactiveProcessor("<processor state=\"" + STATE + "\" enableJmx=\"false\" concurrency=\"2\">"
+            + "<mailet match=\"" + MockMatcher.class.getName() + "=1\" class=\"" + NoopMailet.class.getName() + "\" isolated=\"true\"/>"
+            + "<mailet match=\"" + MockMatcher.class.getName() + "=1\" class=\"" + ThreadRecordingMailet.class.getName() + "\"/>"
+            + "</processor>");
+
+        processor.serviceReactive(newMail("mail1")).block(Duration.ofSeconds(30));
+
+        assertThat(ThreadRecordingMailet.threadName).matches("processor-" + STATE + "-\\d+");
+    }
+
+    @Test
+    void mailetFailuresShouldOnlyAffectTheFailingMail() throws Exception {
+        createReactiveProcessor(PoisonAwareMailet.class, 2);
+        MailImpl poison = newMail("poison");
+        MailImpl healthy = newMail("healthy");
+
+        Flux.just(poison, healthy)
+            .flatMap(processor::serviceReactive)
+            .then()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(poison.getState()).isEqualTo(Mail.ERROR);
+        assertThat(healthy.getState()).isEqualTo(NEXT_STATE);
+    }
+
+    @Test
+    void handOverFailuresShouldOnlyFailTheFailingMail() throws Exception {
+        createReactiveProcessor(PoisonAwareMailet.class, 2);
+        doThrow(new MessagingException()).when(rootProcessor).service(argThat(mail -> mail.getName().equals("poison-handover")));
+        MailImpl failing = newMail("poison-handover");
+        MailImpl healthy = newMail("healthy");
+
+        assertThatThrownBy(() -> processor.serviceReactive(failing).block(Duration.ofSeconds(30)))
+            .hasCauseInstanceOf(MessagingException.class);
+        processor.serviceReactive(healthy).block(Duration.ofSeconds(30));
+
+        assertThat(healthy.getState()).isEqualTo(NEXT_STATE);
+    }
+
+    @Test
+    void serviceReactiveShouldRecordProcessingMetrics() throws Exception {
+        createReactiveProcessor(PoisonAwareMailet.class, 2);
+
+        Flux.just(newMail("mail1"), newMail("mail2"))
+            .flatMap(processor::serviceReactive)
+            .then()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(metricFactory.executionTimesFor(ReactiveMailetProcessor.PROCESSOR_METRIC_PREFIX + STATE))
+            .hasSize(2);
+        assertThat(metricFactory.countFor(ReactiveMailetProcessor.BACKLOG_METRIC_PREFIX + STATE))
+            .isZero();
+    }
+}
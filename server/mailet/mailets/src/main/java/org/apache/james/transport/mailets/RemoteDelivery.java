@@ -81,6 +81,9 @@ import com.google.common.collect.HashMultimap;
  * Default is 0.
  * <li><b>timeout</b> (optional) - an Integer for the Socket I/O timeout in milliseconds. Default is 180000</li>
  * <li><b>connectionTimeout</b> (optional) - an Integer for the Socket connection timeout in milliseconds. Default is 60000</li>
+ * <li><b>connectionPoolSize</b> (optional) - an Integer for the maximum count of idle SMTP connections kept open per remote
+ * host, and reused for subsequent deliveries to that host. Default is 0, meaning connections are not reused.</li>
+ * <li><b>connectionPoolIdleTimeout</b> (optional) - a Duration after which idle pooled connections are closed. Default is 30 seconds.</li>
  * <li><b>bounceProcessor</b> (optional) - a String containing the name of the mailet processor to pass messages that cannot
  * be delivered to for DSN bounce processing. Default is to send a traditional message containing the bounce details.</li>
  * <li><b>startTLS</b> (optional) - a Boolean (true/false) indicating whether the STARTTLS command (if supported by the server)
@@ -69,7 +69,7 @@ public class DeliveryRunnable implements Disposable {
     public DeliveryRunnable(MailQueue queue, RemoteDeliveryConfiguration configuration, DNSService dnsServer, MetricFactory metricFactory,
                             MailetContext mailetContext, Bouncer bouncer) {
         this(queue, configuration, metricFactory, bouncer,
-            new MailDelivrer(configuration, new MailDelivrerToHost(configuration, mailetContext), dnsServer, bouncer),
+            new MailDelivrer(configuration, new MailDelivrerToHost(configuration, mailetContext, metricFactory), dnsServer, bouncer),
             CURRENT_DATE_SUPPLIER);
     }
 
@@ -194,5 +194,6 @@ public class DeliveryRunnable implements Disposable {
     public void dispose() {
         disposable.dispose();
         remoteDeliveryScheduler.dispose();
+        mailDelivrer.dispose();
     }
 }
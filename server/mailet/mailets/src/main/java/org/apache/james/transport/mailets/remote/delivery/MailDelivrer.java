@@ -48,8 +48,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
+import reactor.core.Disposable;
+
 @SuppressWarnings("deprecation")
-public class MailDelivrer {
+public class MailDelivrer implements Disposable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MailDelivrer.class);
 
     private final RemoteDeliveryConfiguration configuration;
@@ -71,6 +73,11 @@ public class MailDelivrer {
         this.bouncer = bouncer;
     }
 
+    @Override
+    public void dispose() {
+        mailDelivrerToHost.dispose();
+    }
+
     /**
      * We can assume that the recipients of this message are all going to the same mail server. We will now rely on the
      * DNS server to do DNS MX record lookup and try to deliver to the multiple mail servers. If it fails, it should
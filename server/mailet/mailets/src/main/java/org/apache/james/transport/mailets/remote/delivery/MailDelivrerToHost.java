@@ -40,6 +40,8 @@ import javax.mail.internet.MimeMessage;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
 import org.apache.mailet.DsnParameters;
 import org.apache.mailet.HostAddress;
 import org.apache.mailet.Mail;
@@ -53,19 +55,30 @@ import com.github.steveash.guavate.Guavate;
 import com.sun.mail.smtp.SMTPMessage;
 import com.sun.mail.smtp.SMTPTransport;
 
+import reactor.core.Disposable;
+
 @SuppressWarnings("deprecation")
-public class MailDelivrerToHost {
+public class MailDelivrerToHost implements Disposable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MailDelivrerToHost.class);
     public static final String BIT_MIME_8 = "8BITMIME";
+    public static final String DELIVERY_TO_HOST_PREFIX = "remoteDeliveryToHost-";
+    public static final String CONNECTION_OPENED_PREFIX = "remoteDeliveryConnectionOpened-";
+    public static final String CONNECTION_REUSED_PREFIX = "remoteDeliveryConnectionReused-";
 
     private final RemoteDeliveryConfiguration configuration;
     private final Converter7Bit converter7Bit;
     private final Session session;
+    private final MetricFactory metricFactory;
+    private final Optional<SMTPTransportPool> transportPool;
 
-    public MailDelivrerToHost(RemoteDeliveryConfiguration remoteDeliveryConfiguration, MailetContext mailetContext) {
+    public MailDelivrerToHost(RemoteDeliveryConfiguration remoteDeliveryConfiguration, MailetContext mailetContext, MetricFactory metricFactory) {
         this.configuration = remoteDeliveryConfiguration;
         this.converter7Bit = new Converter7Bit(mailetContext);
         this.session = Session.getInstance(configuration.createFinalJavaxProperties());
+        this.metricFactory = metricFactory;
+        this.transportPool = Optional.of(configuration.getConnectionPoolSize())
+            .filter(poolSize -> poolSize > 0)
+            .map(poolSize -> new SMTPTransportPool(poolSize, configuration.getConnectionPoolIdleTimeout()));
     }
 
     public ExecutionResult tryDeliveryToHost(Mail mail, Collection<InternetAddress> addr, HostAddress outgoingMailServer) throws MessagingException {
@@ -79,11 +92,20 @@ public class MailDelivrerToHost {
         // "mail.smtp.dsn.ret"        //default to nothing... appended as RET= after MAIL FROM line.
         // "mail.smtp.dsn.notify"     //default to nothing... appended as NOTIFY= after RCPT TO line.
 
+        TimeMetric timeMetric = metricFactory.timer(DELIVERY_TO_HOST_PREFIX + outgoingMailServer.getHostName());
         SMTPTransport transport = null;
+        boolean transactionCompleted = false;
         try {
-            transport = (SMTPTransport) session.getTransport(outgoingMailServer);
-            transport.setLocalHost(props.getProperty("mail.smtp.localhost", configuration.getHeloNameProvider().getHeloName()));
-            connect(outgoingMailServer, transport);
+            Optional<SMTPTransport> pooledTransport = transportPool.flatMap(pool -> pool.borrow(outgoingMailServer));
+            if (pooledTransport.isPresent()) {
+                transport = pooledTransport.get();
+                metricFactory.generate(CONNECTION_REUSED_PREFIX + outgoingMailServer.getHostName()).increment();
+            } else {
+                transport = (SMTPTransport) session.getTransport(outgoingMailServer);
+                transport.setLocalHost(props.getProperty("mail.smtp.localhost", configuration.getHeloNameProvider().getHeloName()));
+                connect(outgoingMailServer, transport);
+                metricFactory.generate(CONNECTION_OPENED_PREFIX + outgoingMailServer.getHostName()).increment();
+            }
             if (mail.dsnParameters().isPresent()) {
                 sendDSNAwareEmail(mail, transport, addr);
             } else {
@@ -91,12 +113,19 @@ public class MailDelivrerToHost {
             }
             LOGGER.debug("Mail ({})  sent successfully to {} at {} from {} for {}", mail.getName(), outgoingMailServer.getHostName(),
                 outgoingMailServer.getHost(), props.get("mail.smtp.from"), mail.getRecipients());
+            transactionCompleted = true;
         } finally {
-            closeTransport(mail, outgoingMailServer, transport);
+            releaseTransport(mail, outgoingMailServer, transport, transactionCompleted);
+            timeMetric.stopAndPublish();
         }
         return ExecutionResult.success();
     }
 
+    @Override
+    public void dispose() {
+        transportPool.ifPresent(SMTPTransportPool::close);
+    }
+
     private void sendDSNAwareEmail(Mail mail, SMTPTransport transport, Collection<InternetAddress> addresses) {
         addresses.stream()
             .map(address -> Pair.of(
@@ -199,6 +228,15 @@ public class MailDelivrerToHost {
         // to 7bit. Javamail api doesn't perform that conversion, but it is required to be a rfc-compliant smtp server.
     }
 
+    private void releaseTransport(Mail mail, HostAddress outgoingMailServer, SMTPTransport transport, boolean transactionCompleted) {
+        // Only connections whose last mail transaction completed are in a known state allowing reuse
+        if (transport != null && transactionCompleted && transportPool.isPresent()) {
+            transportPool.get().release(outgoingMailServer, transport);
+        } else {
+            closeTransport(mail, outgoingMailServer, transport);
+        }
+    }
+
     private void closeTransport(Mail mail, HostAddress outgoingMailServer, SMTPTransport transport) {
         if (transport != null) {
             try {
@@ -20,6 +20,7 @@
 package org.apache.james.transport.mailets.remote.delivery;
 
 import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -28,12 +29,14 @@ import java.util.Properties;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.domainlist.api.DomainList;
 import org.apache.james.queue.api.MailQueueName;
+import org.apache.james.util.DurationParser;
 import org.apache.mailet.MailetConfig;
 import org.apache.mailet.base.MailetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.steveash.guavate.Guavate;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -62,12 +65,16 @@ public class RemoteDeliveryConfiguration {
     public static final String MAX_RETRIES = "maxRetries";
     public static final String DELAY_TIME = "delayTime";
     public static final String DEBUG = "debug";
+    public static final String CONNECTION_POOL_SIZE = "connectionPoolSize";
+    public static final String CONNECTION_POOL_IDLE_TIMEOUT = "connectionPoolIdleTimeout";
     public static final int DEFAULT_SMTP_TIMEOUT = 180000;
     public static final MailQueueName DEFAULT_OUTGOING_QUEUE_NAME = MailQueueName.of("outgoing");
     public static final int DEFAULT_CONNECTION_TIMEOUT = 60000;
     public static final int DEFAULT_DNS_RETRY_PROBLEM = 0;
     public static final int DEFAULT_MAX_RETRY = 5;
     public static final String ADDRESS_PORT_SEPARATOR = ":";
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 0;
+    public static final Duration DEFAULT_CONNECTION_POOL_IDLE_TIMEOUT = Duration.ofSeconds(30);
 
     private final boolean isDebug;
     private final boolean usePriority;
@@ -79,6 +86,8 @@ public class RemoteDeliveryConfiguration {
     private final long smtpTimeout;
     private final int dnsProblemRetry;
     private final int connectionTimeout;
+    private final int connectionPoolSize;
+    private final Duration connectionPoolIdleTimeout;
     private final List<Duration> delayTimes;
     private final HeloNameProvider heloNameProvider;
     private final MailQueueName outGoingQueueName;
@@ -106,6 +115,8 @@ public class RemoteDeliveryConfiguration {
         delayTimes = delaysAndMaxRetry.getExpandedDelays();
         smtpTimeout = computeSmtpTimeout(mailetConfig);
         connectionTimeout = computeConnectionTimeout(mailetConfig);
+        connectionPoolSize = computeConnectionPoolSize(mailetConfig);
+        connectionPoolIdleTimeout = computeConnectionPoolIdleTimeout(mailetConfig);
         dnsProblemRetry = computeDnsProblemRetry(mailetConfig);
         heloNameProvider = new HeloNameProvider(mailetConfig.getInitParameter(HELO_NAME), domainList);
 
@@ -155,6 +166,30 @@ public class RemoteDeliveryConfiguration {
         }
     }
 
+    private int computeConnectionPoolSize(MailetConfig mailetConfig) {
+        try {
+            int poolSize = Optional.ofNullable(mailetConfig.getInitParameter(CONNECTION_POOL_SIZE))
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_CONNECTION_POOL_SIZE);
+            Preconditions.checkArgument(poolSize >= 0, "'%s' needs to be positive", CONNECTION_POOL_SIZE);
+            return poolSize;
+        } catch (Exception e) {
+            LOGGER.warn("Invalid connection pool size setting: {}", mailetConfig.getInitParameter(CONNECTION_POOL_SIZE));
+            return DEFAULT_CONNECTION_POOL_SIZE;
+        }
+    }
+
+    private Duration computeConnectionPoolIdleTimeout(MailetConfig mailetConfig) {
+        try {
+            return Optional.ofNullable(mailetConfig.getInitParameter(CONNECTION_POOL_IDLE_TIMEOUT))
+                .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+                .orElse(DEFAULT_CONNECTION_POOL_IDLE_TIMEOUT);
+        } catch (Exception e) {
+            LOGGER.warn("Invalid connection pool idle timeout setting: {}", mailetConfig.getInitParameter(CONNECTION_POOL_IDLE_TIMEOUT));
+            return DEFAULT_CONNECTION_POOL_IDLE_TIMEOUT;
+        }
+    }
+
     private long computeSmtpTimeout(MailetConfig mailetConfig) {
         try {
             if (mailetConfig.getInitParameter(TIMEOUT) != null) {
@@ -260,6 +295,17 @@ public class RemoteDeliveryConfiguration {
         return connectionTimeout;
     }
 
+    /**
+     * Maximum count of idle SMTP connections kept open per remote host. 0 disables connection pooling.
+     */
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    public Duration getConnectionPoolIdleTimeout() {
+        return connectionPoolIdleTimeout;
+    }
+
     public Collection<String> getGatewayServer() {
         return gatewayServer;
     }
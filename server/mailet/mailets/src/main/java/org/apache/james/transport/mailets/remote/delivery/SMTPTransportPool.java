@@ -0,0 +1,160 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.remote.delivery;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import javax.mail.MessagingException;
+
+import org.apache.mailet.HostAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sun.mail.smtp.SMTPTransport;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Keeps connected {@link SMTPTransport} idle between deliveries so that subsequent mails to the same remote host
+ * do not pay again for the TCP, TLS and authentication handshakes.
+ *
+ * At most <code>maxIdlePerHost</code> connections are kept per host. Connections idle for longer than the idle
+ * timeout are closed, and liveness of the other ones is checked (NOOP) before they are handed over.
+ */
+@SuppressWarnings("deprecation")
+public class SMTPTransportPool implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SMTPTransportPool.class);
+
+    private static class IdleTransport {
+        private final SMTPTransport transport;
+        private final Instant idleSince;
+
+        IdleTransport(SMTPTransport transport, Instant idleSince) {
+            this.transport = transport;
+            this.idleSince = idleSince;
+        }
+    }
+
+    private final int maxIdlePerHost;
+    private final Duration idleTimeout;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Deque<IdleTransport>> idleTransports;
+    private final Disposable evictionTask;
+
+    public SMTPTransportPool(int maxIdlePerHost, Duration idleTimeout) {
+        this(maxIdlePerHost, idleTimeout, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    SMTPTransportPool(int maxIdlePerHost, Duration idleTimeout, Clock clock) {
+        this.maxIdlePerHost = maxIdlePerHost;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+        this.idleTransports = new ConcurrentHashMap<>();
+        this.evictionTask = Flux.interval(idleTimeout)
+            .subscribe(any -> evictIdleTransports());
+    }
+
+    /**
+     * Return a connected transport to the given host, if one is available.
+     */
+    public Optional<SMTPTransport> borrow(HostAddress host) {
+        Deque<IdleTransport> transports = idleTransports.get(key(host));
+        if (transports == null) {
+            return Optional.empty();
+        }
+        IdleTransport idleTransport;
+        while ((idleTransport = transports.pollFirst()) != null) {
+            if (isExpired(idleTransport) || !idleTransport.transport.isConnected()) {
+                close(idleTransport.transport);
+            } else {
+                return Optional.of(idleTransport.transport);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Give back a transport which completed its mail transaction. It is closed if the pool for this host is full.
+     */
+    public void release(HostAddress host, SMTPTransport transport) {
+        Deque<IdleTransport> transports = idleTransports.computeIfAbsent(key(host), any -> new ConcurrentLinkedDeque<>());
+        if (transports.size() < maxIdlePerHost) {
+            transports.offerFirst(new IdleTransport(transport, clock.instant()));
+        } else {
+            close(transport);
+        }
+    }
+
+    @VisibleForTesting
+    void evictIdleTransports() {
+        idleTransports.values()
+            .forEach(transports -> transports.removeIf(idleTransport -> {
+                if (isExpired(idleTransport)) {
+                    close(idleTransport.transport);
+                    return true;
+                }
+                return false;
+            }));
+    }
+
+    @VisibleForTesting
+    int idleCount(HostAddress host) {
+        return Optional.ofNullable(idleTransports.get(key(host)))
+            .map(Deque::size)
+            .orElse(0);
+    }
+
+    @Override
+    public void close() {
+        evictionTask.dispose();
+        idleTransports.values()
+            .forEach(transports -> {
+                IdleTransport idleTransport;
+                while ((idleTransport = transports.pollFirst()) != null) {
+                    close(idleTransport.transport);
+                }
+            });
+    }
+
+    private boolean isExpired(IdleTransport idleTransport) {
+        return idleTransport.idleSince.plus(idleTimeout).isBefore(clock.instant());
+    }
+
+    private String key(HostAddress host) {
+        return host.getHostName() + "/" + host.getHost() + ":" + host.getPort();
+    }
+
+    private void close(SMTPTransport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            LOGGER.debug("Failed closing idle SMTP transport", e);
+        }
+    }
+}
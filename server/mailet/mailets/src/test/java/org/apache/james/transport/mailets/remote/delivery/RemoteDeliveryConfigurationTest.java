@@ -822,4 +822,62 @@ public class RemoteDeliveryConfigurationTest {
                 MapEntry.entry("mail.smtp.starttls.enable", "true"),
                 MapEntry.entry("mail.smtp.auth", "true"));
     }
+
+    @Test
+    void getConnectionPoolSizeShouldReturnDefault() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionPoolSize())
+            .isEqualTo(RemoteDeliveryConfiguration.DEFAULT_CONNECTION_POOL_SIZE);
+    }
+
+    @Test
+    void getConnectionPoolSizeShouldReturnProvidedValue() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_POOL_SIZE, "4")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionPoolSize())
+            .isEqualTo(4);
+    }
+
+    @Test
+    void getConnectionPoolSizeShouldReturnDefaultWhenNegative() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_POOL_SIZE, "-1")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionPoolSize())
+            .isEqualTo(RemoteDeliveryConfiguration.DEFAULT_CONNECTION_POOL_SIZE);
+    }
+
+    @Test
+    void getConnectionPoolIdleTimeoutShouldReturnDefault() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionPoolIdleTimeout())
+            .isEqualTo(RemoteDeliveryConfiguration.DEFAULT_CONNECTION_POOL_IDLE_TIMEOUT);
+    }
+
+    @Test
+    void getConnectionPoolIdleTimeoutShouldReturnProvidedValue() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_POOL_IDLE_TIMEOUT, "2m")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionPoolIdleTimeout())
+            .isEqualTo(Duration.ofMinutes(2));
+    }
+
+    @Test
+    void getConnectionPoolIdleTimeoutShouldDefaultToSeconds() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_POOL_IDLE_TIMEOUT, "10")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionPoolIdleTimeout())
+            .isEqualTo(Duration.ofSeconds(10));
+    }
 }
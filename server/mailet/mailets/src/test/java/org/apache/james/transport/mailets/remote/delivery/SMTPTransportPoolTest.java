@@ -0,0 +1,255 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.remote.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Properties;
+
+import javax.mail.Address;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.james.mock.smtp.server.MockSMTPServer;
+import org.apache.james.mock.smtp.server.ReceivedMailRepository;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.apache.mailet.HostAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.sun.mail.smtp.SMTPTransport;
+
+@SuppressWarnings("deprecation")
+class SMTPTransportPoolTest {
+    private static final HostAddress HOST_1 = new HostAddress("mx1.domain.com", "smtp://127.0.0.1:25");
+    private static final HostAddress HOST_2 = new HostAddress("mx2.domain.com", "smtp://127.0.0.2:25");
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(1);
+    private static final Instant NOW = Instant.parse("2021-01-01T00:00:00Z");
+
+    private UpdatableTickingClock clock;
+    private SMTPTransportPool testee;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        testee = new SMTPTransportPool(2, IDLE_TIMEOUT, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testee.close();
+    }
+
+    @Test
+    void borrowShouldReturnEmptyWhenNoIdleTransport() {
+        assertThat(testee.borrow(HOST_1)).isEmpty();
+    }
+
+    @Test
+    void borrowShouldReturnReleasedTransport() {
+        SMTPTransport transport = connectedTransport();
+        testee.release(HOST_1, transport);
+
+        assertThat(testee.borrow(HOST_1)).contains(transport);
+    }
+
+    @Test
+    void borrowShouldNotReturnTransportOfOtherHosts() {
+        testee.release(HOST_1, connectedTransport());
+
+        assertThat(testee.borrow(HOST_2)).isEmpty();
+    }
+
+    @Test
+    void borrowShouldNotReturnTheSameTransportTwice() {
+        testee.release(HOST_1, connectedTransport());
+        testee.borrow(HOST_1);
+
+        assertThat(testee.borrow(HOST_1)).isEmpty();
+    }
+
+    @Test
+    void borrowShouldCloseAndSkipDisconnectedTransports() throws Exception {
+        SMTPTransport disconnected = mock(SMTPTransport.class);
+        when(disconnected.isConnected()).thenReturn(false);
+        SMTPTransport connected = connectedTransport();
+        testee.release(HOST_1, connected);
+        testee.release(HOST_1, disconnected);
+
+        assertThat(testee.borrow(HOST_1)).contains(connected);
+        verify(disconnected).close();
+    }
+
+    @Test
+    void borrowShouldCloseAndSkipExpiredTransports() throws Exception {
+        SMTPTransport transport = connectedTransport();
+        testee.release(HOST_1, transport);
+
+        clock.setInstant(NOW.plus(IDLE_TIMEOUT).plusSeconds(1));
+
+        assertThat(testee.borrow(HOST_1)).isEmpty();
+        verify(transport).close();
+    }
+
+    @Test
+    void releaseShouldCloseTransportWhenPoolIsFull() throws Exception {
+        testee.release(HOST_1, connectedTransport());
+        testee.release(HOST_1, connectedTransport());
+        SMTPTransport exceeding = connectedTransport();
+
+        testee.release(HOST_1, exceeding);
+
+        verify(exceeding).close();
+        assertThat(testee.idleCount(HOST_1)).isEqualTo(2);
+    }
+
+    @Test
+    void evictIdleTransportsShouldCloseExpiredTransports() throws Exception {
+        SMTPTransport transport = connectedTransport();
+        testee.release(HOST_1, transport);
+
+        clock.setInstant(NOW.plus(IDLE_TIMEOUT).plusSeconds(1));
+        testee.evictIdleTransports();
+
+        verify(transport).close();
+        assertThat(testee.idleCount(HOST_1)).isZero();
+    }
+
+    @Test
+    void closeShouldCloseIdleTransports() throws Exception {
+        SMTPTransport transport = connectedTransport();
+        testee.release(HOST_1, transport);
+
+        testee.close();
+
+        verify(transport).close();
+        assertThat(testee.idleCount(HOST_1)).isZero();
+    }
+
+    @Nested
+    class AgainstMockSMTPServer {
+        private ReceivedMailRepository receivedMails;
+        private MockSMTPServer smtpServer;
+        private HostAddress host;
+        private ByteArrayOutputStream smtpTrace;
+        private Session session;
+
+        @BeforeEach
+        void setUp() {
+            receivedMails = new ReceivedMailRepository();
+            smtpServer = MockSMTPServer.onRandomPort(receivedMails);
+            smtpServer.start();
+            host = new HostAddress("localhost", "smtp://127.0.0.1:" + smtpServer.getPort().getValue());
+
+            Properties properties = new Properties();
+            properties.setProperty("mail.smtp.localhost", "localhost");
+            smtpTrace = new ByteArrayOutputStream();
+            session = Session.getInstance(properties);
+            session.setDebug(true);
+            session.setDebugOut(new PrintStream(smtpTrace, true));
+        }
+
+        @AfterEach
+        void tearDown() {
+            smtpServer.stop();
+        }
+
+        @Test
+        void mailsToTheSameHostShouldReuseTheConnection() throws Exception {
+            deliver("first");
+            deliver("second");
+
+            assertThat(receivedMails.list()).hasSize(2);
+            assertThat(ehloCount()).isEqualTo(1);
+        }
+
+        @Test
+        void idleTransportsShouldBeEvictedAndDisconnected() throws Exception {
+            SMTPTransport transport = deliver("first");
+
+            clock.setInstant(NOW.plus(IDLE_TIMEOUT).plusSeconds(1));
+            testee.evictIdleTransports();
+
+            assertThat(testee.idleCount(host)).isZero();
+            assertThat(transport.isConnected()).isFalse();
+        }
+
+        @Test
+        void mailsFollowingAnEvictionShouldOpenANewConnection() throws Exception {
+            deliver("first");
+            clock.setInstant(NOW.plus(IDLE_TIMEOUT).plusSeconds(1));
+            testee.evictIdleTransports();
+
+            deliver("second");
+
+            assertThat(receivedMails.list()).hasSize(2);
+            assertThat(ehloCount()).isEqualTo(2);
+        }
+
+        private SMTPTransport deliver(String subject) throws Exception {
+            SMTPTransport transport = testee.borrow(host)
+                .orElseGet(this::connect);
+
+            MimeMessage message = new MimeMessage(session);
+            message.setFrom(new InternetAddress("sender@domain.tld"));
+            message.setSubject(subject);
+            message.setText("content");
+            message.saveChanges();
+            transport.sendMessage(message, new Address[] {new InternetAddress("rcpt@domain.tld")});
+
+            testee.release(host, transport);
+            return transport;
+        }
+
+        private SMTPTransport connect() {
+            try {
+                SMTPTransport transport = (SMTPTransport) session.getTransport(host);
+                transport.connect();
+                return transport;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private long ehloCount() {
+            return new String(smtpTrace.toByteArray(), StandardCharsets.UTF_8)
+                .lines()
+                .filter(line -> line.startsWith("EHLO "))
+                .count();
+        }
+    }
+
+    private SMTPTransport connectedTransport() {
+        SMTPTransport transport = mock(SMTPTransport.class);
+        when(transport.isConnected()).thenReturn(true);
+        return transport;
+    }
+}
@@ -22,9 +22,16 @@ package org.apache.james.mock.smtp.server;
 import org.apache.james.util.Port;
 import org.subethamail.smtp.server.SMTPServer;
 
-class MockSMTPServer {
+public class MockSMTPServer {
     private static final int RANDOM_PORT = 0;
 
+    /**
+     * In process server accepting all mails, for tests not relying on configured behaviors.
+     */
+    public static MockSMTPServer onRandomPort(ReceivedMailRepository mailRepository) {
+        return onRandomPort(new SMTPBehaviorRepository(), mailRepository);
+    }
+
     public static MockSMTPServer onRandomPort(SMTPBehaviorRepository behaviorRepository, ReceivedMailRepository mailRepository) {
         return new MockSMTPServer(behaviorRepository, mailRepository, RANDOM_PORT);
     }
@@ -43,17 +50,17 @@ class MockSMTPServer {
         this.server.getCommandHandler().addCommand(new ExtendedRcptToCommand());
     }
 
-    void start() {
+    public void start() {
         if (!server.isRunning()) {
            server.start();
         }
     }
 
-    Port getPort() {
+    public Port getPort() {
         return Port.of(server.getPort());
     }
 
-    void stop() {
+    public void stop() {
         server.stop();
     }
 }
@@ -86,6 +86,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMailDaoAPI {
@@ -94,6 +95,7 @@ public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMa
     private final PreparedStatement insertMail;
     private final PreparedStatement deleteMail;
     private final PreparedStatement selectMail;
+    private final PreparedStatement selectBlobIds;
     private final BlobId.Factory blobIdFactory;
     private final CassandraTypesProvider cassandraTypesProvider;
 
@@ -106,6 +108,7 @@ public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMa
         this.insertMail = prepareInsert(session);
         this.deleteMail = prepareDelete(session);
         this.selectMail = prepareSelect(session);
+        this.selectBlobIds = prepareSelectBlobIds(session);
         this.blobIdFactory = blobIdFactory;
         this.cassandraTypesProvider = cassandraTypesProvider;
     }
@@ -143,6 +146,12 @@ public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMa
                 .and(eq(MAIL_KEY, bindMarker(MAIL_KEY))));
     }
 
+    private PreparedStatement prepareSelectBlobIds(Session session) {
+        return session.prepare(
+            select(HEADER_BLOB_ID, BODY_BLOB_ID)
+                .from(CONTENT_TABLE_NAME));
+    }
+
     @Override
     public Mono<Void> store(MailRepositoryUrl url, Mail mail, BlobId headerId, BlobId bodyId) {
         return Mono.fromCallable(() -> {
@@ -179,6 +188,14 @@ public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMa
             .setString(MAIL_KEY, key.asString()));
     }
 
+    @Override
+    public Flux<BlobId> listBlobs() {
+        return executor.executeRows(selectBlobIds.bind())
+            .flatMapIterable(row -> ImmutableList.of(
+                blobIdFactory.from(row.getString(HEADER_BLOB_ID)),
+                blobIdFactory.from(row.getString(BODY_BLOB_ID))));
+    }
+
     @Override
     public Mono<Optional<MailDTO>> read(MailRepositoryUrl url, MailKey key) {
         return executor.executeSingleRowOptional(selectMail.bind()
@@ -61,4 +61,9 @@ public class MergingCassandraMailRepositoryMailDao implements CassandraMailRepos
             .filter(Optional::isPresent)
             .switchIfEmpty(v1.read(url, key));
     }
+
+    @Override
+    public Flux<BlobId> listBlobs() {
+        return Flux.concat(v2.listBlobs(), v1.listBlobs());
+    }
 }
@@ -116,6 +116,48 @@ class CassandraMailRepositoryMailDAOTest {
             assertThat(testee().read(URL, KEY_1).block())
                 .isEmpty();
         }
+
+        @Test
+        void listBlobsShouldReturnEmptyWhenNoMails() {
+            assertThat(testee().listBlobs().collectList().block())
+                .isEmpty();
+        }
+
+        @Test
+        void listBlobsShouldReturnHeaderAndBodyBlobs() throws Exception {
+            CassandraMailRepositoryMailDaoAPI testee = testee();
+            BlobId blobIdBody = BLOB_ID_FACTORY.from("blobHeader");
+            BlobId blobIdHeader = BLOB_ID_FACTORY.from("blobBody");
+
+            testee.store(URL,
+                FakeMail.builder()
+                    .name(KEY_1.asString())
+                    .build(),
+                blobIdHeader,
+                blobIdBody)
+                .block();
+
+            assertThat(testee.listBlobs().collectList().block())
+                .containsOnly(blobIdHeader, blobIdBody);
+        }
+
+        @Test
+        void listBlobsShouldNotReturnBlobsOfRemovedMails() throws Exception {
+            CassandraMailRepositoryMailDaoAPI testee = testee();
+
+            testee.store(URL,
+                FakeMail.builder()
+                    .name(KEY_1.asString())
+                    .build(),
+                BLOB_ID_FACTORY.from("blobHeader"),
+                BLOB_ID_FACTORY.from("blobBody"))
+                .block();
+
+            testee.remove(URL, KEY_1).block();
+
+            assertThat(testee.listBlobs().collectList().block())
+                .isEmpty();
+        }
     }
 
     @Nested
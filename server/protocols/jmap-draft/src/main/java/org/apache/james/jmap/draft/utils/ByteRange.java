@@ -0,0 +1,113 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.draft.utils;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Single byte range of an HTTP Range header, see https://tools.ietf.org/html/rfc7233#section-2.1
+ *
+ * Requests for several ranges are not supported, and are served the whole content as allowed by the specification.
+ */
+public class ByteRange {
+    private static final Pattern SINGLE_BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    public static Optional<ByteRange> parse(String rangeHeader) {
+        Matcher matcher = SINGLE_BYTE_RANGE.matcher(rangeHeader.trim());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            Optional<Long> firstBytePosition = parsePosition(matcher.group(1));
+            Optional<Long> lastBytePosition = parsePosition(matcher.group(2));
+            if (firstBytePosition.isEmpty()) {
+                return lastBytePosition.map(suffixLength -> new ByteRange(Optional.empty(), Optional.empty(), Optional.of(suffixLength)));
+            }
+            if (lastBytePosition.isPresent() && lastBytePosition.get() < firstBytePosition.get()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ByteRange(firstBytePosition, lastBytePosition, Optional.empty()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Long> parsePosition(String value) {
+        if (value.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(Long.parseLong(value));
+    }
+
+    public static String unsatisfiedContentRange(long size) {
+        return "bytes */" + size;
+    }
+
+    private final Optional<Long> firstBytePosition;
+    private final Optional<Long> lastBytePosition;
+    private final Optional<Long> suffixLength;
+
+    private ByteRange(Optional<Long> firstBytePosition, Optional<Long> lastBytePosition, Optional<Long> suffixLength) {
+        this.firstBytePosition = firstBytePosition;
+        this.lastBytePosition = lastBytePosition;
+        this.suffixLength = suffixLength;
+    }
+
+    public boolean isSatisfiable(long size) {
+        return firstBytePosition.map(position -> position < size)
+            .orElseGet(() -> suffixLength.get() > 0 && size > 0);
+    }
+
+    /**
+     * @return the position of the first byte of the range within a content of the given size
+     */
+    public long offset(long size) {
+        return firstBytePosition.orElseGet(() -> Math.max(0, size - suffixLength.get()));
+    }
+
+    /**
+     * @return the length of the range within a content of the given size
+     */
+    public long length(long size) {
+        return lastByte(size) - offset(size) + 1;
+    }
+
+    public String contentRange(long size) {
+        return "bytes " + offset(size) + "-" + lastByte(size) + "/" + size;
+    }
+
+    private long lastByte(long size) {
+        return lastBytePosition.map(position -> Math.min(position, size - 1))
+            .orElse(size - 1);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("firstBytePosition", firstBytePosition)
+            .add("lastBytePosition", lastBytePosition)
+            .add("suffixLength", suffixLength)
+            .toString();
+    }
+}
@@ -0,0 +1,176 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.event;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import org.apache.james.events.Event;
+import org.apache.james.events.EventListener.ReactiveGroupEventListener;
+import org.apache.james.events.Group;
+import org.apache.james.jmap.api.projections.ThreadIndex;
+import org.apache.james.jmap.api.projections.ThreadIndex.ThreadingKeys;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageIdManager;
+import org.apache.james.mailbox.SessionProvider;
+import org.apache.james.mailbox.events.MailboxEvents.Added;
+import org.apache.james.mailbox.events.MailboxEvents.Expunged;
+import org.apache.james.mailbox.exception.MailboxException;
+import org.apache.james.mailbox.model.FetchGroup;
+import org.apache.james.mailbox.model.MessageId;
+import org.apache.james.mailbox.model.MessageResult;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.MimeConfig;
+import org.reactivestreams.Publisher;
+
+import com.github.fge.lambdas.Throwing;
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Assigns a JMAP thread to each added email, based on its Message-ID, In-Reply-To and References headers and on its
+ * base subject. Emails are removed from their thread once expunged from all their mailboxes.
+ */
+public class PopulateThreadIndexListener implements ReactiveGroupEventListener {
+    public static class PopulateThreadIndexListenerGroup extends Group {
+
+    }
+
+    static final Group GROUP = new PopulateThreadIndexListenerGroup();
+    private static final int CONCURRENCY = 5;
+    private static final Pattern MIME_MESSAGE_ID = Pattern.compile("<[^<>]+>");
+    private static final Pattern SUBJECT_PREFIX = Pattern.compile("^\\s*(re|fw|fwd)\\s*(\\[\\d+])?\\s*:\\s*", Pattern.CASE_INSENSITIVE);
+    private static final String IN_REPLY_TO = "In-Reply-To";
+    private static final String REFERENCES = "References";
+
+    private final MessageIdManager messageIdManager;
+    private final ThreadIndex threadIndex;
+    private final SessionProvider sessionProvider;
+
+    @Inject
+    public PopulateThreadIndexListener(MessageIdManager messageIdManager, ThreadIndex threadIndex, SessionProvider sessionProvider) {
+        this.messageIdManager = messageIdManager;
+        this.threadIndex = threadIndex;
+        this.sessionProvider = sessionProvider;
+    }
+
+    @Override
+    public Group getDefaultGroup() {
+        return GROUP;
+    }
+
+    @Override
+    public boolean isHandling(Event event) {
+        return event instanceof Added
+            || event instanceof Expunged;
+    }
+
+    @Override
+    public Publisher<Void> reactiveEvent(Event event) {
+        if (event instanceof Added) {
+            return handleAdded((Added) event);
+        }
+        if (event instanceof Expunged) {
+            return handleExpunged((Expunged) event);
+        }
+        return Mono.empty();
+    }
+
+    private Mono<Void> handleExpunged(Expunged expunged) {
+        MailboxSession session = sessionProvider.createSystemSession(expunged.getUsername());
+        ImmutableSet<MessageId> expungedIds = expunged.getUids().stream()
+            .map(uid -> expunged.getMetaData(uid).getMessageId())
+            .collect(Guavate.toImmutableSet());
+
+        return Flux.from(messageIdManager.messagesMetadata(expungedIds, session))
+            .map(metaData -> metaData.getComposedMessageId().getMessageId())
+            .collect(Guavate.toImmutableSet())
+            .flatMapMany(stillStored -> Flux.fromIterable(expungedIds)
+                .filter(messageId -> !stillStored.contains(messageId)))
+            .concatMap(messageId -> threadIndex.delete(expunged.getUsername(), messageId))
+            .then();
+    }
+
+    private Mono<Void> handleAdded(Added added) {
+        MailboxSession session = sessionProvider.createSystemSession(added.getUsername());
+        return Flux.fromStream(added.getUids().stream()
+            .map(uid -> added.getMetaData(uid).getMessageId()))
+            .flatMap(messageId -> handleAdded(added, messageId, session), CONCURRENCY)
+            .then();
+    }
+
+    private Mono<Void> handleAdded(Added added, MessageId messageId, MailboxSession session) {
+        return Flux.from(messageIdManager.getMessagesReactive(ImmutableList.of(messageId), FetchGroup.HEADERS, session))
+            .next()
+            .map(Throwing.function(this::parseMessage))
+            .map(PopulateThreadIndexListener::threadingKeys)
+            .flatMap(keys -> threadIndex.assignThread(added.getUsername(), messageId, keys))
+            .then();
+    }
+
+    private Message parseMessage(MessageResult messageResult) throws IOException, MailboxException {
+        return Message.Builder
+            .of()
+            .use(MimeConfig.PERMISSIVE)
+            .parse(messageResult.getFullContent().getInputStream())
+            .build();
+    }
+
+    static ThreadingKeys threadingKeys(Message message) {
+        ImmutableSet<String> mimeMessageIds = Stream.concat(
+                Optional.ofNullable(message.getMessageId()).stream(),
+                Stream.concat(message.getHeader().getFields(IN_REPLY_TO).stream(), message.getHeader().getFields(REFERENCES).stream())
+                    .map(Field::getBody))
+            .flatMap(PopulateThreadIndexListener::extractMimeMessageIds)
+            .collect(Guavate.toImmutableSet());
+
+        return ThreadingKeys.of(mimeMessageIds, Optional.ofNullable(message.getSubject()).map(PopulateThreadIndexListener::baseSubject));
+    }
+
+    private static Stream<String> extractMimeMessageIds(String value) {
+        Matcher matcher = MIME_MESSAGE_ID.matcher(value);
+        Stream.Builder<String> ids = Stream.builder();
+        while (matcher.find()) {
+            ids.add(matcher.group());
+        }
+        return ids.build();
+    }
+
+    static String baseSubject(String subject) {
+        String baseSubject = subject.trim();
+        Matcher matcher = SUBJECT_PREFIX.matcher(baseSubject);
+        while (matcher.find()) {
+            baseSubject = baseSubject.substring(matcher.end());
+            matcher = SUBJECT_PREFIX.matcher(baseSubject);
+        }
+        return baseSubject.trim().toLowerCase(Locale.US);
+    }
+}
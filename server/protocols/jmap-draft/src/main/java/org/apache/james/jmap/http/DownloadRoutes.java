@@ -18,9 +18,14 @@
  ****************************************************************/
 package org.apache.james.jmap.http;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_RANGES;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_RANGE;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static org.apache.james.jmap.HttpConstants.TEXT_PLAIN_CONTENT_TYPE;
 import static org.apache.james.jmap.JMAPUrls.DOWNLOAD;
 import static org.apache.james.jmap.http.LoggingHelper.jmapAction;
@@ -45,6 +50,7 @@ import org.apache.james.jmap.draft.api.SimpleTokenFactory;
 import org.apache.james.jmap.draft.exceptions.BadRequestException;
 import org.apache.james.jmap.draft.exceptions.InternalErrorException;
 import org.apache.james.jmap.draft.model.AttachmentAccessToken;
+import org.apache.james.jmap.draft.utils.ByteRange;
 import org.apache.james.jmap.draft.utils.DownloadPath;
 import org.apache.james.jmap.exceptions.UnauthorizedException;
 import org.apache.james.mailbox.BlobManager;
@@ -67,6 +73,7 @@ import com.google.common.base.CharMatcher;
 
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.server.HttpServerRequest;
@@ -79,6 +86,7 @@ public class DownloadRoutes implements JMAPRoutes {
     private static final String DOWNLOAD_FROM_ID = String.format("%s/{%s}", DOWNLOAD, BLOB_ID_PATH_PARAM);
     private static final String DOWNLOAD_FROM_ID_AND_NAME = String.format("%s/{%s}/{%s}", DOWNLOAD, BLOB_ID_PATH_PARAM, NAME_PATH_PARAM);
     private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String BYTES_RANGE_UNIT = "bytes";
 
     private final BlobManager blobManager;
     private final SimpleTokenFactory simpleTokenFactory;
@@ -168,9 +176,12 @@ public class DownloadRoutes implements JMAPRoutes {
     }
 
     private Mono<Void> get(HttpServerRequest request, HttpServerResponse response, DownloadPath downloadPath) {
+        Optional<ByteRange> range = Optional.ofNullable(request.requestHeaders().get(RANGE))
+            .flatMap(ByteRange::parse);
+
         return authenticator.authenticate(request)
             .flatMap(session -> Mono.from(metricFactory.decoratePublisherWithTimerMetric("JMAP-download-get",
-                    download(session, downloadPath, response)))
+                    download(session, downloadPath, range, response)))
                 .subscriberContext(jmapAuthContext(session)))
             .onErrorResume(UnauthorizedException.class, e -> handleAuthenticationFailure(response, LOGGER, e))
             .doOnEach(logOnError(e -> LOGGER.error("Unexpected error", e)))
@@ -207,14 +218,18 @@ public class DownloadRoutes implements JMAPRoutes {
     }
 
     @VisibleForTesting
-    Mono<Void> download(MailboxSession mailboxSession, DownloadPath downloadPath, HttpServerResponse response) {
+    Mono<Void> download(MailboxSession mailboxSession, DownloadPath downloadPath, Optional<ByteRange> range, HttpServerResponse response) {
         String blobId = downloadPath.getBlobId();
         try {
             Blob blob = blobManager.retrieve(BlobId.fromString(blobId), mailboxSession);
 
+            if (range.isPresent()) {
+                return downloadRange(downloadPath.getName(), response, blob, range.get());
+            }
             return Mono.usingWhen(
                 Mono.fromCallable(blob::getStream),
-                stream -> downloadBlob(downloadPath.getName(), response, blob.getSize(), blob.getContentType(), stream),
+                stream -> downloadBlob(downloadPath.getName(), response.header(ACCEPT_RANGES, BYTES_RANGE_UNIT), OK,
+                    blob.getSize(), blob.getContentType(), stream),
                 stream -> Mono.fromRunnable(Throwing.runnable(stream::close).sneakyThrow())
             );
         } catch (BlobNotFoundException e) {
@@ -225,11 +240,29 @@ public class DownloadRoutes implements JMAPRoutes {
         }
     }
 
-    private Mono<Void> downloadBlob(Optional<String> optionalName, HttpServerResponse response, long blobSize, ContentType blobContentType, InputStream stream) {
+    private Mono<Void> downloadRange(Optional<String> optionalName, HttpServerResponse response, Blob blob, ByteRange range) {
+        long blobSize = blob.getSize();
+        if (!range.isSatisfiable(blobSize)) {
+            return response.header(CONTENT_RANGE, ByteRange.unsatisfiedContentRange(blobSize))
+                .status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                .send();
+        }
+        long offset = range.offset(blobSize);
+        long length = range.length(blobSize);
+
+        return Mono.usingWhen(
+            Mono.fromCallable(() -> blob.getStream(offset, length)),
+            stream -> downloadBlob(optionalName, response.header(CONTENT_RANGE, range.contentRange(blobSize)), PARTIAL_CONTENT,
+                length, blob.getContentType(), stream),
+            stream -> Mono.fromRunnable(Throwing.runnable(stream::close).sneakyThrow())
+        );
+    }
+
+    private Mono<Void> downloadBlob(Optional<String> optionalName, HttpServerResponse response, HttpResponseStatus status, long contentLength, ContentType blobContentType, InputStream stream) {
         return addContentDispositionHeader(optionalName, response)
-            .header("Content-Length", String.valueOf(blobSize))
+            .header("Content-Length", String.valueOf(contentLength))
             .header(CONTENT_TYPE, blobContentType.asString())
-            .status(OK)
+            .status(status)
             .send(ReactorUtils.toChunks(stream, BUFFER_SIZE)
                 .map(Unpooled::wrappedBuffer)
                 .subscribeOn(Schedulers.elastic()))
@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.draft.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class ByteRangeTest {
+    private static final long SIZE = 100;
+
+    @Test
+    public void parseShouldHandleClosedRanges() {
+        ByteRange range = ByteRange.parse("bytes=10-19").get();
+
+        assertThat(range.offset(SIZE)).isEqualTo(10);
+        assertThat(range.length(SIZE)).isEqualTo(10);
+        assertThat(range.contentRange(SIZE)).isEqualTo("bytes 10-19/100");
+    }
+
+    @Test
+    public void parseShouldHandleOpenRanges() {
+        ByteRange range = ByteRange.parse("bytes=90-").get();
+
+        assertThat(range.offset(SIZE)).isEqualTo(90);
+        assertThat(range.length(SIZE)).isEqualTo(10);
+        assertThat(range.contentRange(SIZE)).isEqualTo("bytes 90-99/100");
+    }
+
+    @Test
+    public void parseShouldHandleSuffixRanges() {
+        ByteRange range = ByteRange.parse("bytes=-5").get();
+
+        assertThat(range.offset(SIZE)).isEqualTo(95);
+        assertThat(range.length(SIZE)).isEqualTo(5);
+    }
+
+    @Test
+    public void suffixRangesLongerThanTheContentShouldSelectTheWholeContent() {
+        ByteRange range = ByteRange.parse("bytes=-500").get();
+
+        assertThat(range.offset(SIZE)).isEqualTo(0);
+        assertThat(range.length(SIZE)).isEqualTo(SIZE);
+    }
+
+    @Test
+    public void rangesExceedingTheContentShouldBeTruncated() {
+        ByteRange range = ByteRange.parse("bytes=50-500").get();
+
+        assertThat(range.length(SIZE)).isEqualTo(50);
+        assertThat(range.contentRange(SIZE)).isEqualTo("bytes 50-99/100");
+    }
+
+    @Test
+    public void rangesStartingAfterTheContentShouldNotBeSatisfiable() {
+        assertThat(ByteRange.parse("bytes=100-").get().isSatisfiable(SIZE)).isFalse();
+    }
+
+    @Test
+    public void emptySuffixRangesShouldNotBeSatisfiable() {
+        assertThat(ByteRange.parse("bytes=-0").get().isSatisfiable(SIZE)).isFalse();
+    }
+
+    @Test
+    public void parseShouldIgnoreSeveralRanges() {
+        assertThat(ByteRange.parse("bytes=0-10,20-30")).isEmpty();
+    }
+
+    @Test
+    public void parseShouldIgnoreOtherUnits() {
+        assertThat(ByteRange.parse("lines=0-10")).isEmpty();
+    }
+
+    @Test
+    public void parseShouldIgnoreInvertedRanges() {
+        assertThat(ByteRange.parse("bytes=10-5")).isEmpty();
+    }
+
+    @Test
+    public void parseShouldIgnoreRangesWithoutPositions() {
+        assertThat(ByteRange.parse("bytes=-")).isEmpty();
+    }
+
+    @Test
+    public void parseShouldIgnoreOverflowingPositions() {
+        assertThat(ByteRange.parse("bytes=99999999999999999999-")).isEmpty();
+    }
+}
@@ -0,0 +1,191 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.apache.james.core.Username;
+import org.apache.james.events.Group;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
+import org.apache.james.jmap.memory.projections.MemoryThreadIndex;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MailboxSessionUtil;
+import org.apache.james.mailbox.MessageIdManager;
+import org.apache.james.mailbox.MessageManager;
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.mailbox.model.ComposedMessageId;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageId;
+import org.apache.james.mailbox.store.FakeAuthenticator;
+import org.apache.james.mailbox.store.FakeAuthorizator;
+import org.apache.james.mailbox.store.SessionProviderImpl;
+import org.apache.james.mailbox.store.StoreMailboxManager;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.stream.RawField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class PopulateThreadIndexListenerTest {
+    private static final Username BOB = Username.of("bob");
+    private static final MailboxPath BOB_INBOX_PATH = MailboxPath.inbox(BOB);
+    private static final MailboxPath BOB_OTHER_BOX_PATH = MailboxPath.forUser(BOB, "otherBox");
+
+    MailboxSession mailboxSession;
+    StoreMailboxManager mailboxManager;
+
+    MessageManager inboxMessageManager;
+    PopulateThreadIndexListener listener;
+    MessageIdManager messageIdManager;
+    private MemoryThreadIndex threadIndex;
+    private MailboxId otherBoxId;
+
+    @BeforeEach
+    void setup() throws Exception {
+        // Default RetryBackoffConfiguration leads each events to be re-executed for 30s which is too long
+        // Reducing the wait time for the event bus allow a faster test suite execution without harming test correctness
+        RetryBackoffConfiguration backoffConfiguration = RetryBackoffConfiguration.builder()
+            .maxRetries(2)
+            .firstBackoff(Duration.ofMillis(1))
+            .jitterFactor(0.5)
+            .build();
+        InMemoryIntegrationResources resources = InMemoryIntegrationResources.builder()
+            .preProvisionnedFakeAuthenticator()
+            .fakeAuthorizator()
+            .eventBus(new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory()), backoffConfiguration, new MemoryEventDeadLetters()))
+            .defaultAnnotationLimits()
+            .defaultMessageParser()
+            .scanningSearchIndex()
+            .noPreDeletionHooks()
+            .storeQuotaManager()
+            .build();
+
+        mailboxManager = resources.getMailboxManager();
+        messageIdManager = resources.getMessageIdManager();
+
+        FakeAuthenticator authenticator = new FakeAuthenticator();
+        authenticator.addUser(BOB, "12345");
+        SessionProviderImpl sessionProvider = new SessionProviderImpl(authenticator, FakeAuthorizator.defaultReject());
+
+        threadIndex = new MemoryThreadIndex();
+        listener = new PopulateThreadIndexListener(messageIdManager, threadIndex, sessionProvider);
+
+        resources.getEventBus().register(listener);
+
+        mailboxSession = MailboxSessionUtil.create(BOB);
+
+        MailboxId inboxId = mailboxManager.createMailbox(BOB_INBOX_PATH, mailboxSession).get();
+        inboxMessageManager = mailboxManager.getMailbox(inboxId, mailboxSession);
+
+        otherBoxId = mailboxManager.createMailbox(BOB_OTHER_BOX_PATH, mailboxSession).get();
+    }
+
+    @Test
+    void deserializePopulateThreadIndexListenerGroup() throws Exception {
+        assertThat(Group.deserialize("org.apache.james.jmap.event.PopulateThreadIndexListener$PopulateThreadIndexListenerGroup"))
+            .isEqualTo(new PopulateThreadIndexListener.PopulateThreadIndexListenerGroup());
+    }
+
+    @Test
+    void appendingAMessageShouldStartANewThread() throws Exception {
+        MessageId messageId = append(message("<1@domain>", "Meeting"));
+
+        assertThat(threadIndex.retrieveThreadId(BOB, messageId).block())
+            .isEqualTo(messageId);
+    }
+
+    @Test
+    void appendingAReplyShouldJoinTheThreadOfTheOriginalMessage() throws Exception {
+        MessageId original = append(message("<1@domain>", "Meeting"));
+        MessageId reply = append(reply("<2@domain>", "Re: Meeting", "<1@domain>"));
+
+        assertThat(threadIndex.retrieveThreadId(BOB, reply).block())
+            .isEqualTo(original);
+    }
+
+    @Test
+    void appendingAReplyWithADifferentSubjectShouldStartANewThread() throws Exception {
+        append(message("<1@domain>", "Meeting"));
+        MessageId reply = append(reply("<2@domain>", "Something else", "<1@domain>"));
+
+        assertThat(threadIndex.retrieveThreadId(BOB, reply).block())
+            .isEqualTo(reply);
+    }
+
+    @Test
+    void deletingAMessageShouldRemoveItFromItsThread() throws Exception {
+        MessageId original = append(message("<1@domain>", "Meeting"));
+        ComposedMessageId reply = inboxMessageManager.appendMessage(MessageManager.AppendCommand.from(reply("<2@domain>", "Re: Meeting", "<1@domain>")), mailboxSession).getId();
+
+        inboxMessageManager.delete(ImmutableList.of(reply.getUid()), mailboxSession);
+
+        assertThat(threadIndex.listThread(BOB, original).collectList().block())
+            .containsOnly(original);
+    }
+
+    @Test
+    void deletingOneCopyOfAMessageShouldKeepItInItsThread() throws Exception {
+        ComposedMessageId composedId = inboxMessageManager.appendMessage(MessageManager.AppendCommand.from(message("<1@domain>", "Meeting")), mailboxSession).getId();
+        messageIdManager.setInMailboxes(composedId.getMessageId(), ImmutableList.of(composedId.getMailboxId(), otherBoxId), mailboxSession);
+
+        inboxMessageManager.delete(ImmutableList.of(composedId.getUid()), mailboxSession);
+
+        assertThat(threadIndex.listThread(BOB, composedId.getMessageId()).collectList().block())
+            .containsOnly(composedId.getMessageId());
+    }
+
+    @Test
+    void baseSubjectShouldStripReplyAndForwardPrefixes() {
+        assertThat(PopulateThreadIndexListener.baseSubject(" Re: Fwd: RE[2]: Meeting "))
+            .isEqualTo("meeting");
+    }
+
+    private MessageId append(Message message) throws Exception {
+        return inboxMessageManager.appendMessage(MessageManager.AppendCommand.from(message), mailboxSession)
+            .getId()
+            .getMessageId();
+    }
+
+    private Message message(String messageId, String subject) throws Exception {
+        return Message.Builder.of()
+            .setMessageId(messageId)
+            .setSubject(subject)
+            .setBody("", StandardCharsets.UTF_8)
+            .build();
+    }
+
+    private Message reply(String messageId, String subject, String inReplyTo) throws Exception {
+        return Message.Builder.of()
+            .setMessageId(messageId)
+            .setSubject(subject)
+            .addField(new RawField("In-Reply-To", inReplyTo))
+            .setBody("", StandardCharsets.UTF_8)
+            .build();
+    }
+}
@@ -19,26 +19,48 @@
 
 package org.apache.james.jmap.http;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_RANGE;
+import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.apache.james.core.Username;
 import org.apache.james.jmap.draft.api.SimpleTokenFactory;
 import org.apache.james.jmap.draft.exceptions.InternalErrorException;
+import org.apache.james.jmap.draft.utils.ByteRange;
 import org.apache.james.jmap.draft.utils.DownloadPath;
 import org.apache.james.mailbox.BlobManager;
 import org.apache.james.mailbox.MailboxSession;
 import org.apache.james.mailbox.MailboxSessionUtil;
 import org.apache.james.mailbox.exception.MailboxException;
+import org.apache.james.mailbox.model.Blob;
+import org.apache.james.mailbox.model.BlobId;
 import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.junit.Test;
+import org.reactivestreams.Publisher;
 
+import io.netty.buffer.ByteBuf;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.netty.http.server.HttpServerResponse;
 
 public class DownloadRoutesTest {
+    private static final String BLOB_ID = "blobId";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
 
     @Test
     public void downloadShouldFailWhenUnknownErrorOnAttachmentManager() throws Exception {
@@ -52,7 +74,59 @@ public class DownloadRoutesTest {
         DownloadRoutes testee = new DownloadRoutes(mockedBlobManager, nullSimpleTokenFactory, new RecordingMetricFactory(), mockedAuthFilter);
 
         HttpServerResponse resp = mock(HttpServerResponse.class);
-        assertThatThrownBy(() -> testee.download(mailboxSession, DownloadPath.ofBlobId("blobId"), resp).block())
+        assertThatThrownBy(() -> testee.download(mailboxSession, DownloadPath.ofBlobId("blobId"), Optional.empty(), resp).block())
             .isInstanceOf(InternalErrorException.class);
     }
+
+    @Test
+    public void downloadShouldReturnPartialContentWhenRange() throws Exception {
+        MailboxSession mailboxSession = MailboxSessionUtil.create(Username.of("User"));
+        DownloadRoutes testee = testeeServing(mailboxSession);
+        HttpServerResponse resp = mock(HttpServerResponse.class, RETURNS_SELF);
+        AtomicReference<Publisher<? extends ByteBuf>> body = new AtomicReference<>();
+        doAnswer(invocation -> {
+            body.set(invocation.getArgument(0));
+            return resp;
+        }).when(resp).send(any());
+        when(resp.then()).thenReturn(Mono.empty());
+
+        testee.download(mailboxSession, DownloadPath.ofBlobId(BLOB_ID), ByteRange.parse("bytes=2-5"), resp).block();
+
+        verify(resp).status(PARTIAL_CONTENT);
+        verify(resp).header(CONTENT_RANGE, "bytes 2-5/10");
+        verify(resp).header("Content-Length", "4");
+        assertThat(Flux.from(body.get())
+                .map(buffer -> buffer.toString(StandardCharsets.US_ASCII))
+                .reduce(String::concat)
+                .block())
+            .isEqualTo("2345");
+    }
+
+    @Test
+    public void downloadShouldReturnRangeNotSatisfiableWhenRangeStartsAfterTheContent() throws Exception {
+        MailboxSession mailboxSession = MailboxSessionUtil.create(Username.of("User"));
+        DownloadRoutes testee = testeeServing(mailboxSession);
+        HttpServerResponse resp = mock(HttpServerResponse.class, RETURNS_SELF);
+        when(resp.send()).thenReturn(Mono.empty());
+
+        testee.download(mailboxSession, DownloadPath.ofBlobId(BLOB_ID), ByteRange.parse("bytes=10-"), resp).block();
+
+        verify(resp).status(REQUESTED_RANGE_NOT_SATISFIABLE);
+        verify(resp).header(CONTENT_RANGE, "bytes */10");
+        verify(resp, never()).send(any());
+    }
+
+    private DownloadRoutes testeeServing(MailboxSession mailboxSession) throws Exception {
+        BlobManager mockedBlobManager = mock(BlobManager.class);
+        when(mockedBlobManager.retrieve(BlobId.fromString(BLOB_ID), mailboxSession))
+            .thenReturn(Blob.builder()
+                .id(BlobId.fromString(BLOB_ID))
+                .payload(() -> new ByteArrayInputStream(CONTENT))
+                .contentType("text/plain")
+                .size(CONTENT.length)
+                .build());
+        SimpleTokenFactory nullSimpleTokenFactory = null;
+
+        return new DownloadRoutes(mockedBlobManager, nullSimpleTokenFactory, new RecordingMetricFactory(), mock(Authenticator.class));
+    }
 }
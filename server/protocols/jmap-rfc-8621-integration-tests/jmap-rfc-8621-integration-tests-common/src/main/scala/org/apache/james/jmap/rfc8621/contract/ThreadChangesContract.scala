@@ -25,11 +25,19 @@ import io.restassured.http.ContentType.JSON
 import net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
 import org.apache.http.HttpStatus.SC_OK
 import org.apache.james.GuiceJamesServer
+import org.apache.james.jmap.api.change.State
+import org.apache.james.jmap.api.model.AccountId
 import org.apache.james.jmap.core.ResponseObject.SESSION_STATE
 import org.apache.james.jmap.core.State.INSTANCE
+import org.apache.james.jmap.draft.JmapGuiceProbe
 import org.apache.james.jmap.http.UserCredential
 import org.apache.james.jmap.rfc8621.contract.Fixture.{ACCEPT_RFC8621_VERSION_HEADER, BOB, BOB_PASSWORD, DOMAIN, authScheme, baseRequestSpecBuilder}
+import org.apache.james.jmap.rfc8621.contract.ThreadGetContract.{awaitAtMostTenSeconds, awaitThreadIndexing, originalMessage, replyMessage}
+import org.apache.james.mailbox.MessageManager.AppendCommand
+import org.apache.james.mailbox.model.{MailboxPath, MessageId}
+import org.apache.james.modules.MailboxProbeImpl
 import org.apache.james.utils.DataProbeImpl
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.{BeforeEach, Test}
 
 trait ThreadChangesContract {
@@ -81,7 +89,7 @@ trait ThreadChangesContract {
           |            "error",
           |            {
           |                "type": "cannotCalculateChanges",
-          |                "description": "Naive implementation for Thread/changes"
+          |                "description": "State '2c9f1b12-b35a-43e6-9af2-0106fb53a941' could not be found"
           |            },
           |            "c1"
           |        ]
@@ -129,6 +137,85 @@ trait ThreadChangesContract {
           |}""".stripMargin)
   }
 
+  @Test
+  def shouldReturnCreatedThreads(server: GuiceJamesServer): Unit = {
+    val mailboxProbe: MailboxProbeImpl = server.getProbe(classOf[MailboxProbeImpl])
+    mailboxProbe.createMailbox(MailboxPath.inbox(BOB))
+    val oldState: State = server.getProbe(classOf[JmapGuiceProbe]).getLatestEmailState(AccountId.fromUsername(BOB))
+    val original: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.from(originalMessage))
+      .getMessageId
+
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      assertThatJson(threadChanges(oldState))
+        .whenIgnoringPaths("methodResponses[0][1].newState")
+        .inPath("methodResponses[0][1]")
+        .isEqualTo(
+          s"""{
+            |  "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+            |  "oldState": "${oldState.getValue}",
+            |  "hasMoreChanges": false,
+            |  "created": ["${original.serialize}"],
+            |  "updated": [],
+            |  "destroyed": []
+            |}""".stripMargin)
+    }
+  }
+
+  @Test
+  def shouldReturnUpdatedThreadsWhenAReplyIsReceived(server: GuiceJamesServer): Unit = {
+    val mailboxProbe: MailboxProbeImpl = server.getProbe(classOf[MailboxProbeImpl])
+    mailboxProbe.createMailbox(MailboxPath.inbox(BOB))
+    val original: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.from(originalMessage))
+      .getMessageId
+    awaitThreadIndexing(server, original)
+    val oldState: State = waitForNextState(server, State.INITIAL)
+    mailboxProbe.appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.from(replyMessage))
+
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      assertThatJson(threadChanges(oldState))
+        .whenIgnoringPaths("methodResponses[0][1].newState")
+        .inPath("methodResponses[0][1]")
+        .isEqualTo(
+          s"""{
+            |  "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+            |  "oldState": "${oldState.getValue}",
+            |  "hasMoreChanges": false,
+            |  "created": [],
+            |  "updated": ["${original.serialize}"],
+            |  "destroyed": []
+            |}""".stripMargin)
+    }
+  }
+
+  @Test
+  def shouldReturnDestroyedThreadsWhenTheirLastEmailIsDestroyed(server: GuiceJamesServer): Unit = {
+    val mailboxProbe: MailboxProbeImpl = server.getProbe(classOf[MailboxProbeImpl])
+    mailboxProbe.createMailbox(MailboxPath.inbox(BOB))
+    val original: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.from(originalMessage))
+      .getMessageId
+    awaitThreadIndexing(server, original)
+    val oldState: State = waitForNextState(server, State.INITIAL)
+    JmapRequests.destroyEmail(original)
+
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      assertThatJson(threadChanges(oldState))
+        .whenIgnoringPaths("methodResponses[0][1].newState")
+        .inPath("methodResponses[0][1]")
+        .isEqualTo(
+          s"""{
+            |  "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+            |  "oldState": "${oldState.getValue}",
+            |  "hasMoreChanges": false,
+            |  "created": [],
+            |  "updated": [],
+            |  "destroyed": ["${original.serialize}"]
+            |}""".stripMargin)
+    }
+  }
+
   @Test
   def badAccountIdShouldBeRejected(): Unit = {
     val request =
@@ -170,4 +257,36 @@ trait ThreadChangesContract {
           |    ]
           |}""".stripMargin)
   }
+
+  private def threadChanges(sinceState: State): String =
+    `given`
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .body(
+        s"""{
+           |  "using": ["urn:ietf:params:jmap:core", "urn:ietf:params:jmap:mail"],
+           |  "methodCalls": [[
+           |    "Thread/changes",
+           |    {
+           |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+           |      "sinceState": "${sinceState.getValue}"
+           |    },
+           |    "c1"]]
+           |}""".stripMargin)
+    .when
+      .post
+    .`then`
+      .statusCode(SC_OK)
+      .contentType(JSON)
+      .extract
+      .body
+      .asString
+
+  private def waitForNextState(server: GuiceJamesServer, initialState: State): State = {
+    val jmapGuiceProbe: JmapGuiceProbe = server.getProbe(classOf[JmapGuiceProbe])
+    awaitAtMostTenSeconds.untilAsserted {
+      () => assertThat(jmapGuiceProbe.getLatestEmailState(AccountId.fromUsername(BOB))).isNotEqualTo(initialState)
+    }
+
+    jmapGuiceProbe.getLatestEmailState(AccountId.fromUsername(BOB))
+  }
 }
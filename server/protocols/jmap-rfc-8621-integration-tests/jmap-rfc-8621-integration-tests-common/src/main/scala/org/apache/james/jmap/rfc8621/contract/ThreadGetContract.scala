@@ -19,6 +19,11 @@
 
 package org.apache.james.jmap.rfc8621.contract
 
+import java.nio.charset.StandardCharsets
+import java.time.ZonedDateTime
+import java.util.Date
+import java.util.concurrent.TimeUnit
+
 import io.netty.handler.codec.http.HttpHeaderNames.ACCEPT
 import io.restassured.RestAssured.{`given`, requestSpecification}
 import io.restassured.http.ContentType.JSON
@@ -26,12 +31,53 @@ import net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
 import org.apache.http.HttpStatus.SC_OK
 import org.apache.james.GuiceJamesServer
 import org.apache.james.jmap.core.ResponseObject.SESSION_STATE
+import org.apache.james.jmap.draft.JmapGuiceProbe
 import org.apache.james.jmap.http.UserCredential
+import org.apache.james.jmap.rfc8621.contract.ThreadGetContract.{awaitAtMostTenSeconds, awaitThreadIndexing, originalMessage, replyMessage}
 import org.apache.james.jmap.rfc8621.contract.Fixture.{ACCEPT_RFC8621_VERSION_HEADER, BOB, BOB_PASSWORD, DOMAIN, authScheme, baseRequestSpecBuilder}
+import org.apache.james.mailbox.MessageManager.AppendCommand
+import org.apache.james.mailbox.model.{MailboxPath, MessageId}
+import org.apache.james.mime4j.dom.Message
+import org.apache.james.mime4j.stream.RawField
+import org.apache.james.modules.MailboxProbeImpl
 import org.apache.james.utils.DataProbeImpl
+import org.assertj.core.api.Assertions.assertThat
+import org.awaitility.Awaitility
+import org.awaitility.Durations.ONE_HUNDRED_MILLISECONDS
 import org.junit.jupiter.api.{BeforeEach, Test}
 
+object ThreadGetContract {
+  private lazy val slowPacedPollInterval = ONE_HUNDRED_MILLISECONDS
+  private lazy val calmlyAwait = Awaitility.`with`
+    .pollInterval(slowPacedPollInterval)
+    .and.`with`.pollDelay(slowPacedPollInterval)
+    .await
+  lazy val awaitAtMostTenSeconds = calmlyAwait.atMost(10, TimeUnit.SECONDS)
+
+  def originalMessage: Message = Message.Builder
+    .of
+    .setSubject("Meeting")
+    .addField(new RawField("Message-ID", "<1@domain.tld>"))
+    .setBody("original", StandardCharsets.UTF_8)
+    .build
+
+  def replyMessage: Message = Message.Builder
+    .of
+    .setSubject("Re: Meeting")
+    .addField(new RawField("Message-ID", "<2@domain.tld>"))
+    .addField(new RawField("In-Reply-To", "<1@domain.tld>"))
+    .setBody("reply", StandardCharsets.UTF_8)
+    .build
+
+  // Threads are indexed asynchronously: a reply indexed before the email it replies to would start the thread
+  def awaitThreadIndexing(server: GuiceJamesServer, messageId: MessageId): Unit =
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      assertThat(server.getProbe(classOf[JmapGuiceProbe]).retrieveThreadId(BOB, messageId)).isPresent
+    }
+}
+
 trait ThreadGetContract {
+
   @BeforeEach
   def setUp(server: GuiceJamesServer): Unit = {
     server.getProbe(classOf[DataProbeImpl])
@@ -46,7 +92,7 @@ trait ThreadGetContract {
   }
 
   @Test
-  def threadsShouldReturnSuppliedIds(): Unit = {
+  def threadsShouldReturnNotFoundWhenUnknownIds(): Unit = {
     val request =
       s"""{
          |  "using": ["urn:ietf:params:jmap:core", "urn:ietf:params:jmap:mail"],
@@ -54,7 +100,7 @@ trait ThreadGetContract {
          |    "Thread/get",
          |    {
          |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
-         |      "ids": ["123456"]
+         |      "ids": ["123456", "789"]
          |    },
          |    "c1"]]
          |}""".stripMargin
@@ -62,9 +108,9 @@ trait ThreadGetContract {
     val response =  `given`
       .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
       .body(request)
-      .when
+    .when
       .post
-      .`then`
+    .`then`
       .statusCode(SC_OK)
       .contentType(JSON)
       .extract
@@ -72,22 +118,33 @@ trait ThreadGetContract {
       .asString
 
     assertThatJson(response)
+      .whenIgnoringPaths("methodResponses[0][1].state")
       .inPath("methodResponses[0][1]")
       .isEqualTo(
         s"""{
           |  "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
-          |  "state": "${SESSION_STATE.value}",
-          |  "list": [
-          |      {
-          |          "id": "123456",
-          |          "emailIds": ["123456"]
-          |      }
-          |  ]
+          |  "list": [],
+          |  "notFound": ["123456", "789"]
           |}""".stripMargin)
   }
 
   @Test
-  def threadsShouldReturnSuppliedIdsWhenSeveralThreads(): Unit = {
+  def threadsShouldListTheEmailsOfTheThreadSortedByReceivedAt(server: GuiceJamesServer): Unit = {
+    val mailboxProbe: MailboxProbeImpl = server.getProbe(classOf[MailboxProbeImpl])
+    mailboxProbe.createMailbox(MailboxPath.inbox(BOB))
+    val original: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+        .withInternalDate(Date.from(ZonedDateTime.now().minusDays(1).toInstant))
+        .build(originalMessage))
+      .getMessageId
+    awaitThreadIndexing(server, original)
+    // Received before the original, as can happen with delivery delays
+    val reply: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+        .withInternalDate(Date.from(ZonedDateTime.now().minusDays(2).toInstant))
+        .build(replyMessage))
+      .getMessageId
+
     val request =
       s"""{
          |  "using": ["urn:ietf:params:jmap:core", "urn:ietf:params:jmap:mail"],
@@ -95,40 +152,82 @@ trait ThreadGetContract {
          |    "Thread/get",
          |    {
          |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
-         |      "ids": ["123456", "789"]
+         |      "ids": ["${original.serialize}"]
          |    },
          |    "c1"]]
          |}""".stripMargin
 
-    val response =  `given`
-      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
-      .body(request)
-    .when
-      .post
-    .`then`
-      .statusCode(SC_OK)
-      .contentType(JSON)
-      .extract
-      .body
-      .asString
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      val response = `given`
+        .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+        .body(request)
+      .when
+        .post
+      .`then`
+        .statusCode(SC_OK)
+        .contentType(JSON)
+        .extract
+        .body
+        .asString
 
-    assertThatJson(response)
-      .inPath("methodResponses[0][1]")
-      .isEqualTo(
-        s"""{
-          |  "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
-          |  "state": "${SESSION_STATE.value}",
-          |  "list": [
-          |      {
-          |          "id": "123456",
-          |          "emailIds": ["123456"]
-          |      },
-          |      {
-          |          "id": "789",
-          |          "emailIds": ["789"]
-          |      }
-          |  ]
-          |}""".stripMargin)
+      assertThatJson(response)
+        .whenIgnoringPaths("methodResponses[0][1].state")
+        .inPath("methodResponses[0][1]")
+        .isEqualTo(
+          s"""{
+            |  "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+            |  "list": [
+            |      {
+            |          "id": "${original.serialize}",
+            |          "emailIds": ["${reply.serialize}", "${original.serialize}"]
+            |      }
+            |  ],
+            |  "notFound": []
+            |}""".stripMargin)
+    }
+  }
+
+  @Test
+  def threadsShouldReturnNotFoundWhenIdIsAnEmailOfAnotherThread(server: GuiceJamesServer): Unit = {
+    val mailboxProbe: MailboxProbeImpl = server.getProbe(classOf[MailboxProbeImpl])
+    mailboxProbe.createMailbox(MailboxPath.inbox(BOB))
+    val original: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.from(originalMessage))
+      .getMessageId
+    awaitThreadIndexing(server, original)
+    val reply: MessageId = mailboxProbe
+      .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.from(replyMessage))
+      .getMessageId
+
+    val request =
+      s"""{
+         |  "using": ["urn:ietf:params:jmap:core", "urn:ietf:params:jmap:mail"],
+         |  "methodCalls": [[
+         |    "Thread/get",
+         |    {
+         |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+         |      "ids": ["${reply.serialize}"]
+         |    },
+         |    "c1"]]
+         |}""".stripMargin
+
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      val response = `given`
+        .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+        .body(request)
+      .when
+        .post
+      .`then`
+        .statusCode(SC_OK)
+        .contentType(JSON)
+        .extract
+        .body
+        .asString
+
+      assertThatJson(response)
+        .inPath("methodResponses[0][1].notFound")
+        .isEqualTo(s"""["${reply.serialize}"]""")
+    }
   }
 
   @Test
@@ -395,12 +395,13 @@ sealed trait EmailViewReader[+EmailView] {
 }
 
 private sealed trait EmailViewFactory[+EmailView] {
-  def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest)(message: (MessageId, Seq[MessageResult])): Try[EmailView]
+  def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest, threadIds: ThreadIds)(message: (MessageId, Seq[MessageResult])): Try[EmailView]
 }
 
 private class GenericEmailViewReader[+EmailView](messageIdManager: MessageIdManager,
                                      fetchGroup: FetchGroup,
                                      htmlTextExtractor: HtmlTextExtractor,
+                                     threadIdResolver: ThreadIdResolver,
                                      metadataViewFactory: EmailViewFactory[EmailView]) extends EmailViewReader[EmailView] {
   override def read[T >: EmailView](ids: Seq[MessageId], request: EmailGetRequest, mailboxSession: MailboxSession): SFlux[T] =
     SFlux.fromPublisher(messageIdManager.getMessagesReactive(
@@ -408,8 +409,11 @@ private class GenericEmailViewReader[+EmailView](messageIdManager: MessageIdMana
         fetchGroup,
         mailboxSession))
       .collectSeq()
-      .flatMapIterable(messages => messages.groupBy(_.getMessageId).toSet)
-      .map(metadataViewFactory.toEmail(htmlTextExtractor, request))
+      .flatMap(messages => threadIdResolver.resolve(mailboxSession.getUser, messages.map(_.getMessageId))
+        .map(threadIds => messages.groupBy(_.getMessageId)
+          .toSet
+          .map(metadataViewFactory.toEmail(htmlTextExtractor, request, threadIds))))
+      .flatMapIterable(emails => emails)
       .handle[T]((aTry, sink) => aTry match {
         case Success(value) => sink.next(value)
         case Failure(e) => sink.error(e)
@@ -417,7 +421,7 @@ private class GenericEmailViewReader[+EmailView](messageIdManager: MessageIdMana
 }
 
 private class EmailMetadataViewFactory @Inject()(zoneIdProvider: ZoneIdProvider) extends EmailViewFactory[EmailMetadataView] {
-  override def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest)(message: (MessageId, Seq[MessageResult])): Try[EmailMetadataView] = {
+  override def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest, threadIds: ThreadIds)(message: (MessageId, Seq[MessageResult])): Try[EmailMetadataView] = {
     val messageId: MessageId = message._1
     val mailboxIds: MailboxIds = MailboxIds(message._2
       .map(_.getMailboxId)
@@ -435,7 +439,7 @@ private class EmailMetadataViewFactory @Inject()(zoneIdProvider: ZoneIdProvider)
         metadata = EmailMetadata(
           id = messageId,
           blobId = blobId,
-          threadId = ThreadId(messageId.serialize),
+          threadId = threadIds.of(messageId),
           keywords = keywords,
           mailboxIds = mailboxIds,
           receivedAt = UTCDate.from(firstMessage.getInternalDate, zoneIdProvider.get()),
@@ -445,7 +449,7 @@ private class EmailMetadataViewFactory @Inject()(zoneIdProvider: ZoneIdProvider)
 }
 
 private class EmailHeaderViewFactory @Inject()(zoneIdProvider: ZoneIdProvider) extends EmailViewFactory[EmailHeaderView] {
-  override def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest)(message: (MessageId, Seq[MessageResult])): Try[EmailHeaderView] = {
+  override def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest, threadIds: ThreadIds)(message: (MessageId, Seq[MessageResult])): Try[EmailHeaderView] = {
     val messageId: MessageId = message._1
     val mailboxIds: MailboxIds = MailboxIds(message._2
       .map(_.getMailboxId)
@@ -464,7 +468,7 @@ private class EmailHeaderViewFactory @Inject()(zoneIdProvider: ZoneIdProvider) e
         metadata = EmailMetadata(
           id = messageId,
           blobId = blobId,
-          threadId = ThreadId(messageId.serialize),
+          threadId = threadIds.of(messageId),
           mailboxIds = mailboxIds,
           receivedAt = UTCDate.from(firstMessage.getInternalDate, zoneIdProvider.get()),
           size = sanitizeSize(firstMessage.getSize),
@@ -476,7 +480,7 @@ private class EmailHeaderViewFactory @Inject()(zoneIdProvider: ZoneIdProvider) e
 }
 
 private class EmailFullViewFactory @Inject()(zoneIdProvider: ZoneIdProvider, previewFactory: Preview.Factory) extends EmailViewFactory[EmailFullView] {
-  override def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest)(message: (MessageId, Seq[MessageResult])): Try[EmailFullView] = {
+  override def toEmail(htmlTextExtractor: HtmlTextExtractor, request: EmailGetRequest, threadIds: ThreadIds)(message: (MessageId, Seq[MessageResult])): Try[EmailFullView] = {
     val messageId: MessageId = message._1
     val mailboxIds: MailboxIds = MailboxIds(message._2
       .map(_.getMailboxId)
@@ -498,7 +502,7 @@ private class EmailFullViewFactory @Inject()(zoneIdProvider: ZoneIdProvider, pre
         metadata = EmailMetadata(
           id = messageId,
           blobId = blobId,
-          threadId = ThreadId(messageId.serialize),
+          threadId = threadIds.of(messageId),
           mailboxIds = mailboxIds,
           receivedAt = UTCDate.from(firstMessage.getInternalDate, zoneIdProvider.get()),
           keywords = keywords,
@@ -550,8 +554,9 @@ private class EmailFullViewFactory @Inject()(zoneIdProvider: ZoneIdProvider, pre
 
 private class EmailMetadataViewReader @Inject()(messageIdManager: MessageIdManager,
                                                 htmlTextExtractor: HtmlTextExtractor,
+                                                threadIdResolver: ThreadIdResolver,
                                                 metadataViewFactory: EmailMetadataViewFactory) extends EmailViewReader[EmailMetadataView] {
-  private val reader: GenericEmailViewReader[EmailMetadataView] = new GenericEmailViewReader[EmailMetadataView](messageIdManager, MINIMAL, htmlTextExtractor, metadataViewFactory)
+  private val reader: GenericEmailViewReader[EmailMetadataView] = new GenericEmailViewReader[EmailMetadataView](messageIdManager, MINIMAL, htmlTextExtractor, threadIdResolver, metadataViewFactory)
 
   override def read[T >: EmailMetadataView](ids: Seq[MessageId], request: EmailGetRequest, mailboxSession: MailboxSession): SFlux[T] =
     reader.read(ids, request, mailboxSession)
@@ -559,8 +564,9 @@ private class EmailMetadataViewReader @Inject()(messageIdManager: MessageIdManag
 
 private class EmailHeaderViewReader @Inject()(messageIdManager: MessageIdManager,
                                               htmlTextExtractor: HtmlTextExtractor,
+                                              threadIdResolver: ThreadIdResolver,
                                               headerViewFactory: EmailHeaderViewFactory) extends EmailViewReader[EmailHeaderView] {
-  private val reader: GenericEmailViewReader[EmailHeaderView] = new GenericEmailViewReader[EmailHeaderView](messageIdManager, HEADERS, htmlTextExtractor, headerViewFactory)
+  private val reader: GenericEmailViewReader[EmailHeaderView] = new GenericEmailViewReader[EmailHeaderView](messageIdManager, HEADERS, htmlTextExtractor, threadIdResolver, headerViewFactory)
 
   override def read[T >: EmailHeaderView](ids: Seq[MessageId], request: EmailGetRequest, mailboxSession: MailboxSession): SFlux[T] =
     reader.read(ids, request, mailboxSession)
@@ -568,8 +574,9 @@ private class EmailHeaderViewReader @Inject()(messageIdManager: MessageIdManager
 
 private class EmailFullViewReader @Inject()(messageIdManager: MessageIdManager,
                                             htmlTextExtractor: HtmlTextExtractor,
+                                            threadIdResolver: ThreadIdResolver,
                                             fullViewFactory: EmailFullViewFactory) extends EmailViewReader[EmailFullView] {
-  private val reader: GenericEmailViewReader[EmailFullView] = new GenericEmailViewReader[EmailFullView](messageIdManager, FULL_CONTENT, htmlTextExtractor, fullViewFactory)
+  private val reader: GenericEmailViewReader[EmailFullView] = new GenericEmailViewReader[EmailFullView](messageIdManager, FULL_CONTENT, htmlTextExtractor, threadIdResolver, fullViewFactory)
 
 
   override def read[T >: EmailFullView](ids: Seq[MessageId], request: EmailGetRequest, mailboxSession: MailboxSession): SFlux[T] =
@@ -590,8 +597,9 @@ private class EmailFastViewReader @Inject()(messageIdManager: MessageIdManager,
                                             messageFastViewProjection: MessageFastViewProjection,
                                             htmlTextExtractor: HtmlTextExtractor,
                                             zoneIdProvider: ZoneIdProvider,
+                                            threadIdResolver: ThreadIdResolver,
                                             fullViewFactory: EmailFullViewFactory) extends EmailViewReader[EmailView] {
-  private val fullReader: GenericEmailViewReader[EmailFullView] = new GenericEmailViewReader[EmailFullView](messageIdManager, FULL_CONTENT, htmlTextExtractor, fullViewFactory)
+  private val fullReader: GenericEmailViewReader[EmailFullView] = new GenericEmailViewReader[EmailFullView](messageIdManager, FULL_CONTENT, htmlTextExtractor, threadIdResolver, fullViewFactory)
 
   override def read[T >: EmailView](ids: Seq[MessageId], request: EmailGetRequest, mailboxSession: MailboxSession): SFlux[T] =
     SMono.fromPublisher(messageFastViewProjection.retrieve(ids.asJava))
@@ -635,15 +643,18 @@ private class EmailFastViewReader @Inject()(messageIdManager: MessageIdManager,
 
     SFlux.fromPublisher(messageIdManager.getMessagesReactive(ids.asJava, HEADERS, mailboxSession))
       .collectSeq()
-      .flatMapIterable(messages => messages.groupBy(_.getMessageId).toSet)
-      .map(x => toEmail(request)(x, fastViewsAsMap(x._1)))
+      .flatMap(messages => threadIdResolver.resolve(mailboxSession.getUser, messages.map(_.getMessageId))
+        .map(threadIds => messages.groupBy(_.getMessageId)
+          .toSet
+          .map(x => toEmail(request, threadIds)(x, fastViewsAsMap(x._1)))))
+      .flatMapIterable(emails => emails)
       .handle[EmailView]((aTry, sink) => aTry match {
         case Success(value) => sink.next(value)
         case Failure(e) => sink.error(e)
       })
   }
 
-  private def toEmail(request: EmailGetRequest)(message: (MessageId, Seq[MessageResult]), fastView: MessageFastViewPrecomputedProperties): Try[EmailView] = {
+  private def toEmail(request: EmailGetRequest, threadIds: ThreadIds)(message: (MessageId, Seq[MessageResult]), fastView: MessageFastViewPrecomputedProperties): Try[EmailView] = {
     val messageId: MessageId = message._1
     val mailboxIds: MailboxIds = MailboxIds(message._2
       .map(_.getMailboxId)
@@ -662,7 +673,7 @@ private class EmailFastViewReader @Inject()(messageIdManager: MessageIdManager,
         metadata = EmailMetadata(
           id = messageId,
           blobId = blobId,
-          threadId = ThreadId(messageId.serialize),
+          threadId = threadIds.of(messageId),
           mailboxIds = mailboxIds,
           receivedAt = UTCDate.from(firstMessage.getInternalDate, zoneIdProvider.get()),
           size = sanitizeSize(firstMessage.getSize),
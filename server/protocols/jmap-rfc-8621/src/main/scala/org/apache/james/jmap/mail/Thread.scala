@@ -29,9 +29,12 @@ case class Thread(id: Id, emailIds: List[Id])
 case class ThreadGetRequest(accountId: AccountId,
                             ids: List[Id]) extends WithAccountId
 
+case class ThreadNotFound(value: Set[Id])
+
 case class ThreadGetResponse(accountId: AccountId,
                              state: State,
-                             list: List[Thread])
+                             list: List[Thread],
+                             notFound: ThreadNotFound)
 
 case class ThreadChangesRequest(accountId: AccountId,
                                 sinceState: State,
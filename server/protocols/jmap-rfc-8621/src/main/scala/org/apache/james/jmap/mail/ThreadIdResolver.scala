@@ -0,0 +1,52 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.mail
+
+import javax.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.jmap.api.projections.ThreadIndex
+import org.apache.james.mailbox.model.MessageId
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+object ThreadIdResolver {
+  private val CONCURRENCY: Int = 16
+}
+
+case class ThreadIds(values: Map[MessageId, ThreadId]) {
+  def of(messageId: MessageId): ThreadId = values.getOrElse(messageId, ThreadId(messageId.serialize))
+}
+
+/**
+ * Resolves the JMAP thread of emails of a user from the thread index.
+ *
+ * Emails not indexed yet are the only member of their own thread, identified by their own id: this matches the id
+ * the index gives to the threads they start.
+ */
+class ThreadIdResolver @Inject()(threadIndex: ThreadIndex) {
+  def resolve(username: Username, messageId: MessageId): SMono[MessageId] =
+    SMono.fromPublisher(threadIndex.retrieveThreadId(username, messageId))
+      .switchIfEmpty(SMono.just(messageId))
+
+  def resolve(username: Username, messageIds: Seq[MessageId]): SMono[ThreadIds] =
+    SFlux.fromIterable(messageIds.distinct)
+      .flatMap(messageId => resolve(username, messageId).map(threadId => messageId -> ThreadId(threadId.serialize)), ThreadIdResolver.CONCURRENCY)
+      .collectMap(_._1, _._2)
+      .map(ThreadIds)
+}
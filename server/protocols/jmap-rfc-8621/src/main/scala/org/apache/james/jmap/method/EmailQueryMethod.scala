@@ -31,7 +31,7 @@ import org.apache.james.jmap.core.Limit.Limit
 import org.apache.james.jmap.core.Position.Position
 import org.apache.james.jmap.core.{CanCalculateChanges, Invocation, Limit, Position, QueryState}
 import org.apache.james.jmap.json.{EmailQuerySerializer, ResponseSerializer}
-import org.apache.james.jmap.mail.{Comparator, EmailQueryRequest, EmailQueryResponse, FilterCondition, UnsupportedRequestParameterException}
+import org.apache.james.jmap.mail.{Comparator, EmailQueryRequest, EmailQueryResponse, FilterCondition, ThreadIdResolver, UnsupportedRequestParameterException}
 import org.apache.james.jmap.routes.SessionSupplier
 import org.apache.james.jmap.utils.search.MailboxFilter
 import org.apache.james.jmap.utils.search.MailboxFilter.QueryFilter
@@ -46,12 +46,18 @@ import reactor.core.scheduler.Schedulers
 
 import scala.jdk.CollectionConverters._
 
+object EmailQueryMethod {
+  // Collapsed results are read lazily from the search index until enough threads are found
+  private val COLLAPSED_SEARCH_LIMIT: Long = Int.MaxValue
+}
+
 class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
                                   mailboxManager: MailboxManager,
                                   val metricFactory: MetricFactory,
                                   val sessionSupplier: SessionSupplier,
                                   val configuration: JMAPConfiguration,
-                                  val emailQueryView: EmailQueryView) extends MethodRequiringAccountId[EmailQueryRequest] {
+                                  val emailQueryView: EmailQueryView,
+                                  val threadIdResolver: ThreadIdResolver) extends MethodRequiringAccountId[EmailQueryRequest] {
   override val methodName: MethodName = MethodName("Email/query")
   override val requiredCapabilities: Set[CapabilityIdentifier] = Set(JMAP_CORE, JMAP_MAIL)
 
@@ -93,6 +99,8 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
 
   private def executeQuery(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery, position: Position, limit: Limit): SMono[EmailQueryResponse] = {
     val ids: SMono[Seq[MessageId]] = request match {
+      case request: EmailQueryRequest if collapseThreads(request) =>
+        executeCollapsedQueryAgainstSearchIndex(session, searchQuery, position, limit)
       case request: EmailQueryRequest if matchesInMailboxSortedBySentAt(request) =>
         queryViewForListingSortedBySentAt(session, position, limit, request)
       case request: EmailQueryRequest if matchesInMailboxAfterSortedBySentAt(request) =>
@@ -135,6 +143,9 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
       })
   }
 
+  private def collapseThreads(request: EmailQueryRequest): Boolean =
+    request.collapseThreads.exists(_.value)
+
   private def matchesInMailboxSortedBySentAt(request: EmailQueryRequest): Boolean =
     configuration.isEmailQueryViewEnabled &&
       request.filter.exists(_.inMailboxFilterOnly) &&
@@ -158,6 +169,16 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
       .drop(position.value)
       .collectSeq()
 
+  // Only the first email of each thread, in sort order, is returned. Position and limit apply to collapsed results.
+  private def executeCollapsedQueryAgainstSearchIndex(mailboxSession: MailboxSession, searchQuery: MultimailboxesSearchQuery, position: Position, limitToUse: Limit): SMono[Seq[MessageId]] =
+    SFlux.fromPublisher(mailboxManager.search(searchQuery, mailboxSession, EmailQueryMethod.COLLAPSED_SEARCH_LIMIT))
+      .concatMap(id => threadIdResolver.resolve(mailboxSession.getUser, id).map(threadId => (id, threadId)))
+      .distinct(_._2)
+      .drop(position.value)
+      .take(limitToUse.value)
+      .map(_._1)
+      .collectSeq()
+
   private def searchQueryFromRequest(request: EmailQueryRequest, capabilities: Set[CapabilityIdentifier], session: MailboxSession): Either[UnsupportedOperationException, MultimailboxesSearchQuery] = {
     val comparators: List[Comparator] = request.comparator.getOrElse(Set()).toList
 
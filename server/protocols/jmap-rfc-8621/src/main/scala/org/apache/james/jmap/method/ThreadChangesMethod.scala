@@ -21,47 +21,107 @@ package org.apache.james.jmap.method
 
 import eu.timepit.refined.auto._
 import javax.inject.Inject
-import org.apache.james.jmap.core.CapabilityIdentifier.{CapabilityIdentifier, JMAP_MAIL}
+import org.apache.james.core.Username
+import org.apache.james.jmap.api.change.{EmailChangeRepository, EmailChanges, Limit, State => JavaState}
+import org.apache.james.jmap.api.model.{AccountId => JavaAccountId}
+import org.apache.james.jmap.api.projections.ThreadIndex
+import org.apache.james.jmap.core.CapabilityIdentifier.{CapabilityIdentifier, JAMES_SHARES, JMAP_MAIL}
+import org.apache.james.jmap.core.Id.Id
 import org.apache.james.jmap.core.Invocation.{Arguments, MethodName}
-import org.apache.james.jmap.core.{ErrorCode, Invocation, State}
+import org.apache.james.jmap.core.{Invocation, State}
 import org.apache.james.jmap.json.{ResponseSerializer, ThreadSerializer}
-import org.apache.james.jmap.mail.{HasMoreChanges, ThreadChangesRequest, ThreadChangesResponse}
+import org.apache.james.jmap.mail.{HasMoreChanges, ThreadChangesRequest, ThreadChangesResponse, ThreadIdResolver}
 import org.apache.james.jmap.routes.SessionSupplier
 import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.model.MessageId
 import org.apache.james.metrics.api.MetricFactory
 import play.api.libs.json.{JsError, JsSuccess}
-import reactor.core.scala.publisher.SMono
+import reactor.core.scala.publisher.{SFlux, SMono}
 
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+
+/**
+ * Thread changes are derived from email changes, and share their states.
+ *
+ * A thread is created along with the email starting it, whose id is the thread id. Other created emails update their
+ * thread, and so do destroyed emails unless their thread has no member left, in which case it is destroyed. Keyword
+ * and mailbox updates are not reported: a thread only lists its emails.
+ *
+ * The thread index forgets destroyed emails once the deletion is indexed: they are then resolved to their own id, and
+ * reported as a destroyed single email thread.
+ */
 class ThreadChangesMethod @Inject()(val metricFactory: MetricFactory,
-                                    val sessionSupplier: SessionSupplier) extends MethodRequiringAccountId[ThreadChangesRequest] {
+                                    val sessionSupplier: SessionSupplier,
+                                    val emailChangeRepository: EmailChangeRepository,
+                                    val threadIndex: ThreadIndex,
+                                    val threadIdResolver: ThreadIdResolver) extends MethodRequiringAccountId[ThreadChangesRequest] {
+  private case class ThreadChanges(created: List[Id], updated: List[Id], destroyed: List[Id])
+
   override val methodName: MethodName = MethodName("Thread/changes")
   override val requiredCapabilities: Set[CapabilityIdentifier] = Set(JMAP_MAIL)
 
   override def doProcess(capabilities: Set[CapabilityIdentifier], invocation: InvocationWithContext, mailboxSession: MailboxSession, request: ThreadChangesRequest): SMono[InvocationWithContext] =
-    if (request.sinceState.equals(State.INSTANCE)) {
-      val response: ThreadChangesResponse = ThreadChangesResponse(
-        accountId = request.accountId,
-        oldState = State.INSTANCE,
-        newState = State.INSTANCE,
-        hasMoreChanges = HasMoreChanges(false),
-        created = List(),
-        updated = List(),
-        destroyed = List())
-      SMono.just(InvocationWithContext(invocation = Invocation(
-        methodName = methodName,
-        arguments = Arguments(ThreadSerializer.serializeChanges(response)),
-        methodCallId = invocation.invocation.methodCallId
-      ), processingContext = invocation.processingContext))
-    } else {
-      SMono.just(InvocationWithContext(invocation = Invocation.error(ErrorCode.CannotCalculateChanges,
-        "Naive implementation for Thread/changes",
-        invocation.invocation.methodCallId),
+    SMono.defer(() => emailChanges(capabilities, mailboxSession, request))
+      .flatMap(emailChanges => threadChanges(mailboxSession.getUser, emailChanges)
+        .map(threadChanges => ThreadChangesResponse(
+          accountId = request.accountId,
+          oldState = request.sinceState,
+          newState = State.fromEmailChanges(emailChanges),
+          hasMoreChanges = HasMoreChanges.fromEmailChanges(emailChanges),
+          created = threadChanges.created,
+          updated = threadChanges.updated,
+          destroyed = threadChanges.destroyed)))
+      .map(response => InvocationWithContext(invocation = Invocation(
+          methodName = methodName,
+          arguments = Arguments(ThreadSerializer.serializeChanges(response)),
+          methodCallId = invocation.invocation.methodCallId),
         processingContext = invocation.processingContext))
-    }
 
   override def getRequest(mailboxSession: MailboxSession, invocation: Invocation): Either[IllegalArgumentException, ThreadChangesRequest] =
     ThreadSerializer.deserializeChanges(invocation.arguments.value) match {
       case JsSuccess(threadGetRequest, _) => Right(threadGetRequest)
       case errors: JsError => Left(new IllegalArgumentException(ResponseSerializer.serialize(errors).toString))
     }
+
+  private def emailChanges(capabilities: Set[CapabilityIdentifier], mailboxSession: MailboxSession, request: ThreadChangesRequest): SMono[EmailChanges] = {
+    val accountId: JavaAccountId = JavaAccountId.fromUsername(mailboxSession.getUser)
+    val state: JavaState = JavaState.of(request.sinceState.value)
+    val maxChanges: Option[Limit] = request.maxChanged.map(maxChanged => Limit.of(Math.toIntExact(maxChanged.value)))
+    if (capabilities.contains(JAMES_SHARES)) {
+      SMono[EmailChanges](emailChangeRepository.getSinceStateWithDelegation(accountId, state, maxChanges.toJava))
+    } else {
+      SMono[EmailChanges](emailChangeRepository.getSinceState(accountId, state, maxChanges.toJava))
+    }
+  }
+
+  private def threadChanges(username: Username, emailChanges: EmailChanges): SMono[ThreadChanges] =
+    for {
+      created <- resolveThreads(username, emailChanges.getCreated.asScala.toSeq)
+      destroyed <- resolveThreads(username, emailChanges.getDestroyed.asScala.toSeq)
+      emptied <- emptyThreads(username, destroyed.map(_._2).distinct)
+    } yield {
+      val createdThreads: Set[MessageId] = created.filter { case (emailId, threadId) => emailId.equals(threadId) }
+        .map(_._2)
+        .toSet -- emptied
+      val updatedThreads: Set[MessageId] = (created ++ destroyed).map(_._2).toSet -- createdThreads -- emptied
+      ThreadChanges(asIds(createdThreads), asIds(updatedThreads), asIds(emptied))
+    }
+
+  private def resolveThreads(username: Username, emailIds: Seq[MessageId]): SMono[Seq[(MessageId, MessageId)]] =
+    SFlux.fromIterable(emailIds)
+      .concatMap(emailId => threadIdResolver.resolve(username, emailId).map(threadId => (emailId, threadId)))
+      .collectSeq()
+
+  private def emptyThreads(username: Username, threadIds: Seq[MessageId]): SMono[Set[MessageId]] =
+    SFlux.fromIterable(threadIds)
+      .concatMap(threadId => SFlux.fromPublisher(threadIndex.listThread(username, threadId))
+        .hasElements
+        .filter(hasMembers => !hasMembers)
+        .map(_ => threadId))
+      .collectSeq()
+      .map(_.toSet)
+
+  private def asIds(threadIds: Set[MessageId]): List[Id] =
+    threadIds.toList.flatMap(threadId => Id.validate(threadId.serialize).toOption)
 }
@@ -21,33 +21,46 @@ package org.apache.james.jmap.method
 
 import eu.timepit.refined.auto._
 import javax.inject.Inject
+import org.apache.james.jmap.api.change.{EmailChangeRepository, State => JavaState}
+import org.apache.james.jmap.api.model.{AccountId => JavaAccountId}
+import org.apache.james.jmap.api.projections.ThreadIndex
 import org.apache.james.jmap.core.CapabilityIdentifier.{CapabilityIdentifier, JMAP_CORE, JMAP_MAIL}
 import org.apache.james.jmap.core.Id.Id
 import org.apache.james.jmap.core.Invocation.{Arguments, MethodName}
 import org.apache.james.jmap.core.{Invocation, State}
 import org.apache.james.jmap.json.{ResponseSerializer, ThreadSerializer}
-import org.apache.james.jmap.mail.{Thread, ThreadGetRequest, ThreadGetResponse}
+import org.apache.james.jmap.mail.{Thread, ThreadGetRequest, ThreadGetResponse, ThreadNotFound}
 import org.apache.james.jmap.routes.SessionSupplier
-import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.model.{FetchGroup, MessageId}
+import org.apache.james.mailbox.{MailboxSession, MessageIdManager}
 import org.apache.james.metrics.api.MetricFactory
 import play.api.libs.json.{JsError, JsSuccess}
-import reactor.core.scala.publisher.SMono
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+import scala.util.Try
 
 class ThreadGetMethod @Inject()(val metricFactory: MetricFactory,
-                                          val sessionSupplier: SessionSupplier) extends MethodRequiringAccountId[ThreadGetRequest] {
+                                val sessionSupplier: SessionSupplier,
+                                val threadIndex: ThreadIndex,
+                                val emailChangeRepository: EmailChangeRepository,
+                                val messageIdManager: MessageIdManager,
+                                val messageIdFactory: MessageId.Factory) extends MethodRequiringAccountId[ThreadGetRequest] {
   override val methodName: MethodName = MethodName("Thread/get")
   override val requiredCapabilities: Set[CapabilityIdentifier] = Set(JMAP_CORE, JMAP_MAIL)
 
-  override def doProcess(capabilities: Set[CapabilityIdentifier], invocation: InvocationWithContext, mailboxSession: MailboxSession, request: ThreadGetRequest): SMono[InvocationWithContext] = {
-    val response = ThreadGetResponse(accountId = request.accountId,
-      state = State.INSTANCE,
-      list = retrieveThreads(request.ids))
-    SMono.just(InvocationWithContext(invocation = Invocation(
-      methodName = methodName,
-      arguments = Arguments(ThreadSerializer.serialize(response)),
-      methodCallId = invocation.invocation.methodCallId),
-      processingContext = invocation.processingContext))
-  }
+  override def doProcess(capabilities: Set[CapabilityIdentifier], invocation: InvocationWithContext, mailboxSession: MailboxSession, request: ThreadGetRequest): SMono[InvocationWithContext] =
+    retrieveThreads(request.ids, mailboxSession)
+      .flatMap(threads => SMono[JavaState](emailChangeRepository.getLatestState(JavaAccountId.fromUsername(mailboxSession.getUser)))
+        .map(state => ThreadGetResponse(accountId = request.accountId,
+          state = State.fromJava(state),
+          list = threads._1,
+          notFound = threads._2)))
+      .map(response => InvocationWithContext(invocation = Invocation(
+        methodName = methodName,
+        arguments = Arguments(ThreadSerializer.serialize(response)),
+        methodCallId = invocation.invocation.methodCallId),
+        processingContext = invocation.processingContext))
 
   override def getRequest(mailboxSession: MailboxSession, invocation: Invocation): Either[IllegalArgumentException, ThreadGetRequest] =
     ThreadSerializer.deserialize(invocation.arguments.value) match {
@@ -55,7 +68,40 @@ class ThreadGetMethod @Inject()(val metricFactory: MetricFactory,
       case errors: JsError => Left(new IllegalArgumentException(ResponseSerializer.serialize(errors).toString))
     }
 
-  // Naive implementation
-  private def retrieveThreads(ids: List[Id]): List[Thread] =
-    ids.map(id => Thread(id = id, emailIds = List(id)))
+  private def retrieveThreads(ids: List[Id], mailboxSession: MailboxSession): SMono[(List[Thread], ThreadNotFound)] =
+    SFlux.fromIterable(ids.distinct)
+      .concatMap(id => retrieveThread(id, mailboxSession)
+        .map[Either[Id, Thread]](Right(_))
+        .switchIfEmpty(SMono.just[Either[Id, Thread]](Left(id))))
+      .collectSeq()
+      .map(results => (results.collect { case Right(thread) => thread }.toList,
+        ThreadNotFound(results.collect { case Left(id) => id }.toSet)))
+
+  // Thread ids are the ids of the first email of each thread, as exposed by Email/get. Reading a thread is a single
+  // lookup of its members, linear with the thread size. Threads with no email accessible to the user are not found.
+  private def retrieveThread(id: Id, mailboxSession: MailboxSession): SMono[Thread] =
+    Try(messageIdFactory.fromString(id.value))
+      .fold(_ => SMono.empty[Thread],
+        threadId => SFlux.fromPublisher(threadIndex.listThread(mailboxSession.getUser, threadId))
+          .collectSeq()
+          .flatMap(members => if (members.isEmpty) notIndexedEmail(threadId, mailboxSession) else SMono.just(members))
+          .flatMap(members => sortByReceivedAt(members, mailboxSession))
+          .filter(_.nonEmpty)
+          .map(emailIds => Thread(id = id, emailIds = emailIds)))
+
+  // Emails not indexed yet are the only member of their own thread, identified by their own id.
+  private def notIndexedEmail(threadId: MessageId, mailboxSession: MailboxSession): SMono[Seq[MessageId]] =
+    SMono.fromPublisher(threadIndex.retrieveThreadId(mailboxSession.getUser, threadId))
+      .map(_ => Seq[MessageId]())
+      .switchIfEmpty(SMono.just(Seq(threadId)))
+
+  // RFC-8621 section 3.1: emailIds are sorted by receivedAt, oldest first. Only accessible emails are returned.
+  private def sortByReceivedAt(members: Seq[MessageId], mailboxSession: MailboxSession): SMono[List[Id]] =
+    SFlux.fromPublisher(messageIdManager.getMessagesReactive(members.asJava, FetchGroup.MINIMAL, mailboxSession))
+      .collectSeq()
+      .map(messages => messages.groupBy(_.getMessageId)
+        .map { case (messageId, copies) => (messageId, copies.map(_.getInternalDate.getTime).min) }
+        .toList
+        .sortBy { case (messageId, receivedAt) => (receivedAt, messageId.serialize) }
+        .flatMap { case (messageId, _) => Id.validate(messageId.serialize).toOption })
 }
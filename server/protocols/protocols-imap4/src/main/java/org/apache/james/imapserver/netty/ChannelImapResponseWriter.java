@@ -22,12 +22,16 @@ package org.apache.james.imapserver.netty;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.Optional;
 
 import org.apache.james.imap.encode.ImapResponseWriter;
 import org.apache.james.imap.message.Literal;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.DefaultFileRegion;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
@@ -36,35 +40,68 @@ import org.jboss.netty.handler.ssl.SslHandler;
 import org.jboss.netty.handler.stream.ChunkedNioFile;
 import org.jboss.netty.handler.stream.ChunkedStream;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Ints;
+
 /**
  * {@link ImapResponseWriter} implementation which writes the data to a
  * {@link Channel}
+ *
+ * Literals are streamed to the channel rather than being loaded in memory. When backpressure is enabled, writes
+ * return only once the channel is writable again, so that large FETCH responses do not pile up in the outbound
+ * buffer of the channel. The wait is bounded: a client not reading its responses within the write timeout gets
+ * disconnected.
  */
 public class ChannelImapResponseWriter implements ImapResponseWriter {
+    public static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final long WRITABILITY_CHECK_INTERVAL_MS = 100;
 
     private final Channel channel;
     private final boolean zeroCopy;
+    private final Optional<ImapMetrics> imapMetrics;
+    private final Optional<Duration> writeTimeout;
+    private final Object writabilityMonitor = new Object();
 
     public ChannelImapResponseWriter(Channel channel) {
         this(channel, true);
     }
 
     public ChannelImapResponseWriter(Channel channel, boolean zeroCopy) {
+        this(channel, zeroCopy, Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * @param writeTimeout enables backpressure, bounding the time writes wait for the channel to be writable again.
+     *                     It needs to be empty when writing from IO threads, which would otherwise wait for themselves.
+     */
+    public ChannelImapResponseWriter(Channel channel, ImapMetrics imapMetrics, Optional<Duration> writeTimeout) {
+        this(channel, true, Optional.of(imapMetrics), writeTimeout);
+    }
+
+    @VisibleForTesting
+    ChannelImapResponseWriter(Channel channel, boolean zeroCopy, Optional<ImapMetrics> imapMetrics, Optional<Duration> writeTimeout) {
         this.channel = channel;
         this.zeroCopy = zeroCopy;
+        this.imapMetrics = imapMetrics;
+        this.writeTimeout = writeTimeout;
     }
 
     @Override
     public void write(byte[] buffer) throws IOException {
         if (channel.isConnected()) {
-            channel.write(ChannelBuffers.wrappedBuffer(buffer));
+            imapMetrics.ifPresent(metrics -> metrics.getResponseBytesMetric().add(buffer.length));
+            awaitWritability(channel.write(ChannelBuffers.wrappedBuffer(buffer)));
         }
     }
 
     @Override
     public void write(Literal literal) throws IOException {
         if (channel.isConnected()) {
+            long size = literal.size();
             InputStream in = literal.getInputStream();
+            ChannelFuture future;
             if (in instanceof FileInputStream && channel.getFactory() instanceof NioServerSocketChannelFactory) {
                 FileChannel fc = ((FileInputStream) in).getChannel();
                 // Zero-copy is only possible if no SSL/TLS  and no COMPRESS is in place
@@ -72,16 +109,49 @@ public class ChannelImapResponseWriter implements ImapResponseWriter {
                 // See JAMES-1305 and JAMES-1306
                 ChannelPipeline cp = channel.getPipeline();
                 if (zeroCopy && cp.get(SslHandler.class) == null && cp.get(ZlibEncoder.class) == null) {
-                    channel.write(new DefaultFileRegion(fc, fc.position(), literal.size()));
+                    future = channel.write(new DefaultFileRegion(fc, fc.position(), size));
                 } else {
-                    channel.write(new ChunkedNioFile(fc, 8192));
+                    future = channel.write(new ChunkedNioFile(fc, CHUNK_SIZE));
                 }
             } else {
-                channel.write(new ChunkedStream(literal.getInputStream()));
+                future = channel.write(new ChunkedStream(in, CHUNK_SIZE));
             }
+            imapMetrics.ifPresent(metrics -> metrics.getLiteralStreamedBytesMetric().add(Ints.saturatedCast(size)));
+            awaitWritability(future);
         }
     }
-    
-    
 
+    /**
+     * Blocks the producing thread until the channel is writable again.
+     *
+     * Completed writes wake the waiting thread up. As writability can also change while a chunked literal is being
+     * written, it is re-checked periodically as well. Events of the channel are not relied upon: with an ordered
+     * execution handler they would be queued behind the command being processed.
+     */
+    private void awaitWritability(ChannelFuture future) throws IOException {
+        if (writeTimeout.isEmpty() || channel.isWritable()) {
+            return;
+        }
+        future.addListener(any -> {
+            synchronized (writabilityMonitor) {
+                writabilityMonitor.notifyAll();
+            }
+        });
+        long deadline = System.nanoTime() + writeTimeout.get().toNanos();
+        synchronized (writabilityMonitor) {
+            while (channel.isConnected() && !channel.isWritable()) {
+                long remainingMs = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+                if (remainingMs <= 0) {
+                    channel.close();
+                    throw new IOException("Client did not read its responses within " + writeTimeout.get() + ", closing the channel");
+                }
+                try {
+                    writabilityMonitor.wait(Math.min(remainingMs, WRITABILITY_CHECK_INTERVAL_MS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the channel to be writable");
+                }
+            }
+        }
+    }
 }
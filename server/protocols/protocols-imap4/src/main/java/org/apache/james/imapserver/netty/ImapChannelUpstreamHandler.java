@@ -22,6 +22,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import javax.net.ssl.SSLContext;
 
@@ -46,6 +47,7 @@ import org.jboss.netty.channel.ExceptionEvent;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
 import org.jboss.netty.handler.codec.frame.TooLongFrameException;
+import org.jboss.netty.handler.execution.ExecutionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +75,7 @@ public class ImapChannelUpstreamHandler extends SimpleChannelUpstreamHandler imp
 
     private final Metric imapConnectionsMetric;
     private final Metric imapCommandsMetric;
+    private final ImapMetrics imapMetrics;
     
     public ImapChannelUpstreamHandler(String hello, ImapProcessor processor, ImapEncoder encoder, boolean compress,
                                       boolean plainAuthDisallowed, ImapMetrics imapMetrics) {
@@ -91,6 +94,7 @@ public class ImapChannelUpstreamHandler extends SimpleChannelUpstreamHandler imp
         this.plainAuthDisallowed = plainAuthDisallowed;
         this.imapConnectionsMetric = imapMetrics.getConnectionsMetric();
         this.imapCommandsMetric = imapMetrics.getCommandsMetric();
+        this.imapMetrics = imapMetrics;
     }
 
     @Override
@@ -128,7 +132,10 @@ public class ImapChannelUpstreamHandler extends SimpleChannelUpstreamHandler imp
             LOGGER.info("Connection established from {}", address.getAddress().getHostAddress());
             imapConnectionsMetric.increment();
 
-            ImapResponseComposer response = new ImapResponseComposerImpl(new ChannelImapResponseWriter(ctx.getChannel()));
+            // Without execution handler, responses are written from IO threads, which can not wait for writability
+            boolean backpressure = ctx.getPipeline().get(ExecutionHandler.class) != null;
+            ImapResponseComposer response = new ImapResponseComposerImpl(new ChannelImapResponseWriter(ctx.getChannel(), imapMetrics,
+                Optional.of(ChannelImapResponseWriter.DEFAULT_WRITE_TIMEOUT).filter(any -> backpressure)));
             ctx.setAttachment(response);
 
             // write hello to client
@@ -25,13 +25,19 @@ import org.apache.james.metrics.api.MetricFactory;
 public class ImapMetrics {
     private static final String IMAP_COMMANDS = "imapCommands";
     private static final String IMAP_CONNECTIONS = "imapConnections";
+    private static final String IMAP_RESPONSE_BYTES = "imapResponseBytes";
+    private static final String IMAP_LITERAL_STREAMED_BYTES = "imapLiteralStreamedBytes";
 
     private final Metric commandsMetric;
     private final Metric connectionsMetric;
+    private final Metric responseBytesMetric;
+    private final Metric literalStreamedBytesMetric;
 
     public ImapMetrics(MetricFactory metricFactory) {
         commandsMetric = metricFactory.generate(IMAP_COMMANDS);
         connectionsMetric = metricFactory.generate(IMAP_CONNECTIONS);
+        responseBytesMetric = metricFactory.generate(IMAP_RESPONSE_BYTES);
+        literalStreamedBytesMetric = metricFactory.generate(IMAP_LITERAL_STREAMED_BYTES);
     }
 
     public Metric getCommandsMetric() {
@@ -41,4 +47,18 @@ public class ImapMetrics {
     public Metric getConnectionsMetric() {
         return connectionsMetric;
     }
+
+    /**
+     * Bytes of response lines written from an in memory buffer
+     */
+    public Metric getResponseBytesMetric() {
+        return responseBytesMetric;
+    }
+
+    /**
+     * Bytes of literals streamed to the client without being buffered in memory
+     */
+    public Metric getLiteralStreamedBytesMetric() {
+        return literalStreamedBytesMetric;
+    }
 }
@@ -0,0 +1,141 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ChannelImapResponseWriterTest {
+    private static final byte[] RESPONSE = "* 1 FETCH (FLAGS (\\Seen))\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final Optional<Duration> WRITE_TIMEOUT = Optional.of(Duration.ofSeconds(10));
+
+    private Channel channel;
+    private AtomicBoolean writable;
+    private DefaultChannelFuture pendingWrite;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        channel = mock(Channel.class);
+        writable = new AtomicBoolean(false);
+        pendingWrite = new DefaultChannelFuture(channel, false);
+        when(channel.isConnected()).thenReturn(true);
+        when(channel.isWritable()).thenAnswer(invocation -> writable.get());
+        when(channel.write(any())).thenReturn(pendingWrite);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private Future<Void> writeAsync(ChannelImapResponseWriter writer) {
+        return executor.submit(() -> {
+            writer.write(RESPONSE);
+            return null;
+        });
+    }
+
+    @Test
+    void writeShouldNotWaitWhenTheChannelIsWritable() throws Exception {
+        writable.set(true);
+        ChannelImapResponseWriter writer = new ChannelImapResponseWriter(channel, true, Optional.empty(), WRITE_TIMEOUT);
+
+        writeAsync(writer).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void writeShouldNotWaitWhenBackpressureIsDisabled() throws Exception {
+        ChannelImapResponseWriter writer = new ChannelImapResponseWriter(channel, true, Optional.empty(), Optional.empty());
+
+        writeAsync(writer).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void writeShouldWaitUntilTheChannelIsWritableAgain() throws Exception {
+        ChannelImapResponseWriter writer = new ChannelImapResponseWriter(channel, true, Optional.empty(), WRITE_TIMEOUT);
+
+        Future<Void> write = writeAsync(writer);
+
+        assertThatThrownBy(() -> write.get(500, TimeUnit.MILLISECONDS))
+            .isInstanceOf(TimeoutException.class);
+
+        writable.set(true);
+        pendingWrite.setSuccess();
+
+        write.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void writeShouldBeReleasedWhenTheChannelBecomesWritableWhilePreviousWritesArePending() throws Exception {
+        ChannelImapResponseWriter writer = new ChannelImapResponseWriter(channel, true, Optional.empty(), WRITE_TIMEOUT);
+
+        Future<Void> write = writeAsync(writer);
+        writable.set(true);
+
+        write.get(1, TimeUnit.SECONDS);
+        assertThat(pendingWrite.isDone()).isFalse();
+    }
+
+    @Test
+    void writeShouldCloseTheChannelWhenTheClientDoesNotReadWithinTheTimeout() {
+        ChannelImapResponseWriter writer = new ChannelImapResponseWriter(channel, true, Optional.empty(), Optional.of(Duration.ofMillis(200)));
+
+        assertThatThrownBy(() -> writeAsync(writer).get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IOException.class);
+        verify(channel).close();
+    }
+
+    @Test
+    void writeShouldNotCloseTheChannelWhenItBecomesWritableInTime() throws Exception {
+        ChannelImapResponseWriter writer = new ChannelImapResponseWriter(channel, true, Optional.empty(), WRITE_TIMEOUT);
+
+        Future<Void> write = writeAsync(writer);
+        writable.set(true);
+        pendingWrite.setSuccess();
+        write.get(1, TimeUnit.SECONDS);
+
+        verify(channel, never()).close();
+    }
+}
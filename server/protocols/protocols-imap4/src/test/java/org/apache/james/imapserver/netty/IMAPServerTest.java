@@ -70,6 +70,8 @@ class IMAPServerTest {
     @RegisterExtension
     public TestIMAPClient testIMAPClient = new TestIMAPClient();
 
+    private RecordingMetricFactory metricFactory;
+
     private IMAPServer createImapServer(String configurationFile) throws Exception {
         FakeAuthenticator authenticator = new FakeAuthenticator();
         authenticator.addUser(USER, USER_PASS);
@@ -84,7 +86,7 @@ class IMAPServerTest {
             .noPreDeletionHooks()
             .storeQuotaManager()
             .build();
-        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        metricFactory = new RecordingMetricFactory();
         IMAPServer imapServer = new IMAPServer(
             DefaultImapDecoderFactory.createDecoder(),
             new DefaultImapEncoderFactory().buildImapEncoder(),
@@ -158,6 +160,19 @@ class IMAPServerTest {
                     .readFirstMessage())
                 .contains("\r\n" + _129K_MESSAGE + ")\r\n");
         }
+
+        @Test
+        void fetchShouldStreamLiterals() throws Exception {
+            testIMAPClient.connect("127.0.0.1", port)
+                .login(USER.asString(), USER_PASS)
+                .append("INBOX", _129K_MESSAGE);
+
+            testIMAPClient.select("INBOX")
+                .readFirstMessage();
+
+            assertThat(metricFactory.countFor("imapLiteralStreamedBytes"))
+                .isEqualTo(_129K_MESSAGE.length());
+        }
     }
 
     @Nested
@@ -24,7 +24,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import javax.inject.Inject;
+
 import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.WiringException;
 import org.apache.james.protocols.lmtp.LMTPMultiResponse;
@@ -44,6 +47,10 @@ public class DataLineLMTPHandler extends DataLineJamesMessageHookHandler {
 
     private final List<DeliverToRecipientHook> handlers = new ArrayList<>();
 
+    @Inject
+    public DataLineLMTPHandler(MetricFactory metricFactory) {
+        super(metricFactory);
+    }
 
     @Override
     protected Response processExtensions(SMTPSession session, Mail mail) {
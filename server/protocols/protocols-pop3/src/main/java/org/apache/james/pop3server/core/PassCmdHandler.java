@@ -34,6 +34,7 @@ import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.pop3server.mailbox.MailboxAdapter;
+import org.apache.james.pop3server.mailbox.MessageListingCache;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.lib.POP3BeforeSMTPHelper;
@@ -57,11 +58,13 @@ public class PassCmdHandler extends AbstractPassCmdHandler  {
     private static final Logger LOGGER = LoggerFactory.getLogger(PassCmdHandler.class);
 
     private final MailboxManager manager;
+    private final MessageListingCache listingCache;
 
     @Inject
-    public PassCmdHandler(@Named("mailboxmanager") MailboxManager manager, MetricFactory metricFactory) {
+    public PassCmdHandler(@Named("mailboxmanager") MailboxManager manager, MessageListingCache listingCache, MetricFactory metricFactory) {
         super(metricFactory);
         this.manager = manager;
+        this.listingCache = listingCache;
     }
 
     @Override
@@ -95,7 +98,7 @@ public class PassCmdHandler extends AbstractPassCmdHandler  {
                 LOGGER.info("Provisioning INBOX. {} created.", mailboxId);
             }
             MessageManager mailbox = manager.getMailbox(MailboxPath.inbox(mSession), mSession);
-            MailboxAdapter mailboxAdapter = new MailboxAdapter(manager, mailbox, mSession);
+            MailboxAdapter mailboxAdapter = new MailboxAdapter(manager, mailbox, mSession, listingCache);
             LOGGER.info("Opening mailbox {} {} with mailbox session {}",
                 mailbox.getId().serialize(),
                 mailbox.getMailboxPath().asString(),
@@ -50,11 +50,13 @@ public class MailboxAdapter implements Mailbox {
     private final MailboxSession session;
 
     private final MailboxManager mailboxManager;
+    private final MessageListingCache listingCache;
 
-    public MailboxAdapter(MailboxManager mailboxManager, MessageManager manager, MailboxSession session) {
+    public MailboxAdapter(MailboxManager mailboxManager, MessageManager manager, MailboxSession session, MessageListingCache listingCache) {
         this.manager = manager;
         this.session = session;
         this.mailboxManager = mailboxManager;
+        this.listingCache = listingCache;
     }
 
     @Override
@@ -111,6 +113,10 @@ public class MailboxAdapter implements Mailbox {
 
     @Override
     public List<MessageMetaData> getMessages() throws IOException {
+        return listingCache.retrieve(manager.getId(), this::listMessages);
+    }
+
+    private List<MessageMetaData> listMessages() throws IOException {
         try {
             mailboxManager.startProcessingRequest(session);
             Iterator<MessageResult> results = manager.getMessages(MessageRange.all(), METADATA_GROUP, session);
@@ -137,6 +143,7 @@ public class MailboxAdapter implements Mailbox {
         try {
             mailboxManager.startProcessingRequest(session);
             manager.delete(uidList, session);
+            listingCache.invalidate(manager.getId());
         } catch (MailboxException e) {
             String serializedUids = uidList
                 .stream()
@@ -0,0 +1,158 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.pop3server.mailbox;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.james.events.Event;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.EventListener;
+import org.apache.james.events.Registration;
+import org.apache.james.mailbox.events.MailboxEvents.Added;
+import org.apache.james.mailbox.events.MailboxEvents.Expunged;
+import org.apache.james.mailbox.events.MailboxEvents.MailboxDeletion;
+import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.protocols.pop3.mailbox.MessageMetaData;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps the POP3 listing (uids and sizes) of recently opened mailboxes so that repeated logins do not rescan them.
+ *
+ * Each cached listing holds a registration on its mailbox id, and is invalidated as soon as messages are added to
+ * or expunged from the mailbox, or when the mailbox is deleted. The registration is released upon eviction.
+ *
+ * Each entry weighs its message count plus a fixed registration cost, so that listings of small or empty mailboxes
+ * can not pile up registrations: at most {@link #MAXIMUM_REGISTRATIONS} registrations are held at once, fewer when
+ * cached mailboxes hold messages.
+ */
+@Singleton
+public class MessageListingCache {
+    @FunctionalInterface
+    public interface ListingLoader {
+        List<MessageMetaData> load() throws IOException;
+    }
+
+    private static class CachedListing {
+        private final List<MessageMetaData> listing;
+        private final Registration registration;
+
+        CachedListing(List<MessageMetaData> listing, Registration registration) {
+            this.listing = listing;
+            this.registration = registration;
+        }
+    }
+
+    private class InvalidationListener implements EventListener {
+        private final MailboxId mailboxId;
+        private volatile boolean invalidated;
+
+        InvalidationListener(MailboxId mailboxId) {
+            this.mailboxId = mailboxId;
+            this.invalidated = false;
+        }
+
+        @Override
+        public boolean isHandling(Event event) {
+            return event instanceof Added
+                || event instanceof Expunged
+                || event instanceof MailboxDeletion;
+        }
+
+        @Override
+        public void event(Event event) {
+            invalidated = true;
+            invalidate(mailboxId);
+        }
+    }
+
+    public static final long MAXIMUM_REGISTRATIONS = 10_000;
+    private static final long MAXIMUM_CACHED_MESSAGES = 1_000_000;
+    private static final int REGISTRATION_WEIGHT = Math.toIntExact(MAXIMUM_CACHED_MESSAGES / MAXIMUM_REGISTRATIONS);
+    private static final long EXPIRATION_MINUTES = 30;
+
+    private final EventBus eventBus;
+    private final Cache<MailboxId, CachedListing> cache;
+
+    @Inject
+    public MessageListingCache(EventBus eventBus) {
+        this.eventBus = eventBus;
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_CACHED_MESSAGES)
+            .<MailboxId, CachedListing>weigher((mailboxId, cachedListing) -> REGISTRATION_WEIGHT + cachedListing.listing.size())
+            .expireAfterAccess(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .removalListener(this::release)
+            .build();
+    }
+
+    /**
+     * Return the cached listing of the given mailbox, loading it if needed.
+     *
+     * The invalidation listener is registered before loading, so that no update happening while the mailbox is
+     * being scanned can be missed. A listing invalidated during its load is returned without being cached.
+     */
+    public List<MessageMetaData> retrieve(MailboxId mailboxId, ListingLoader loader) throws IOException {
+        CachedListing cachedListing = cache.getIfPresent(mailboxId);
+        if (cachedListing != null) {
+            return cachedListing.listing;
+        }
+
+        InvalidationListener listener = new InvalidationListener(mailboxId);
+        Registration registration = Mono.from(eventBus.register(listener, new MailboxIdRegistrationKey(mailboxId)))
+            .subscribeOn(Schedulers.elastic())
+            .block();
+        List<MessageMetaData> listing;
+        try {
+            listing = loader.load();
+        } catch (IOException | RuntimeException e) {
+            registration.unregister();
+            throw e;
+        }
+
+        if (listener.invalidated) {
+            registration.unregister();
+        } else {
+            cache.put(mailboxId, new CachedListing(listing, registration));
+            if (listener.invalidated) {
+                invalidate(mailboxId);
+            }
+        }
+        return listing;
+    }
+
+    public void invalidate(MailboxId mailboxId) {
+        cache.invalidate(mailboxId);
+    }
+
+    private void release(RemovalNotification<MailboxId, CachedListing> notification) {
+        notification.getValue().registration.unregister();
+    }
+}
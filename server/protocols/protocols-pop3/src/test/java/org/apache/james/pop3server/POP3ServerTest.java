@@ -32,6 +32,7 @@ import org.apache.commons.net.pop3.POP3MessageInfo;
 import org.apache.commons.net.pop3.POP3Reply;
 import org.apache.james.core.Username;
 import org.apache.james.domainlist.api.DomainList;
+import org.apache.james.events.EventBus;
 import org.apache.james.filesystem.api.FileSystem;
 import org.apache.james.filesystem.api.mock.MockFileSystem;
 import org.apache.james.mailbox.MailboxManager;
@@ -372,6 +373,37 @@ class POP3ServerTest {
         mailboxManager.deleteMailbox(mailboxPath, session);
     }
 
+    @Test
+    void listingShouldIncludeMessagesAppendedSincePreviousLogin() throws Exception {
+        finishSetUp(pop3Configuration);
+
+        pop3Client = new POP3Client();
+        InetSocketAddress bindedAddress = new ProtocolServerUtils(pop3Server).retrieveBindedAddress();
+        pop3Client.connect(bindedAddress.getAddress().getHostAddress(), bindedAddress.getPort());
+
+        Username username = Username.of("foo2");
+        usersRepository.addUser(username, "bar2");
+
+        MailboxPath mailboxPath = MailboxPath.inbox(username);
+        MailboxSession session = mailboxManager.login(username, "bar2");
+        mailboxManager.createMailbox(mailboxPath, session);
+        setupTestMails(session, mailboxManager.getMailbox(mailboxPath, session));
+
+        pop3Client.login("foo2", "bar2");
+        assertThat(pop3Client.listMessages()).hasSize(2);
+        pop3Client.logout();
+
+        mailboxManager.getMailbox(mailboxPath, session).appendMessage(MessageManager.AppendCommand.builder()
+            .build("EMPTY".getBytes()), session);
+
+        pop3Client.connect(bindedAddress.getAddress().getHostAddress(), bindedAddress.getPort());
+        pop3Client.login("foo2", "bar2");
+        assertThat(pop3Client.listMessages()).hasSize(3);
+        assertThat(pop3Client.status().number).isEqualTo(3);
+
+        mailboxManager.deleteMailbox(mailboxPath, session);
+    }
+
     /**
      * Test for JAMES-1202 -  Which shows that UIDL,STAT and LIST all show the same message numbers.
      */
@@ -716,7 +748,7 @@ class POP3ServerTest {
     }
 
     protected void setUpServiceManager() throws Exception {
-        mailboxManager = InMemoryIntegrationResources.builder()
+        InMemoryIntegrationResources resources = InMemoryIntegrationResources.builder()
             .authenticator((userid, passwd) -> {
                 try {
                     return usersRepository.test(userid, passwd.toString());
@@ -732,13 +764,14 @@ class POP3ServerTest {
             .scanningSearchIndex()
             .noPreDeletionHooks()
             .storeQuotaManager()
-            .build()
-            .getMailboxManager();
+            .build();
+        mailboxManager = resources.getMailboxManager();
         fileSystem = new MockFileSystem();
 
         protocolHandlerChain = MockProtocolHandlerLoader.builder()
             .put(binder -> binder.bind(UsersRepository.class).toInstance(usersRepository))
             .put(binder -> binder.bind(MailboxManager.class).annotatedWith(Names.named("mailboxmanager")).toInstance(mailboxManager))
+            .put(binder -> binder.bind(EventBus.class).toInstance(resources.getEventBus()))
             .put(binder -> binder.bind(FileSystem.class).toInstance(fileSystem))
             .put(binder -> binder.bind(MetricFactory.class).toInstance(new RecordingMetricFactory()))
             .build();
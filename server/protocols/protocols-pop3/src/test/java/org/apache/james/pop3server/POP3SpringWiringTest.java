@@ -0,0 +1,110 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.pop3server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.filesystem.api.mock.MockFileSystem;
+import org.apache.james.lifecycle.api.Configurable;
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.pop3server.core.PassCmdHandler;
+import org.apache.james.pop3server.mailbox.MessageListingCache;
+import org.apache.james.protocols.lib.handler.ProtocolHandlerLoader;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.GenericXmlApplicationContext;
+
+/**
+ * Checks that the POP3 Spring context provides what the POP3 handlers need, the way the Spring
+ * ProtocolHandlerLoader instantiates them.
+ */
+class POP3SpringWiringTest {
+    private HashedWheelTimer hashedWheelTimer;
+    private GenericXmlApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryIntegrationResources resources = InMemoryIntegrationResources.defaultResources();
+        hashedWheelTimer = new HashedWheelTimer();
+        context = new GenericXmlApplicationContext();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        beanFactory.registerSingleton("mailboxmanager", resources.getMailboxManager());
+        beanFactory.registerSingleton("event-bus", resources.getEventBus());
+        beanFactory.registerSingleton("metricFactory", new RecordingMetricFactory());
+        beanFactory.registerSingleton("hashedWheelTimer", hashedWheelTimer);
+        beanFactory.registerSingleton("protocolhandlerloader", (ProtocolHandlerLoader) (name, config) -> {
+            throw new UnsupportedOperationException();
+        });
+        beanFactory.registerSingleton("filesystem", new MockFileSystem());
+        // Stands for the configuration loading of the Spring container: no POP3 server is configured
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof Configurable) {
+                    try {
+                        ((Configurable) bean).configure(new BaseHierarchicalConfiguration());
+                    } catch (ConfigurationException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean;
+            }
+        });
+
+        context.load("classpath:META-INF/spring/pop3server-context.xml");
+        context.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+        hashedWheelTimer.stop();
+    }
+
+    @Test
+    void contextShouldDeclareASingleMessageListingCache() {
+        assertThat(context.getBeansOfType(MessageListingCache.class)).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void passCmdHandlerShouldBeCreatedFromTheContext() {
+        Object handler = context.getAutowireCapableBeanFactory()
+            .createBean(PassCmdHandler.class, AutowireCapableBeanFactory.AUTOWIRE_AUTODETECT, true);
+
+        assertThat(handler).isInstanceOf(PassCmdHandler.class);
+    }
+}
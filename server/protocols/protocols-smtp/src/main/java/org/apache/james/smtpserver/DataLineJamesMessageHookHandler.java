@@ -27,11 +27,14 @@ import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
 
+import javax.inject.Inject;
 import javax.mail.MessagingException;
 
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.lifecycle.api.LifecycleUtil;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.ExtensibleHandler;
@@ -56,12 +59,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 
 /**
  * Handles the calling of JamesMessageHooks
  */
 public class DataLineJamesMessageHookHandler implements DataLineFilter, ExtensibleHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataLineJamesMessageHookHandler.class);
+    private static final String DATA_MESSAGES = "smtpDataMessages";
+    private static final String DATA_SPOOLED_BYTES = "smtpDataSpooledBytes";
+
+    private final Metric dataMessagesMetric;
+    private final Metric dataSpooledBytesMetric;
 
     private List<JamesMessageHook> messageHandlers;
 
@@ -69,6 +78,12 @@ public class DataLineJamesMessageHookHandler implements DataLineFilter, Extensib
 
     private List<MessageHook> mHandlers;
 
+    @Inject
+    public DataLineJamesMessageHookHandler(MetricFactory metricFactory) {
+        this.dataMessagesMetric = metricFactory.generate(DATA_MESSAGES);
+        this.dataSpooledBytesMetric = metricFactory.generate(DATA_SPOOLED_BYTES);
+    }
+
     @Override
     public Response onLine(SMTPSession session, ByteBuffer lineByteBuffer, LineHandler<SMTPSession> next) {
 
@@ -86,6 +101,7 @@ public class DataLineJamesMessageHookHandler implements DataLineFilter, Extensib
             if (line.length == 3 && line[0] == 46) {
                 out.flush();
                 out.close();
+                recordSpooledMessage(mmiss);
 
                 List<MailAddress> recipientCollection = session.getAttachment(SMTPSession.RCPT_LIST, State.Transaction).orElse(ImmutableList.of());
                 MaybeSender sender = session.getAttachment(SMTPSession.SENDER, State.Transaction).orElse(MaybeSender.nullSender());
@@ -135,6 +151,11 @@ public class DataLineJamesMessageHookHandler implements DataLineFilter, Extensib
         return null;
     }
 
+    private void recordSpooledMessage(MimeMessageInputStreamSource mmiss) throws IOException {
+        dataMessagesMetric.increment();
+        dataSpooledBytesMetric.add(Ints.saturatedCast(mmiss.getMessageSize()));
+    }
+
     protected Response processExtensions(SMTPSession session, Mail mail) {
         if (mail != null && messageHandlers != null) {
             try {
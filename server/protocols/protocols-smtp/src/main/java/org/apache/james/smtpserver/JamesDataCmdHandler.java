@@ -52,7 +52,7 @@ public class JamesDataCmdHandler extends DataCmdHandler {
     @Override
     protected SMTPResponse doDATA(SMTPSession session, String argument) {
         try {
-            MimeMessageInputStreamSource mmiss = new MimeMessageInputStreamSource(MailImpl.getId());
+            MimeMessageInputStreamSource mmiss = new MimeMessageInputStreamSource(MailImpl.getId(), dataInMemoryThreshold(session));
             session.setAttachment(SMTPConstants.DATA_MIMEMESSAGE_STREAMSOURCE, mmiss, State.Transaction);
         } catch (Exception e) {
             LOGGER.warn("Error creating mimemessagesource for incoming data", e);
@@ -65,4 +65,11 @@ public class JamesDataCmdHandler extends DataCmdHandler {
         return new SMTPResponse(SMTPRetCode.DATA_READY, "Ok Send data ending with <CRLF>.<CRLF>");
     }
 
+    private int dataInMemoryThreshold(SMTPSession session) {
+        if (session instanceof ExtendedSMTPSession) {
+            return ((ExtendedSMTPSession) session).getDataInMemoryThreshold();
+        }
+        return MimeMessageInputStreamSource.DEFAULT_THRESHOLD;
+    }
+
 }
@@ -20,8 +20,11 @@ package org.apache.james.smtpserver.fastfail;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import javax.inject.Inject;
 
@@ -29,14 +32,22 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
-import org.apache.james.dnsservice.api.DNSService;
+import org.apache.james.dnsservice.api.ReactiveDNSService;
 import org.apache.james.protocols.api.handler.ProtocolHandler;
 
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Queries the configured rbl servers concurrently. Lookups are shared with concurrent sessions and cached by the
+ * {@link ReactiveDNSService}.
+ */
 public class DNSRBLHandler extends org.apache.james.protocols.smtp.core.fastfail.DNSRBLHandler implements ProtocolHandler {
-    private final DNSService dns;
+    private final ReactiveDNSService dns;
 
     @Inject
-    public DNSRBLHandler(DNSService dns) {
+    public DNSRBLHandler(ReactiveDNSService dns) {
         this.dns = dns;
     }
 
@@ -67,18 +78,29 @@ public class DNSRBLHandler extends org.apache.james.protocols.smtp.core.fastfail
         setGetDetail(handlerConfiguration.getBoolean("getDetail", false));
     }
 
+    @Override
+    protected Optional<String> findListingRbl(String reversedOctets, String[] rblList) {
+        String reversedIp = reversedOctets.substring(0, reversedOctets.length() - 1);
+        List<String> listingRbls = dns.findListingZones(reversedIp, Arrays.asList(rblList))
+            .collectList()
+            .block();
+        return Arrays.stream(rblList)
+            .filter(listingRbls::contains)
+            .findFirst();
+    }
+
     @Override
     protected boolean resolve(String ip) {
-        try {
-            dns.getByName(ip);
-            return true;
-        } catch (UnknownHostException e) {
-            return false;
-        }
+        return dns.getAllByName(ip)
+            .map(any -> true)
+            .onErrorResume(UnknownHostException.class, e -> Mono.just(false))
+            .block();
     }
 
     @Override
     protected Collection<String> resolveTXTRecords(String ip) {
-        return dns.findTXTRecords(ip);
+        return dns.findTXTRecords(ip)
+            .onErrorResume(UnknownHostException.class, e -> Mono.just(ImmutableList.of()))
+            .block();
     }
 }
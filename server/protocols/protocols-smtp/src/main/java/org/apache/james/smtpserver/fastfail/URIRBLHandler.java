@@ -19,11 +19,9 @@
 package org.apache.james.smtpserver.fastfail;
 
 import java.io.IOException;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Optional;
 
 import javax.inject.Inject;
@@ -35,7 +33,7 @@ import javax.mail.internet.MimePart;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
-import org.apache.james.dnsservice.api.DNSService;
+import org.apache.james.dnsservice.api.ReactiveDNSService;
 import org.apache.james.protocols.api.ProtocolSession;
 import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.handler.ProtocolHandler;
@@ -48,9 +46,15 @@ import org.apache.mailet.Mail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
 /**
  * Extract domains from message and check against URIRBLServer. For more
  * information see <a href="http://www.surbl.org">www.surbl.org</a>
+ *
+ * The domains are looked up concurrently against all the URIRBL servers.
  */
 public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
 
@@ -61,7 +65,7 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
 
     private static final ProtocolSession.AttachmentKey<String> URBLSERVER = ProtocolSession.AttachmentKey.of("URBL_SERVER", String.class);
 
-    private DNSService dnsService;
+    private ReactiveDNSService dnsService;
 
     private Collection<String> uriRbl;
 
@@ -72,7 +76,7 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
      * 
      * @return the dnsService
      */
-    public final DNSService getDNSService() {
+    public final ReactiveDNSService getDNSService() {
         return dnsService;
     }
 
@@ -83,7 +87,7 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
      *            the dnsService to set
      */
     @Inject
-    public final void setDNSService(DNSService dnsService) {
+    public final void setDNSService(ReactiveDNSService dnsService) {
         this.dnsService = dnsService;
     }
 
@@ -116,7 +120,7 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
 
             // we should try to retrieve details
             if (uRblServer.isPresent() && target.isPresent() && getDetail) {
-                Collection<String> txt = dnsService.findTXTRecords(target.get() + "." + uRblServer.get());
+                Collection<String> txt = dnsService.findTXTRecords(target.get() + "." + uRblServer.get()).block();
 
                 // Check if we found a txt record
                 if (!txt.isEmpty()) {
@@ -196,29 +200,22 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
 
             HashSet<String> domains = scanMailForDomains(message, session);
 
-            for (String domain : domains) {
-                Iterator<String> uRbl = uriRbl.iterator();
-                String target = domain;
-
-                while (uRbl.hasNext()) {
-                    try {
-                        String uRblServer = uRbl.next();
-                        String address = target + "." + uRblServer;
-
-                        LOGGER.debug("Lookup {}", address);
-
-                        dnsService.getByName(address);
-
-                        // store server name for later use
-                        session.setAttachment(URBLSERVER, uRblServer, State.Transaction);
-                        session.setAttachment(LISTED_DOMAIN, target, State.Transaction);
-
-                        return true;
-
-                    } catch (UnknownHostException uhe) {
-                        // domain not found. keep processing
-                    }
-                }
+            Optional<Tuple2<String, String>> listing = Flux.fromIterable(domains)
+                .flatMapSequential(domain -> dnsService.findListingZones(domain, uriRbl)
+                    .collectList()
+                    // keep the configured server order
+                    .flatMapMany(listingServers -> Flux.fromIterable(uriRbl)
+                        .filter(listingServers::contains))
+                    .take(1)
+                    .map(uRblServer -> Tuples.of(domain, uRblServer)))
+                .next()
+                .blockOptional();
+
+            if (listing.isPresent()) {
+                // store server name for later use
+                session.setAttachment(URBLSERVER, listing.get().getT2(), State.Transaction);
+                session.setAttachment(LISTED_DOMAIN, listing.get().getT1(), State.Transaction);
+                return true;
             }
         } catch (MessagingException | IOException e) {
             LOGGER.error(e.getMessage());
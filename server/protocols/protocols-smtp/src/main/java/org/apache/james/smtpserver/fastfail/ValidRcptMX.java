@@ -18,10 +18,11 @@
  ****************************************************************/
 package org.apache.james.smtpserver.fastfail;
 
+import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -31,6 +32,7 @@ import org.apache.james.core.Domain;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.dnsservice.api.DNSService;
+import org.apache.james.dnsservice.api.ReactiveDNSService;
 import org.apache.james.dnsservice.api.TemporaryResolutionException;
 import org.apache.james.dnsservice.library.netmatcher.NetMatcher;
 import org.apache.james.protocols.api.handler.ProtocolHandler;
@@ -45,19 +47,26 @@ import org.slf4j.LoggerFactory;
 
 import com.github.steveash.guavate.Guavate;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * This class can be used to reject email with bogus MX which is send from a
  * authorized user or an authorized network.
+ *
+ * The MX hosts of the recipient domain are resolved concurrently.
  */
 public class ValidRcptMX implements RcptHook, ProtocolHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(ValidRcptMX.class);
 
     private  final DNSService dnsService;
+    private final ReactiveDNSService reactiveDNSService;
     private NetMatcher bNetwork = null;
 
     @Inject
-    public ValidRcptMX(DNSService dnsService) {
+    public ValidRcptMX(DNSService dnsService, ReactiveDNSService reactiveDNSService) {
         this.dnsService = dnsService;
+        this.reactiveDNSService = reactiveDNSService;
     }
 
     /**
@@ -78,38 +87,40 @@ public class ValidRcptMX implements RcptHook, ProtocolHandler {
         // Email should be deliver local
         if (!domain.equals(Domain.LOCALHOST)) {
 
-            Iterator<String> mx;
+            List<String> mx;
             try {
-                mx = dnsService.findMXRecords(domain.name()).iterator();
-            } catch (TemporaryResolutionException e1) {
-                return HookResult.DENYSOFT;
+                mx = reactiveDNSService.findMXRecords(domain.name()).block();
+            } catch (RuntimeException e) {
+                if (e.getCause() instanceof TemporaryResolutionException) {
+                    return HookResult.DENYSOFT;
+                }
+                throw e;
             }
 
-            if (mx != null && mx.hasNext()) {
-                while (mx.hasNext()) {
-                    String mxRec = mx.next();
-
-                    try {
-                        String ip = dnsService.getByName(mxRec).getHostAddress();
-
-                        // Check for invalid MX
-                        if (bNetwork.matchInetNetwork(ip)) {
-                            return HookResult.builder()
-                                .hookReturnCode(HookReturnCode.deny())
-                                .smtpReturnCode(SMTPRetCode.AUTH_REQUIRED)
-                                .smtpDescription(DSNStatus.getStatus(DSNStatus.PERMANENT, DSNStatus.SECURITY_AUTH)
-                                    + " Invalid MX " + session.getRemoteAddress().getAddress().toString() + " for domain " + domain.asString() + ". Reject email")
-                                .build();
-                        }
-                    } catch (UnknownHostException e) {
-                        // Ignore this
-                    }
-                }
+            // Check for invalid MX
+            if (hasInvalidMX(mx)) {
+                return HookResult.builder()
+                    .hookReturnCode(HookReturnCode.deny())
+                    .smtpReturnCode(SMTPRetCode.AUTH_REQUIRED)
+                    .smtpDescription(DSNStatus.getStatus(DSNStatus.PERMANENT, DSNStatus.SECURITY_AUTH)
+                        + " Invalid MX " + session.getRemoteAddress().getAddress().toString() + " for domain " + domain.asString() + ". Reject email")
+                    .build();
             }
         }
         return HookResult.DECLINED;
     }
 
+    private boolean hasInvalidMX(List<String> mx) {
+        return Flux.fromIterable(mx)
+            .flatMap(mxRec -> reactiveDNSService.getAllByName(mxRec)
+                .map(addresses -> addresses.get(0))
+                .map(InetAddress::getHostAddress)
+                // Ignore unresolvable MX
+                .onErrorResume(UnknownHostException.class, e -> Mono.empty()))
+            .any(bNetwork::matchInetNetwork)
+            .block();
+    }
+
     @Override
     public void init(Configuration config) throws ConfigurationException {
 
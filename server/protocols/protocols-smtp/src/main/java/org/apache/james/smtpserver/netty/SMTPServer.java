@@ -36,6 +36,7 @@ import org.apache.james.protocols.netty.ChannelHandlerFactory;
 import org.apache.james.protocols.smtp.AllButStartTlsLineChannelHandlerFactory;
 import org.apache.james.protocols.smtp.SMTPConfiguration;
 import org.apache.james.protocols.smtp.SMTPProtocol;
+import org.apache.james.server.core.MimeMessageInputStreamSource;
 import org.apache.james.smtpserver.CoreCmdHandlerLoader;
 import org.apache.james.smtpserver.ExtendedSMTPSession;
 import org.apache.james.smtpserver.jmx.JMXHandlersLoader;
@@ -79,6 +80,11 @@ public class SMTPServer extends AbstractProtocolAsyncServer implements SMTPServe
      */
     private long maxMessageSize = 0;
 
+    /**
+     * Count of bytes of the DATA being received kept in memory before spooling it to a temporary file.
+     */
+    private int dataInMemoryThreshold = MimeMessageInputStreamSource.DEFAULT_THRESHOLD;
+
     /**
      * The configuration data to be passed to the handler
      */
@@ -176,6 +182,10 @@ public class SMTPServer extends AbstractProtocolAsyncServer implements SMTPServe
                 LOGGER.info("No maximum message size is enforced for this server.");
             }
 
+            // get the in memory DATA threshold from the conf file and multiply
+            // by 1024, to put it in bytes
+            dataInMemoryThreshold = configuration.getInt("dataInMemoryThreshold", dataInMemoryThreshold / 1024) * 1024;
+
             heloEhloEnforcement = configuration.getBoolean("heloEhloEnforcement", true);
 
             if (authRequiredString.equals("true")) {
@@ -264,6 +274,13 @@ public class SMTPServer extends AbstractProtocolAsyncServer implements SMTPServe
             return SMTPServer.this.verifyIdentity;
         }
 
+        /**
+         * Return the count of bytes of the DATA kept in memory before spooling it to a temporary file
+         */
+        public int getDataInMemoryThreshold() {
+            return SMTPServer.this.dataInMemoryThreshold;
+        }
+
         @Override
         public String getGreeting() {
             return SMTPServer.this.smtpGreeting;
@@ -36,7 +36,8 @@ import javax.mail.internet.MimeMessage;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.core.builder.MimeMessageBuilder;
-import org.apache.james.dnsservice.api.DNSService;
+import org.apache.james.dnsservice.api.ReactiveDNSService;
+import org.apache.james.dnsservice.api.ReactiveDNSServiceAdapter;
 import org.apache.james.dnsservice.api.mock.MockDNSService;
 import org.apache.james.protocols.smtp.SMTPSession;
 import org.apache.james.protocols.smtp.hook.HookResult;
@@ -48,6 +49,7 @@ import org.apache.mailet.base.test.FakeMail;
 import org.junit.jupiter.api.Test;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 class URIRBLHandlerTest {
 
@@ -143,9 +145,9 @@ class URIRBLHandlerTest {
      * Setup the mocked dnsserver
      * 
      */
-    private DNSService setupMockedDnsServer() {
+    private ReactiveDNSService setupMockedDnsServer() {
 
-        return new MockDNSService() {
+        return new ReactiveDNSServiceAdapter(new MockDNSService() {
 
             @Override
             public Collection<String> findTXTRecords(String hostname) {
@@ -160,6 +162,11 @@ class URIRBLHandlerTest {
                 return res;
             }
 
+            @Override
+            public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+                return ImmutableList.of(getByName(host));
+            }
+
             @Override
             public InetAddress getByName(String host) throws UnknownHostException {
                 if ((BAD_DOMAIN1.substring(4) + "." + URISERVER).equals(host)) {
@@ -171,7 +178,7 @@ class URIRBLHandlerTest {
                 }
                 throw new UnsupportedOperationException("getByName(" + host + ") not implemented by this mock");
             }
-        };
+        });
     }
 
     @Test
@@ -0,0 +1,137 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.webadmin.routes;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.apache.james.server.blob.deduplication.BlobGCTask;
+import org.apache.james.server.blob.deduplication.BloomFilterGCAlgorithm;
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskManager;
+import org.apache.james.webadmin.Constants;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.tasks.TaskFromRequestRegistry;
+import org.apache.james.webadmin.tasks.TaskIdDto;
+import org.apache.james.webadmin.tasks.TaskRegistrationKey;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.eclipse.jetty.http.HttpStatus;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.ResponseHeader;
+import spark.Request;
+import spark.Route;
+import spark.Service;
+
+@Api(tags = "Blobs")
+@Path(BlobRoutes.BASE_PATH)
+@Produces(Constants.JSON_CONTENT_TYPE)
+public class BlobRoutes implements Routes {
+    public static final String BASE_PATH = "/blobs";
+    private static final TaskRegistrationKey UNREFERENCED = TaskRegistrationKey.of("unreferenced");
+    private static final String SCOPE_PARAMETER = "scope";
+    private static final String EXPECTED_BLOB_COUNT_PARAMETER = "expectedBlobCount";
+    private static final String ASSOCIATED_PROBABILITY_PARAMETER = "associatedProbability";
+    private static final String DRY_RUN_PARAMETER = "dryRun";
+
+    private final TaskManager taskManager;
+    private final JsonTransformer jsonTransformer;
+    private final BloomFilterGCAlgorithm gcAlgorithm;
+    private final Clock clock;
+
+    @Inject
+    public BlobRoutes(TaskManager taskManager, JsonTransformer jsonTransformer, BloomFilterGCAlgorithm gcAlgorithm, Clock clock) {
+        this.taskManager = taskManager;
+        this.jsonTransformer = jsonTransformer;
+        this.gcAlgorithm = gcAlgorithm;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getBasePath() {
+        return BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        service.delete(BASE_PATH, gcUnreferencedBlobs(), jsonTransformer);
+    }
+
+    @DELETE
+    @Path(BASE_PATH)
+    @ApiOperation(value = "Garbage collection of the blobs of the default bucket that are no longer referenced")
+    @ApiImplicitParams({
+        @ApiImplicitParam(required = true, dataType = "String", name = SCOPE_PARAMETER, paramType = "query",
+            example = "?scope=unreferenced", value = "Only 'unreferenced' is supported."),
+        @ApiImplicitParam(dataType = "Long", name = EXPECTED_BLOB_COUNT_PARAMETER, paramType = "query",
+            example = "?expectedBlobCount=1000000", value = "Expected count of referenced blobs, used to size the Bloom filter. Defaults to 1000000."),
+        @ApiImplicitParam(dataType = "Double", name = ASSOCIATED_PROBABILITY_PARAMETER, paramType = "query",
+            example = "?associatedProbability=0.01", value = "Accepted false positive probability of the Bloom filter. Defaults to 0.01."),
+        @ApiImplicitParam(dataType = "Boolean", name = DRY_RUN_PARAMETER, paramType = "query",
+            example = "?dryRun=true", value = "When true, unreferenced blobs are only reported. Defaults to false.")
+    })
+    @ApiResponses(value = {
+        @ApiResponse(code = HttpStatus.CREATED_201, message = "The taskId of the given scheduled task", response = TaskIdDto.class,
+            responseHeaders = {
+                @ResponseHeader(name = "Location", description = "URL of the resource associated with the scheduled task")
+            }),
+        @ApiResponse(code = HttpStatus.BAD_REQUEST_400, message = "Invalid scope or Bloom filter parameters")
+    })
+    public Route gcUnreferencedBlobs() {
+        return TaskFromRequestRegistry.builder()
+            .parameterName(SCOPE_PARAMETER)
+            .register(UNREFERENCED, this::gcTask)
+            .buildAsRoute(taskManager);
+    }
+
+    private Task gcTask(Request request) {
+        return new BlobGCTask(gcAlgorithm, clock,
+            parameter(request, EXPECTED_BLOB_COUNT_PARAMETER, Long::parseLong).orElse(BlobGCTask.DEFAULT_EXPECTED_BLOB_COUNT),
+            parameter(request, ASSOCIATED_PROBABILITY_PARAMETER, Double::parseDouble).orElse(BlobGCTask.DEFAULT_ASSOCIATED_PROBABILITY),
+            parameter(request, DRY_RUN_PARAMETER, this::parseBoolean).orElse(false));
+    }
+
+    private <T> Optional<T> parameter(Request request, String parameterName, Function<String, T> parser) {
+        try {
+            return Optional.ofNullable(request.queryParams(parameterName))
+                .map(parser);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Illegal value supplied for query parameter '%s'", parameterName), e);
+        }
+    }
+
+    private boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        throw new IllegalArgumentException(value + " is not a boolean");
+    }
+}
@@ -0,0 +1,263 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.webadmin.routes;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static io.restassured.RestAssured.with;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.json.DTOConverter;
+import org.apache.james.server.blob.deduplication.BlobGCTask;
+import org.apache.james.server.blob.deduplication.BlobGCTaskAdditionalInformationDTO;
+import org.apache.james.server.blob.deduplication.BloomFilterGCAlgorithm;
+import org.apache.james.server.blob.deduplication.GenerationAwareBlobId;
+import org.apache.james.task.Hostname;
+import org.apache.james.task.MemoryTaskManager;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.apache.james.webadmin.utils.ErrorResponder;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import io.restassured.RestAssured;
+import reactor.core.publisher.Flux;
+
+class BlobRoutesTest {
+    private static final BucketName BUCKET = BucketName.DEFAULT;
+    private static final Instant NOW = Instant.parse("2021-01-01T00:00:00Z");
+    private static final GenerationAwareBlobId.Configuration CONFIGURATION = GenerationAwareBlobId.Configuration.DEFAULT;
+
+    private WebAdminServer webAdminServer;
+    private MemoryTaskManager taskManager;
+    private MemoryBlobStoreDAO blobStoreDAO;
+    private UpdatableTickingClock clock;
+    private GenerationAwareBlobId.Factory blobIdFactory;
+
+    @BeforeEach
+    void setUp() {
+        blobStoreDAO = new MemoryBlobStoreDAO();
+        clock = new UpdatableTickingClock(NOW);
+        blobIdFactory = new GenerationAwareBlobId.Factory(clock, new HashBlobId.Factory(), CONFIGURATION);
+        BloomFilterGCAlgorithm gcAlgorithm = new BloomFilterGCAlgorithm(blobStoreDAO, BUCKET, ImmutableSet.of(), CONFIGURATION, clock);
+
+        JsonTransformer jsonTransformer = new JsonTransformer();
+        taskManager = new MemoryTaskManager(new Hostname("foo"));
+        webAdminServer = WebAdminUtils.createWebAdminServer(
+                new BlobRoutes(taskManager, jsonTransformer, gcAlgorithm, clock),
+                new TasksRoutes(taskManager, jsonTransformer, DTOConverter.of(BlobGCTaskAdditionalInformationDTO.module())))
+            .start();
+
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer)
+            .setBasePath(BlobRoutes.BASE_PATH)
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        webAdminServer.destroy();
+        taskManager.stop();
+    }
+
+    private BlobId saveExpiredBlob(String content) {
+        BlobId blobId = blobIdFactory.forPayload(content.getBytes(StandardCharsets.UTF_8));
+        blobStoreDAO.save(BUCKET, blobId, content.getBytes(StandardCharsets.UTF_8)).block();
+        clock.setInstant(NOW.plus(CONFIGURATION.getDuration().multipliedBy(3)));
+        return blobId;
+    }
+
+    @Test
+    void deleteUnreferencedShouldCreateATask() {
+        given()
+            .queryParam("scope", "unreferenced")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.CREATED_201)
+            .header("Location", is(notNullValue()))
+            .body("taskId", is(notNullValue()));
+    }
+
+    @Test
+    void deleteUnreferencedShouldCollectUnreferencedBlobs() {
+        saveExpiredBlob("unreferenced");
+
+        String taskId = with()
+            .queryParam("scope", "unreferenced")
+            .delete()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("completed"))
+            .body("taskId", is(taskId))
+            .body("type", is(BlobGCTask.TASK_TYPE.asString()))
+            .body("additionalInformation.referenceSourceCount", is(0))
+            .body("additionalInformation.blobCount", is(1))
+            .body("additionalInformation.gcedBlobCount", is(1))
+            .body("additionalInformation.errorCount", is(0))
+            .body("additionalInformation.bloomFilterExpectedBlobCount", is(1_000_000))
+            .body("additionalInformation.bloomFilterAssociatedProbability", is(0.01F))
+            .body("additionalInformation.dryRun", is(false));
+
+        assertThat(Flux.from(blobStoreDAO.listBlobs(BUCKET)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void deleteUnreferencedShouldNotDeleteBlobsWhenDryRun() {
+        BlobId blobId = saveExpiredBlob("unreferenced");
+
+        String taskId = with()
+            .queryParam("scope", "unreferenced")
+            .queryParam("dryRun", "true")
+            .delete()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("completed"))
+            .body("additionalInformation.gcedBlobCount", is(1))
+            .body("additionalInformation.dryRun", is(true));
+
+        assertThat(Flux.from(blobStoreDAO.listBlobs(BUCKET)).collectList().block())
+            .containsOnly(blobId);
+    }
+
+    @Test
+    void deleteUnreferencedShouldAcceptBloomFilterParameters() {
+        String taskId = with()
+            .queryParam("scope", "unreferenced")
+            .queryParam("expectedBlobCount", "100")
+            .queryParam("associatedProbability", "0.2")
+            .delete()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("completed"))
+            .body("additionalInformation.bloomFilterExpectedBlobCount", is(100))
+            .body("additionalInformation.bloomFilterAssociatedProbability", is(0.2F));
+    }
+
+    @Test
+    void deleteShouldRequireScope() {
+        when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()))
+            .body("message", is("Invalid arguments supplied in the user request"))
+            .body("details", is("'scope' query parameter is compulsory. Supported values are [unreferenced]"));
+    }
+
+    @Test
+    void deleteShouldRejectInvalidScope() {
+        given()
+            .queryParam("scope", "invalid")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()))
+            .body("details", is("Invalid value supplied for query parameter 'scope': invalid. Supported values are [unreferenced]"));
+    }
+
+    @Test
+    void deleteShouldRejectInvalidExpectedBlobCount() {
+        given()
+            .queryParam("scope", "unreferenced")
+            .queryParam("expectedBlobCount", "invalid")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()));
+    }
+
+    @Test
+    void deleteShouldRejectNonPositiveExpectedBlobCount() {
+        given()
+            .queryParam("scope", "unreferenced")
+            .queryParam("expectedBlobCount", "0")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()));
+    }
+
+    @Test
+    void deleteShouldRejectInvalidAssociatedProbability() {
+        given()
+            .queryParam("scope", "unreferenced")
+            .queryParam("associatedProbability", "1.5")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()));
+    }
+
+    @Test
+    void deleteShouldRejectInvalidDryRun() {
+        given()
+            .queryParam("scope", "unreferenced")
+            .queryParam("dryRun", "invalid")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()));
+    }
+}
@@ -44,6 +44,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Date;
@@ -53,6 +54,7 @@ import java.util.Map;
 import javax.mail.Flags;
 
 import org.apache.james.backends.es.v7.DockerElasticSearchExtension;
+import org.apache.james.backends.es.v7.ElasticSearchBulkIndexer;
 import org.apache.james.backends.es.v7.ElasticSearchIndexer;
 import org.apache.james.backends.es.v7.ReactorElasticSearchClient;
 import org.apache.james.core.Username;
@@ -98,6 +100,7 @@ import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.mail.model.impl.PropertyBuilder;
 import org.apache.james.mailbox.store.mail.model.impl.SimpleMailboxMessage;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndex;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.apache.james.task.Hostname;
 import org.apache.james.task.MemoryTaskManager;
 import org.apache.james.user.api.UsersRepository;
@@ -1173,6 +1176,9 @@ class UserMailboxesRoutesTest {
 
             InMemoryMessageId.Factory messageIdFactory = new InMemoryMessageId.Factory();
             MailboxIdRoutingKeyFactory routingKeyFactory = new MailboxIdRoutingKeyFactory();
+            ElasticSearchIndexer indexer = new ElasticSearchIndexer(client,
+                MailboxElasticSearchConstants.DEFAULT_MAILBOX_WRITE_ALIAS);
+            ElasticSearchBulkIndexer bulkIndexer = new ElasticSearchBulkIndexer(indexer, 1, Duration.ZERO, new RecordingMetricFactory());
 
             InMemoryIntegrationResources resources = InMemoryIntegrationResources.builder()
                 .preProvisionnedFakeAuthenticator()
@@ -1182,8 +1188,8 @@ class UserMailboxesRoutesTest {
                 .defaultMessageParser()
                 .listeningSearchIndex(preInstanciationStage -> new ElasticSearchListeningMessageSearchIndex(
                     preInstanciationStage.getMapperFactory(),
-                    new ElasticSearchIndexer(client,
-                        MailboxElasticSearchConstants.DEFAULT_MAILBOX_WRITE_ALIAS),
+                    indexer,
+                    bulkIndexer,
                     new ElasticSearchSearcher(client, new QueryConverter(new CriterionConverter()), SEARCH_SIZE,
                         new InMemoryId.Factory(), messageIdFactory,
                         MailboxElasticSearchConstants.DEFAULT_MAILBOX_READ_ALIAS, routingKeyFactory),
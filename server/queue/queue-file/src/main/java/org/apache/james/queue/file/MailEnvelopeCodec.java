@@ -0,0 +1,159 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.file;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.mail.internet.AddressException;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.MaybeSender;
+import org.apache.james.server.core.MailImpl;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeName;
+import org.apache.mailet.AttributeValue;
+import org.apache.mailet.Mail;
+import org.apache.mailet.PerRecipientHeaders.Header;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Binary encoding of the {@link Mail} envelope (everything but the MimeMessage) stored in the segment log.
+ *
+ * Strings are written as a length prefixed UTF-8 byte array, attribute values as their JSON representation.
+ */
+class MailEnvelopeCodec {
+    private static final byte VERSION = 1;
+    private static final int NULL_STRING = -1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    static void encode(Mail mail, DataOutput out) throws IOException {
+        out.writeByte(VERSION);
+        writeString(out, mail.getName());
+        writeString(out, mail.getState());
+        writeString(out, mail.getErrorMessage());
+        out.writeLong(Optional.ofNullable(mail.getLastUpdated())
+            .map(Date::getTime)
+            .orElse(NO_DATE));
+        writeString(out, mail.getMaybeSender().asOptional()
+            .map(MailAddress::asString)
+            .orElse(null));
+        out.writeInt(mail.getRecipients().size());
+        for (MailAddress recipient : mail.getRecipients()) {
+            writeString(out, recipient.asString());
+        }
+        writeString(out, mail.getRemoteHost());
+        writeString(out, mail.getRemoteAddr());
+
+        ImmutableList<Attribute> attributes = mail.attributes().collect(Guavate.toImmutableList());
+        out.writeInt(attributes.size());
+        for (Attribute attribute : attributes) {
+            writeString(out, attribute.getName().asString());
+            writeString(out, attribute.getValue().toJson().toString());
+        }
+
+        ImmutableList<Map.Entry<MailAddress, Header>> perRecipientHeaders = ImmutableList.copyOf(mail.getPerRecipientSpecificHeaders()
+            .getHeadersByRecipient()
+            .entries());
+        out.writeInt(perRecipientHeaders.size());
+        for (Map.Entry<MailAddress, Header> entry : perRecipientHeaders) {
+            writeString(out, entry.getKey().asString());
+            writeString(out, entry.getValue().getName());
+            writeString(out, entry.getValue().getValue());
+        }
+    }
+
+    static MailImpl decode(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported mail envelope version " + version);
+        }
+        MailImpl.Builder builder = MailImpl.builder()
+            .name(readString(in))
+            .state(readString(in))
+            .errorMessage(readString(in));
+        long lastUpdated = in.readLong();
+        if (lastUpdated != NO_DATE) {
+            builder.lastUpdated(new Date(lastUpdated));
+        }
+        builder.sender(Optional.ofNullable(readString(in))
+            .map(MaybeSender::getMailSender)
+            .orElse(MaybeSender.nullSender()));
+        int recipientCount = in.readInt();
+        for (int i = 0; i < recipientCount; i++) {
+            builder.addRecipient(readMailAddress(in));
+        }
+        builder.remoteHost(readString(in))
+            .remoteAddr(readString(in));
+
+        int attributeCount = in.readInt();
+        for (int i = 0; i < attributeCount; i++) {
+            AttributeName name = AttributeName.of(readString(in));
+            builder.addAttribute(new Attribute(name, AttributeValue.fromJsonString(readString(in))));
+        }
+
+        int headerCount = in.readInt();
+        for (int i = 0; i < headerCount; i++) {
+            MailAddress recipient = readMailAddress(in);
+            builder.addHeaderForRecipient(Header.builder()
+                    .name(readString(in))
+                    .value(readString(in))
+                    .build(),
+                recipient);
+        }
+        return builder.build();
+    }
+
+    private static MailAddress readMailAddress(DataInput in) throws IOException {
+        String address = readString(in);
+        try {
+            return new MailAddress(address);
+        } catch (AddressException e) {
+            throw new IOException("Invalid mail address " + address, e);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,531 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.file;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Append-only log of records split into numbered segment files. Recovering it reads each segment once,
+ * sequentially.
+ * <p/>
+ * Each record is framed as <code>[payload length][CRC32 of the payload][payload]</code>. A record torn by a crash is
+ * detected on recovery thanks to its length or its checksum, and the segment is truncated before it.
+ * <p/>
+ * Small records are appended under the log lock. Streamed payloads are only measured before taking it: the lock is
+ * held to reserve a region for the record, which is then written concurrently with other appends.
+ * <p/>
+ * When <code>sync</code> is enabled, <code>fsync</code> is group committed: the first thread waiting for its record
+ * to be durable forces the segments once for all the records completed so far, the threads queued behind it usually
+ * find their record already durable.
+ * <p/>
+ * Callers retain the records they still need and {@link #release(Position)} them once obsolete.
+ * Segments are deleted oldest first once none of their records is retained, so that a record never outlives an older
+ * record it supersedes.
+ */
+class SegmentLog implements Closeable {
+    interface RecordVisitor {
+        void visit(Position position, ByteBuffer payload) throws IOException;
+    }
+
+    interface PayloadWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes sequentially to a reserved region of a channel, leaving the channel position untouched.
+     */
+    private static class RegionOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long offset;
+
+        RegionOutputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.offset = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (offset + len > end) {
+                throw new IOException("Payload exceeds its reserved region");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+        }
+
+        boolean isFull() {
+            return offset == end;
+        }
+    }
+
+    static class Position {
+        private final long segmentId;
+        private final long payloadOffset;
+        private final int payloadLength;
+        private final long sequence;
+
+        Position(long segmentId, long payloadOffset, int payloadLength, long sequence) {
+            this.segmentId = segmentId;
+            this.payloadOffset = payloadOffset;
+            this.payloadLength = payloadLength;
+            this.sequence = sequence;
+        }
+
+        long getSegmentId() {
+            return segmentId;
+        }
+
+        long getPayloadOffset() {
+            return payloadOffset;
+        }
+
+        int getPayloadLength() {
+            return payloadLength;
+        }
+    }
+
+    private static class Segment {
+        private final long id;
+        private final File file;
+        private final FileChannel channel;
+        private final AtomicInteger retainedRecords;
+        private int recordCount;
+        private long size;
+        private boolean dirty;
+
+        Segment(long id, File file, FileChannel channel, long size) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.retainedRecords = new AtomicInteger();
+            this.size = size;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentLog.class);
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("(\\d{20})\\.segment");
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int SPARSE_SEGMENT_RATIO = 10;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    static SegmentLog open(File directory, long maxSegmentSize, boolean sync, RecordVisitor visitor) throws IOException {
+        FileUtils.forceMkdir(directory);
+        SegmentLog log = new SegmentLog(directory, maxSegmentSize, sync);
+        log.recover(visitor);
+        return log;
+    }
+
+    private final File directory;
+    private final long maxSegmentSize;
+    private final boolean sync;
+    private final ConcurrentSkipListMap<Long, Segment> segments;
+    private final Object syncLock;
+    private final TreeSet<Long> pendingRecords;
+    private Segment activeSegment;
+    private long appendedSequence;
+    private volatile long durableSequence;
+
+    private SegmentLog(File directory, long maxSegmentSize, boolean sync) {
+        Preconditions.checkArgument(maxSegmentSize > HEADER_SIZE, "maxSegmentSize should be greater than " + HEADER_SIZE);
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.sync = sync;
+        this.segments = new ConcurrentSkipListMap<>();
+        this.syncLock = new Object();
+        this.pendingRecords = new TreeSet<>();
+    }
+
+    private void recover(RecordVisitor visitor) throws IOException {
+        ImmutableList<Long> segmentIds = Arrays.stream(Optional.ofNullable(directory.list()).orElse(new String[0]))
+            .map(SEGMENT_FILE_NAME::matcher)
+            .filter(Matcher::matches)
+            .map(matcher -> Long.parseLong(matcher.group(1)))
+            .sorted()
+            .collect(Guavate.toImmutableList());
+
+        for (long segmentId : segmentIds) {
+            recoverSegment(segmentId, visitor);
+        }
+        synchronized (this) {
+            if (segments.isEmpty()) {
+                activeSegment = createSegment(0L);
+            } else {
+                activeSegment = segments.lastEntry().getValue();
+            }
+            durableSequence = appendedSequence;
+        }
+    }
+
+    private void recoverSegment(long segmentId, RecordVisitor visitor) throws IOException {
+        File file = segmentFile(segmentId);
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        Segment segment = new Segment(segmentId, file, channel, 0L);
+        segments.put(segmentId, segment);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (segment.size < fileSize) {
+            header.clear();
+            if (fileSize - segment.size < HEADER_SIZE || !readFully(channel, header, segment.size)) {
+                break;
+            }
+            header.flip();
+            int payloadLength = header.getInt();
+            int checksum = header.getInt();
+            long payloadOffset = segment.size + HEADER_SIZE;
+            if (payloadLength < 0) {
+                // Region reserved for a record which was never completed
+                long regionLength = ~payloadLength;
+                if (regionLength > fileSize - payloadOffset) {
+                    break;
+                }
+                segment.size = payloadOffset + regionLength;
+                appendedSequence += HEADER_SIZE + regionLength;
+                continue;
+            }
+            if (payloadLength > fileSize - payloadOffset) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            if (!readFully(channel, payload, payloadOffset) || checksum(payload.array()) != checksum) {
+                break;
+            }
+            payload.flip();
+
+            segment.size = payloadOffset + payloadLength;
+            segment.recordCount++;
+            appendedSequence += HEADER_SIZE + payloadLength;
+            visitor.visit(new Position(segmentId, payloadOffset, payloadLength, appendedSequence), payload);
+        }
+
+        if (segment.size < fileSize) {
+            LOGGER.warn("Truncating {} from {} to {} bytes: its last record is incomplete or corrupted", file, fileSize, segment.size);
+            channel.truncate(segment.size);
+            channel.force(true);
+        }
+    }
+
+    private boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                return false;
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    private Segment createSegment(long segmentId) throws IOException {
+        File file = segmentFile(segmentId);
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(segmentId, file, channel, 0L);
+        segments.put(segmentId, segment);
+        return segment;
+    }
+
+    private File segmentFile(long segmentId) {
+        return new File(directory, String.format("%020d.segment", segmentId));
+    }
+
+    File getFile(Position position) {
+        return segmentFile(position.segmentId);
+    }
+
+    /**
+     * Appends a record, retaining it if asked to. It is only guaranteed to survive a crash once
+     * {@link #awaitDurable(Position)} returns.
+     */
+    synchronized Position append(byte[] payload, boolean retain) throws IOException {
+        long recordSize = HEADER_SIZE + (long) payload.length;
+        if (activeSegment.size > 0 && activeSegment.size + recordSize > maxSegmentSize) {
+            roll();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length);
+        buffer.putInt(checksum(payload));
+        buffer.put(payload);
+        buffer.flip();
+
+        long recordOffset = activeSegment.size;
+        long offset = recordOffset;
+        while (buffer.hasRemaining()) {
+            offset += activeSegment.channel.write(buffer, offset);
+        }
+        activeSegment.size = offset;
+        activeSegment.recordCount++;
+        activeSegment.dirty = true;
+        if (retain) {
+            activeSegment.retainedRecords.incrementAndGet();
+        }
+        appendedSequence += recordSize;
+        return new Position(activeSegment.id, recordOffset + HEADER_SIZE, payload.length, appendedSequence);
+    }
+
+    /**
+     * Appends a record whose payload is streamed by the given writer, retaining it if asked to. The payload is never
+     * held in memory, and is written without holding the log lock.
+     * <p/>
+     * The writer is called twice, so it has to write the same payload each time: first to measure the payload, then
+     * into the region reserved for the record. Until the payload is written, the header of the region only carries
+     * its length, so that recovery skips it if it is never completed.
+     */
+    Position append(PayloadWriter writer, boolean retain) throws IOException {
+        long payloadLength = measure(writer);
+        if (payloadLength > Integer.MAX_VALUE) {
+            throw new IOException("Record of " + payloadLength + " bytes exceeds the maximum record size");
+        }
+        Position position = reserve((int) payloadLength, retain);
+        Segment segment = segments.get(position.segmentId);
+        try {
+            RegionOutputStream region = new RegionOutputStream(segment.channel, position.payloadOffset, payloadLength);
+            CRC32 crc = new CRC32();
+            try (OutputStream out = new CheckedOutputStream(new BufferedOutputStream(region, WRITE_BUFFER_SIZE), crc)) {
+                writer.writeTo(out);
+            }
+            if (!region.isFull()) {
+                throw new IOException("Payload is shorter than its reserved region");
+            }
+            writeHeader(segment.channel, position.payloadOffset - HEADER_SIZE, position.payloadLength, (int) crc.getValue());
+            complete(segment, position, retain, true);
+            return position;
+        } catch (IOException | RuntimeException e) {
+            complete(segment, position, retain, false);
+            throw e;
+        }
+    }
+
+    private long measure(PayloadWriter writer) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(OutputStream.nullOutputStream());
+        writer.writeTo(counter);
+        return counter.getCount();
+    }
+
+    private synchronized Position reserve(int payloadLength, boolean retain) throws IOException {
+        long recordSize = HEADER_SIZE + (long) payloadLength;
+        if (activeSegment.size > 0 && activeSegment.size + recordSize > maxSegmentSize) {
+            roll();
+        }
+
+        long recordOffset = activeSegment.size;
+        writeHeader(activeSegment.channel, recordOffset, ~payloadLength, 0);
+        activeSegment.size = recordOffset + recordSize;
+        activeSegment.recordCount++;
+        if (retain) {
+            activeSegment.retainedRecords.incrementAndGet();
+        }
+        pendingRecords.add(appendedSequence);
+        appendedSequence += recordSize;
+        return new Position(activeSegment.id, recordOffset + HEADER_SIZE, payloadLength, appendedSequence);
+    }
+
+    /**
+     * An abandoned region keeps its header, so that recovery skips it.
+     */
+    private synchronized void complete(Segment segment, Position position, boolean retained, boolean written) {
+        pendingRecords.remove(position.sequence - HEADER_SIZE - position.payloadLength);
+        segment.dirty = true;
+        if (retained && !written) {
+            segment.retainedRecords.decrementAndGet();
+        }
+    }
+
+    private void writeHeader(FileChannel channel, long recordOffset, int payloadLength, int checksum) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(payloadLength);
+        header.putInt(checksum);
+        header.flip();
+        long offset = recordOffset;
+        while (header.hasRemaining()) {
+            offset += channel.write(header, offset);
+        }
+    }
+
+    private void roll() throws IOException {
+        activeSegment = createSegment(activeSegment.id + 1);
+    }
+
+    /**
+     * Returns once the given record is durable. Concurrent callers share the same <code>fsync</code>, which covers
+     * the records appended before the oldest region still being written.
+     */
+    void awaitDurable(Position position) throws IOException {
+        if (!sync || position.sequence <= durableSequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (position.sequence <= durableSequence) {
+                return;
+            }
+            long target;
+            ImmutableList<Segment> dirtySegments;
+            synchronized (this) {
+                target = pendingRecords.isEmpty() ? appendedSequence : pendingRecords.first();
+                dirtySegments = segments.values().stream()
+                    .filter(segment -> segment.dirty)
+                    .collect(Guavate.toImmutableList());
+                dirtySegments.forEach(segment -> segment.dirty = false);
+            }
+            for (Segment segment : dirtySegments) {
+                try {
+                    segment.channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // The segment was released, then deleted in the meantime
+                } catch (IOException e) {
+                    synchronized (this) {
+                        segment.dirty = true;
+                    }
+                    throw e;
+                }
+            }
+            durableSequence = Math.max(durableSequence, target);
+        }
+    }
+
+    ByteBuffer read(Position position) throws IOException {
+        return read(position, position.payloadLength);
+    }
+
+    /**
+     * Reads the first <code>length</code> bytes of the payload of a record.
+     */
+    ByteBuffer read(Position position, int length) throws IOException {
+        Segment segment = Optional.ofNullable(segments.get(position.segmentId))
+            .orElseThrow(() -> new IOException("Segment " + position.segmentId + " had been deleted"));
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(length, position.payloadLength));
+        if (!readFully(segment.channel, buffer, position.payloadOffset)) {
+            throw new IOException("Unexpected end of segment " + position.segmentId);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Retains a record read while recovering the log.
+     */
+    void retain(Position position) {
+        Optional.ofNullable(segments.get(position.segmentId))
+            .ifPresent(segment -> segment.retainedRecords.incrementAndGet());
+    }
+
+    synchronized void release(Position position) throws IOException {
+        Segment segment = segments.get(position.segmentId);
+        if (segment != null && segment.retainedRecords.decrementAndGet() == 0) {
+            deleteReleasedSegments();
+        }
+    }
+
+    /**
+     * Deletes the oldest segments none of which records are retained. To be called once the records read while
+     * recovering the log had been retained.
+     */
+    synchronized void purge() throws IOException {
+        deleteReleasedSegments();
+    }
+
+    private void deleteReleasedSegments() throws IOException {
+        for (Map.Entry<Long, Segment> entry = segments.firstEntry();
+             entry != null && entry.getValue() != activeSegment && entry.getValue().retainedRecords.get() <= 0;
+             entry = segments.firstEntry()) {
+            Segment segment = entry.getValue();
+            segments.remove(segment.id);
+            segment.channel.close();
+            FileUtils.forceDelete(segment.file);
+        }
+    }
+
+    /**
+     * The oldest segment when only a few of its records are still retained: relocating them allows to delete it.
+     */
+    synchronized Optional<Long> sparseOldestSegment() {
+        Map.Entry<Long, Segment> oldest = segments.firstEntry();
+        if (oldest == null || oldest.getValue() == activeSegment) {
+            return Optional.empty();
+        }
+        Segment segment = oldest.getValue();
+        if ((long) segment.retainedRecords.get() * SPARSE_SEGMENT_RATIO > segment.recordCount) {
+            return Optional.empty();
+        }
+        return Optional.of(segment.id);
+    }
+
+    synchronized long getActiveSegmentId() {
+        return activeSegment.id;
+    }
+
+    @VisibleForTesting
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            if (sync) {
+                segment.channel.force(true);
+            }
+            segment.channel.close();
+        }
+    }
+}
@@ -0,0 +1,601 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.file;
+
+import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.mail.MessagingException;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.james.core.MailAddress;
+import org.apache.james.lifecycle.api.LifecycleUtil;
+import org.apache.james.queue.api.MailQueueItemDecoratorFactory;
+import org.apache.james.queue.api.MailQueueName;
+import org.apache.james.queue.api.ManageableMailQueue;
+import org.apache.james.queue.file.SegmentLog.Position;
+import org.apache.james.server.core.MailImpl;
+import org.apache.james.server.core.MimeMessageSource;
+import org.apache.mailet.Mail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link ManageableMailQueue} implementation storing {@link Mail}s in a {@link SegmentLog}.
+ * <p/>
+ * Each enqueued mail is a single record holding a compact binary envelope (see {@link MailEnvelopeCodec}) followed by
+ * the raw MimeMessage. Acknowledgements and reschedules are small records appended to the same log, segments are
+ * deleted once all the mails they hold had been acknowledged. The oldest segment is compacted when only a few of its
+ * mails are still queued, so that a long delayed mail does not prevent deleting the segments written after it.
+ * <p/>
+ * Queued mails are indexed in memory, next deliveries being scheduled in a {@link DelayQueue}. Recovering the queue
+ * replays the log once, without opening one file per mail.
+ */
+public class SegmentLogMailQueue implements ManageableMailQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentLogMailQueue.class);
+
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final byte ENQUEUED = 1;
+    private static final byte ACKNOWLEDGED = 2;
+    private static final byte RESCHEDULED = 3;
+    private static final int NEXT_DELIVERY_OFFSET = Byte.BYTES + Long.BYTES;
+    private static final int ENQUEUED_HEADER_SIZE = Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final long IN_FLIGHT = -1L;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private static class Entry {
+        private final long id;
+        private final int envelopeLength;
+        private final AtomicLong schedule;
+        private volatile Position position;
+        private volatile long nextDelivery;
+
+        Entry(long id, Position position, int envelopeLength, long nextDelivery) {
+            this.id = id;
+            this.position = position;
+            this.envelopeLength = envelopeLength;
+            this.nextDelivery = nextDelivery;
+            this.schedule = new AtomicLong();
+        }
+
+        boolean claim() {
+            long version = schedule.get();
+            return version != IN_FLIGHT && schedule.compareAndSet(version, IN_FLIGHT);
+        }
+
+        boolean claim(long version) {
+            return schedule.compareAndSet(version, IN_FLIGHT);
+        }
+
+        Optional<ZonedDateTime> getNextDelivery() {
+            return Optional.of(Instant.ofEpochMilli(nextDelivery).atZone(ZoneId.systemDefault()));
+        }
+    }
+
+    private static class ScheduledDelivery implements Delayed {
+        private final long id;
+        private final long version;
+        private final long deliveryTime;
+
+        ScheduledDelivery(long id, long version, long deliveryTime) {
+            this.id = id;
+            this.version = version;
+            this.deliveryTime = deliveryTime;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deliveryTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            ScheduledDelivery other = (ScheduledDelivery) o;
+            int compareTime = Long.compare(deliveryTime, other.deliveryTime);
+            if (compareTime != 0) {
+                return compareTime;
+            }
+            return Long.compare(id, other.id);
+        }
+    }
+
+    private static class SegmentMimeMessageSource extends MimeMessageSource {
+        private final File file;
+        private final long offset;
+        private final long length;
+
+        SegmentMimeMessageSource(File file, long offset, long length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public String getSourceId() {
+            return file.getAbsolutePath() + "#" + offset;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            channel.position(offset);
+            return new BufferedInputStream(new BoundedInputStream(Channels.newInputStream(channel), length));
+        }
+
+        @Override
+        public long getMessageSize() {
+            return length;
+        }
+    }
+
+    private final MailQueueName name;
+    private final MailQueueItemDecoratorFactory mailQueueItemDecoratorFactory;
+    private final ConcurrentSkipListMap<Long, Entry> entries;
+    private final DelayQueue<ScheduledDelivery> deliveries;
+    private final AtomicLong ids;
+    private final AtomicLong versions;
+    private final AtomicBoolean compacting;
+    private final AtomicBoolean closed;
+    private final Object lock;
+    private final SegmentLog log;
+    private final Flux<MailQueueItem> flux;
+    private volatile long lastCompactedSegmentId;
+
+    public SegmentLogMailQueue(MailQueueItemDecoratorFactory mailQueueItemDecoratorFactory, File parentDir, MailQueueName name,
+                               boolean sync, long maxSegmentSize) throws IOException {
+        this.name = name;
+        this.mailQueueItemDecoratorFactory = mailQueueItemDecoratorFactory;
+        this.entries = new ConcurrentSkipListMap<>();
+        this.deliveries = new DelayQueue<>();
+        this.ids = new AtomicLong();
+        this.versions = new AtomicLong();
+        this.compacting = new AtomicBoolean(false);
+        this.closed = new AtomicBoolean(false);
+        this.lock = new Object();
+        this.lastCompactedSegmentId = -1L;
+        this.log = SegmentLog.open(new File(parentDir, name.asString()), maxSegmentSize, sync, this::replay);
+
+        for (Entry entry : entries.values()) {
+            log.retain(entry.position);
+            schedule(entry, entry.nextDelivery);
+        }
+        log.purge();
+
+        this.flux = Mono.fromCallable(this::pollNextDelivery)
+            .repeat(() -> !closed.get())
+            .subscribeOn(Schedulers.elastic())
+            .flatMap(entry -> Mono.fromCallable(() -> toMailQueueItem(entry))
+                .onErrorMap(IOException.class, e -> new MailQueueException("Unable to dequeue", e)), DEFAULT_CONCURRENCY)
+            .map(item -> mailQueueItemDecoratorFactory.decorate(item, name));
+    }
+
+    private void replay(Position position, ByteBuffer payload) throws IOException {
+        byte type = payload.get();
+        long id = payload.getLong();
+        ids.accumulateAndGet(id + 1, Math::max);
+        switch (type) {
+            case ENQUEUED:
+                long nextDelivery = payload.getLong();
+                int envelopeLength = payload.getInt();
+                entries.put(id, new Entry(id, position, envelopeLength, nextDelivery));
+                break;
+            case ACKNOWLEDGED:
+                entries.remove(id);
+                break;
+            case RESCHEDULED:
+                long rescheduledDelivery = payload.getLong();
+                Optional.ofNullable(entries.get(id))
+                    .ifPresent(entry -> entry.nextDelivery = rescheduledDelivery);
+                break;
+            default:
+                throw new IOException("Unknown record type " + type + " in queue " + name.asString());
+        }
+    }
+
+    @Override
+    public MailQueueName getName() {
+        return name;
+    }
+
+    @Override
+    public void enQueue(Mail mail, Duration delay) throws MailQueueException {
+        long id = ids.getAndIncrement();
+        long nextDelivery = computeNextDelivery(delay);
+        try {
+            byte[] envelope = encodeEnvelope(mail);
+            Position position = log.append(out -> writeEnqueued(out, id, nextDelivery, envelope, mail), true);
+            Entry entry = new Entry(id, position, envelope.length, nextDelivery);
+            entries.put(id, entry);
+            log.awaitDurable(position);
+            schedule(entry, nextDelivery);
+        } catch (IOException e) {
+            throw new MailQueueException("Unable to enqueue mail " + mail.getName(), e);
+        }
+    }
+
+    /**
+     * Streams the MimeMessage straight into the log, after the envelope. Neither the queue nor the log lock is held
+     * meanwhile.
+     */
+    private void writeEnqueued(OutputStream payload, long id, long nextDelivery, byte[] envelope, Mail mail) throws IOException {
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(ENQUEUED);
+        out.writeLong(id);
+        out.writeLong(nextDelivery);
+        out.writeInt(envelope.length);
+        out.write(envelope);
+        try {
+            mail.getMessage().writeTo(out);
+        } catch (MessagingException e) {
+            throw new IOException("Unable to write the message of mail " + mail.getName(), e);
+        }
+        out.flush();
+    }
+
+    @Override
+    public void enQueue(Mail mail) throws MailQueueException {
+        enQueue(mail, Duration.ZERO);
+    }
+
+    private long computeNextDelivery(Duration delay) {
+        if (delay.isNegative()) {
+            return System.currentTimeMillis();
+        }
+        try {
+            return Instant.now().plus(delay).toEpochMilli();
+        } catch (DateTimeException | ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private byte[] encodeEnvelope(Mail mail) throws IOException {
+        ByteArrayOutputStream envelope = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(envelope)) {
+            MailEnvelopeCodec.encode(mail, out);
+        }
+        return envelope.toByteArray();
+    }
+
+    private void schedule(Entry entry, long deliveryTime) {
+        long version = versions.incrementAndGet();
+        entry.schedule.set(version);
+        deliveries.add(new ScheduledDelivery(entry.id, version, deliveryTime));
+    }
+
+    /**
+     * The next mail to deliver, or null if none is due within {@link #POLL_TIMEOUT}. Bounding the wait lets the
+     * dequeuing thread notice cancellation and {@link #close()}.
+     */
+    private Entry pollNextDelivery() throws InterruptedException {
+        long deadline = System.nanoTime() + POLL_TIMEOUT.toNanos();
+        while (!closed.get()) {
+            ScheduledDelivery delivery = deliveries.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (delivery == null) {
+                return null;
+            }
+            Entry entry = entries.get(delivery.id);
+            if (entry != null && entry.claim(delivery.version)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Flux<MailQueueItem> deQueue() {
+        return flux;
+    }
+
+    private MailQueueItem toMailQueueItem(Entry entry) throws IOException, MessagingException {
+        Mail mail = readMail(entry);
+        return new MailQueueItem() {
+            @Override
+            public Mail getMail() {
+                return mail;
+            }
+
+            @Override
+            public void done(boolean success) throws MailQueueException {
+                try {
+                    if (success) {
+                        acknowledge(entry);
+                    } else {
+                        schedule(entry, System.currentTimeMillis());
+                    }
+                } finally {
+                    LifecycleUtil.dispose(mail);
+                }
+            }
+        };
+    }
+
+    private MailImpl readMail(Entry entry) throws IOException, MessagingException {
+        Position position = entry.position;
+        int headerLength = ENQUEUED_HEADER_SIZE + entry.envelopeLength;
+        ByteBuffer header = log.read(position, headerLength);
+        MailImpl mail = MailEnvelopeCodec.decode(new DataInputStream(
+            new ByteArrayInputStream(header.array(), ENQUEUED_HEADER_SIZE, entry.envelopeLength)));
+        mail.setMessageContent(new SegmentMimeMessageSource(log.getFile(position),
+            position.getPayloadOffset() + headerLength,
+            position.getPayloadLength() - headerLength));
+        return mail;
+    }
+
+    private boolean acknowledge(Entry entry) throws MailQueueException {
+        try {
+            boolean removed;
+            synchronized (lock) {
+                removed = entries.remove(entry.id, entry);
+                if (removed) {
+                    log.append(recordFor(ACKNOWLEDGED, entry.id), false);
+                    log.release(entry.position);
+                }
+            }
+            compactIfNeeded();
+            return removed;
+        } catch (IOException e) {
+            throw new MailQueueException("Unable to acknowledge mail in queue " + name.asString(), e);
+        }
+    }
+
+    private byte[] recordFor(byte type, long id, long... values) {
+        ByteBuffer record = ByteBuffer.allocate(Byte.BYTES + Long.BYTES * (1 + values.length));
+        record.put(type);
+        record.putLong(id);
+        for (long value : values) {
+            record.putLong(value);
+        }
+        return record.array();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long activeSegmentId = log.getActiveSegmentId();
+        if (lastCompactedSegmentId == activeSegmentId || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Optional<Long> sparseSegment = log.sparseOldestSegment();
+            if (sparseSegment.isPresent()) {
+                lastCompactedSegmentId = activeSegmentId;
+                long segmentId = sparseSegment.get();
+                for (Entry entry : ImmutableList.copyOf(entries.values())) {
+                    if (entry.position.getSegmentId() == segmentId) {
+                        relocate(entry);
+                    }
+                }
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Appends a copy of a queued mail at the end of the log so that its original segment can be deleted. In flight
+     * mails are skipped: their message is being read.
+     */
+    private void relocate(Entry entry) throws IOException {
+        if (!entry.claim()) {
+            return;
+        }
+        try {
+            Position previous = entry.position;
+            Position relocated;
+            synchronized (lock) {
+                if (entries.get(entry.id) != entry) {
+                    return;
+                }
+                ByteBuffer payload = log.read(previous);
+                payload.putLong(NEXT_DELIVERY_OFFSET, entry.nextDelivery);
+                relocated = log.append(payload.array(), true);
+                entry.position = relocated;
+            }
+            log.awaitDurable(relocated);
+            log.release(previous);
+        } finally {
+            schedule(entry, entry.nextDelivery);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public long flush() throws MailQueueException {
+        long now = System.currentTimeMillis();
+        long count = 0;
+        for (Entry entry : ImmutableList.copyOf(entries.values())) {
+            if (entry.nextDelivery > now && entry.claim()) {
+                try {
+                    synchronized (lock) {
+                        log.append(recordFor(RESCHEDULED, entry.id, now), false);
+                    }
+                    entry.nextDelivery = now;
+                    count++;
+                } catch (IOException e) {
+                    throw new MailQueueException("Unable to flush queue " + name.asString(), e);
+                } finally {
+                    schedule(entry, entry.nextDelivery);
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long clear() throws MailQueueException {
+        return removeIf(mail -> true);
+    }
+
+    @Override
+    public long remove(Type type, String value) throws MailQueueException {
+        return removeIf(mail -> shouldRemove(mail, type, value));
+    }
+
+    private boolean shouldRemove(Mail mail, Type type, String value) {
+        switch (type) {
+            case Name:
+                return mail.getName().equals(value);
+            case Recipient:
+                return mail.getRecipients().stream()
+                    .map(MailAddress::asString)
+                    .anyMatch(value::equals);
+            case Sender:
+                return mail.getMaybeSender()
+                    .asString()
+                    .equals(value);
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    /**
+     * Removes the queued mails matching the predicate. In flight mails are not removed.
+     */
+    private long removeIf(Predicate<Mail> predicate) throws MailQueueException {
+        long count = 0;
+        for (Entry entry : ImmutableList.copyOf(entries.values())) {
+            if (matches(entry, predicate) && entry.claim() && acknowledge(entry)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean matches(Entry entry, Predicate<Mail> predicate) throws MailQueueException {
+        try {
+            return readView(entry)
+                .map(view -> predicate.test(view.getMail()))
+                .orElse(false);
+        } catch (IOException | MessagingException e) {
+            throw new MailQueueException("Unable to read mail in queue " + name.asString(), e);
+        }
+    }
+
+    /**
+     * Reads a queued mail, empty if it was concurrently removed.
+     */
+    private Optional<MailQueueItemView> readView(Entry entry) throws IOException, MessagingException {
+        while (true) {
+            Position position = entry.position;
+            try {
+                return Optional.of(new DefaultMailQueueItemView(readMail(entry), entry.getNextDelivery()));
+            } catch (IOException e) {
+                if (entries.get(entry.id) != entry) {
+                    return Optional.empty();
+                }
+                if (Objects.equals(position, entry.position)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public MailQueueIterator browse() {
+        Iterator<Entry> underlying = ImmutableList.copyOf(entries.values()).iterator();
+
+        return new MailQueueIterator() {
+            private MailQueueItemView next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && underlying.hasNext()) {
+                    try {
+                        next = readView(underlying.next()).orElse(null);
+                    } catch (IOException | MessagingException e) {
+                        LOGGER.warn("Unable to read mail in queue {}", name.asString(), e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public MailQueueItemView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MailQueueItemView result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void close() {
+
+            }
+        };
+    }
+
+    @VisibleForTesting
+    int getSegmentCount() {
+        return log.getSegmentCount();
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close queue {}", name.asString(), e);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.file;
+
+import static org.apache.james.queue.api.Mails.defaultMail;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.james.queue.api.DelayedManageableMailQueueContract;
+import org.apache.james.queue.api.MailQueue;
+import org.apache.james.queue.api.MailQueueName;
+import org.apache.james.queue.api.ManageableMailQueue;
+import org.apache.james.queue.api.RawMailQueueItemDecoratorFactory;
+import org.apache.mailet.Mail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class SegmentLogMailQueueTest implements DelayedManageableMailQueueContract {
+    private static final boolean SYNC = true;
+    private static final MailQueueName NAME = MailQueueName.of("test");
+    private static final long SMALL_SEGMENT_SIZE = 4096;
+    private static final Duration POLL_WAIT = Duration.ofSeconds(2);
+
+    private static class FailingMimeMessage extends MimeMessage {
+        FailingMimeMessage() {
+            super(Session.getDefaultInstance(System.getProperties()));
+        }
+
+        @Override
+        public int getSize() {
+            return 1024;
+        }
+
+        @Override
+        public void writeTo(OutputStream os) throws IOException {
+            os.write(new byte[512]);
+            throw new IOException("Failing on purpose");
+        }
+    }
+
+    private static class ChangingMimeMessage extends MimeMessage {
+        private int writeCount;
+
+        ChangingMimeMessage() {
+            super(Session.getDefaultInstance(System.getProperties()));
+        }
+
+        @Override
+        public void writeTo(OutputStream os) throws IOException {
+            writeCount++;
+            os.write(new byte[512 * writeCount]);
+        }
+    }
+
+    private static class BlockingMimeMessage extends MimeMessage {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private int writeCount;
+
+        BlockingMimeMessage() {
+            super(Session.getDefaultInstance(System.getProperties()));
+        }
+
+        @Override
+        public void writeTo(OutputStream os) throws IOException {
+            writeCount++;
+            if (writeCount > 1) {
+                awaitRelease();
+            }
+            os.write("header: value\r\n\r\nbody".getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Blocks while the message is written into the log, after it was measured.
+         */
+        private void awaitRelease() throws IOException {
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private File queueFolder;
+    private SegmentLogMailQueue mailQueue;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        temporaryFolder.create();
+        queueFolder = temporaryFolder.newFolder();
+        mailQueue = new SegmentLogMailQueue(new RawMailQueueItemDecoratorFactory(), queueFolder, NAME, SYNC, SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    @AfterEach
+    void teardown() {
+        mailQueue.close();
+        temporaryFolder.delete();
+    }
+
+    @Override
+    public MailQueue getMailQueue() {
+        return mailQueue;
+    }
+
+    @Override
+    public ManageableMailQueue getManageableMailQueue() {
+        return mailQueue;
+    }
+
+    private SegmentLogMailQueue restart(long maxSegmentSize) throws Exception {
+        mailQueue.close();
+        mailQueue = new SegmentLogMailQueue(new RawMailQueueItemDecoratorFactory(), queueFolder, NAME, SYNC, maxSegmentSize);
+        return mailQueue;
+    }
+
+    private void dequeueAndAcknowledge(int count) throws Exception {
+        for (MailQueue.MailQueueItem item : Flux.from(mailQueue.deQueue()).take(count).toIterable()) {
+            item.done(true);
+        }
+    }
+
+    @Test
+    void mailsShouldBeRecoveredAfterARestart() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build());
+        mailQueue.enQueue(defaultMail().name("name2").build());
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("name1", "name2");
+    }
+
+    @Test
+    void recoveredMailsShouldBeDequeued() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build());
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(Flux.from(mailQueue.deQueue()).blockFirst(Duration.ofSeconds(10)).getMail().getName())
+            .isEqualTo("name1");
+    }
+
+    @Test
+    void acknowledgedMailsShouldNotBeRecovered() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build());
+        mailQueue.enQueue(defaultMail().name("name2").build());
+        dequeueAndAcknowledge(1);
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("name2");
+    }
+
+    @Test
+    void delaysShouldBeRecoveredAfterARestart() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build(), 30L, TimeUnit.SECONDS);
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(Flux.from(mailQueue.deQueue()).take(Duration.ofSeconds(2)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void flushShouldBeRecoveredAfterARestart() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build(), 30L, TimeUnit.SECONDS);
+        mailQueue.flush();
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(Flux.from(mailQueue.deQueue()).blockFirst(Duration.ofSeconds(10)).getMail().getName())
+            .isEqualTo("name1");
+    }
+
+    @Test
+    void recoveryShouldDiscardATornRecord() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build());
+        mailQueue.close();
+        File segment = new File(new File(queueFolder, NAME.asString()), "00000000000000000000.segment");
+        long validLength = segment.length();
+        try (FileOutputStream out = new FileOutputStream(segment, true)) {
+            out.write(new byte[] {0, 0, 0, 50, 1, 2, 3});
+        }
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+        mailQueue.enQueue(defaultMail().name("name2").build());
+
+        assertThat(segment.length()).isGreaterThan(validLength);
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("name1", "name2");
+    }
+
+    @Test
+    void enqueueShouldNotLeavePartialRecordsWhenTheMessageCannotBeRead() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build());
+        assertThatThrownBy(() -> mailQueue.enQueue(defaultMail().name("failing").mimeMessage(new FailingMimeMessage()).build()))
+            .isInstanceOf(MailQueue.MailQueueException.class);
+        mailQueue.enQueue(defaultMail().name("name2").build());
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("name1", "name2");
+    }
+
+    @Test
+    void enqueueShouldNotLeavePartialRecordsWhenTheMessageChangesWhileWritten() throws Exception {
+        mailQueue.enQueue(defaultMail().name("name1").build());
+        assertThatThrownBy(() -> mailQueue.enQueue(defaultMail().name("changing").mimeMessage(new ChangingMimeMessage()).build()))
+            .isInstanceOf(MailQueue.MailQueueException.class);
+        mailQueue.enQueue(defaultMail().name("name2").build());
+
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("name1", "name2");
+    }
+
+    @Test
+    void slowEnqueueShouldNotBlockOtherOperations() throws Exception {
+        BlockingMimeMessage blockingMessage = new BlockingMimeMessage();
+        Mono<Boolean> slowEnqueue = Mono.fromCallable(() -> {
+                mailQueue.enQueue(defaultMail().name("slow").mimeMessage(blockingMessage).build());
+                return true;
+            })
+            .subscribeOn(Schedulers.elastic())
+            .cache();
+        slowEnqueue.subscribe();
+        assertThat(blockingMessage.writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        Mono.fromCallable(() -> {
+                mailQueue.enQueue(defaultMail().name("name1").build());
+                dequeueAndAcknowledge(1);
+                return true;
+            })
+            .subscribeOn(Schedulers.elastic())
+            .block(Duration.ofSeconds(10));
+
+        blockingMessage.release.countDown();
+        slowEnqueue.block(Duration.ofSeconds(10));
+        restart(SegmentLogMailQueue.DEFAULT_MAX_SEGMENT_SIZE);
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("slow");
+    }
+
+    @Test
+    void closeShouldCompleteDequeue() throws Exception {
+        Flux<MailQueue.MailQueueItem> dequeue = Flux.from(mailQueue.deQueue());
+
+        mailQueue.close();
+
+        assertThat(dequeue.collectList().block(Duration.ofSeconds(10)))
+            .isEmpty();
+    }
+
+    @Test
+    void cancelledDequeueShouldNotConsumeMails() throws Exception {
+        Flux.from(mailQueue.deQueue())
+            .take(Duration.ofMillis(100))
+            .blockLast();
+        Thread.sleep(POLL_WAIT.toMillis());
+
+        mailQueue.enQueue(defaultMail().name("name1").build());
+
+        assertThat(Flux.from(mailQueue.deQueue()).blockFirst(Duration.ofSeconds(10)).getMail().getName())
+            .isEqualTo("name1");
+    }
+
+    @Test
+    void acknowledgedSegmentsShouldBeDeleted() throws Exception {
+        restart(SMALL_SEGMENT_SIZE);
+        for (int i = 0; i < 20; i++) {
+            mailQueue.enQueue(defaultMail().name("name" + i).build());
+        }
+        assertThat(mailQueue.getSegmentCount()).isGreaterThan(1);
+
+        dequeueAndAcknowledge(20);
+
+        assertThat(mailQueue.getSegmentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void delayedMailsShouldNotPreventDeletingSegments() throws Exception {
+        restart(SMALL_SEGMENT_SIZE);
+        mailQueue.enQueue(defaultMail().name("delayed").build(), 1L, TimeUnit.HOURS);
+        for (int i = 0; i < 40; i++) {
+            mailQueue.enQueue(defaultMail().name("name" + i).build());
+        }
+
+        dequeueAndAcknowledge(40);
+
+        assertThat(mailQueue.getSegmentCount()).isLessThanOrEqualTo(2);
+        restart(SMALL_SEGMENT_SIZE);
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(ManageableMailQueue.MailQueueItemView::getMail)
+            .extracting(Mail::getName)
+            .containsExactly("delayed");
+    }
+}
@@ -66,6 +66,7 @@ import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.TupleType;
+import com.google.common.collect.ImmutableList;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -75,6 +76,7 @@ public class EnqueuedMailsDAO {
     private final CassandraAsyncExecutor executor;
     private final PreparedStatement selectFrom;
     private final PreparedStatement insert;
+    private final PreparedStatement selectBlobIds;
     private final BlobId.Factory blobFactory;
     private final TupleType userHeaderNameHeaderValueTriple;
 
@@ -84,6 +86,7 @@ public class EnqueuedMailsDAO {
 
         this.selectFrom = prepareSelectFrom(session);
         this.insert = prepareInsert(session);
+        this.selectBlobIds = prepareSelectBlobIds(session);
         this.blobFactory = blobIdFactory;
         this.userHeaderNameHeaderValueTriple = session.getCluster().getMetadata().newTupleType(text(), text(), text());
     }
@@ -96,6 +99,11 @@ public class EnqueuedMailsDAO {
             .and(eq(BUCKET_ID, bindMarker(BUCKET_ID))));
     }
 
+    private PreparedStatement prepareSelectBlobIds(Session session) {
+        return session.prepare(select(HEADER_BLOB_ID, BODY_BLOB_ID)
+            .from(TABLE_NAME));
+    }
+
     private PreparedStatement prepareInsert(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(QUEUE_NAME, bindMarker(QUEUE_NAME))
@@ -163,4 +171,10 @@ public class EnqueuedMailsDAO {
             .map(row -> EnqueuedMailsDaoUtil.toEnqueuedMail(row, blobFactory));
     }
 
+    Flux<BlobId> listBlobs() {
+        return executor.executeRows(selectBlobIds.bind())
+            .flatMapIterable(row -> ImmutableList.of(
+                blobFactory.from(row.getString(HEADER_BLOB_ID)),
+                blobFactory.from(row.getString(BODY_BLOB_ID))));
+    }
 }
@@ -0,0 +1,46 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq.view.cassandra;
+
+import javax.inject.Inject;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceSource;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Lists the blobs referenced by the mails of the mail queue view.
+ *
+ * The view keeps mails that were already dequeued, which only delays their collection.
+ */
+public class MailQueueBlobReferenceSource implements BlobReferenceSource {
+    private final EnqueuedMailsDAO enqueuedMailsDAO;
+
+    @Inject
+    MailQueueBlobReferenceSource(EnqueuedMailsDAO enqueuedMailsDAO) {
+        this.enqueuedMailsDAO = enqueuedMailsDAO;
+    }
+
+    @Override
+    public Flux<BlobId> listReferencedBlobs() {
+        return enqueuedMailsDAO.listBlobs();
+    }
+}
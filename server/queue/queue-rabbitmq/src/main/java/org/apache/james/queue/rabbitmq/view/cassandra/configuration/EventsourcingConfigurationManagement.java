@@ -25,6 +25,7 @@ import javax.inject.Inject;
 
 import org.apache.james.eventsourcing.AggregateId;
 import org.apache.james.eventsourcing.EventSourcingSystem;
+import org.apache.james.eventsourcing.Snapshotter;
 import org.apache.james.eventsourcing.Subscriber;
 import org.apache.james.eventsourcing.eventstore.EventStore;
 
@@ -48,6 +49,7 @@ public class EventsourcingConfigurationManagement {
         this.eventSourcingSystem = EventSourcingSystem.fromJava(
             ImmutableSet.of(new RegisterConfigurationCommandHandler(eventStore)),
             NO_SUBSCRIBER,
+            ImmutableSet.of(Snapshotter.latestEvent(aggregateId -> aggregateId.asAggregateKey().equals(CONFIGURATION_AGGREGATE_KEY))),
             eventStore);
         this.eventStore = eventStore;
     }
@@ -148,4 +148,30 @@ class EnqueuedMailsDaoTest {
                 });
             });
     }
-}
\ No newline at end of file
+
+    @Test
+    void listBlobsShouldReturnEmptyWhenNoMails() {
+        assertThat(testee.listBlobs().collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void listBlobsShouldReturnHeaderAndBodyBlobs() {
+        testee.insert(EnqueuedItemWithSlicingContext.builder()
+                .enqueuedItem(EnqueuedItem.builder()
+                    .enqueueId(ENQUEUE_ID)
+                    .mailQueueName(OUT_GOING_1)
+                    .mail(FakeMail.builder()
+                        .name(NAME)
+                        .build())
+                    .enqueuedTime(NOW)
+                    .mimeMessagePartsId(MIME_MESSAGE_PARTS_ID)
+                    .build())
+                .slicingContext(EnqueuedItemWithSlicingContext.SlicingContext.of(BucketId.of(BUCKET_ID_VALUE), NOW))
+                .build())
+            .block();
+
+        assertThat(testee.listBlobs().collectList().block())
+            .containsOnly(HEADER_BLOB_ID, BODY_BLOB_ID);
+    }
+}
@@ -31,8 +31,12 @@ import java.util.Optional;
 
 import org.apache.james.backends.rabbitmq.Constants;
 import org.apache.james.backends.rabbitmq.ReceiverProvider;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.server.task.json.JsonTaskSerializer;
 import org.apache.james.task.Task;
+import org.apache.james.task.TaskConcurrencyConfiguration;
+import org.apache.james.task.TaskConcurrencyLimiter;
 import org.apache.james.task.TaskId;
 import org.apache.james.task.TaskManagerWorker;
 import org.apache.james.task.TaskWithId;
@@ -75,6 +79,7 @@ public class RabbitMQWorkQueue implements WorkQueue {
     public static final Duration FIRST_BACKOFF = Duration.ofMillis(100);
 
     private final TaskManagerWorker worker;
+    private final TaskConcurrencyLimiter limiter;
     private final JsonTaskSerializer taskSerializer;
     private final RabbitMQWorkQueueConfiguration configuration;
     private final Sender sender;
@@ -90,8 +95,16 @@ public class RabbitMQWorkQueue implements WorkQueue {
     public RabbitMQWorkQueue(TaskManagerWorker worker, Sender sender,
                              ReceiverProvider receiverProvider, JsonTaskSerializer taskSerializer,
                              RabbitMQWorkQueueConfiguration configuration, CancelRequestQueueName cancelRequestQueueName) {
+        this(worker, new TaskConcurrencyLimiter(TaskConcurrencyConfiguration.DEFAULT, new NoopMetricFactory(), new NoopGaugeRegistry()),
+            sender, receiverProvider, taskSerializer, configuration, cancelRequestQueueName);
+    }
+
+    public RabbitMQWorkQueue(TaskManagerWorker worker, TaskConcurrencyLimiter limiter, Sender sender,
+                             ReceiverProvider receiverProvider, JsonTaskSerializer taskSerializer,
+                             RabbitMQWorkQueueConfiguration configuration, CancelRequestQueueName cancelRequestQueueName) {
         this.cancelRequestQueueName = cancelRequestQueueName;
         this.worker = worker;
+        this.limiter = limiter;
         this.receiverProvider = receiverProvider;
         this.sender = sender;
         this.taskSerializer = taskSerializer;
@@ -134,15 +147,17 @@ public class RabbitMQWorkQueue implements WorkQueue {
         receiver = receiverProvider.createReceiver();
         receiverHandle = receiver.consumeManualAck(QUEUE_NAME, new ConsumeOptions())
             .subscribeOn(Schedulers.elastic())
-            .concatMap(this::executeTask)
+            // Deliveries waiting for admission are held by the limiter, unacknowledged, and bounded by the consumer prefetch
+            .flatMap(this::executeTask, Integer.MAX_VALUE)
             .subscribe();
     }
 
     private Mono<Task.Result> executeTask(AcknowledgableDelivery delivery) {
         return Mono.fromCallable(() -> TaskId.fromString(delivery.getProperties().getHeaders().get(TASK_ID).toString()))
             .flatMap(taskId -> deserialize(new String(delivery.getBody(), StandardCharsets.UTF_8), taskId)
-                .doOnNext(task -> delivery.ack())
-                .flatMap(task -> executeOnWorker(taskId, task)))
+                .map(task -> new TaskWithId(taskId, task))
+                .flatMap(taskWithId -> limiter.execute(taskWithId, () -> Mono.fromRunnable(delivery::ack)
+                    .then(Mono.defer(() -> executeOnWorker(taskWithId))))))
             .onErrorResume(error -> {
                 Optional<Object> taskId = Optional.ofNullable(delivery.getProperties())
                     .flatMap(props -> Optional.ofNullable(props.getHeaders()))
@@ -163,12 +178,12 @@ public class RabbitMQWorkQueue implements WorkQueue {
             });
     }
 
-    private Mono<Task.Result> executeOnWorker(TaskId taskId, Task task) {
-        return worker.executeTask(new TaskWithId(taskId, task))
+    private Mono<Task.Result> executeOnWorker(TaskWithId taskWithId) {
+        return worker.executeTask(taskWithId)
             .onErrorResume(error -> {
-                String errorMessage = String.format("Unable to run submitted Task %s", taskId.asString());
+                String errorMessage = String.format("Unable to run submitted Task %s", taskWithId.getId().asString());
                 LOGGER.warn(errorMessage, error);
-                return Mono.from(worker.fail(taskId, task.details(), errorMessage, error))
+                return Mono.from(worker.fail(taskWithId.getId(), taskWithId.getTask().details(), errorMessage, error))
                     .then(Mono.empty());
             });
     }
@@ -192,10 +207,15 @@ public class RabbitMQWorkQueue implements WorkQueue {
             .consumeAutoAck(queueName)
             .subscribeOn(Schedulers.elastic())
             .map(this::readCancelRequestMessage)
-            .doOnNext(worker::cancelTask)
+            .doOnNext(this::cancelLocally)
             .subscribe();
     }
 
+    private void cancelLocally(TaskId taskId) {
+        worker.cancelTask(taskId);
+        limiter.cancel(taskId);
+    }
+
     private TaskId readCancelRequestMessage(Delivery delivery) {
         String message = new String(delivery.getBody(), StandardCharsets.UTF_8);
         return TaskId.fromString(message);
@@ -24,8 +24,9 @@ import com.google.common.annotations.VisibleForTesting
 import javax.inject.Inject
 import org.apache.james.backends.rabbitmq.ReceiverProvider
 import org.apache.james.eventsourcing.EventSourcingSystem
+import org.apache.james.metrics.api.{GaugeRegistry, MetricFactory}
 import org.apache.james.server.task.json.JsonTaskSerializer
-import org.apache.james.task.SerialTaskManagerWorker
+import org.apache.james.task.{ConcurrentTaskManagerWorker, TaskConcurrencyConfiguration, TaskConcurrencyLimiter}
 import org.apache.james.task.eventsourcing.{WorkQueueSupplier, WorkerStatusListener}
 import reactor.rabbitmq.Sender
 
@@ -33,7 +34,10 @@ class RabbitMQWorkQueueSupplier @Inject()(private val sender: Sender,
                                           private val receiverProvider: ReceiverProvider,
                                           private val jsonTaskSerializer: JsonTaskSerializer,
                                           private val cancelRequestName: CancelRequestQueueName,
-                                          private val configuration: RabbitMQWorkQueueConfiguration) extends WorkQueueSupplier {
+                                          private val configuration: RabbitMQWorkQueueConfiguration,
+                                          private val concurrencyConfiguration: TaskConcurrencyConfiguration,
+                                          private val metricFactory: MetricFactory,
+                                          private val gaugeRegistry: GaugeRegistry) extends WorkQueueSupplier {
 
   val DEFAULT_ADDITIONAL_INFORMATION_POLLING_INTERVAL =  Duration.ofSeconds(30)
   override def apply(eventSourcingSystem: EventSourcingSystem): RabbitMQWorkQueue = {
@@ -43,8 +47,9 @@ class RabbitMQWorkQueueSupplier @Inject()(private val sender: Sender,
   @VisibleForTesting
   def apply(eventSourcingSystem: EventSourcingSystem, additionalInformationPollingInterval: Duration): RabbitMQWorkQueue = {
     val listener = WorkerStatusListener(eventSourcingSystem)
-    val worker = new SerialTaskManagerWorker(listener, additionalInformationPollingInterval)
-    val rabbitMQWorkQueue = new RabbitMQWorkQueue(worker, sender, receiverProvider, jsonTaskSerializer, configuration, cancelRequestName)
+    val worker = new ConcurrentTaskManagerWorker(listener, additionalInformationPollingInterval, concurrencyConfiguration.getMaxConcurrency)
+    val limiter = new TaskConcurrencyLimiter(concurrencyConfiguration, metricFactory, gaugeRegistry)
+    val rabbitMQWorkQueue = new RabbitMQWorkQueue(worker, limiter, sender, receiverProvider, jsonTaskSerializer, configuration, cancelRequestName)
     rabbitMQWorkQueue
   }
 }
@@ -22,12 +22,13 @@ import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
 import static org.apache.james.util.ReactorUtils.publishIfPresent;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import org.apache.james.util.MDCBuilder;
@@ -43,26 +44,34 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
-import reactor.util.function.Tuple2;
-import reactor.util.function.Tuples;
 
-public class SerialTaskManagerWorker implements TaskManagerWorker {
-    private static final Logger LOGGER = LoggerFactory.getLogger(SerialTaskManagerWorker.class);
+/**
+ * Runs tasks on a pool of {@code maxConcurrency} threads.
+ *
+ * This worker does not bound how many tasks are submitted to it: admission is handled upstream by the
+ * {@link WorkQueue}, see {@link TaskConcurrencyLimiter}.
+ */
+public class ConcurrentTaskManagerWorker implements TaskManagerWorker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentTaskManagerWorker.class);
     public static final boolean MAY_INTERRUPT_IF_RUNNING = true;
 
     private final Scheduler taskExecutor;
     private final Listener listener;
-    private final AtomicReference<Tuple2<TaskId, CompletableFuture>> runningTask;
+    private final Map<TaskId, CompletableFuture<Task.Result>> runningTasks;
     private final Set<TaskId> cancelledTasks;
     private final Duration pollingInterval;
 
-    public SerialTaskManagerWorker(Listener listener, Duration pollingInterval) {
+    public ConcurrentTaskManagerWorker(Listener listener, Duration pollingInterval) {
+        this(listener, pollingInterval, TaskConcurrencyConfiguration.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public ConcurrentTaskManagerWorker(Listener listener, Duration pollingInterval, int maxConcurrency) {
         this.pollingInterval = pollingInterval;
         this.taskExecutor = Schedulers.fromExecutor(
-            Executors.newSingleThreadExecutor(NamedThreadFactory.withName("task executor")));
+            Executors.newFixedThreadPool(maxConcurrency, NamedThreadFactory.withName("task executor")));
         this.listener = listener;
         this.cancelledTasks = Sets.newConcurrentHashSet();
-        this.runningTask = new AtomicReference<>();
+        this.runningTasks = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -70,13 +79,14 @@ public class SerialTaskManagerWorker implements TaskManagerWorker {
         if (!cancelledTasks.remove(taskWithId.getId())) {
             Mono<Task.Result> taskMono = Mono.fromCallable(() -> runWithMdc(taskWithId, listener)).subscribeOn(taskExecutor);
             CompletableFuture<Task.Result> future = taskMono.toFuture();
-            runningTask.set(Tuples.of(taskWithId.getId(), future));
+            runningTasks.put(taskWithId.getId(), future);
 
             return Mono.using(
                 () -> pollAdditionalInformation(taskWithId).subscribe(),
                 ignored -> Mono.fromFuture(future)
                     .onErrorResume(exception -> Mono.from(handleExecutionError(taskWithId, listener, exception))
-                            .thenReturn(Task.Result.PARTIAL)),
+                            .thenReturn(Task.Result.PARTIAL))
+                    .doFinally(any -> runningTasks.remove(taskWithId.getId())),
                 Disposable::dispose);
         } else {
             return Mono.from(listener.cancelled(taskWithId.getId(), taskWithId.getTask().details()))
@@ -149,9 +159,8 @@ public class SerialTaskManagerWorker implements TaskManagerWorker {
     @Override
     public void cancelTask(TaskId taskId) {
         cancelledTasks.add(taskId);
-        Optional.ofNullable(runningTask.get())
-            .filter(task -> task.getT1().equals(taskId))
-            .ifPresent(task -> task.getT2().cancel(MAY_INTERRUPT_IF_RUNNING));
+        Optional.ofNullable(runningTasks.get(taskId))
+            .ifPresent(future -> future.cancel(MAY_INTERRUPT_IF_RUNNING));
     }
 
     @Override
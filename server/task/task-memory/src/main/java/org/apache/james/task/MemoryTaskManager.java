@@ -30,6 +30,10 @@ import java.util.function.Consumer;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.reactivestreams.Publisher;
 
 import com.github.steveash.guavate.Guavate;
@@ -106,12 +110,17 @@ public class MemoryTaskManager implements TaskManager {
     private final TaskManagerWorker worker;
     private final ConcurrentHashMap<TaskId, TaskExecutionDetails> idToExecutionDetails;
 
-    @Inject
     public MemoryTaskManager(Hostname hostname) {
+        this(hostname, TaskConcurrencyConfiguration.DEFAULT, new NoopMetricFactory(), new NoopGaugeRegistry());
+    }
+
+    @Inject
+    public MemoryTaskManager(Hostname hostname, TaskConcurrencyConfiguration concurrencyConfiguration,
+                             MetricFactory metricFactory, GaugeRegistry gaugeRegistry) {
         this.hostname = hostname;
         this.idToExecutionDetails = new ConcurrentHashMap<>();
-        this.worker = new SerialTaskManagerWorker(updater(), UPDATE_INFORMATION_POLLING_DURATION);
-        workQueue = new MemoryWorkQueue(worker);
+        this.worker = new ConcurrentTaskManagerWorker(updater(), UPDATE_INFORMATION_POLLING_DURATION, concurrencyConfiguration.getMaxConcurrency());
+        workQueue = new MemoryWorkQueue(worker, new TaskConcurrencyLimiter(concurrencyConfiguration, metricFactory, gaugeRegistry));
     }
 
     public TaskId submit(Task task) {
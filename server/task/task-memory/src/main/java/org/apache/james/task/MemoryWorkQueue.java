@@ -21,6 +21,9 @@ package org.apache.james.task;
 
 import java.io.IOException;
 
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
+
 import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.UnicastProcessor;
@@ -28,21 +31,27 @@ import reactor.core.scheduler.Schedulers;
 
 public class MemoryWorkQueue implements WorkQueue {
     private final TaskManagerWorker worker;
+    private final TaskConcurrencyLimiter limiter;
     private final Disposable subscription;
     private final UnicastProcessor<TaskWithId> tasks;
 
     public MemoryWorkQueue(TaskManagerWorker worker) {
+        this(worker, new TaskConcurrencyLimiter(TaskConcurrencyConfiguration.DEFAULT, new NoopMetricFactory(), new NoopGaugeRegistry()));
+    }
+
+    public MemoryWorkQueue(TaskManagerWorker worker, TaskConcurrencyLimiter limiter) {
         this.worker = worker;
+        this.limiter = limiter;
         this.tasks = UnicastProcessor.create();
         this.subscription = tasks
             .subscribeOn(Schedulers.elastic())
-            .limitRate(1)
-            .concatMap(this::dispatchTaskToWorker)
+            // Waiting tasks are held by the limiter, bounding this flatMap would block other resource classes
+            .flatMap(this::dispatchTaskToWorker, Integer.MAX_VALUE)
             .subscribe();
     }
 
     private Mono<?> dispatchTaskToWorker(TaskWithId taskWithId) {
-        return worker.executeTask(taskWithId);
+        return limiter.execute(taskWithId, () -> worker.executeTask(taskWithId));
     }
 
     public void submit(TaskWithId taskWithId) {
@@ -51,6 +60,7 @@ public class MemoryWorkQueue implements WorkQueue {
 
     public void cancel(TaskId taskId) {
         worker.cancelTask(taskId);
+        limiter.cancel(taskId);
     }
 
     @Override
@@ -0,0 +1,160 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.task;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Bounds how many tasks a node runs at the same time.
+ *
+ * Each task type belongs to a resource class, which defaults to the task type name. Tasks of a resource class with a
+ * configured limit never run more than this limit concurrently, while the overall concurrency of the node is bounded by
+ * the max concurrency.
+ */
+public class TaskConcurrencyConfiguration {
+    public static final int DEFAULT_MAX_CONCURRENCY = 1;
+    public static final TaskConcurrencyConfiguration DEFAULT = builder().build();
+
+    private static final String MAX_CONCURRENCY_PROPERTY = "task.concurrency";
+    private static final String RESOURCE_CLASS_LIMIT_PREFIX = "task.concurrency.class";
+    private static final String TASK_TYPE_RESOURCE_CLASS_PREFIX = "task.resource.class";
+
+    public static class Builder {
+        private Optional<Integer> maxConcurrency;
+        private final ImmutableMap.Builder<String, Integer> resourceClassLimits;
+        private final ImmutableMap.Builder<TaskType, String> resourceClasses;
+
+        private Builder() {
+            maxConcurrency = Optional.empty();
+            resourceClassLimits = ImmutableMap.builder();
+            resourceClasses = ImmutableMap.builder();
+        }
+
+        public Builder maxConcurrency(int maxConcurrency) {
+            Preconditions.checkArgument(maxConcurrency > 0, "'maxConcurrency' should be strictly positive");
+            this.maxConcurrency = Optional.of(maxConcurrency);
+            return this;
+        }
+
+        public Builder resourceClassLimit(String resourceClass, int limit) {
+            Preconditions.checkArgument(!resourceClass.isEmpty(), "'resourceClass' should not be empty");
+            Preconditions.checkArgument(limit > 0, "Limit of resource class '%s' should be strictly positive", resourceClass);
+            resourceClassLimits.put(resourceClass, limit);
+            return this;
+        }
+
+        public Builder resourceClass(TaskType taskType, String resourceClass) {
+            Preconditions.checkArgument(!resourceClass.isEmpty(), "'resourceClass' should not be empty");
+            resourceClasses.put(taskType, resourceClass);
+            return this;
+        }
+
+        public TaskConcurrencyConfiguration build() {
+            return new TaskConcurrencyConfiguration(maxConcurrency.orElse(DEFAULT_MAX_CONCURRENCY),
+                resourceClassLimits.build(),
+                resourceClasses.build());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static TaskConcurrencyConfiguration from(Configuration configuration) {
+        Builder builder = builder()
+            .maxConcurrency(configuration.getInt(MAX_CONCURRENCY_PROPERTY, DEFAULT_MAX_CONCURRENCY));
+
+        Iterator<String> limitKeys = configuration.getKeys(RESOURCE_CLASS_LIMIT_PREFIX);
+        limitKeys.forEachRemaining(key -> builder.resourceClassLimit(suffix(key, RESOURCE_CLASS_LIMIT_PREFIX), configuration.getInt(key)));
+
+        Iterator<String> resourceClassKeys = configuration.getKeys(TASK_TYPE_RESOURCE_CLASS_PREFIX);
+        resourceClassKeys.forEachRemaining(key -> builder.resourceClass(TaskType.of(suffix(key, TASK_TYPE_RESOURCE_CLASS_PREFIX)), configuration.getString(key)));
+
+        return builder.build();
+    }
+
+    private static String suffix(String key, String prefix) {
+        return key.substring(prefix.length() + 1);
+    }
+
+    private final int maxConcurrency;
+    private final Map<String, Integer> resourceClassLimits;
+    private final Map<TaskType, String> resourceClasses;
+
+    private TaskConcurrencyConfiguration(int maxConcurrency, Map<String, Integer> resourceClassLimits, Map<TaskType, String> resourceClasses) {
+        this.maxConcurrency = maxConcurrency;
+        this.resourceClassLimits = resourceClassLimits;
+        this.resourceClasses = resourceClasses;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public Map<String, Integer> getResourceClassLimits() {
+        return resourceClassLimits;
+    }
+
+    public String resourceClassOf(TaskType taskType) {
+        return Optional.ofNullable(resourceClasses.get(taskType))
+            .orElse(taskType.asString());
+    }
+
+    public int limitOf(String resourceClass) {
+        return Optional.ofNullable(resourceClassLimits.get(resourceClass))
+            .map(limit -> Math.min(limit, maxConcurrency))
+            .orElse(maxConcurrency);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof TaskConcurrencyConfiguration) {
+            TaskConcurrencyConfiguration that = (TaskConcurrencyConfiguration) o;
+
+            return Objects.equals(this.maxConcurrency, that.maxConcurrency)
+                && Objects.equals(this.resourceClassLimits, that.resourceClassLimits)
+                && Objects.equals(this.resourceClasses, that.resourceClasses);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(maxConcurrency, resourceClassLimits, resourceClasses);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("maxConcurrency", maxConcurrency)
+            .add("resourceClassLimits", resourceClassLimits)
+            .add("resourceClasses", resourceClasses)
+            .toString();
+    }
+}
@@ -0,0 +1,261 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.task;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Admits tasks for execution according to a {@link TaskConcurrencyConfiguration}.
+ *
+ * Tasks waiting for a slot are queued per resource class. Whenever a slot is released, the resource class having room
+ * left that was admitted the least recently is served first. This round robin ensures a burst of tasks of a given type
+ * can not starve the other types. Within a resource class, tasks are admitted in submission order.
+ *
+ * Cancelling a waiting task admits it right away, without consuming a slot, so that its cancellation gets reported
+ * without waiting for the tasks ahead of it.
+ *
+ * Cancellations are broadcast to every node, including the ones that will never receive the task. Cancellations of
+ * tasks not submitted yet are hence only remembered for a bounded time, and up to a bounded count.
+ */
+public class TaskConcurrencyLimiter {
+    public static final String QUEUE_DEPTH_METRIC_NAME = "taskExecutionQueueDepth";
+    public static final String RUNNING_TASKS_METRIC_NAME = "taskExecutionRunningTasks";
+    public static final String WAIT_TIME_METRIC_NAME = "taskExecutionWaitTime";
+    public static final String RESOURCE_CLASS_QUEUE_DEPTH_METRIC_NAME_PREFIX = "taskExecutionQueueDepth:";
+
+    private static final long NEVER_ADMITTED = 0L;
+    private static final Duration CANCELLED_BEFORE_SUBMISSION_RETENTION = Duration.ofHours(1);
+    private static final long CANCELLED_BEFORE_SUBMISSION_MAX_SIZE = 10_000L;
+
+    private enum State {
+        WAITING,
+        RUNNING,
+        BYPASSED,
+        TERMINATED
+    }
+
+    private static class Admission {
+        private final TaskId taskId;
+        private final String resourceClass;
+        private final Sinks.Empty<Void> sink;
+        private final TimeMetric waitTime;
+        private State state;
+
+        Admission(TaskId taskId, String resourceClass, TimeMetric waitTime) {
+            this.taskId = taskId;
+            this.resourceClass = resourceClass;
+            this.waitTime = waitTime;
+            this.sink = Sinks.empty();
+            this.state = State.WAITING;
+        }
+    }
+
+    private final TaskConcurrencyConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final LinkedHashMap<String, Deque<Admission>> waiting;
+    private final Map<String, Integer> runningByResourceClass;
+    private final Map<String, Long> lastAdmissions;
+    private final Map<TaskId, Admission> admissions;
+    private final Cache<TaskId, Boolean> cancelledBeforeSubmission;
+    private long admissionSequence;
+    private int runningCount;
+    private int waitingCount;
+
+    public TaskConcurrencyLimiter(TaskConcurrencyConfiguration configuration, MetricFactory metricFactory, GaugeRegistry gaugeRegistry) {
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.waiting = new LinkedHashMap<>();
+        this.runningByResourceClass = new HashMap<>();
+        this.lastAdmissions = new HashMap<>();
+        this.admissions = new HashMap<>();
+        this.cancelledBeforeSubmission = CacheBuilder.newBuilder()
+            .expireAfterWrite(CANCELLED_BEFORE_SUBMISSION_RETENTION)
+            .maximumSize(CANCELLED_BEFORE_SUBMISSION_MAX_SIZE)
+            .build();
+
+        gaugeRegistry.register(QUEUE_DEPTH_METRIC_NAME, this::waitingCount);
+        gaugeRegistry.register(RUNNING_TASKS_METRIC_NAME, this::runningCount);
+        configuration.getResourceClassLimits().keySet()
+            .forEach(resourceClass -> gaugeRegistry.register(RESOURCE_CLASS_QUEUE_DEPTH_METRIC_NAME_PREFIX + resourceClass,
+                () -> waitingCount(resourceClass)));
+    }
+
+    /**
+     * Subscribes to the supplied execution once the task is admitted. Its slot is released upon termination or
+     * cancellation of the returned {@link Mono}.
+     */
+    public <T> Mono<T> execute(TaskWithId taskWithId, Supplier<Mono<T>> execution) {
+        return Mono.defer(() -> {
+            Admission admission = enqueue(taskWithId);
+            return admission.sink.asMono()
+                .then(Mono.defer(execution))
+                .doFinally(any -> release(admission));
+        });
+    }
+
+    public void cancel(TaskId taskId) {
+        Optional<Admission> bypassed = bypass(taskId);
+        bypassed.ifPresent(admission -> admission.sink.tryEmitEmpty());
+    }
+
+    @VisibleForTesting
+    synchronized int waitingCount() {
+        return waitingCount;
+    }
+
+    @VisibleForTesting
+    synchronized int runningCount() {
+        return runningCount;
+    }
+
+    @VisibleForTesting
+    long cancelledBeforeSubmissionCount() {
+        cancelledBeforeSubmission.cleanUp();
+        return cancelledBeforeSubmission.size();
+    }
+
+    private synchronized int waitingCount(String resourceClass) {
+        return Optional.ofNullable(waiting.get(resourceClass))
+            .map(Deque::size)
+            .orElse(0);
+    }
+
+    private Admission enqueue(TaskWithId taskWithId) {
+        String resourceClass = configuration.resourceClassOf(taskWithId.getTask().type());
+        Admission admission = new Admission(taskWithId.getId(), resourceClass, metricFactory.timer(WAIT_TIME_METRIC_NAME));
+        synchronized (this) {
+            if (cancelledBeforeSubmission.asMap().remove(admission.taskId) != null) {
+                admission.state = State.BYPASSED;
+                admission.sink.tryEmitEmpty();
+                return admission;
+            }
+            admissions.put(admission.taskId, admission);
+            waiting.computeIfAbsent(resourceClass, any -> new ArrayDeque<>()).add(admission);
+            waitingCount++;
+        }
+        admitWaitingTasks();
+        return admission;
+    }
+
+    private void release(Admission admission) {
+        synchronized (this) {
+            switch (admission.state) {
+                case WAITING:
+                    removeWaiting(admission);
+                    break;
+                case RUNNING:
+                    runningCount--;
+                    runningByResourceClass.merge(admission.resourceClass, -1, Integer::sum);
+                    break;
+                default:
+                    break;
+            }
+            admission.state = State.TERMINATED;
+            admissions.remove(admission.taskId, admission);
+        }
+        admitWaitingTasks();
+    }
+
+    private synchronized Optional<Admission> bypass(TaskId taskId) {
+        Admission admission = admissions.get(taskId);
+        if (admission == null) {
+            // The cancellation might be processed before the task reaches the limiter
+            cancelledBeforeSubmission.put(taskId, true);
+            return Optional.empty();
+        }
+        if (admission.state != State.WAITING) {
+            return Optional.empty();
+        }
+        removeWaiting(admission);
+        admission.state = State.BYPASSED;
+        return Optional.of(admission);
+    }
+
+    private void removeWaiting(Admission admission) {
+        Deque<Admission> queue = waiting.get(admission.resourceClass);
+        if (queue != null && queue.remove(admission)) {
+            waitingCount--;
+        }
+    }
+
+    private void admitWaitingTasks() {
+        // Sinks are completed outside of the lock as subscribers run the admitted execution synchronously
+        selectAdmissions().forEach(admission -> {
+            admission.waitTime.stopAndPublish();
+            admission.sink.tryEmitEmpty();
+        });
+    }
+
+    private synchronized List<Admission> selectAdmissions() {
+        ImmutableList.Builder<Admission> admitted = ImmutableList.builder();
+        while (runningCount < configuration.getMaxConcurrency()) {
+            Optional<String> eligibleResourceClass = waiting.entrySet()
+                .stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .filter(this::hasRoomLeft)
+                .min(Comparator.comparingLong(this::lastAdmission));
+            if (eligibleResourceClass.isEmpty()) {
+                break;
+            }
+            admitted.add(admitNext(eligibleResourceClass.get()));
+        }
+        return admitted.build();
+    }
+
+    private long lastAdmission(String resourceClass) {
+        return lastAdmissions.getOrDefault(resourceClass, NEVER_ADMITTED);
+    }
+
+    private boolean hasRoomLeft(String resourceClass) {
+        return runningByResourceClass.getOrDefault(resourceClass, 0) < configuration.limitOf(resourceClass);
+    }
+
+    private Admission admitNext(String resourceClass) {
+        Admission admission = waiting.get(resourceClass).poll();
+        lastAdmissions.put(resourceClass, ++admissionSequence);
+        waitingCount--;
+        runningCount++;
+        runningByResourceClass.merge(resourceClass, 1, Integer::sum);
+        admission.state = State.RUNNING;
+        return admission;
+    }
+}
@@ -44,11 +44,11 @@ import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-class SerialTaskManagerWorkerTest {
+class ConcurrentTaskManagerWorkerTest {
     private  static final Duration UPDATE_INFORMATION_POLLING_DURATION = Duration.ofMillis(100);
 
     private TaskManagerWorker.Listener listener;
-    private SerialTaskManagerWorker worker;
+    private ConcurrentTaskManagerWorker worker;
 
     private final Task successfulTask = new CompletedTask();
     private final Task failedTask = new FailedTask();
@@ -64,7 +64,7 @@ class SerialTaskManagerWorkerTest {
         when(listener.failed(any(), any())).thenReturn(Mono.empty());
         when(listener.failed(any(), any(), any())).thenReturn(Mono.empty());
         when(listener.failed(any(), any(), any(), any())).thenReturn(Mono.empty());
-        worker = new SerialTaskManagerWorker(listener, UPDATE_INFORMATION_POLLING_DURATION);
+        worker = new ConcurrentTaskManagerWorker(listener, UPDATE_INFORMATION_POLLING_DURATION);
     }
 
     @AfterEach
@@ -235,6 +235,57 @@ class SerialTaskManagerWorkerTest {
     }
 
 
+    @Test
+    void aConcurrentWorkerShouldRunTasksInParallel() throws Exception {
+        try (ConcurrentTaskManagerWorker concurrentWorker = new ConcurrentTaskManagerWorker(listener, UPDATE_INFORMATION_POLLING_DURATION, 2)) {
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            Task task = new MemoryReferenceTask(() -> {
+                bothStarted.countDown();
+                await(bothStarted);
+                return Task.Result.COMPLETED;
+            });
+
+            Flux<Task.Result> results = Flux.merge(
+                concurrentWorker.executeTask(new TaskWithId(TaskId.generateTaskId(), task)),
+                concurrentWorker.executeTask(new TaskWithId(TaskId.generateTaskId(), task)));
+
+            assertThat(results.collectList().block(Duration.ofSeconds(10)))
+                .containsExactly(Task.Result.COMPLETED, Task.Result.COMPLETED);
+        }
+    }
+
+    @Test
+    void cancellingATaskShouldNotCancelOtherRunningTasks() throws Exception {
+        try (ConcurrentTaskManagerWorker concurrentWorker = new ConcurrentTaskManagerWorker(listener, UPDATE_INFORMATION_POLLING_DURATION, 2)) {
+            TaskId cancelledId = TaskId.generateTaskId();
+            TaskId otherId = TaskId.generateTaskId();
+            CountDownLatch latch = new CountDownLatch(1);
+            Task task = new MemoryReferenceTask(() -> {
+                await(latch);
+                return Task.Result.COMPLETED;
+            });
+
+            Mono<Task.Result> cancelledResult = concurrentWorker.executeTask(new TaskWithId(cancelledId, task)).cache();
+            Mono<Task.Result> otherResult = concurrentWorker.executeTask(new TaskWithId(otherId, task)).cache();
+            cancelledResult.subscribe();
+            otherResult.subscribe();
+            Awaitility.waitAtMost(TEN_SECONDS)
+                .untilAsserted(() -> {
+                    verify(listener, atLeastOnce()).started(cancelledId);
+                    verify(listener, atLeastOnce()).started(otherId);
+                });
+
+            concurrentWorker.cancelTask(cancelledId);
+            cancelledResult.block(Duration.ofSeconds(10));
+            latch.countDown();
+
+            assertThat(otherResult.block(Duration.ofSeconds(10))).isEqualTo(Task.Result.COMPLETED);
+            verify(listener, atLeastOnce()).cancelled(cancelledId, Optional.empty());
+            verify(listener, atLeastOnce()).completed(otherId, Task.Result.COMPLETED, Optional.empty());
+        }
+    }
+
+
     private void await(CountDownLatch countDownLatch) throws InterruptedException {
         countDownLatch.await();
     }
@@ -19,8 +19,16 @@
 
 package org.apache.james.task;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 @ExtendWith(CountDownLatchExtension.class)
@@ -42,4 +50,43 @@ class MemoryTaskManagerTest implements TaskManagerContract {
     public TaskManager taskManager() {
         return memoryTaskManager;
     }
-}
\ No newline at end of file
+
+    @Test
+    void tasksShouldRunConcurrentlyWhenConfigured() throws Exception {
+        MemoryTaskManager concurrentTaskManager = new MemoryTaskManager(new Hostname("foo"),
+            TaskConcurrencyConfiguration.builder().maxConcurrency(2).build(),
+            new RecordingMetricFactory(), new NoopGaugeRegistry());
+        try {
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            Task task = new MemoryReferenceTask(() -> {
+                bothStarted.countDown();
+                bothStarted.await();
+                return Task.Result.COMPLETED;
+            });
+
+            TaskId first = concurrentTaskManager.submit(task);
+            TaskId second = concurrentTaskManager.submit(task);
+
+            assertThat(concurrentTaskManager.await(first, Duration.ofSeconds(10)).getStatus()).isEqualTo(TaskManager.Status.COMPLETED);
+            assertThat(concurrentTaskManager.await(second, Duration.ofSeconds(10)).getStatus()).isEqualTo(TaskManager.Status.COMPLETED);
+        } finally {
+            concurrentTaskManager.stop();
+        }
+    }
+
+    @Test
+    void cancellingAWaitingTaskShouldNotWaitForTheRunningOne() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        TaskId running = memoryTaskManager.submit(new MemoryReferenceTask(() -> {
+            latch.await();
+            return Task.Result.COMPLETED;
+        }));
+        TaskId waiting = memoryTaskManager.submit(new MemoryReferenceTask(() -> Task.Result.COMPLETED));
+
+        memoryTaskManager.cancel(waiting);
+
+        assertThat(memoryTaskManager.await(waiting, Duration.ofSeconds(10)).getStatus()).isEqualTo(TaskManager.Status.CANCELLED);
+        assertThat(memoryTaskManager.getExecutionDetails(running).getStatus()).isNotEqualTo(TaskManager.Status.COMPLETED);
+        latch.countDown();
+    }
+}
@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+
+class TaskConcurrencyConfigurationTest {
+    private static final TaskType FULL_REINDEXING = TaskType.of("full-reindexing");
+    private static final TaskType SINGLE_MAILBOX_REINDEXING = TaskType.of("mailbox-reindexing");
+
+    @Test
+    void shouldMatchBeanContract() {
+        EqualsVerifier.forClass(TaskConcurrencyConfiguration.class)
+            .verify();
+    }
+
+    @Test
+    void fromShouldReturnDefaultWhenEmpty() {
+        assertThat(TaskConcurrencyConfiguration.from(new PropertiesConfiguration()))
+            .isEqualTo(TaskConcurrencyConfiguration.DEFAULT);
+    }
+
+    @Test
+    void fromShouldParseAllProperties() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("task.concurrency", "4");
+        configuration.addProperty("task.concurrency.class.reindexing", "1");
+        configuration.addProperty("task.resource.class.full-reindexing", "reindexing");
+        configuration.addProperty("task.resource.class.mailbox-reindexing", "reindexing");
+
+        assertThat(TaskConcurrencyConfiguration.from(configuration))
+            .isEqualTo(TaskConcurrencyConfiguration.builder()
+                .maxConcurrency(4)
+                .resourceClassLimit("reindexing", 1)
+                .resourceClass(FULL_REINDEXING, "reindexing")
+                .resourceClass(SINGLE_MAILBOX_REINDEXING, "reindexing")
+                .build());
+    }
+
+    @Test
+    void fromShouldRejectNonPositiveConcurrency() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("task.concurrency", "0");
+
+        assertThatThrownBy(() -> TaskConcurrencyConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromShouldRejectNonPositiveResourceClassLimit() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("task.concurrency.class.reindexing", "-1");
+
+        assertThatThrownBy(() -> TaskConcurrencyConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void resourceClassShouldDefaultToTheTaskType() {
+        assertThat(TaskConcurrencyConfiguration.DEFAULT.resourceClassOf(FULL_REINDEXING))
+            .isEqualTo(FULL_REINDEXING.asString());
+    }
+
+    @Test
+    void limitShouldDefaultToMaxConcurrency() {
+        TaskConcurrencyConfiguration configuration = TaskConcurrencyConfiguration.builder()
+            .maxConcurrency(3)
+            .build();
+
+        assertThat(configuration.limitOf("any")).isEqualTo(3);
+    }
+
+    @Test
+    void limitShouldNotExceedMaxConcurrency() {
+        TaskConcurrencyConfiguration configuration = TaskConcurrencyConfiguration.builder()
+            .maxConcurrency(2)
+            .resourceClassLimit("reindexing", 5)
+            .build();
+
+        assertThat(configuration.limitOf("reindexing")).isEqualTo(2);
+    }
+}
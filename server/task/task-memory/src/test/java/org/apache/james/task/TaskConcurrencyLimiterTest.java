@@ -0,0 +1,298 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class TaskConcurrencyLimiterTest {
+    private static final TaskType TYPE_A = TaskType.of("type-a");
+    private static final TaskType TYPE_B = TaskType.of("type-b");
+
+    private RecordingMetricFactory metricFactory;
+    private List<TaskId> started;
+    private Map<TaskId, Sinks.Empty<Void>> completions;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+        started = new CopyOnWriteArrayList<>();
+        completions = new ConcurrentHashMap<>();
+    }
+
+    private TaskConcurrencyLimiter limiter(TaskConcurrencyConfiguration configuration) {
+        return new TaskConcurrencyLimiter(configuration, metricFactory, new NoopGaugeRegistry());
+    }
+
+    private TaskWithId task(TaskType type) {
+        Task task = new Task() {
+            @Override
+            public Result run() {
+                return Result.COMPLETED;
+            }
+
+            @Override
+            public TaskType type() {
+                return type;
+            }
+        };
+        return new TaskWithId(TaskId.generateTaskId(), task);
+    }
+
+    private Disposable submit(TaskConcurrencyLimiter limiter, TaskWithId taskWithId) {
+        Sinks.Empty<Void> completion = Sinks.empty();
+        completions.put(taskWithId.getId(), completion);
+        return limiter.execute(taskWithId, () -> {
+            started.add(taskWithId.getId());
+            return completion.asMono();
+        }).subscribe();
+    }
+
+    private void complete(TaskWithId taskWithId) {
+        completions.get(taskWithId.getId()).tryEmitEmpty();
+    }
+
+    @Test
+    void tasksShouldRunOneAtATimeByDefault() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_B);
+
+        submit(testee, first);
+        submit(testee, second);
+
+        assertThat(started).containsExactly(first.getId());
+        assertThat(testee.runningCount()).isEqualTo(1);
+        assertThat(testee.waitingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completingATaskShouldAdmitTheNextOne() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        submit(testee, first);
+        submit(testee, second);
+
+        complete(first);
+
+        assertThat(started).containsExactly(first.getId(), second.getId());
+        assertThat(testee.runningCount()).isEqualTo(1);
+        assertThat(testee.waitingCount()).isZero();
+    }
+
+    @Test
+    void maxConcurrencyShouldBeEnforced() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.builder()
+            .maxConcurrency(2)
+            .build());
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        TaskWithId third = task(TYPE_B);
+
+        submit(testee, first);
+        submit(testee, second);
+        submit(testee, third);
+
+        assertThat(started).containsExactly(first.getId(), second.getId());
+        assertThat(testee.waitingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resourceClassLimitShouldNotBlockOtherResourceClasses() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.builder()
+            .maxConcurrency(2)
+            .resourceClassLimit(TYPE_A.asString(), 1)
+            .build());
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        TaskWithId third = task(TYPE_B);
+
+        submit(testee, first);
+        submit(testee, second);
+        submit(testee, third);
+
+        assertThat(started).containsExactly(first.getId(), third.getId());
+    }
+
+    @Test
+    void taskTypesSharingAResourceClassShouldShareItsLimit() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.builder()
+            .maxConcurrency(2)
+            .resourceClass(TYPE_A, "heavy")
+            .resourceClass(TYPE_B, "heavy")
+            .resourceClassLimit("heavy", 1)
+            .build());
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_B);
+
+        submit(testee, first);
+        submit(testee, second);
+
+        assertThat(started).containsExactly(first.getId());
+    }
+
+    @Test
+    void waitingTasksShouldBeAdmittedInRoundRobinAcrossResourceClasses() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId a1 = task(TYPE_A);
+        TaskWithId a2 = task(TYPE_A);
+        TaskWithId a3 = task(TYPE_A);
+        TaskWithId b1 = task(TYPE_B);
+        submit(testee, a1);
+        submit(testee, a2);
+        submit(testee, a3);
+        submit(testee, b1);
+
+        complete(a1);
+        complete(b1);
+        complete(a2);
+
+        assertThat(started).containsExactly(a1.getId(), b1.getId(), a2.getId(), a3.getId());
+    }
+
+    @Test
+    void cancellingAWaitingTaskShouldRunItWithoutConsumingASlot() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        submit(testee, first);
+        submit(testee, second);
+
+        testee.cancel(second.getId());
+
+        assertThat(started).containsExactly(first.getId(), second.getId());
+        assertThat(testee.runningCount()).isEqualTo(1);
+        assertThat(testee.waitingCount()).isZero();
+    }
+
+    @Test
+    void cancellingATaskBeforeItsSubmissionShouldRunItWithoutConsumingASlot() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        submit(testee, first);
+
+        testee.cancel(second.getId());
+        submit(testee, second);
+
+        assertThat(started).containsExactly(first.getId(), second.getId());
+        assertThat(testee.runningCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cancellationsOfTasksNeverSubmittedShouldBeBounded() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+
+        for (int i = 0; i < 20_000; i++) {
+            testee.cancel(TaskId.generateTaskId());
+        }
+
+        assertThat(testee.cancelledBeforeSubmissionCount()).isLessThanOrEqualTo(10_000L);
+    }
+
+    @Test
+    void cancellingARunningTaskShouldNotAffectTheLimiter() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        submit(testee, first);
+        submit(testee, second);
+
+        testee.cancel(first.getId());
+
+        assertThat(started).containsExactly(first.getId());
+        assertThat(testee.runningCount()).isEqualTo(1);
+        assertThat(testee.waitingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completingABypassedTaskShouldNotReleaseASlot() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        TaskWithId third = task(TYPE_A);
+        submit(testee, first);
+        submit(testee, second);
+        submit(testee, third);
+        testee.cancel(second.getId());
+
+        complete(second);
+
+        assertThat(started).containsExactly(first.getId(), second.getId());
+        assertThat(testee.waitingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void disposingAWaitingTaskShouldRemoveItFromTheQueue() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        TaskWithId second = task(TYPE_A);
+        submit(testee, first);
+        Disposable waiting = submit(testee, second);
+
+        waiting.dispose();
+        complete(first);
+
+        assertThat(started).containsExactly(first.getId());
+        assertThat(testee.runningCount()).isZero();
+        assertThat(testee.waitingCount()).isZero();
+    }
+
+    @Test
+    void failingTasksShouldReleaseTheirSlot() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId second = task(TYPE_A);
+        testee.execute(task(TYPE_A), () -> Mono.error(new RuntimeException()))
+            .onErrorResume(any -> Mono.empty())
+            .subscribe();
+
+        submit(testee, second);
+
+        assertThat(started).containsExactly(second.getId());
+    }
+
+    @Test
+    void waitTimeShouldBeRecordedUponAdmission() {
+        TaskConcurrencyLimiter testee = limiter(TaskConcurrencyConfiguration.DEFAULT);
+        TaskWithId first = task(TYPE_A);
+        submit(testee, first);
+        submit(testee, task(TYPE_A));
+
+        assertThat(metricFactory.executionTimesFor(TaskConcurrencyLimiter.WAIT_TIME_METRIC_NAME)).hasSize(1);
+
+        complete(first);
+
+        assertThat(metricFactory.executionTimesFor(TaskConcurrencyLimiter.WAIT_TIME_METRIC_NAME)).hasSize(2);
+    }
+}